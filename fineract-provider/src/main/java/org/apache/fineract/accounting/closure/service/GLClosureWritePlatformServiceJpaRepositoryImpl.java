@@ -54,6 +54,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
     private final GLClosureRepository glClosureRepository;
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
     private final GLClosureCommandFromApiJsonDeserializer fromApiJsonDeserializer;
+    private final LatestGLClosureCache latestGLClosureCache;
 
     @Transactional
     @Override
@@ -82,6 +83,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
             final GLClosure glClosure = GLClosure.fromJson(office, command);
 
             this.glClosureRepository.saveAndFlush(glClosure);
+            this.latestGLClosureCache.evict();
 
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withOfficeId(officeId)
                     .withEntityId(glClosure.getId()).build();
@@ -106,6 +108,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
 
         if (!changesOnly.isEmpty()) {
             this.glClosureRepository.saveAndFlush(glClosure);
+            this.latestGLClosureCache.evict();
         }
 
         return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withOfficeId(glClosure.getOffice().getId())
@@ -129,6 +132,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
         }
 
         this.glClosureRepository.delete(glClosure);
+        this.latestGLClosureCache.evict();
 
         return new CommandProcessingResultBuilder().withOfficeId(glClosure.getOffice().getId()).withEntityId(glClosure.getId()).build();
     }
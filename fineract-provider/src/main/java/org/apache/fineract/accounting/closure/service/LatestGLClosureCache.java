@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.closure.service;
+
+import java.util.Date;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.infrastructure.core.service.TransactionScopedCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The latest accounting closure date of the offices, checked by the accounting processors for every journal entry leg.
+ *
+ * Read from <code>acc_gl_closure</code> once per office and transaction, so a transaction posting many legs of an office
+ * reads it once. It is never kept beyond the transaction: a closure saved on any node applies to the next transaction
+ * on every node, whichever platform cache is switched on.
+ */
+@Component
+@RequiredArgsConstructor
+public class LatestGLClosureCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionScopedCache<Long, Date> closingDates = new TransactionScopedCache<>();
+
+    /**
+     * @return the closing date of the latest closure of the office, or <code>null</code> when the office was never
+     *         closed
+     */
+    public Date getLatestClosingDate(final Long officeId) {
+        return this.closingDates.get(officeId, this::loadClosingDate);
+    }
+
+    /**
+     * Drops the closing dates read by the current transaction, called when it creates, updates or deletes a closure.
+     */
+    public void evict() {
+        this.closingDates.clear();
+    }
+
+    private Date loadClosingDate(final Long officeId) {
+        final List<Date> closingDates = this.jdbcTemplate.query(
+                "select max(closing_date) as closing_date from acc_gl_closure where office_id = ? and is_deleted = false",
+                (rs, rowNum) -> rs.getDate("closing_date"), officeId);
+        return closingDates.isEmpty() ? null : closingDates.get(0);
+    }
+}
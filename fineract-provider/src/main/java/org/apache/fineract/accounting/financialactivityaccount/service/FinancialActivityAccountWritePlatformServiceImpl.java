@@ -33,6 +33,7 @@ import org.apache.fineract.accounting.financialactivityaccount.exception.Financi
 import org.apache.fineract.accounting.financialactivityaccount.serialization.FinancialActivityAccountDataValidator;
 import org.apache.fineract.accounting.glaccount.domain.GLAccount;
 import org.apache.fineract.accounting.glaccount.domain.GLAccountRepositoryWrapper;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
 import org.apache.fineract.infrastructure.core.api.JsonCommand;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResultBuilder;
@@ -50,6 +51,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository;
     private final FinancialActivityAccountDataValidator fromApiJsonDeserializer;
     private final GLAccountRepositoryWrapper glAccountRepositoryWrapper;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
 
     @Override
     public CommandProcessingResult createFinancialActivityAccountMapping(JsonCommand command) {
@@ -65,6 +67,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
 
             validateFinancialActivityAndAccountMapping(financialActivityAccount);
             this.financialActivityAccountRepository.saveAndFlush(financialActivityAccount);
+            this.accountMappingResolver.evict();
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
                     .withEntityId(financialActivityAccount.getId()) //
@@ -113,6 +116,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
             if (!changes.isEmpty()) {
                 validateFinancialActivityAndAccountMapping(financialActivityAccount);
                 this.financialActivityAccountRepository.saveAndFlush(financialActivityAccount);
+                this.accountMappingResolver.evict();
             }
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
@@ -134,6 +138,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
         final FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
                 .findOneWithNotFoundDetection(financialActivityAccountId);
         this.financialActivityAccountRepository.delete(financialActivityAccount);
+        this.accountMappingResolver.evict();
         return new CommandProcessingResultBuilder() //
                 .withCommandId(command.commandId()) //
                 .withEntityId(financialActivityAccountId) //
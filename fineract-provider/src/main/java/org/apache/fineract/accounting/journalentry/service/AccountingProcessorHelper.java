@@ -28,14 +28,12 @@ import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.fineract.accounting.closure.domain.GLClosure;
-import org.apache.fineract.accounting.closure.domain.GLClosureRepository;
+import org.apache.fineract.accounting.closure.service.LatestGLClosureCache;
 import org.apache.fineract.accounting.common.AccountingConstants.AccrualAccountsForLoan;
 import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForLoan;
 import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForSavings;
 import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForShares;
 import org.apache.fineract.accounting.common.AccountingConstants.FinancialActivity;
-import org.apache.fineract.accounting.financialactivityaccount.domain.FinancialActivityAccount;
 import org.apache.fineract.accounting.financialactivityaccount.domain.FinancialActivityAccountRepositoryWrapper;
 import org.apache.fineract.accounting.glaccount.domain.GLAccount;
 import org.apache.fineract.accounting.glaccount.domain.GLAccountRepositoryWrapper;
@@ -55,9 +53,9 @@ import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
 import org.apache.fineract.accounting.journalentry.exception.JournalEntryInvalidException;
 import org.apache.fineract.accounting.journalentry.exception.JournalEntryInvalidException.GlJournalEntryInvalidReason;
 import org.apache.fineract.accounting.producttoaccountmapping.domain.PortfolioProductType;
-import org.apache.fineract.accounting.producttoaccountmapping.domain.ProductToGLAccountMapping;
-import org.apache.fineract.accounting.producttoaccountmapping.domain.ProductToGLAccountMappingRepository;
 import org.apache.fineract.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 import org.apache.fineract.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.apache.fineract.organisation.monetary.data.CurrencyData;
@@ -90,9 +88,9 @@ public class AccountingProcessorHelper {
     public static final String SHARE_TRANSACTION_IDENTIFIER = "SH";
 
     private final JournalEntryRepository glJournalEntryRepository;
-    private final ProductToGLAccountMappingRepository accountMappingRepository;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository;
-    private final GLClosureRepository closureRepository;
+    private final LatestGLClosureCache latestGLClosureCache;
     private final GLAccountRepositoryWrapper accountRepositoryWrapper;
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
     private final LoanTransactionRepository loanTransactionRepository;
@@ -100,6 +98,7 @@ public class AccountingProcessorHelper {
     private final SavingsAccountTransactionRepository savingsAccountTransactionRepository;
     private final AccountTransfersReadPlatformService accountTransfersReadPlatformService;
     private final ChargeRepositoryWrapper chargeRepositoryWrapper;
+    private final FineractProperties fineractProperties;
 
     public LoanDTO populateLoanDtoFromMap(final Map<String, Object> accountingBridgeData, final boolean cashBasedAccountingEnabled,
             final boolean upfrontAccrualBasedAccountingEnabled, final boolean periodicAccrualBasedAccountingEnabled) {
@@ -508,25 +507,23 @@ public class AccountingProcessorHelper {
     }
 
     /**
-     * @param latestGLClosure
+     * @param latestClosingDate
      * @param transactionDate
      */
-    public void checkForBranchClosures(final GLClosure latestGLClosure, final Date transactionDate) {
+    public void checkForBranchClosures(final Date latestClosingDate, final Date transactionDate) {
         /**
          * check if an accounting closure has happened for this branch after the transaction Date
          **/
-        if (latestGLClosure != null) {
-            if (latestGLClosure.getClosingDate().after(transactionDate) || latestGLClosure.getClosingDate().compareTo(transactionDate) == 0
-                    ? Boolean.TRUE
+        if (latestClosingDate != null) {
+            if (latestClosingDate.after(transactionDate) || latestClosingDate.compareTo(transactionDate) == 0 ? Boolean.TRUE
                     : Boolean.FALSE) {
-                throw new JournalEntryInvalidException(GlJournalEntryInvalidReason.ACCOUNTING_CLOSED, latestGLClosure.getClosingDate(),
-                        null, null);
+                throw new JournalEntryInvalidException(GlJournalEntryInvalidReason.ACCOUNTING_CLOSED, latestClosingDate, null, null);
             }
         }
     }
 
-    public GLClosure getLatestClosureByBranch(final long officeId) {
-        return this.closureRepository.getLatestGLClosureByBranch(officeId);
+    public Date getLatestClosingDateByBranch(final long officeId) {
+        return this.latestGLClosureCache.getLatestClosingDate(officeId);
     }
 
     public Office getOfficeById(final long officeId) {
@@ -818,7 +815,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.CLIENT.getValue(), clientId, null,
                 loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createCreditJournalEntryForSavings(final Office office, final String currencyCode, final GLAccount account,
@@ -840,7 +837,7 @@ public class AccountingProcessorHelper {
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId,
                 null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
 
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createCreditJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account, final Long loanId,
@@ -860,7 +857,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId, null,
                 loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     public void createProvisioningDebitJournalEntry(Date transactionDate, Long provisioningentryId, Office office, String currencyCode,
@@ -875,7 +872,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.PROVISIONING.getValue(),
                 provisioningentryId, null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     public void createProvisioningCreditJournalEntry(Date transactionDate, Long provisioningentryId, Office office, String currencyCode,
@@ -890,7 +887,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.PROVISIONING.getValue(),
                 provisioningentryId, null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createDebitJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account, final Long loanId,
@@ -910,7 +907,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId, null,
                 loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createDebitJournalEntryForSavings(final Office office, final String currencyCode, final GLAccount account,
@@ -931,7 +928,7 @@ public class AccountingProcessorHelper {
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId, null,
                 loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
 
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createDebitJournalEntryForClientPayments(final Office office, final String currencyCode, final GLAccount account,
@@ -950,7 +947,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.CLIENT.getValue(), clientId, null,
                 loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     public void createJournalEntriesForShares(final Office office, final String currencyCode, final int accountTypeToDebitId,
@@ -1067,7 +1064,7 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.SHARES.getValue(), shareAccountId,
                 null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     private void createCreditJournalEntryForShares(final Office office, final String currencyCode, final GLAccount account,
@@ -1086,44 +1083,38 @@ public class AccountingProcessorHelper {
         final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
                 manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.SHARES.getValue(), shareAccountId,
                 null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        saveJournalEntry(journalEntry);
     }
 
     public GLAccount getLinkedGLAccountForLoanProduct(final Long loanProductId, final int accountMappingTypeId, final Long paymentTypeId) {
-        GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
-        } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                    PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
-
-            /****
-             * Get more specific mapping for FUND source accounts (based on payment channels). Note that fund source
-             * placeholder ID would be same for both cash and accrual accounts
-             ***/
-            if (accountMappingTypeId == CashAccountsForLoan.FUND_SOURCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(loanProductId,
-                                PortfolioProductType.LOAN.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
-                }
-            }
+            return getFinancialActivityGLAccount(accountMappingTypeId);
+        }
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(loanProductId, PortfolioProductType.LOAN.getValue(),
+                accountMappingTypeId);
 
-            if (accountMapping == null) {
-                throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
-                        AccrualAccountsForLoan.OVERPAYMENT.toString());
+        /****
+         * Get more specific mapping for FUND source accounts (based on payment channels). Note that fund source
+         * placeholder ID would be same for both cash and accrual accounts
+         ***/
+        if (accountMappingTypeId == CashAccountsForLoan.FUND_SOURCE.getValue()) {
+            final Long paymentChannelSpecificAccountId = this.accountMappingResolver.findPaymentTypeMappingAccountId(loanProductId,
+                    PortfolioProductType.LOAN.getValue(), accountMappingTypeId, paymentTypeId);
+            if (paymentChannelSpecificAccountId != null) {
+                glAccountId = paymentChannelSpecificAccountId;
             }
-            glAccount = accountMapping.getGlAccount();
         }
-        return glAccount;
+
+        if (glAccountId == null) {
+            throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
+                    AccrualAccountsForLoan.OVERPAYMENT.toString());
+        }
+        return getGLAccountById(glAccountId);
     }
 
     private GLAccount getLinkedGLAccountForLoanCharges(final Long loanProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(loanProductId, PortfolioProductType.LOAN.getValue(),
+                accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the actual charge /penalty coupled with the
          * loan product). Note the income from fees and income from penalties placeholder ID would be the same for both
@@ -1133,21 +1124,20 @@ public class AccountingProcessorHelper {
         // Vishwas TODO: remove this condition as it should always be true
         if (accountMappingTypeId == CashAccountsForLoan.INCOME_FROM_FEES.getValue()
                 || accountMappingTypeId == CashAccountsForLoan.INCOME_FROM_PENALTIES.getValue()) {
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(loanProductId, PortfolioProductType.LOAN.getValue(),
-                            accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
-                accountMapping = chargeSpecificIncomeAccountMapping;
+            final Long chargeSpecificIncomeAccountId = this.accountMappingResolver.findChargeMappingAccountId(loanProductId,
+                    PortfolioProductType.LOAN.getValue(), accountMappingTypeId, chargeId);
+            if (chargeSpecificIncomeAccountId != null) {
+                glAccountId = chargeSpecificIncomeAccountId;
             }
         }
-        return accountMapping.getGlAccount();
+        return getMappedGLAccount(glAccountId, PortfolioProductType.LOAN, loanProductId, accountMappingTypeId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsCharges(final Long savingsProductId, final int accountMappingTypeId,
             final Long chargeId) {
 
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(savingsProductId, PortfolioProductType.SAVING.getValue(),
+                accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the actual charge /penalty coupled with the
          * loan product). Note the income from fees and income from penalties placeholder ID would be the same for both
@@ -1162,85 +1152,89 @@ public class AccountingProcessorHelper {
             if (glAccount != null) {
                 return glAccount;
             }
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(savingsProductId, PortfolioProductType.SAVING.getValue(),
-                            accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
+            final Long chargeSpecificIncomeAccountId = this.accountMappingResolver.findChargeMappingAccountId(savingsProductId,
+                    PortfolioProductType.SAVING.getValue(), accountMappingTypeId, chargeId);
+            if (chargeSpecificIncomeAccountId != null) {
 
-                accountMapping = chargeSpecificIncomeAccountMapping;
+                glAccountId = chargeSpecificIncomeAccountId;
             }
         }
 
-        return accountMapping.getGlAccount();
+        return getMappedGLAccount(glAccountId, PortfolioProductType.SAVING, savingsProductId, accountMappingTypeId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsProduct(final Long savingsProductId, final int accountMappingTypeId,
             final Long paymentTypeId) {
-        GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
-        } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                    PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
-            /****
-             * Get more specific mapping for FUND source accounts (based on payment channels). Note that fund source
-             * placeholder ID would be same for both cash and accrual accounts
-             ***/
-            if (accountMappingTypeId == CashAccountsForSavings.SAVINGS_REFERENCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(savingsProductId,
-                                PortfolioProductType.SAVING.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
-                }
+            return getFinancialActivityGLAccount(accountMappingTypeId);
+        }
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(savingsProductId, PortfolioProductType.SAVING.getValue(),
+                accountMappingTypeId);
+        /****
+         * Get more specific mapping for FUND source accounts (based on payment channels). Note that fund source
+         * placeholder ID would be same for both cash and accrual accounts
+         ***/
+        if (accountMappingTypeId == CashAccountsForSavings.SAVINGS_REFERENCE.getValue()) {
+            final Long paymentChannelSpecificAccountId = this.accountMappingResolver.findPaymentTypeMappingAccountId(savingsProductId,
+                    PortfolioProductType.SAVING.getValue(), accountMappingTypeId, paymentTypeId);
+            if (paymentChannelSpecificAccountId != null) {
+                glAccountId = paymentChannelSpecificAccountId;
             }
-            glAccount = accountMapping.getGlAccount();
         }
-        return glAccount;
+        return getMappedGLAccount(glAccountId, PortfolioProductType.SAVING, savingsProductId, accountMappingTypeId);
     }
 
     private GLAccount getLinkedGLAccountForShareProduct(final Long shareProductId, final int accountMappingTypeId,
             final Long paymentTypeId) {
-        GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
-        } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(shareProductId,
-                    PortfolioProductType.SHARES.getValue(), accountMappingTypeId);
-
-            if (accountMappingTypeId == CashAccountsForShares.SHARES_REFERENCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(shareProductId,
-                                PortfolioProductType.SHARES.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
-                }
+            return getFinancialActivityGLAccount(accountMappingTypeId);
+        }
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(shareProductId, PortfolioProductType.SHARES.getValue(),
+                accountMappingTypeId);
+
+        if (accountMappingTypeId == CashAccountsForShares.SHARES_REFERENCE.getValue()) {
+            final Long paymentChannelSpecificAccountId = this.accountMappingResolver.findPaymentTypeMappingAccountId(shareProductId,
+                    PortfolioProductType.SHARES.getValue(), accountMappingTypeId, paymentTypeId);
+            if (paymentChannelSpecificAccountId != null) {
+                glAccountId = paymentChannelSpecificAccountId;
             }
-            glAccount = accountMapping.getGlAccount();
         }
-        return glAccount;
+        return getMappedGLAccount(glAccountId, PortfolioProductType.SHARES, shareProductId, accountMappingTypeId);
     }
 
     private GLAccount getLinkedGLAccountForShareCharges(final Long shareProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(shareProductId,
-                PortfolioProductType.SHARES.getValue(), accountMappingTypeId);
+        Long glAccountId = this.accountMappingResolver.findCoreMappingAccountId(shareProductId, PortfolioProductType.SHARES.getValue(),
+                accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the actual charge /penalty coupled with the
          * loan product). Note the income from fees and income from penalties placeholder ID would be the same for both
          * cash and accrual based accounts
          *****/
 
-        final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                .findProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(shareProductId, PortfolioProductType.SHARES.getValue(),
-                        accountMappingTypeId, chargeId);
-        if (chargeSpecificIncomeAccountMapping != null) {
-            accountMapping = chargeSpecificIncomeAccountMapping;
+        final Long chargeSpecificIncomeAccountId = this.accountMappingResolver.findChargeMappingAccountId(shareProductId,
+                PortfolioProductType.SHARES.getValue(), accountMappingTypeId, chargeId);
+        if (chargeSpecificIncomeAccountId != null) {
+            glAccountId = chargeSpecificIncomeAccountId;
+        }
+        return getMappedGLAccount(glAccountId, PortfolioProductType.SHARES, shareProductId, accountMappingTypeId);
+    }
+
+    private GLAccount getMappedGLAccount(final Long glAccountId, final PortfolioProductType productType, final Long productId,
+            final int accountMappingTypeId) {
+        if (glAccountId == null) {
+            throw new ProductToGLAccountMappingNotFoundException(productType, productId, String.valueOf(accountMappingTypeId));
+        }
+        return getGLAccountById(glAccountId);
+    }
+
+    private GLAccount getFinancialActivityGLAccount(final int financialActivityType) {
+        final Long glAccountId = this.accountMappingResolver.findFinancialActivityAccountId(financialActivityType);
+        if (glAccountId == null) {
+            // not mapped, let the repository raise the usual not found error
+            return this.financialActivityAccountRepository.findByFinancialActivityTypeWithNotFoundDetection(financialActivityType)
+                    .getGlAccount();
         }
-        return accountMapping.getGlAccount();
+        return getGLAccountById(glAccountId);
     }
 
     private boolean isOrganizationAccount(final int accountMappingTypeId) {
@@ -1289,8 +1283,7 @@ public class AccountingProcessorHelper {
 
     public void createDebitJournalEntryOrReversalForClientChargePayments(final Office office, final String currencyCode,
             final Long clientId, final Long transactionId, final Date transactionDate, final BigDecimal amount, final Boolean isReversal) {
-        final GLAccount account = financialActivityAccountRepository
-                .findByFinancialActivityTypeWithNotFoundDetection(FinancialActivity.ASSET_FUND_SOURCE.getValue()).getGlAccount();
+        final GLAccount account = getFinancialActivityGLAccount(FinancialActivity.ASSET_FUND_SOURCE.getValue());
         if (isReversal) {
             createCreditJournalEntryForClientPayments(office, currencyCode, account, clientId, transactionId, transactionDate, amount);
         } else {
@@ -1301,4 +1294,13 @@ public class AccountingProcessorHelper {
     private GLAccount getGLAccountById(final Long accountId) {
         return this.accountRepositoryWrapper.findOneWithNotFoundDetection(accountId);
     }
+
+    private void saveJournalEntry(final JournalEntry journalEntry) {
+        // with batch writing the entries are only flushed at commit, so that they are inserted with one batch
+        if (this.fineractProperties.getPersistence().isBatchWritingEnabled()) {
+            this.glJournalEntryRepository.save(journalEntry);
+        } else {
+            this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        }
+    }
 }
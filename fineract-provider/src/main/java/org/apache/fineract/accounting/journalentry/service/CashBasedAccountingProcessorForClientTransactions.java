@@ -21,7 +21,6 @@ package org.apache.fineract.accounting.journalentry.service;
 import java.math.BigDecimal;
 import java.util.Date;
 import lombok.RequiredArgsConstructor;
-import org.apache.fineract.accounting.closure.domain.GLClosure;
 import org.apache.fineract.accounting.journalentry.data.ClientTransactionDTO;
 import org.apache.fineract.organisation.office.domain.Office;
 import org.springframework.stereotype.Component;
@@ -35,10 +34,10 @@ public class CashBasedAccountingProcessorForClientTransactions implements Accoun
     @Override
     public void createJournalEntriesForClientTransaction(ClientTransactionDTO clientTransactionDTO) {
         if (clientTransactionDTO.isAccountingEnabled()) {
-            final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(clientTransactionDTO.getOfficeId());
+            final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(clientTransactionDTO.getOfficeId());
             final Date transactionDate = clientTransactionDTO.getTransactionDate();
             final Office office = this.helper.getOfficeById(clientTransactionDTO.getOfficeId());
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             /** Handle client payments **/
             if (clientTransactionDTO.isChargePayment()) {
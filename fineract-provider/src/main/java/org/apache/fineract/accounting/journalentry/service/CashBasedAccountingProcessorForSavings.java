@@ -22,7 +22,6 @@ import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
-import org.apache.fineract.accounting.closure.domain.GLClosure;
 import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForSavings;
 import org.apache.fineract.accounting.common.AccountingConstants.FinancialActivity;
 import org.apache.fineract.accounting.journalentry.data.ChargePaymentDTO;
@@ -39,7 +38,7 @@ public class CashBasedAccountingProcessorForSavings implements AccountingProcess
 
     @Override
     public void createJournalEntriesForSavings(final SavingsDTO savingsDTO) {
-        final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(savingsDTO.getOfficeId());
+        final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(savingsDTO.getOfficeId());
         final Long savingsProductId = savingsDTO.getSavingsProductId();
         final Long savingsId = savingsDTO.getSavingsId();
         final String currencyCode = savingsDTO.getCurrencyCode();
@@ -54,7 +53,7 @@ public class CashBasedAccountingProcessorForSavings implements AccountingProcess
             final List<ChargePaymentDTO> feePayments = savingsTransactionDTO.getFeePayments();
             final List<ChargePaymentDTO> penaltyPayments = savingsTransactionDTO.getPenaltyPayments();
 
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             if (savingsTransactionDTO.getTransactionType().isWithdrawal() && savingsTransactionDTO.isOverdraftTransaction()) {
                 if (savingsTransactionDTO.isAccountTransfer()) {
@@ -22,7 +22,6 @@ import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
-import org.apache.fineract.accounting.closure.domain.GLClosure;
 import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForShares;
 import org.apache.fineract.accounting.journalentry.data.ChargePaymentDTO;
 import org.apache.fineract.accounting.journalentry.data.SharesDTO;
@@ -38,7 +37,7 @@ public class CashBasedAccountingProcessorForShares implements AccountingProcesso
 
     @Override
     public void createJournalEntriesForShares(SharesDTO sharesDTO) {
-        final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(sharesDTO.getOfficeId());
+        final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(sharesDTO.getOfficeId());
         final Long shareAccountId = sharesDTO.getShareAccountId();
         final Long shareProductId = sharesDTO.getShareProductId();
         final String currencyCode = sharesDTO.getCurrencyCode();
@@ -51,7 +50,7 @@ public class CashBasedAccountingProcessorForShares implements AccountingProcesso
             final BigDecimal chargeAmount = transactionDTO.getChargeAmount();
             final List<ChargePaymentDTO> feePayments = transactionDTO.getFeePayments();
 
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             if (transactionDTO.getTransactionType().isPurchased()) {
                 createJournalEntriesForPurchase(shareAccountId, shareProductId, currencyCode, transactionDTO, transactionDate,
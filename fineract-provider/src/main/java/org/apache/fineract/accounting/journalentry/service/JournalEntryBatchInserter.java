@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.infrastructure.core.persistence.TenantPooledTableSequence;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inserts system generated journal entries with a single JDBC batch, for the jobs which post too many entries to go
+ * through {@link JournalEntryWritePlatformService} one by one. The rows are built with
+ * {@link #row(Long, Long, String, String, Long, Date, JournalEntryType, BigDecimal, Integer, Long, Long, Date)}, linked
+ * to a loan transaction, and inserted with {@link #insert(List)}, or linked to a savings transaction and inserted with
+ * {@link #insertForSavings(List)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class JournalEntryBatchInserter {
+
+    private static final String INSERT_SQL = "INSERT INTO acc_gl_journal_entry (account_id,office_id,currency_code,"
+            + "transaction_id,loan_transaction_id,reversed,manual_entry,entry_date,type_enum,amount,entity_type_enum,entity_id,"
+            + "createdby_id,lastmodifiedby_id,created_date,lastmodified_date,is_running_balance_calculated,office_running_balance,"
+            + "organization_running_balance) "
+            + "VALUES (?, ?, ?, ?, ?, false, false, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, 0, 0)";
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO acc_gl_journal_entry (id,account_id,office_id,"
+            + "currency_code,transaction_id,loan_transaction_id,reversed,manual_entry,entry_date,type_enum,amount,entity_type_enum,"
+            + "entity_id,createdby_id,lastmodifiedby_id,created_date,lastmodified_date,is_running_balance_calculated,"
+            + "office_running_balance,organization_running_balance) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false, false, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, 0, 0)";
+
+    private static final String INSERT_SAVINGS_SQL = INSERT_SQL.replace("loan_transaction_id", "savings_transaction_id");
+    private static final String INSERT_SAVINGS_WITH_ID_SQL = INSERT_WITH_ID_SQL.replace("loan_transaction_id", "savings_transaction_id");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static Object[] row(final Long accountId, final Long officeId, final String currencyCode, final String transactionId,
+            final Long portfolioTransactionId, final Date entryDate, final JournalEntryType type, final BigDecimal amount,
+            final Integer entityType, final Long entityId, final Long appUserId, final Date now) {
+        return new Object[] { accountId, officeId, currencyCode, transactionId, portfolioTransactionId, entryDate, type.getValue(), amount,
+                entityType, entityId, appUserId, appUserId, now, now };
+    }
+
+    public void insert(final List<Object[]> journalEntries) {
+        insert(journalEntries, INSERT_SQL, INSERT_WITH_ID_SQL);
+    }
+
+    public void insertForSavings(final List<Object[]> journalEntries) {
+        insert(journalEntries, INSERT_SAVINGS_SQL, INSERT_SAVINGS_WITH_ID_SQL);
+    }
+
+    private void insert(final List<Object[]> journalEntries, final String insertSql, final String insertWithIdSql) {
+        if (journalEntries.isEmpty()) {
+            return;
+        }
+        // ids have to come from the same blocks EclipseLink uses when the pooled sequence is switched on
+        final TenantPooledTableSequence journalEntryIds = TenantPooledTableSequence.forTable("acc_gl_journal_entry");
+        if (journalEntryIds == null) {
+            this.jdbcTemplate.batchUpdate(insertSql, journalEntries);
+            return;
+        }
+        final List<Object[]> journalEntriesWithIds = new ArrayList<>(journalEntries.size());
+        for (final Object[] journalEntry : journalEntries) {
+            final Object[] journalEntryWithId = new Object[journalEntry.length + 1];
+            journalEntryWithId[0] = journalEntryIds.nextId();
+            System.arraycopy(journalEntry, 0, journalEntryWithId, 1, journalEntry.length);
+            journalEntriesWithIds.add(journalEntryWithId);
+        }
+        this.jdbcTemplate.batchUpdate(insertWithIdSql, journalEntriesWithIds);
+    }
+}
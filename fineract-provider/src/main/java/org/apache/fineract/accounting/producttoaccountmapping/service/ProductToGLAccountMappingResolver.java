@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.producttoaccountmapping.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.fineract.infrastructure.cache.service.RuntimeDelegatingCacheManager;
+import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.TransactionScopedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per tenant in-memory copy of <code>acc_product_mapping</code> and <code>acc_gl_financial_activity_account</code>,
+ * resolving the GL account id of a journal entry leg without a query per leg.
+ *
+ * The tables are loaded in full once per transaction. With the single node cache switched on they are kept in the
+ * <code>productToGLAccountMappings</code> cache, dropped by {@link #evict()} whenever the mappings are changed on this
+ * node and expired after a minute so that a change on another node applies as well; with no cache they are loaded
+ * again by every transaction.
+ */
+@Component
+public class ProductToGLAccountMappingResolver {
+
+    private static final String CACHE_NAME = "productToGLAccountMappings";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RuntimeDelegatingCacheManager cacheManager;
+    private final TransactionScopedCache<String, MappingTable> transactionMappingTables = new TransactionScopedCache<>();
+
+    @Autowired
+    public ProductToGLAccountMappingResolver(final JdbcTemplate jdbcTemplate,
+            @Qualifier("runtimeDelegatingCacheManager") final RuntimeDelegatingCacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    public Long findCoreMappingAccountId(final Long productId, final int productType, final int financialAccountType) {
+        return getMappingTable().productMappings.get(coreKey(productId, productType, financialAccountType));
+    }
+
+    public Long findPaymentTypeMappingAccountId(final Long productId, final int productType, final int financialAccountType,
+            final Long paymentTypeId) {
+        if (paymentTypeId == null) {
+            return findCoreMappingAccountId(productId, productType, financialAccountType);
+        }
+        return getMappingTable().productMappings.get(paymentTypeKey(productId, productType, financialAccountType, paymentTypeId));
+    }
+
+    public Long findChargeMappingAccountId(final Long productId, final int productType, final int financialAccountType,
+            final Long chargeId) {
+        if (chargeId == null) {
+            return null;
+        }
+        return getMappingTable().productMappings.get(chargeKey(productId, productType, financialAccountType, chargeId));
+    }
+
+    public Long findFinancialActivityAccountId(final int financialActivityType) {
+        return getMappingTable().financialActivityMappings.get(financialActivityType);
+    }
+
+    /**
+     * Drops the mappings of the current tenant, now and again once the surrounding transaction has committed so that a
+     * reload racing with the change cannot keep the old values.
+     */
+    public void evict() {
+        final String tenantIdentifier = tenantIdentifier();
+        this.transactionMappingTables.clear();
+        cache().evict(tenantIdentifier);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache().evict(tenantIdentifier);
+                }
+            });
+        }
+    }
+
+    private MappingTable getMappingTable() {
+        return this.transactionMappingTables.get(tenantIdentifier(),
+                tenantIdentifier -> cache().get(tenantIdentifier, this::loadMappingTable));
+    }
+
+    private Cache cache() {
+        return this.cacheManager.getCache(CACHE_NAME);
+    }
+
+    private MappingTable loadMappingTable() {
+        final Map<String, Long> productMappings = new HashMap<>();
+        this.jdbcTemplate.query(
+                "select product_id, product_type, financial_account_type, payment_type, charge_id, gl_account_id from acc_product_mapping",
+                rs -> {
+                    final Long glAccountId = JdbcSupport.getLong(rs, "gl_account_id");
+                    if (glAccountId == null) {
+                        return;
+                    }
+                    final Long productId = JdbcSupport.getLong(rs, "product_id");
+                    final int productType = rs.getInt("product_type");
+                    final int financialAccountType = rs.getInt("financial_account_type");
+                    final Long paymentTypeId = JdbcSupport.getLong(rs, "payment_type");
+                    final Long chargeId = JdbcSupport.getLong(rs, "charge_id");
+                    final String key;
+                    if (paymentTypeId != null) {
+                        key = paymentTypeKey(productId, productType, financialAccountType, paymentTypeId);
+                    } else if (chargeId != null) {
+                        key = chargeKey(productId, productType, financialAccountType, chargeId);
+                    } else {
+                        key = coreKey(productId, productType, financialAccountType);
+                    }
+                    productMappings.put(key, glAccountId);
+                });
+
+        final Map<Integer, Long> financialActivityMappings = new HashMap<>();
+        this.jdbcTemplate.query("select financial_activity_type, gl_account_id from acc_gl_financial_activity_account",
+                rs -> {
+                    final Long glAccountId = JdbcSupport.getLong(rs, "gl_account_id");
+                    if (glAccountId != null) {
+                        financialActivityMappings.put(rs.getInt("financial_activity_type"), glAccountId);
+                    }
+                });
+        return new MappingTable(Map.copyOf(productMappings), Map.copyOf(financialActivityMappings));
+    }
+
+    private static String coreKey(final Long productId, final int productType, final int financialAccountType) {
+        return productType + ":" + productId + ":" + financialAccountType;
+    }
+
+    private static String paymentTypeKey(final Long productId, final int productType, final int financialAccountType,
+            final Long paymentTypeId) {
+        return coreKey(productId, productType, financialAccountType) + ":p" + paymentTypeId;
+    }
+
+    private static String chargeKey(final Long productId, final int productType, final int financialAccountType, final Long chargeId) {
+        return coreKey(productId, productType, financialAccountType) + ":c" + chargeId;
+    }
+
+    private static String tenantIdentifier() {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+    }
+
+    private static final class MappingTable {
+
+        private final Map<String, Long> productMappings;
+        private final Map<Integer, Long> financialActivityMappings;
+
+        MappingTable(final Map<String, Long> productMappings, final Map<Integer, Long> financialActivityMappings) {
+            this.productMappings = productMappings;
+            this.financialActivityMappings = financialActivityMappings;
+        }
+    }
+}
@@ -50,6 +50,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
     private final LoanProductToGLAccountMappingHelper loanProductToGLAccountMappingHelper;
     private final SavingsProductToGLAccountMappingHelper savingsProductToGLAccountMappingHelper;
     private final ShareProductToGLAccountMappingHelper shareProductToGLAccountMappingHelper;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
 
     @Override
     @Transactional
@@ -149,6 +150,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
                 this.loanProductToGLAccountMappingHelper.saveChargesToIncomeAccountMappings(command, element, loanProductId, null);
             break;
         }
+        this.accountMappingResolver.evict();
     }
 
     @Override
@@ -224,7 +226,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
             default:
             break;
         }
-
+        this.accountMappingResolver.evict();
     }
 
     @Override
@@ -268,7 +270,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
             default:
             break;
         }
-
+        this.accountMappingResolver.evict();
     }
 
     @Override
@@ -299,6 +301,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
             this.loanProductToGLAccountMappingHelper.updatePaymentChannelToFundSourceMappings(command, element, loanProductId, changes);
             this.loanProductToGLAccountMappingHelper.updateChargesToIncomeAccountMappings(command, element, loanProductId, changes);
         }
+        this.accountMappingResolver.evict();
         return changes;
     }
 
@@ -331,6 +334,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
                     changes);
             this.savingsProductToGLAccountMappingHelper.updateChargesToIncomeAccountMappings(command, element, savingsProductId, changes);
         }
+        this.accountMappingResolver.evict();
         return changes;
     }
 
@@ -361,6 +365,7 @@ public class ProductToGLAccountMappingWritePlatformServiceImpl implements Produc
             this.shareProductToGLAccountMappingHelper.updatePaymentChannelToFundSourceMappings(command, element, shareProductId, changes);
             this.shareProductToGLAccountMappingHelper.updateChargesToIncomeAccountMappings(command, element, shareProductId, changes);
         }
+        this.accountMappingResolver.evict();
         return changes;
     }
 }
@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.provisioning.data;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Reserve of all loans sharing office, product, currency, provisioning category, criteria, days overdue and GL
+ * accounts; becomes one <code>m_loanproduct_provisioning_entry</code> row.
+ */
+@Getter
+public class LoanProvisioningBucketData {
+
+    private final Long officeId;
+    private final Long productId;
+    private final String currencyCode;
+    private final Long categoryId;
+    private final Long criteriaId;
+    private final Long overdueInDays;
+    private final Long liabilityAccountId;
+    private final Long expenseAccountId;
+    private BigDecimal reservedAmount;
+
+    public LoanProvisioningBucketData(final Long officeId, final Long productId, final String currencyCode, final Long categoryId,
+            final Long criteriaId, final Long overdueInDays, final Long liabilityAccountId, final Long expenseAccountId,
+            final BigDecimal reservedAmount) {
+        this.officeId = officeId;
+        this.productId = productId;
+        this.currencyCode = currencyCode;
+        this.categoryId = categoryId;
+        this.criteriaId = criteriaId;
+        this.overdueInDays = overdueInDays;
+        this.liabilityAccountId = liabilityAccountId;
+        this.expenseAccountId = expenseAccountId;
+        this.reservedAmount = reservedAmount;
+    }
+
+    /**
+     * Identifies the bucket, everything but the reserved amount; the GL accounts are null when not mapped.
+     */
+    public List<Object> key() {
+        return Arrays.asList(this.officeId, this.productId, this.currencyCode, this.categoryId, this.criteriaId, this.overdueInDays,
+                this.liabilityAccountId, this.expenseAccountId);
+    }
+
+    public void addReservedAmount(final BigDecimal amount) {
+        this.reservedAmount = this.reservedAmount.add(amount);
+    }
+}
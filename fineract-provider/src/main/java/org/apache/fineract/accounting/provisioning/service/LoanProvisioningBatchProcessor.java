@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.provisioning.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.accounting.journalentry.exception.JournalEntryInvalidException;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorHelper;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryBatchInserter;
+import org.apache.fineract.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.apache.fineract.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import org.apache.fineract.accounting.provisioning.data.LoanProvisioningBucketData;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Set based generation of the loan loss provisioning entries: the reserves are summed up by the database per
+ * provisioning entry, for partitions of the active loans on the {@link BatchTaskExecutor}, and the entries and their
+ * journal entries are written with JDBC batches. Must be called within a transaction, except for {@link #aggregate}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanProvisioningBatchProcessor {
+
+    private static final String INSERT_HISTORY_SQL = "INSERT INTO m_provisioning_history (journal_entry_created, createdby_id, "
+            + "created_date, lastmodifiedby_id, lastmodified_date) VALUES (false, ?, ?, null, null)";
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO m_loanproduct_provisioning_entry (history_id, criteria_id, currency_code, "
+            + "office_id, product_id, category_id, overdue_in_days, reseve_amount, liability_account, expense_account) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int LOANS_PER_PARTITION = 5000;
+
+    private final ProvisioningEntriesReadPlatformService provisioningEntriesReadPlatformService;
+    private final JdbcTemplate jdbcTemplate;
+    private final JournalEntryBatchInserter journalEntryBatchInserter;
+    private final AccountingProcessorHelper accountingProcessorHelper;
+    private final BatchTaskExecutor batchTaskExecutor;
+
+    /**
+     * Sums up the reserves of all active loans per provisioning entry. Gives the same amounts as rounding and adding up
+     * the reserve of every loan.
+     */
+    public Collection<LoanProvisioningBucketData> aggregate(final Date date, final int threadPoolSize) {
+        final List<Callable<Collection<LoanProvisioningBucketData>>> partitions = new ArrayList<>();
+        List<Long> loanIds = this.provisioningEntriesReadPlatformService.retrieveActiveLoanIds(0L, LOANS_PER_PARTITION);
+        while (!loanIds.isEmpty()) {
+            final Long fromLoanId = loanIds.get(0);
+            final Long toLoanId = loanIds.get(loanIds.size() - 1);
+            partitions.add(() -> this.provisioningEntriesReadPlatformService.retrieveLoanProvisioningBuckets(date, fromLoanId, toLoanId));
+            loanIds = this.provisioningEntriesReadPlatformService.retrieveActiveLoanIds(toLoanId, LOANS_PER_PARTITION);
+        }
+
+        try {
+            final Map<List<Object>, LoanProvisioningBucketData> buckets = new LinkedHashMap<>();
+            for (final Future<Collection<LoanProvisioningBucketData>> partition : this.batchTaskExecutor.invokeAll(partitions,
+                    threadPoolSize)) {
+                for (final LoanProvisioningBucketData bucket : partition.get()) {
+                    final LoanProvisioningBucketData existing = buckets.putIfAbsent(bucket.key(), bucket);
+                    if (existing != null) {
+                        existing.addReservedAmount(bucket.getReservedAmount());
+                    }
+                }
+            }
+            log.info("Loan loss provisioning for {}: {} partitions, {} entries", date, partitions.size(), buckets.size());
+            return buckets.values();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not calculate the loan loss provisioning", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating the loan loss provisioning", e);
+        }
+    }
+
+    /**
+     * Inserts the <code>m_provisioning_history</code> row and its entries.
+     *
+     * @return the id of the new provisioning entry
+     */
+    public Long insertProvisioningEntry(final Long createdById, final Date date, final Collection<LoanProvisioningBucketData> buckets) {
+        final Long entryId = this.jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_HISTORY_SQL, new String[] { "id" })) {
+                statement.setLong(1, createdById);
+                statement.setDate(2, new java.sql.Date(date.getTime()));
+                statement.executeUpdate();
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new DataRetrievalFailureException("Generated id was not returned for the provisioning entry");
+                    }
+                    return generatedKeys.getLong(1);
+                }
+            }
+        });
+        insertLoanProductProvisioningEntries(entryId, buckets);
+        return entryId;
+    }
+
+    /**
+     * Replaces the entries of an existing provisioning entry, its journal entries are left as they are.
+     */
+    public void replaceLoanProductProvisioningEntries(final Long entryId, final Collection<LoanProvisioningBucketData> buckets) {
+        this.jdbcTemplate.update("DELETE FROM m_loanproduct_provisioning_entry WHERE history_id = ?", entryId);
+        insertLoanProductProvisioningEntries(entryId, buckets);
+    }
+
+    public void markJournalEntryCreated(final Long entryId, final boolean journalEntryCreated) {
+        this.jdbcTemplate.update("UPDATE m_provisioning_history SET journal_entry_created = ? WHERE id = ?", journalEntryCreated, entryId);
+    }
+
+    /**
+     * Credits the liability and debits the expense accounts with the reserves, summed up per office, currency and
+     * account like {@code JournalEntryWritePlatformService#createProvisioningJournalEntries} does.
+     *
+     * @throws ProductToGLAccountMappingNotFoundException
+     *             when the provisioning criteria of a loan product has no liability or expense account
+     * @throws JournalEntryInvalidException
+     *             when the accounting of an office is closed on or after <code>date</code>
+     */
+    public void insertJournalEntries(final Long entryId, final Date date, final Collection<LoanProvisioningBucketData> buckets,
+            final Long appUserId) {
+        final Map<List<Object>, BigDecimal> liabilities = new LinkedHashMap<>();
+        final Map<List<Object>, BigDecimal> expenses = new LinkedHashMap<>();
+        final Set<Long> officeIds = new HashSet<>();
+        for (final LoanProvisioningBucketData bucket : buckets) {
+            if (bucket.getLiabilityAccountId() == null) {
+                throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, bucket.getProductId(), "LIABILITY");
+            }
+            if (bucket.getExpenseAccountId() == null) {
+                throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, bucket.getProductId(), "EXPENSE");
+            }
+            if (officeIds.add(bucket.getOfficeId())) {
+                this.accountingProcessorHelper.checkForBranchClosures(
+                        this.accountingProcessorHelper.getLatestClosingDateByBranch(bucket.getOfficeId()), date);
+            }
+            liabilities.merge(List.of(bucket.getOfficeId(), bucket.getCurrencyCode(), bucket.getLiabilityAccountId()),
+                    bucket.getReservedAmount(), BigDecimal::add);
+            expenses.merge(List.of(bucket.getOfficeId(), bucket.getCurrencyCode(), bucket.getExpenseAccountId()),
+                    bucket.getReservedAmount(), BigDecimal::add);
+        }
+        final String transactionId = AccountingProcessorHelper.PROVISIONING_TRANSACTION_IDENTIFIER + entryId;
+        final Date now = new Date();
+        final List<Object[]> journalEntries = new ArrayList<>(liabilities.size() + expenses.size());
+        for (final Map.Entry<List<Object>, BigDecimal> liability : liabilities.entrySet()) {
+            journalEntries.add(journalEntry(liability, JournalEntryType.CREDIT, transactionId, entryId, date, appUserId, now));
+        }
+        for (final Map.Entry<List<Object>, BigDecimal> expense : expenses.entrySet()) {
+            journalEntries.add(journalEntry(expense, JournalEntryType.DEBIT, transactionId, entryId, date, appUserId, now));
+        }
+        this.journalEntryBatchInserter.insert(journalEntries);
+    }
+
+    private void insertLoanProductProvisioningEntries(final Long entryId, final Collection<LoanProvisioningBucketData> buckets) {
+        final List<Object[]> entries = new ArrayList<>(buckets.size());
+        for (final LoanProvisioningBucketData bucket : buckets) {
+            entries.add(new Object[] { entryId, bucket.getCriteriaId(), bucket.getCurrencyCode(), bucket.getOfficeId(),
+                    bucket.getProductId(), bucket.getCategoryId(), bucket.getOverdueInDays(), bucket.getReservedAmount(),
+                    bucket.getLiabilityAccountId(), bucket.getExpenseAccountId() });
+        }
+        if (!entries.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries);
+        }
+    }
+
+    private static Object[] journalEntry(final Map.Entry<List<Object>, BigDecimal> account, final JournalEntryType type,
+            final String transactionId, final Long entryId, final Date date, final Long appUserId, final Date now) {
+        final List<Object> key = account.getKey();
+        return JournalEntryBatchInserter.row((Long) key.get(2), (Long) key.get(0), (String) key.get(1), transactionId, null, date, type,
+                account.getValue(), PortfolioProductType.PROVISIONING.getValue(), entryId, appUserId, now);
+    }
+}
@@ -20,7 +20,9 @@ package org.apache.fineract.accounting.provisioning.service;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import org.apache.fineract.accounting.provisioning.data.LoanProductProvisioningEntryData;
+import org.apache.fineract.accounting.provisioning.data.LoanProvisioningBucketData;
 import org.apache.fineract.accounting.provisioning.data.ProvisioningEntryData;
 import org.apache.fineract.infrastructure.core.service.Page;
 import org.apache.fineract.infrastructure.core.service.SearchParameters;
@@ -29,6 +31,13 @@ public interface ProvisioningEntriesReadPlatformService {
 
     Collection<LoanProductProvisioningEntryData> retrieveLoanProductsProvisioningData(Date date);
 
+    List<Long> retrieveActiveLoanIds(Long afterLoanId, int limit);
+
+    /**
+     * Returns the reserves of the active loans with ids in the given range, summed up per provisioning entry.
+     */
+    Collection<LoanProvisioningBucketData> retrieveLoanProvisioningBuckets(Date date, Long fromLoanId, Long toLoanId);
+
     ProvisioningEntryData retrieveProvisioningEntryData(Long entryId);
 
     Page<ProvisioningEntryData> retrieveAllProvisioningEntries(Integer offset, Integer limit);
@@ -29,11 +29,16 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.fineract.accounting.provisioning.data.LoanProductProvisioningEntryData;
+import org.apache.fineract.accounting.provisioning.data.LoanProvisioningBucketData;
 import org.apache.fineract.accounting.provisioning.data.ProvisioningEntryData;
+import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
 import org.apache.fineract.infrastructure.core.service.Page;
 import org.apache.fineract.infrastructure.core.service.PaginationHelper;
 import org.apache.fineract.infrastructure.core.service.SearchParameters;
 import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
+import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -103,6 +108,76 @@ public class ProvisioningEntriesReadPlatformServiceImpl implements ProvisioningE
         }
     }
 
+    @Override
+    public List<Long> retrieveActiveLoanIds(final Long afterLoanId, final int limit) {
+        final String sql = "select loan.id from m_loan loan where loan.loan_status_id=300 and loan.id > ? order by loan.id "
+                + sqlGenerator.limit(limit);
+        return this.jdbcTemplate.queryForList(sql, Long.class, afterLoanId);
+    }
+
+    @Override
+    public Collection<LoanProvisioningBucketData> retrieveLoanProvisioningBuckets(final Date date, final Long fromLoanId,
+            final Long toLoanId) {
+        String formattedDate = new SimpleDateFormat("yyyy-MM-dd").format(date);
+        LoanProvisioningBucketMapper mapper = new LoanProvisioningBucketMapper(sqlGenerator);
+        return this.jdbcTemplate.query(mapper.schema(), mapper, formattedDate, formattedDate, formattedDate, fromLoanId, toLoanId);
+    }
+
+    /**
+     * Groups the rows of {@link LoanProductProvisioningEntryMapper} by everything that identifies a provisioning entry
+     * and by the outstanding balance. Loans with the same balance get the same rounded reserve, so multiplying it by the
+     * number of loans gives exactly the sum of the reserves calculated loan by loan.
+     */
+    private static final class LoanProvisioningBucketMapper implements RowMapper<LoanProvisioningBucketData> {
+
+        private final StringBuilder sqlQuery;
+
+        private LoanProvisioningBucketMapper(DatabaseSpecificSQLGenerator sqlGenerator) {
+            sqlQuery = new StringBuilder().append("select office_id, product_id, currency_code, numberofdaysoverdue, category_id, ")
+                    .append("criteriaid, ")
+                    .append("provision_percentage, liability_account, expense_account, product_currency_code, product_currency_digits, ")
+                    .append("product_currency_multiplesof, outstandingbalance, count(*) as loancount from (")
+                    .append("select (CASE WHEN loan.loan_type_enum=1 THEN mclient.office_id ELSE mgroup.office_id END) as office_id, ")
+                    .append("pcd.criteria_id as criteriaid, loan.product_id, loan.currency_code, ")
+                    .append("GREATEST(" + sqlGenerator.dateDiff("?", "sch.duedate") + ", 0) as numberofdaysoverdue, ")
+                    .append("pcd.category_id, pcd.provision_percentage, loan.total_outstanding_derived as outstandingbalance, ")
+                    .append("pcd.liability_account, pcd.expense_account, mpl.currency_code as product_currency_code, ")
+                    .append("mpl.currency_digits as product_currency_digits, mpl.currency_multiplesof as product_currency_multiplesof ")
+                    .append("from m_loan_repayment_schedule sch")
+                    .append(" LEFT JOIN m_loan loan on sch.loan_id = loan.id")
+                    .append(" JOIN m_product_loan mpl on mpl.id = loan.product_id")
+                    .append(" JOIN m_loanproduct_provisioning_mapping lpm on lpm.product_id = loan.product_id")
+                    .append(" JOIN m_provisioning_criteria_definition pcd on pcd.criteria_id = lpm.criteria_id and ")
+                    .append("(pcd.min_age <= GREATEST(" + sqlGenerator.dateDiff("?", "sch.duedate") + ",0) and GREATEST("
+                            + sqlGenerator.dateDiff("?", "sch.duedate") + ",0) <= pcd.max_age) and pcd.criteria_id is not null ")
+                    .append("LEFT JOIN m_client mclient ON mclient.id = loan.client_id ")
+                    .append("LEFT JOIN m_group mgroup ON mgroup.id = loan.group_id ")
+                    .append("where loan.loan_status_id=300 and loan.id between ? and ? and sch.duedate = ")
+                    .append("(select MIN(sch1.duedate) from m_loan_repayment_schedule sch1 where sch1.loan_id=loan.id ")
+                    .append("and sch1.completed_derived=false)) overdue ")
+                    .append("group by office_id, product_id, currency_code, numberofdaysoverdue, category_id, criteriaid, ")
+                    .append("provision_percentage, liability_account, expense_account, product_currency_code, product_currency_digits, ")
+                    .append("product_currency_multiplesof, outstandingbalance");
+        }
+
+        @Override
+        public LoanProvisioningBucketData mapRow(ResultSet rs, int rowNum) throws SQLException {
+            final MonetaryCurrency productCurrency = new MonetaryCurrency(rs.getString("product_currency_code"),
+                    rs.getInt("product_currency_digits"), JdbcSupport.getInteger(rs, "product_currency_multiplesof"));
+            final Money balance = Money.of(productCurrency, rs.getBigDecimal("outstandingbalance"));
+            final BigDecimal reservePerLoan = balance.percentageOf(rs.getBigDecimal("provision_percentage"), MoneyHelper.getRoundingMode())
+                    .getAmount();
+            final BigDecimal reservedAmount = reservePerLoan.multiply(BigDecimal.valueOf(rs.getLong("loancount")));
+            return new LoanProvisioningBucketData(rs.getLong("office_id"), rs.getLong("product_id"), rs.getString("currency_code"),
+                    rs.getLong("category_id"), rs.getLong("criteriaid"), rs.getLong("numberofdaysoverdue"),
+                    JdbcSupport.getLong(rs, "liability_account"), JdbcSupport.getLong(rs, "expense_account"), reservedAmount);
+        }
+
+        public String schema() {
+            return sqlQuery.toString();
+        }
+    }
+
     @Override
     public ProvisioningEntryData retrieveProvisioningEntryData(Long entryId) {
         ProvisioningEntryDataMapperWithSumReserved mapper1 = new ProvisioningEntryDataMapperWithSumReserved();
@@ -18,6 +18,7 @@
  */
 package org.apache.fineract.accounting.provisioning.service;
 
+import java.util.Map;
 import org.apache.fineract.infrastructure.core.api.JsonCommand;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 
@@ -30,4 +31,6 @@ public interface ProvisioningEntriesWritePlatformService {
     CommandProcessingResult createProvisioningJournalEntries(Long provisioningEntryId, JsonCommand command);
 
     void generateLoanLossProvisioningAmount();
+
+    void generateLoanLossProvisioningAmount(Map<String, String> jobParameters);
 }
@@ -23,18 +23,13 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.fineract.accounting.glaccount.domain.GLAccount;
-import org.apache.fineract.accounting.glaccount.domain.GLAccountRepository;
 import org.apache.fineract.accounting.journalentry.service.JournalEntryWritePlatformService;
 import org.apache.fineract.accounting.producttoaccountmapping.domain.PortfolioProductType;
-import org.apache.fineract.accounting.provisioning.data.LoanProductProvisioningEntryData;
+import org.apache.fineract.accounting.provisioning.data.LoanProvisioningBucketData;
 import org.apache.fineract.accounting.provisioning.data.ProvisioningEntryData;
-import org.apache.fineract.accounting.provisioning.domain.LoanProductProvisioningEntry;
 import org.apache.fineract.accounting.provisioning.domain.ProvisioningEntry;
 import org.apache.fineract.accounting.provisioning.domain.ProvisioningEntryRepository;
 import org.apache.fineract.accounting.provisioning.exception.NoProvisioningCriteriaDefinitionFound;
@@ -50,38 +45,30 @@ import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
 import org.apache.fineract.infrastructure.jobs.service.JobName;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
-import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
-import org.apache.fineract.organisation.monetary.domain.Money;
-import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
-import org.apache.fineract.organisation.office.domain.Office;
-import org.apache.fineract.organisation.office.domain.OfficeRepositoryWrapper;
 import org.apache.fineract.organisation.provisioning.data.ProvisioningCriteriaData;
-import org.apache.fineract.organisation.provisioning.domain.ProvisioningCategory;
-import org.apache.fineract.organisation.provisioning.domain.ProvisioningCategoryRepository;
 import org.apache.fineract.organisation.provisioning.service.ProvisioningCriteriaReadPlatformService;
-import org.apache.fineract.portfolio.loanproduct.domain.LoanProduct;
-import org.apache.fineract.portfolio.loanproduct.domain.LoanProductRepository;
 import org.apache.fineract.useradministration.domain.AppUser;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.orm.jpa.JpaSystemException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements ProvisioningEntriesWritePlatformService {
 
+    private static final int DEFAULT_THREAD_POOL_SIZE = 4;
+
     private final ProvisioningEntriesReadPlatformService provisioningEntriesReadPlatformService;
     private final ProvisioningCriteriaReadPlatformService provisioningCriteriaReadPlatformService;
-    private final LoanProductRepository loanProductRepository;
-    private final GLAccountRepository glAccountRepository;
-    private final OfficeRepositoryWrapper officeRepositoryWrapper;
-    private final ProvisioningCategoryRepository provisioningCategoryRepository;
     private final PlatformSecurityContext platformSecurityContext;
     private final ProvisioningEntryRepository provisioningEntryRepository;
     private final JournalEntryWritePlatformService journalEntryWritePlatformService;
     private final ProvisioningEntriesDefinitionJsonDeserializer fromApiJsonDeserializer;
     private final FromJsonHelper fromApiJsonHelper;
+    private final LoanProvisioningBatchProcessor loanProvisioningBatchProcessor;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public CommandProcessingResult createProvisioningJournalEntries(Long provisioningEntryId, JsonCommand command) {
@@ -96,7 +83,7 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
 
     private void revertAndAddJournalEntries(ProvisioningEntryData existingEntryData, ProvisioningEntry requestedEntry) {
         if (existingEntryData != null) {
-            validateForCreateJournalEntry(existingEntryData, requestedEntry);
+            validateForCreateJournalEntry(existingEntryData, requestedEntry.getCreatedDate());
             this.journalEntryWritePlatformService.revertProvisioningJournalEntries(requestedEntry.getCreatedDate(),
                     existingEntryData.getId(), PortfolioProductType.PROVISIONING.getValue());
         }
@@ -110,9 +97,8 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
         this.journalEntryWritePlatformService.createProvisioningJournalEntries(requestedEntry);
     }
 
-    private void validateForCreateJournalEntry(ProvisioningEntryData existingEntry, ProvisioningEntry requested) {
+    private void validateForCreateJournalEntry(ProvisioningEntryData existingEntry, Date requestedDate) {
         Date existingDate = existingEntry.getCreatedDate();
-        Date requestedDate = requested.getCreatedDate();
         if (existingDate.after(requestedDate) || existingDate.compareTo(requestedDate) == 0 ? Boolean.TRUE : Boolean.FALSE) {
             throw new ProvisioningJournalEntriesCannotbeCreatedException(existingEntry.getCreatedDate(), requestedDate);
         }
@@ -133,8 +119,18 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
     }
 
     @Override
-    @CronTarget(jobName = JobName.GENERATE_LOANLOSS_PROVISIONING)
     public void generateLoanLossProvisioningAmount() {
+        generateLoanLossProvisioningAmount(DEFAULT_THREAD_POOL_SIZE);
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.GENERATE_LOANLOSS_PROVISIONING)
+    public void generateLoanLossProvisioningAmount(Map<String, String> jobParameters) {
+        final String threadPoolSize = jobParameters.get("thread-pool-size");
+        generateLoanLossProvisioningAmount(threadPoolSize == null ? DEFAULT_THREAD_POOL_SIZE : Integer.parseInt(threadPoolSize));
+    }
+
+    private void generateLoanLossProvisioningAmount(int threadPoolSize) {
         Date currentDate = Date.from(DateUtils.getLocalDateOfTenant().atStartOfDay(ZoneId.systemDefault()).toInstant());
         boolean addJournalEntries = true;
         try {
@@ -145,7 +141,7 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
                 // FIXME: Do we need to throw
                 // NoProvisioningCriteriaDefinitionFound()?
             }
-            createProvsioningEntry(currentDate, addJournalEntries);
+            this.transactionTemplate.execute(status -> createProvsioningEntry(currentDate, addJournalEntries, threadPoolSize));
         } catch (ProvisioningEntryAlreadyCreatedException peace) {
             log.error("Provisioning Entry already created", peace);
         } catch (final JpaSystemException | DataIntegrityViolationException dve) {
@@ -164,72 +160,42 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
             if (criteriaCollection == null || criteriaCollection.size() == 0) {
                 throw new NoProvisioningCriteriaDefinitionFound();
             }
-            ProvisioningEntry requestedEntry = createProvsioningEntry(createdDate, addJournalEntries);
-            return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(requestedEntry.getId()).build();
+            Long entryId = createProvsioningEntry(createdDate, addJournalEntries, DEFAULT_THREAD_POOL_SIZE);
+            return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(entryId).build();
         } catch (final JpaSystemException | DataIntegrityViolationException e) {
             return CommandProcessingResult.empty();
         }
     }
 
-    private ProvisioningEntry createProvsioningEntry(Date date, boolean addJournalEntries) {
+    private Long createProvsioningEntry(Date date, boolean addJournalEntries, int threadPoolSize) {
         ProvisioningEntry existingEntry = this.provisioningEntryRepository.findByProvisioningEntryDate(date);
         if (existingEntry != null) {
             throw new ProvisioningEntryAlreadyCreatedException(existingEntry.getId(), existingEntry.getCreatedDate());
         }
         AppUser currentUser = this.platformSecurityContext.authenticatedUser();
-        AppUser lastModifiedBy = null;
-        Date lastModifiedDate = null;
-        Set<LoanProductProvisioningEntry> nullEntries = null;
-        ProvisioningEntry requestedEntry = new ProvisioningEntry(currentUser, date, lastModifiedBy, lastModifiedDate, nullEntries);
-        Collection<LoanProductProvisioningEntry> entries = generateLoanProvisioningEntry(requestedEntry, date);
-        requestedEntry.setProvisioningEntries(entries);
+        Collection<LoanProvisioningBucketData> entries = this.loanProvisioningBatchProcessor.aggregate(date, threadPoolSize);
+        Long entryId = this.loanProvisioningBatchProcessor.insertProvisioningEntry(currentUser.getId(), date, entries);
         if (addJournalEntries) {
             ProvisioningEntryData exisProvisioningEntryData = this.provisioningEntriesReadPlatformService
                     .retrieveExistingProvisioningIdDateWithJournals();
-            revertAndAddJournalEntries(exisProvisioningEntryData, requestedEntry);
-        } else {
-            this.provisioningEntryRepository.saveAndFlush(requestedEntry);
+            if (exisProvisioningEntryData != null) {
+                validateForCreateJournalEntry(exisProvisioningEntryData, date);
+                this.journalEntryWritePlatformService.revertProvisioningJournalEntries(date, exisProvisioningEntryData.getId(),
+                        PortfolioProductType.PROVISIONING.getValue());
+            }
+            this.loanProvisioningBatchProcessor.markJournalEntryCreated(entryId, !entries.isEmpty());
+            this.loanProvisioningBatchProcessor.insertJournalEntries(entryId, date, entries, currentUser.getId());
         }
-        return requestedEntry;
+        return entryId;
     }
 
     @Override
     public CommandProcessingResult reCreateProvisioningEntries(Long provisioningEntryId, JsonCommand command) {
         ProvisioningEntry requestedEntry = this.provisioningEntryRepository.findById(provisioningEntryId)
                 .orElseThrow(() -> new ProvisioningEntryNotfoundException(provisioningEntryId));
-        requestedEntry.getLoanProductProvisioningEntries().clear();
-        this.provisioningEntryRepository.saveAndFlush(requestedEntry);
-        Collection<LoanProductProvisioningEntry> entries = generateLoanProvisioningEntry(requestedEntry, requestedEntry.getCreatedDate());
-        requestedEntry.setProvisioningEntries(entries);
-        this.provisioningEntryRepository.saveAndFlush(requestedEntry);
-        return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(requestedEntry.getId()).build();
-    }
-
-    private Collection<LoanProductProvisioningEntry> generateLoanProvisioningEntry(ProvisioningEntry parent, Date date) {
-        Collection<LoanProductProvisioningEntryData> entries = this.provisioningEntriesReadPlatformService
-                .retrieveLoanProductsProvisioningData(date);
-        Map<Integer, LoanProductProvisioningEntry> provisioningEntries = new HashMap<>();
-        for (LoanProductProvisioningEntryData data : entries) {
-            LoanProduct loanProduct = this.loanProductRepository.findById(data.getProductId()).get();
-            Office office = this.officeRepositoryWrapper.findOneWithNotFoundDetection(data.getOfficeId());
-            ProvisioningCategory provisioningCategory = provisioningCategoryRepository.findById(data.getCategoryId()).get();
-            GLAccount liabilityAccount = glAccountRepository.findById(data.getLiablityAccount()).get();
-            GLAccount expenseAccount = glAccountRepository.findById(data.getExpenseAccount()).get();
-            MonetaryCurrency currency = loanProduct.getPrincipalAmount().getCurrency();
-            Money money = Money.of(currency, data.getBalance());
-            Money amountToReserve = money.percentageOf(data.getPercentage(), MoneyHelper.getRoundingMode());
-            Long criteraId = data.getCriteriaId();
-            LoanProductProvisioningEntry entry = new LoanProductProvisioningEntry(loanProduct, office, data.getCurrencyCode(),
-                    provisioningCategory, data.getOverdueInDays(), amountToReserve.getAmount(), liabilityAccount, expenseAccount,
-                    criteraId);
-            entry.setProvisioningEntry(parent);
-            if (!provisioningEntries.containsKey(entry.partialHashCode())) {
-                provisioningEntries.put(entry.partialHashCode(), entry);
-            } else {
-                LoanProductProvisioningEntry entry1 = provisioningEntries.get(entry.partialHashCode());
-                entry1.addReservedAmount(entry.getReservedAmount());
-            }
-        }
-        return provisioningEntries.values();
+        Collection<LoanProvisioningBucketData> entries = this.loanProvisioningBatchProcessor.aggregate(requestedEntry.getCreatedDate(),
+                DEFAULT_THREAD_POOL_SIZE);
+        this.loanProvisioningBatchProcessor.replaceLoanProductProvisioningEntries(provisioningEntryId, entries);
+        return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(provisioningEntryId).build();
     }
 }
@@ -16,16 +16,19 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+package org.apache.fineract.accounting.trialbalance.api;
 
-package org.apache.fineract.infrastructure.jobs.exception;
+public final class TrialBalanceApiConstants {
 
-import org.apache.fineract.infrastructure.core.exception.AbstractPlatformDomainRuleException;
+    private TrialBalanceApiConstants() {
 
-public class JobNodeIdMismatchingException extends AbstractPlatformDomainRuleException {
-
-    public JobNodeIdMismatchingException(final String nodeId, final String nodeIdProvided) {
-        super("error.msg.job.cannot.execute.on.node." + nodeIdProvided,
-                "The node id provided `" + nodeIdProvided + "`" + "` does not match with the configured nodeId.", new Object[] { nodeId });
     }
 
+    public static final String fromDateParamName = "fromDate";
+    public static final String toDateParamName = "toDate";
+    public static final String localeParamName = "locale";
+    public static final String dateFormatParamName = "dateFormat";
+
+    public static final String TRIAL_BALANCE_RESOURCE_NAME = "trialbalance";
+    public static final String TRIAL_BALANCE_REBUILD_ERROR_CODE = "rebuild.failed";
 }
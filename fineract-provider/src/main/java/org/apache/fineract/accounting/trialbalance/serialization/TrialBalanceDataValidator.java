@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.trialbalance.serialization;
+
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.TRIAL_BALANCE_RESOURCE_NAME;
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.fromDateParamName;
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.toDateParamName;
+
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants;
+import org.apache.fineract.infrastructure.core.data.ApiParameterError;
+import org.apache.fineract.infrastructure.core.data.DataValidatorBuilder;
+import org.apache.fineract.infrastructure.core.exception.InvalidJsonException;
+import org.apache.fineract.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public final class TrialBalanceDataValidator {
+
+    private static final Set<String> REBUILD_REQUEST_DATA_PARAMETERS = new HashSet<>(Arrays.asList(fromDateParamName, toDateParamName,
+            TrialBalanceApiConstants.localeParamName, TrialBalanceApiConstants.dateFormatParamName));
+
+    private final FromJsonHelper fromApiJsonHelper;
+
+    public void validateForRebuild(final String json) {
+        if (StringUtils.isBlank(json)) {
+            throw new InvalidJsonException();
+        }
+        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, REBUILD_REQUEST_DATA_PARAMETERS);
+
+        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+        final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource(TRIAL_BALANCE_RESOURCE_NAME);
+
+        final LocalDate fromDate = this.fromApiJsonHelper.extractLocalDateNamed(fromDateParamName, element);
+        baseDataValidator.reset().parameter(fromDateParamName).value(fromDate).notNull();
+        final LocalDate toDate = this.fromApiJsonHelper.extractLocalDateNamed(toDateParamName, element);
+        baseDataValidator.reset().parameter(toDateParamName).value(toDate).notNull().validateDateBefore(DateUtils.getLocalDateOfTenant());
+        baseDataValidator.reset().parameter(fromDateParamName).value(fromDate).validateDateBeforeOrEqual(toDate);
+
+        if (!dataValidationErrors.isEmpty()) {
+            throw new PlatformApiDataValidationException(dataValidationErrors);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.trialbalance.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Builds <code>m_trial_balance</code>: one row per office, GL account, entry date and transaction date with the signed
+ * amount of the journal entries and the running closing balance of the office and account, ordered by transaction date
+ * and entry date.
+ *
+ * The rows and the closing balances of each office are replaced in one transaction per office, the offices in parallel
+ * on the {@link BatchTaskExecutor}. The closing balances are recalculated with a window function on PostgreSQL and with
+ * a single ordered pass and batched updates on MySQL and MariaDB, whose supported versions do not all have window
+ * functions. An office that fails keeps its previous rows, and the next {@link #build(int)} continues it from its own
+ * last built transaction date.
+ */
+@Component
+public class TrialBalanceBuilder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrialBalanceBuilder.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO m_trial_balance (office_id, account_id, amount, entry_date, created_date, "
+            + "closing_balance) SELECT je.office_id, je.account_id, "
+            + "SUM(CASE WHEN je.type_enum = 1 THEN (-1) * je.amount ELSE je.amount END), CAST(je.entry_date AS DATE), "
+            + "je.transaction_date, 0 FROM acc_gl_journal_entry je "
+            + "WHERE je.office_id = ? AND je.transaction_date >= ? AND je.transaction_date <= ? "
+            + "GROUP BY je.office_id, je.account_id, je.transaction_date, CAST(je.entry_date AS DATE)";
+
+    private static final String PENDING_OFFICES_SQL = "SELECT je.office_id, MIN(je.transaction_date) AS from_date "
+            + "FROM acc_gl_journal_entry je LEFT JOIN (SELECT office_id, MAX(created_date) AS built_date FROM m_trial_balance "
+            + "GROUP BY office_id) tb ON tb.office_id = je.office_id "
+            + "WHERE (tb.built_date IS NULL OR je.transaction_date > tb.built_date) AND je.transaction_date <= ? GROUP BY je.office_id";
+
+    private static final String OFFICES_SQL = "SELECT office_id FROM acc_gl_journal_entry WHERE transaction_date >= ? "
+            + "AND transaction_date <= ? UNION SELECT office_id FROM m_trial_balance WHERE created_date >= ? AND created_date <= ?";
+
+    private static final String WINDOW_UPDATE_SQL = "UPDATE m_trial_balance tb SET closing_balance = x.closing_balance FROM ("
+            + "SELECT t.account_id, t.entry_date, t.created_date, COALESCE(o.closing_balance, 0) "
+            + "+ SUM(t.amount) OVER (PARTITION BY t.account_id ORDER BY t.created_date, t.entry_date) AS closing_balance "
+            + "FROM m_trial_balance t LEFT JOIN (SELECT DISTINCT ON (p.account_id) p.account_id, p.closing_balance "
+            + "FROM m_trial_balance p WHERE p.office_id = ? AND p.created_date < ? "
+            + "ORDER BY p.account_id, p.created_date DESC, p.entry_date DESC) o ON o.account_id = t.account_id "
+            + "WHERE t.office_id = ? AND t.created_date >= ?) x "
+            + "WHERE tb.office_id = ? AND tb.account_id = x.account_id AND tb.entry_date = x.entry_date "
+            + "AND tb.created_date = x.created_date";
+
+    private static final String OPENING_BALANCES_SQL = "SELECT t.account_id, t.closing_balance FROM m_trial_balance t "
+            + "JOIN (SELECT account_id, MAX(created_date) AS created_date FROM m_trial_balance WHERE office_id = ? AND created_date < ? "
+            + "GROUP BY account_id) m ON m.account_id = t.account_id AND m.created_date = t.created_date "
+            + "WHERE t.office_id = ? ORDER BY t.account_id, t.entry_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseTypeResolver databaseTypeResolver;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchTaskExecutor batchTaskExecutor;
+
+    @Autowired
+    public TrialBalanceBuilder(final JdbcTemplate jdbcTemplate, final DatabaseTypeResolver databaseTypeResolver,
+            final PlatformTransactionManager transactionManager, final BatchTaskExecutor batchTaskExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseTypeResolver = databaseTypeResolver;
+        this.batchTaskExecutor = batchTaskExecutor;
+        // every office is built in its own transaction, independent of one the caller may have
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Adds the rows of the transaction dates after the last one built, up to yesterday. Each office continues from its
+     * own last built transaction date.
+     */
+    public void build(final int threadPoolSize) throws JobExecutionException {
+        final LocalDate toDate = DateUtils.getLocalDateOfTenant().minusDays(1);
+        final Map<Long, LocalDate> fromDates = new LinkedHashMap<>();
+        this.jdbcTemplate.query(PENDING_OFFICES_SQL,
+                (RowCallbackHandler) rs -> fromDates.put(rs.getLong("office_id"), rs.getDate("from_date").toLocalDate()), toDate);
+        if (!fromDates.isEmpty()) {
+            buildOffices(fromDates, toDate, threadPoolSize);
+        }
+    }
+
+    /**
+     * Replaces the rows of the transaction dates from <code>fromDate</code> to <code>toDate</code>, both inclusive, and
+     * recalculates all closing balances from <code>fromDate</code> onwards.
+     */
+    public void rebuild(final LocalDate fromDate, final LocalDate toDate, final int threadPoolSize) throws JobExecutionException {
+        final Map<Long, LocalDate> fromDates = new LinkedHashMap<>();
+        for (final Long officeId : this.jdbcTemplate.queryForList(OFFICES_SQL, Long.class, fromDate, toDate, fromDate, toDate)) {
+            fromDates.put(officeId, fromDate);
+        }
+        buildOffices(fromDates, toDate, threadPoolSize);
+    }
+
+    private void buildOffices(final Map<Long, LocalDate> fromDates, final LocalDate toDate, final int threadPoolSize)
+            throws JobExecutionException {
+        final long start = System.currentTimeMillis();
+        final List<Long> officeIds = new ArrayList<>(fromDates.keySet());
+        final List<Callable<Integer>> offices = new ArrayList<>(officeIds.size());
+        for (final Long officeId : officeIds) {
+            offices.add(() -> this.transactionTemplate.execute(status -> buildOffice(officeId, fromDates.get(officeId), toDate)));
+        }
+
+        int updated = 0;
+        final List<Throwable> errors = new ArrayList<>();
+        try {
+            final List<Future<Integer>> results = this.batchTaskExecutor.invokeAll(offices, threadPoolSize);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    updated += results.get(i).get();
+                } catch (ExecutionException e) {
+                    LOG.error("Failed to build the trial balance of office {} from {}", officeIds.get(i), fromDates.get(officeIds.get(i)),
+                            e.getCause());
+                    errors.add(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add(e);
+        }
+        LOG.info("{}: trial balance up to {}: {} closing balances of {} offices updated in {} ms",
+                ThreadLocalContextUtil.getTenant().getName(), toDate, updated, officeIds.size(), System.currentTimeMillis() - start);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+    }
+
+    private int buildOffice(final Long officeId, final LocalDate fromDate, final LocalDate toDate) {
+        this.jdbcTemplate.update("DELETE FROM m_trial_balance WHERE office_id = ? AND created_date >= ? AND created_date <= ?", officeId,
+                fromDate, toDate);
+        this.jdbcTemplate.update(INSERT_SQL, officeId, fromDate, toDate);
+        return updateClosingBalances(officeId, fromDate);
+    }
+
+    private int updateClosingBalances(final Long officeId, final LocalDate fromDate) {
+        if (this.databaseTypeResolver.isPostgreSQL()) {
+            return this.jdbcTemplate.update(WINDOW_UPDATE_SQL, officeId, fromDate, officeId, fromDate, officeId);
+        }
+
+        final Map<Long, BigDecimal> closingBalances = new HashMap<>();
+        // ordered by entry date, the last row of the latest transaction date wins
+        this.jdbcTemplate.query(OPENING_BALANCES_SQL,
+                (RowCallbackHandler) rs -> closingBalances.put(rs.getLong("account_id"), rs.getBigDecimal("closing_balance")), officeId,
+                fromDate, officeId);
+
+        final List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        final int[] updated = { 0 };
+        this.jdbcTemplate.query("SELECT account_id, entry_date, created_date, amount FROM m_trial_balance "
+                + "WHERE office_id = ? AND created_date >= ? ORDER BY account_id, created_date, entry_date", (RowCallbackHandler) rs -> {
+                    final Long accountId = rs.getLong("account_id");
+                    final BigDecimal closingBalance = closingBalances.getOrDefault(accountId, BigDecimal.ZERO)
+                            .add(rs.getBigDecimal("amount"));
+                    closingBalances.put(accountId, closingBalance);
+                    batch.add(new Object[] { closingBalance, officeId, accountId, rs.getDate("entry_date"), rs.getDate("created_date") });
+                    if (batch.size() == BATCH_SIZE) {
+                        updated[0] += flush(batch);
+                    }
+                }, officeId, fromDate);
+        updated[0] += flush(batch);
+        return updated[0];
+    }
+
+    private int flush(final List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final int[] counts = this.jdbcTemplate.batchUpdate("UPDATE m_trial_balance SET closing_balance = ? "
+                + "WHERE office_id = ? AND account_id = ? AND entry_date = ? AND created_date = ?", batch);
+        batch.clear();
+        int updated = 0;
+        for (final int count : counts) {
+            // drivers may report a successful statement without its row count
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
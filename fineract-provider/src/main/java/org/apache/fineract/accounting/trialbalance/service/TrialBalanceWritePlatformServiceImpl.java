@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.trialbalance.service;
+
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.TRIAL_BALANCE_REBUILD_ERROR_CODE;
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.TRIAL_BALANCE_RESOURCE_NAME;
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.fromDateParamName;
+import static org.apache.fineract.accounting.trialbalance.api.TrialBalanceApiConstants.toDateParamName;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.accounting.trialbalance.serialization.TrialBalanceDataValidator;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.core.data.ApiParameterError;
+import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
+import org.apache.fineract.infrastructure.core.data.DataValidatorBuilder;
+import org.apache.fineract.infrastructure.core.exception.MultiException;
+import org.apache.fineract.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class TrialBalanceWritePlatformServiceImpl implements TrialBalanceWritePlatformService {
+
+    private static final int REBUILD_THREAD_POOL_SIZE = 4;
+
+    private final TrialBalanceBuilder trialBalanceBuilder;
+    private final TrialBalanceDataValidator trialBalanceDataValidator;
+
+    @Override
+    public CommandProcessingResult rebuildTrialBalance(final JsonCommand command) {
+        this.trialBalanceDataValidator.validateForRebuild(command.json());
+        final LocalDate fromDate = command.localDateValueOfParameterNamed(fromDateParamName);
+        final LocalDate toDate = command.localDateValueOfParameterNamed(toDateParamName);
+        try {
+            this.trialBalanceBuilder.rebuild(fromDate, toDate, REBUILD_THREAD_POOL_SIZE);
+        } catch (MultiException e) {
+            final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+            final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors)
+                    .resource(TRIAL_BALANCE_RESOURCE_NAME);
+            baseDataValidator.reset().failWithCodeNoParameterAddedToErrorCode(TRIAL_BALANCE_REBUILD_ERROR_CODE, e.getMessage());
+            throw new PlatformApiDataValidationException(dataValidationErrors, e);
+        }
+        return CommandProcessingResult.empty();
+    }
+}
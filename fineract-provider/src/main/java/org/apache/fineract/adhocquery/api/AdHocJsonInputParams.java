@@ -27,7 +27,8 @@ import java.util.Set;
 public enum AdHocJsonInputParams {
 
     ID("id"), NAME("name"), QUERY("query"), TABLENAME("tableName"), TABLEFIELDS("tableFields"), ISACTIVE("isActive"), REPORT_RUN_FREQUENCY(
-            "reportRunFrequency"), REPORT_RUN_EVERY("reportRunEvery"), EMAIL("email");
+            "reportRunFrequency"), REPORT_RUN_EVERY("reportRunEvery"), EMAIL("email"), REFRESH_MODE("refreshMode"), WATERMARK_COLUMN(
+                    "watermarkColumn"), TARGET_WATERMARK_COLUMN("targetWatermarkColumn");
 
     private final String value;
 
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.apache.fineract.adhocquery.domain.AdHocRefreshMode;
 import org.apache.fineract.adhocquery.domain.ReportRunFrequency;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 
@@ -51,12 +52,19 @@ public class AdHocData {
     private final Long reportRunFrequency;
     private final Long reportRunEvery;
     private final ZonedDateTime lastRun;
+    private final List<EnumOptionData> refreshModes;
+    private final Integer refreshMode;
+    private final String watermarkColumn;
+    private final String targetWatermarkColumn;
 
     public static AdHocData template() {
         List<EnumOptionData> reportRunFrequencies = Arrays.stream(ReportRunFrequency.values())
                 .map(rrf -> new EnumOptionData(rrf.getValue(), rrf.getCode(), rrf.getCode())).collect(Collectors.toList());
 
+        List<EnumOptionData> refreshModes = Arrays.stream(AdHocRefreshMode.values())
+                .map(mode -> new EnumOptionData((long) mode.getValue(), mode.getCode(), mode.getCode())).collect(Collectors.toList());
+
         return new AdHocData(null, null, null, null, null, null, false, null, null, null, null, null, reportRunFrequencies, null, null,
-                null);
+                null, refreshModes, null, null, null);
     }
 }
@@ -58,10 +58,20 @@ public final class AdHoc extends AbstractAuditableCustom {
     @Column(name = "is_active", nullable = false)
     private boolean isActive = false;
 
+    @Column(name = "refresh_mode", nullable = false)
+    private Integer refreshMode;
+
+    @Column(name = "watermark_column", length = 100)
+    private String watermarkColumn;
+
+    @Column(name = "target_watermark_column", length = 100)
+    private String targetWatermarkColumn;
+
     private AdHoc() {}
 
     private AdHoc(final String name, final String query, final String tableName, final String tableFields, final String email,
-            final Long reportRunFrequency, final Long reportRunEvery, final boolean isActive) {
+            final Long reportRunFrequency, final Long reportRunEvery, final boolean isActive, final Integer refreshMode,
+            final String watermarkColumn, final String targetWatermarkColumn) {
         this.name = StringUtils.defaultIfEmpty(name, null);
         this.query = StringUtils.defaultIfEmpty(query, null);
         this.tableName = StringUtils.defaultIfEmpty(tableName, null);
@@ -70,7 +80,9 @@ public final class AdHoc extends AbstractAuditableCustom {
         this.reportRunFrequency = reportRunFrequency;
         this.reportRunEvery = reportRunEvery;
         this.isActive = BooleanUtils.toBooleanDefaultIfNull(isActive, false);
-
+        this.refreshMode = AdHocRefreshMode.fromInt(refreshMode).getValue();
+        this.watermarkColumn = StringUtils.defaultIfEmpty(watermarkColumn, null);
+        this.targetWatermarkColumn = StringUtils.defaultIfEmpty(targetWatermarkColumn, null);
     }
 
     public static AdHoc fromJson(final JsonCommand command) {
@@ -86,7 +98,12 @@ public final class AdHoc extends AbstractAuditableCustom {
         final Long reportRunFrequency = command.longValueOfParameterNamed(AdHocJsonInputParams.REPORT_RUN_FREQUENCY.getValue());
         final Long reportRunEvery = command.longValueOfParameterNamed(AdHocJsonInputParams.REPORT_RUN_EVERY.getValue());
         final boolean isActive = command.booleanPrimitiveValueOfParameterNamed(AdHocJsonInputParams.ISACTIVE.getValue());
-        return new AdHoc(name, query, tableName, tableFields, email, reportRunFrequency, reportRunEvery, isActive);
+        final Integer refreshMode = command.integerValueSansLocaleOfParameterNamed(AdHocJsonInputParams.REFRESH_MODE.getValue());
+        final String watermarkColumn = command.stringValueOfParameterNamed(AdHocJsonInputParams.WATERMARK_COLUMN.getValue());
+        final String targetWatermarkColumn = command
+                .stringValueOfParameterNamed(AdHocJsonInputParams.TARGET_WATERMARK_COLUMN.getValue());
+        return new AdHoc(name, query, tableName, tableFields, email, reportRunFrequency, reportRunEvery, isActive, refreshMode,
+                watermarkColumn, targetWatermarkColumn);
     }
 
     public Map<String, Object> update(final JsonCommand command) {
@@ -142,6 +159,24 @@ public final class AdHoc extends AbstractAuditableCustom {
             actualChanges.put(paramisActive, newValue);
             this.isActive = newValue;
         }
+        final String refreshMode = "refreshMode";
+        if (command.isChangeInIntegerSansLocaleParameterNamed(refreshMode, this.refreshMode)) {
+            final Integer newValue = AdHocRefreshMode.fromInt(command.integerValueSansLocaleOfParameterNamed(refreshMode)).getValue();
+            actualChanges.put(refreshMode, newValue);
+            this.refreshMode = newValue;
+        }
+        final String watermarkColumn = "watermarkColumn";
+        if (command.isChangeInStringParameterNamed(watermarkColumn, this.watermarkColumn)) {
+            final String newValue = StringUtils.defaultIfEmpty(command.stringValueOfParameterNamed(watermarkColumn), null);
+            actualChanges.put(watermarkColumn, newValue);
+            this.watermarkColumn = newValue;
+        }
+        final String targetWatermarkColumn = "targetWatermarkColumn";
+        if (command.isChangeInStringParameterNamed(targetWatermarkColumn, this.targetWatermarkColumn)) {
+            final String newValue = StringUtils.defaultIfEmpty(command.stringValueOfParameterNamed(targetWatermarkColumn), null);
+            actualChanges.put(targetWatermarkColumn, newValue);
+            this.targetWatermarkColumn = newValue;
+        }
         return actualChanges;
     }
 
@@ -184,4 +219,16 @@ public final class AdHoc extends AbstractAuditableCustom {
     public Long getReportRunEvery() {
         return this.reportRunEvery;
     }
+
+    public Integer getRefreshMode() {
+        return this.refreshMode;
+    }
+
+    public String getWatermarkColumn() {
+        return this.watermarkColumn;
+    }
+
+    public String getTargetWatermarkColumn() {
+        return this.targetWatermarkColumn;
+    }
 }
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.adhocquery.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * How a run of an ad-hoc query refreshes its table: <code>APPEND</code> inserts all rows of the query again,
+ * <code>FULL</code> replaces the table contents with the rows of the query and <code>INCREMENTAL</code> only inserts the
+ * rows with a watermark column value above the highest one already in the table.
+ */
+public enum AdHocRefreshMode {
+
+    APPEND(0, "refreshMode.append"), FULL(1, "refreshMode.full"), INCREMENTAL(2, "refreshMode.incremental");
+
+    private static final Map<Integer, AdHocRefreshMode> MAP = Arrays.stream(AdHocRefreshMode.values())
+            .collect(Collectors.toMap(AdHocRefreshMode::getValue, e -> e));
+
+    private final int value;
+    private final String code;
+
+    AdHocRefreshMode(final int value, final String code) {
+        this.value = value;
+        this.code = code;
+    }
+
+    public int getValue() {
+        return this.value;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    public static AdHocRefreshMode fromInt(final Integer value) {
+        return value == null ? APPEND : AdHocRefreshMode.MAP.getOrDefault(value, APPEND);
+    }
+}
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.adhocquery.domain.AdHocRefreshMode;
 import org.apache.fineract.adhocquery.domain.ReportRunFrequency;
 import org.apache.fineract.infrastructure.core.data.ApiParameterError;
 import org.apache.fineract.infrastructure.core.data.DataValidatorBuilder;
@@ -43,8 +44,13 @@ public final class AdHocDataValidator {
     /**
      * The parameters supported for this command.
      */
-    private final Set<String> supportedParameters = new HashSet<>(
-            Arrays.asList("name", "query", "tableName", "tableFields", "email", "isActive", "reportRunFrequency", "reportRunEvery"));
+    private final Set<String> supportedParameters = new HashSet<>(Arrays.asList("name", "query", "tableName", "tableFields", "email",
+            "isActive", "reportRunFrequency", "reportRunEvery", "refreshMode", "watermarkColumn", "targetWatermarkColumn"));
+
+    /**
+     * The watermark columns are put into the refresh statements as is.
+     */
+    private static final String COLUMN_NAME_REGEX = "^[A-Za-z0-9_]+$";
 
     private final FromJsonHelper fromApiJsonHelper;
 
@@ -92,6 +98,21 @@ public final class AdHocDataValidator {
             baseDataValidator.reset().parameter("reportRunEvery").value(reportRunFrequencyCode).integerGreaterThanZero();
         }
 
+        final Integer refreshMode = this.fromApiJsonHelper.extractIntegerSansLocaleNamed("refreshMode", element);
+        baseDataValidator.reset().parameter("refreshMode").value(refreshMode).ignoreIfNull()
+                .inMinMaxRange(AdHocRefreshMode.APPEND.getValue(), AdHocRefreshMode.INCREMENTAL.getValue());
+
+        final String watermarkColumn = this.fromApiJsonHelper.extractStringNamed("watermarkColumn", element);
+        if (refreshMode != null && refreshMode == AdHocRefreshMode.INCREMENTAL.getValue()) {
+            baseDataValidator.reset().parameter("watermarkColumn").value(watermarkColumn).cantBeBlankWhenParameterProvidedIs("refreshMode",
+                    refreshMode);
+        }
+        baseDataValidator.reset().parameter("watermarkColumn").value(watermarkColumn).ignoreIfNull().notExceedingLengthOf(100)
+                .matchesRegularExpression(COLUMN_NAME_REGEX);
+        final String targetWatermarkColumn = this.fromApiJsonHelper.extractStringNamed("targetWatermarkColumn", element);
+        baseDataValidator.reset().parameter("targetWatermarkColumn").value(targetWatermarkColumn).ignoreIfNull().notExceedingLengthOf(100)
+                .matchesRegularExpression(COLUMN_NAME_REGEX);
+
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
@@ -138,6 +159,21 @@ public final class AdHocDataValidator {
             final Long reportRunEvery = this.fromApiJsonHelper.extractLongNamed("reportRunEvery", element);
             baseDataValidator.reset().parameter("reportRunEvery").value(reportRunEvery).integerGreaterThanZero();
         }
+        if (this.fromApiJsonHelper.parameterExists("refreshMode", element)) {
+            final Integer refreshMode = this.fromApiJsonHelper.extractIntegerSansLocaleNamed("refreshMode", element);
+            baseDataValidator.reset().parameter("refreshMode").value(refreshMode).notNull()
+                    .inMinMaxRange(AdHocRefreshMode.APPEND.getValue(), AdHocRefreshMode.INCREMENTAL.getValue());
+        }
+        if (this.fromApiJsonHelper.parameterExists("watermarkColumn", element)) {
+            final String watermarkColumn = this.fromApiJsonHelper.extractStringNamed("watermarkColumn", element);
+            baseDataValidator.reset().parameter("watermarkColumn").value(watermarkColumn).ignoreIfNull().notExceedingLengthOf(100)
+                    .matchesRegularExpression(COLUMN_NAME_REGEX);
+        }
+        if (this.fromApiJsonHelper.parameterExists("targetWatermarkColumn", element)) {
+            final String targetWatermarkColumn = this.fromApiJsonHelper.extractStringNamed("targetWatermarkColumn", element);
+            baseDataValidator.reset().parameter("targetWatermarkColumn").value(targetWatermarkColumn).ignoreIfNull()
+                    .notExceedingLengthOf(100).matchesRegularExpression(COLUMN_NAME_REGEX);
+        }
         /*
          * if (this.fromApiJsonHelper.parameterExists("isActive", element)) { final Integer isActive =
          * this.fromApiJsonHelper.extractIntegerNamed("isActive", element, Locale.getDefault());
@@ -99,14 +99,19 @@ public class AdHocReadPlatformServiceImpl implements AdHocReadPlatformService {
             final Long reportRunFrequency = JdbcSupport.getLong(rs, "report_run_frequency_code");
             final Long reportRunEvery = JdbcSupport.getLong(rs, "report_run_every");
             final ZonedDateTime lastRun = JdbcSupport.getDateTime(rs, "last_run");
+            final Integer refreshMode = JdbcSupport.getInteger(rs, "refresh_mode");
+            final String watermarkColumn = rs.getString("watermark_column");
+            final String targetWatermarkColumn = rs.getString("target_watermark_column");
 
+            final AdHocData template = AdHocData.template();
             return new AdHocData(id, name, query, tableName, tableFields, email, isActive, createdDate, createdById, updatedById, updatedOn,
-                    createdByUsername, AdHocData.template().getReportRunFrequencies(), reportRunFrequency, reportRunEvery, lastRun);
+                    createdByUsername, template.getReportRunFrequencies(), reportRunFrequency, reportRunEvery, lastRun,
+                    template.getRefreshModes(), refreshMode, watermarkColumn, targetWatermarkColumn);
         }
 
         public String schema() {
             return " r.id as id, r.name as name, r.query as query, r.table_name as tableName,r.table_fields as tableField ,r.is_active as isActive ,r.email as email ,"
-                    + " r.report_run_frequency_code, r.report_run_every, r.last_run, "
+                    + " r.report_run_frequency_code, r.report_run_every, r.last_run, r.refresh_mode, r.watermark_column, r.target_watermark_column, "
                     + " r.created_date as createdDate, r.createdby_id as createdById,cb.username as createdBy,r.lastmodifiedby_id as updatedById ,r.lastmodified_date as updatedOn "
                     + " from m_adhoc r left join m_appuser cb on cb.id=r.createdby_id left join m_appuser mb on mb.id=r.lastmodifiedby_id";
 
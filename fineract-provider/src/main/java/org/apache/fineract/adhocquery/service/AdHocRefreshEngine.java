@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.adhocquery.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.adhocquery.data.AdHocData;
+import org.apache.fineract.adhocquery.domain.AdHocRefreshMode;
+import org.apache.fineract.infrastructure.core.exception.GeneralPlatformDomainRuleException;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Refreshes the tables of the ad-hoc queries according to their {@link AdHocRefreshMode}, recording every run in
+ * <code>m_adhoc_run</code>.
+ */
+@Component
+public class AdHocRefreshEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdHocRefreshEngine.class);
+
+    private static final String RUN_SQL = "INSERT INTO m_adhoc_run "
+            + "(adhoc_id, refresh_mode, started_at, duration_ms, rows_affected, status, error_message) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseTypeResolver databaseTypeResolver;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchTaskExecutor batchTaskExecutor;
+
+    @Autowired
+    public AdHocRefreshEngine(final JdbcTemplate jdbcTemplate, final DatabaseTypeResolver databaseTypeResolver,
+            final PlatformTransactionManager transactionManager, final BatchTaskExecutor batchTaskExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseTypeResolver = databaseTypeResolver;
+        this.batchTaskExecutor = batchTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Refreshes the tables of <code>adhocs</code>, <code>threadPoolSize</code> at a time. The queries of one table are
+     * refreshed one after the other, the full rebuilds first, so that they never replace the rows appended by the
+     * others.
+     */
+    public void refresh(final Collection<AdHocData> adhocs, final int threadPoolSize) throws JobExecutionException {
+        final Map<String, List<AdHocData>> tables = adhocs.stream().collect(Collectors
+                .groupingBy(adhoc -> adhoc.getTableName().trim().toLowerCase(Locale.ROOT), LinkedHashMap::new, Collectors.toList()));
+
+        final List<Callable<List<Throwable>>> tasks = new ArrayList<>(tables.size());
+        for (final List<AdHocData> table : tables.values()) {
+            tasks.add(() -> refreshTable(table));
+        }
+        final List<Throwable> errors = new ArrayList<>();
+        try {
+            for (final Future<List<Throwable>> result : this.batchTaskExecutor.invokeAll(tasks, threadPoolSize)) {
+                try {
+                    errors.addAll(result.get());
+                } catch (ExecutionException e) {
+                    errors.add(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add(e);
+        }
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+    }
+
+    private List<Throwable> refreshTable(final List<AdHocData> adhocs) {
+        final List<Throwable> errors = new ArrayList<>();
+        final List<AdHocData> rebuilds = adhocs.stream()
+                .filter(adhoc -> AdHocRefreshMode.fromInt(adhoc.getRefreshMode()) == AdHocRefreshMode.FULL).collect(Collectors.toList());
+        if (!rebuilds.isEmpty()) {
+            try {
+                rebuild(rebuilds);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to rebuild the ad-hoc table {}", rebuilds.get(0).getTableName(), e);
+                errors.add(e);
+            }
+        }
+        for (final AdHocData adhoc : adhocs) {
+            final AdHocRefreshMode mode = AdHocRefreshMode.fromInt(adhoc.getRefreshMode());
+            if (mode == AdHocRefreshMode.FULL) {
+                continue;
+            }
+            final LocalDateTime startedAt = DateUtils.getLocalDateTimeOfTenant();
+            final long start = System.currentTimeMillis();
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    final int rows = mode == AdHocRefreshMode.INCREMENTAL ? appendAfterWatermark(adhoc) : append(adhoc);
+                    recordSuccess(adhoc, mode, startedAt, System.currentTimeMillis() - start, rows);
+                });
+            } catch (RuntimeException e) {
+                LOG.error("Failed to refresh the ad-hoc query {}", adhoc.getName(), e);
+                recordFailure(adhoc, mode, startedAt, System.currentTimeMillis() - start, e);
+                errors.add(e);
+            }
+        }
+        return errors;
+    }
+
+    private int append(final AdHocData adhoc) {
+        return this.jdbcTemplate.update(insertSql(adhoc.getTableName(), adhoc)); // NOSONAR
+    }
+
+    /**
+     * Appends the query rows whose watermark column is at or above the highest value in the table. The rows of the table
+     * with that value are deleted first, since the query may have gained rows with the same value after the last
+     * refresh; so they are replaced, neither skipped nor duplicated.
+     *
+     * @return the number of rows added
+     */
+    private int appendAfterWatermark(final AdHocData adhoc) {
+        final String sourceColumn = adhoc.getWatermarkColumn();
+        if (StringUtils.isBlank(sourceColumn)) {
+            throw new GeneralPlatformDomainRuleException("error.msg.adhoc.watermark.column.missing",
+                    "The ad-hoc query " + adhoc.getName() + " is refreshed incrementally but has no watermark column", adhoc.getId());
+        }
+        // the table may name the column differently, tableFields maps the query columns by position
+        final String targetColumn = StringUtils.defaultIfBlank(adhoc.getTargetWatermarkColumn(), sourceColumn);
+        final Object watermark = this.jdbcTemplate
+                .queryForObject("SELECT MAX(" + targetColumn + ") FROM " + adhoc.getTableName(), Object.class); // NOSONAR
+        final String sql = "INSERT INTO " + adhoc.getTableName() + "(" + adhoc.getTableFields() + ") SELECT q.* FROM (" + adhoc.getQuery()
+                + ") q";
+        if (watermark == null) {
+            return this.jdbcTemplate.update(sql); // NOSONAR
+        }
+        final int replaced = this.jdbcTemplate.update("DELETE FROM " + adhoc.getTableName() + " WHERE " + targetColumn + " = ?", // NOSONAR
+                watermark);
+        return this.jdbcTemplate.update(sql + " WHERE q." + sourceColumn + " >= ?", watermark) - replaced; // NOSONAR
+    }
+
+    /**
+     * Replaces the rows of the table of <code>adhocs</code> with the rows of their queries, so that readers see either
+     * all old or all new rows. MySQL fills a shadow table and swaps it in with one atomic RENAME TABLE. PostgreSQL
+     * deletes and inserts in one transaction instead: MVCC already keeps readers on the old rows until it commits, and
+     * renaming would leave the views and sequences of the table pointing to the old one.
+     */
+    private void rebuild(final List<AdHocData> adhocs) {
+        final String table = adhocs.get(0).getTableName();
+        final LocalDateTime startedAt = DateUtils.getLocalDateTimeOfTenant();
+        final long start = System.currentTimeMillis();
+        final int[] rows = new int[adhocs.size()];
+        try {
+            if (this.databaseTypeResolver.isPostgreSQL()) {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    this.jdbcTemplate.update("DELETE FROM " + table); // NOSONAR
+                    for (int i = 0; i < adhocs.size(); i++) {
+                        rows[i] = this.jdbcTemplate.update(insertSql(table, adhocs.get(i))); // NOSONAR
+                    }
+                    recordSuccess(adhocs, startedAt, System.currentTimeMillis() - start, rows);
+                });
+            } else {
+                // DDL commits implicitly in MySQL, so the shadow table is filled and swapped outside any transaction
+                final String shadow = table + "_shadow";
+                final String old = table + "_old";
+                this.jdbcTemplate.execute("DROP TABLE IF EXISTS " + shadow); // NOSONAR
+                this.jdbcTemplate.execute("CREATE TABLE " + shadow + " LIKE " + table); // NOSONAR
+                for (int i = 0; i < adhocs.size(); i++) {
+                    rows[i] = this.jdbcTemplate.update(insertSql(shadow, adhocs.get(i))); // NOSONAR
+                }
+                this.jdbcTemplate.execute("DROP TABLE IF EXISTS " + old); // NOSONAR
+                this.jdbcTemplate.execute("RENAME TABLE " + table + " TO " + old + ", " + shadow + " TO " + table); // NOSONAR
+                this.jdbcTemplate.execute("DROP TABLE " + old); // NOSONAR
+                this.transactionTemplate
+                        .executeWithoutResult(status -> recordSuccess(adhocs, startedAt, System.currentTimeMillis() - start, rows));
+            }
+        } catch (RuntimeException e) {
+            for (final AdHocData adhoc : adhocs) {
+                recordFailure(adhoc, AdHocRefreshMode.FULL, startedAt, System.currentTimeMillis() - start, e);
+            }
+            throw e;
+        }
+        LOG.info("{}: ad-hoc table {} rebuilt by {} queries with {} rows in {} ms", ThreadLocalContextUtil.getTenant().getName(), table,
+                adhocs.size(), Arrays.stream(rows).sum(), System.currentTimeMillis() - start);
+    }
+
+    private static String insertSql(final String table, final AdHocData adhoc) {
+        return "INSERT INTO " + table + "(" + adhoc.getTableFields() + ") " + adhoc.getQuery();
+    }
+
+    private void recordSuccess(final List<AdHocData> adhocs, final LocalDateTime startedAt, final long durationMs, final int[] rows) {
+        for (int i = 0; i < adhocs.size(); i++) {
+            recordSuccess(adhocs.get(i), AdHocRefreshMode.FULL, startedAt, durationMs, rows[i]);
+        }
+    }
+
+    private void recordSuccess(final AdHocData adhoc, final AdHocRefreshMode mode, final LocalDateTime startedAt, final long durationMs,
+            final int rows) {
+        this.jdbcTemplate.update(RUN_SQL, adhoc.getId(), mode.getValue(), startedAt, durationMs, rows, "SUCCESS", null);
+        this.jdbcTemplate.update("UPDATE m_adhoc SET last_run=? WHERE id=?", new Date(), adhoc.getId());
+        LOG.info("{}: ad-hoc query {} refreshed ({}) with {} rows in {} ms", ThreadLocalContextUtil.getTenant().getName(),
+                adhoc.getName(), mode, rows, durationMs);
+    }
+
+    private void recordFailure(final AdHocData adhoc, final AdHocRefreshMode mode, final LocalDateTime startedAt, final long durationMs,
+            final RuntimeException e) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.update(RUN_SQL, adhoc.getId(), mode.getValue(),
+                    startedAt, durationMs, null, "FAILED", StringUtils.abbreviate(e.getMessage(), 1000)));
+        } catch (RuntimeException recordException) {
+            LOG.warn("Failed to record the failed run of the ad-hoc query {}", adhoc.getName(), recordException);
+        }
+    }
+}
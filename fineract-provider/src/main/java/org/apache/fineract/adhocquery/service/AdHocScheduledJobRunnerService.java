@@ -18,7 +18,12 @@
  */
 package org.apache.fineract.adhocquery.service;
 
+import java.util.Map;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+
 public interface AdHocScheduledJobRunnerService {
 
-    void generateClientSchedule();
+    void generateClientSchedule() throws JobExecutionException;
+
+    void generateClientSchedule(Map<String, String> jobParameters) throws JobExecutionException;
 }
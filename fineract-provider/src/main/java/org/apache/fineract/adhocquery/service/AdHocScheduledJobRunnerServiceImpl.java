@@ -21,98 +21,99 @@ package org.apache.fineract.adhocquery.service;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import org.apache.fineract.adhocquery.data.AdHocData;
 import org.apache.fineract.adhocquery.domain.ReportRunFrequency;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 import org.apache.fineract.infrastructure.jobs.service.JobName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service(value = "adHocScheduledJobRunnerService")
 public class AdHocScheduledJobRunnerServiceImpl implements AdHocScheduledJobRunnerService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AdHocScheduledJobRunnerServiceImpl.class);
+    private static final int THREAD_POOL_SIZE = 4;
     private final AdHocReadPlatformService adHocReadPlatformService;
-    private final JdbcTemplate jdbcTemplate;
+    private final AdHocRefreshEngine adHocRefreshEngine;
 
     @Autowired
-    public AdHocScheduledJobRunnerServiceImpl(final JdbcTemplate jdbcTemplate, final AdHocReadPlatformService adHocReadPlatformService) {
-        this.jdbcTemplate = jdbcTemplate;
+    public AdHocScheduledJobRunnerServiceImpl(final AdHocReadPlatformService adHocReadPlatformService,
+            final AdHocRefreshEngine adHocRefreshEngine) {
         this.adHocReadPlatformService = adHocReadPlatformService;
+        this.adHocRefreshEngine = adHocRefreshEngine;
+    }
 
+    @Override
+    public void generateClientSchedule() throws JobExecutionException {
+        generateClientSchedule(Map.of());
     }
 
-    @Transactional
+    /**
+     * Refreshes the tables of the active ad-hoc queries which are due, the tables on up to "thread-pool-size" threads.
+     */
     @Override
     @CronTarget(jobName = JobName.GENERATE_ADHOCCLIENT_SCEHDULE)
     @SuppressWarnings("UnnecessaryDefaultInEnumSwitch")
-    public void generateClientSchedule() {
+    public void generateClientSchedule(final Map<String, String> jobParameters) throws JobExecutionException {
         final Collection<AdHocData> adhocs = this.adHocReadPlatformService.retrieveAllActiveAdHocQuery();
-        if (adhocs.size() > 0) {
-            adhocs.forEach(adhoc -> {
-                boolean run = true;
-                LocalDate next = null;
-                if (adhoc.getReportRunFrequency() != null) {
-                    if (adhoc.getLastRun() != null) {
-                        LocalDate start = adhoc.getLastRun().toLocalDate();
-                        LocalDate end = ZonedDateTime.now(DateUtils.getDateTimeZoneOfTenant()).toLocalDate();
-                        switch (ReportRunFrequency.fromId(adhoc.getReportRunFrequency())) {
-                            case DAILY:
-                                next = start.plusDays(1);
-                                run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= 1;
-                            break;
-                            case WEEKLY:
-                                next = start.plusDays(7);
-                                run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= 7;
-                            break;
-                            case MONTHLY:
-                                next = start.plusMonths(1);
-                                run = Math.toIntExact(ChronoUnit.MONTHS.between(start, end)) >= 1;
-                            break;
-                            case YEARLY:
-                                next = start.plusYears(1);
-                                run = Math.toIntExact(ChronoUnit.YEARS.between(start, end)) >= 1;
-                            break;
-                            case CUSTOM:
-                                next = start.plusDays((int) (long) adhoc.getReportRunEvery());
-                                run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= adhoc.getReportRunEvery();
-                            break;
-                            default:
-                                throw new IllegalStateException();
-                        }
+        final List<AdHocData> due = new ArrayList<>(adhocs.size());
+        adhocs.forEach(adhoc -> {
+            boolean run = true;
+            LocalDate next = null;
+            if (adhoc.getReportRunFrequency() != null) {
+                if (adhoc.getLastRun() != null) {
+                    LocalDate start = adhoc.getLastRun().toLocalDate();
+                    LocalDate end = ZonedDateTime.now(DateUtils.getDateTimeZoneOfTenant()).toLocalDate();
+                    switch (ReportRunFrequency.fromId(adhoc.getReportRunFrequency())) {
+                        case DAILY:
+                            next = start.plusDays(1);
+                            run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= 1;
+                        break;
+                        case WEEKLY:
+                            next = start.plusDays(7);
+                            run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= 7;
+                        break;
+                        case MONTHLY:
+                            next = start.plusMonths(1);
+                            run = Math.toIntExact(ChronoUnit.MONTHS.between(start, end)) >= 1;
+                        break;
+                        case YEARLY:
+                            next = start.plusYears(1);
+                            run = Math.toIntExact(ChronoUnit.YEARS.between(start, end)) >= 1;
+                        break;
+                        case CUSTOM:
+                            next = start.plusDays((int) (long) adhoc.getReportRunEvery());
+                            run = Math.toIntExact(ChronoUnit.DAYS.between(start, end)) >= adhoc.getReportRunEvery();
+                        break;
+                        default:
+                            throw new IllegalStateException();
                     }
                 }
+            }
 
-                if (run) {
-                    // jdbcTemplate.execute("truncate table
-                    // "+adhoc.getTableName());
-                    final StringBuilder insertSqlBuilder = new StringBuilder(900);
-                    insertSqlBuilder.append("INSERT INTO ").append(adhoc.getTableName() + "(").append(adhoc.getTableFields() + ") ")
-                            .append(adhoc.getQuery());
-                    if (insertSqlBuilder.length() > 0) {
-                        final int result = this.jdbcTemplate.update(insertSqlBuilder.toString());
-                        LOG.info("{}: Records affected by generateClientSchedule: {}", ThreadLocalContextUtil.getTenant().getName(),
-                                result);
+            if (run) {
+                due.add(adhoc);
+            } else {
+                LOG.info("{}: Skipping execution of {}, scheduled for execution on {}",
+                        new Object[] { ThreadLocalContextUtil.getTenant().getName(), adhoc.getName(), next });
+            }
+        });
 
-                        this.jdbcTemplate.update("UPDATE m_adhoc SET last_run=? WHERE id=?", new Date(), adhoc.getId());
-                    }
-                } else {
-                    LOG.info("{}: Skipping execution of {}, scheduled for execution on {}",
-                            new Object[] { ThreadLocalContextUtil.getTenant().getName(), adhoc.getName(), next });
-                }
-            });
-        } else {
+        if (due.isEmpty()) {
             LOG.info("{}: Nothing to update by generateClientSchedule", ThreadLocalContextUtil.getTenant().getName());
+            return;
         }
-
+        final String threadPoolSize = jobParameters.get("thread-pool-size");
+        this.adHocRefreshEngine.refresh(due, threadPoolSize == null ? THREAD_POOL_SIZE : Integer.parseInt(threadPoolSize.trim()));
     }
 
 }
@@ -82,7 +82,10 @@ public class AuditsApiResource {
     @Operation(summary = "List Audits", description = "Get a 200 list of audits that match the criteria supplied and sorted by audit id in descending order, and are within the requestors' data scope. Also it supports pagination and sorting\n"
             + "\n" + "Example Requests:\n" + "\n" + "audits\n" + "\n" + "audits?fields=madeOnDate,maker,processingResult\n" + "\n"
             + "audits?makerDateTimeFrom=2013-03-25 08:00:00&makerDateTimeTo=2013-04-04 18:00:00\n" + "\n" + "audits?officeId=1\n" + "\n"
-            + "audits?officeId=1&includeJson=true")
+            + "audits?officeId=1&includeJson=true\n" + "\n"
+            + "Without \"paged\" the entries are returned newest first, \"limit\" at a time; pass the lowest id returned as \"beforeId\""
+            + " to fetch the next page.\n" + "\n" + "audits?limit=50&beforeId=10234\n" + "\n"
+            + "Entries moved to the archive by the Archive Audit Log job are included until their archive month is dropped.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK", content = @Content(array = @ArraySchema(schema = @Schema(implementation = MakercheckersApiResourceSwagger.GetMakerCheckerResponse.class)))) })
     public String retrieveAuditEntries(@Context final UriInfo uriInfo,
@@ -105,7 +108,8 @@ public class AuditsApiResource {
             @QueryParam("offset") @Parameter(description = "offset") final Integer offset,
             @QueryParam("limit") @Parameter(description = "limit") final Integer limit,
             @QueryParam("orderBy") @Parameter(description = "orderBy") final String orderBy,
-            @QueryParam("sortOrder") @Parameter(description = "sortOrder") final String sortOrder) {
+            @QueryParam("sortOrder") @Parameter(description = "sortOrder") final String sortOrder,
+            @QueryParam("beforeId") @Parameter(description = "beforeId") final Long beforeId) {
 
         this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
         final PaginationParameters parameters = PaginationParameters.instance(paged, offset, limit, orderBy, sortOrder);
@@ -121,7 +125,7 @@ public class AuditsApiResource {
         }
 
         final Collection<AuditData> auditEntries = this.auditReadPlatformService.retrieveAuditEntries(extraCriteria,
-                settings.isIncludeJson());
+                settings.isIncludeJson(), beforeId, limit);
 
         return this.toApiJsonSerializer.serialize(settings, auditEntries, RESPONSE_DATA_PARAMETERS);
     }
@@ -130,8 +134,8 @@ public class AuditsApiResource {
     @Path("{auditId}")
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
-    @Operation(summary = "Retrieve an Audit Entry", description = "Example Requests:\n" + "\n" + "audits/20\n"
-            + "audits/20?fields=madeOnDate,maker,processingResult")
+    @Operation(summary = "Retrieve an Audit Entry", description = "Archived entries are retrieved as well.\n" + "\n"
+            + "Example Requests:\n" + "\n" + "audits/20\n" + "audits/20?fields=madeOnDate,maker,processingResult")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = MakercheckersApiResourceSwagger.GetMakerCheckerResponse.class))) })
     public String retrieveAuditEntry(@PathParam("auditId") @Parameter(description = "auditId") final Long auditId,
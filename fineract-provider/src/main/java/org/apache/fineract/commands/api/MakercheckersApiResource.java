@@ -93,15 +93,21 @@ public class MakercheckersApiResource {
             @QueryParam("groupId") @Parameter(description = "groupId") final Integer groupId,
             @QueryParam("clientId") @Parameter(description = "clientId") final Integer clientId,
             @QueryParam("loanid") @Parameter(description = "loanid") final Integer loanId,
-            @QueryParam("savingsAccountId") @Parameter(description = "savingsAccountId") final Integer savingsAccountId) {
+            @QueryParam("savingsAccountId") @Parameter(description = "savingsAccountId") final Integer savingsAccountId,
+            @QueryParam("afterId") @Parameter(description = "afterId") final Long afterId,
+            @QueryParam("limit") @Parameter(description = "limit") final Integer limit) {
 
         final SQLBuilder extraCriteria = getExtraCriteria(actionName, entityName, resourceId, makerId, makerDateTimeFrom, makerDateTimeTo,
                 officeId, groupId, clientId, loanId, savingsAccountId);
 
         final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
 
-        final Collection<AuditData> entries = this.readPlatformService.retrieveAllEntriesToBeChecked(extraCriteria,
-                settings.isIncludeJson());
+        final Collection<AuditData> entries;
+        if (afterId == null && limit == null) {
+            entries = this.readPlatformService.retrieveAllEntriesToBeChecked(extraCriteria, settings.isIncludeJson());
+        } else {
+            entries = this.readPlatformService.retrieveEntriesToBeChecked(extraCriteria, settings.isIncludeJson(), afterId, limit);
+        }
 
         return this.toApiJsonSerializerAudit.serialize(settings, entries, RESPONSE_DATA_PARAMETERS);
     }
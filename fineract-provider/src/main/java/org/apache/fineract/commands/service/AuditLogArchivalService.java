@@ -16,15 +16,14 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.fineract.accounting.trialbalance.exception;
+package org.apache.fineract.commands.service;
 
-import org.apache.fineract.infrastructure.core.exception.AbstractPlatformResourceNotFoundException;
+import java.util.Map;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 
-public class TrialBalanceNotFoundException extends AbstractPlatformResourceNotFoundException {
+public interface AuditLogArchivalService {
 
-    public TrialBalanceNotFoundException(final Long officeId, final Long accountId) {
-        super("error.msg.trial.balance.invalid",
-                "Trial balance with officeId " + officeId + "and accountId" + accountId + " does not exist");
+    void archiveAuditLog() throws JobExecutionException;
 
-    }
+    void archiveAuditLog(Map<String, String> jobParameters) throws JobExecutionException;
 }
@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.commands.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps <code>m_portfolio_command_source</code> small. Processed entries have their JSON payload gzipped into
+ * <code>m_portfolio_command_source_json</code>, entries older than "retention-days" are moved to the month partitions
+ * of <code>m_portfolio_command_source_archive</code>, and archive months older than "archive-retention-months" are
+ * dropped. Entries awaiting approval are never touched, the maker-checker inbox reads them inline. Archived entries
+ * are still listed and retrieved by the audit API (see {@link AuditReadPlatformServiceImpl}) until their month is
+ * dropped.
+ *
+ * Every batch of "batch-size" entries is moved in its own transaction, so the job can be stopped and resumed at any
+ * point.
+ */
+@Service
+public class AuditLogArchivalServiceImpl implements AuditLogArchivalService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditLogArchivalServiceImpl.class);
+
+    private static final String COMPRESS_PAYLOADS = "compress-payloads";
+    private static final String RETENTION_DAYS = "retention-days";
+    private static final String ARCHIVE_RETENTION_MONTHS = "archive-retention-months";
+    private static final String BATCH_SIZE = "batch-size";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String ARCHIVE_TABLE = "m_portfolio_command_source_archive";
+    private static final Pattern PARTITION_NAME = Pattern.compile("(?:" + ARCHIVE_TABLE + "_)?p(\\d{6})");
+
+    private static final List<String> COPIED_COLUMNS = List.of("action_name", "entity_name", "office_id", "group_id", "client_id",
+            "loan_id", "savings_account_id", "api_get_url", "resource_id", "subresource_id", "command_as_json", "maker_id", "made_on_date",
+            "checker_id", "checked_on_date", "processing_result_enum", "product_id", "transaction_id", "creditbureau_id",
+            "organisation_creditbureau_id");
+    private static final String ARCHIVE_SQL = "insert into " + ARCHIVE_TABLE + " (id, archive_month, archived_on, payload, "
+            + String.join(", ", COPIED_COLUMNS) + ") select aud.id, ?, ?, aj.payload, aud." + String.join(", aud.", COPIED_COLUMNS)
+            + " from m_portfolio_command_source aud left join m_portfolio_command_source_json aj on aj.command_source_id = aud.id"
+            + " where aud.id in ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseTypeResolver databaseTypeResolver;
+    private final DatabaseSpecificSQLGenerator sqlGenerator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public AuditLogArchivalServiceImpl(final JdbcTemplate jdbcTemplate, final DatabaseTypeResolver databaseTypeResolver,
+            final DatabaseSpecificSQLGenerator sqlGenerator, final PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseTypeResolver = databaseTypeResolver;
+        this.sqlGenerator = sqlGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void archiveAuditLog() throws JobExecutionException {
+        archiveAuditLog(Collections.emptyMap());
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.ARCHIVE_AUDIT_LOG)
+    public void archiveAuditLog(final Map<String, String> jobParameters) throws JobExecutionException {
+        final boolean compressPayloads = Boolean.parseBoolean(parameter(jobParameters, COMPRESS_PAYLOADS, "true"));
+        final int retentionDays = Integer.parseInt(parameter(jobParameters, RETENTION_DAYS, "0"));
+        final int archiveRetentionMonths = Integer.parseInt(parameter(jobParameters, ARCHIVE_RETENTION_MONTHS, "0"));
+        final int batchSize = Integer.parseInt(parameter(jobParameters, BATCH_SIZE, String.valueOf(DEFAULT_BATCH_SIZE)));
+
+        final List<Throwable> errors = new ArrayList<>();
+        if (compressPayloads) {
+            try {
+                LOG.info("Compressed {} audit payloads", compressPayloads(batchSize));
+            } catch (final RuntimeException e) {
+                LOG.error("Compressing audit payloads failed", e);
+                errors.add(e);
+            }
+        }
+        if (retentionDays > 0) {
+            try {
+                final LocalDateTime cutoff = DateUtils.getLocalDateOfTenant().minusDays(retentionDays).atStartOfDay();
+                LOG.info("Archived {} audit entries made before {}", archive(cutoff, batchSize), cutoff);
+            } catch (final RuntimeException e) {
+                LOG.error("Archiving audit entries failed", e);
+                errors.add(e);
+            }
+        }
+        if (archiveRetentionMonths > 0) {
+            try {
+                purgeArchive(YearMonth.from(DateUtils.getLocalDateOfTenant()).minusMonths(archiveRetentionMonths));
+            } catch (final RuntimeException e) {
+                LOG.error("Purging the audit archive failed", e);
+                errors.add(e);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+    }
+
+    private static String parameter(final Map<String, String> jobParameters, final String name, final String defaultValue) {
+        final String value = jobParameters.get(name);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    private long compressPayloads(final int batchSize) {
+        final String sql = "select id, command_as_json from m_portfolio_command_source where id > ? and command_as_json is not null"
+                + " and processing_result_enum <> 2 order by id " + this.sqlGenerator.limit(batchSize);
+        final String insertSql = "insert into m_portfolio_command_source_json (command_source_id, payload) values (?, ?)";
+        final String clearSql = "update m_portfolio_command_source set command_as_json = null where id = ?";
+
+        long compressed = 0;
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = this.jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new Object[] { rs.getLong("id"), AuditPayloadCodec.compress(rs.getString("command_as_json")) }, lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            final List<Object[]> ids = new ArrayList<>(batch.size());
+            for (final Object[] row : batch) {
+                ids.add(new Object[] { row[0] });
+            }
+            final List<Object[]> rows = batch;
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.jdbcTemplate.batchUpdate(insertSql, rows);
+                this.jdbcTemplate.batchUpdate(clearSql, ids);
+            });
+            compressed += batch.size();
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        } while (batch.size() == batchSize);
+        return compressed;
+    }
+
+    private long archive(final LocalDateTime cutoff, final int batchSize) {
+        final Timestamp oldest = this.jdbcTemplate.queryForObject(
+                "select min(made_on_date) from m_portfolio_command_source where made_on_date < ? and processing_result_enum <> 2",
+                Timestamp.class, cutoff);
+        if (oldest == null) {
+            return 0;
+        }
+
+        long archived = 0;
+        YearMonth month = YearMonth.from(oldest.toLocalDateTime());
+        while (month.atDay(1).atStartOfDay().isBefore(cutoff)) {
+            final LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+            addPartition(month);
+            archived += archiveMonth(month, month.atDay(1).atStartOfDay(), to.isAfter(cutoff) ? cutoff : to, batchSize);
+            month = month.plusMonths(1);
+        }
+        return archived;
+    }
+
+    private long archiveMonth(final YearMonth month, final LocalDateTime from, final LocalDateTime to, final int batchSize) {
+        final String sql = "select id from m_portfolio_command_source where made_on_date >= ? and made_on_date < ?"
+                + " and processing_result_enum <> 2 and id > ? order by id " + this.sqlGenerator.limit(batchSize);
+        final int archiveMonth = archiveMonth(month);
+
+        long archived = 0;
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            ids = this.jdbcTemplate.queryForList(sql, Long.class, from, to, lastId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            final String in = "(" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+            final Object[] idArgs = ids.toArray();
+            final List<Object> insertArgs = new ArrayList<>(ids.size() + 2);
+            insertArgs.add(archiveMonth);
+            insertArgs.add(DateUtils.getLocalDateTimeOfTenant());
+            insertArgs.addAll(ids);
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.jdbcTemplate.update(ARCHIVE_SQL + in, insertArgs.toArray());
+                this.jdbcTemplate.update("delete from m_portfolio_command_source_json where command_source_id in " + in, idArgs);
+                this.jdbcTemplate.update("delete from m_portfolio_command_source where id in " + in, idArgs);
+            });
+            archived += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
+        return archived;
+    }
+
+    private void addPartition(final YearMonth month) {
+        final int from = archiveMonth(month);
+        final int to = archiveMonth(month.plusMonths(1));
+        if (this.databaseTypeResolver.isPostgreSQL()) {
+            this.jdbcTemplate.execute("create table if not exists " + ARCHIVE_TABLE + "_p" + from + " partition of " + ARCHIVE_TABLE
+                    + " for values from (" + from + ") to (" + to + ")");
+            return;
+        }
+        // months below the highest partition already land in the partition covering them, only pmax is ever split
+        final List<Integer> partitions = partitionMonths();
+        if (partitions.isEmpty() || partitions.get(partitions.size() - 1) < from) {
+            this.jdbcTemplate.execute("alter table " + ARCHIVE_TABLE + " reorganize partition pmax into (partition p" + from
+                    + " values less than (" + to + "), partition pmax values less than maxvalue)");
+        }
+    }
+
+    private void purgeArchive(final YearMonth oldestKept) {
+        final int keepFrom = archiveMonth(oldestKept);
+        for (final Integer month : partitionMonths()) {
+            if (month < keepFrom) {
+                if (this.databaseTypeResolver.isPostgreSQL()) {
+                    this.jdbcTemplate.execute("drop table " + ARCHIVE_TABLE + "_p" + month);
+                } else {
+                    this.jdbcTemplate.execute("alter table " + ARCHIVE_TABLE + " drop partition p" + month);
+                }
+                LOG.info("Dropped audit archive partition {}", month);
+            }
+        }
+        // entries approved long after they were made can sit in a newer partition or the default one
+        this.jdbcTemplate.update("delete from " + ARCHIVE_TABLE + " where archive_month < ?", keepFrom);
+    }
+
+    private List<Integer> partitionMonths() {
+        final List<String> names;
+        if (this.databaseTypeResolver.isPostgreSQL()) {
+            names = this.jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid"
+                    + " join pg_class p on p.oid = i.inhparent where p.relname = ?", String.class, ARCHIVE_TABLE);
+        } else {
+            names = this.jdbcTemplate.queryForList("select partition_name from information_schema.partitions"
+                    + " where table_schema = schema() and table_name = ? and partition_name is not null", String.class, ARCHIVE_TABLE);
+        }
+        final List<Integer> months = new ArrayList<>();
+        for (final String name : names) {
+            final Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(Integer.valueOf(matcher.group(1)));
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    private static int archiveMonth(final YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.commands.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
+
+/**
+ * Gzip encoding of the <code>command_as_json</code> payloads that are moved out of <code>m_portfolio_command_source</code>
+ * into <code>m_portfolio_command_source_json</code> and the audit archive.
+ */
+final class AuditPayloadCodec {
+
+    private AuditPayloadCodec() {}
+
+    static byte[] compress(final String json) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, json.length() / 4));
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new PlatformInternalServerException("error.msg.audit.payload.compression.failed", "Could not compress audit payload",
+                    e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String decompress(final byte[] payload) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new PlatformInternalServerException("error.msg.audit.payload.corrupt", "Could not decompress audit payload", e);
+        }
+    }
+}
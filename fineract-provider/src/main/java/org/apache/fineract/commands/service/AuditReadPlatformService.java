@@ -29,10 +29,14 @@ public interface AuditReadPlatformService {
 
     Collection<AuditData> retrieveAuditEntries(SQLBuilder extraCriteria, boolean includeJson);
 
+    Collection<AuditData> retrieveAuditEntries(SQLBuilder extraCriteria, boolean includeJson, Long beforeId, Integer limit);
+
     Page<AuditData> retrievePaginatedAuditEntries(SQLBuilder extraCriteria, boolean includeJson, PaginationParameters parameters);
 
     Collection<AuditData> retrieveAllEntriesToBeChecked(SQLBuilder extraCriteria, boolean includeJson);
 
+    Collection<AuditData> retrieveEntriesToBeChecked(SQLBuilder extraCriteria, boolean includeJson, Long afterId, Integer limit);
+
     AuditData retrieveAuditEntry(Long auditId);
 
     AuditSearchData retrieveSearchTemplate(String useType);
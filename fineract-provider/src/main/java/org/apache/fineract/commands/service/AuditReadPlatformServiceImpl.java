@@ -49,6 +49,7 @@ import org.apache.fineract.infrastructure.security.service.PlatformSecurityConte
 import org.apache.fineract.infrastructure.security.utils.ColumnValidator;
 import org.apache.fineract.infrastructure.security.utils.SQLBuilder;
 import org.apache.fineract.organisation.office.data.OfficeData;
+import org.apache.fineract.organisation.office.service.OfficeHierarchyScope;
 import org.apache.fineract.organisation.office.service.OfficeReadPlatformService;
 import org.apache.fineract.organisation.staff.data.StaffData;
 import org.apache.fineract.organisation.staff.service.StaffReadPlatformService;
@@ -93,14 +94,32 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
     private final SavingsProductReadPlatformService savingsProductReadPlatformService;
     private final DepositProductReadPlatformService depositProductReadPlatformService;
     private final ColumnValidator columnValidator;
+    private final OfficeHierarchyScope officeHierarchyScope;
+
+    private static final String ENTRIES = "m_portfolio_command_source aud";
+    // processed entries may have had their payload compressed into the side table by the audit archival job
+    private static final String ENTRIES_WITH_PAYLOAD = ENTRIES
+            + " left join m_portfolio_command_source_json aj on aj.command_source_id = aud.id";
+    private static final String ARCHIVED_ENTRIES = "m_portfolio_command_source_archive aud";
+    private static final String ENTRY_COLUMNS = "aud.id, aud.action_name, aud.entity_name, aud.office_id, aud.group_id, aud.client_id,"
+            + " aud.loan_id, aud.savings_account_id, aud.api_get_url, aud.resource_id, aud.subresource_id, aud.maker_id, aud.made_on_date,"
+            + " aud.checker_id, aud.checked_on_date, aud.processing_result_enum";
 
     private static final class AuditMapper implements RowMapper<AuditData> {
 
-        public String schema(final boolean includeJson, final String hierarchy) {
+        /**
+         * @param entries
+         *            the entries to select from, named <code>aud</code>
+         * @param payloadColumn
+         *            the compressed payload of the entries, selected when the JSON is included
+         * @param officeScope
+         *            condition on <code>o2.id</code> limiting the entries to the user's offices, null for all entries
+         */
+        public String schema(final boolean includeJson, final String entries, final String payloadColumn, final String officeScope) {
 
             String commandAsJsonString = "";
             if (includeJson) {
-                commandAsJsonString = ", aud.command_as_json as commandAsJson ";
+                commandAsJsonString = ", aud.command_as_json as commandAsJson, " + payloadColumn + " as commandPayload ";
             }
 
             String partSql = " aud.id as id, aud.action_name as actionName, aud.entity_name as entityName,"
@@ -109,17 +128,15 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
                     + "ck.username as checker, aud.checked_on_date as checkedOnDate, ev.enum_message_property as processingResult "
                     + commandAsJsonString + ", "
                     + " o.name as officeName, gl.level_name as groupLevelName, g.display_name as groupName, c.display_name as clientName, "
-                    + " l.account_no as loanAccountNo, s.account_no as savingsAccountNo " + " from m_portfolio_command_source aud "
+                    + " l.account_no as loanAccountNo, s.account_no as savingsAccountNo " + " from " + entries + " "
                     + " left join m_appuser mk on mk.id = aud.maker_id" + " left join m_appuser ck on ck.id = aud.checker_id"
                     + " left join m_office o on o.id = aud.office_id" + " left join m_group g on g.id = aud.group_id"
                     + " left join m_group_level gl on gl.id = g.level_id" + " left join m_client c on c.id = aud.client_id"
                     + " left join m_loan l on l.id = aud.loan_id" + " left join m_savings_account s on s.id = aud.savings_account_id"
                     + " left join r_enum_value ev on ev.enum_name = 'processing_result_enum' and ev.enum_id = aud.processing_result_enum";
 
-            // data scoping: head office (hierarchy = ".") can see all audit
-            // entries
-            if (!hierarchy.equals(".")) {
-                partSql += " join m_office o2 on o2.id = aud.office_id and o2.hierarchy like '" + hierarchy + "%' ";
+            if (officeScope != null) {
+                partSql += " join m_office o2 on o2.id = aud.office_id and " + officeScope + " ";
             }
 
             return partSql;
@@ -145,6 +162,10 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
             // commandAsJson might not be on the select list of columns
             try {
                 commandAsJson = rs.getString("commandAsJson");
+                if (commandAsJson == null) {
+                    final byte[] commandPayload = rs.getBytes("commandPayload");
+                    commandAsJson = commandPayload == null ? null : AuditPayloadCodec.decompress(commandPayload);
+                }
             } catch (final SQLException e) {
                 commandAsJson = null;
             }
@@ -164,8 +185,23 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
     @Override
     public Collection<AuditData> retrieveAuditEntries(final SQLBuilder extraCriteria, final boolean includeJson) {
-        return retrieveEntries("audit", extraCriteria, " order by aud.id DESC limit " + PaginationParameters.getCheckedLimit(null),
-                includeJson);
+        return retrieveAuditEntries(extraCriteria, includeJson, null, null);
+    }
+
+    @Override
+    public Collection<AuditData> retrieveAuditEntries(final SQLBuilder extraCriteria, final boolean includeJson, final Long beforeId,
+            final Integer limit) {
+        // keyset pagination: the next page starts below the lowest id of the previous one, no offset scan or row count
+        extraCriteria.addNonNullCriteria("aud.id < ", beforeId);
+        final String orderBySql = " order by aud.id DESC" + limitSql(limit);
+
+        final AuditMapper rm = new AuditMapper();
+        // the page is made of the newest entries of the live page and the archived page
+        final String sql = "select " + rm.schema(includeJson, auditEntries(extraCriteria, includeJson, orderBySql), "aud.payload", null)
+                + orderBySql;
+        log.info("sql: {}", sql);
+
+        return this.jdbcTemplate.query(sql, rm, auditEntriesArguments(extraCriteria)); // NOSONAR
     }
 
     @Override
@@ -173,14 +209,11 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
             final PaginationParameters parameters) {
 
         this.paginationParametersDataValidator.validateParameterValues(parameters, supportedOrderByValues, "audits");
-        final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
 
         final AuditMapper rm = new AuditMapper();
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select " + sqlGenerator.calcFoundRows() + " ");
-        sqlBuilder.append(rm.schema(includeJson, hierarchy));
-        sqlBuilder.append(' ').append(extraCriteria.getSQLTemplate());
+        sqlBuilder.append(rm.schema(includeJson, auditEntries(extraCriteria, includeJson, ""), "aud.payload", null));
         if (parameters.isOrderByRequested()) {
             sqlBuilder.append(' ').append(parameters.orderBySql());
             this.columnValidator.validateSqlInjection(sqlBuilder.toString(), parameters.orderBySql());
@@ -195,7 +228,7 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
 
         log.info("sql: {}", sqlBuilder);
 
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlBuilder.toString(), extraCriteria.getArguments(), rm);
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlBuilder.toString(), auditEntriesArguments(extraCriteria), rm);
     }
 
     @Override
@@ -204,6 +237,54 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         return retrieveEntries("makerchecker", extraCriteria, " group by aud.id order by aud.id", includeJson);
     }
 
+    @Override
+    public Collection<AuditData> retrieveEntriesToBeChecked(final SQLBuilder extraCriteria, final boolean includeJson, final Long afterId,
+            final Integer limit) {
+        extraCriteria.addCriteria("aud.processing_result_enum = ", 2);
+        extraCriteria.addNonNullCriteria("aud.id > ", afterId);
+        return retrieveEntries("makerchecker", extraCriteria, " group by aud.id order by aud.id" + limitSql(limit), includeJson);
+    }
+
+    private String officeScope(final String hierarchy, final String officeIdColumn) {
+        // data scoping: head office (hierarchy = ".") can see all audit entries
+        return ".".equals(hierarchy) ? null : this.officeHierarchyScope.officeIdIn(hierarchy, officeIdColumn);
+    }
+
+    /**
+     * The live and the archived entries within the user's data scope that match the criteria, as <code>aud</code>. Each
+     * branch applies the criteria and <code>orderBySql</code> to its own table, so that a page is cut by the indexes of
+     * each table rather than after reading both; the arguments of the criteria are therefore bound once per branch, see
+     * {@link #auditEntriesArguments(SQLBuilder)}. Archived entries carry their compressed payload themselves.
+     */
+    private String auditEntries(final SQLBuilder extraCriteria, final boolean includeJson, final String orderBySql) {
+        final AppUser currentUser = this.context.authenticatedUser();
+        final String officeScope = officeScope(currentUser.getOffice().getHierarchy(), "aud.office_id");
+
+        String whereSql = extraCriteria.getSQLTemplate();
+        if (officeScope != null) {
+            whereSql = whereSql.isEmpty() ? " where " + officeScope : whereSql + " and " + officeScope;
+        }
+
+        final String entries = includeJson ? ENTRY_COLUMNS + ", aud.command_as_json, aj.payload from " + ENTRIES_WITH_PAYLOAD
+                : ENTRY_COLUMNS + " from " + ENTRIES;
+        final String archivedEntries = ENTRY_COLUMNS + (includeJson ? ", aud.command_as_json, aud.payload" : "") + " from "
+                + ARCHIVED_ENTRIES;
+        return "((select " + entries + whereSql + orderBySql + ") union all (select " + archivedEntries + whereSql + orderBySql
+                + ")) aud";
+    }
+
+    private static Object[] auditEntriesArguments(final SQLBuilder extraCriteria) {
+        final Object[] arguments = extraCriteria.getArguments();
+        final Object[] bothBranches = Arrays.copyOf(arguments, arguments.length * 2);
+        System.arraycopy(arguments, 0, bothBranches, arguments.length, arguments.length);
+        return bothBranches;
+    }
+
+    private String limitSql(final Integer limit) {
+        final Integer checkedLimit = PaginationParameters.getCheckedLimit(limit);
+        return checkedLimit == null ? "" : " " + this.sqlGenerator.limit(checkedLimit);
+    }
+
     private Collection<AuditData> retrieveEntries(final String useType, final SQLBuilder extraCriteria, final String groupAndOrderBySQL,
             final boolean includeJson) {
 
@@ -216,7 +297,8 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         final String hierarchy = currentUser.getOffice().getHierarchy();
 
         final AuditMapper rm = new AuditMapper();
-        String sql = "select " + rm.schema(includeJson, hierarchy);
+        String sql = "select " + rm.schema(includeJson, includeJson ? ENTRIES_WITH_PAYLOAD : ENTRIES, "aj.payload",
+                officeScope(hierarchy, "o2.id"));
 
         Boolean isLimitedChecker = false;
         if (useType.equals("makerchecker")) {
@@ -240,14 +322,15 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
     @Override
     public AuditData retrieveAuditEntry(final Long auditId) {
 
-        final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
+        final SQLBuilder criteria = new SQLBuilder();
+        criteria.addCriteria("aud.id = ", auditId);
 
         final AuditMapper rm = new AuditMapper();
 
-        final String sql = "select " + rm.schema(true, hierarchy) + " where aud.id = ? ";
+        // an archived entry is found by its id as well
+        final String sql = "select " + rm.schema(true, auditEntries(criteria, true, ""), "aud.payload", null);
 
-        final AuditData auditResult = this.jdbcTemplate.queryForObject(sql, rm, auditId); // NOSONAR
+        final AuditData auditResult = this.jdbcTemplate.queryForObject(sql, rm, auditEntriesArguments(criteria)); // NOSONAR
 
         return replaceIdsOnAuditData(auditResult);
     }
@@ -1168,6 +1168,14 @@ public class CommandWrapperBuilder {
         return this;
     }
 
+    public CommandWrapperBuilder rebuildTrialBalance() {
+        this.actionName = "REBUILD";
+        this.entityName = "TRIALBALANCE";
+        this.entityId = null;
+        this.href = "/trialbalance/rebuild";
+        return this;
+    }
+
     public CommandWrapperBuilder createGLAccount() {
         this.actionName = "CREATE";
         this.entityName = "GLACCOUNT";
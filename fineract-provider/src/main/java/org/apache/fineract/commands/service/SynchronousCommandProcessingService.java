@@ -46,6 +46,7 @@ import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.hooks.event.HookEvent;
 import org.apache.fineract.infrastructure.hooks.event.HookEventSource;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.portfolio.search.service.SearchIndexWritePlatformService;
 import org.apache.fineract.useradministration.domain.AppUser;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
@@ -63,6 +64,7 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
     private final CommandSourceRepository commandSourceRepository;
     private final ConfigurationDomainService configurationDomainService;
     private final CommandHandlerProvider commandHandlerProvider;
+    private final SearchIndexWritePlatformService searchIndexWritePlatformService;
 
     @Transactional
     @Override
@@ -126,6 +128,7 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
         result.setRollbackTransaction(null);
 
         publishEvent(wrapper.entityName(), wrapper.actionName(), command, result);
+        searchIndexWritePlatformService.reindexAfterCommit(wrapper.entityName(), wrapper.actionName(), result);
 
         return result;
     }
@@ -229,9 +232,10 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
             final HookEventSource hookEventSource = new HookEventSource(entityName, actionName);
 
             // TODO: Add support for publishing array events
-            if (command.json() != null && command.json().startsWith("{")) {
+            if (command.parsedJson() != null && command.parsedJson().isJsonObject()) {
                 Type type = new TypeToken<Map<String, Object>>() {}.getType();
-                Map<String, Object> myMap = gson.fromJson(command.json(), type);
+                // the command carries its parsed JSON, no need to parse the string once more
+                Map<String, Object> myMap = gson.fromJson(command.parsedJson(), type);
 
                 Map<String, Object> reqmap = new HashMap<>();
                 reqmap.put("entityName", entityName);
@@ -27,17 +27,20 @@ public final class BulkImportEvent extends ApplicationEvent {
 
     private final Workbook workbook;
 
+    private final byte[] xlsx;
+
     private final Long importId;
 
     private final String locale;
 
     private final String dateFormat;
 
-    private BulkImportEvent(final String tenantIdentifier, final Workbook workbook, final Long importId, final String locale,
-            final String dateFormat) {
+    private BulkImportEvent(final String tenantIdentifier, final Workbook workbook, final byte[] xlsx, final Long importId,
+            final String locale, final String dateFormat) {
         super(BulkImportEvent.class);
         this.tenantIdentifier = tenantIdentifier;
         this.workbook = workbook;
+        this.xlsx = xlsx;
         this.importId = importId;
         this.locale = locale;
         this.dateFormat = dateFormat;
@@ -45,7 +48,15 @@ public final class BulkImportEvent extends ApplicationEvent {
 
     public static BulkImportEvent instance(final String tenantIdentifier, final Workbook workbook, final Long importId, final String locale,
             final String dateFormat) {
-        return new BulkImportEvent(tenantIdentifier, workbook, importId, locale, dateFormat);
+        return new BulkImportEvent(tenantIdentifier, workbook, null, importId, locale, dateFormat);
+    }
+
+    /**
+     * An upload in XLSX format, which is kept as bytes so that it can be read as a stream instead of a workbook.
+     */
+    public static BulkImportEvent xlsxInstance(final String tenantIdentifier, final byte[] xlsx, final Long importId, final String locale,
+            final String dateFormat) {
+        return new BulkImportEvent(tenantIdentifier, null, xlsx, importId, locale, dateFormat);
     }
 
     public String getTenantIdentifier() {
@@ -56,6 +67,14 @@ public final class BulkImportEvent extends ApplicationEvent {
         return workbook;
     }
 
+    public byte[] getXlsx() {
+        return xlsx;
+    }
+
+    public boolean isXlsx() {
+        return xlsx != null;
+    }
+
     public Long getImportId() {
         return importId;
     }
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns of a loan that the import templates look up, without the rest of the loan account.
+ */
+public final class LoanLookupData {
+
+    private final Long clientId;
+    private final String clientName;
+    private final String clientExternalId;
+    private final String accountNo;
+    private final String status;
+    private final String productName;
+    private final BigDecimal principal;
+    private final BigDecimal totalOutstanding;
+    private final LocalDate disbursementDate;
+
+    public LoanLookupData(final Long clientId, final String clientName, final String clientExternalId, final String accountNo,
+            final String status, final String productName, final BigDecimal principal, final BigDecimal totalOutstanding,
+            final LocalDate disbursementDate) {
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.clientExternalId = clientExternalId;
+        this.accountNo = accountNo;
+        this.status = status;
+        this.productName = productName;
+        this.principal = principal;
+        this.totalOutstanding = totalOutstanding;
+        this.disbursementDate = disbursementDate;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public String getClientExternalId() {
+        return clientExternalId;
+    }
+
+    public String getAccountNo() {
+        return accountNo;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public BigDecimal getPrincipal() {
+        return principal;
+    }
+
+    public BigDecimal getTotalOutstanding() {
+        return totalOutstanding;
+    }
+
+    public LocalDate getDisbursementDate() {
+        return disbursementDate;
+    }
+}
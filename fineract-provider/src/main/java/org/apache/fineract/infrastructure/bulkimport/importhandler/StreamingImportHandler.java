@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler;
+
+import org.apache.fineract.infrastructure.bulkimport.data.Count;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * An {@link ImportHandler} that can also import an XLSX upload while reading it as a stream, and reports its progress
+ * while the rows are executed.
+ */
+public interface StreamingImportHandler extends ImportHandler {
+
+    ImportRowResults process(byte[] xlsx, String locale, String dateFormat, ImportProgressListener progress);
+
+    Count process(Workbook workbook, String locale, String dateFormat, ImportProgressListener progress);
+
+    @Override
+    default Count process(Workbook workbook, String locale, String dateFormat) {
+        return process(workbook, locale, dateFormat, ImportProgressListener.NONE);
+    }
+}
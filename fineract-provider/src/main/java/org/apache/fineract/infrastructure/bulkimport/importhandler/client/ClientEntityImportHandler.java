@@ -19,6 +19,7 @@
 package org.apache.fineract.infrastructure.bulkimport.importhandler.client;
 
 import com.google.common.base.Splitter;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -31,73 +32,135 @@ import org.apache.fineract.commands.service.PortfolioCommandSourceWritePlatformS
 import org.apache.fineract.infrastructure.bulkimport.constants.ClientEntityConstants;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
 import org.apache.fineract.infrastructure.bulkimport.data.Count;
-import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.StreamingImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.helper.DateSerializer;
-import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRow;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowPipeline;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportSheetIndex;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.WorkbookResultWriter;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxSheetReader;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.serialization.GoogleGsonSerializerHelper;
 import org.apache.fineract.portfolio.address.data.AddressData;
 import org.apache.fineract.portfolio.client.data.ClientData;
 import org.apache.fineract.portfolio.client.data.ClientNonPersonData;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Imports the clients of the sheet while it is read, several at a time.
+ */
 @Service
-public class ClientEntityImportHandler implements ImportHandler {
-
-    private static final Logger LOG = LoggerFactory.getLogger(ClientEntityImportHandler.class);
-    private Workbook workbook;
-    private List<ClientData> clients;
+public class ClientEntityImportHandler implements StreamingImportHandler {
 
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
 
+    private final FineractProperties fineractProperties;
+
     @Autowired
-    public ClientEntityImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+    public ClientEntityImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final FineractProperties fineractProperties) {
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.fineractProperties = fineractProperties;
     }
 
     @Override
-    public Count process(Workbook workbook, String locale, String dateFormat) {
-        this.workbook = workbook;
-        this.clients = new ArrayList<>();
-        readExcelFile(locale, dateFormat);
-        return importEntity(dateFormat);
+    public ImportRowResults process(final byte[] xlsx, final String locale, final String dateFormat,
+            final ImportProgressListener progress) {
+        final ImportSheetIndex offices = ImportSheetIndex.read(xlsx, TemplatePopulateImportConstants.OFFICE_SHEET_NAME);
+        final ImportSheetIndex staff = ImportSheetIndex.read(xlsx, TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            XlsxSheetReader.readEntries(xlsx, TemplatePopulateImportConstants.CLIENT_ENTITY_SHEET_NAME, 0, row -> {
+                if (row.isNotImported(ClientEntityConstants.STATUS_COL)) {
+                    submit(pipeline, row, offices, staff, gson, locale, dateFormat);
+                }
+            });
+        } finally {
+            results = pipeline.finish();
+        }
+        return results;
     }
 
-    public void readExcelFile(final String locale, final String dateFormat) {
-        Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_ENTITY_SHEET_NAME);
-        Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(clientSheet, 0);
-        for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
-            Row row;
-            row = clientSheet.getRow(rowIndex);
-            if (ImportHandlerUtils.isNotImported(row, ClientEntityConstants.STATUS_COL)) {
-                clients.add(readClient(row, locale, dateFormat));
+    @Override
+    public Count process(final Workbook workbook, final String locale, final String dateFormat, final ImportProgressListener progress) {
+        final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        final ImportSheetIndex offices = ImportSheetIndex.of(workbook, TemplatePopulateImportConstants.OFFICE_SHEET_NAME);
+        final ImportSheetIndex staff = ImportSheetIndex.of(workbook, TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+        final Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_ENTITY_SHEET_NAME);
+        final Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(clientSheet, 0);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            // rows are copied on this thread, the workbook is not safe for use by the pipeline threads
+            for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
+                final Row row = clientSheet.getRow(rowIndex);
+                if (ImportHandlerUtils.isNotImported(row, ClientEntityConstants.STATUS_COL)) {
+                    submit(pipeline, ImportRow.of(row, evaluator), offices, staff, gson, locale, dateFormat);
+                }
             }
+        } finally {
+            results = pipeline.finish();
         }
+        WorkbookResultWriter.write(clientSheet, results);
+        return results.toCount();
+    }
+
+    private ImportRowPipeline newPipeline(final ImportProgressListener progress) {
+        return new ImportRowPipeline(this.fineractProperties.getBulkImport().getThreadPoolSize(),
+                this.fineractProperties.getBulkImport().getMaxPendingRows(),
+                new ImportRowResults(TemplatePopulateImportConstants.CLIENT_ENTITY_SHEET_NAME, ClientEntityConstants.STATUS_COL,
+                        TemplatePopulateImportConstants.STATUS_COLUMN_HEADER),
+                progress);
+    }
+
+    private static Gson createGson(final String dateFormat) {
+        final GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
+        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
+        return gsonBuilder.create();
     }
 
-    private ClientData readClient(Row row, final String locale, final String dateFormat) {
+    /**
+     * Clients do not depend on each other, each row is its own key.
+     */
+    private void submit(final ImportRowPipeline pipeline, final ImportRow row, final ImportSheetIndex offices,
+            final ImportSheetIndex staff, final Gson gson, final String locale, final String dateFormat) {
+        pipeline.submit(row.getRowIndex(), row.getRowIndex(), () -> {
+            final String payload = gson.toJson(readClient(row, offices, staff, locale, dateFormat));
+            final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                    .createClient() //
+                    .withJson(payload) //
+                    .build(); //
+            this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
+        });
+    }
+
+    private static ClientData readClient(final ImportRow row, final ImportSheetIndex offices, final ImportSheetIndex staff,
+            final String locale, final String dateFormat) {
         Long legalFormId = 2L;
-        String name = ImportHandlerUtils.readAsString(ClientEntityConstants.NAME_COL, row);
-        String officeName = ImportHandlerUtils.readAsString(ClientEntityConstants.OFFICE_NAME_COL, row);
-        Long officeId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.OFFICE_SHEET_NAME), officeName);
-        String staffName = ImportHandlerUtils.readAsString(ClientEntityConstants.STAFF_NAME_COL, row);
-        Long staffId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.STAFF_SHEET_NAME), staffName);
-        LocalDate incorportionDate = ImportHandlerUtils.readAsDate(ClientEntityConstants.INCOPORATION_DATE_COL, row);
-        LocalDate incorporationTill = ImportHandlerUtils.readAsDate(ClientEntityConstants.INCOPORATION_VALID_TILL_COL, row);
+        String name = row.readAsString(ClientEntityConstants.NAME_COL);
+        String officeName = row.readAsString(ClientEntityConstants.OFFICE_NAME_COL);
+        Long officeId = offices.getIdByName(officeName);
+        String staffName = row.readAsString(ClientEntityConstants.STAFF_NAME_COL);
+        Long staffId = staff.getIdByName(staffName);
+        LocalDate incorportionDate = row.readAsDate(ClientEntityConstants.INCOPORATION_DATE_COL);
+        LocalDate incorporationTill = row.readAsDate(ClientEntityConstants.INCOPORATION_VALID_TILL_COL);
         String mobileNo = null;
-        if (ImportHandlerUtils.readAsLong(ClientEntityConstants.MOBILE_NO_COL, row) != null) {
-            mobileNo = ImportHandlerUtils.readAsLong(ClientEntityConstants.MOBILE_NO_COL, row).toString();
+        if (row.readAsLong(ClientEntityConstants.MOBILE_NO_COL) != null) {
+            mobileNo = row.readAsLong(ClientEntityConstants.MOBILE_NO_COL).toString();
         }
 
-        String clientType = ImportHandlerUtils.readAsString(ClientEntityConstants.CLIENT_TYPE_COL, row);
+        String clientType = row.readAsString(ClientEntityConstants.CLIENT_TYPE_COL);
         Long clientTypeId = null;
         if (clientType != null) {
             List<String> clientTypeAr = Splitter.on('-').splitToList(clientType);
@@ -105,7 +168,7 @@ public class ClientEntityImportHandler implements ImportHandler {
                 clientTypeId = Long.parseLong(clientTypeAr.get(1));
             }
         }
-        String clientClassification = ImportHandlerUtils.readAsString(ClientEntityConstants.CLIENT_CLASSIFICATION_COL, row);
+        String clientClassification = row.readAsString(ClientEntityConstants.CLIENT_CLASSIFICATION_COL);
         Long clientClassicationId = null;
         if (clientClassification != null) {
             List<String> clientClassificationAr = Splitter.on('-').splitToList(clientClassification);
@@ -113,18 +176,18 @@ public class ClientEntityImportHandler implements ImportHandler {
                 clientClassicationId = Long.parseLong(clientClassificationAr.get(1));
             }
         }
-        String incorporationNo = ImportHandlerUtils.readAsString(ClientEntityConstants.INCOPORATION_NUMBER_COL, row);
+        String incorporationNo = row.readAsString(ClientEntityConstants.INCOPORATION_NUMBER_COL);
 
-        String mainBusinessLine = ImportHandlerUtils.readAsString(ClientEntityConstants.MAIN_BUSINESS_LINE, row);
+        String mainBusinessLine = row.readAsString(ClientEntityConstants.MAIN_BUSINESS_LINE);
         Long mainBusinessId = null;
         if (mainBusinessLine != null) {
             List<String> mainBusinessLineAr = Splitter.on('-')
-                    .splitToList(ImportHandlerUtils.readAsString(ClientEntityConstants.MAIN_BUSINESS_LINE, row));
+                    .splitToList(row.readAsString(ClientEntityConstants.MAIN_BUSINESS_LINE));
             if (mainBusinessLineAr.get(1) != null) {
                 mainBusinessId = Long.parseLong(mainBusinessLineAr.get(1));
             }
         }
-        String constitution = ImportHandlerUtils.readAsString(ClientEntityConstants.CONSTITUTION_COL, row);
+        String constitution = row.readAsString(ClientEntityConstants.CONSTITUTION_COL);
         Long constitutionId = null;
         if (constitution != null) {
             List<String> constitutionAr = Splitter.on('-').splitToList(constitution);
@@ -132,25 +195,25 @@ public class ClientEntityImportHandler implements ImportHandler {
                 constitutionId = Long.parseLong(constitutionAr.get(1));
             }
         }
-        String remarks = ImportHandlerUtils.readAsString(ClientEntityConstants.REMARKS_COL, row);
+        String remarks = row.readAsString(ClientEntityConstants.REMARKS_COL);
 
         ClientNonPersonData clientNonPersonData = ClientNonPersonData.importInstance(incorporationNo, incorporationTill, remarks,
                 mainBusinessId, constitutionId, locale, dateFormat);
 
-        String externalId = ImportHandlerUtils.readAsString(ClientEntityConstants.EXTERNAL_ID_COL, row);
+        String externalId = row.readAsString(ClientEntityConstants.EXTERNAL_ID_COL);
 
-        Boolean active = ImportHandlerUtils.readAsBoolean(ClientEntityConstants.ACTIVE_COL, row);
+        Boolean active = row.readAsBoolean(ClientEntityConstants.ACTIVE_COL);
 
-        LocalDate submittedOn = ImportHandlerUtils.readAsDate(ClientEntityConstants.SUBMITTED_ON_COL, row);
+        LocalDate submittedOn = row.readAsDate(ClientEntityConstants.SUBMITTED_ON_COL);
 
-        LocalDate activationDate = ImportHandlerUtils.readAsDate(ClientEntityConstants.ACTIVATION_DATE_COL, row);
+        LocalDate activationDate = row.readAsDate(ClientEntityConstants.ACTIVATION_DATE_COL);
         if (!active) {
             activationDate = submittedOn;
         }
         AddressData addressDataObj = null;
         Collection<AddressData> addressList = null;
-        if (ImportHandlerUtils.readAsBoolean(ClientEntityConstants.ADDRESS_ENABLED, row)) {
-            String addressType = ImportHandlerUtils.readAsString(ClientEntityConstants.ADDRESS_TYPE_COL, row);
+        if (row.readAsBoolean(ClientEntityConstants.ADDRESS_ENABLED)) {
+            String addressType = row.readAsString(ClientEntityConstants.ADDRESS_TYPE_COL);
             Long addressTypeId = null;
             if (addressType != null) {
                 List<String> addressTypeAr = Splitter.on('-').splitToList(addressType);
@@ -158,16 +221,16 @@ public class ClientEntityImportHandler implements ImportHandler {
                     addressTypeId = Long.parseLong(addressTypeAr.get(1));
                 }
             }
-            String street = ImportHandlerUtils.readAsString(ClientEntityConstants.STREET_COL, row);
-            String addressLine1 = ImportHandlerUtils.readAsString(ClientEntityConstants.ADDRESS_LINE_1_COL, row);
-            String addressLine2 = ImportHandlerUtils.readAsString(ClientEntityConstants.ADDRESS_LINE_2_COL, row);
-            String addressLine3 = ImportHandlerUtils.readAsString(ClientEntityConstants.ADDRESS_LINE_3_COL, row);
-            String city = ImportHandlerUtils.readAsString(ClientEntityConstants.CITY_COL, row);
+            String street = row.readAsString(ClientEntityConstants.STREET_COL);
+            String addressLine1 = row.readAsString(ClientEntityConstants.ADDRESS_LINE_1_COL);
+            String addressLine2 = row.readAsString(ClientEntityConstants.ADDRESS_LINE_2_COL);
+            String addressLine3 = row.readAsString(ClientEntityConstants.ADDRESS_LINE_3_COL);
+            String city = row.readAsString(ClientEntityConstants.CITY_COL);
 
-            String postalCode = ImportHandlerUtils.readAsString(ClientEntityConstants.POSTAL_CODE_COL, row);
-            Boolean isActiveAddress = ImportHandlerUtils.readAsBoolean(ClientEntityConstants.IS_ACTIVE_ADDRESS_COL, row);
+            String postalCode = row.readAsString(ClientEntityConstants.POSTAL_CODE_COL);
+            Boolean isActiveAddress = row.readAsBoolean(ClientEntityConstants.IS_ACTIVE_ADDRESS_COL);
 
-            String stateProvince = ImportHandlerUtils.readAsString(ClientEntityConstants.STATE_PROVINCE_COL, row);
+            String stateProvince = row.readAsString(ClientEntityConstants.STATE_PROVINCE_COL);
             Long stateProvinceId = null;
             if (stateProvince != null) {
                 List<String> stateProvinceAr = Splitter.on('-').splitToList(stateProvince);
@@ -175,7 +238,7 @@ public class ClientEntityImportHandler implements ImportHandler {
                     stateProvinceId = Long.parseLong(stateProvinceAr.get(1));
                 }
             }
-            String country = ImportHandlerUtils.readAsString(ClientEntityConstants.COUNTRY_COL, row);
+            String country = row.readAsString(ClientEntityConstants.COUNTRY_COL);
             Long countryId = null;
             if (country != null) {
                 List<String> countryAr = Splitter.on('-').splitToList(country);
@@ -187,45 +250,8 @@ public class ClientEntityImportHandler implements ImportHandler {
                     isActiveAddress, stateProvinceId, countryId);
             addressList = new ArrayList<AddressData>(Arrays.asList(addressDataObj));
         }
-        return ClientData.importClientEntityInstance(legalFormId, row.getRowNum(), name, officeId, clientTypeId, clientClassicationId,
+        return ClientData.importClientEntityInstance(legalFormId, row.getRowIndex(), name, officeId, clientTypeId, clientClassicationId,
                 staffId, active, activationDate, submittedOn, externalId, incorportionDate, mobileNo, clientNonPersonData, addressList,
                 locale, dateFormat);
     }
-
-    public Count importEntity(String dateFormat) {
-        Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_ENTITY_SHEET_NAME);
-
-        int successCount = 0;
-        int errorCount = 0;
-        String errorMessage = "";
-
-        GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
-        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
-
-        for (ClientData client : clients) {
-            try {
-                String payload = gsonBuilder.create().toJson(client);
-                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                        .createClient() //
-                        .withJson(payload) //
-                        .build(); //
-                final CommandProcessingResult result = commandsSourceWritePlatformService.logCommandSource(commandRequest);
-                successCount++;
-                Cell statusCell = clientSheet.getRow(client.getRowIndex()).createCell(ClientEntityConstants.STATUS_COL);
-                statusCell.setCellValue(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED);
-                statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(workbook, IndexedColors.LIGHT_GREEN));
-            } catch (RuntimeException ex) {
-                errorCount++;
-                LOG.error("Problem occurred in importEntity function", ex);
-                errorMessage = ImportHandlerUtils.getErrorMessage(ex);
-                ImportHandlerUtils.writeErrorMessage(clientSheet, client.getRowIndex(), errorMessage, ClientEntityConstants.STATUS_COL);
-            }
-        }
-        clientSheet.setColumnWidth(ClientEntityConstants.STATUS_COL, TemplatePopulateImportConstants.SMALL_COL_SIZE);
-        ImportHandlerUtils.writeString(ClientEntityConstants.STATUS_COL,
-                clientSheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX), TemplatePopulateImportConstants.STATUS_COLUMN_HEADER);
-
-        return Count.instance(successCount, errorCount);
-    }
-
 }
@@ -19,6 +19,7 @@
 package org.apache.fineract.infrastructure.bulkimport.importhandler.client;
 
 import com.google.common.base.Splitter;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -31,79 +32,142 @@ import org.apache.fineract.commands.service.PortfolioCommandSourceWritePlatformS
 import org.apache.fineract.infrastructure.bulkimport.constants.ClientPersonConstants;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
 import org.apache.fineract.infrastructure.bulkimport.data.Count;
-import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.StreamingImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.helper.DateSerializer;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRow;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowPipeline;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportSheetIndex;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.WorkbookResultWriter;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxSheetReader;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.serialization.GoogleGsonSerializerHelper;
 import org.apache.fineract.portfolio.address.data.AddressData;
 import org.apache.fineract.portfolio.client.data.ClientData;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Imports the clients of the sheet while it is read, several at a time.
+ */
 @Service
-public class ClientPersonImportHandler implements ImportHandler {
-
-    private static final Logger LOG = LoggerFactory.getLogger(ClientPersonImportHandler.class);
-    private Workbook workbook;
-    private List<ClientData> clients;
+public class ClientPersonImportHandler implements StreamingImportHandler {
 
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
 
+    private final FineractProperties fineractProperties;
+
     @Autowired
-    public ClientPersonImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+    public ClientPersonImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final FineractProperties fineractProperties) {
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.fineractProperties = fineractProperties;
     }
 
     @Override
-    public Count process(Workbook workbook, String locale, String dateFormat) {
-        this.workbook = workbook;
-        this.clients = new ArrayList<>();
-        readExcelFile(locale, dateFormat);
-        return importEntity(dateFormat);
+    public ImportRowResults process(final byte[] xlsx, final String locale, final String dateFormat,
+            final ImportProgressListener progress) {
+        final ImportSheetIndex offices = ImportSheetIndex.read(xlsx, TemplatePopulateImportConstants.OFFICE_SHEET_NAME);
+        final ImportSheetIndex staff = ImportSheetIndex.read(xlsx, TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            XlsxSheetReader.readEntries(xlsx, TemplatePopulateImportConstants.CLIENT_PERSON_SHEET_NAME, 0, row -> {
+                if (row.isNotImported(ClientPersonConstants.STATUS_COL)) {
+                    submit(pipeline, row, offices, staff, gson, locale, dateFormat);
+                }
+            });
+        } finally {
+            results = pipeline.finish();
+        }
+        return results;
     }
 
-    public void readExcelFile(final String locale, final String dateFormat) {
-        Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_PERSON_SHEET_NAME);
-        Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(clientSheet, 0);
-        for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
-            Row row;
-            row = clientSheet.getRow(rowIndex);
-            if (ImportHandlerUtils.isNotImported(row, ClientPersonConstants.STATUS_COL)) {
-                clients.add(readClient(row, locale, dateFormat));
+    @Override
+    public Count process(final Workbook workbook, final String locale, final String dateFormat, final ImportProgressListener progress) {
+        final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        final ImportSheetIndex offices = ImportSheetIndex.of(workbook, TemplatePopulateImportConstants.OFFICE_SHEET_NAME);
+        final ImportSheetIndex staff = ImportSheetIndex.of(workbook, TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+        final Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_PERSON_SHEET_NAME);
+        final Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(clientSheet, 0);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            // rows are copied on this thread, the workbook is not safe for use by the pipeline threads
+            for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
+                final Row row = clientSheet.getRow(rowIndex);
+                if (ImportHandlerUtils.isNotImported(row, ClientPersonConstants.STATUS_COL)) {
+                    submit(pipeline, ImportRow.of(row, evaluator), offices, staff, gson, locale, dateFormat);
+                }
             }
+        } finally {
+            results = pipeline.finish();
         }
+        WorkbookResultWriter.write(clientSheet, results);
+        return results.toCount();
+    }
+
+    private ImportRowPipeline newPipeline(final ImportProgressListener progress) {
+        return new ImportRowPipeline(this.fineractProperties.getBulkImport().getThreadPoolSize(),
+                this.fineractProperties.getBulkImport().getMaxPendingRows(),
+                new ImportRowResults(TemplatePopulateImportConstants.CLIENT_PERSON_SHEET_NAME, ClientPersonConstants.STATUS_COL,
+                        TemplatePopulateImportConstants.STATUS_COLUMN_HEADER),
+                progress);
+    }
+
+    private static Gson createGson(final String dateFormat) {
+        final GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
+        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
+        return gsonBuilder.create();
+    }
+
+    /**
+     * Clients do not depend on each other, each row is its own key.
+     */
+    private void submit(final ImportRowPipeline pipeline, final ImportRow row, final ImportSheetIndex offices,
+            final ImportSheetIndex staff, final Gson gson, final String locale, final String dateFormat) {
+        pipeline.submit(row.getRowIndex(), row.getRowIndex(), () -> {
+            final String payload = gson.toJson(readClient(row, offices, staff, locale, dateFormat));
+            final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                    .createClient() //
+                    .withJson(payload) //
+                    .build(); //
+            this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
+        });
     }
 
-    private ClientData readClient(Row row, final String locale, final String dateFormat) {
+    private static ClientData readClient(final ImportRow row, final ImportSheetIndex offices, final ImportSheetIndex staff,
+            final String locale, final String dateFormat) {
         Long legalFormId = 1L;
-        String firstName = ImportHandlerUtils.readAsString(ClientPersonConstants.FIRST_NAME_COL, row);
-        String lastName = ImportHandlerUtils.readAsString(ClientPersonConstants.LAST_NAME_COL, row);
-        String middleName = ImportHandlerUtils.readAsString(ClientPersonConstants.MIDDLE_NAME_COL, row);
-        String officeName = ImportHandlerUtils.readAsString(ClientPersonConstants.OFFICE_NAME_COL, row);
-        Long officeId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.OFFICE_SHEET_NAME), officeName);
-        String staffName = ImportHandlerUtils.readAsString(ClientPersonConstants.STAFF_NAME_COL, row);
-        Long staffId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.STAFF_SHEET_NAME), staffName);
-        String externalId = ImportHandlerUtils.readAsString(ClientPersonConstants.EXTERNAL_ID_COL, row);
-        LocalDate submittedOn = ImportHandlerUtils.readAsDate(ClientPersonConstants.SUBMITTED_ON_COL, row);
-        LocalDate activationDate = ImportHandlerUtils.readAsDate(ClientPersonConstants.ACTIVATION_DATE_COL, row);
-        Boolean active = ImportHandlerUtils.readAsBoolean(ClientPersonConstants.ACTIVE_COL, row);
+        String firstName = row.readAsString(ClientPersonConstants.FIRST_NAME_COL);
+        String lastName = row.readAsString(ClientPersonConstants.LAST_NAME_COL);
+        String middleName = row.readAsString(ClientPersonConstants.MIDDLE_NAME_COL);
+        String officeName = row.readAsString(ClientPersonConstants.OFFICE_NAME_COL);
+        Long officeId = offices.getIdByName(officeName);
+        String staffName = row.readAsString(ClientPersonConstants.STAFF_NAME_COL);
+        Long staffId = staff.getIdByName(staffName);
+        String externalId = row.readAsString(ClientPersonConstants.EXTERNAL_ID_COL);
+        LocalDate submittedOn = row.readAsDate(ClientPersonConstants.SUBMITTED_ON_COL);
+        LocalDate activationDate = row.readAsDate(ClientPersonConstants.ACTIVATION_DATE_COL);
+        Boolean active = row.readAsBoolean(ClientPersonConstants.ACTIVE_COL);
         if (!active) {
             activationDate = submittedOn;
         }
         String mobileNo = null;
-        if (ImportHandlerUtils.readAsLong(ClientPersonConstants.MOBILE_NO_COL, row) != null) {
-            mobileNo = ImportHandlerUtils.readAsLong(ClientPersonConstants.MOBILE_NO_COL, row).toString();
+        if (row.readAsLong(ClientPersonConstants.MOBILE_NO_COL) != null) {
+            mobileNo = row.readAsLong(ClientPersonConstants.MOBILE_NO_COL).toString();
         }
-        LocalDate dob = ImportHandlerUtils.readAsDate(ClientPersonConstants.DOB_COL, row);
+        LocalDate dob = row.readAsDate(ClientPersonConstants.DOB_COL);
 
-        String clientType = ImportHandlerUtils.readAsString(ClientPersonConstants.CLIENT_TYPE_COL, row);
+        String clientType = row.readAsString(ClientPersonConstants.CLIENT_TYPE_COL);
         Long clientTypeId = null;
         if (clientType != null) {
             List<String> clientTypeAr = Splitter.on('-').splitToList(clientType);
@@ -111,7 +175,7 @@ public class ClientPersonImportHandler implements ImportHandler {
                 clientTypeId = Long.parseLong(clientTypeAr.get(1));
             }
         }
-        String gender = ImportHandlerUtils.readAsString(ClientPersonConstants.GENDER_COL, row);
+        String gender = row.readAsString(ClientPersonConstants.GENDER_COL);
         Long genderId = null;
         if (gender != null) {
             List<String> genderAr = Splitter.on('-').splitToList(gender);
@@ -119,7 +183,7 @@ public class ClientPersonImportHandler implements ImportHandler {
                 genderId = Long.parseLong(genderAr.get(1));
             }
         }
-        String clientClassification = ImportHandlerUtils.readAsString(ClientPersonConstants.CLIENT_CLASSIFICATION_COL, row);
+        String clientClassification = row.readAsString(ClientPersonConstants.CLIENT_CLASSIFICATION_COL);
         Long clientClassificationId = null;
         if (clientClassification != null) {
             List<String> clientClassificationAr = Splitter.on('-').splitToList(clientClassification);
@@ -127,12 +191,12 @@ public class ClientPersonImportHandler implements ImportHandler {
                 clientClassificationId = Long.parseLong(clientClassificationAr.get(1));
             }
         }
-        Boolean isStaff = ImportHandlerUtils.readAsBoolean(ClientPersonConstants.IS_STAFF_COL, row);
+        Boolean isStaff = row.readAsBoolean(ClientPersonConstants.IS_STAFF_COL);
 
         AddressData addressDataObj = null;
         Collection<AddressData> addressList = null;
-        if (ImportHandlerUtils.readAsBoolean(ClientPersonConstants.ADDRESS_ENABLED_COL, row)) {
-            String addressType = ImportHandlerUtils.readAsString(ClientPersonConstants.ADDRESS_TYPE_COL, row);
+        if (row.readAsBoolean(ClientPersonConstants.ADDRESS_ENABLED_COL)) {
+            String addressType = row.readAsString(ClientPersonConstants.ADDRESS_TYPE_COL);
             Long addressTypeId = null;
             if (addressType != null) {
                 List<String> addressTypeAr = Splitter.on('-').splitToList(addressType);
@@ -141,16 +205,16 @@ public class ClientPersonImportHandler implements ImportHandler {
                     addressTypeId = Long.parseLong(addressTypeAr.get(1));
                 }
             }
-            String street = ImportHandlerUtils.readAsString(ClientPersonConstants.STREET_COL, row);
-            String addressLine1 = ImportHandlerUtils.readAsString(ClientPersonConstants.ADDRESS_LINE_1_COL, row);
-            String addressLine2 = ImportHandlerUtils.readAsString(ClientPersonConstants.ADDRESS_LINE_2_COL, row);
-            String addressLine3 = ImportHandlerUtils.readAsString(ClientPersonConstants.ADDRESS_LINE_3_COL, row);
-            String city = ImportHandlerUtils.readAsString(ClientPersonConstants.CITY_COL, row);
+            String street = row.readAsString(ClientPersonConstants.STREET_COL);
+            String addressLine1 = row.readAsString(ClientPersonConstants.ADDRESS_LINE_1_COL);
+            String addressLine2 = row.readAsString(ClientPersonConstants.ADDRESS_LINE_2_COL);
+            String addressLine3 = row.readAsString(ClientPersonConstants.ADDRESS_LINE_3_COL);
+            String city = row.readAsString(ClientPersonConstants.CITY_COL);
 
-            String postalCode = ImportHandlerUtils.readAsString(ClientPersonConstants.POSTAL_CODE_COL, row);
-            Boolean isActiveAddress = ImportHandlerUtils.readAsBoolean(ClientPersonConstants.IS_ACTIVE_ADDRESS_COL, row);
+            String postalCode = row.readAsString(ClientPersonConstants.POSTAL_CODE_COL);
+            Boolean isActiveAddress = row.readAsBoolean(ClientPersonConstants.IS_ACTIVE_ADDRESS_COL);
 
-            String stateProvince = ImportHandlerUtils.readAsString(ClientPersonConstants.STATE_PROVINCE_COL, row);
+            String stateProvince = row.readAsString(ClientPersonConstants.STATE_PROVINCE_COL);
             Long stateProvinceId = null;
             if (stateProvince != null) {
                 List<String> stateProvinceAr = Splitter.on('-').splitToList(stateProvince);
@@ -161,7 +225,7 @@ public class ClientPersonImportHandler implements ImportHandler {
                     stateProvinceId = Long.parseLong(stateProvinceAr.get(1));
                 }
             }
-            String country = ImportHandlerUtils.readAsString(ClientPersonConstants.COUNTRY_COL, row);
+            String country = row.readAsString(ClientPersonConstants.COUNTRY_COL);
             Long countryId = null;
             if (country != null) {
                 List<String> countryAr = Splitter.on('-').splitToList(country);
@@ -173,43 +237,9 @@ public class ClientPersonImportHandler implements ImportHandler {
                     isActiveAddress, stateProvinceId, countryId);
             addressList = new ArrayList<AddressData>(Arrays.asList(addressDataObj));
         }
-        return ClientData.importClientPersonInstance(legalFormId, row.getRowNum(), firstName, lastName, middleName, submittedOn,
+        return ClientData.importClientPersonInstance(legalFormId, row.getRowIndex(), firstName, lastName, middleName, submittedOn,
                 activationDate, active, externalId, officeId, staffId, mobileNo, dob, clientTypeId, genderId, clientClassificationId,
                 isStaff, addressList, locale, dateFormat);
 
     }
-
-    public Count importEntity(String dateFormat) {
-        Sheet clientSheet = workbook.getSheet(TemplatePopulateImportConstants.CLIENT_PERSON_SHEET_NAME);
-        int successCount = 0;
-        int errorCount = 0;
-        String errorMessage = "";
-        GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
-        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
-        for (ClientData client : clients) {
-            try {
-                String payload = gsonBuilder.create().toJson(client);
-                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                        .createClient() //
-                        .withJson(payload) //
-                        .build(); //
-                commandsSourceWritePlatformService.logCommandSource(commandRequest);
-                successCount++;
-                Cell statusCell = clientSheet.getRow(client.getRowIndex()).createCell(ClientPersonConstants.STATUS_COL);
-                statusCell.setCellValue(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED);
-                statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(workbook, IndexedColors.LIGHT_GREEN));
-            } catch (RuntimeException ex) {
-                errorCount++;
-                LOG.error("Problem occurred in importEntity function", ex);
-                errorMessage = ImportHandlerUtils.getErrorMessage(ex);
-                ImportHandlerUtils.writeErrorMessage(clientSheet, client.getRowIndex(), errorMessage, ClientPersonConstants.STATUS_COL);
-            }
-        }
-        clientSheet.setColumnWidth(ClientPersonConstants.STATUS_COL, TemplatePopulateImportConstants.SMALL_COL_SIZE);
-        ImportHandlerUtils.writeString(ClientPersonConstants.STATUS_COL,
-                clientSheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX), TemplatePopulateImportConstants.STATUS_COLUMN_HEADER);
-
-        return Count.instance(successCount, errorCount);
-    }
-
 }
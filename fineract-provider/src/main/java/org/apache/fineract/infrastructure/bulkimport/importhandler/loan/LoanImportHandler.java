@@ -18,6 +18,7 @@
  */
 package org.apache.fineract.infrastructure.bulkimport.importhandler.loan;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -25,18 +26,30 @@ import com.google.gson.JsonObject;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
 import org.apache.fineract.commands.domain.CommandWrapper;
 import org.apache.fineract.commands.service.CommandWrapperBuilder;
 import org.apache.fineract.commands.service.PortfolioCommandSourceWritePlatformService;
 import org.apache.fineract.infrastructure.bulkimport.constants.LoanConstants;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
 import org.apache.fineract.infrastructure.bulkimport.data.Count;
-import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.StreamingImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.helper.DateSerializer;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.helper.EnumOptionDataValueSerializer;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRow;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowFailure;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowPipeline;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportSheetIndex;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.WorkbookResultWriter;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxSheetReader;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 import org.apache.fineract.infrastructure.core.serialization.GoogleGsonSerializerHelper;
@@ -48,125 +61,278 @@ import org.apache.fineract.portfolio.loanaccount.data.LoanCollateralManagementDa
 import org.apache.fineract.portfolio.loanaccount.data.LoanTransactionData;
 import org.apache.fineract.portfolio.loanaccount.domain.LoanCharge;
 import org.apache.fineract.portfolio.loanaccount.exception.InvalidAmountOfCollateralQuantity;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Imports the loans of the loans sheet while it is read: each row creates, approves, disburses and repays its loan,
+ * resuming at the step a previous import of the sheet failed at. Loans of different clients and groups are imported in
+ * parallel, those of one client or group in sheet order.
+ */
 @Service
-public class LoanImportHandler implements ImportHandler {
-
-    private static final Logger LOG = LoggerFactory.getLogger(LoanImportHandler.class);
-    private Workbook workbook;
-    private List<LoanAccountData> loans;
-    private List<LoanApprovalData> approvalDates;
-    private List<LoanTransactionData> loanRepayments;
-    private List<DisbursementData> disbursalDates;
-    private List<String> statuses;
+public class LoanImportHandler implements StreamingImportHandler {
 
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
 
+    private final FineractProperties fineractProperties;
+
     @Autowired
-    public LoanImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+    public LoanImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final FineractProperties fineractProperties) {
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.fineractProperties = fineractProperties;
     }
 
     @Override
-    public Count process(Workbook workbook, String locale, String dateFormat) {
-        this.workbook = workbook;
-        this.loans = new ArrayList<>();
-        this.approvalDates = new ArrayList<>();
-        this.loanRepayments = new ArrayList<>();
-        this.disbursalDates = new ArrayList<>();
-        this.statuses = new ArrayList<>();
-        readExcelFile(locale, dateFormat);
-        return importEntity(dateFormat);
+    public ImportRowResults process(final byte[] xlsx, final String locale, final String dateFormat,
+            final ImportProgressListener progress) {
+        final LookupSheets sheets = new LookupSheets(sheetName -> ImportSheetIndex.read(xlsx, sheetName));
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        ImportRowResults results;
+        try {
+            XlsxSheetReader.readEntries(xlsx, TemplatePopulateImportConstants.LOANS_SHEET_NAME,
+                    TemplatePopulateImportConstants.FIRST_COLUMN_INDEX, row -> {
+                        if (row.isNotImported(LoanConstants.STATUS_COL)) {
+                            submit(pipeline, row, sheets, locale, dateFormat);
+                        }
+                    });
+        } finally {
+            results = pipeline.finish();
+        }
+        return results;
+    }
+
+    @Override
+    public Count process(final Workbook workbook, final String locale, final String dateFormat, final ImportProgressListener progress) {
+        final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        final LookupSheets sheets = new LookupSheets(sheetName -> ImportSheetIndex.of(workbook, sheetName));
+        final Sheet loanSheet = workbook.getSheet(TemplatePopulateImportConstants.LOANS_SHEET_NAME);
+        final Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(loanSheet, TemplatePopulateImportConstants.FIRST_COLUMN_INDEX);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        ImportRowResults results;
+        try {
+            // rows are copied on this thread, the workbook is not safe for use by the pipeline threads
+            for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
+                final Row row = loanSheet.getRow(rowIndex);
+                if (ImportHandlerUtils.isNotImported(row, LoanConstants.STATUS_COL)) {
+                    submit(pipeline, ImportRow.of(row, evaluator), sheets, locale, dateFormat);
+                }
+            }
+        } finally {
+            results = pipeline.finish();
+        }
+        WorkbookResultWriter.write(loanSheet, results);
+        return results.toCount();
+    }
+
+    private ImportRowPipeline newPipeline(final ImportProgressListener progress) {
+        return new ImportRowPipeline(this.fineractProperties.getBulkImport().getThreadPoolSize(),
+                this.fineractProperties.getBulkImport().getMaxPendingRows(),
+                new ImportRowResults(TemplatePopulateImportConstants.LOANS_SHEET_NAME, LoanConstants.STATUS_COL, "Status")
+                        .withHeader(LoanConstants.LOAN_ID_COL, "Loan ID").withHeader(LoanConstants.FAILURE_REPORT_COL, "Report"),
+                progress);
+    }
+
+    /**
+     * The sheets the loan rows look their ids up in.
+     */
+    private static final class LookupSheets {
+
+        private final ImportSheetIndex products;
+        private final ImportSheetIndex staff;
+        private final ImportSheetIndex extras;
+        private final ImportSheetIndex charges;
+        private final ImportSheetIndex clients;
+        private final ImportSheetIndex groups;
+
+        LookupSheets(final Function<String, ImportSheetIndex> index) {
+            this.products = index.apply(TemplatePopulateImportConstants.PRODUCT_SHEET_NAME);
+            this.staff = index.apply(TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+            this.extras = index.apply(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME);
+            this.charges = index.apply(TemplatePopulateImportConstants.CHARGE_SHEET_NAME);
+            this.clients = index.apply(TemplatePopulateImportConstants.CLIENT_SHEET_NAME);
+            this.groups = index.apply(TemplatePopulateImportConstants.GROUP_SHEET_NAME);
+        }
+    }
+
+    /**
+     * Loans of one client or group are keyed by its name, so that they are created in sheet order.
+     */
+    private void submit(final ImportRowPipeline pipeline, final ImportRow row, final LookupSheets sheets, final String locale,
+            final String dateFormat) {
+        pipeline.submit(row.readAsString(LoanConstants.CLIENT_NAME_COL), row.getRowIndex(),
+                () -> importRow(row, sheets, locale, dateFormat));
     }
 
-    public void readExcelFile(final String locale, final String dateFormat) {
-        Sheet loanSheet = workbook.getSheet(TemplatePopulateImportConstants.LOANS_SHEET_NAME);
-        Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(loanSheet, TemplatePopulateImportConstants.FIRST_COLUMN_INDEX);
-        for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
-            Row row;
-            row = loanSheet.getRow(rowIndex);
-            if (ImportHandlerUtils.isNotImported(row, LoanConstants.STATUS_COL)) {
-                loans.add(readLoan(row, locale, dateFormat));
-                approvalDates.add(readLoanApproval(row, locale, dateFormat));
-                disbursalDates.add(readDisbursalData(row, locale, dateFormat));
-                loanRepayments.add(readLoanRepayment(row, locale, dateFormat));
+    private void importRow(final ImportRow row, final LookupSheets sheets, final String locale, final String dateFormat) {
+        int progressLevel = getProgressLevel(row.readAsString(LoanConstants.STATUS_COL));
+        String loanId = "";
+        try {
+            final LoanAccountData loan = readLoan(row, sheets, locale, dateFormat);
+            final LoanApprovalData approval = readLoanApproval(row, locale, dateFormat);
+            final DisbursementData disbursal = readDisbursalData(row, locale, dateFormat);
+            final LoanTransactionData repayment = readLoanRepayment(row, sheets, locale, dateFormat);
+
+            if (progressLevel == 0 && loan != null) {
+                loanId = importLoan(loan, dateFormat).getLoanId().toString();
+                progressLevel = 1;
+            } else {
+                loanId = row.readAsString(LoanConstants.LOAN_ID_COL);
+            }
+
+            if (progressLevel <= 1 && approval != null) {
+                progressLevel = importLoanApproval(loanId, approval, dateFormat);
+            }
+
+            if (progressLevel <= 2 && disbursal != null) {
+                progressLevel = importDisbursalData(loanId, approval, disbursal, dateFormat);
             }
+
+            if (repayment != null) {
+                progressLevel = importLoanRepayment(loanId, repayment, dateFormat);
+            }
+        } catch (RuntimeException ex) {
+            final Map<Integer, Object> reportCells = new HashMap<>();
+            if (progressLevel > 0 && loanId != null) {
+                reportCells.put(LoanConstants.LOAN_ID_COL, Long.valueOf(loanId));
+            }
+            reportCells.put(LoanConstants.FAILURE_REPORT_COL, ImportHandlerUtils.getErrorMessage(ex));
+            throw new ImportRowFailure(getFailureStatus(progressLevel), reportCells, ex);
         }
+    }
+
+    private static String getFailureStatus(final int progressLevel) {
+        String status = "";
+        if (progressLevel == 0) {
+            status = TemplatePopulateImportConstants.STATUS_CREATION_FAILED;
+        } else if (progressLevel == 1) {
+            status = TemplatePopulateImportConstants.STATUS_APPROVAL_FAILED;
+        } else if (progressLevel == 2) {
+            status = TemplatePopulateImportConstants.STATUS_DISBURSAL_FAILED;
+        } else if (progressLevel == 3) {
+            status = TemplatePopulateImportConstants.STATUS_DISBURSAL_REPAYMENT_FAILED;
+        }
+        return status;
+    }
+
+    private static Gson createGson(final String dateFormat) {
+        final GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
+        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
+        return gsonBuilder.create();
+    }
+
+    private Integer importLoanRepayment(final String loanId, final LoanTransactionData repayment, final String dateFormat) {
+        JsonObject loanRepaymentJsonob = createGson(dateFormat).toJsonTree(repayment).getAsJsonObject();
+        loanRepaymentJsonob.remove("manuallyReversed");
+        loanRepaymentJsonob.remove("numberOfRepayments");
+        String payload = loanRepaymentJsonob.toString();
+        final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                .loanRepaymentTransaction(Long.valueOf(loanId)) //
+                .withJson(payload) //
+                .build(); //
+
+        commandsSourceWritePlatformService.logCommandSource(commandRequest);
+        return 4;
+    }
+
+    private Integer importDisbursalData(final String loanId, final LoanApprovalData approval, final DisbursementData disbusalData,
+            final String dateFormat) {
+        if (approval != null && disbusalData != null) {
+            String linkAccountId = disbusalData.getLinkAccountId();
+            String payload = createGson(dateFormat).toJson(disbusalData);
+            if (linkAccountId != null && !"".equals(linkAccountId)) {
+                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                        .disburseLoanToSavingsApplication(Long.valueOf(loanId)) //
+                        .withJson(payload) //
+                        .build(); //
+                commandsSourceWritePlatformService.logCommandSource(commandRequest);
+            } else {
+                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                        .disburseLoanApplication(Long.valueOf(loanId)) //
+                        .withJson(payload) //
+                        .build(); //
+
+                commandsSourceWritePlatformService.logCommandSource(commandRequest);
+            }
+        }
+        return 3;
+    }
+
+    private Integer importLoanApproval(final String loanId, final LoanApprovalData approval, final String dateFormat) {
+        String payload = createGson(dateFormat).toJson(approval);
+        final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                .approveLoanApplication(Long.valueOf(loanId)) //
+                .withJson(payload) //
+                .build(); //
 
+        commandsSourceWritePlatformService.logCommandSource(commandRequest);
+        return 2;
     }
 
-    private LoanTransactionData readLoanRepayment(Row row, String locale, String dateFormat) {
+    private static LoanTransactionData readLoanRepayment(ImportRow row, LookupSheets sheets, String locale, String dateFormat) {
         BigDecimal repaymentAmount = null;
-        if (ImportHandlerUtils.readAsDouble(LoanConstants.TOTAL_AMOUNT_REPAID_COL, row) != null) {
-            repaymentAmount = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.TOTAL_AMOUNT_REPAID_COL, row));
+        if (row.readAsDouble(LoanConstants.TOTAL_AMOUNT_REPAID_COL) != null) {
+            repaymentAmount = BigDecimal.valueOf(row.readAsDouble(LoanConstants.TOTAL_AMOUNT_REPAID_COL));
         }
-        LocalDate lastRepaymentDate = ImportHandlerUtils.readAsDate(LoanConstants.LAST_REPAYMENT_DATE_COL, row);
-        String repaymentType = ImportHandlerUtils.readAsString(LoanConstants.REPAYMENT_TYPE_COL, row);
-        Long repaymentTypeId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME),
-                repaymentType);
+        LocalDate lastRepaymentDate = row.readAsDate(LoanConstants.LAST_REPAYMENT_DATE_COL);
+        String repaymentType = row.readAsString(LoanConstants.REPAYMENT_TYPE_COL);
+        Long repaymentTypeId = sheets.extras.getIdByName(repaymentType);
         if (repaymentAmount != null && lastRepaymentDate != null && repaymentType != null && repaymentTypeId != null) {
-            return LoanTransactionData.importInstance(repaymentAmount, lastRepaymentDate, repaymentTypeId, row.getRowNum(), locale,
+            return LoanTransactionData.importInstance(repaymentAmount, lastRepaymentDate, repaymentTypeId, row.getRowIndex(), locale,
                     dateFormat);
         }
 
         return null;
     }
 
-    private DisbursementData readDisbursalData(Row row, String locale, String dateFormat) {
-        LocalDate disbursedDate = ImportHandlerUtils.readAsDate(LoanConstants.DISBURSED_DATE_COL, row);
+    private static DisbursementData readDisbursalData(ImportRow row, String locale, String dateFormat) {
+        LocalDate disbursedDate = row.readAsDate(LoanConstants.DISBURSED_DATE_COL);
         String linkAccountId = null;
-        if (ImportHandlerUtils.readAsLong(LoanConstants.LINK_ACCOUNT_ID, row) != null) {
-            linkAccountId = ImportHandlerUtils.readAsLong(LoanConstants.LINK_ACCOUNT_ID, row).toString();
+        if (row.readAsLong(LoanConstants.LINK_ACCOUNT_ID) != null) {
+            linkAccountId = row.readAsLong(LoanConstants.LINK_ACCOUNT_ID).toString();
         }
 
         if (disbursedDate != null) {
-            return DisbursementData.importInstance(disbursedDate, linkAccountId, row.getRowNum(), locale, dateFormat);
+            return DisbursementData.importInstance(disbursedDate, linkAccountId, row.getRowIndex(), locale, dateFormat);
         }
         return null;
     }
 
-    private LoanApprovalData readLoanApproval(Row row, String locale, String dateFormat) {
-        LocalDate approvedDate = ImportHandlerUtils.readAsDate(LoanConstants.APPROVED_DATE_COL, row);
+    private static LoanApprovalData readLoanApproval(ImportRow row, String locale, String dateFormat) {
+        LocalDate approvedDate = row.readAsDate(LoanConstants.APPROVED_DATE_COL);
         if (approvedDate != null) {
-            return LoanApprovalData.importInstance(approvedDate, row.getRowNum(), locale, dateFormat);
+            return LoanApprovalData.importInstance(approvedDate, row.getRowIndex(), locale, dateFormat);
         }
 
         return null;
     }
 
-    private LoanAccountData readLoan(Row row, String locale, String dateFormat) {
-        String externalId = ImportHandlerUtils.readAsString(LoanConstants.EXTERNAL_ID_COL, row);
-        String status = ImportHandlerUtils.readAsString(LoanConstants.STATUS_COL, row);
-        String productName = ImportHandlerUtils.readAsString(LoanConstants.PRODUCT_COL, row);
-        Long productId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.PRODUCT_SHEET_NAME), productName);
-        String loanOfficerName = ImportHandlerUtils.readAsString(LoanConstants.LOAN_OFFICER_NAME_COL, row);
-        Long loanOfficerId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.STAFF_SHEET_NAME),
-                loanOfficerName);
-        LocalDate submittedOnDate = ImportHandlerUtils.readAsDate(LoanConstants.SUBMITTED_ON_DATE_COL, row);
-        String fundName = ImportHandlerUtils.readAsString(LoanConstants.FUND_NAME_COL, row);
+    private static LoanAccountData readLoan(ImportRow row, LookupSheets sheets, String locale, String dateFormat) {
+        String externalId = row.readAsString(LoanConstants.EXTERNAL_ID_COL);
+        String productName = row.readAsString(LoanConstants.PRODUCT_COL);
+        Long productId = sheets.products.getIdByName(productName);
+        String loanOfficerName = row.readAsString(LoanConstants.LOAN_OFFICER_NAME_COL);
+        Long loanOfficerId = sheets.staff.getIdByName(loanOfficerName);
+        LocalDate submittedOnDate = row.readAsDate(LoanConstants.SUBMITTED_ON_DATE_COL);
+        String fundName = row.readAsString(LoanConstants.FUND_NAME_COL);
         Long fundId;
         if (fundName == null) {
             fundId = null;
         } else {
-            fundId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME), fundName);
+            fundId = sheets.extras.getIdByName(fundName);
         }
 
         BigDecimal principal = null;
-        if (ImportHandlerUtils.readAsDouble(LoanConstants.PRINCIPAL_COL, row) != null) {
-            principal = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.PRINCIPAL_COL, row));
+        if (row.readAsDouble(LoanConstants.PRINCIPAL_COL) != null) {
+            principal = BigDecimal.valueOf(row.readAsDouble(LoanConstants.PRINCIPAL_COL));
         }
-        Integer numberOfRepayments = ImportHandlerUtils.readAsInt(LoanConstants.NO_OF_REPAYMENTS_COL, row);
-        Integer repaidEvery = ImportHandlerUtils.readAsInt(LoanConstants.REPAID_EVERY_COL, row);
-        String repaidEveryFrequency = ImportHandlerUtils.readAsString(LoanConstants.REPAID_EVERY_FREQUENCY_COL, row);
+        Integer numberOfRepayments = row.readAsInt(LoanConstants.NO_OF_REPAYMENTS_COL);
+        Integer repaidEvery = row.readAsInt(LoanConstants.REPAID_EVERY_COL);
+        String repaidEveryFrequency = row.readAsString(LoanConstants.REPAID_EVERY_FREQUENCY_COL);
         String repaidEveryFrequencyId = "";
         EnumOptionData repaidEveryFrequencyEnums = null;
         if (repaidEveryFrequency != null) {
@@ -181,8 +347,8 @@ public class LoanImportHandler implements ImportHandler {
             }
             repaidEveryFrequencyEnums = new EnumOptionData(null, null, repaidEveryFrequencyId);
         }
-        Integer loanTerm = ImportHandlerUtils.readAsInt(LoanConstants.LOAN_TERM_COL, row);
-        String loanTermFrequencyType = ImportHandlerUtils.readAsString(LoanConstants.LOAN_TERM_FREQUENCY_COL, row);
+        Integer loanTerm = row.readAsInt(LoanConstants.LOAN_TERM_COL);
+        String loanTermFrequencyType = row.readAsString(LoanConstants.LOAN_TERM_FREQUENCY_COL);
         EnumOptionData loanTermFrequencyEnum = null;
         if (loanTermFrequencyType != null) {
             String loanTermFrequencyId = "";
@@ -196,10 +362,10 @@ public class LoanImportHandler implements ImportHandler {
             loanTermFrequencyEnum = new EnumOptionData(null, null, loanTermFrequencyId);
         }
         BigDecimal nominalInterestRate = null;
-        if (ImportHandlerUtils.readAsDouble(LoanConstants.NOMINAL_INTEREST_RATE_COL, row) != null) {
-            nominalInterestRate = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.NOMINAL_INTEREST_RATE_COL, row));
+        if (row.readAsDouble(LoanConstants.NOMINAL_INTEREST_RATE_COL) != null) {
+            nominalInterestRate = BigDecimal.valueOf(row.readAsDouble(LoanConstants.NOMINAL_INTEREST_RATE_COL));
         }
-        String amortization = ImportHandlerUtils.readAsString(LoanConstants.AMORTIZATION_COL, row);
+        String amortization = row.readAsString(LoanConstants.AMORTIZATION_COL);
         String amortizationId = "";
         EnumOptionData amortizationEnumOption = null;
         if (amortization != null) {
@@ -210,7 +376,7 @@ public class LoanImportHandler implements ImportHandler {
             }
             amortizationEnumOption = new EnumOptionData(null, null, amortizationId);
         }
-        String interestMethod = ImportHandlerUtils.readAsString(LoanConstants.INTEREST_METHOD_COL, row);
+        String interestMethod = row.readAsString(LoanConstants.INTEREST_METHOD_COL);
         String interestMethodId = "";
         EnumOptionData interestMethodEnum = null;
         if (interestMethod != null) {
@@ -221,7 +387,7 @@ public class LoanImportHandler implements ImportHandler {
             }
             interestMethodEnum = new EnumOptionData(null, null, interestMethodId);
         }
-        String interestCalculationPeriod = ImportHandlerUtils.readAsString(LoanConstants.INTEREST_CALCULATION_PERIOD_COL, row);
+        String interestCalculationPeriod = row.readAsString(LoanConstants.INTEREST_CALCULATION_PERIOD_COL);
         String interestCalculationPeriodId = "";
         EnumOptionData interestCalculationPeriodEnum = null;
         if (interestCalculationPeriod != null) {
@@ -234,10 +400,10 @@ public class LoanImportHandler implements ImportHandler {
 
         }
         BigDecimal arrearsTolerance = null;
-        if (ImportHandlerUtils.readAsDouble(LoanConstants.ARREARS_TOLERANCE_COL, row) != null) {
-            arrearsTolerance = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.ARREARS_TOLERANCE_COL, row));
+        if (row.readAsDouble(LoanConstants.ARREARS_TOLERANCE_COL) != null) {
+            arrearsTolerance = BigDecimal.valueOf(row.readAsDouble(LoanConstants.ARREARS_TOLERANCE_COL));
         }
-        String repaymentStrategy = ImportHandlerUtils.readAsString(LoanConstants.REPAYMENT_STRATEGY_COL, row);
+        String repaymentStrategy = row.readAsString(LoanConstants.REPAYMENT_STRATEGY_COL);
         Long repaymentStrategyId = null;
         if (repaymentStrategy != null) {
             if (repaymentStrategy.equalsIgnoreCase("Penalties, Fees, Interest, Principal order")) {
@@ -256,128 +422,119 @@ public class LoanImportHandler implements ImportHandler {
                 repaymentStrategyId = 7L;
             }
         }
-        Integer graceOnPrincipalPayment = ImportHandlerUtils.readAsInt(LoanConstants.GRACE_ON_PRINCIPAL_PAYMENT_COL, row);
-        Integer graceOnInterestPayment = ImportHandlerUtils.readAsInt(LoanConstants.GRACE_ON_INTEREST_PAYMENT_COL, row);
-        Integer graceOnInterestCharged = ImportHandlerUtils.readAsInt(LoanConstants.GRACE_ON_INTEREST_CHARGED_COL, row);
-        LocalDate interestChargedFromDate = ImportHandlerUtils.readAsDate(LoanConstants.INTEREST_CHARGED_FROM_COL, row);
-        LocalDate firstRepaymentOnDate = ImportHandlerUtils.readAsDate(LoanConstants.FIRST_REPAYMENT_COL, row);
+        Integer graceOnPrincipalPayment = row.readAsInt(LoanConstants.GRACE_ON_PRINCIPAL_PAYMENT_COL);
+        Integer graceOnInterestPayment = row.readAsInt(LoanConstants.GRACE_ON_INTEREST_PAYMENT_COL);
+        Integer graceOnInterestCharged = row.readAsInt(LoanConstants.GRACE_ON_INTEREST_CHARGED_COL);
+        LocalDate interestChargedFromDate = row.readAsDate(LoanConstants.INTEREST_CHARGED_FROM_COL);
+        LocalDate firstRepaymentOnDate = row.readAsDate(LoanConstants.FIRST_REPAYMENT_COL);
         String loanType = null;
         EnumOptionData loanTypeEnumOption = null;
-        if (ImportHandlerUtils.readAsString(LoanConstants.LOAN_TYPE_COL, row) != null) {
-            loanType = ImportHandlerUtils.readAsString(LoanConstants.LOAN_TYPE_COL, row).toLowerCase(Locale.ENGLISH);
+        if (row.readAsString(LoanConstants.LOAN_TYPE_COL) != null) {
+            loanType = row.readAsString(LoanConstants.LOAN_TYPE_COL).toLowerCase(Locale.ENGLISH);
 
             loanTypeEnumOption = new EnumOptionData(null, null, loanType);
         }
 
-        String clientOrGroupName = ImportHandlerUtils.readAsString(LoanConstants.CLIENT_NAME_COL, row);
+        String clientOrGroupName = row.readAsString(LoanConstants.CLIENT_NAME_COL);
 
         List<LoanChargeData> charges = new ArrayList<>();
 
-        String chargeOneName = ImportHandlerUtils.readAsString(LoanConstants.CHARGE_NAME_1, row);
-        String chargeTwoName = ImportHandlerUtils.readAsString(LoanConstants.CHARGE_NAME_2, row);
+        String chargeOneName = row.readAsString(LoanConstants.CHARGE_NAME_1);
+        String chargeTwoName = row.readAsString(LoanConstants.CHARGE_NAME_2);
 
         Long chargeOneId = null;
         if (chargeOneName != null) {
-            chargeOneId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.CHARGE_SHEET_NAME),
-                    chargeOneName);
+            chargeOneId = sheets.charges.getIdByName(chargeOneName);
         }
         Long chargeTwoId = null;
         if (chargeTwoName != null) {
-            chargeTwoId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.CHARGE_SHEET_NAME),
-                    chargeTwoName);
+            chargeTwoId = sheets.charges.getIdByName(chargeTwoName);
         }
 
-        Long collateralId = ImportHandlerUtils.readAsLong(LoanConstants.LOAN_COLLATERAL_ID, row);
+        Long collateralId = row.readAsLong(LoanConstants.LOAN_COLLATERAL_ID);
 
-        Long groupId = ImportHandlerUtils.readAsLong(LoanConstants.GROUP_ID, row);
+        Long groupId = row.readAsLong(LoanConstants.GROUP_ID);
 
-        String linkAccountId = ImportHandlerUtils.readAsString(LoanConstants.LINK_ACCOUNT_ID, row);
+        String linkAccountId = row.readAsString(LoanConstants.LINK_ACCOUNT_ID);
 
         if (chargeOneId != null) {
-            if (ImportHandlerUtils.readAsDouble(LoanConstants.CHARGE_AMOUNT_1, row) != null) {
-                EnumOptionData chargeOneTimeTypeEnum = ImportHandlerUtils
-                        .getChargeTimeTypeEmun(workbook.getSheet(TemplatePopulateImportConstants.CHARGE_SHEET_NAME), chargeOneName);
+            if (row.readAsDouble(LoanConstants.CHARGE_AMOUNT_1) != null) {
+                EnumOptionData chargeOneTimeTypeEnum = sheets.charges.getChargeTimeTypeEnum(chargeOneName);
                 EnumOptionData chargeOneAmountTypeEnum = ImportHandlerUtils
-                        .getChargeAmountTypeEnum(ImportHandlerUtils.readAsString(LoanConstants.CHARGE_AMOUNT_TYPE_1, row));
+                        .getChargeAmountTypeEnum(row.readAsString(LoanConstants.CHARGE_AMOUNT_TYPE_1));
 
                 BigDecimal chargeAmount;
-                BigDecimal amountOrPercentage = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.CHARGE_AMOUNT_1, row));
+                BigDecimal amountOrPercentage = BigDecimal.valueOf(row.readAsDouble(LoanConstants.CHARGE_AMOUNT_1));
                 if (chargeOneAmountTypeEnum.getValue().equalsIgnoreCase("1")) {
                     chargeAmount = amountOrPercentage;
                 } else {
                     chargeAmount = LoanCharge.percentageOf(principal, amountOrPercentage);
                 }
 
-                charges.add(new LoanChargeData(chargeOneId, ImportHandlerUtils.readAsDate(LoanConstants.CHARGE_DUE_DATE_1, row),
+                charges.add(new LoanChargeData(chargeOneId, row.readAsDate(LoanConstants.CHARGE_DUE_DATE_1),
                         chargeAmount, chargeOneAmountTypeEnum, chargeOneTimeTypeEnum));
             } else {
-                charges.add(new LoanChargeData(chargeOneId, ImportHandlerUtils.readAsDate(LoanConstants.CHARGE_DUE_DATE_1, row), null));
+                charges.add(new LoanChargeData(chargeOneId, row.readAsDate(LoanConstants.CHARGE_DUE_DATE_1), null));
             }
         }
 
         if (chargeTwoId != null) {
-            if (ImportHandlerUtils.readAsDouble(LoanConstants.CHARGE_AMOUNT_2, row) != null) {
-                EnumOptionData chargeTwoTimeTypeEnum = ImportHandlerUtils
-                        .getChargeTimeTypeEmun(workbook.getSheet(TemplatePopulateImportConstants.CHARGE_SHEET_NAME), chargeTwoName);
+            if (row.readAsDouble(LoanConstants.CHARGE_AMOUNT_2) != null) {
+                EnumOptionData chargeTwoTimeTypeEnum = sheets.charges.getChargeTimeTypeEnum(chargeTwoName);
                 EnumOptionData chargeTwoAmountTypeEnum = ImportHandlerUtils
-                        .getChargeAmountTypeEnum(ImportHandlerUtils.readAsString(LoanConstants.CHARGE_AMOUNT_TYPE_2, row));
+                        .getChargeAmountTypeEnum(row.readAsString(LoanConstants.CHARGE_AMOUNT_TYPE_2));
 
                 BigDecimal chargeAmount;
-                BigDecimal amountOrPercentage = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.CHARGE_AMOUNT_2, row));
+                BigDecimal amountOrPercentage = BigDecimal.valueOf(row.readAsDouble(LoanConstants.CHARGE_AMOUNT_2));
                 if (chargeTwoTimeTypeEnum.getValue().equalsIgnoreCase("1")) {
                     chargeAmount = amountOrPercentage;
                 } else {
                     chargeAmount = LoanCharge.percentageOf(principal, amountOrPercentage);
                 }
 
-                charges.add(new LoanChargeData(chargeTwoId, ImportHandlerUtils.readAsDate(LoanConstants.CHARGE_DUE_DATE_2, row),
+                charges.add(new LoanChargeData(chargeTwoId, row.readAsDate(LoanConstants.CHARGE_DUE_DATE_2),
                         chargeAmount, chargeTwoAmountTypeEnum, chargeTwoTimeTypeEnum));
             } else {
-                charges.add(new LoanChargeData(chargeTwoId, ImportHandlerUtils.readAsDate(LoanConstants.CHARGE_DUE_DATE_2, row), null));
+                charges.add(new LoanChargeData(chargeTwoId, row.readAsDate(LoanConstants.CHARGE_DUE_DATE_2), null));
             }
         }
 
         List<LoanCollateralManagementData> loanCollateralManagementData = new ArrayList<>();
 
         if (collateralId != null) {
-            if (ImportHandlerUtils.readAsDouble(LoanConstants.LOAN_COLLATERAL_QUANTITY, row) != null) {
+            if (row.readAsDouble(LoanConstants.LOAN_COLLATERAL_QUANTITY) != null) {
                 loanCollateralManagementData.add(new LoanCollateralManagementData(collateralId,
-                        BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanConstants.LOAN_COLLATERAL_QUANTITY, row)), null, null,
+                        BigDecimal.valueOf(row.readAsDouble(LoanConstants.LOAN_COLLATERAL_QUANTITY)), null, null,
                         null));
             } else {
                 throw new InvalidAmountOfCollateralQuantity(null);
             }
         }
 
-        statuses.add(status);
-
         if (loanType != null) {
             if (loanType.equals("individual")) {
-                Long clientId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.CLIENT_SHEET_NAME),
-                        clientOrGroupName);
+                Long clientId = sheets.clients.getIdByName(clientOrGroupName);
                 return LoanAccountData.importInstanceIndividual(loanTypeEnumOption, clientId, productId, loanOfficerId, submittedOnDate,
                         fundId, principal, numberOfRepayments, repaidEvery, repaidEveryFrequencyEnums, loanTerm, loanTermFrequencyEnum,
                         nominalInterestRate, submittedOnDate, amortizationEnumOption, interestMethodEnum, interestCalculationPeriodEnum,
                         arrearsTolerance, repaymentStrategyId, graceOnPrincipalPayment, graceOnInterestPayment, graceOnInterestCharged,
-                        interestChargedFromDate, firstRepaymentOnDate, row.getRowNum(), externalId, null, charges, linkAccountId, locale,
+                        interestChargedFromDate, firstRepaymentOnDate, row.getRowIndex(), externalId, null, charges, linkAccountId, locale,
                         dateFormat, loanCollateralManagementData);
             } else if (loanType.equals("jlg")) {
-                Long clientId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.CLIENT_SHEET_NAME),
-                        clientOrGroupName);
+                Long clientId = sheets.clients.getIdByName(clientOrGroupName);
                 return LoanAccountData.importInstanceIndividual(loanTypeEnumOption, clientId, productId, loanOfficerId, submittedOnDate,
                         fundId, principal, numberOfRepayments, repaidEvery, repaidEveryFrequencyEnums, loanTerm, loanTermFrequencyEnum,
                         nominalInterestRate, submittedOnDate, amortizationEnumOption, interestMethodEnum, interestCalculationPeriodEnum,
                         arrearsTolerance, repaymentStrategyId, graceOnPrincipalPayment, graceOnInterestPayment, graceOnInterestCharged,
-                        interestChargedFromDate, firstRepaymentOnDate, row.getRowNum(), externalId, groupId, charges, linkAccountId, locale,
-                        dateFormat, null);
+                        interestChargedFromDate, firstRepaymentOnDate, row.getRowIndex(), externalId, groupId, charges, linkAccountId,
+                        locale, dateFormat, null);
             } else {
-                Long groupIdforGroupLoan = ImportHandlerUtils
-                        .getIdByName(workbook.getSheet(TemplatePopulateImportConstants.GROUP_SHEET_NAME), clientOrGroupName);
+                Long groupIdforGroupLoan = sheets.groups.getIdByName(clientOrGroupName);
                 return LoanAccountData.importInstanceGroup(loanTypeEnumOption, groupIdforGroupLoan, productId, loanOfficerId,
                         submittedOnDate, fundId, principal, numberOfRepayments, repaidEvery, repaidEveryFrequencyEnums, loanTerm,
                         loanTermFrequencyEnum, nominalInterestRate, amortizationEnumOption, interestMethodEnum,
                         interestCalculationPeriodEnum, arrearsTolerance, repaymentStrategyId, graceOnPrincipalPayment,
-                        graceOnInterestPayment, graceOnInterestCharged, interestChargedFromDate, firstRepaymentOnDate, row.getRowNum(),
+                        graceOnInterestPayment, graceOnInterestCharged, interestChargedFromDate, firstRepaymentOnDate, row.getRowIndex(),
                         externalId, linkAccountId, locale, dateFormat);
             }
         }
@@ -385,150 +542,11 @@ public class LoanImportHandler implements ImportHandler {
         return null;
     }
 
-    public Count importEntity(String dateFormat) {
-        Sheet loanSheet = workbook.getSheet(TemplatePopulateImportConstants.LOANS_SHEET_NAME);
-        int successCount = 0;
-        int errorCount = 0;
-        int progressLevel = 0;
-        String loanId;
-        String errorMessage = "";
-        for (int i = 0; i < loans.size(); i++) {
-            Row row = loanSheet.getRow(loans.get(i).getRowIndex());
-            Cell errorReportCell = row.createCell(LoanConstants.FAILURE_REPORT_COL);
-            Cell statusCell = row.createCell(LoanConstants.STATUS_COL);
-            CommandProcessingResult result = null;
-            loanId = "";
-            try {
-                String status = statuses.get(i);
-                progressLevel = getProgressLevel(status);
-
-                if (progressLevel == 0 && loans.get(i) != null) {
-                    result = importLoan(i, dateFormat);
-                    loanId = result.getLoanId().toString();
-                    progressLevel = 1;
-                } else {
-                    loanId = ImportHandlerUtils.readAsString(LoanConstants.LOAN_ID_COL, loanSheet.getRow(loans.get(i).getRowIndex()));
-                }
-
-                if (progressLevel <= 1 && approvalDates.get(i) != null) {
-                    progressLevel = importLoanApproval(result, i, dateFormat);
-                }
-
-                if (progressLevel <= 2 && disbursalDates.get(i) != null) {
-                    progressLevel = importDisbursalData(result, i, dateFormat);
-                }
-
-                if (loanRepayments.get(i) != null) {
-                    progressLevel = importLoanRepayment(result, i, dateFormat);
-                }
-
-                successCount++;
-                statusCell.setCellValue(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED);
-                statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(workbook, IndexedColors.LIGHT_GREEN));
-            } catch (RuntimeException ex) {
-                errorCount++;
-                LOG.error("Problem occurred in importEntity function", ex);
-                errorMessage = ImportHandlerUtils.getErrorMessage(ex);
-                writeLoanErrorMessage(loanId, errorMessage, progressLevel, statusCell, errorReportCell, row);
-            }
-
-        }
-        setReportHeaders(loanSheet);
-        return Count.instance(successCount, errorCount);
-    }
-
-    private void writeLoanErrorMessage(String loanId, String errorMessage, int progressLevel, Cell statusCell, Cell errorReportCell,
-            Row row) {
-        String status = "";
-        if (progressLevel == 0) {
-            status = TemplatePopulateImportConstants.STATUS_CREATION_FAILED;
-        } else if (progressLevel == 1) {
-            status = TemplatePopulateImportConstants.STATUS_APPROVAL_FAILED;
-        } else if (progressLevel == 2) {
-            status = TemplatePopulateImportConstants.STATUS_DISBURSAL_FAILED;
-        } else if (progressLevel == 3) {
-            status = TemplatePopulateImportConstants.STATUS_DISBURSAL_REPAYMENT_FAILED;
-        }
-        statusCell.setCellValue(status);
-        statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(workbook, IndexedColors.RED));
-
-        if (progressLevel > 0) {
-            row.createCell(LoanConstants.LOAN_ID_COL).setCellValue(Integer.parseInt(loanId));
-        }
-        errorReportCell.setCellValue(errorMessage);
-    }
-
-    private void setReportHeaders(Sheet sheet) {
-        sheet.setColumnWidth(LoanConstants.STATUS_COL, TemplatePopulateImportConstants.SMALL_COL_SIZE);
-        Row rowHeader = sheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX);
-        ImportHandlerUtils.writeString(LoanConstants.STATUS_COL, rowHeader, "Status");
-        ImportHandlerUtils.writeString(LoanConstants.LOAN_ID_COL, rowHeader, "Loan ID");
-        ImportHandlerUtils.writeString(LoanConstants.FAILURE_REPORT_COL, rowHeader, "Report");
-    }
-
-    private Integer importLoanRepayment(CommandProcessingResult result, int rowIndex, String dateFormat) {
-        GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
-        gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
-        JsonObject loanRepaymentJsonob = gsonBuilder.create().toJsonTree(loanRepayments.get(rowIndex)).getAsJsonObject();
-        loanRepaymentJsonob.remove("manuallyReversed");
-        loanRepaymentJsonob.remove("numberOfRepayments");
-        String payload = loanRepaymentJsonob.toString();
-        final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                .loanRepaymentTransaction(result.getLoanId()) //
-                .withJson(payload) //
-                .build(); //
-
-        commandsSourceWritePlatformService.logCommandSource(commandRequest);
-        return 4;
-    }
-
-    private Integer importDisbursalData(CommandProcessingResult result, int rowIndex, String dateFormat) {
-        if (approvalDates.get(rowIndex) != null && disbursalDates.get(rowIndex) != null) {
-
-            DisbursementData disbusalData = disbursalDates.get(rowIndex);
-            String linkAccountId = disbusalData.getLinkAccountId();
-            GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
-            gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
-            if (linkAccountId != null && !"".equals(linkAccountId)) {
-                String payload = gsonBuilder.create().toJson(disbusalData);
-                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                        .disburseLoanToSavingsApplication(result.getLoanId()) //
-                        .withJson(payload) //
-                        .build(); //
-                commandsSourceWritePlatformService.logCommandSource(commandRequest);
-            } else {
-                String payload = gsonBuilder.create().toJson(disbusalData);
-                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                        .disburseLoanApplication(result.getLoanId()) //
-                        .withJson(payload) //
-                        .build(); //
-
-                commandsSourceWritePlatformService.logCommandSource(commandRequest);
-            }
-        }
-        return 3;
-    }
-
-    private Integer importLoanApproval(CommandProcessingResult result, int rowIndex, String dateFormat) {
-        if (approvalDates.get(rowIndex) != null) {
-            GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
-            gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
-            String payload = gsonBuilder.create().toJson(approvalDates.get(rowIndex));
-            final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                    .approveLoanApplication(result.getLoanId()) //
-                    .withJson(payload) //
-                    .build(); //
-
-            commandsSourceWritePlatformService.logCommandSource(commandRequest);
-        }
-        return 2;
-    }
-
-    private CommandProcessingResult importLoan(int rowIndex, String dateFormat) {
+    private CommandProcessingResult importLoan(final LoanAccountData loan, final String dateFormat) {
         GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
         gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
         gsonBuilder.registerTypeAdapter(EnumOptionData.class, new EnumOptionDataValueSerializer());
-        JsonObject loanJsonOb = gsonBuilder.create().toJsonTree(loans.get(rowIndex)).getAsJsonObject();
+        JsonObject loanJsonOb = gsonBuilder.create().toJsonTree(loan).getAsJsonObject();
         loanJsonOb.remove("isLoanProductLinkedToFloatingRate");
         loanJsonOb.remove("isInterestRecalculationEnabled");
         loanJsonOb.remove("isFloatingInterestRate");
@@ -554,7 +572,7 @@ public class LoanImportHandler implements ImportHandler {
         return result;
     }
 
-    private int getProgressLevel(String status) {
+    private static int getProgressLevel(String status) {
         if (status == null || status.equals(TemplatePopulateImportConstants.STATUS_CREATION_FAILED)) {
             return 0;
         } else if (status.equals(TemplatePopulateImportConstants.STATUS_APPROVAL_FAILED)) {
@@ -19,132 +19,150 @@
 package org.apache.fineract.infrastructure.bulkimport.importhandler.loanrepayment;
 
 import com.google.common.base.Splitter;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 import org.apache.fineract.commands.domain.CommandWrapper;
 import org.apache.fineract.commands.service.CommandWrapperBuilder;
 import org.apache.fineract.commands.service.PortfolioCommandSourceWritePlatformService;
 import org.apache.fineract.infrastructure.bulkimport.constants.LoanRepaymentConstants;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
 import org.apache.fineract.infrastructure.bulkimport.data.Count;
-import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.StreamingImportHandler;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.helper.DateSerializer;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRow;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowPipeline;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportSheetIndex;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.WorkbookResultWriter;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxSheetReader;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.serialization.GoogleGsonSerializerHelper;
 import org.apache.fineract.portfolio.loanaccount.data.LoanTransactionData;
 import org.apache.fineract.portfolio.loanaccount.service.LoanReadPlatformService;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+/**
+ * Imports the repayments of the loan repayment sheet while the sheet is read; repayments of different loans are posted
+ * in parallel, those of one loan in sheet order.
+ */
 @Service
-public class LoanRepaymentImportHandler implements ImportHandler {
+public class LoanRepaymentImportHandler implements StreamingImportHandler {
 
-    private static final Logger LOG = LoggerFactory.getLogger(LoanRepaymentImportHandler.class);
-    private Workbook workbook;
-    private List<LoanTransactionData> loanRepayments;
-    private Long loanAccountId;
     private final LoanReadPlatformService loanReadPlatformService;
 
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
 
+    private final FineractProperties fineractProperties;
+
     @Autowired
     public LoanRepaymentImportHandler(final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
-            final LoanReadPlatformService loanReadPlatformService) {
+            final LoanReadPlatformService loanReadPlatformService, final FineractProperties fineractProperties) {
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
         this.loanReadPlatformService = loanReadPlatformService;
+        this.fineractProperties = fineractProperties;
     }
 
     @Override
-    public Count process(Workbook workbook, String locale, String dateFormat) {
-        this.workbook = workbook;
-        this.loanRepayments = new ArrayList<>();
-        readExcelFile(locale, dateFormat);
-        return importEntity(dateFormat);
+    public ImportRowResults process(final byte[] xlsx, final String locale, final String dateFormat,
+            final ImportProgressListener progress) {
+        final ImportSheetIndex paymentTypes = ImportSheetIndex.read(xlsx, TemplatePopulateImportConstants.EXTRAS_SHEET_NAME);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            XlsxSheetReader.readEntries(xlsx, TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME, LoanRepaymentConstants.AMOUNT_COL,
+                    row -> {
+                        if (row.isNotImported(LoanRepaymentConstants.STATUS_COL)) {
+                            submit(pipeline, row, paymentTypes, gson, locale, dateFormat);
+                        }
+                    });
+        } finally {
+            results = pipeline.finish();
+        }
+        return results;
     }
 
-    public void readExcelFile(String locale, String dateFormat) {
-        Sheet loanRepaymentSheet = workbook.getSheet(TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME);
-        Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(loanRepaymentSheet, LoanRepaymentConstants.AMOUNT_COL);
-        for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
-            Row row;
-            row = loanRepaymentSheet.getRow(rowIndex);
-            if (ImportHandlerUtils.isNotImported(row, LoanRepaymentConstants.STATUS_COL)) {
-                loanRepayments.add(readLoanRepayment(row, locale, dateFormat));
+    @Override
+    public Count process(final Workbook workbook, final String locale, final String dateFormat, final ImportProgressListener progress) {
+        final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        final ImportSheetIndex paymentTypes = ImportSheetIndex.of(workbook, TemplatePopulateImportConstants.EXTRAS_SHEET_NAME);
+
+        final Sheet loanRepaymentSheet = workbook.getSheet(TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME);
+        final Integer noOfEntries = ImportHandlerUtils.getNumberOfRows(loanRepaymentSheet, LoanRepaymentConstants.AMOUNT_COL);
+        final ImportRowPipeline pipeline = newPipeline(progress);
+        final Gson gson = createGson(dateFormat);
+        ImportRowResults results;
+        try {
+            // rows are copied on this thread, the workbook is not safe for use by the pipeline threads
+            for (int rowIndex = 1; rowIndex <= noOfEntries; rowIndex++) {
+                final Row row = loanRepaymentSheet.getRow(rowIndex);
+                if (ImportHandlerUtils.isNotImported(row, LoanRepaymentConstants.STATUS_COL)) {
+                    submit(pipeline, ImportRow.of(row, evaluator), paymentTypes, gson, locale, dateFormat);
+                }
             }
+        } finally {
+            results = pipeline.finish();
         }
+        WorkbookResultWriter.write(loanRepaymentSheet, results);
+        return results.toCount();
     }
 
-    private LoanTransactionData readLoanRepayment(Row row, String locale, String dateFormat) {
-        String loanaccountInfo = ImportHandlerUtils.readAsString(LoanRepaymentConstants.LOAN_ACCOUNT_NO_COL, row);
-        if (loanaccountInfo != null) {
-            List<String> loanAccountAr = Splitter.on('-').splitToList(loanaccountInfo);
-            loanAccountId = this.loanReadPlatformService.retrieveLoanIdByAccountNumber(loanAccountAr.get(0));
-        }
-        BigDecimal repaymentAmount = null;
-        if (ImportHandlerUtils.readAsDouble(LoanRepaymentConstants.AMOUNT_COL, row) != null) {
-            repaymentAmount = BigDecimal.valueOf(ImportHandlerUtils.readAsDouble(LoanRepaymentConstants.AMOUNT_COL, row));
-        }
-        LocalDate repaymentDate = ImportHandlerUtils.readAsDate(LoanRepaymentConstants.REPAID_ON_DATE_COL, row);
-        String repaymentType = ImportHandlerUtils.readAsString(LoanRepaymentConstants.REPAYMENT_TYPE_COL, row);
-        Long repaymentTypeId = ImportHandlerUtils.getIdByName(workbook.getSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME),
-                repaymentType);
-        String accountNumber = ImportHandlerUtils.readAsString(LoanRepaymentConstants.ACCOUNT_NO_COL, row);
-        Integer checkNumber = ImportHandlerUtils.readAsInt(LoanRepaymentConstants.CHECK_NO_COL, row);
-        Integer routingCode = ImportHandlerUtils.readAsInt(LoanRepaymentConstants.ROUTING_CODE_COL, row);
-        Integer receiptNumber = ImportHandlerUtils.readAsInt(LoanRepaymentConstants.RECEIPT_NO_COL, row);
-        Integer bankNumber = ImportHandlerUtils.readAsInt(LoanRepaymentConstants.BANK_NO_COL, row);
-        return LoanTransactionData.importInstance(repaymentAmount, repaymentDate, repaymentTypeId, accountNumber, checkNumber, routingCode,
-                receiptNumber, bankNumber, loanAccountId, "", row.getRowNum(), locale, dateFormat);
+    private ImportRowPipeline newPipeline(final ImportProgressListener progress) {
+        return new ImportRowPipeline(this.fineractProperties.getBulkImport().getThreadPoolSize(),
+                this.fineractProperties.getBulkImport().getMaxPendingRows(),
+                new ImportRowResults(TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME, LoanRepaymentConstants.STATUS_COL,
+                        TemplatePopulateImportConstants.STATUS_COL_REPORT_HEADER),
+                progress);
     }
 
-    public Count importEntity(String dateFormat) {
-        Sheet loanRepaymentSheet = workbook.getSheet(TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME);
-        int successCount = 0;
-        int errorCount = 0;
-        String errorMessage = "";
-        GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
+    private static Gson createGson(final String dateFormat) {
+        final GsonBuilder gsonBuilder = GoogleGsonSerializerHelper.createGsonBuilder();
         gsonBuilder.registerTypeAdapter(LocalDate.class, new DateSerializer(dateFormat));
+        return gsonBuilder.create();
+    }
 
-        for (LoanTransactionData loanRepayment : loanRepayments) {
-            try {
+    private void submit(final ImportRowPipeline pipeline, final ImportRow row, final ImportSheetIndex paymentTypes, final Gson gson,
+            final String locale, final String dateFormat) {
+        final String loanAccountInfo = row.readAsString(LoanRepaymentConstants.LOAN_ACCOUNT_NO_COL);
+        final String loanAccountNumber = loanAccountInfo == null ? null : Splitter.on('-').splitToList(loanAccountInfo).get(0);
+        pipeline.submit(loanAccountNumber, row.getRowIndex(),
+                () -> importRepayment(row, loanAccountNumber, paymentTypes, gson, locale, dateFormat));
+    }
 
-                JsonObject loanRepaymentJsonob = gsonBuilder.create().toJsonTree(loanRepayment).getAsJsonObject();
-                loanRepaymentJsonob.remove("manuallyReversed");
-                String payload = loanRepaymentJsonob.toString();
-                final CommandWrapper commandRequest = new CommandWrapperBuilder() //
-                        .loanRepaymentTransaction(loanRepayment.getAccountId()) //
-                        .withJson(payload) //
-                        .build(); //
-                commandsSourceWritePlatformService.logCommandSource(commandRequest);
-                successCount++;
-                Cell statusCell = loanRepaymentSheet.getRow(loanRepayment.getRowIndex()).createCell(LoanRepaymentConstants.STATUS_COL);
-                statusCell.setCellValue(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED);
-                statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(workbook, IndexedColors.LIGHT_GREEN));
-            } catch (RuntimeException ex) {
-                errorCount++;
-                LOG.error("Problem occurred in importEntity function", ex);
-                errorMessage = ImportHandlerUtils.getErrorMessage(ex);
-                ImportHandlerUtils.writeErrorMessage(loanRepaymentSheet, loanRepayment.getRowIndex(), errorMessage,
-                        LoanRepaymentConstants.STATUS_COL);
-            }
+    private void importRepayment(final ImportRow row, final String loanAccountNumber, final ImportSheetIndex paymentTypes,
+            final Gson gson, final String locale, final String dateFormat) {
+        final Long loanAccountId = loanAccountNumber == null ? null
+                : this.loanReadPlatformService.retrieveLoanIdByAccountNumber(loanAccountNumber);
+        final BigDecimal repaymentAmount = BigDecimal.valueOf(row.readAsDouble(LoanRepaymentConstants.AMOUNT_COL));
+        final LocalDate repaymentDate = row.readAsDate(LoanRepaymentConstants.REPAID_ON_DATE_COL);
+        final String repaymentType = row.readAsString(LoanRepaymentConstants.REPAYMENT_TYPE_COL);
+        final Long repaymentTypeId = paymentTypes.getIdByName(repaymentType);
+        final String accountNumber = row.readAsString(LoanRepaymentConstants.ACCOUNT_NO_COL);
+        final Integer checkNumber = row.readAsInt(LoanRepaymentConstants.CHECK_NO_COL);
+        final Integer routingCode = row.readAsInt(LoanRepaymentConstants.ROUTING_CODE_COL);
+        final Integer receiptNumber = row.readAsInt(LoanRepaymentConstants.RECEIPT_NO_COL);
+        final Integer bankNumber = row.readAsInt(LoanRepaymentConstants.BANK_NO_COL);
+        final LoanTransactionData loanRepayment = LoanTransactionData.importInstance(repaymentAmount, repaymentDate, repaymentTypeId,
+                accountNumber, checkNumber, routingCode, receiptNumber, bankNumber, loanAccountId, "", row.getRowIndex(), locale,
+                dateFormat);
 
-        }
-        loanRepaymentSheet.setColumnWidth(LoanRepaymentConstants.STATUS_COL, TemplatePopulateImportConstants.SMALL_COL_SIZE);
-        ImportHandlerUtils.writeString(LoanRepaymentConstants.STATUS_COL,
-                loanRepaymentSheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX),
-                TemplatePopulateImportConstants.STATUS_COL_REPORT_HEADER);
-        return Count.instance(successCount, errorCount);
+        final JsonObject loanRepaymentJsonob = gson.toJsonTree(loanRepayment).getAsJsonObject();
+        loanRepaymentJsonob.remove("manuallyReversed");
+        final String payload = loanRepaymentJsonob.toString();
+        final CommandWrapper commandRequest = new CommandWrapperBuilder() //
+                .loanRepaymentTransaction(loanRepayment.getAccountId()) //
+                .withJson(payload) //
+                .build(); //
+        this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
     }
-
 }
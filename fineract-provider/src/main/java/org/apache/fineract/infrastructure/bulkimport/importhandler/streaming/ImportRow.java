@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * The values of one spreadsheet row, detached from any workbook so that it can be handed to another thread.
+ *
+ * Cells hold a {@link String}, {@link Double}, {@link Boolean} or, for numbers with a date format, a {@link LocalDate};
+ * formulas are replaced by their result. The <code>readAs</code> methods follow {@link ImportHandlerUtils}.
+ */
+public final class ImportRow {
+
+    private final int rowIndex;
+    private final Map<Integer, Object> cells;
+
+    ImportRow(final int rowIndex, final Map<Integer, Object> cells) {
+        this.rowIndex = rowIndex;
+        this.cells = Collections.unmodifiableMap(cells);
+    }
+
+    /**
+     * Copies a row of an in-memory workbook; must be called on the thread owning the workbook.
+     */
+    public static ImportRow of(final Row row, final FormulaEvaluator evaluator) {
+        final Map<Integer, Object> cells = new HashMap<>();
+        for (final Cell cell : row) {
+            final Object value = valueOf(cell, evaluator);
+            if (value != null) {
+                cells.put(cell.getColumnIndex(), value);
+            }
+        }
+        return new ImportRow(row.getRowNum(), cells);
+    }
+
+    private static Object valueOf(final Cell cell, final FormulaEvaluator evaluator) {
+        CellType type = cell.getCellType();
+        if (type == CellType.FORMULA) {
+            final CellValue value;
+            try {
+                value = evaluator.evaluate(cell);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            switch (value.getCellType()) {
+                case NUMERIC:
+                    return value.getNumberValue();
+                case STRING:
+                    return value.getStringValue();
+                case BOOLEAN:
+                    return value.getBooleanValue();
+                default:
+                    return null;
+            }
+        }
+        switch (type) {
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getLocalDateTimeCellValue().toLocalDate();
+                }
+                return cell.getNumericCellValue();
+            case STRING:
+                return cell.getStringCellValue();
+            case BOOLEAN:
+                return cell.getBooleanCellValue();
+            default:
+                return null;
+        }
+    }
+
+    public int getRowIndex() {
+        return this.rowIndex;
+    }
+
+    Map<Integer, Object> getCells() {
+        return this.cells;
+    }
+
+    /**
+     * @return the indexes of the columns with a value, in ascending order
+     */
+    public SortedSet<Integer> getColumnIndexes() {
+        return new TreeSet<>(this.cells.keySet());
+    }
+
+    public boolean isString(final int colIndex) {
+        return this.cells.get(colIndex) instanceof String;
+    }
+
+    public boolean isNumeric(final int colIndex) {
+        return this.cells.get(colIndex) instanceof Double;
+    }
+
+    public boolean hasValue(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        return value != null && !(value instanceof String && ((String) value).trim().isEmpty());
+    }
+
+    public boolean isNotImported(final int statusColumn) {
+        return !TemplatePopulateImportConstants.STATUS_CELL_IMPORTED.equals(readAsString(statusColumn));
+    }
+
+    public String readAsString(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Double) {
+            return ((Double) value).intValue() + "";
+        }
+        final String result = ImportHandlerUtils.trimEmptyDecimalPortion(value.toString().trim());
+        return result.isEmpty() ? null : result;
+    }
+
+    public Double readAsDouble(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value == null) {
+            return 0.0;
+        }
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        return Double.parseDouble(value.toString().trim());
+    }
+
+    public Integer readAsInt(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Double) {
+            return ((Double) value).intValue();
+        }
+        return Integer.parseInt(value.toString().trim());
+    }
+
+    public Long readAsLong(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Double) {
+            return ((Double) value).longValue();
+        }
+        return Long.parseLong(value.toString().trim());
+    }
+
+    public Boolean readAsBoolean(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof String && "TRUE".equalsIgnoreCase(((String) value).trim());
+    }
+
+    public LocalDate readAsDate(final int colIndex) {
+        final Object value = this.cells.get(colIndex);
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof Double) {
+            return DateUtil.getLocalDateTime((Double) value).toLocalDate();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.util.Map;
+
+/**
+ * Thrown by a row of an {@link ImportRowPipeline} that reports its failure with its own status, e.g. the step of a loan
+ * import that failed, instead of the error message.
+ */
+public class ImportRowFailure extends RuntimeException {
+
+    private final String status;
+    private final transient Map<Integer, Object> reportCells;
+
+    public ImportRowFailure(final String status, final Map<Integer, Object> reportCells, final RuntimeException cause) {
+        super(status, cause);
+        this.status = status;
+        this.reportCells = reportCells;
+    }
+
+    public String getStatus() {
+        return this.status;
+    }
+
+    public Map<Integer, Object> getReportCells() {
+        return this.reportCells;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
+import org.apache.fineract.infrastructure.core.service.ThreadContextSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the rows of one import on a fixed number of lanes while the sheet is still being read.
+ *
+ * Each row carries a key, such as the account it posts to; rows with the same key always run on the same lane in the
+ * order they were submitted, so the transactions of one account are applied in sheet order while different accounts
+ * run in parallel. The reader blocks once <code>maxPendingRows</code> rows wait for execution, which keeps memory use
+ * bounded for large sheets.
+ */
+public final class ImportRowPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImportRowPipeline.class);
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final List<ExecutorService> lanes;
+    private final Semaphore pending;
+    private final ImportRowResults results;
+    private final ImportProgressListener progress;
+    private final ThreadContextSnapshot context;
+    private final AtomicLong nextProgress = new AtomicLong(PROGRESS_INTERVAL);
+
+    public ImportRowPipeline(final int threads, final int maxPendingRows, final ImportRowResults results,
+            final ImportProgressListener progress) {
+        this.lanes = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final String name = "bulk-import-" + results.getSheetName() + "-" + i;
+            this.lanes.add(Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        this.pending = new Semaphore(maxPendingRows);
+        this.results = results;
+        this.progress = progress;
+        this.context = ThreadContextSnapshot.capture();
+    }
+
+    /**
+     * Queues <code>row</code> behind the earlier rows with the same key; a {@link RuntimeException} thrown by it marks
+     * the row as failed with the same message the sequential handlers write, an {@link ImportRowFailure} with its
+     * status and report cells.
+     */
+    public void submit(final Object key, final int rowIndex, final Runnable row) {
+        try {
+            this.pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformInternalServerException("error.msg.import.interrupted", "Interrupted while importing rows", e);
+        }
+        final ExecutorService lane = this.lanes.get(Math.floorMod(Objects.hashCode(key), this.lanes.size()));
+        lane.execute(() -> this.context.run(() -> {
+            try {
+                row.run();
+                this.results.imported(rowIndex);
+            } catch (ImportRowFailure failure) {
+                LOG.error("Problem occurred importing row {} of {}", rowIndex, this.results.getSheetName(), failure.getCause());
+                this.results.failed(rowIndex, failure.getStatus(), failure.getReportCells());
+            } catch (RuntimeException ex) {
+                LOG.error("Problem occurred importing row {} of {}", rowIndex, this.results.getSheetName(), ex);
+                this.results.failed(rowIndex, ImportHandlerUtils.getErrorMessage(ex));
+            } finally {
+                this.pending.release();
+                reportProgressEveryInterval();
+            }
+        }));
+    }
+
+    /**
+     * Waits for all submitted rows and reports the final counts.
+     */
+    public ImportRowResults finish() {
+        for (final ExecutorService lane : this.lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (final ExecutorService lane : this.lanes) {
+                while (!lane.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOG.info("Waiting for rows of {} to be imported", this.results.getSheetName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.lanes.forEach(ExecutorService::shutdownNow);
+            throw new PlatformInternalServerException("error.msg.import.interrupted", "Interrupted while importing rows", e);
+        }
+        reportProgress();
+        return this.results;
+    }
+
+    /**
+     * Reports once per {@link #PROGRESS_INTERVAL} processed rows; the lanes finish rows concurrently, so the lane that
+     * first sees the count reach the threshold moves it on and reports, the others do not.
+     */
+    private void reportProgressEveryInterval() {
+        final long processed = (long) this.results.getSuccessCount() + this.results.getErrorCount();
+        final long threshold = this.nextProgress.get();
+        if (processed >= threshold && this.nextProgress.compareAndSet(threshold, processed + PROGRESS_INTERVAL)) {
+            reportProgress();
+        }
+    }
+
+    private void reportProgress() {
+        try {
+            this.progress.onProgress(this.results.getSuccessCount(), this.results.getErrorCount());
+        } catch (RuntimeException e) {
+            LOG.warn("Could not report progress of import of {}", this.results.getSheetName(), e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.fineract.infrastructure.bulkimport.data.Count;
+
+/**
+ * The outcome of every processed row of an import, written back into the status column of the uploaded sheet.
+ *
+ * A failed row may carry further report cells next to its status, e.g. the id of a loan that was created before a
+ * later step failed.
+ */
+public final class ImportRowResults {
+
+    private final String sheetName;
+    private final int statusColumn;
+    private final SortedMap<Integer, String> headers = new TreeMap<>();
+    private final Map<Integer, String> errors = new ConcurrentHashMap<>();
+    private final Map<Integer, Map<Integer, Object>> reportCells = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> imported = new ConcurrentHashMap<>();
+    private final AtomicInteger successCount = new AtomicInteger();
+    private final AtomicInteger errorCount = new AtomicInteger();
+
+    public ImportRowResults(final String sheetName, final int statusColumn, final String statusHeader) {
+        this.sheetName = sheetName;
+        this.statusColumn = statusColumn;
+        this.headers.put(statusColumn, statusHeader);
+    }
+
+    /**
+     * Adds the header of a report column written by {@link #failed(int, String, Map)}.
+     */
+    public ImportRowResults withHeader(final int column, final String header) {
+        this.headers.put(column, header);
+        return this;
+    }
+
+    public void imported(final int rowIndex) {
+        this.imported.put(rowIndex, Boolean.TRUE);
+        this.successCount.incrementAndGet();
+    }
+
+    public void failed(final int rowIndex, final String errorMessage) {
+        failed(rowIndex, errorMessage, Collections.emptyMap());
+    }
+
+    /**
+     * @param status
+     *            written into the status column
+     * @param cells
+     *            written into the report columns, by column index
+     */
+    public void failed(final int rowIndex, final String status, final Map<Integer, Object> cells) {
+        if (!cells.isEmpty()) {
+            this.reportCells.put(rowIndex, new TreeMap<>(cells));
+        }
+        this.errors.put(rowIndex, status);
+        this.errorCount.incrementAndGet();
+    }
+
+    public boolean isImported(final int rowIndex) {
+        return this.imported.containsKey(rowIndex);
+    }
+
+    /**
+     * @return the status of the failed row, or null when it was imported or not processed
+     */
+    public String getError(final int rowIndex) {
+        return this.errors.get(rowIndex);
+    }
+
+    /**
+     * @return the report cells of a failed row by column index, empty when it has none
+     */
+    public Map<Integer, Object> getReportCells(final int rowIndex) {
+        return this.reportCells.getOrDefault(rowIndex, Collections.emptyMap());
+    }
+
+    public boolean isProcessed(final int rowIndex) {
+        return isImported(rowIndex) || this.errors.containsKey(rowIndex);
+    }
+
+    /**
+     * @return the indexes of the processed rows in ascending order
+     */
+    public SortedSet<Integer> getProcessedRowIndexes() {
+        final SortedSet<Integer> rowIndexes = new TreeSet<>(this.imported.keySet());
+        rowIndexes.addAll(this.errors.keySet());
+        return rowIndexes;
+    }
+
+    /**
+     * @return the headers of the status and report columns by column index
+     */
+    public SortedMap<Integer, String> getHeaders() {
+        return Collections.unmodifiableSortedMap(this.headers);
+    }
+
+    public String getSheetName() {
+        return this.sheetName;
+    }
+
+    public int getStatusColumn() {
+        return this.statusColumn;
+    }
+
+    public int getSuccessCount() {
+        return this.successCount.get();
+    }
+
+    public int getErrorCount() {
+        return this.errorCount.get();
+    }
+
+    public Count toCount() {
+        return Count.instance(getSuccessCount(), getErrorCount());
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.core.data.EnumOptionData;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * The names of one lookup sheet of an import template, such as the offices or the staff, with the ids next to them.
+ *
+ * Answers the lookups of {@link ImportHandlerUtils#getIdByName} and {@link ImportHandlerUtils#getChargeTimeTypeEmun}
+ * from one pass over the sheet, so that rows can be read without the workbook: the first cell holding a name wins, and
+ * the side its id is on depends on the sheet.
+ */
+public final class ImportSheetIndex {
+
+    private static final Set<String> ID_LEFT_SHEETS = Set.of(TemplatePopulateImportConstants.OFFICE_SHEET_NAME,
+            TemplatePopulateImportConstants.GL_ACCOUNTS_SHEET_NAME, TemplatePopulateImportConstants.EXTRAS_SHEET_NAME,
+            TemplatePopulateImportConstants.CHARGE_SHEET_NAME, TemplatePopulateImportConstants.SHARED_PRODUCTS_SHEET_NAME,
+            TemplatePopulateImportConstants.ROLES_SHEET_NAME, TemplatePopulateImportConstants.PRODUCT_SHEET_NAME);
+    private static final Set<String> ID_RIGHT_SHEETS = Set.of(TemplatePopulateImportConstants.CLIENT_SHEET_NAME,
+            TemplatePopulateImportConstants.CENTER_SHEET_NAME, TemplatePopulateImportConstants.GROUP_SHEET_NAME,
+            TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+    private static final int CHARGE_TIME_TYPE_OFFSET = 3;
+
+    private final String sheetName;
+    private final Map<String, Long> ids = new HashMap<>();
+    private final Map<String, String> chargeTimeTypes = new HashMap<>();
+
+    private ImportSheetIndex(final String sheetName) {
+        this.sheetName = sheetName;
+    }
+
+    public static ImportSheetIndex read(final byte[] xlsx, final String sheetName) {
+        final ImportSheetIndex index = new ImportSheetIndex(sheetName);
+        XlsxSheetReader.read(xlsx, sheetName, row -> {
+            index.add(row);
+            return true;
+        });
+        return index;
+    }
+
+    public static ImportSheetIndex of(final Workbook workbook, final String sheetName) {
+        final ImportSheetIndex index = new ImportSheetIndex(sheetName);
+        final Sheet sheet = workbook.getSheet(sheetName);
+        if (sheet != null) {
+            final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+            for (final Row row : sheet) {
+                index.add(ImportRow.of(row, evaluator));
+            }
+        }
+        return index;
+    }
+
+    private void add(final ImportRow row) {
+        for (final Integer colIndex : row.getColumnIndexes()) {
+            // the products sheet has its names in the first two columns only
+            if (TemplatePopulateImportConstants.PRODUCT_SHEET_NAME.equals(this.sheetName) && colIndex > 1) {
+                break;
+            }
+            if (!row.isString(colIndex)) {
+                continue;
+            }
+            final String name = ((String) row.getCells().get(colIndex)).trim();
+            this.ids.putIfAbsent(name, idNextTo(row, colIndex));
+            // unlike the ids, the last charge of a name gives its time type
+            if (TemplatePopulateImportConstants.CHARGE_SHEET_NAME.equals(this.sheetName)) {
+                final Object chargeTimeType = row.getCells().get(colIndex + CHARGE_TIME_TYPE_OFFSET);
+                if (chargeTimeType instanceof String) {
+                    this.chargeTimeTypes.put(name, (String) chargeTimeType);
+                }
+            }
+        }
+    }
+
+    private Long idNextTo(final ImportRow row, final int colIndex) {
+        final int idColumn;
+        if (ID_LEFT_SHEETS.contains(this.sheetName)) {
+            idColumn = colIndex - 1;
+        } else if (ID_RIGHT_SHEETS.contains(this.sheetName)) {
+            idColumn = colIndex + 1;
+        } else {
+            return 0L;
+        }
+        return row.isNumeric(idColumn) ? row.readAsLong(idColumn) : 0L;
+    }
+
+    /**
+     * @return the id next to the first cell holding <code>name</code>, 0 when there is none
+     */
+    public Long getIdByName(final String name) {
+        if (name == null) {
+            return 0L;
+        }
+        return this.ids.getOrDefault(name, 0L);
+    }
+
+    /**
+     * @return the charge time type of the charge <code>name</code> of the charges sheet, null when it has none
+     */
+    public EnumOptionData getChargeTimeTypeEnum(final String name) {
+        final String chargeTimeType = name == null ? null : this.chargeTimeTypes.get(name);
+        if (chargeTimeType == null || chargeTimeType.isEmpty()) {
+            return null;
+        }
+        return new EnumOptionData(null, null, chargeTimeType.equalsIgnoreCase("Disbursement") ? "1" : "");
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.util.Map;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Writes the {@link ImportRowResults} into the sheet of an in-memory workbook, the way the sequential handlers write
+ * their statuses.
+ */
+public final class WorkbookResultWriter {
+
+    private WorkbookResultWriter() {
+
+    }
+
+    public static void write(final Sheet sheet, final ImportRowResults results) {
+        final int statusColumn = results.getStatusColumn();
+        for (final Integer rowIndex : results.getProcessedRowIndexes()) {
+            final Row row = sheet.getRow(rowIndex) == null ? sheet.createRow(rowIndex) : sheet.getRow(rowIndex);
+            if (results.isImported(rowIndex)) {
+                final Cell statusCell = row.createCell(statusColumn);
+                statusCell.setCellValue(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED);
+                statusCell.setCellStyle(ImportHandlerUtils.getCellStyle(sheet.getWorkbook(), IndexedColors.LIGHT_GREEN));
+                continue;
+            }
+            ImportHandlerUtils.writeErrorMessage(sheet, rowIndex, results.getError(rowIndex), statusColumn);
+            for (final Map.Entry<Integer, Object> reportCell : results.getReportCells(rowIndex).entrySet()) {
+                final Cell cell = row.createCell(reportCell.getKey());
+                if (reportCell.getValue() instanceof Number) {
+                    cell.setCellValue(((Number) reportCell.getValue()).doubleValue());
+                } else {
+                    cell.setCellValue(String.valueOf(reportCell.getValue()));
+                }
+            }
+        }
+        sheet.setColumnWidth(statusColumn, TemplatePopulateImportConstants.SMALL_COL_SIZE);
+        final Row headerRow = sheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX) == null
+                ? sheet.createRow(TemplatePopulateImportConstants.ROWHEADER_INDEX)
+                : sheet.getRow(TemplatePopulateImportConstants.ROWHEADER_INDEX);
+        for (final Map.Entry<Integer, String> header : results.getHeaders().entrySet()) {
+            ImportHandlerUtils.writeString(header.getKey(), headerRow, header.getValue());
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+/**
+ * Writes the status of every processed row into the uploaded XLSX without loading it as a workbook.
+ *
+ * Only the XML of the result sheet and the styles are rewritten, and in them only the status and report cells of the
+ * processed rows and the header row; every other part of the file, such as formulas, validations, styles and the other
+ * sheets, is copied as it was uploaded. The cells are written as inline strings or numbers, the statuses in the same
+ * colours as the in-memory handlers.
+ */
+public final class XlsxResultWriter {
+
+    private static final String ROW = "row";
+    private static final String CELL = "c";
+
+    private XlsxResultWriter() {
+
+    }
+
+    public static byte[] write(final byte[] xlsx, final ImportRowResults results) {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(new ByteArrayInputStream(xlsx));
+            final XSSFReader reader = new XSSFReader(pkg);
+            final PackagePart sheetPart = findSheet(reader, results.getSheetName());
+            if (sheetPart == null) {
+                return xlsx;
+            }
+            final StylesTable styles = reader.getStylesTable();
+            final int importedStyle = fill(styles, IndexedColors.LIGHT_GREEN);
+            final int errorStyle = fill(styles, IndexedColors.RED);
+            try (OutputStream out = styles.getPackagePart().getOutputStream()) {
+                styles.writeTo(out);
+            }
+
+            final ByteArrayOutputStream sheetXml = new ByteArrayOutputStream();
+            try (InputStream in = sheetPart.getInputStream()) {
+                new SheetRewriter(cellsToWrite(results, importedStyle, errorStyle)).rewrite(in, sheetXml);
+            }
+            try (OutputStream out = sheetPart.getOutputStream()) {
+                sheetXml.writeTo(out);
+            }
+
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            pkg.save(bos);
+            return bos.toByteArray();
+        } catch (IOException | OpenXML4JException | XMLStreamException e) {
+            throw new PlatformInternalServerException("error.msg.import.result.write.failed", "Failed to write the import result", e);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    private static PackagePart findSheet(final XSSFReader reader, final String sheetName) throws IOException, OpenXML4JException {
+        final XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream ignored = sheets.next()) {
+                if (sheets.getSheetName().equals(sheetName)) {
+                    return sheets.getSheetPart();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int fill(final StylesTable styles, final IndexedColors color) {
+        final XSSFCellStyle style = styles.createCellStyle();
+        style.setFillForegroundColor(color.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return style.getIndex();
+    }
+
+    private static SortedMap<Integer, SortedMap<Integer, NewCell>> cellsToWrite(final ImportRowResults results, final int importedStyle,
+            final int errorStyle) {
+        final SortedMap<Integer, SortedMap<Integer, NewCell>> rows = new TreeMap<>();
+        final SortedMap<Integer, NewCell> header = new TreeMap<>();
+        results.getHeaders().forEach((column, value) -> header.put(column, new NewCell(value, -1)));
+        rows.put(TemplatePopulateImportConstants.ROWHEADER_INDEX, header);
+        for (final Integer rowIndex : results.getProcessedRowIndexes()) {
+            final SortedMap<Integer, NewCell> cells = new TreeMap<>();
+            if (results.isImported(rowIndex)) {
+                cells.put(results.getStatusColumn(), new NewCell(TemplatePopulateImportConstants.STATUS_CELL_IMPORTED, importedStyle));
+            } else {
+                results.getReportCells(rowIndex).forEach((column, value) -> cells.put(column, new NewCell(value, -1)));
+                cells.put(results.getStatusColumn(), new NewCell(results.getError(rowIndex), errorStyle));
+            }
+            rows.put(rowIndex, cells);
+        }
+        return rows;
+    }
+
+    private static final class NewCell {
+
+        private final Object value;
+        private final int style;
+
+        NewCell(final Object value, final int style) {
+            this.value = value;
+            this.style = style;
+        }
+    }
+
+    /**
+     * Copies the sheet XML event by event, replacing or inserting the new cells in column order and the rows holding
+     * them in row order, as the format requires.
+     */
+    private static final class SheetRewriter {
+
+        private final Iterator<Map.Entry<Integer, SortedMap<Integer, NewCell>>> rows;
+        private final XMLEventFactory events = XMLHelper.newXMLEventFactory();
+        private Map.Entry<Integer, SortedMap<Integer, NewCell>> nextRow;
+        private XMLEventWriter writer;
+        private String prefix = "";
+        private String namespace = "";
+
+        SheetRewriter(final SortedMap<Integer, SortedMap<Integer, NewCell>> rows) {
+            this.rows = rows.entrySet().iterator();
+            this.nextRow = this.rows.hasNext() ? this.rows.next() : null;
+        }
+
+        void rewrite(final InputStream in, final OutputStream out) throws XMLStreamException {
+            final XMLEventReader reader = XMLHelper.newXMLInputFactory().createXMLEventReader(in);
+            this.writer = XMLHelper.newXMLOutputFactory().createXMLEventWriter(out, "UTF-8");
+            int lastRowIndex = -1;
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement() && isElement(event.asStartElement(), "dimension")) {
+                    // the used range grows with the new cells, readers that trust it would miss them
+                    skipElement(reader);
+                } else if (event.isStartElement() && isElement(event.asStartElement(), "sheetData")) {
+                    this.prefix = event.asStartElement().getName().getPrefix();
+                    this.namespace = event.asStartElement().getName().getNamespaceURI();
+                    this.writer.add(event);
+                } else if (event.isStartElement() && isElement(event.asStartElement(), ROW)) {
+                    final StartElement row = event.asStartElement();
+                    final Attribute r = row.getAttributeByName(new QName("r"));
+                    final int rowIndex = r == null ? lastRowIndex + 1 : Integer.parseInt(r.getValue()) - 1;
+                    lastRowIndex = rowIndex;
+                    writeRowsBefore(rowIndex);
+                    if (this.nextRow != null && this.nextRow.getKey() == rowIndex) {
+                        rewriteRow(reader, row, rowIndex, this.nextRow.getValue());
+                        this.nextRow = this.rows.hasNext() ? this.rows.next() : null;
+                    } else {
+                        this.writer.add(event);
+                    }
+                } else if (event.isEndElement() && "sheetData".equals(event.asEndElement().getName().getLocalPart())) {
+                    writeRowsBefore(Integer.MAX_VALUE);
+                    this.writer.add(event);
+                } else {
+                    this.writer.add(event);
+                }
+            }
+            this.writer.flush();
+            reader.close();
+        }
+
+        private void writeRowsBefore(final int rowIndex) throws XMLStreamException {
+            while (this.nextRow != null && this.nextRow.getKey() < rowIndex) {
+                final List<Attribute> attributes = new ArrayList<>();
+                attributes.add(this.events.createAttribute("r", String.valueOf(this.nextRow.getKey() + 1)));
+                this.writer.add(this.events.createStartElement(this.prefix, this.namespace, ROW, attributes.iterator(), null));
+                for (final Map.Entry<Integer, NewCell> cell : this.nextRow.getValue().entrySet()) {
+                    writeCell(this.nextRow.getKey(), cell.getKey(), cell.getValue(), -1);
+                }
+                this.writer.add(this.events.createEndElement(this.prefix, this.namespace, ROW));
+                this.nextRow = this.rows.hasNext() ? this.rows.next() : null;
+            }
+        }
+
+        private void rewriteRow(final XMLEventReader reader, final StartElement row, final int rowIndex,
+                final SortedMap<Integer, NewCell> newCells) throws XMLStreamException {
+            // the spans are an optional hint about the cells of the row, they no longer hold
+            final List<Attribute> attributes = new ArrayList<>();
+            for (final Iterator<Attribute> it = row.getAttributes(); it.hasNext();) {
+                final Attribute attribute = it.next();
+                if (!"spans".equals(attribute.getName().getLocalPart())) {
+                    attributes.add(attribute);
+                }
+            }
+            this.writer.add(this.events.createStartElement(row.getName(), attributes.iterator(), row.getNamespaces()));
+            final Iterator<Map.Entry<Integer, NewCell>> cells = newCells.entrySet().iterator();
+            Map.Entry<Integer, NewCell> nextCell = cells.hasNext() ? cells.next() : null;
+            int lastColumn = -1;
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement() && isElement(event.asStartElement(), CELL)) {
+                    final StartElement cell = event.asStartElement();
+                    final Attribute r = cell.getAttributeByName(new QName("r"));
+                    final int column = r == null ? lastColumn + 1 : new CellReference(r.getValue()).getCol();
+                    lastColumn = column;
+                    while (nextCell != null && nextCell.getKey() < column) {
+                        writeCell(rowIndex, nextCell.getKey(), nextCell.getValue(), -1);
+                        nextCell = cells.hasNext() ? cells.next() : null;
+                    }
+                    if (nextCell != null && nextCell.getKey() == column) {
+                        final Attribute s = cell.getAttributeByName(new QName("s"));
+                        skipElement(reader);
+                        writeCell(rowIndex, column, nextCell.getValue(), s == null ? -1 : Integer.parseInt(s.getValue()));
+                        nextCell = cells.hasNext() ? cells.next() : null;
+                    } else {
+                        copyElement(reader, event);
+                    }
+                } else if (event.isEndElement() && ROW.equals(event.asEndElement().getName().getLocalPart())) {
+                    while (nextCell != null) {
+                        writeCell(rowIndex, nextCell.getKey(), nextCell.getValue(), -1);
+                        nextCell = cells.hasNext() ? cells.next() : null;
+                    }
+                    this.writer.add(event);
+                    return;
+                } else {
+                    this.writer.add(event);
+                }
+            }
+        }
+
+        /**
+         * @param existingStyle
+         *            the style of the replaced cell, kept when the new cell has none
+         */
+        private void writeCell(final int rowIndex, final int column, final NewCell cell, final int existingStyle)
+                throws XMLStreamException {
+            final List<Attribute> attributes = new ArrayList<>();
+            attributes.add(this.events.createAttribute("r", new CellReference(rowIndex, column).formatAsString(false)));
+            final int style = cell.style >= 0 ? cell.style : existingStyle;
+            if (style >= 0) {
+                attributes.add(this.events.createAttribute("s", String.valueOf(style)));
+            }
+            final boolean numeric = cell.value instanceof Number;
+            if (!numeric) {
+                attributes.add(this.events.createAttribute("t", "inlineStr"));
+            }
+            this.writer.add(this.events.createStartElement(this.prefix, this.namespace, CELL, attributes.iterator(), null));
+            if (numeric) {
+                writeText("v", numericValue((Number) cell.value));
+            } else {
+                this.writer.add(this.events.createStartElement(this.prefix, this.namespace, "is"));
+                writeText("t", String.valueOf(cell.value));
+                this.writer.add(this.events.createEndElement(this.prefix, this.namespace, "is"));
+            }
+            this.writer.add(this.events.createEndElement(this.prefix, this.namespace, CELL));
+        }
+
+        private void writeText(final String element, final String text) throws XMLStreamException {
+            this.writer.add(this.events.createStartElement(this.prefix, this.namespace, element));
+            this.writer.add(this.events.createCharacters(text));
+            this.writer.add(this.events.createEndElement(this.prefix, this.namespace, element));
+        }
+
+        private static String numericValue(final Number number) {
+            if (number instanceof Double || number instanceof Float) {
+                final double value = number.doubleValue();
+                return value == Math.rint(value) && !Double.isInfinite(value) ? String.valueOf((long) value) : String.valueOf(value);
+            }
+            return number.toString();
+        }
+
+        private void copyElement(final XMLEventReader reader, final XMLEvent start) throws XMLStreamException {
+            this.writer.add(start);
+            int depth = 1;
+            while (depth > 0) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+                this.writer.add(event);
+            }
+        }
+
+        private static void skipElement(final XMLEventReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+            }
+        }
+
+        private static boolean isElement(final StartElement element, final String localName) {
+            return localName.equals(element.getName().getLocalPart());
+        }
+    }
+}
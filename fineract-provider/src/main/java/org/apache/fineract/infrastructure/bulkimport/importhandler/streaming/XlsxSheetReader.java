@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.core.exception.GeneralPlatformDomainRuleException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the sheets of an XLSX file row by row with a SAX parser, so that only the shared strings and the current row
+ * are held in memory instead of a whole workbook.
+ */
+public final class XlsxSheetReader {
+
+    private XlsxSheetReader() {
+
+    }
+
+    @FunctionalInterface
+    public interface RowHandler {
+
+        /**
+         * @return false to stop reading the sheet
+         */
+        boolean row(ImportRow row);
+    }
+
+    /**
+     * Reads the sheet named <code>sheetName</code>, or the first sheet when it is null.
+     */
+    public static void read(final byte[] xlsx, final String sheetName, final RowHandler handler) {
+        readSheets(xlsx, (name, first) -> first && sheetName == null || name.equals(sheetName), handler);
+    }
+
+    /**
+     * Reads the entries of the sheet named <code>sheetName</code>, or of the first sheet when it is null: the rows after
+     * the header row up to the first one without a value in <code>primaryColumn</code>, the rows
+     * <code>ImportHandlerUtils.getNumberOfRows</code> counts.
+     */
+    public static void readEntries(final byte[] xlsx, final String sheetName, final int primaryColumn, final Consumer<ImportRow> entry) {
+        final int[] nextRowIndex = { TemplatePopulateImportConstants.ROWHEADER_INDEX + 1 };
+        read(xlsx, sheetName, row -> {
+            if (row.getRowIndex() == TemplatePopulateImportConstants.ROWHEADER_INDEX) {
+                return true;
+            }
+            if (row.getRowIndex() != nextRowIndex[0] || !row.hasValue(primaryColumn)) {
+                return false;
+            }
+            nextRowIndex[0]++;
+            entry.accept(row);
+            return true;
+        });
+    }
+
+    /**
+     * Counts the entries of the first sheet, like <code>ImportHandlerUtils.getNumberOfRows</code> does for the first sheet
+     * of a workbook.
+     */
+    public static int countRows(final byte[] xlsx, final int primaryColumn) {
+        final int[] count = { 0 };
+        readEntries(xlsx, null, primaryColumn, row -> count[0]++);
+        return count[0];
+    }
+
+    @FunctionalInterface
+    private interface SheetFilter {
+
+        boolean accept(String sheetName, boolean first);
+    }
+
+    private static void readSheets(final byte[] xlsx, final SheetFilter filter, final RowHandler handler) {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(new ByteArrayInputStream(xlsx));
+            final SharedStrings strings = new ReadOnlySharedStringsTable(pkg);
+            final XSSFReader reader = new XSSFReader(pkg);
+            final StylesTable styles = reader.getStylesTable();
+            final XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            boolean first = true;
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    final boolean accepted = filter.accept(sheets.getSheetName(), first);
+                    first = false;
+                    if (!accepted) {
+                        continue;
+                    }
+                    final XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetContentHandler(strings, styles, handler));
+                    try {
+                        parser.parse(new InputSource(sheet));
+                    } catch (StopReadingException e) {
+                        // the handler has seen the rows it needs
+                    }
+                }
+            }
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new GeneralPlatformDomainRuleException("error.msg.import.xlsx.unreadable", "The uploaded XLSX file could not be read",
+                    e);
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    private static final class StopReadingException extends SAXException {
+
+        StopReadingException() {
+            super("stop");
+        }
+    }
+
+    private static final class SheetContentHandler extends DefaultHandler {
+
+        private final SharedStrings strings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+        private final StringBuilder value = new StringBuilder();
+
+        private Map<Integer, Object> cells;
+        private int rowIndex = -1;
+        private int column;
+        private int nextColumn;
+        private String type;
+        private int styleIndex;
+        private boolean inValue;
+
+        SheetContentHandler(final SharedStrings strings, final StylesTable styles, final RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    final String r = attributes.getValue("r");
+                    this.rowIndex = r == null ? this.rowIndex + 1 : Integer.parseInt(r) - 1;
+                    this.cells = new HashMap<>();
+                    this.nextColumn = 0;
+                break;
+                case "c":
+                    final String reference = attributes.getValue("r");
+                    this.column = reference == null ? this.nextColumn : new CellReference(reference).getCol();
+                    this.type = attributes.getValue("t");
+                    final String style = attributes.getValue("s");
+                    this.styleIndex = style == null ? -1 : Integer.parseInt(style);
+                    this.value.setLength(0);
+                break;
+                case "v":
+                case "t":
+                    this.inValue = true;
+                break;
+                default:
+                break;
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            if (this.inValue) {
+                this.value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                    this.inValue = false;
+                    final Object cellValue = convert(this.value.toString());
+                    if (cellValue != null) {
+                        this.cells.put(this.column, cellValue);
+                    }
+                break;
+                case "t":
+                    this.inValue = false;
+                break;
+                case "c":
+                    if ("inlineStr".equals(this.type) && this.value.length() > 0) {
+                        this.cells.put(this.column, this.value.toString());
+                    }
+                    this.nextColumn = this.column + 1;
+                break;
+                case "row":
+                    if (!this.handler.row(new ImportRow(this.rowIndex, this.cells))) {
+                        throw new StopReadingException();
+                    }
+                break;
+                default:
+                break;
+            }
+        }
+
+        private Object convert(final String raw) {
+            if (this.type == null || "n".equals(this.type)) {
+                if (raw.isEmpty()) {
+                    return null;
+                }
+                final double number = Double.parseDouble(raw);
+                if (this.styleIndex >= 0 && isDateStyle(this.styleIndex)) {
+                    return DateUtil.getLocalDateTime(number).toLocalDate();
+                }
+                return number;
+            }
+            switch (this.type) {
+                case "s":
+                    return this.strings.getItemAt(Integer.parseInt(raw)).getString();
+                case "str":
+                    return raw;
+                case "b":
+                    return "1".equals(raw);
+                default:
+                    // errors and inline strings, the latter are taken at the end of the cell
+                    return null;
+            }
+        }
+
+        private boolean isDateStyle(final int index) {
+            return this.dateStyles.computeIfAbsent(index, i -> {
+                final XSSFCellStyle style = this.styles.getStyleAt(i);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.service.TemplateLookupReadService;
 import org.apache.fineract.organisation.office.data.OfficeData;
 import org.apache.fineract.portfolio.client.data.ClientData;
 import org.apache.poi.ss.usermodel.Row;
@@ -33,6 +34,7 @@ public class ClientSheetPopulator extends AbstractWorkbookPopulator {
 
     private List<ClientData> allClients;
     private List<OfficeData> officesDataList;
+    private TemplateLookupReadService lookupReadService;
 
     private Map<String, ArrayList<String>> officeToClients;
     private Map<Integer, Integer[]> officeNameToBeginEndIndexesOfClients;
@@ -48,10 +50,24 @@ public class ClientSheetPopulator extends AbstractWorkbookPopulator {
         this.officesDataList = Offices;
     }
 
+    /**
+     * Reads the clients of each office with a cursor while the sheet is written, for streaming workbooks. Only the
+     * client ranges per office are kept, {@link #getClients()} and the client maps are not available.
+     */
+    public ClientSheetPopulator(final TemplateLookupReadService lookupReadService, final List<OfficeData> offices) {
+        this.lookupReadService = lookupReadService;
+        this.officesDataList = offices;
+    }
+
     @Override
     public void populate(Workbook workbook, String dateFormat) {
         Sheet clientSheet = workbook.createSheet(TemplatePopulateImportConstants.CLIENT_SHEET_NAME);
         setLayout(clientSheet);
+        if (lookupReadService != null) {
+            streamClientsByOfficeName(clientSheet);
+            clientSheet.protectSheet("");
+            return;
+        }
         setOfficeToClientsMap();
         setClientNameToClientIdMap();
         populateClientsByOfficeName(clientSheet);
@@ -130,6 +146,25 @@ public class ClientSheetPopulator extends AbstractWorkbookPopulator {
         }
     }
 
+    private void streamClientsByOfficeName(Sheet clientSheet) {
+        officeNameToBeginEndIndexesOfClients = new HashMap<>();
+        // same layout as populateClientsByOfficeName, only the current row is touched
+        final Row[] row = { clientSheet.createRow(1) };
+        for (int officeIndex = 0; officeIndex < officesDataList.size(); officeIndex++) {
+            final OfficeData office = officesDataList.get(officeIndex);
+            final int startIndex = row[0].getRowNum() + 1;
+            writeString(OFFICE_NAME_COL, row[0], office.name());
+            lookupReadService.forEachClient(office.getId(), client -> {
+                writeString(CLIENT_NAME_COL, row[0], client.displayName().trim() + "(" + client.id() + ")");
+                writeLong(CLIENT_ID_COL, row[0], client.id());
+                row[0] = clientSheet.createRow(row[0].getRowNum() + 1);
+            });
+            if (row[0].getRowNum() + 1 > startIndex) {
+                officeNameToBeginEndIndexesOfClients.put(officeIndex, new Integer[] { startIndex, row[0].getRowNum() });
+            }
+        }
+    }
+
     public List<ClientData> getClients() {
         return allClients;
     }
@@ -48,36 +48,27 @@ public class ExtrasSheetPopulator extends AbstractWorkbookPopulator {
 
     @Override
     public void populate(Workbook workbook, String dateFormat) {
-        int fundRowIndex = 1;
         Sheet extrasSheet = workbook.createSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME);
         setLayout(extrasSheet);
-        for (FundData fund : funds) {
-            Row row = extrasSheet.createRow(fundRowIndex++);
-            writeLong(FUND_ID_COL, row, fund.getId());
-            writeString(FUND_NAME_COL, row, fund.getName());
-        }
-        int paymentTypeRowIndex = 1;
-        for (PaymentTypeData paymentType : paymentTypes) {
-            Row row;
-            if (paymentTypeRowIndex < fundRowIndex) {
-                row = extrasSheet.getRow(paymentTypeRowIndex++);
-            } else {
-                row = extrasSheet.createRow(paymentTypeRowIndex++);
+        // one pass over the rows, a streaming workbook cannot go back to rows it has written
+        int rowCount = Math.max(funds.size(), Math.max(paymentTypes.size(), currencies.size()));
+        for (int i = 0; i < rowCount; i++) {
+            Row row = extrasSheet.createRow(i + 1);
+            if (i < funds.size()) {
+                FundData fund = funds.get(i);
+                writeLong(FUND_ID_COL, row, fund.getId());
+                writeString(FUND_NAME_COL, row, fund.getName());
             }
-            writeLong(PAYMENT_TYPE_ID_COL, row, paymentType.getId());
-            writeString(PAYMENT_TYPE_NAME_COL, row, paymentType.getName().trim().replaceAll("[ )(]", "_"));
-        }
-        int currencyCodeRowIndex = 1;
-        for (CurrencyData currencies : currencies) {
-            Row row;
-            if (currencyCodeRowIndex < paymentTypeRowIndex || currencyCodeRowIndex < fundRowIndex) {
-                row = extrasSheet.getRow(currencyCodeRowIndex++);
-            } else {
-                row = extrasSheet.createRow(currencyCodeRowIndex++);
+            if (i < paymentTypes.size()) {
+                PaymentTypeData paymentType = paymentTypes.get(i);
+                writeLong(PAYMENT_TYPE_ID_COL, row, paymentType.getId());
+                writeString(PAYMENT_TYPE_NAME_COL, row, paymentType.getName().trim().replaceAll("[ )(]", "_"));
+            }
+            if (i < currencies.size()) {
+                CurrencyData currency = currencies.get(i);
+                writeString(CURRENCY_NAME_COL, row, currency.getName().trim().replaceAll("[ )(]", "_"));
+                writeString(CURRENCY_CODE_COL, row, currency.code());
             }
-
-            writeString(CURRENCY_NAME_COL, row, currencies.getName().trim().replaceAll("[ )(]", "_"));
-            writeString(CURRENCY_CODE_COL, row, currencies.code());
         }
         extrasSheet.protectSheet("");
 
@@ -18,25 +18,16 @@
  */
 package org.apache.fineract.infrastructure.bulkimport.populator.loanrepayment;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import org.apache.fineract.infrastructure.bulkimport.constants.LoanRepaymentConstants;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.data.LoanLookupData;
 import org.apache.fineract.infrastructure.bulkimport.populator.AbstractWorkbookPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.ClientSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.ExtrasSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.OfficeSheetPopulator;
-import org.apache.fineract.infrastructure.bulkimport.populator.comparator.LoanComparatorByStatusActive;
-import org.apache.fineract.portfolio.client.data.ClientData;
-import org.apache.fineract.portfolio.loanaccount.data.LoanAccountData;
-import org.apache.poi.hssf.usermodel.HSSFDataValidationHelper;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
+import org.apache.fineract.infrastructure.bulkimport.populator.StreamingWorkbookPopulator;
+import org.apache.fineract.infrastructure.bulkimport.service.TemplateLookupReadService;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.DataValidation;
@@ -47,21 +38,27 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddressList;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
+/**
+ * Writes the loan repayment template in a single pass over its rows, so that it can be used with a streaming workbook.
+ * The loans of the lookup table are read with a cursor while they are written.
+ */
+public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator implements StreamingWorkbookPopulator {
 
-    private static final Logger LOG = LoggerFactory.getLogger(LoanRepaymentWorkbookPopulator.class);
+    private static final int DEFAULT_ROWS = 3000;
+
+    private final TemplateLookupReadService lookupReadService;
+    private final Long officeId;
     private final OfficeSheetPopulator officeSheetPopulator;
     private final ClientSheetPopulator clientSheetPopulator;
     private final ExtrasSheetPopulator extrasSheetPopulator;
-    private final List<LoanAccountData> allloans;
-    private Map<Long, String> clientIdToClientExternalId;
+    private int loanCount;
 
-    public LoanRepaymentWorkbookPopulator(List<LoanAccountData> loans, OfficeSheetPopulator officeSheetPopulator,
-            ClientSheetPopulator clientSheetPopulator, ExtrasSheetPopulator extrasSheetPopulator) {
-        this.allloans = loans;
+    public LoanRepaymentWorkbookPopulator(TemplateLookupReadService lookupReadService, Long officeId,
+            OfficeSheetPopulator officeSheetPopulator, ClientSheetPopulator clientSheetPopulator,
+            ExtrasSheetPopulator extrasSheetPopulator) {
+        this.lookupReadService = lookupReadService;
+        this.officeId = officeId;
         this.officeSheetPopulator = officeSheetPopulator;
         this.clientSheetPopulator = clientSheetPopulator;
         this.extrasSheetPopulator = extrasSheetPopulator;
@@ -74,49 +71,63 @@ public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
         officeSheetPopulator.populate(workbook, dateFormat);
         clientSheetPopulator.populate(workbook, dateFormat);
         extrasSheetPopulator.populate(workbook, dateFormat);
-        setClientIdToClientExternalId();
-        populateLoansTable(loanRepaymentSheet, dateFormat);
+        // the formulas refer to the whole lookup table, so its size is needed before the first row is written
+        loanCount = lookupReadService.countLoans(officeId);
+        populateRows(loanRepaymentSheet, dateFormat);
+        setNames(loanRepaymentSheet);
         setRules(loanRepaymentSheet, dateFormat);
-        setDefaults(loanRepaymentSheet, dateFormat);
     }
 
-    private void setClientIdToClientExternalId() {
-        clientIdToClientExternalId = new HashMap<>();
-        List<ClientData> allclients = clientSheetPopulator.getClients();
-        for (ClientData client : allclients) {
-            if (client.getExternalId() != null) {
-                clientIdToClientExternalId.put(client.getId(), client.getExternalId());
+    private void populateRows(Sheet worksheet, String dateFormat) {
+        Workbook workbook = worksheet.getWorkbook();
+        CellStyle dateCellStyle = workbook.createCellStyle();
+        dateCellStyle.setDataFormat(workbook.createDataFormat().getFormat(dateFormat));
+        AccountNames accountNames = new AccountNames(workbook);
+        int[] rowIndex = { 1 };
+        lookupReadService.forEachLoan(officeId, loan -> {
+            Row row = worksheet.createRow(rowIndex[0]);
+            if (rowIndex[0] < DEFAULT_ROWS) {
+                setDefaults(row, dateCellStyle);
             }
+            writeLoan(row, loan, dateCellStyle, dateFormat);
+            accountNames.add(loan, rowIndex[0] + 1);
+            rowIndex[0]++;
+        });
+        accountNames.close();
+        for (int rowNo = rowIndex[0]; rowNo < DEFAULT_ROWS; rowNo++) {
+            setDefaults(worksheet.createRow(rowNo), dateCellStyle);
         }
     }
 
-    private void setDefaults(Sheet worksheet, String dateFormat) {
-        for (Integer rowNo = 1; rowNo < 3000; rowNo++) {
-            Row row = worksheet.getRow(rowNo);
-            if (row == null) {
-                row = worksheet.createRow(rowNo);
-            }
-            writeFormula(LoanRepaymentConstants.CLIENT_EXTERNAL_ID, row,
-                    "IF(ISERROR(VLOOKUP($B" + (rowNo + 1) + ",$R$2:$S$" + (allloans.size() + 1) + ",2,FALSE))," + "\"\",(VLOOKUP($B"
-                            + (rowNo + 1) + ",$R$2:$S$" + (allloans.size() + 1) + ",2,FALSE)))");
-            writeFormula(LoanRepaymentConstants.PRODUCT_COL, row,
-                    "IF(ISERROR(VLOOKUP($D" + (rowNo + 1) + ",$T$2:$X$" + (allloans.size() + 1) + ",2,FALSE)),\"\",VLOOKUP($D" + (rowNo + 1)
-                            + ",$T$2:$X$" + (allloans.size() + 1) + ",2,FALSE))");
-            writeFormula(LoanRepaymentConstants.PRINCIPAL_COL, row,
-                    "IF(ISERROR(VLOOKUP($D" + (rowNo + 1) + ",$T$2:$X$" + (allloans.size() + 1) + ",3,FALSE)),\"\",VLOOKUP($D" + (rowNo + 1)
-                            + ",$T$2:$X$" + (allloans.size() + 1) + ",3,FALSE))");
-            writeFormula(LoanRepaymentConstants.TOTAL_OUTSTANDING_AMOUNT_COL, row,
-                    "IF(ISERROR(VLOOKUP($D" + (rowNo + 1) + ",$T$2:$X$" + (allloans.size() + 1) + ",4,FALSE)),\"\",VLOOKUP($D" + (rowNo + 1)
-                            + ",$T$2:$X$" + (allloans.size() + 1) + ",4,FALSE))");
+    private void setDefaults(Row row, CellStyle dateCellStyle) {
+        int rowNo = row.getRowNum();
+        writeFormula(LoanRepaymentConstants.CLIENT_EXTERNAL_ID, row,
+                "IF(ISERROR(VLOOKUP($B" + (rowNo + 1) + ",$R$2:$S$" + (loanCount + 1) + ",2,FALSE))," + "\"\",(VLOOKUP($B" + (rowNo + 1)
+                        + ",$R$2:$S$" + (loanCount + 1) + ",2,FALSE)))");
+        writeFormula(LoanRepaymentConstants.PRODUCT_COL, row, lookupFormula(rowNo, 2));
+        writeFormula(LoanRepaymentConstants.PRINCIPAL_COL, row, lookupFormula(rowNo, 3));
+        writeFormula(LoanRepaymentConstants.TOTAL_OUTSTANDING_AMOUNT_COL, row, lookupFormula(rowNo, 4));
+        writeFormula(LoanRepaymentConstants.LOAN_DISBURSEMENT_DATE_COL, row, lookupFormula(rowNo, 5));
+        row.getCell(LoanRepaymentConstants.LOAN_DISBURSEMENT_DATE_COL).setCellStyle(dateCellStyle);
+    }
 
-            writeFormula(LoanRepaymentConstants.LOAN_DISBURSEMENT_DATE_COL, row,
-                    "IF(ISERROR(VLOOKUP($D" + (rowNo + 1) + ",$T$2:$X$" + (allloans.size() + 1) + ",5,FALSE)),\"\",VLOOKUP($D" + (rowNo + 1)
-                            + ",$T$2:$X$" + (allloans.size() + 1) + ",5,FALSE))");
-            Workbook workbook = worksheet.getWorkbook();
-            CellStyle dateCellStyle = workbook.createCellStyle();
-            short df = workbook.createDataFormat().getFormat(dateFormat);
-            dateCellStyle.setDataFormat(df);
-            row.getCell(LoanRepaymentConstants.LOAN_DISBURSEMENT_DATE_COL).setCellStyle(dateCellStyle);
+    private String lookupFormula(int rowNo, int column) {
+        return "IF(ISERROR(VLOOKUP($D" + (rowNo + 1) + ",$T$2:$X$" + (loanCount + 1) + "," + column + ",FALSE)),\"\",VLOOKUP($D"
+                + (rowNo + 1) + ",$T$2:$X$" + (loanCount + 1) + "," + column + ",FALSE))";
+    }
+
+    private void writeLoan(Row row, LoanLookupData loan, CellStyle dateCellStyle, String dateFormat) {
+        writeString(LoanRepaymentConstants.LOOKUP_CLIENT_NAME_COL, row, loan.getClientName() + "(" + loan.getClientId() + ")");
+        writeString(LoanRepaymentConstants.LOOKUP_CLIENT_EXTERNAL_ID, row, loan.getClientExternalId());
+        writeString(LoanRepaymentConstants.LOOKUP_ACCOUNT_NO_COL, row, loan.getAccountNo() + "-" + loan.getStatus());
+        writeString(LoanRepaymentConstants.LOOKUP_PRODUCT_COL, row, loan.getProductName());
+        writeBigDecimal(LoanRepaymentConstants.LOOKUP_PRINCIPAL_COL, row, loan.getPrincipal());
+        if (loan.getTotalOutstanding() != null) {
+            writeBigDecimal(LoanRepaymentConstants.LOOKUP_TOTAL_OUTSTANDING_AMOUNT_COL, row, loan.getTotalOutstanding());
+        }
+        if (loan.getDisbursementDate() != null) {
+            writeDate(LoanRepaymentConstants.LOOKUP_LOAN_DISBURSEMENT_DATE_COL, row, loan.getDisbursementDate().toString(), dateCellStyle,
+                    dateFormat);
         }
     }
 
@@ -132,9 +143,7 @@ public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
         CellRangeAddressList repaymentDateRange = new CellRangeAddressList(1, SpreadsheetVersion.EXCEL97.getLastRowIndex(),
                 LoanRepaymentConstants.REPAID_ON_DATE_COL, LoanRepaymentConstants.REPAID_ON_DATE_COL);
 
-        DataValidationHelper validationHelper = new HSSFDataValidationHelper((HSSFSheet) worksheet);
-
-        setNames(worksheet);
+        DataValidationHelper validationHelper = worksheet.getDataValidationHelper();
 
         DataValidationConstraint officeNameConstraint = validationHelper.createFormulaListConstraint("Office");
         DataValidationConstraint clientNameConstraint = validationHelper
@@ -143,7 +152,7 @@ public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
                 "INDIRECT(CONCATENATE(\"Account_\",SUBSTITUTE(SUBSTITUTE(SUBSTITUTE($B1,\" \",\"_\"),\"(\",\"_\"),\")\",\"_\")))");
         DataValidationConstraint paymentTypeConstraint = validationHelper.createFormulaListConstraint("PaymentTypes");
         DataValidationConstraint repaymentDateConstraint = validationHelper.createDateConstraint(
-                DataValidationConstraint.OperatorType.BETWEEN, "=VLOOKUP($D1,$T$2:$X$" + (allloans.size() + 1) + ",4,FALSE)", "=TODAY()",
+                DataValidationConstraint.OperatorType.BETWEEN, "=VLOOKUP($D1,$T$2:$X$" + (loanCount + 1) + ",4,FALSE)", "=TODAY()",
                 dateFormat);
 
         DataValidation officeValidation = validationHelper.createValidation(officeNameConstraint, officeNameRange);
@@ -179,42 +188,6 @@ public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
             }
         }
 
-        // Counting clients with active loans and starting and end addresses of
-        // cells
-        HashMap<String, Integer[]> clientNameToBeginEndIndexes = new HashMap<>();
-        ArrayList<String> clientsWithActiveLoans = new ArrayList<>();
-        ArrayList<String> clientIdsWithActiveLoans = new ArrayList<>();
-        int startIndex = 1;
-        int endIndex = 1;
-        String clientName = "";
-        String clientId = "";
-        for (int i = 0; i < allloans.size(); i++) {
-            if (!clientName.equals(allloans.get(i).getClientName())) {
-                endIndex = i + 1;
-                clientNameToBeginEndIndexes.put(clientName, new Integer[] { startIndex, endIndex });
-                startIndex = i + 2;
-                clientName = allloans.get(i).getClientName();
-                clientId = allloans.get(i).getClientId().toString();
-                if (!clientsWithActiveLoans.contains(clientName)) {
-                    clientsWithActiveLoans.add(clientName);
-                    clientIdsWithActiveLoans.add(clientId);
-                }
-            }
-            if (i == allloans.size() - 1) {
-                endIndex = i + 2;
-                clientNameToBeginEndIndexes.put(clientName, new Integer[] { startIndex, endIndex });
-            }
-        }
-
-        // Account Number Named after Clients
-        for (int j = 0; j < clientsWithActiveLoans.size(); j++) {
-            Name name = loanRepaymentWorkbook.createName();
-            setSanitized(name, "Account_" + clientsWithActiveLoans.get(j) + "_" + clientIdsWithActiveLoans.get(j) + "_");
-            name.setRefersToFormula(TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME + "!$T$"
-                    + clientNameToBeginEndIndexes.get(clientsWithActiveLoans.get(j))[0] + ":$T$"
-                    + clientNameToBeginEndIndexes.get(clientsWithActiveLoans.get(j))[1]);
-        }
-
         // Payment Type Name
         Name paymentTypeGroup = loanRepaymentWorkbook.createName();
         paymentTypeGroup.setNameName("PaymentTypes");
@@ -222,36 +195,41 @@ public class LoanRepaymentWorkbookPopulator extends AbstractWorkbookPopulator {
                 TemplatePopulateImportConstants.EXTRAS_SHEET_NAME + "!$D$2:$D$" + (extrasSheetPopulator.getPaymentTypesSize() + 1));
     }
 
-    private void populateLoansTable(Sheet loanRepaymentSheet, String dateFormat) {
-        int rowIndex = 1;
-        Row row;
-        Workbook workbook = loanRepaymentSheet.getWorkbook();
-        CellStyle dateCellStyle = workbook.createCellStyle();
-        short df = workbook.createDataFormat().getFormat(dateFormat);
-        dateCellStyle.setDataFormat(df);
-        SimpleDateFormat outputFormat = new SimpleDateFormat(dateFormat);
-        SimpleDateFormat inputFormat = new SimpleDateFormat("yyyy-MM-dd");
-        Date date = null;
-        Collections.sort(allloans, new LoanComparatorByStatusActive());
-        for (LoanAccountData loan : allloans) {
-            row = loanRepaymentSheet.createRow(rowIndex++);
-            writeString(LoanRepaymentConstants.LOOKUP_CLIENT_NAME_COL, row, loan.getClientName() + "(" + loan.getClientId() + ")");
-            writeString(LoanRepaymentConstants.LOOKUP_CLIENT_EXTERNAL_ID, row, clientIdToClientExternalId.get(loan.getClientId()));
-            writeString(LoanRepaymentConstants.LOOKUP_ACCOUNT_NO_COL, row, loan.getAccountNo() + "-" + loan.getStatusStringValue());
-            writeString(LoanRepaymentConstants.LOOKUP_PRODUCT_COL, row, loan.getLoanProductName());
-            writeDouble(LoanRepaymentConstants.LOOKUP_PRINCIPAL_COL, row, loan.getPrincipal().doubleValue());
-            if (loan.getTotalOutstandingAmount() != null) {
-                writeBigDecimal(LoanRepaymentConstants.LOOKUP_TOTAL_OUTSTANDING_AMOUNT_COL, row, loan.getTotalOutstandingAmount());
+    /**
+     * Names the account numbers of each client in the lookup table as the loans are written; the loans of a client are
+     * read one after the other.
+     */
+    private final class AccountNames {
+
+        private final Workbook workbook;
+        private LoanLookupData first;
+        private int startRow;
+        private int endRow;
+
+        AccountNames(Workbook workbook) {
+            this.workbook = workbook;
+        }
+
+        void add(LoanLookupData loan, int excelRow) {
+            if (first != null && !first.getClientId().equals(loan.getClientId())) {
+                close();
             }
-            if (loan.getDisbursementDate() != null) {
-                try {
-                    date = inputFormat.parse(loan.getDisbursementDate().toString());
-                } catch (ParseException e) {
-                    LOG.error("Problem occurred in populateLoansTable function", e);
-                }
-                writeDate(LoanRepaymentConstants.LOOKUP_LOAN_DISBURSEMENT_DATE_COL, row, outputFormat.format(date), dateCellStyle,
-                        dateFormat);
+            if (first == null) {
+                first = loan;
+                startRow = excelRow;
+            }
+            endRow = excelRow;
+        }
+
+        void close() {
+            if (first == null) {
+                return;
             }
+            Name name = workbook.createName();
+            setSanitized(name, "Account_" + first.getClientName() + "_" + first.getClientId() + "_");
+            name.setRefersToFormula(
+                    TemplatePopulateImportConstants.LOAN_REPAYMENT_SHEET_NAME + "!$T$" + startRow + ":$T$" + endRow);
+            first = null;
         }
     }
 
@@ -30,6 +30,10 @@ import org.apache.fineract.infrastructure.bulkimport.data.GlobalEntityType;
 import org.apache.fineract.infrastructure.bulkimport.domain.ImportDocument;
 import org.apache.fineract.infrastructure.bulkimport.domain.ImportDocumentRepository;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandler;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.StreamingImportHandler;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportProgressListener;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.ImportRowResults;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxResultWriter;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
 import org.apache.fineract.infrastructure.core.exception.GeneralPlatformDomainRuleException;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
@@ -39,11 +43,13 @@ import org.apache.fineract.infrastructure.documentmanagement.domain.Document;
 import org.apache.fineract.infrastructure.documentmanagement.service.DocumentWritePlatformService;
 import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -54,14 +60,17 @@ public class BulkImportEventListener implements ApplicationListener<BulkImportEv
     private final ApplicationContext applicationContext;
     private final ImportDocumentRepository importRepository;
     private final DocumentWritePlatformService documentService;
+    private final JdbcTemplate jdbcTemplate;
 
     @Autowired
     public BulkImportEventListener(final TenantDetailsService tenantDetailsService, final ApplicationContext context,
-            final ImportDocumentRepository importRepository, final DocumentWritePlatformService documentService) {
+            final ImportDocumentRepository importRepository, final DocumentWritePlatformService documentService,
+            final JdbcTemplate jdbcTemplate) {
         this.tenantDetailsService = tenantDetailsService;
         this.applicationContext = context;
         this.importRepository = importRepository;
         this.documentService = documentService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -137,8 +146,25 @@ public class BulkImportEventListener implements ApplicationListener<BulkImportEv
 
         }
 
-        final Workbook workbook = event.getWorkbook();
-        final Count count = importHandler.process(workbook, event.getLocale(), event.getDateFormat());
+        final Long importId = importDocument.getId();
+        final ImportProgressListener progress = (successCount, errorCount) -> this.jdbcTemplate
+                .update("UPDATE m_import_document SET success_count = ?, failure_count = ? WHERE id = ?", successCount, errorCount, importId);
+        final Count count;
+        final byte[] bytes;
+        if (event.isXlsx() && importHandler instanceof StreamingImportHandler) {
+            final ImportRowResults results = ((StreamingImportHandler) importHandler).process(event.getXlsx(), event.getLocale(),
+                    event.getDateFormat(), progress);
+            count = results.toCount();
+            bytes = XlsxResultWriter.write(event.getXlsx(), results);
+        } else {
+            final Workbook workbook = event.isXlsx() ? readXlsxWorkbook(event.getXlsx()) : event.getWorkbook();
+            if (importHandler instanceof StreamingImportHandler) {
+                count = ((StreamingImportHandler) importHandler).process(workbook, event.getLocale(), event.getDateFormat(), progress);
+            } else {
+                count = importHandler.process(workbook, event.getLocale(), event.getDateFormat());
+            }
+            bytes = write(workbook);
+        }
         importDocument.update(DateUtils.getLocalDateTimeOfTenant(), count.getSuccessCount(), count.getErrorCount());
         this.importRepository.saveAndFlush(importDocument);
 
@@ -152,6 +178,21 @@ public class BulkImportEventListener implements ApplicationListener<BulkImportEv
         DocumentCommand documentCommand = new DocumentCommand(modifiedParams, document.getId(), entityType.name(), null, document.getName(),
                 document.getFileName(), document.getSize(), URLConnection.guessContentTypeFromName(document.getFileName()), null, null);
 
+        ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+        this.documentService.updateDocument(documentCommand, bis);
+    }
+
+    private static Workbook readXlsxWorkbook(final byte[] xlsx) {
+        // handlers without a streaming implementation get the whole workbook, as for the legacy format
+        try {
+            return new XSSFWorkbook(new ByteArrayInputStream(xlsx));
+        } catch (IOException e) {
+            throw new GeneralPlatformDomainRuleException("error.msg.import.xlsx.unreadable", "The uploaded XLSX file could not be read",
+                    e);
+        }
+    }
+
+    private static byte[] write(final Workbook workbook) {
         final ByteArrayOutputStream bos = new ByteArrayOutputStream();
         try {
             try {
@@ -162,9 +203,7 @@ public class BulkImportEventListener implements ApplicationListener<BulkImportEv
         } catch (IOException io) {
             LOG.error("Problem occurred in onApplicationEvent function", io);
         }
-        byte[] bytes = bos.toByteArray();
-        ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
-        this.documentService.updateDocument(documentCommand, bis);
+        return bos.toByteArray();
     }
 
 }
@@ -24,10 +24,12 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import org.apache.fineract.accounting.glaccount.data.GLAccountData;
 import org.apache.fineract.accounting.glaccount.service.GLAccountReadPlatformService;
 import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
 import org.apache.fineract.infrastructure.bulkimport.data.GlobalEntityType;
+import org.apache.fineract.infrastructure.bulkimport.data.ImportFormatType;
 import org.apache.fineract.infrastructure.bulkimport.populator.CenterSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.ChargeSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.ClientSheetPopulator;
@@ -43,6 +45,7 @@ import org.apache.fineract.infrastructure.bulkimport.populator.RoleSheetPopulato
 import org.apache.fineract.infrastructure.bulkimport.populator.SavingsAccountSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.SavingsProductSheetPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.SharedProductsSheetPopulator;
+import org.apache.fineract.infrastructure.bulkimport.populator.StreamingWorkbookPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.WorkbookPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.centers.CentersWorkbookPopulator;
 import org.apache.fineract.infrastructure.bulkimport.populator.chartofaccounts.ChartOfAccountsWorkbook;
@@ -108,6 +111,7 @@ import org.apache.fineract.useradministration.data.RoleData;
 import org.apache.fineract.useradministration.service.RoleReadPlatformService;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -117,6 +121,7 @@ import org.springframework.stereotype.Service;
 public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkbookPopulatorService {
 
     private static final Logger LOG = LoggerFactory.getLogger(BulkImportWorkbookPopulatorServiceImpl.class);
+    private static final int STREAMING_ROW_WINDOW = 100;
     private final PlatformSecurityContext context;
     private final OfficeReadPlatformService officeReadPlatformService;
     private final StaffReadPlatformService staffReadPlatformService;
@@ -136,6 +141,7 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
     private final ChargeReadPlatformService chargeReadPlatformService;
     private final DepositProductReadPlatformService depositProductReadPlatformService;
     private final RoleReadPlatformService roleReadPlatformService;
+    private final TemplateLookupReadService templateLookupReadService;
 
     @Autowired
     public BulkImportWorkbookPopulatorServiceImpl(final PlatformSecurityContext context,
@@ -151,7 +157,7 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
             final SavingsProductReadPlatformService savingsProductReadPlatformService,
             final ProductReadPlatformService productReadPlatformService, final ChargeReadPlatformService chargeReadPlatformService,
             final DepositProductReadPlatformService depositProductReadPlatformService,
-            final RoleReadPlatformService roleReadPlatformService) {
+            final RoleReadPlatformService roleReadPlatformService, final TemplateLookupReadService templateLookupReadService) {
         this.officeReadPlatformService = officeReadPlatformService;
         this.staffReadPlatformService = staffReadPlatformService;
         this.context = context;
@@ -171,12 +177,12 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
         this.chargeReadPlatformService = chargeReadPlatformService;
         this.depositProductReadPlatformService = depositProductReadPlatformService;
         this.roleReadPlatformService = roleReadPlatformService;
+        this.templateLookupReadService = templateLookupReadService;
     }
 
     @Override
     public Response getTemplate(String entityType, Long officeId, Long staffId, final String dateFormat) {
         WorkbookPopulator populator = null;
-        final Workbook workbook = new HSSFWorkbook();
         if (entityType != null) {
             if (entityType.trim().equalsIgnoreCase(GlobalEntityType.CLIENTS_PERSON.toString())
                     || entityType.trim().equalsIgnoreCase(GlobalEntityType.CLIENTS_ENTTTY.toString())) {
@@ -218,6 +224,10 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
             } else {
                 throw new GeneralPlatformDomainRuleException("error.msg.unable.to.find.resource", "Unable to find requested resource");
             }
+            if (populator instanceof StreamingWorkbookPopulator) {
+                return buildStreamingResponse(populator, entityType, dateFormat);
+            }
+            final Workbook workbook = new HSSFWorkbook();
             populator.populate(workbook, dateFormat);
             return buildResponse(workbook, entityType);
         } else {
@@ -265,6 +275,33 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
         return response.build();
     }
 
+    /**
+     * Fills a workbook that keeps only {@link #STREAMING_ROW_WINDOW} rows per sheet in memory and flushes the others to a
+     * temporary file, which is written to the HTTP response as it is sent.
+     */
+    private Response buildStreamingResponse(final WorkbookPopulator populator, final String entity, final String dateFormat) {
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+        try {
+            populator.populate(workbook, dateFormat);
+        } catch (RuntimeException e) {
+            workbook.dispose();
+            throw e;
+        }
+        final StreamingOutput output = out -> {
+            try {
+                workbook.write(out);
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        };
+        String filename = entity + DateUtils.getLocalDateOfTenant().toString() + ".xlsx";
+        final ResponseBuilder response = Response.ok(output);
+        response.header("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+        response.header("Content-Type", ImportFormatType.XLSX.getFormat());
+        return response.build();
+    }
+
     @SuppressWarnings("unchecked")
     private List<OfficeData> fetchOffices(final Long officeId) {
         List<OfficeData> offices = null;
@@ -433,12 +470,12 @@ public class BulkImportWorkbookPopulatorServiceImpl implements BulkImportWorkboo
         this.context.authenticatedUser().validateHasReadPermission(TemplatePopulateImportConstants.PAYMENT_TYPE_ENTITY_TYPE);
         this.context.authenticatedUser().validateHasReadPermission(TemplatePopulateImportConstants.CURRENCY_ENTITY_TYPE);
         List<OfficeData> offices = fetchOffices(officeId);
-        List<ClientData> clients = fetchClients(officeId);
         List<FundData> funds = fetchFunds();
         List<PaymentTypeData> paymentTypes = fetchPaymentTypes();
         List<CurrencyData> currencies = fetchCurrencies();
-        List<LoanAccountData> loans = fetchLoanAccounts(officeId);
-        return new LoanRepaymentWorkbookPopulator(loans, new OfficeSheetPopulator(offices), new ClientSheetPopulator(clients, offices),
+        // clients and loans are read with a cursor while the sheets are written
+        return new LoanRepaymentWorkbookPopulator(this.templateLookupReadService, officeId, new OfficeSheetPopulator(offices),
+                new ClientSheetPopulator(this.templateLookupReadService, offices),
                 new ExtrasSheetPopulator(funds, paymentTypes, currencies));
     }
 
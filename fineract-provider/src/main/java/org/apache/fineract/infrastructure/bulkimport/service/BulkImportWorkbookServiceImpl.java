@@ -28,6 +28,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Locale;
 import javax.ws.rs.core.Response;
 import org.apache.commons.io.IOUtils;
 import org.apache.fineract.infrastructure.bulkimport.data.BulkImportEvent;
@@ -36,6 +37,7 @@ import org.apache.fineract.infrastructure.bulkimport.data.ImportData;
 import org.apache.fineract.infrastructure.bulkimport.domain.ImportDocument;
 import org.apache.fineract.infrastructure.bulkimport.domain.ImportDocumentRepository;
 import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.streaming.XlsxSheetReader;
 import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
 import org.apache.fineract.infrastructure.core.exception.GeneralPlatformDomainRuleException;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
@@ -96,7 +98,10 @@ public class BulkImportWorkbookServiceImpl implements BulkImportWorkbookService
                 final Tika tika = new Tika();
                 final TikaInputStream tikaInputStream = TikaInputStream.get(clonedInputStream);
                 final String fileType = tika.detect(tikaInputStream);
-                if (!fileType.contains("msoffice") && !fileType.contains("application/vnd.ms-excel")) {
+                // without the office parsers Tika may only see the zip container of an XLSX file
+                final boolean xlsx = fileType.contains("ooxml") || fileType.contains("spreadsheetml")
+                        || fileType.equals("application/zip") && fileDetail.getFileName().toLowerCase(Locale.ROOT).endsWith(".xlsx");
+                if (!xlsx && !fileType.contains("msoffice") && !fileType.contains("application/vnd.ms-excel")) {
                     // We had a problem where we tried to upload the downloaded
                     // file from the import options, it was somehow changed the
                     // extension we use this fix.
@@ -104,7 +109,8 @@ public class BulkImportWorkbookServiceImpl implements BulkImportWorkbookService
                             "Uploaded file extension is not recognized.");
 
                 }
-                Workbook workbook = new HSSFWorkbook(clonedInputStreamWorkbook);
+                // XLSX uploads are read as a stream by the import, only the legacy format needs a workbook
+                Workbook workbook = xlsx ? null : new HSSFWorkbook(clonedInputStreamWorkbook);
                 GlobalEntityType entityType = null;
                 int primaryColumn = 0;
                 if (entity.trim().equalsIgnoreCase(GlobalEntityType.CLIENTS_PERSON.toString())) {
@@ -165,10 +171,15 @@ public class BulkImportWorkbookServiceImpl implements BulkImportWorkbookService
                     entityType = GlobalEntityType.USERS;
                     primaryColumn = 0;
                 } else {
-                    workbook.close();
+                    if (workbook != null) {
+                        workbook.close();
+                    }
                     throw new GeneralPlatformDomainRuleException("error.msg.unable.to.find.resource", "Unable to find requested resource");
 
                 }
+                if (xlsx) {
+                    return publishXlsxEvent(primaryColumn, fileDetail, bytes, entityType, locale, dateFormat);
+                }
                 return publishEvent(primaryColumn, fileDetail, clonedInputStreamWorkbook, entityType, workbook, locale, dateFormat);
             }
             throw new GeneralPlatformDomainRuleException("error.msg.null", "One or more of the given parameters not found");
@@ -201,6 +212,26 @@ public class BulkImportWorkbookServiceImpl implements BulkImportWorkbookService
         return importDocument.getId();
     }
 
+    private Long publishXlsxEvent(final Integer primaryColumn, final FormDataContentDisposition fileDetail, final byte[] xlsx,
+            final GlobalEntityType entityType, final String locale, final String dateFormat) {
+
+        final String fileName = fileDetail.getFileName();
+
+        final Long documentId = this.documentWritePlatformService.createInternalDocument(
+                DocumentWritePlatformServiceJpaRepositoryImpl.DocumentManagementEntity.IMPORT.name(),
+                this.securityContext.authenticatedUser().getId(), null, new ByteArrayInputStream(xlsx),
+                URLConnection.guessContentTypeFromName(fileName), fileName, null, fileName);
+        final Document document = this.documentRepository.findById(documentId).orElse(null);
+
+        final ImportDocument importDocument = ImportDocument.instance(document, DateUtils.getLocalDateTimeOfTenant(), entityType.getValue(),
+                this.securityContext.authenticatedUser(), XlsxSheetReader.countRows(xlsx, primaryColumn));
+        this.importDocumentRepository.saveAndFlush(importDocument);
+        BulkImportEvent event = BulkImportEvent.xlsxInstance(ThreadLocalContextUtil.getTenant().getTenantIdentifier(), xlsx,
+                importDocument.getId(), locale, dateFormat);
+        applicationContext.publishEvent(event);
+        return importDocument.getId();
+    }
+
     @Override
     public Collection<ImportData> getImports(GlobalEntityType type) {
         this.securityContext.authenticatedUser();
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.service;
+
+import java.util.function.Consumer;
+import org.apache.fineract.infrastructure.bulkimport.data.LoanLookupData;
+import org.apache.fineract.portfolio.client.data.ClientData;
+
+/**
+ * Reads the lookup rows of the import templates with a database cursor and hands them over one at a time, so that a
+ * template for a large office never holds all its clients or loans in memory.
+ */
+public interface TemplateLookupReadService {
+
+    /**
+     * Passes the clients of the office, in id order, as {@link ClientData#lookup} instances.
+     */
+    void forEachClient(Long officeId, Consumer<ClientData> consumer);
+
+    /**
+     * @param officeId
+     *            the office of the loan clients, or null for all offices of the user
+     */
+    int countLoans(Long officeId);
+
+    /**
+     * Passes the client loans, grouped by client and with the active loans of a client first.
+     */
+    void forEachLoan(Long officeId, Consumer<LoanLookupData> consumer);
+}
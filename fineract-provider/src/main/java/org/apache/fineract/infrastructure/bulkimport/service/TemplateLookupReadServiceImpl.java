@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.apache.fineract.infrastructure.bulkimport.data.LoanLookupData;
+import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
+import org.apache.fineract.infrastructure.core.service.RoutingDataSource;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.portfolio.client.data.ClientData;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanStatus;
+import org.apache.fineract.portfolio.loanproduct.service.LoanEnumerations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class TemplateLookupReadServiceImpl implements TemplateLookupReadService {
+
+    // rows fetched per round trip; PostgreSQL only uses a cursor inside a transaction, MySQL needs useCursorFetch=true
+    private static final int FETCH_SIZE = 500;
+
+    private static final String LOAN_FROM = " from m_loan l join m_client c on c.id = l.client_id join m_office o on o.id = c.office_id"
+            + " join m_product_loan lp on lp.id = l.product_id"
+            + " left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id"
+            + " where (o.hierarchy like ? or transferToOffice.hierarchy like ?)";
+
+    private final PlatformSecurityContext context;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TemplateLookupReadServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource) {
+        this.context = context;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachClient(final Long officeId, final Consumer<ClientData> consumer) {
+        final String hierarchy = this.context.officeHierarchy() + "%";
+        this.jdbcTemplate.query("select c.id as id, c.display_name as displayName, o.id as officeId, o.name as officeName"
+                + " from m_client c join m_office o on o.id = c.office_id where c.office_id = ? and o.hierarchy like ? order by c.id",
+                (RowCallbackHandler) rs -> consumer.accept(ClientData.lookup(rs.getLong("id"), rs.getString("displayName"),
+                        rs.getLong("officeId"), rs.getString("officeName"))),
+                officeId, hierarchy);
+    }
+
+    @Override
+    public int countLoans(final Long officeId) {
+        final List<Object> params = loanParams(officeId);
+        final Integer count = this.jdbcTemplate.queryForObject("select count(*)" + LOAN_FROM + officeCriteria(officeId), Integer.class,
+                params.toArray());
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachLoan(final Long officeId, final Consumer<LoanLookupData> consumer) {
+        final List<Object> params = loanParams(officeId);
+        params.add(LoanStatus.ACTIVE.getValue());
+        final String sql = "select c.id as clientId, c.display_name as clientName, c.external_id as clientExternalId,"
+                + " l.account_no as accountNo, l.loan_status_id as statusId, lp.name as productName, l.principal_amount as principal,"
+                + " l.total_outstanding_derived as totalOutstanding, l.disbursedon_date as disbursementDate" + LOAN_FROM
+                + officeCriteria(officeId) + " order by c.id, case when l.loan_status_id = ? then 0 else 1 end, l.id";
+        this.jdbcTemplate.query(sql,
+                (RowCallbackHandler) rs -> consumer.accept(new LoanLookupData(rs.getLong("clientId"), rs.getString("clientName"),
+                        rs.getString("clientExternalId"), rs.getString("accountNo"),
+                        LoanEnumerations.status(JdbcSupport.getInteger(rs, "statusId")).value(), rs.getString("productName"),
+                        rs.getBigDecimal("principal"), rs.getBigDecimal("totalOutstanding"),
+                        JdbcSupport.getLocalDate(rs, "disbursementDate"))),
+                params.toArray());
+    }
+
+    private List<Object> loanParams(final Long officeId) {
+        final String hierarchy = this.context.officeHierarchy() + "%";
+        final List<Object> params = new ArrayList<>();
+        params.add(hierarchy);
+        params.add(hierarchy);
+        if (officeId != null) {
+            params.add(officeId);
+        }
+        return params;
+    }
+
+    private static String officeCriteria(final Long officeId) {
+        return officeId == null ? "" : " and c.office_id = ?";
+    }
+}
@@ -55,8 +55,10 @@ public class CacheConfig {
         cacheManager.createCache("offices", defaultTemplate);
         cacheManager.createCache("officesForDropdown", defaultTemplate);
         cacheManager.createCache("officesById", defaultTemplate);
+        cacheManager.createCache("officeSubtrees", defaultTemplate);
         cacheManager.createCache("charges", defaultTemplate);
         cacheManager.createCache("funds", defaultTemplate);
+        cacheManager.createCache("loanTransactionProcessingStrategies", defaultTemplate);
         cacheManager.createCache("code_values", defaultTemplate);
         cacheManager.createCache("codes", defaultTemplate);
         cacheManager.createCache("hooks", defaultTemplate);
@@ -68,6 +70,20 @@ public class CacheConfig {
 
         cacheManager.createCache("userTFAccessToken", accessTokenTemplate);
 
+        javax.cache.configuration.Configuration<Object, Object> collectionSheetTemplate = Eh107Configuration
+                .fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                        .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(1000))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofMinutes(5))).build());
+
+        cacheManager.createCache("collectionSheets", collectionSheetTemplate);
+
+        // the time to live bounds how long a node keeps using mappings changed on another node
+        javax.cache.configuration.Configuration<Object, Object> accountingTemplate = Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(1000))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofMinutes(1))).build());
+
+        cacheManager.createCache("productToGLAccountMappings", accountingTemplate);
+
         return cacheManager;
     }
 }
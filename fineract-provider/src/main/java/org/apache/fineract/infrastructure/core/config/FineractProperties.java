@@ -28,6 +28,22 @@ public class FineractProperties {
 
     private FineractTenantProperties tenant;
 
+    private FineractPersistenceProperties persistence = new FineractPersistenceProperties();
+
+    private FineractQueryProperties query = new FineractQueryProperties();
+
+    private FineractBulkImportProperties bulkImport = new FineractBulkImportProperties();
+
+    private FineractReportMailingProperties reportMailing = new FineractReportMailingProperties();
+
+    private FineractContentProperties content = new FineractContentProperties();
+
+    private FineractTenantUpgradeProperties tenantUpgrade = new FineractTenantUpgradeProperties();
+
+    private FineractCollectionSheetProperties collectionSheet = new FineractCollectionSheetProperties();
+
+    private FineractBatchExecutorProperties batchExecutor = new FineractBatchExecutorProperties();
+
     public String getNodeId() {
         return nodeId;
     }
@@ -44,6 +60,70 @@ public class FineractProperties {
         this.tenant = tenant;
     }
 
+    public FineractPersistenceProperties getPersistence() {
+        return persistence;
+    }
+
+    public void setPersistence(FineractPersistenceProperties persistence) {
+        this.persistence = persistence;
+    }
+
+    public FineractQueryProperties getQuery() {
+        return query;
+    }
+
+    public void setQuery(FineractQueryProperties query) {
+        this.query = query;
+    }
+
+    public FineractBulkImportProperties getBulkImport() {
+        return bulkImport;
+    }
+
+    public void setBulkImport(FineractBulkImportProperties bulkImport) {
+        this.bulkImport = bulkImport;
+    }
+
+    public FineractReportMailingProperties getReportMailing() {
+        return reportMailing;
+    }
+
+    public void setReportMailing(FineractReportMailingProperties reportMailing) {
+        this.reportMailing = reportMailing;
+    }
+
+    public FineractContentProperties getContent() {
+        return content;
+    }
+
+    public void setContent(FineractContentProperties content) {
+        this.content = content;
+    }
+
+    public FineractTenantUpgradeProperties getTenantUpgrade() {
+        return tenantUpgrade;
+    }
+
+    public void setTenantUpgrade(FineractTenantUpgradeProperties tenantUpgrade) {
+        this.tenantUpgrade = tenantUpgrade;
+    }
+
+    public FineractCollectionSheetProperties getCollectionSheet() {
+        return collectionSheet;
+    }
+
+    public void setCollectionSheet(FineractCollectionSheetProperties collectionSheet) {
+        this.collectionSheet = collectionSheet;
+    }
+
+    public FineractBatchExecutorProperties getBatchExecutor() {
+        return batchExecutor;
+    }
+
+    public void setBatchExecutor(FineractBatchExecutorProperties batchExecutor) {
+        this.batchExecutor = batchExecutor;
+    }
+
     public static class FineractTenantProperties {
 
         private String host;
@@ -128,4 +208,180 @@ public class FineractProperties {
             this.description = description;
         }
     }
+
+    public static class FineractPersistenceProperties {
+
+        private boolean batchWritingEnabled;
+        private int batchWritingSize = 100;
+        private int idPreallocationSize = 50;
+
+        public boolean isBatchWritingEnabled() {
+            return batchWritingEnabled;
+        }
+
+        public void setBatchWritingEnabled(boolean batchWritingEnabled) {
+            this.batchWritingEnabled = batchWritingEnabled;
+        }
+
+        public int getBatchWritingSize() {
+            return batchWritingSize;
+        }
+
+        public void setBatchWritingSize(int batchWritingSize) {
+            this.batchWritingSize = batchWritingSize;
+        }
+
+        public int getIdPreallocationSize() {
+            return idPreallocationSize;
+        }
+
+        public void setIdPreallocationSize(int idPreallocationSize) {
+            this.idPreallocationSize = idPreallocationSize;
+        }
+    }
+
+    public static class FineractQueryProperties {
+
+        private int associationLoaderPoolSize = 16;
+        private int associationLoaderQueueCapacity = 500;
+
+        public int getAssociationLoaderPoolSize() {
+            return associationLoaderPoolSize;
+        }
+
+        public void setAssociationLoaderPoolSize(int associationLoaderPoolSize) {
+            this.associationLoaderPoolSize = associationLoaderPoolSize;
+        }
+
+        public int getAssociationLoaderQueueCapacity() {
+            return associationLoaderQueueCapacity;
+        }
+
+        public void setAssociationLoaderQueueCapacity(int associationLoaderQueueCapacity) {
+            this.associationLoaderQueueCapacity = associationLoaderQueueCapacity;
+        }
+    }
+
+    public static class FineractBulkImportProperties {
+
+        private int threadPoolSize = 4;
+        private int maxPendingRows = 1000;
+
+        public int getThreadPoolSize() {
+            return threadPoolSize;
+        }
+
+        public void setThreadPoolSize(int threadPoolSize) {
+            this.threadPoolSize = threadPoolSize;
+        }
+
+        public int getMaxPendingRows() {
+            return maxPendingRows;
+        }
+
+        public void setMaxPendingRows(int maxPendingRows) {
+            this.maxPendingRows = maxPendingRows;
+        }
+    }
+
+    public static class FineractReportMailingProperties {
+
+        private int renderPoolSize = 2;
+        private int deliveryPoolSize = 4;
+        private int queueCapacity = 100;
+
+        public int getRenderPoolSize() {
+            return renderPoolSize;
+        }
+
+        public void setRenderPoolSize(int renderPoolSize) {
+            this.renderPoolSize = renderPoolSize;
+        }
+
+        public int getDeliveryPoolSize() {
+            return deliveryPoolSize;
+        }
+
+        public void setDeliveryPoolSize(int deliveryPoolSize) {
+            this.deliveryPoolSize = deliveryPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class FineractContentProperties {
+
+        private String thumbnailCacheDirectory;
+        private long thumbnailCacheSizeMb = 256;
+
+        public String getThumbnailCacheDirectory() {
+            return thumbnailCacheDirectory;
+        }
+
+        public void setThumbnailCacheDirectory(String thumbnailCacheDirectory) {
+            this.thumbnailCacheDirectory = thumbnailCacheDirectory;
+        }
+
+        public long getThumbnailCacheSizeMb() {
+            return thumbnailCacheSizeMb;
+        }
+
+        public void setThumbnailCacheSizeMb(long thumbnailCacheSizeMb) {
+            this.thumbnailCacheSizeMb = thumbnailCacheSizeMb;
+        }
+    }
+
+    public static class FineractTenantUpgradeProperties {
+
+        private int threadPoolSize = 4;
+        private boolean lazy;
+
+        public int getThreadPoolSize() {
+            return threadPoolSize;
+        }
+
+        public void setThreadPoolSize(int threadPoolSize) {
+            this.threadPoolSize = threadPoolSize;
+        }
+
+        public boolean isLazy() {
+            return lazy;
+        }
+
+        public void setLazy(boolean lazy) {
+            this.lazy = lazy;
+        }
+    }
+
+    public static class FineractCollectionSheetProperties {
+
+        private int threadPoolSize = 4;
+
+        public int getThreadPoolSize() {
+            return threadPoolSize;
+        }
+
+        public void setThreadPoolSize(int threadPoolSize) {
+            this.threadPoolSize = threadPoolSize;
+        }
+    }
+
+    public static class FineractBatchExecutorProperties {
+
+        private int poolSize = 16;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+    }
 }
@@ -19,10 +19,12 @@
 
 package org.apache.fineract.infrastructure.core.config;
 
+import java.util.HashMap;
 import java.util.Map;
 import org.apache.fineract.infrastructure.core.domain.AuditorAwareImpl;
 import org.apache.fineract.infrastructure.core.persistence.DatabaseSelectingPersistenceUnitPostProcessor;
 import org.apache.fineract.infrastructure.core.persistence.ExtendedJpaTransactionManager;
+import org.apache.fineract.infrastructure.core.persistence.PooledIdSequencingSessionCustomizer;
 import org.apache.fineract.infrastructure.core.service.RoutingDataSource;
 import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
 import org.apache.fineract.useradministration.domain.AppUser;
@@ -57,11 +59,13 @@ import org.springframework.transaction.support.TransactionTemplate;
 public class JPAConfig extends JpaBaseConfiguration {
 
     private final DatabaseTypeResolver databaseTypeResolver;
+    private final FineractProperties fineractProperties;
 
     public JPAConfig(RoutingDataSource dataSource, JpaProperties properties, ObjectProvider<JtaTransactionManager> jtaTransactionManager,
-            DatabaseTypeResolver databaseTypeResolver) {
+            DatabaseTypeResolver databaseTypeResolver, FineractProperties fineractProperties) {
         super(dataSource, properties, jtaTransactionManager);
         this.databaseTypeResolver = databaseTypeResolver;
+        this.fineractProperties = fineractProperties;
     }
 
     @Override
@@ -91,8 +95,19 @@ public class JPAConfig extends JpaBaseConfiguration {
 
     @Override
     protected Map<String, Object> getVendorProperties() {
-        return Map.of(PersistenceUnitProperties.WEAVING, "static", PersistenceUnitProperties.PERSISTENCE_CONTEXT_CLOSE_ON_COMMIT, "true",
-                PersistenceUnitProperties.CACHE_SHARED_DEFAULT, "false");
+        Map<String, Object> vendorProperties = new HashMap<>();
+        vendorProperties.put(PersistenceUnitProperties.WEAVING, "static");
+        vendorProperties.put(PersistenceUnitProperties.PERSISTENCE_CONTEXT_CLOSE_ON_COMMIT, "true");
+        vendorProperties.put(PersistenceUnitProperties.CACHE_SHARED_DEFAULT, "false");
+        FineractProperties.FineractPersistenceProperties persistence = fineractProperties.getPersistence();
+        if (persistence != null && persistence.isBatchWritingEnabled()) {
+            vendorProperties.put(PersistenceUnitProperties.BATCH_WRITING, "JDBC");
+            vendorProperties.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, String.valueOf(persistence.getBatchWritingSize()));
+            vendorProperties.put(PersistenceUnitProperties.SESSION_CUSTOMIZER, PooledIdSequencingSessionCustomizer.class.getName());
+            vendorProperties.put(PooledIdSequencingSessionCustomizer.ID_PREALLOCATION_SIZE_PROPERTY,
+                    String.valueOf(persistence.getIdPreallocationSize()));
+        }
+        return vendorProperties;
     }
 
     @Bean
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.persistence;
+
+import java.util.Set;
+import javax.sql.DataSource;
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.sessions.JNDIConnector;
+import org.eclipse.persistence.sessions.Session;
+
+/**
+ * Switches the id generation of the high volume tables from IDENTITY to {@link TenantPooledTableSequence}, so that
+ * EclipseLink knows the ids before the insert and is able to group the inserts into JDBC batches.
+ *
+ * Only registered when <code>fineract.persistence.batch-writing-enabled</code> is set, see {@code JPAConfig}.
+ */
+public class PooledIdSequencingSessionCustomizer implements SessionCustomizer {
+
+    public static final String ID_PREALLOCATION_SIZE_PROPERTY = "fineract.persistence.id-preallocation-size";
+
+    static final Set<String> POOLED_ID_TABLES = Set.of("acc_gl_journal_entry", "m_loan_repayment_schedule", "m_savings_account_transaction",
+            "m_portfolio_command_source");
+
+    private static final int DEFAULT_ID_PREALLOCATION_SIZE = 50;
+
+    @Override
+    public void customize(Session session) {
+        final DataSource dataSource = ((JNDIConnector) session.getLogin().getConnector()).getDataSource();
+        final int preallocationSize = resolvePreallocationSize(session.getProperty(ID_PREALLOCATION_SIZE_PROPERTY));
+        for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+            final String tableName = descriptor.getTableName();
+            if (tableName != null && POOLED_ID_TABLES.contains(tableName.toLowerCase())) {
+                final TenantPooledTableSequence sequence = new TenantPooledTableSequence(tableName.toLowerCase(), preallocationSize,
+                        dataSource);
+                session.getLogin().addSequence(sequence);
+                TenantPooledTableSequence.register(sequence);
+                descriptor.setSequenceNumberName(sequence.getName());
+                descriptor.setSequence(sequence);
+            }
+        }
+    }
+
+    private static int resolvePreallocationSize(Object configured) {
+        if (configured instanceof Number) {
+            return ((Number) configured).intValue();
+        }
+        if (configured instanceof String) {
+            return Integer.parseInt((String) configured);
+        }
+        return DEFAULT_ID_PREALLOCATION_SIZE;
+    }
+}
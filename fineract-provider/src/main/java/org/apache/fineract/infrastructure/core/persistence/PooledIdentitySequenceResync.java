@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.persistence;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the PostgreSQL identity sequences of the pooled id tables past the ids handed out by
+ * {@link TenantPooledTableSequence}.
+ *
+ * Pooled ids are inserted explicitly, which leaves the identity sequence where it was, so once batch writing is switched
+ * off again the sequence would hand out ids that are already taken. MySQL moves AUTO_INCREMENT past explicit ids by
+ * itself and needs nothing here. The resync only ever moves a sequence forward and is cheap, so it runs for every tenant
+ * on each start while batch writing is off.
+ */
+@Component
+public class PooledIdentitySequenceResync {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledIdentitySequenceResync.class);
+
+    private final FineractProperties fineractProperties;
+    private final DatabaseTypeResolver databaseTypeResolver;
+
+    @Autowired
+    public PooledIdentitySequenceResync(final FineractProperties fineractProperties, final DatabaseTypeResolver databaseTypeResolver) {
+        this.fineractProperties = fineractProperties;
+        this.databaseTypeResolver = databaseTypeResolver;
+    }
+
+    public void resync(final DataSource tenantDataSource) {
+        final FineractProperties.FineractPersistenceProperties persistence = this.fineractProperties.getPersistence();
+        if ((persistence != null && persistence.isBatchWritingEnabled()) || !this.databaseTypeResolver.isPostgreSQL()) {
+            return;
+        }
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(tenantDataSource);
+        for (final String tableName : PooledIdSequencingSessionCustomizer.POOLED_ID_TABLES) {
+            final String sequenceName = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence(?, 'id')", String.class, tableName);
+            if (sequenceName == null) {
+                continue;
+            }
+            // a sequence that was never called hands out last_value itself next, hence the >=
+            final List<Long> resynced = jdbcTemplate.queryForList("SELECT setval('" + sequenceName.replace("'", "''")
+                    + "', max_id) FROM (SELECT MAX(id) AS max_id FROM " + tableName + ") ids WHERE max_id >= (SELECT last_value FROM "
+                    + sequenceName + ")", Long.class);
+            if (!resynced.isEmpty()) {
+                LOG.info("Moved the identity sequence {} past the pooled id {}", sequenceName, resynced.get(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.sequencing.Sequence;
+
+/**
+ * Table backed id generator which hands out ids from blocks preallocated in <code>m_id_sequence</code>.
+ *
+ * EclipseLink keeps its own preallocation pools per session, and the session is shared by every tenant, so the blocks
+ * are kept here per tenant instead and EclipseLink is told not to preallocate. A block is reserved on a separate
+ * connection of the (tenant routed) data source so that the sequence row lock is never held for the length of a
+ * business transaction.
+ */
+public class TenantPooledTableSequence extends Sequence {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String RESYNC_SQL = "UPDATE m_id_sequence SET next_value = GREATEST(next_value, (SELECT COALESCE(MAX(id), 0) FROM %s)) WHERE sequence_name = ?";
+    private static final String RESERVE_SQL = "UPDATE m_id_sequence SET next_value = next_value + ? WHERE sequence_name = ?";
+    private static final String SELECT_SQL = "SELECT next_value FROM m_id_sequence WHERE sequence_name = ?";
+
+    private static final Map<String, TenantPooledTableSequence> SEQUENCES_BY_TABLE = new ConcurrentHashMap<>();
+
+    private final transient DataSource dataSource;
+    private final String tableName;
+    private final transient Map<String, IdBlock> blocksByTenant = new ConcurrentHashMap<>();
+
+    public TenantPooledTableSequence(final String tableName, final int preallocationSize, final DataSource dataSource) {
+        super(tableName, preallocationSize);
+        this.tableName = tableName;
+        this.dataSource = dataSource;
+    }
+
+    static void register(final TenantPooledTableSequence sequence) {
+        SEQUENCES_BY_TABLE.put(sequence.tableName, sequence);
+    }
+
+    /**
+     * Returns the sequence of the given table, or <code>null</code> when its ids are generated by IDENTITY. Code inserting
+     * into a pooled table with plain JDBC must take its ids from here, otherwise it may take an id of a block that is
+     * already handed out.
+     */
+    public static TenantPooledTableSequence forTable(final String tableName) {
+        return SEQUENCES_BY_TABLE.get(tableName);
+    }
+
+    /**
+     * Returns the next id of the current tenant.
+     */
+    public long nextId() {
+        return (Long) getGeneratedValue(null, null, getName());
+    }
+
+    @Override
+    public boolean shouldAcquireValueAfterInsert() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUseTransaction() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUsePreallocation() {
+        // preallocation is done per tenant in this class
+        return false;
+    }
+
+    @Override
+    public Object getGeneratedValue(final Accessor accessor, final AbstractSession writeSession, final String seqName) {
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final String tenantIdentifier = tenant == null ? "" : tenant.getTenantIdentifier();
+        return this.blocksByTenant.computeIfAbsent(tenantIdentifier, key -> new IdBlock()).next();
+    }
+
+    @Override
+    public Vector getGeneratedVector(final Accessor accessor, final AbstractSession writeSession, final String seqName, final int size) {
+        return null;
+    }
+
+    @Override
+    public void onConnect() {
+        // nothing to prepare
+    }
+
+    @Override
+    public void onDisconnect() {
+        this.blocksByTenant.clear();
+    }
+
+    private final class IdBlock {
+
+        private boolean synced;
+        private long nextId;
+        private long lastId;
+
+        synchronized long next() {
+            if (this.nextId == 0 || this.nextId > this.lastId) {
+                reserve();
+            }
+            return this.nextId++;
+        }
+
+        private void reserve() {
+            final int size = getPreallocationSize();
+            try (Connection connection = TenantPooledTableSequence.this.dataSource.getConnection()) {
+                final boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    if (!this.synced) {
+                        // ids may have been issued by IDENTITY inserts while this mode was switched off
+                        try (PreparedStatement resync = connection.prepareStatement(String.format(RESYNC_SQL, tableName))) {
+                            resync.setString(1, tableName);
+                            resync.executeUpdate();
+                        }
+                    }
+                    try (PreparedStatement reserve = connection.prepareStatement(RESERVE_SQL)) {
+                        reserve.setInt(1, size);
+                        reserve.setString(2, tableName);
+                        if (reserve.executeUpdate() != 1) {
+                            throw new IllegalStateException("No id sequence row found in m_id_sequence for table " + tableName);
+                        }
+                    }
+                    final long reservedUpTo;
+                    try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+                        select.setString(1, tableName);
+                        try (ResultSet rs = select.executeQuery()) {
+                            rs.next();
+                            reservedUpTo = rs.getLong(1);
+                        }
+                    }
+                    connection.commit();
+                    this.synced = true;
+                    this.lastId = reservedUpTo;
+                    this.nextId = reservedUpTo - size + 1;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not reserve ids for table " + tableName, e);
+            }
+        }
+    }
+}
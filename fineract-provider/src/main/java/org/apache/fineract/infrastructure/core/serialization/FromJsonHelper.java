@@ -23,6 +23,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.security.InvalidParameterException;
@@ -83,13 +88,35 @@ public class FromJsonHelper {
             throw new InvalidJsonException();
         }
 
-        final Map<String, Object> requestMap = this.gsonConverter.fromJson(json, typeOfMap);
-
+        // only the top level names are needed, they are read off the JSON without building the request as a map of
+        // objects, and a name given twice is rejected like deserializing the request into typeOfMap rejects it
+        final Set<String> providedParameters = new HashSet<>();
         final List<String> unsupportedParameterList = new ArrayList<>();
-        for (final String providedParameter : requestMap.keySet()) {
-            if (!supportedParams.contains(providedParameter)) {
-                unsupportedParameterList.add(providedParameter);
+        try {
+            final JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                // keep failing the way deserializing the request into typeOfMap fails
+                this.gsonConverter.fromJson(json, typeOfMap);
+                throw new InvalidJsonException();
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String providedParameter = reader.nextName();
+                if (!providedParameters.add(providedParameter)) {
+                    throw new JsonSyntaxException("duplicate key: " + providedParameter);
+                }
+                if (!supportedParams.contains(providedParameter)) {
+                    unsupportedParameterList.add(providedParameter);
+                }
+                reader.skipValue();
             }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+        } catch (final IOException e) {
+            throw new JsonSyntaxException(e);
         }
 
         if (!unsupportedParameterList.isEmpty()) {
@@ -97,6 +124,21 @@ public class FromJsonHelper {
         }
     }
 
+    /**
+     * Checks the parameters of a command against its JSON as parsed by {@link #parseCommand(String)}, sparing the
+     * validators another pass over the JSON string. A name given twice was already rejected when parsing it.
+     */
+    public void checkForUnsupportedParameters(final JsonElement element, final Collection<String> supportedParams) {
+        if (element == null || element.isJsonNull()) {
+            throw new InvalidJsonException();
+        }
+        if (!element.isJsonObject()) {
+            // keep failing the way deserializing the request into a map fails
+            throw new JsonSyntaxException("Expected BEGIN_OBJECT but was " + (element.isJsonArray() ? "BEGIN_ARRAY" : "a value"));
+        }
+        checkForUnsupportedParameters(element.getAsJsonObject(), supportedParams);
+    }
+
     public void checkForUnsupportedParameters(final JsonObject object, final Collection<String> supportedParams) {
         if (object == null) {
             throw new InvalidParameterException();
@@ -150,6 +192,44 @@ public class FromJsonHelper {
         return parsedElement;
     }
 
+    /**
+     * Parses the JSON of a command into the tree its <code>JsonCommand</code> carries. Unlike {@link #parse(String)} a
+     * top level name given twice is rejected, as {@link #checkForUnsupportedParameters(Type, String, Collection)}
+     * rejects it, the tree itself only keeping the last value.
+     */
+    public JsonElement parseCommand(final String json) {
+        if (StringUtils.isBlank(json)) {
+            return null;
+        }
+
+        try {
+            final JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+            final JsonElement parsedElement;
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                final JsonObject object = new JsonObject();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String name = reader.nextName();
+                    if (object.has(name)) {
+                        throw new JsonSyntaxException("duplicate key: " + name);
+                    }
+                    object.add(name, JsonParser.parseReader(reader));
+                }
+                reader.endObject();
+                parsedElement = object;
+            } else {
+                parsedElement = JsonParser.parseReader(reader);
+            }
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+            return parsedElement;
+        } catch (final IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
     public boolean parameterExists(final String parameterName, final JsonElement element) {
         return this.helperDelegator.parameterExists(parameterName, element);
     }
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the independent reads that assemble one API response, such as the associations of a loan, concurrently on a
+ * bounded pool shared by all requests.
+ *
+ * The tenant, data source context, auth token and security context of the submitting thread are carried over to the
+ * pool thread and restored afterwards. When all threads are busy and the queue is full the read runs on the submitting
+ * thread, so a request never waits for a pool slot. The time of each read is recorded in the
+ * <code>fineract.association.load</code> timer, tagged with the resource and the association.
+ */
+@Component
+public class AssociationLoader implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssociationLoader.class);
+    private static final String TIMER_NAME = "fineract.association.load";
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public AssociationLoader(final FineractProperties fineractProperties, final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        final int poolSize = fineractProperties.getQuery().getAssociationLoaderPoolSize();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fineractProperties.getQuery().getAssociationLoaderQueueCapacity()), runnable -> {
+                    final Thread thread = new Thread(runnable, "association-loader-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts <code>read</code>; its result is taken with {@link #join(Future)}.
+     */
+    public <T> Future<T> submit(final String resource, final String association, final Callable<T> read) {
+        final Timer timer = Timer.builder(TIMER_NAME).tag("resource", resource).tag("association", association)
+                .register(this.meterRegistry);
+        final ThreadContextSnapshot context = ThreadContextSnapshot.capture();
+
+        return this.executor.submit(() -> context.call(() -> {
+            final long start = System.nanoTime();
+            try {
+                return read.call();
+            } finally {
+                final long elapsed = System.nanoTime() - start;
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+                LOG.debug("{} association {} loaded in {} ms", resource, association, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }));
+    }
+
+    /**
+     * Waits for a read started by {@link #submit(String, String, Callable)} and rethrows its exception unchanged when it
+     * is unchecked, so that API exception mappers see the same exception as for a read on the request thread.
+     */
+    public static <T> T join(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new PlatformInternalServerException("error.msg.association.load.failed", "Failed to load association", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformInternalServerException("error.msg.association.load.interrupted", "Interrupted loading association", e);
+        } catch (CancellationException e) {
+            throw new PlatformInternalServerException("error.msg.association.load.cancelled", "Association load was cancelled", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+}
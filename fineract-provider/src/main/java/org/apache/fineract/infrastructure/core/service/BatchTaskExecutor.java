@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the parallel tasks of the batch jobs, such as the loan partitions of the loan loss provisioning, on one bounded
+ * pool shared by all jobs and tenants.
+ *
+ * A job asks for at most <code>parallelism</code> tasks at a time, one of them on its own thread; the others are taken
+ * by pool threads as they become free. So a job always makes progress, even when the pool is busy with other jobs, and
+ * the number of threads does not grow with the number of jobs running. The thread context of the job is carried over
+ * with {@link ThreadContextSnapshot}.
+ */
+@Component
+public class BatchTaskExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public BatchTaskExecutor(final FineractProperties fineractProperties) {
+        final int poolSize = fineractProperties.getBatchExecutor().getPoolSize();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "batch-task-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs <code>tasks</code>, at most <code>parallelism</code> of them at a time, and waits until all are done.
+     *
+     * @return the completed futures, in the order of <code>tasks</code>
+     * @throws InterruptedException
+     *             when interrupted while waiting, the tasks not started yet are cancelled
+     */
+    public <T> List<Future<T>> invokeAll(final List<? extends Callable<T>> tasks, final int parallelism) throws InterruptedException {
+        final ThreadContextSnapshot context = ThreadContextSnapshot.capture();
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        final Queue<FutureTask<T>> queue = new ConcurrentLinkedQueue<>();
+        for (final Callable<T> task : tasks) {
+            final FutureTask<T> future = new FutureTask<>(() -> context.call(task));
+            futures.add(future);
+            queue.add(future);
+        }
+        final Runnable worker = () -> {
+            FutureTask<T> future;
+            while ((future = queue.poll()) != null) {
+                future.run();
+            }
+        };
+
+        try {
+            for (int i = 1; i < Math.min(parallelism, tasks.size()); i++) {
+                this.executor.execute(worker);
+            }
+        } catch (RejectedExecutionException e) {
+            // shutting down, the calling thread runs the remaining tasks
+        }
+        worker.run();
+
+        try {
+            for (final Future<T> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // left to the caller
+                }
+            }
+        } catch (InterruptedException e) {
+            queue.clear();
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return futures;
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * The tenant, data source context, auth token and security context of a thread, captured to run tasks in the same
+ * context on other threads.
+ *
+ * On another thread the context is set for the duration of the task and cleared afterwards, so a pool thread never
+ * keeps the context of an earlier task or of the request that created it. On the capturing thread itself, e.g. when a
+ * pool rejects a task and it runs on the submitting thread, the task runs in the context the thread already has.
+ */
+public final class ThreadContextSnapshot {
+
+    private final Thread thread;
+    private final FineractPlatformTenant tenant;
+    private final String dataSourceContext;
+    private final String authToken;
+    private final SecurityContext securityContext;
+
+    private ThreadContextSnapshot() {
+        this.thread = Thread.currentThread();
+        this.tenant = ThreadLocalContextUtil.getTenant();
+        this.dataSourceContext = ThreadLocalContextUtil.getDataSourceContext();
+        this.authToken = ThreadLocalContextUtil.getAuthToken();
+        this.securityContext = SecurityContextHolder.getContext();
+    }
+
+    public static ThreadContextSnapshot capture() {
+        return new ThreadContextSnapshot();
+    }
+
+    public <T> T call(final Callable<T> task) throws Exception {
+        final boolean applied = apply();
+        try {
+            return task.call();
+        } finally {
+            clear(applied);
+        }
+    }
+
+    public <T> T get(final Supplier<T> task) {
+        final boolean applied = apply();
+        try {
+            return task.get();
+        } finally {
+            clear(applied);
+        }
+    }
+
+    public void run(final Runnable task) {
+        final boolean applied = apply();
+        try {
+            task.run();
+        } finally {
+            clear(applied);
+        }
+    }
+
+    private boolean apply() {
+        if (Thread.currentThread() == this.thread) {
+            return false;
+        }
+        setContext(this.tenant, this.dataSourceContext, this.authToken, this.securityContext);
+        return true;
+    }
+
+    private static void clear(final boolean applied) {
+        if (applied) {
+            setContext(null, null, null, SecurityContextHolder.createEmptyContext());
+        }
+    }
+
+    private static void setContext(final FineractPlatformTenant tenant, final String dataSourceContext, final String authToken,
+            final SecurityContext securityContext) {
+        if (tenant == null) {
+            ThreadLocalContextUtil.clearTenant();
+        } else {
+            ThreadLocalContextUtil.setTenant(tenant);
+        }
+        if (dataSourceContext == null) {
+            ThreadLocalContextUtil.clearDataSourceContext();
+        } else {
+            ThreadLocalContextUtil.setDataSourceContext(dataSourceContext);
+        }
+        ThreadLocalContextUtil.setAuthToken(authToken);
+        SecurityContextHolder.setContext(securityContext);
+    }
+}
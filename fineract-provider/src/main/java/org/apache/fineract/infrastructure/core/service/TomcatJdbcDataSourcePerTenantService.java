@@ -28,6 +28,7 @@ import java.util.Map;
 import javax.sql.DataSource;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.migration.TenantDatabaseUpgradeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
@@ -47,6 +48,9 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
     @Autowired
     private HikariConfig hikariConfig;
 
+    @Autowired
+    private TenantDatabaseUpgradeService tenantDatabaseUpgradeService;
+
     @Autowired
     public TomcatJdbcDataSourcePerTenantService(final @Qualifier("hikariTenantDataSource") DataSource tenantDataSource) {
         this.tenantDataSource = tenantDataSource;
@@ -59,6 +63,8 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
 
         final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
         if (tenant != null) {
+            // no-op unless lazy tenant upgrades are enabled, kept outside the lock to not block the other tenants
+            this.tenantDatabaseUpgradeService.upgradeOnFirstUse(tenant);
             final FineractPlatformTenantConnection tenantConnection = tenant.getConnection();
 
             synchronized (this.tenantToDataSourceMap) {
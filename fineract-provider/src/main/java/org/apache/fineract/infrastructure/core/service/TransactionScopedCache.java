@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Values loaded at most once per key and transaction, for lookups repeated many times within one transaction which must
+ * not outlive it, e.g. because another node may change them.
+ *
+ * The values are bound to the current transaction and dropped when it completes; they are set aside while the
+ * transaction is suspended, so a nested <code>REQUIRES_NEW</code> transaction loads its own. Outside of a transaction
+ * every lookup loads the value.
+ */
+public final class TransactionScopedCache<K, V> {
+
+    private final Object resourceKey = new Object();
+
+    /**
+     * @return the value of the key loaded by the current transaction, loading it first if it did not yet; may be
+     *         <code>null</code>, a <code>null</code> value is kept as well
+     */
+    public V get(final K key, final Function<K, V> loader) {
+        final Map<K, Optional<V>> values = values();
+        if (values == null) {
+            return loader.apply(key);
+        }
+        Optional<V> value = values.get(key);
+        if (value == null) {
+            value = Optional.ofNullable(loader.apply(key));
+            values.put(key, value);
+        }
+        return value.orElse(null);
+    }
+
+    /**
+     * Drops the values loaded by the current transaction, for a transaction changing them.
+     */
+    public void clear() {
+        @SuppressWarnings("unchecked")
+        final Map<K, Optional<V>> values = (Map<K, Optional<V>>) TransactionSynchronizationManager.getResource(this.resourceKey);
+        if (values != null) {
+            values.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, Optional<V>> values() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        final Map<K, Optional<V>> bound = (Map<K, Optional<V>>) TransactionSynchronizationManager.getResource(this.resourceKey);
+        if (bound != null) {
+            return bound;
+        }
+        final Map<K, Optional<V>> values = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this.resourceKey, values);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedCache.this.resourceKey);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TransactionScopedCache.this.resourceKey, values);
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedCache.this.resourceKey);
+            }
+        });
+        return values;
+    }
+}
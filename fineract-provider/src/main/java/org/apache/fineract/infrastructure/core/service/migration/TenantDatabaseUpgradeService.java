@@ -20,13 +20,23 @@ package org.apache.fineract.infrastructure.core.service.migration;
 
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import javax.sql.DataSource;
 import liquibase.exception.LiquibaseException;
 import liquibase.integration.spring.SpringLiquibase;
 import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.persistence.PooledIdentitySequenceResync;
 import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +47,11 @@ import org.springframework.stereotype.Service;
 
 /**
  * A service that picks up on tenants that are configured to auto-update their specific schema on application startup.
+ *
+ * Tenants are upgraded in parallel on a bounded pool, and a tenant whose stored {@link TenantSchemaFingerprint} is
+ * current is skipped without running Liquibase. In lazy mode only the tenant store is upgraded on startup, and every
+ * tenant is upgraded by the first thread using it while other threads of the same tenant wait for it. Either way the
+ * identity sequences of the pooled id tables are resynced after the upgrade, see {@link PooledIdentitySequenceResync}.
  */
 @Service
 public class TenantDatabaseUpgradeService implements InitializingBean {
@@ -52,18 +67,25 @@ public class TenantDatabaseUpgradeService implements InitializingBean {
     private final TenantDatabaseStateVerifier databaseStateVerifier;
     private final ExtendedSpringLiquibaseFactory liquibaseFactory;
     private final TenantDataSourceFactory tenantDataSourceFactory;
+    private final TenantSchemaFingerprint schemaFingerprint;
+    private final PooledIdentitySequenceResync pooledIdentitySequenceResync;
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> lazyUpgrades = new ConcurrentHashMap<>();
+    private volatile boolean lazy;
 
     @Autowired
     public TenantDatabaseUpgradeService(final TenantDetailsService detailsService,
             @Qualifier("hikariTenantDataSource") final DataSource tenantDataSource, final FineractProperties fineractProperties,
             TenantDatabaseStateVerifier databaseStateVerifier, ExtendedSpringLiquibaseFactory liquibaseFactory,
-            TenantDataSourceFactory tenantDataSourceFactory) {
+            TenantDataSourceFactory tenantDataSourceFactory, TenantSchemaFingerprint schemaFingerprint,
+            PooledIdentitySequenceResync pooledIdentitySequenceResync) {
         this.tenantDetailsService = detailsService;
         this.tenantDataSource = tenantDataSource;
         this.fineractProperties = fineractProperties;
         this.databaseStateVerifier = databaseStateVerifier;
         this.liquibaseFactory = liquibaseFactory;
         this.tenantDataSourceFactory = tenantDataSourceFactory;
+        this.schemaFingerprint = schemaFingerprint;
+        this.pooledIdentitySequenceResync = pooledIdentitySequenceResync;
     }
 
     @Override
@@ -74,12 +96,48 @@ public class TenantDatabaseUpgradeService implements InitializingBean {
         }
         try {
             upgradeTenantStore();
+            if (fineractProperties.getTenantUpgrade().isLazy()) {
+                LOG.warn("Lazy tenant upgrades are enabled. Tenants are upgraded on their first use");
+                lazy = true;
+                return;
+            }
             upgradeIndividualTenants();
         } catch (LiquibaseException e) {
             throw new RuntimeException("Error while migrating the schema", e);
         }
     }
 
+    /**
+     * Upgrades the tenant on its first use when lazy tenant upgrades are enabled, waiting for an upgrade of the same
+     * tenant already running on another thread. A failed upgrade is retried on the next use. Does nothing otherwise.
+     */
+    public void upgradeOnFirstUse(FineractPlatformTenant tenant) {
+        if (!lazy) {
+            return;
+        }
+        String tenantIdentifier = tenant.getTenantIdentifier();
+        CompletableFuture<Void> upgrade = lazyUpgrades.get(tenantIdentifier);
+        if (upgrade == null) {
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            upgrade = lazyUpgrades.putIfAbsent(tenantIdentifier, created);
+            if (upgrade == null) {
+                upgrade = created;
+                try {
+                    upgradeIndividualTenant(tenant);
+                    created.complete(null);
+                } catch (LiquibaseException | RuntimeException e) {
+                    lazyUpgrades.remove(tenantIdentifier, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            upgrade.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Error while migrating the schema of tenant " + tenantIdentifier, e.getCause());
+        }
+    }
+
     private void upgradeTenantStore() throws LiquibaseException {
         LOG.warn("Upgrading tenant store DB at {}:{}", fineractProperties.getTenant().getHost(), fineractProperties.getTenant().getPort());
         logTenantStoreDetails();
@@ -103,28 +161,79 @@ public class TenantDatabaseUpgradeService implements InitializingBean {
         LOG.info("- fineract.tenant.name: {}", fineractProperties.getTenant().getName());
     }
 
-    private void upgradeIndividualTenants() throws LiquibaseException {
+    private void upgradeIndividualTenants() {
         LOG.warn("Upgrading all tenants");
         List<FineractPlatformTenant> tenants = tenantDetailsService.findAllTenants();
         if (isNotEmpty(tenants)) {
-            for (FineractPlatformTenant tenant : tenants) {
-                upgradeIndividualTenant(tenant);
+            int threadPoolSize = Math.max(1, Math.min(fineractProperties.getTenantUpgrade().getThreadPoolSize(), tenants.size()));
+            ExecutorService executorService = Executors.newFixedThreadPool(threadPoolSize);
+            try {
+                List<Future<Void>> upgrades = new ArrayList<>(tenants.size());
+                for (FineractPlatformTenant tenant : tenants) {
+                    upgrades.add(executorService.submit(() -> {
+                        upgradeIndividualTenant(tenant);
+                        return null;
+                    }));
+                }
+                // wait for every tenant, so one broken tenant doesn't leave the others half way
+                List<Throwable> errors = new ArrayList<>();
+                for (int i = 0; i < upgrades.size(); i++) {
+                    try {
+                        upgrades.get(i).get();
+                    } catch (ExecutionException e) {
+                        LOG.error("Upgrade for tenant {} has failed", tenants.get(i).getTenantIdentifier(), e.getCause());
+                        errors.add(e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while upgrading the tenants", e);
+                    }
+                }
+                if (!errors.isEmpty()) {
+                    // a tenant needing a manual upgrade first is reported as such, like in the sequential upgrade
+                    RuntimeException failure = errors.stream().filter(SchemaUpgradeNeededException.class::isInstance)
+                            .map(SchemaUpgradeNeededException.class::cast).findFirst().orElse(null);
+                    if (failure == null) {
+                        failure = new RuntimeException(errors.size() + " of " + tenants.size() + " tenant upgrades have failed",
+                                errors.get(0));
+                    }
+                    for (Throwable error : errors) {
+                        if (error != failure && error != failure.getCause()) {
+                            failure.addSuppressed(error);
+                        }
+                    }
+                    throw failure;
+                }
+            } finally {
+                executorService.shutdownNow();
             }
         }
         LOG.warn("Tenant upgrades have finished");
     }
 
     private void upgradeIndividualTenant(FineractPlatformTenant tenant) throws LiquibaseException {
-        LOG.info("Upgrade for tenant {} has started", tenant.getTenantIdentifier());
         DataSource tenantDataSource = tenantDataSourceFactory.create(tenant);
-        if (databaseStateVerifier.isFirstLiquibaseMigration(tenantDataSource)) {
-            ExtendedSpringLiquibase liquibase = liquibaseFactory.create(tenantDataSource, TENANT_DB_CONTEXT, INITIAL_SWITCH_CONTEXT);
-            applyInitialLiquibase(tenantDataSource, liquibase, tenant.getTenantIdentifier(),
-                    (ds) -> !databaseStateVerifier.isTenantOnLatestUpgradableVersion(ds));
+        try {
+            if (schemaFingerprint.isCurrent(tenantDataSource)) {
+                LOG.info("Tenant {} is on the latest changelog, skipping its upgrade", tenant.getTenantIdentifier());
+            } else {
+                LOG.info("Upgrade for tenant {} has started", tenant.getTenantIdentifier());
+                if (databaseStateVerifier.isFirstLiquibaseMigration(tenantDataSource)) {
+                    ExtendedSpringLiquibase liquibase = liquibaseFactory.create(tenantDataSource, TENANT_DB_CONTEXT,
+                            INITIAL_SWITCH_CONTEXT);
+                    applyInitialLiquibase(tenantDataSource, liquibase, tenant.getTenantIdentifier(),
+                            (ds) -> !databaseStateVerifier.isTenantOnLatestUpgradableVersion(ds));
+                }
+                SpringLiquibase tenantLiquibase = liquibaseFactory.create(tenantDataSource, TENANT_DB_CONTEXT);
+                tenantLiquibase.afterPropertiesSet();
+                schemaFingerprint.store(tenantDataSource);
+                LOG.info("Upgrade for tenant {} has finished", tenant.getTenantIdentifier());
+            }
+            pooledIdentitySequenceResync.resync(tenantDataSource);
+        } finally {
+            if (tenantDataSource instanceof HikariDataSource) {
+                ((HikariDataSource) tenantDataSource).close();
+            }
         }
-        SpringLiquibase tenantLiquibase = liquibaseFactory.create(tenantDataSource, TENANT_DB_CONTEXT);
-        tenantLiquibase.afterPropertiesSet();
-        LOG.info("Upgrade for tenant {} has finished", tenant.getTenantIdentifier());
     }
 
     private void applyInitialLiquibase(DataSource dataSource, ExtendedSpringLiquibase liquibase, String id,
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fingerprint of the changelogs the tenant databases are upgraded with, stored in m_schema_fingerprint of every tenant
+ * after a successful upgrade. A tenant whose stored fingerprint equals the one of the running application is already on
+ * the latest changelog, so the Liquibase run can be skipped for it.
+ */
+@Component
+public class TenantSchemaFingerprint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TenantSchemaFingerprint.class);
+    private static final String CHANGELOG_LOCATION = "db/changelog/";
+
+    private final LiquibaseProperties liquibaseProperties;
+    private final ResourcePatternResolver resourcePatternResolver;
+    private final Environment environment;
+    private final DatabaseAwareMigrationContextProvider databaseAwareMigrationContextProvider;
+    private volatile String fingerprint;
+
+    @Autowired
+    public TenantSchemaFingerprint(LiquibaseProperties liquibaseProperties, ResourceLoader resourceLoader, Environment environment,
+            DatabaseAwareMigrationContextProvider databaseAwareMigrationContextProvider) {
+        this.liquibaseProperties = liquibaseProperties;
+        this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+        this.environment = environment;
+        this.databaseAwareMigrationContextProvider = databaseAwareMigrationContextProvider;
+    }
+
+    public boolean isCurrent(DataSource dataSource) {
+        try {
+            List<String> stored = new JdbcTemplate(dataSource).queryForList("select fingerprint from m_schema_fingerprint where id = 1",
+                    String.class);
+            return !stored.isEmpty() && stored.get(0).equals(fingerprint());
+        } catch (DataAccessException e) {
+            // not upgraded with a fingerprint yet, the table is created by the changelog itself
+            LOG.debug("No schema fingerprint stored yet: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public void store(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbcTemplate.update("update m_schema_fingerprint set fingerprint = ?, updated_at = ? where id = 1", fingerprint(),
+                now);
+        if (updated == 0) {
+            jdbcTemplate.update("insert into m_schema_fingerprint (id, fingerprint, updated_at) values (1, ?, ?)", fingerprint(), now);
+        }
+    }
+
+    /**
+     * SHA-256 over the changelog location, the contexts the tenants are upgraded with and the content of every changelog
+     * resource on the classpath, so any added or edited changeset, profile or database type yields a new fingerprint.
+     */
+    public String fingerprint() {
+        String result = this.fingerprint;
+        if (result == null) {
+            synchronized (this) {
+                result = this.fingerprint;
+                if (result == null) {
+                    result = compute();
+                    this.fingerprint = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private String compute() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, liquibaseProperties.getChangeLog());
+            update(digest, String.valueOf(liquibaseProperties.getParameters()));
+            update(digest, String.join(",", environment.getActiveProfiles()));
+            update(digest, databaseAwareMigrationContextProvider.provide());
+
+            Resource[] resources = resourcePatternResolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX
+                    + CHANGELOG_LOCATION + "**/*.*");
+            Arrays.sort(resources, Comparator.comparing(TenantSchemaFingerprint::relativePath));
+            for (Resource resource : resources) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                update(digest, relativePath(resource));
+                try (InputStream in = resource.getInputStream()) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Could not compute the tenant schema fingerprint", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    // the part below db/changelog/, independent of the jar or directory the resource was loaded from
+    private static String relativePath(Resource resource) {
+        try {
+            String url = resource.getURL().toString();
+            int index = url.lastIndexOf(CHANGELOG_LOCATION);
+            return index < 0 ? url : url.substring(index);
+        } catch (IOException e) {
+            return String.valueOf(resource.getDescription());
+        }
+    }
+}
@@ -19,43 +19,188 @@
 package org.apache.fineract.infrastructure.documentmanagement.api;
 
 import com.google.common.io.ByteSource;
-import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import org.apache.fineract.infrastructure.documentmanagement.data.FileData;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Utilities common to file upload/download resources.
  *
+ * Downloads are streamed straight from the content repository: local files with {@link FileChannel#transferTo}, other
+ * content through the repository's {@link ByteSource}, of which only the requested range is opened. Single byte ranges
+ * ("Range: bytes=...") and conditional requests (If-None-Match, If-Modified-Since, If-Range) are supported whenever the
+ * repository knows the size and version of the content.
+ *
  * @author Michael Vorburger.ch
  */
 final class ContentResources {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ContentResources.class);
-
     private ContentResources() {}
 
-    static Response fileDataToResponse(FileData fileData, String fileName, String dispositionType) {
-        ResponseBuilder response;
+    static Response fileDataToResponse(Request request, HttpHeaders headers, FileData fileData, String dispositionType) {
+        return fileDataToResponse(request, headers, fileData, fileData.name(), dispositionType);
+    }
+
+    static Response fileDataToResponse(Request request, HttpHeaders headers, FileData fileData, String fileName, String dispositionType) {
+        final Response notModified = evaluatePreconditions(request, fileData.entityTag(), fileData.lastModified());
+        if (notModified != null) {
+            return notModified;
+        }
+
+        final ByteSource byteSource = fileData.getByteSource();
+        final long size = byteSource.sizeIfKnown().or(-1L);
+        long offset = 0;
+        long length = size;
+        ResponseBuilder response = Response.ok();
+        final String range = headers == null ? null : headers.getHeaderString("Range");
+        if (range != null && size >= 0 && ifRangeMatches(headers.getHeaderString("If-Range"), fileData)) {
+            final long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE).header("Content-Range", "bytes */" + size)
+                        .build();
+            } else if (bounds != null) {
+                offset = bounds[0];
+                length = bounds[1] - bounds[0] + 1;
+                response = Response.status(Response.Status.PARTIAL_CONTENT).header("Content-Range",
+                        "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+            }
+        }
+
+        response.entity(streamingOutput(fileData, offset, length, offset > 0 || length != size));
+        response.header("Content-Disposition", dispositionType + "; filename=\"" + fileName + "\"");
+        response.header("Content-Type", fileData.contentType());
+        if (size >= 0) {
+            response.header("Content-Length", length);
+            response.header("Accept-Ranges", "bytes");
+        }
+        return validators(response, fileData.entityTag(), fileData.lastModified()).build();
+    }
+
+    /**
+     * Evaluates the conditional request headers against the given version of the content.
+     *
+     * @return the 304 (or 412) response to send instead of the content, or null if the content must be sent
+     */
+    static Response evaluatePreconditions(Request request, String entityTag, Long lastModified) {
+        if (request == null || (entityTag == null && lastModified == null)) {
+            return null;
+        }
+        final ResponseBuilder builder;
+        if (entityTag == null) {
+            builder = request.evaluatePreconditions(new Date(lastModified));
+        } else if (lastModified == null) {
+            builder = request.evaluatePreconditions(new EntityTag(entityTag));
+        } else {
+            builder = request.evaluatePreconditions(new Date(lastModified), new EntityTag(entityTag));
+        }
+        return builder == null ? null : validators(builder, entityTag, lastModified).build();
+    }
+
+    /**
+     * Adds the ETag and Last-Modified headers, and makes (private) caches revalidate the content before reusing it.
+     */
+    static ResponseBuilder validators(ResponseBuilder response, String entityTag, Long lastModified) {
+        if (entityTag != null) {
+            response.tag(new EntityTag(entityTag));
+        }
+        if (lastModified != null) {
+            response.lastModified(new Date(lastModified));
+        }
+        if (entityTag != null || lastModified != null) {
+            final CacheControl cacheControl = new CacheControl();
+            cacheControl.setPrivate(true);
+            cacheControl.setNoCache(true);
+            response.cacheControl(cacheControl);
+        }
+        return response;
+    }
+
+    private static StreamingOutput streamingOutput(final FileData fileData, final long offset, final long length, final boolean ranged) {
+        return output -> {
+            if (fileData.path() != null && length >= 0) {
+                try (FileChannel channel = FileChannel.open(fileData.path(), StandardOpenOption.READ)) {
+                    final WritableByteChannel target = Channels.newChannel(output);
+                    long position = offset;
+                    final long end = offset + length;
+                    while (position < end) {
+                        final long transferred = channel.transferTo(position, end - position, target);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                }
+            } else {
+                final ByteSource byteSource = ranged ? fileData.getByteSource().slice(offset, length) : fileData.getByteSource();
+                try (InputStream in = byteSource.openStream()) {
+                    in.transferTo(output);
+                }
+            }
+        };
+    }
+
+    private static boolean ifRangeMatches(final String ifRange, final FileData fileData) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return fileData.entityTag() != null && ifRange.equals(new EntityTag(fileData.entityTag()).toString());
+        }
         try {
-            ByteSource byteSource = fileData.getByteSource();
-            // TODO Where is this InputStream closed?! It needs to be AFTER it's read by JAX-RS.. how to do that?
-            InputStream is = byteSource.openBufferedStream();
-            response = Response.ok(is);
-            response.header("Content-Disposition", dispositionType + "; filename=\"" + fileName + "\"");
-            response.header("Content-Length", byteSource.sizeIfKnown().or(-1L));
-            response.header("Content-Type", fileData.contentType());
-        } catch (IOException e) {
-            LOG.error("resizedImage.getByteSource().openBufferedStream() failed", e);
-            response = Response.serverError();
-        }
-        return response.build();
+            final long since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return fileData.lastModified() != null && fileData.lastModified() / 1000 == since / 1000;
+        } catch (final DateTimeParseException e) {
+            return false;
+        }
     }
 
-    static Response fileDataToResponse(FileData fileData, String dispositionType) {
-        return fileDataToResponse(fileData, fileData.name(), dispositionType);
+    /**
+     * Parses a single "bytes=first-last", "bytes=first-" or "bytes=-suffixLength" range.
+     *
+     * @return the first and last byte position, an empty array if the range cannot be satisfied, or null if the header
+     *         is not a single byte range (it is then ignored and the whole content sent)
+     */
+    private static long[] parseRange(final String range, final long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        final String spec = range.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            final String first = spec.substring(0, dash).trim();
+            final String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                final long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0 || size == 0) {
+                    return new long[0];
+                }
+                return new long[] { Math.max(0, size - suffixLength), size - 1 };
+            }
+            final long from = Long.parseLong(first);
+            final long to = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (from >= size) {
+                return new long[0];
+            }
+            return from > to ? null : new long[] { from, to };
+        } catch (final NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -34,8 +34,12 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 import org.apache.fineract.infrastructure.core.data.UploadRequest;
@@ -44,10 +48,10 @@ import org.apache.fineract.infrastructure.core.serialization.DefaultToApiJsonSer
 import org.apache.fineract.infrastructure.documentmanagement.contentrepository.ContentRepositoryUtils;
 import org.apache.fineract.infrastructure.documentmanagement.contentrepository.ContentRepositoryUtils.ImageFileExtension;
 import org.apache.fineract.infrastructure.documentmanagement.data.FileData;
-import org.apache.fineract.infrastructure.documentmanagement.data.ImageResizer;
 import org.apache.fineract.infrastructure.documentmanagement.exception.ContentManagementException;
 import org.apache.fineract.infrastructure.documentmanagement.exception.InvalidEntityTypeForImageManagementException;
 import org.apache.fineract.infrastructure.documentmanagement.service.ImageReadPlatformService;
+import org.apache.fineract.infrastructure.documentmanagement.service.ImageThumbnailCache;
 import org.apache.fineract.infrastructure.documentmanagement.service.ImageWritePlatformService;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.portfolio.client.data.ClientData;
@@ -69,18 +73,18 @@ public class ImagesApiResource {
     private final ImageWritePlatformService imageWritePlatformService;
     private final DefaultToApiJsonSerializer<ClientData> toApiJsonSerializer;
     private final FileUploadValidator fileUploadValidator;
-    private final ImageResizer imageResizer;
+    private final ImageThumbnailCache imageThumbnailCache;
 
     @Autowired
     public ImagesApiResource(final PlatformSecurityContext context, final ImageReadPlatformService readPlatformService,
             final ImageWritePlatformService imageWritePlatformService, final DefaultToApiJsonSerializer<ClientData> toApiJsonSerializer,
-            final FileUploadValidator fileUploadValidator, final ImageResizer imageResizer) {
+            final FileUploadValidator fileUploadValidator, final ImageThumbnailCache imageThumbnailCache) {
         this.context = context;
         this.imageReadPlatformService = readPlatformService;
         this.imageWritePlatformService = imageWritePlatformService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.fileUploadValidator = fileUploadValidator;
-        this.imageResizer = imageResizer;
+        this.imageThumbnailCache = imageThumbnailCache;
     }
 
     /**
@@ -128,6 +132,9 @@ public class ImagesApiResource {
     /**
      * Returns a images, either as Base64 encoded text/plain or as inline or attachment with image MIME type as
      * Content-Type.
+     *
+     * Resized images come from the thumbnail cache, and a request that already holds the current version of the image
+     * (If-None-Match, If-Modified-Since) is answered with 304 before the image is read or resized.
      */
     @GET
     @Consumes(MediaType.APPLICATION_JSON)
@@ -135,7 +142,8 @@ public class ImagesApiResource {
     // octet-stream)
     public Response retrieveImage(@PathParam("entity") final String entityName, @PathParam("entityId") final Long entityId,
             @QueryParam("maxWidth") final Integer maxWidth, @QueryParam("maxHeight") final Integer maxHeight,
-            @QueryParam("output") final String output, @HeaderParam("Accept") String acceptHeader) {
+            @QueryParam("output") final String output, @HeaderParam("Accept") String acceptHeader, @Context final Request request,
+            @Context final HttpHeaders headers) {
         validateEntityTypeforImage(entityName);
         if (EntityTypeForImages.CLIENTS.toString().equalsIgnoreCase(entityName)) {
             this.context.authenticatedUser().validateHasReadPermission("CLIENTIMAGE");
@@ -144,13 +152,22 @@ public class ImagesApiResource {
         }
 
         final FileData imageData = this.imageReadPlatformService.retrieveImage(entityName, entityId);
-        final FileData resizedImage = imageResizer.resize(imageData, maxWidth, maxHeight);
 
         // If client wants (Accept header) octet-stream, or output="octet" or "inline_octet", then send that instead of
         // text
-        if ("application/octet-stream".equalsIgnoreCase(acceptHeader)
-                || (output != null && (output.equals("octet") || output.equals("inline_octet")))) {
-            return ContentResources.fileDataToResponse(resizedImage, resizedImage.name() + ImageFileExtension.JPEG,
+        final boolean octet = "application/octet-stream".equalsIgnoreCase(acceptHeader)
+                || (output != null && (output.equals("octet") || output.equals("inline_octet")));
+        final String entityTag = this.imageThumbnailCache.entityTag(imageData, maxWidth, maxHeight);
+        // the Base64 text is a different representation of the same image, so it gets a different entity tag
+        final String representationTag = entityTag == null || octet ? entityTag : entityTag + "-base64";
+        final Response notModified = ContentResources.evaluatePreconditions(request, representationTag, imageData.lastModified());
+        if (notModified != null) {
+            return notModified;
+        }
+
+        final FileData resizedImage = this.imageThumbnailCache.resize(entityName, entityId, imageData, maxWidth, maxHeight);
+        if (octet) {
+            return ContentResources.fileDataToResponse(request, headers, resizedImage, resizedImage.name() + ImageFileExtension.JPEG,
                     "inline_octet".equals(output) ? "inline" : "attachment");
         }
 
@@ -166,7 +183,8 @@ public class ImagesApiResource {
         try {
             byte[] resizedImageBytes = resizedImage.getByteSource().read();
             final String clientImageAsBase64Text = imageDataURISuffix + Base64.getMimeEncoder().encodeToString(resizedImageBytes);
-            return Response.ok(clientImageAsBase64Text, MediaType.TEXT_PLAIN_TYPE).build();
+            final ResponseBuilder response = Response.ok(clientImageAsBase64Text, MediaType.TEXT_PLAIN_TYPE);
+            return ContentResources.validators(response, representationTag, imageData.lastModified()).build();
         } catch (IOException e) {
             throw new ContentManagementException(imageData.name(), e.getMessage(), e);
         }
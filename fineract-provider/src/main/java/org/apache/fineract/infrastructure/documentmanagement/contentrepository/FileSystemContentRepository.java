@@ -98,14 +98,22 @@ public class FileSystemContentRepository implements ContentRepository {
 
     @Override
     public FileData fetchFile(final DocumentData documentData) {
-        final File file = new File(documentData.fileLocation());
-        return new FileData(Files.asByteSource(file), documentData.fileName(), documentData.contentType());
+        return fileData(new File(documentData.fileLocation()), documentData.fileName(), documentData.contentType());
     }
 
     @Override
     public FileData fetchImage(final ImageData imageData) {
-        final File file = new File(imageData.location());
-        return new FileData(Files.asByteSource(file), imageData.getEntityDisplayName(), imageData.contentType().getValue());
+        return fileData(new File(imageData.location()), imageData.getEntityDisplayName(), imageData.contentType().getValue());
+    }
+
+    private static FileData fileData(final File file, final String fileName, final String contentType) {
+        if (!file.isFile()) {
+            return new FileData(Files.asByteSource(file), fileName, contentType);
+        }
+        // images are overwritten in place, so the version is the size and modification time rather than the location
+        final long lastModified = file.lastModified();
+        final String entityTag = Long.toHexString(file.length()) + "-" + Long.toHexString(lastModified);
+        return new FileData(Files.asByteSource(file), fileName, contentType, entityTag, lastModified, file.toPath());
     }
 
     @Override
@@ -29,6 +29,7 @@ import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Optional;
 import com.google.common.io.ByteSource;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -105,26 +106,66 @@ public class S3ContentRepository implements ContentRepository {
 
     @Override
     public FileData fetchFile(final DocumentData documentData) throws DocumentNotFoundException {
-        return new FileData(new ByteSource() {
-
-            @Override
-            public InputStream openStream() throws IOException {
-                final S3Object s3object = getObject(documentData.fileLocation());
-                return s3object.getObjectContent();
-            }
-        }, documentData.fileName(), documentData.contentType());
+        return fileData(documentData.fileLocation(), documentData.fileName(), documentData.contentType());
     }
 
     @Override
     public FileData fetchImage(final ImageData imageData) {
-        return new FileData(new ByteSource() {
+        return fileData(imageData.location(), imageData.getEntityDisplayName(), imageData.contentType().getValue());
+    }
+
+    /**
+     * Only the object metadata is read here; the content is downloaded when the returned data is streamed, and only the
+     * requested byte range of it.
+     */
+    private FileData fileData(final String key, final String fileName, final String contentType) {
+        final ObjectMetadata metadata = getObjectMetadata(key);
+        final Long lastModified = metadata.getLastModified() == null ? null : metadata.getLastModified().getTime();
+        return new FileData(new S3ObjectByteSource(key, 0, metadata.getContentLength(), false), fileName, contentType, metadata.getETag(),
+                lastModified, null);
+    }
+
+    private final class S3ObjectByteSource extends ByteSource {
+
+        private final String key;
+        private final long offset;
+        private final long length;
+        private final boolean ranged;
 
-            @Override
-            public InputStream openStream() throws IOException {
-                final S3Object s3object = getObject(imageData.location());
-                return s3object.getObjectContent();
+        S3ObjectByteSource(final String key, final long offset, final long length, final boolean ranged) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.ranged = ranged;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            if (this.length == 0) {
+                return InputStream.nullInputStream();
+            }
+            final GetObjectRequest request = new GetObjectRequest(S3ContentRepository.this.s3BucketName, this.key);
+            if (this.ranged) {
+                request.setRange(this.offset, this.offset + this.length - 1);
             }
-        }, imageData.getEntityDisplayName(), imageData.contentType().getValue());
+            return getObject(request).getObjectContent();
+        }
+
+        @Override
+        public Optional<Long> sizeIfKnown() {
+            return Optional.of(this.length);
+        }
+
+        @Override
+        public long size() {
+            return this.length;
+        }
+
+        @Override
+        public ByteSource slice(final long sliceOffset, final long sliceLength) {
+            final long from = Math.min(sliceOffset, this.length);
+            return new S3ObjectByteSource(this.key, this.offset + from, Math.min(sliceLength, this.length - from), true);
+        }
     }
 
     @Override
@@ -163,10 +204,21 @@ public class S3ContentRepository implements ContentRepository {
         }
     }
 
-    private S3Object getObject(String key) {
+    private S3Object getObject(final GetObjectRequest request) {
+        final String key = request.getKey();
         try {
             LOG.info("Downloading an object from Amazon S3 Bucket: {}, location: {}", this.s3BucketName, key);
-            return this.s3Client.getObject(new GetObjectRequest(this.s3BucketName, key));
+            return this.s3Client.getObject(request);
+        } catch (AmazonServiceException ase) {
+            throw new ContentManagementException(key, ase.getMessage(), ase);
+        } catch (final AmazonClientException ace) {
+            throw new ContentManagementException(key, ace.getMessage(), ace);
+        }
+    }
+
+    private ObjectMetadata getObjectMetadata(final String key) {
+        try {
+            return this.s3Client.getObjectMetadata(this.s3BucketName, key);
         } catch (AmazonServiceException ase) {
             throw new ContentManagementException(key, ase.getMessage(), ase);
         } catch (final AmazonClientException ace) {
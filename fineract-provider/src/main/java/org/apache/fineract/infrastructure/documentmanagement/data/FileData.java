@@ -19,17 +19,38 @@
 package org.apache.fineract.infrastructure.documentmanagement.data;
 
 import com.google.common.io.ByteSource;
+import java.nio.file.Path;
 
 public class FileData {
 
     private final String fileName;
     private final String contentType;
     private final ByteSource byteSource;
+    private final String entityTag;
+    private final Long lastModified;
+    private final Path path;
 
     public FileData(final ByteSource byteSource, final String fileName, final String contentType) {
+        this(byteSource, fileName, contentType, null, null, null);
+    }
+
+    /**
+     * @param entityTag
+     *            opaque version of the content, changes whenever the content does (null if unknown)
+     * @param lastModified
+     *            epoch millis of the last change of the content (null if unknown)
+     * @param path
+     *            local file holding the content, so it can be sent without copying it through the heap (null if not a
+     *            local file)
+     */
+    public FileData(final ByteSource byteSource, final String fileName, final String contentType, final String entityTag,
+            final Long lastModified, final Path path) {
         this.fileName = fileName;
         this.contentType = contentType;
         this.byteSource = byteSource;
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.path = path;
     }
 
     public String contentType() {
@@ -43,4 +64,16 @@ public class FileData {
     public ByteSource getByteSource() {
         return this.byteSource;
     }
+
+    public String entityTag() {
+        return this.entityTag;
+    }
+
+    public Long lastModified() {
+        return this.lastModified;
+    }
+
+    public Path path() {
+        return this.path;
+    }
 }
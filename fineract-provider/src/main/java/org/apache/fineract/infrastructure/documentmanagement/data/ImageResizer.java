@@ -23,11 +23,10 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Optional;
+import java.io.OutputStream;
 import javax.imageio.ImageIO;
 import org.apache.fineract.infrastructure.documentmanagement.contentrepository.ContentRepositoryUtils;
 import org.apache.fineract.infrastructure.documentmanagement.contentrepository.ContentRepositoryUtils.ImageFileExtension;
@@ -41,21 +40,13 @@ public class ImageResizer {
     private static final Logger LOG = LoggerFactory.getLogger(ImageResizer.class);
 
     public FileData resize(FileData fileData, Integer maxWidth, Integer maxHeight) {
-        if (maxWidth == null && maxHeight != null) {
+        if (maxWidth == null && maxHeight == null) {
             return fileData;
         }
-        try (InputStream is = fileData.getByteSource().openBufferedStream()) {
-            Optional<InputStream> optResizedIS = resizeImage(ContentRepositoryUtils.imageExtensionFromFileName(fileData.name()), is,
-                    maxWidth != null ? maxWidth : Integer.MAX_VALUE, maxHeight != null ? maxHeight : Integer.MAX_VALUE);
-            if (optResizedIS.isPresent()) {
-                FileData resizedImage = new FileData(new ByteSource() {
-
-                    @Override
-                    public InputStream openStream() throws IOException {
-                        return optResizedIS.get();
-                    }
-                }, fileData.name(), fileData.contentType());
-                return resizedImage;
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            if (resize(fileData, maxWidth, maxHeight, os)) {
+                return new FileData(ByteSource.wrap(os.toByteArray()), fileData.name(), fileData.contentType());
             }
             return fileData;
         } catch (IOException e) {
@@ -64,11 +55,24 @@ public class ImageResizer {
         }
     }
 
-    private Optional<InputStream> resizeImage(ImageFileExtension fileExtension, InputStream in, int maxWidth, int maxHeight)
+    /**
+     * Writes the image scaled down to fit into maxWidth x maxHeight to the given stream, encoded in the format of the
+     * original.
+     *
+     * @return false, without writing anything, if the image already fits or cannot be decoded
+     */
+    public boolean resize(FileData fileData, Integer maxWidth, Integer maxHeight, OutputStream out) throws IOException {
+        try (InputStream is = fileData.getByteSource().openBufferedStream()) {
+            return resizeImage(ContentRepositoryUtils.imageExtensionFromFileName(fileData.name()), is,
+                    maxWidth != null ? maxWidth : Integer.MAX_VALUE, maxHeight != null ? maxHeight : Integer.MAX_VALUE, out);
+        }
+    }
+
+    private boolean resizeImage(ImageFileExtension fileExtension, InputStream in, int maxWidth, int maxHeight, OutputStream out)
             throws IOException {
         BufferedImage src = ImageIO.read(in);
-        if (src.getWidth() <= maxWidth && src.getHeight() <= maxHeight) {
-            return Optional.empty();
+        if (src == null || (src.getWidth() <= maxWidth && src.getHeight() <= maxHeight)) {
+            return false;
         }
         float widthRatio = (float) src.getWidth() / maxWidth;
         float heightRatio = (float) src.getHeight() / maxHeight;
@@ -86,8 +90,7 @@ public class ImageResizer {
         g.drawImage(src, 0, 0, newWidth, newHeight, Color.BLACK, null);
         g.dispose();
 
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        ImageIO.write(target, fileExtension != null ? fileExtension.getValueWithoutDot() : "jpeg", os);
-        return Optional.of(new ByteArrayInputStream(os.toByteArray()));
+        ImageIO.write(target, fileExtension != null ? fileExtension.getValueWithoutDot() : "jpeg", out);
+        return true;
     }
 }
@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.documentmanagement.service;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.documentmanagement.data.FileData;
+import org.apache.fineract.infrastructure.documentmanagement.data.ImageResizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk-backed LRU tier for the resized client and staff images, so a thumbnail is decoded and re-encoded once per
+ * version of the image and size instead of on every request.
+ *
+ * Entries are keyed by tenant, entity, the entity tag of the original image and the requested bounds; replacing an
+ * image changes its entity tag, so stale thumbnails are never served and simply age out. The index of the cached files
+ * is rebuilt from the cache directory on startup.
+ */
+@Component
+public class ImageThumbnailCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImageThumbnailCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ImageResizer imageResizer;
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @Autowired
+    public ImageThumbnailCache(final ImageResizer imageResizer, final FineractProperties fineractProperties) {
+        this.imageResizer = imageResizer;
+        final FineractProperties.FineractContentProperties properties = fineractProperties.getContent();
+        this.maxBytes = properties.getThumbnailCacheSizeMb() * 1024 * 1024;
+        if (this.maxBytes > 0) {
+            final String configured = properties.getThumbnailCacheDirectory();
+            this.directory = StringUtils.isBlank(configured) ? Paths.get(System.getProperty("java.io.tmpdir"), "fineract-thumbnails")
+                    : Paths.get(configured);
+            load();
+        } else {
+            this.directory = null;
+        }
+    }
+
+    /**
+     * The entity tag of the image as resized to the given bounds, or null if the original image has none.
+     */
+    public String entityTag(final FileData image, final Integer maxWidth, final Integer maxHeight) {
+        if (image.entityTag() == null || (maxWidth == null && maxHeight == null)) {
+            return image.entityTag();
+        }
+        return image.entityTag() + "-" + (maxWidth == null ? "" : maxWidth) + "x" + (maxHeight == null ? "" : maxHeight);
+    }
+
+    /**
+     * Returns the image scaled down to fit into maxWidth x maxHeight, from the cache when it was resized before.
+     */
+    public FileData resize(final String entityName, final Long entityId, final FileData image, final Integer maxWidth,
+            final Integer maxHeight) {
+        if (maxWidth == null && maxHeight == null) {
+            return image;
+        }
+        final String entityTag = entityTag(image, maxWidth, maxHeight);
+        if (this.directory == null || entityTag == null) {
+            return this.imageResizer.resize(image, maxWidth, maxHeight);
+        }
+
+        final String name = Hashing.sha256().hashString(ThreadLocalContextUtil.getTenant().getTenantIdentifier() + "/" + entityName + "/"
+                + entityId + "/" + entityTag, StandardCharsets.UTF_8).toString();
+        final Path file = this.directory.resolve(name);
+        if (touch(name)) {
+            try {
+                // read before returning, another request may evict and delete the file before the response is written
+                return cached(Files.readAllBytes(file), image, entityTag);
+            } catch (final IOException e) {
+                LOG.debug("The resized image of {} {} was evicted meanwhile, resizing it again: {}", entityName, entityId,
+                        e.getMessage());
+            }
+        }
+
+        final byte[] resized;
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            // an image that already fits is cached as it is, so it is not decoded again on the next request
+            if (!this.imageResizer.resize(image, maxWidth, maxHeight, out)) {
+                image.getByteSource().copyTo(out);
+            }
+            resized = out.toByteArray();
+        } catch (final IOException e) {
+            LOG.warn("Resizing the image of {} {} for the cache failed, resizing it uncached: {}", entityName, entityId, e.getMessage(),
+                    e);
+            return this.imageResizer.resize(image, maxWidth, maxHeight);
+        }
+
+        try {
+            final Path temp = Files.createTempFile(this.directory, name, TEMP_SUFFIX);
+            try {
+                Files.write(temp, resized);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            add(name, resized.length);
+        } catch (final IOException e) {
+            LOG.warn("Caching the resized image of {} {} failed: {}", entityName, entityId, e.getMessage(), e);
+        }
+        return cached(resized, image, entityTag);
+    }
+
+    /**
+     * The thumbnail is served from memory rather than from its file, which an eviction can delete at any time; resized
+     * images are small.
+     */
+    private static FileData cached(final byte[] resized, final FileData image, final String entityTag) {
+        return new FileData(ByteSource.wrap(resized), image.name(), image.contentType(), entityTag, image.lastModified(), null);
+    }
+
+    private synchronized boolean touch(final String name) {
+        return this.entries.get(name) != null;
+    }
+
+    private synchronized void add(final String name, final long size) {
+        final Long previous = this.entries.put(name, size);
+        this.totalBytes += size - (previous == null ? 0 : previous);
+        final Iterator<Map.Entry<String, Long>> eldest = this.entries.entrySet().iterator();
+        while (this.totalBytes > this.maxBytes && this.entries.size() > 1) {
+            final Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            this.totalBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(this.directory.resolve(entry.getKey()));
+            } catch (final IOException e) {
+                LOG.warn("Could not delete the evicted thumbnail {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void load() {
+        try {
+            Files.createDirectories(this.directory);
+            final List<Path> files;
+            try (Stream<Path> stream = Files.list(this.directory)) {
+                files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            final Map<Path, Long> lastModified = new LinkedHashMap<>();
+            for (final Path file : files) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else {
+                    lastModified.put(file, Files.getLastModifiedTime(file).toMillis());
+                }
+            }
+            lastModified.entrySet().stream().sorted(Map.Entry.comparingByValue(Comparator.naturalOrder())).forEach(entry -> {
+                try {
+                    add(entry.getKey().getFileName().toString(), Files.size(entry.getKey()));
+                } catch (final IOException e) {
+                    LOG.warn("Skipping unreadable thumbnail {}: {}", entry.getKey(), e.getMessage());
+                }
+            });
+            LOG.info("Thumbnail cache {} holds {} images ({} bytes)", this.directory, this.entries.size(), this.totalBytes);
+        } catch (final IOException e) {
+            LOG.warn("Could not read the thumbnail cache directory {}: {}", this.directory, e.getMessage(), e);
+        }
+    }
+}
@@ -93,6 +93,8 @@ final class SchedulerJobApiResourceSwagger {
             public String status;
             @Schema(example = "cron")
             public String triggerType;
+            @Schema(example = "42 accounts in 1520 ms, 0 failed")
+            public String jobRunResultSummary;
         }
 
         @Schema(example = "8")
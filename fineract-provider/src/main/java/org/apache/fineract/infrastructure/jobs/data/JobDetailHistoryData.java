@@ -43,8 +43,11 @@ public class JobDetailHistoryData {
     @SuppressWarnings("unused")
     private final String jobRunErrorLog;
 
+    @SuppressWarnings("unused")
+    private final String jobRunResultSummary;
+
     public JobDetailHistoryData(final Long version, final Date jobRunStartTime, final Date jobRunEndTime, final String status,
-            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog) {
+            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog, final String jobRunResultSummary) {
         this.version = version;
         this.jobRunStartTime = jobRunStartTime;
         this.jobRunEndTime = jobRunEndTime;
@@ -52,5 +55,6 @@ public class JobDetailHistoryData {
         this.jobRunErrorMessage = jobRunErrorMessage;
         this.triggerType = triggerType;
         this.jobRunErrorLog = jobRunErrorLog;
+        this.jobRunResultSummary = jobRunResultSummary;
     }
 }
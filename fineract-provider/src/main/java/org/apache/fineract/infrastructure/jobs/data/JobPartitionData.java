@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.jobs.data;
+
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * One <code>m_job_partition</code> row: a range of entity ids of a partitioned job run, claimed and processed by any
+ * node of the cluster.
+ */
+@Getter
+public class JobPartitionData {
+
+    private final Long id;
+    private final String runId;
+    private final String jobName;
+    private final Map<String, String> context;
+    private final Integer partitionNo;
+    private final Long rangeFrom;
+    private final Long rangeTo;
+    private final String status;
+    private final Map<String, String> result;
+    private final String errorMessage;
+
+    public JobPartitionData(final Long id, final String runId, final String jobName, final Map<String, String> context,
+            final Integer partitionNo, final Long rangeFrom, final Long rangeTo, final String status, final Map<String, String> result,
+            final String errorMessage) {
+        this.id = id;
+        this.runId = runId;
+        this.jobName = jobName;
+        this.context = context;
+        this.partitionNo = partitionNo;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.status = status;
+        this.result = result;
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isFailed() {
+        return this.errorMessage != null;
+    }
+}
@@ -59,12 +59,15 @@ public class ScheduledJobRunHistory extends AbstractPersistableCustom {
     @Column(name = "error_log")
     private String errorLog;
 
+    @Column(name = "result_summary", length = 1000)
+    private String resultSummary;
+
     public ScheduledJobRunHistory() {
 
     }
 
     public ScheduledJobRunHistory(final ScheduledJobDetail scheduledJobDetail, final Long version, final Date startTime, final Date endTime,
-            final String status, final String errorMessage, final String triggerType, final String errorLog) {
+            final String status, final String errorMessage, final String triggerType, final String errorLog, final String resultSummary) {
         this.scheduledJobDetail = scheduledJobDetail;
         this.version = version;
         this.startTime = startTime;
@@ -73,6 +76,7 @@ public class ScheduledJobRunHistory extends AbstractPersistableCustom {
         this.errorMessage = errorMessage;
         this.triggerType = triggerType;
         this.errorLog = errorLog;
+        this.resultSummary = resultSummary;
     }
 
 }
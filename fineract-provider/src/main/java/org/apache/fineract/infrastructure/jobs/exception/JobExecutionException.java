@@ -23,11 +23,26 @@ import org.apache.fineract.infrastructure.core.exception.MultiException;
 
 public class JobExecutionException extends MultiException {
 
+    private final String summary;
+
     public JobExecutionException(List<Throwable> problems) {
+        this(null, problems);
+    }
+
+    /**
+     * @param summary
+     *            what the failed run still got done, recorded in the job run history next to its errors
+     */
+    public JobExecutionException(String summary, List<Throwable> problems) {
         super(problems);
+        this.summary = summary;
     }
 
     public JobExecutionException(MultiException multiException) {
-        super(multiException.getCauses());
+        this(null, multiException.getCauses());
+    }
+
+    public String getSummary() {
+        return this.summary;
     }
 }
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.jobs.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Database backed leases on the jobs of the current tenant, replacing the static pinning of jobs to a
+ * <code>fineract.node-id</code>: every node schedules every job, and a fired job only runs on the node which managed
+ * to take its lease in <code>m_job_lease</code>.
+ *
+ * Leases are not re-entrant, a job holding a lease is running somewhere. The holder renews all its leases every
+ * {@link #HEARTBEAT_INTERVAL}; a lease not renewed for {@link #LEASE_DURATION} belongs to a dead node and may be taken
+ * over. Times are compared in UTC on the nodes' clocks, which are expected to be within a few seconds of each other.
+ *
+ * The lease of a job keeps the fire time of its last run after it is released, so a fire that one node already ran is
+ * not run again by a node firing it late.
+ */
+@Service
+public class JobLeaseService {
+
+    public static final Duration LEASE_DURATION = Duration.ofSeconds(60);
+    public static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    @Autowired
+    public JobLeaseService(final JdbcTemplate jdbcTemplate, final FineractProperties fineractProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        // unique per process, a restarted node must not renew the leases of the runs it lost
+        this.owner = fineractProperties.getNodeId() + ":" + ManagementFactory.getRuntimeMXBean().getName() + ":"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Identifies this node in <code>m_job_lease</code> and <code>m_job_partition</code>.
+     */
+    public String getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * Takes the lease on the given key if nobody holds it or its holder stopped renewing it.
+     */
+    public boolean tryAcquire(final String leaseKey) {
+        final LocalDateTime now = now();
+        return tryAcquire(leaseKey, null, now, now);
+    }
+
+    /**
+     * Takes the lease on a job for its run fired at <code>fireTime</code>, unless the job is running or one of its runs
+     * was fired at or after <code>slotStart</code>, the time the job became due for this fire.
+     */
+    public boolean tryAcquire(final String jobKey, final Date fireTime, final Date slotStart) {
+        return tryAcquire(jobKey, toUtc(fireTime), toUtc(slotStart), now());
+    }
+
+    private boolean tryAcquire(final String leaseKey, final LocalDateTime fireTime, final LocalDateTime slotStart,
+            final LocalDateTime now) {
+        final int updated = this.jdbcTemplate.update("UPDATE m_job_lease SET owner = ?, acquired_at = ?, lease_until = ?, fire_time = ? "
+                + "WHERE job_key = ? AND (owner IS NULL OR lease_until < ?) AND (fire_time IS NULL OR fire_time < ?)", this.owner, now,
+                leaseUntil(now), fireTime, leaseKey, now, slotStart);
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            this.jdbcTemplate.update("INSERT INTO m_job_lease (job_key, owner, acquired_at, lease_until, fire_time) VALUES (?, ?, ?, ?, ?)",
+                    leaseKey, this.owner, now, leaseUntil(now), fireTime);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Releases a lease taken by this node, keeping the fire time of a job run.
+     */
+    public void release(final String leaseKey) {
+        this.jdbcTemplate.update("DELETE FROM m_job_lease WHERE job_key = ? AND owner = ? AND fire_time IS NULL", leaseKey, this.owner);
+        this.jdbcTemplate.update("UPDATE m_job_lease SET owner = NULL WHERE job_key = ? AND owner = ?", leaseKey, this.owner);
+    }
+
+    /**
+     * The fire time of the last run of the job which took its lease, <code>null</code> if none did yet.
+     */
+    public Date retrieveLastFireTime(final String jobKey) {
+        final List<LocalDateTime> fireTimes = this.jdbcTemplate.queryForList("SELECT fire_time FROM m_job_lease WHERE job_key = ?",
+                LocalDateTime.class, jobKey);
+        return fireTimes.isEmpty() || fireTimes.get(0) == null ? null : Date.from(fireTimes.get(0).toInstant(ZoneOffset.UTC));
+    }
+
+    /**
+     * Extends all leases held by this node, called on every heartbeat.
+     */
+    public int renewLeases() {
+        final LocalDateTime now = now();
+        return this.jdbcTemplate.update("UPDATE m_job_lease SET lease_until = ? WHERE owner = ?", leaseUntil(now), this.owner);
+    }
+
+    /**
+     * Jobs flagged as running whose lease expired, i.e. whose node died in the middle of the run.
+     */
+    public List<Long> retrieveJobIdsWithExpiredLease() {
+        return this.jdbcTemplate.queryForList("SELECT j.id FROM job j JOIN m_job_lease l ON l.job_key = j.job_key "
+                + "WHERE j.currently_running = true AND l.owner IS NOT NULL AND l.lease_until < ?", Long.class, now());
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    LocalDateTime leaseUntil(final LocalDateTime now) {
+        return now.plus(LEASE_DURATION);
+    }
+
+    private static LocalDateTime toUtc(final Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC);
+    }
+}
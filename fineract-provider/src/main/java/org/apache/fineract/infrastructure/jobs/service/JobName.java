@@ -47,7 +47,9 @@ public enum JobName {
                                                                                                                                                                                                     "Update Email Outbound with campaign message"), EXECUTE_EMAIL(
                                                                                                                                                                                                             "Execute Email"), UPDATE_TRAIL_BALANCE_DETAILS(
                                                                                                                                                                                                                     "Update Trial Balance Details"), EXECUTE_DIRTY_JOBS(
-                                                                                                                                                                                                                            "Execute All Dirty Jobs");
+                                                                                                                                                                                                                            "Execute All Dirty Jobs"), ARCHIVE_AUDIT_LOG(
+                                                                                                                                                                                                                                    "Archive Audit Log"), REBUILD_SEARCH_INDEX(
+                                                                                                                                                                                                                                            "Rebuild Search Index");
 
     private final String name;
 
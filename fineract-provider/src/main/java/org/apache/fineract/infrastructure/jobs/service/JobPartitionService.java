@@ -0,0 +1,366 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.jobs.service;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.apache.fineract.useradministration.domain.AppUserRepositoryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Distributes the id ranges of a {@link PartitionedJob} run over the cluster through <code>m_job_partition</code>.
+ *
+ * The node holding the job lease publishes the ranges and works on them with its own thread pool; every other node
+ * picks up open ranges of live runs on its lease heartbeat, see {@link #runOpenPartitions()}. A range is claimed once,
+ * with a conditional update, and its claim is renewed with the leases. A range whose claim lapsed is failed instead of
+ * claimed again, as its node may only be slow and still processing it; the job processes its ids on its next run. A run
+ * is live while its leader holds the lease on the run id; the ranges of a run whose leader died are left alone and
+ * dropped when the job publishes its next run.
+ */
+@Service
+public class JobPartitionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobPartitionService.class);
+    private static final Gson GSON = new Gson();
+    private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+    private static final String STATUS_OPEN = "OPEN";
+    private static final String STATUS_CLAIMED = "CLAIMED";
+    private static final String STATUS_DONE = "DONE";
+    private static final String STATUS_FAILED = "FAILED";
+    private static final int FOLLOWER_THREAD_COUNT = 4;
+    private static final long POLL_INTERVAL_MILLIS = 2000L;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private static final String CLAIMABLE = "p.status = '" + STATUS_OPEN + "'";
+    private static final String LIVE_RUN = "EXISTS (SELECT 1 FROM m_job_lease l WHERE l.job_key = p.run_id AND l.lease_until >= ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseService jobLeaseService;
+    private final ApplicationContext applicationContext;
+    private final AppUserRepositoryWrapper userRepository;
+    private final ExecutorService followerExecutor = Executors.newFixedThreadPool(FOLLOWER_THREAD_COUNT);
+    private final AtomicInteger activeFollowers = new AtomicInteger();
+
+    @Autowired
+    public JobPartitionService(final JdbcTemplate jdbcTemplate, final JobLeaseService jobLeaseService,
+            final ApplicationContext applicationContext, final AppUserRepositoryWrapper userRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseService = jobLeaseService;
+        this.applicationContext = applicationContext;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Publishes the given id ranges of a new run of the job, works on them on <code>threadPoolSize</code> threads of this
+     * node together with the other nodes and waits until all of them are processed.
+     *
+     * @param ranges
+     *            id ranges as <code>{ from, to }</code>, both inclusive
+     * @return the processed partitions, failed ones carry their error message
+     */
+    public List<JobPartitionData> execute(final JobName jobName, final Map<String, String> context, final List<long[]> ranges,
+            final int threadPoolSize) {
+        if (ranges.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final String runId = "run:" + UUID.randomUUID();
+        if (!this.jobLeaseService.tryAcquire(runId)) {
+            throw new IllegalStateException("Lease on new job run " + runId + " already taken");
+        }
+        try {
+            publish(runId, jobName, context, ranges);
+            final long start = System.currentTimeMillis();
+            final int processedHere = workOnLocally(runId, threadPoolSize);
+            while (countUnfinished(runId) > 0) {
+                try {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for the partitions of " + jobName, e);
+                }
+                failLapsedClaims(runId);
+                // picks up the ranges no node started on yet
+                workOn(runId);
+            }
+            final List<JobPartitionData> partitions = this.jdbcTemplate.query("SELECT " + PartitionMapper.SCHEMA
+                    + " FROM m_job_partition p WHERE p.run_id = ? ORDER BY p.partition_no", new PartitionMapper(), runId);
+            LOG.info("{}: {} partitions, {} processed on this node, in {} ms", jobName, partitions.size(), processedHere,
+                    System.currentTimeMillis() - start);
+            return partitions;
+        } finally {
+            this.jdbcTemplate.update("DELETE FROM m_job_partition WHERE run_id = ?", runId);
+            this.jobLeaseService.release(runId);
+        }
+    }
+
+    /**
+     * Turns the failed partitions of a run into the causes of a {@link JobExecutionException}.
+     */
+    public static List<Throwable> failures(final List<JobPartitionData> partitions) {
+        final List<Throwable> failures = new ArrayList<>();
+        for (final JobPartitionData partition : partitions) {
+            if (partition.isFailed()) {
+                failures.add(new IllegalStateException("Partition " + partition.getPartitionNo() + " (ids " + partition.getRangeFrom()
+                        + " to " + partition.getRangeTo() + ") failed: " + partition.getErrorMessage()));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Starts working on the open partitions of the live runs of the current tenant, as long as this node has follower
+     * threads to spare. Called on the lease heartbeat.
+     */
+    public void runOpenPartitions() {
+        if (this.activeFollowers.get() >= FOLLOWER_THREAD_COUNT) {
+            return;
+        }
+        final LocalDateTime now = this.jobLeaseService.now();
+        final List<String> runIds = this.jdbcTemplate.queryForList(
+                "SELECT DISTINCT p.run_id FROM m_job_partition p WHERE " + CLAIMABLE + " AND " + LIVE_RUN, String.class, now);
+        if (runIds.isEmpty()) {
+            return;
+        }
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final AppUser user = this.userRepository.fetchSystemUser();
+        for (final String runId : runIds) {
+            if (this.activeFollowers.incrementAndGet() > FOLLOWER_THREAD_COUNT) {
+                this.activeFollowers.decrementAndGet();
+                return;
+            }
+            this.followerExecutor.submit(() -> {
+                ThreadLocalContextUtil.setTenant(tenant);
+                SecurityContextHolder.getContext()
+                        .setAuthentication(new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities()));
+                try {
+                    workOn(runId);
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to work on the partitions of job run {}", runId, e);
+                } finally {
+                    this.activeFollowers.decrementAndGet();
+                    SecurityContextHolder.clearContext();
+                    ThreadLocalContextUtil.clearTenant();
+                }
+            });
+        }
+    }
+
+    /**
+     * Extends the claims of this node on the partitions it is processing, called on every heartbeat.
+     */
+    public int renewClaims() {
+        final LocalDateTime now = this.jobLeaseService.now();
+        return this.jdbcTemplate.update("UPDATE m_job_partition SET lease_until = ? WHERE owner = ? AND status = ?",
+                this.jobLeaseService.leaseUntil(now), this.jobLeaseService.getOwner(), STATUS_CLAIMED);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.followerExecutor.shutdownNow();
+    }
+
+    private void publish(final String runId, final JobName jobName, final Map<String, String> context, final List<long[]> ranges) {
+        // the ranges of a previous run whose leader died must not be processed twice: wait for the ones still being
+        // processed on other nodes and drop the rest
+        final String orphanedRuns = " FROM m_job_partition p WHERE p.job_name = ? AND NOT " + LIVE_RUN;
+        while (countOrphanedClaims(jobName, orphanedRuns) > 0) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the orphaned partitions of " + jobName, e);
+            }
+        }
+        this.jdbcTemplate.update("DELETE FROM m_job_partition WHERE id IN (SELECT id FROM (SELECT p.id" + orphanedRuns + ") x)",
+                jobName.name(), this.jobLeaseService.now());
+
+        final String contextJson = GSON.toJson(context);
+        final List<Object[]> rows = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            rows.add(new Object[] { runId, jobName.name(), contextJson, i, ranges.get(i)[0], ranges.get(i)[1], STATUS_OPEN });
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO m_job_partition (run_id, job_name, context, partition_no, range_from, range_to, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private int countOrphanedClaims(final JobName jobName, final String orphanedRuns) {
+        final LocalDateTime now = this.jobLeaseService.now();
+        final Integer count = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*)" + orphanedRuns + " AND p.status = '" + STATUS_CLAIMED + "' AND p.lease_until >= ?", Integer.class,
+                jobName.name(), now, now);
+        return count == null ? 0 : count;
+    }
+
+    private int countUnfinished(final String runId) {
+        final Integer count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM m_job_partition WHERE run_id = ? AND status IN (?, ?)",
+                Integer.class, runId, STATUS_OPEN, STATUS_CLAIMED);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Fails the partitions of the run whose node stopped renewing its claim; they are not claimed again, as a node that is
+     * only slow would process them twice.
+     */
+    private void failLapsedClaims(final String runId) {
+        final int failed = this.jdbcTemplate.update("UPDATE m_job_partition SET status = ?, error_message = ? "
+                + "WHERE run_id = ? AND status = ? AND lease_until < ?", STATUS_FAILED,
+                "Claim lapsed, the ids are processed again on the next run of the job", runId, STATUS_CLAIMED, this.jobLeaseService.now());
+        if (failed > 0) {
+            LOG.warn("{} partitions of job run {} failed as their claim lapsed", failed, runId);
+        }
+    }
+
+    private int workOnLocally(final String runId, final int threadPoolSize) {
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadPoolSize);
+        try {
+            final List<Future<Integer>> workers = new ArrayList<>(threadPoolSize);
+            for (int i = 0; i < threadPoolSize; i++) {
+                workers.add(executorService.submit(() -> {
+                    ThreadLocalContextUtil.setTenant(tenant);
+                    SecurityContextHolder.setContext(securityContext);
+                    try {
+                        return workOn(runId);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                        ThreadLocalContextUtil.clearTenant();
+                    }
+                }));
+            }
+            int processed = 0;
+            for (final Future<Integer> worker : workers) {
+                try {
+                    processed += worker.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Failed to work on the partitions of job run {}", runId, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted working on the partitions of job run " + runId, e);
+                }
+            }
+            return processed;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Claims and processes partitions of the run until none is left to claim.
+     */
+    private int workOn(final String runId) {
+        int processed = 0;
+        JobPartitionData partition = claimNext(runId);
+        while (partition != null) {
+            process(partition);
+            processed++;
+            partition = claimNext(runId);
+        }
+        return processed;
+    }
+
+    private JobPartitionData claimNext(final String runId) {
+        final LocalDateTime now = this.jobLeaseService.now();
+        final List<JobPartitionData> candidates = this.jdbcTemplate.query("SELECT " + PartitionMapper.SCHEMA
+                + " FROM m_job_partition p WHERE p.run_id = ? AND " + CLAIMABLE + " AND " + LIVE_RUN + " ORDER BY p.partition_no LIMIT 10",
+                new PartitionMapper(), runId, now);
+        for (final JobPartitionData candidate : candidates) {
+            final int claimed = this.jdbcTemplate.update(
+                    "UPDATE m_job_partition SET status = ?, owner = ?, lease_until = ? WHERE id = ? AND status = ?", STATUS_CLAIMED,
+                    this.jobLeaseService.getOwner(), this.jobLeaseService.leaseUntil(now), candidate.getId(), STATUS_OPEN);
+            if (claimed > 0) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void process(final JobPartitionData partition) {
+        String status = STATUS_DONE;
+        Map<String, String> result = null;
+        String errorMessage = null;
+        try {
+            result = findPartitionedJob(partition.getJobName()).processPartition(partition);
+        } catch (JobExecutionException | RuntimeException e) {
+            LOG.error("Partition {} (ids {} to {}) of {} failed", partition.getPartitionNo(), partition.getRangeFrom(),
+                    partition.getRangeTo(), partition.getJobName(), e);
+            status = STATUS_FAILED;
+            errorMessage = StringUtils.abbreviate(StringUtils.defaultString(e.getMessage(), e.getClass().getName()), MAX_MESSAGE_LENGTH);
+        }
+        this.jdbcTemplate.update("UPDATE m_job_partition SET status = ?, result = ?, error_message = ? WHERE id = ? AND owner = ?", status,
+                result == null ? null : GSON.toJson(result), errorMessage, partition.getId(), this.jobLeaseService.getOwner());
+    }
+
+    private PartitionedJob findPartitionedJob(final String jobName) {
+        final JobName name = JobName.valueOf(jobName);
+        for (final PartitionedJob partitionedJob : this.applicationContext.getBeansOfType(PartitionedJob.class).values()) {
+            if (partitionedJob.getPartitionedJobNames().contains(name)) {
+                return partitionedJob;
+            }
+        }
+        throw new IllegalStateException("No partitioned job registered for " + jobName);
+    }
+
+    private static final class PartitionMapper implements RowMapper<JobPartitionData> {
+
+        static final String SCHEMA = "p.id, p.run_id, p.job_name, p.context, p.partition_no, p.range_from, p.range_to, p.status, "
+                + "p.result, p.error_message";
+
+        @Override
+        public JobPartitionData mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+            return new JobPartitionData(rs.getLong("id"), rs.getString("run_id"), rs.getString("job_name"),
+                    fromJson(rs.getString("context")), rs.getInt("partition_no"), rs.getLong("range_from"), rs.getLong("range_to"),
+                    rs.getString("status"), fromJson(rs.getString("result")), rs.getString("error_message"));
+        }
+
+        private static Map<String, String> fromJson(final String json) {
+            return json == null ? Map.of() : GSON.fromJson(json, MAP_TYPE);
+        }
+    }
+}
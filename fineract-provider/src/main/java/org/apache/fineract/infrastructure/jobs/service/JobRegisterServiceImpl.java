@@ -27,8 +27,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
-import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
 import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
@@ -38,7 +40,6 @@ import org.apache.fineract.infrastructure.jobs.domain.JobParameter;
 import org.apache.fineract.infrastructure.jobs.domain.JobParameterRepository;
 import org.apache.fineract.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.apache.fineract.infrastructure.jobs.domain.SchedulerDetail;
-import org.apache.fineract.infrastructure.jobs.exception.JobNodeIdMismatchingException;
 import org.apache.fineract.infrastructure.jobs.exception.JobNotFoundException;
 import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
 import org.quartz.JobDataMap;
@@ -93,15 +94,19 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
     private SchedulerStopListener schedulerStopListener = new SchedulerStopListener(this);
 
     @Autowired
-    private FineractProperties fineractProperties;
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private JobPartitionService jobPartitionService;
+
+    private final ScheduledExecutorService leaseHeartbeat = Executors.newSingleThreadScheduledExecutor();
 
     @PostConstruct
     public void loadAllJobs() {
         final List<FineractPlatformTenant> allTenants = this.tenantDetailsService.findAllTenants();
         for (final FineractPlatformTenant tenant : allTenants) {
             ThreadLocalContextUtil.setTenant(tenant);
-            final List<ScheduledJobDetail> scheduledJobDetails = this.schedularWritePlatformService
-                    .retrieveAllJobs(fineractProperties.getNodeId());
+            final List<ScheduledJobDetail> scheduledJobDetails = this.schedularWritePlatformService.retrieveAllJobs();
             for (final ScheduledJobDetail jobDetails : scheduledJobDetails) {
                 scheduleJob(jobDetails);
                 jobDetails.updateTriggerMisfired(false);
@@ -113,6 +118,35 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
                 this.schedularWritePlatformService.updateSchedulerDetail(schedulerDetail);
             }
         }
+        final long heartbeatInterval = JobLeaseService.HEARTBEAT_INTERVAL.toMillis();
+        this.leaseHeartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renews the job leases and partition claims of this node, executes the jobs whose node died while running them and
+     * joins the partitioned job runs of the other nodes.
+     */
+    private void heartbeat() {
+        for (final FineractPlatformTenant tenant : this.tenantDetailsService.findAllTenants()) {
+            ThreadLocalContextUtil.setTenant(tenant);
+            try {
+                this.jobLeaseService.renewLeases();
+                this.jobPartitionService.renewClaims();
+                if (isSchedulerRunning()) {
+                    for (final Long jobId : this.jobLeaseService.retrieveJobIdsWithExpiredLease()) {
+                        final ScheduledJobDetail scheduledJobDetail = this.schedularWritePlatformService.findByJobId(jobId);
+                        LOG.warn("Lease on job {} of tenant {} expired while it was running, failing it over to this node",
+                                scheduledJobDetail.getJobName(), tenant.getTenantIdentifier());
+                        executeJob(scheduledJobDetail, SchedulerServiceConstants.TRIGGER_TYPE_FAILOVER);
+                    }
+                }
+                this.jobPartitionService.runOpenPartitions();
+            } catch (final RuntimeException e) {
+                LOG.error("Job lease heartbeat failed for tenant {}", tenant.getTenantIdentifier(), e);
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        }
     }
 
     public void executeJob(final ScheduledJobDetail scheduledJobDetail, String triggerType) {
@@ -181,8 +215,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
             schedulerDetail.updateSuspendedState(false);
             this.schedularWritePlatformService.updateSchedulerDetail(schedulerDetail);
             if (schedulerDetail.isExecuteInstructionForMisfiredJobs()) {
-                final List<ScheduledJobDetail> scheduledJobDetails = this.schedularWritePlatformService
-                        .retrieveAllJobs(fineractProperties.getNodeId());
+                final List<ScheduledJobDetail> scheduledJobDetails = this.schedularWritePlatformService.retrieveAllJobs();
                 for (final ScheduledJobDetail jobDetail : scheduledJobDetails) {
                     if (jobDetail.isTriggerMisfired()) {
                         if (jobDetail.isActiveSchedular()) {
@@ -216,14 +249,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
     @Override
     public void rescheduleJob(final Long jobId) {
         final ScheduledJobDetail scheduledJobDetail = this.schedularWritePlatformService.findByJobId(jobId);
-        final String nodeIdStored = scheduledJobDetail.getNodeId().toString();
-        if (nodeIdStored.equals(fineractProperties.getNodeId()) || nodeIdStored.equals("0")) {
-            rescheduleJob(scheduledJobDetail);
-        } else {
-            scheduledJobDetail.setIsMismatchedJob(true);
-            this.schedularWritePlatformService.saveOrUpdate(scheduledJobDetail);
-            throw new JobNodeIdMismatchingException(nodeIdStored, fineractProperties.getNodeId());
-        }
+        rescheduleJob(scheduledJobDetail);
     }
 
     @Override
@@ -232,15 +258,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         if (scheduledJobDetail == null) {
             throw new JobNotFoundException(String.valueOf(jobId));
         }
-        final String nodeIdStored = scheduledJobDetail.getNodeId().toString();
-
-        if (nodeIdStored.equals(fineractProperties.getNodeId()) || nodeIdStored.equals("0")) {
-            executeJob(scheduledJobDetail, null);
-        } else {
-            scheduledJobDetail.setIsMismatchedJob(true);
-            this.schedularWritePlatformService.saveOrUpdate(scheduledJobDetail);
-            throw new JobNodeIdMismatchingException(nodeIdStored, fineractProperties.getNodeId());
-        }
+        executeJob(scheduledJobDetail, null);
     }
 
     @Override
@@ -255,6 +273,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
      */
     @Override
     public void onApplicationEvent(@SuppressWarnings("unused") ContextClosedEvent event) {
+        this.leaseHeartbeat.shutdownNow();
         this.stopAllSchedulers();
     }
 
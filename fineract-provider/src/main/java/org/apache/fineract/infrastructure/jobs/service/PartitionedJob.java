@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.jobs.service;
+
+import java.util.Map;
+import java.util.Set;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+
+/**
+ * A job whose work is split into id ranges by {@link JobPartitionService#execute}, so the ranges can be processed by
+ * all nodes of the cluster and not only by the node holding the job lease.
+ *
+ * Implementations are looked up by job name on the node claiming a partition; everything needed to process a range
+ * has to travel in the partition context.
+ */
+public interface PartitionedJob {
+
+    Set<JobName> getPartitionedJobNames();
+
+    /**
+     * Processes the ids from {@link JobPartitionData#getRangeFrom()} to {@link JobPartitionData#getRangeTo()}, both
+     * inclusive, with the tenant and the system user already set on the current thread.
+     *
+     * @return counters reported back to the node running the job, may be empty
+     */
+    Map<String, String> processPartition(JobPartitionData partition) throws JobExecutionException;
+}
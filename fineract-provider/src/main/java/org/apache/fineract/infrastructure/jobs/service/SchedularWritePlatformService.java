@@ -27,7 +27,7 @@ import org.apache.fineract.infrastructure.jobs.domain.SchedulerDetail;
 
 public interface SchedularWritePlatformService {
 
-    List<ScheduledJobDetail> retrieveAllJobs(String nodeId);
+    List<ScheduledJobDetail> retrieveAllJobs();
 
     ScheduledJobDetail findByJobKey(String triggerKey);
 
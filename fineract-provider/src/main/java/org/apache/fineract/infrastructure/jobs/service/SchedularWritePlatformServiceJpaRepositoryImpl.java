@@ -58,8 +58,8 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
     }
 
     @Override
-    public List<ScheduledJobDetail> retrieveAllJobs(final String nodeId) {
-        return this.scheduledJobDetailsRepository.findAllJobs(Integer.parseInt(nodeId));
+    public List<ScheduledJobDetail> retrieveAllJobs() {
+        return this.scheduledJobDetailsRepository.findAll();
     }
 
     @Override
@@ -136,8 +136,8 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
     public boolean processJobDetailForExecution(final String jobKey, final String triggerType) {
         boolean isStopExecution = false;
         final ScheduledJobDetail scheduledJobDetail = this.scheduledJobDetailsRepository.findByJobKeyWithLock(jobKey);
-        if (scheduledJobDetail.isCurrentlyRunning() || (triggerType.equals(SchedulerServiceConstants.TRIGGER_TYPE_CRON)
-                && scheduledJobDetail.getNextRunTime().after(new Date()))) {
+        // the caller holds the job lease, a job still flagged as running was left behind by a node which died
+        if (triggerType.equals(SchedulerServiceConstants.TRIGGER_TYPE_CRON) && scheduledJobDetail.getNextRunTime().after(new Date())) {
             isStopExecution = true;
         }
         final SchedulerDetail schedulerDetail = retriveSchedulerDetail();
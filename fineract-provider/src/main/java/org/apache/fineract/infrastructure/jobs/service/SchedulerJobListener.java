@@ -19,6 +19,7 @@
 package org.apache.fineract.infrastructure.jobs.service;
 
 import java.util.Date;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.apache.fineract.infrastructure.jobs.domain.ScheduledJobRunHistory;
@@ -44,6 +45,8 @@ import org.springframework.stereotype.Component;
 @Component
 public class SchedulerJobListener implements JobListener {
 
+    private static final int MAX_RESULT_SUMMARY_LENGTH = 1000;
+
     private int stackTraceLevel = 0;
 
     private final String name = SchedulerServiceConstants.DEFAULT_LISTENER_NAME;
@@ -52,12 +55,16 @@ public class SchedulerJobListener implements JobListener {
 
     private final AppUserRepositoryWrapper userRepository;
 
+    private final JobLeaseService jobLeaseService;
+
     private final GrantedAuthoritiesMapper authoritiesMapper = new NullAuthoritiesMapper();
 
     @Autowired
-    public SchedulerJobListener(final SchedularWritePlatformService schedularService, final AppUserRepositoryWrapper userRepository) {
+    public SchedulerJobListener(final SchedularWritePlatformService schedularService, final AppUserRepositoryWrapper userRepository,
+            final JobLeaseService jobLeaseService) {
         this.schedularService = schedularService;
         this.userRepository = userRepository;
+        this.jobLeaseService = jobLeaseService;
     }
 
     @Override
@@ -80,14 +87,23 @@ public class SchedulerJobListener implements JobListener {
 
     @Override
     public void jobWasExecuted(final JobExecutionContext context, final JobExecutionException jobException) {
-        final Trigger trigger = context.getTrigger();
         final JobKey key = context.getJobDetail().getKey();
         final String jobKey = key.getName() + SchedulerServiceConstants.JOB_KEY_SEPERATOR + key.getGroup();
+        try {
+            saveRunHistory(context, jobException, jobKey);
+        } finally {
+            this.jobLeaseService.release(jobKey);
+        }
+    }
+
+    private void saveRunHistory(final JobExecutionContext context, final JobExecutionException jobException, final String jobKey) {
+        final Trigger trigger = context.getTrigger();
         final ScheduledJobDetail scheduledJobDetails = this.schedularService.findByJobKey(jobKey);
         final Long version = this.schedularService.fetchMaxVersionBy(jobKey) + 1;
         String status = SchedulerServiceConstants.STATUS_SUCCESS;
         String errorMessage = null;
         String errorLog = null;
+        String resultSummary = context.getResult() instanceof String ? (String) context.getResult() : null;
         if (jobException != null) {
             status = SchedulerServiceConstants.STATUS_FAILED;
             this.stackTraceLevel = 0;
@@ -102,7 +118,7 @@ public class SchedulerJobListener implements JobListener {
                         .append(element.getLineNumber()).append(")");
             }
             errorLog = sb.toString();
-
+            resultSummary = findResultSummary(jobException);
         }
         String triggerType = SchedulerServiceConstants.TRIGGER_TYPE_CRON;
         if (context.getMergedJobDataMap().containsKey(SchedulerServiceConstants.TRIGGER_TYPE_REFERENCE)) {
@@ -117,11 +133,23 @@ public class SchedulerJobListener implements JobListener {
         scheduledJobDetails.updateCurrentlyRunningStatus(false);
 
         final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, context.getFireTime(),
-                new Date(), status, errorMessage, triggerType, errorLog);
+                new Date(), status, errorMessage, triggerType, errorLog, StringUtils.abbreviate(resultSummary, MAX_RESULT_SUMMARY_LENGTH));
         // scheduledJobDetails.addRunHistory(runHistory);
 
         this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
+    }
 
+    /**
+     * The summary a failed job method left on its {@link org.apache.fineract.infrastructure.jobs.exception.JobExecutionException},
+     * wrapped by the method invocation.
+     */
+    private static String findResultSummary(final Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.apache.fineract.infrastructure.jobs.exception.JobExecutionException) {
+                return ((org.apache.fineract.infrastructure.jobs.exception.JobExecutionException) cause).getSummary();
+            }
+        }
+        return null;
     }
 
     private Throwable getCauseFromException(final Throwable exception) {
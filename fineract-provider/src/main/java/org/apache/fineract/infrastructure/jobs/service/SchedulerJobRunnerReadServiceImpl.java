@@ -144,7 +144,7 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
                     " job.id,job.display_name as displayName,job.next_run_time as nextRunTime,job.initializing_errorlog as initializingError,job.cron_expression as cronExpression,job.is_active as active,job.currently_running as currentlyRunning,")
                     .append(" runHistory.version,runHistory.start_time as lastRunStartTime,runHistory.end_time as lastRunEndTime,runHistory."
                             + sqlGenerator.escape("status")
-                            + ",runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                            + ",runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.result_summary as jobRunResultSummary ")
                     .append(" from job job  left join job_run_history runHistory ON job.id=runHistory.job_id and job.previous_run_start_time=runHistory.start_time ");
         }
 
@@ -169,11 +169,12 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
+            final String jobRunResultSummary = rs.getString("jobRunResultSummary");
 
             JobDetailHistoryData lastRunHistory = null;
             if (version > 0) {
                 lastRunHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status, jobRunErrorMessage, triggerType,
-                        jobRunErrorLog);
+                        jobRunErrorLog, jobRunResultSummary);
             }
             final JobDetailData jobDetail = new JobDetailData(id, displayName, nextRunTime, initializingError, cronExpression, active,
                     currentlyRunning, lastRunHistory);
@@ -190,7 +191,7 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
             sqlBuilder = new StringBuilder(200)
                     .append(" runHistory.version,runHistory.start_time as runStartTime,runHistory.end_time as runEndTime,runHistory."
                             + sqlGenerator.escape("status")
-                            + ",runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                            + ",runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.result_summary as jobRunResultSummary ")
                     .append(" from job job join job_run_history runHistory ON job.id=runHistory.job_id");
         }
 
@@ -207,8 +208,9 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
+            final String jobRunResultSummary = rs.getString("jobRunResultSummary");
             final JobDetailHistoryData jobDetailHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status,
-                    jobRunErrorMessage, triggerType, jobRunErrorLog);
+                    jobRunErrorMessage, triggerType, jobRunErrorLog, jobRunResultSummary);
             return jobDetailHistory;
         }
 
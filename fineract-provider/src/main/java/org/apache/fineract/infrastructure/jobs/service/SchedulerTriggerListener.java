@@ -20,9 +20,13 @@ package org.apache.fineract.infrastructure.jobs.service;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.security.SecureRandom;
+import java.text.ParseException;
+import java.util.Date;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
+import org.quartz.CronExpression;
+import org.quartz.CronTrigger;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
 import org.quartz.Trigger;
@@ -41,11 +45,14 @@ public class SchedulerTriggerListener implements TriggerListener {
 
     private final SchedularWritePlatformService schedularService;
     private final TenantDetailsService tenantDetailsService;
+    private final JobLeaseService jobLeaseService;
 
     @Autowired
-    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService) {
+    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService,
+            final JobLeaseService jobLeaseService) {
         this.schedularService = schedularService;
         this.tenantDetailsService = tenantDetailsService;
+        this.jobLeaseService = jobLeaseService;
 
     }
 
@@ -72,6 +79,13 @@ public class SchedulerTriggerListener implements TriggerListener {
         if (context.getMergedJobDataMap().containsKey(SchedulerServiceConstants.TRIGGER_TYPE_REFERENCE)) {
             triggerType = context.getMergedJobDataMap().getString(SchedulerServiceConstants.TRIGGER_TYPE_REFERENCE);
         }
+        // every node fires every job, only the one taking the lease for this fire runs it
+        final Date fireTime = context.getScheduledFireTime();
+        if (!this.jobLeaseService.tryAcquire(jobKey, fireTime, slotStart(trigger, fireTime, jobKey))) {
+            LOG.info("vetoJobExecution() job is running or already ran for this fire; tenant={}, jobKey={}, triggerType={}, fireTime={}",
+                    tenantIdentifier, jobKey, triggerType, fireTime);
+            return true;
+        }
         Integer maxNumberOfRetries = ThreadLocalContextUtil.getTenant().getConnection().getMaxRetriesOnDeadlock();
         Integer maxIntervalBetweenRetries = ThreadLocalContextUtil.getTenant().getConnection().getMaxIntervalBetweenRetries();
         Integer numberOfRetries = 0;
@@ -94,6 +108,7 @@ public class SchedulerTriggerListener implements TriggerListener {
             }
         }
         if (vetoJob) {
+            this.jobLeaseService.release(jobKey);
             LOG.warn(
                     "vetoJobExecution() WILL veto the execution (returning vetoJob == true; the job's execute method will NOT be called); "
                             + "maxNumberOfRetries={}, tenant={}, jobKey={}, triggerType={}, trigger={}, context={}",
@@ -102,6 +117,31 @@ public class SchedulerTriggerListener implements TriggerListener {
         return vetoJob;
     }
 
+    /**
+     * The time the job became due for a fire at <code>fireTime</code>: the last time of its cron schedule at or before it,
+     * which a node firing late after a misfire would otherwise see as a new run.
+     */
+    private Date slotStart(final Trigger trigger, final Date fireTime, final String jobKey) {
+        final Date lastFireTime = this.jobLeaseService.retrieveLastFireTime(jobKey);
+        if (!(trigger instanceof CronTrigger) || lastFireTime == null || !lastFireTime.before(fireTime)) {
+            return fireTime;
+        }
+        final CronExpression schedule;
+        try {
+            schedule = new CronExpression(((CronTrigger) trigger).getCronExpression());
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid cron expression of job " + jobKey, e);
+        }
+        schedule.setTimeZone(((CronTrigger) trigger).getTimeZone());
+        Date slotStart = lastFireTime;
+        Date next = schedule.getNextValidTimeAfter(slotStart);
+        while (next != null && !next.after(fireTime)) {
+            slotStart = next;
+            next = schedule.getNextValidTimeAfter(slotStart);
+        }
+        return slotStart;
+    }
+
     @Override
     public void triggerMisfired(final Trigger trigger) {
         LOG.error("triggerMisfired() trigger={}", trigger);
@@ -51,5 +51,13 @@ final class ReportMailingJobRunHistoryApiResourceSwagger {
         public String errorMessage;
         @Schema(example = "")
         public String errorLog;
+        @Schema(example = "1250")
+        public Long renderDurationMs;
+        @Schema(example = "830")
+        public Long deliveryDurationMs;
+        @Schema(example = "48213")
+        public Long attachmentSize;
+        @Schema(example = "3")
+        public Integer recipientCount;
     }
 }
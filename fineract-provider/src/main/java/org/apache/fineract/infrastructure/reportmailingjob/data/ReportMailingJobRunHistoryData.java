@@ -32,12 +32,17 @@ public final class ReportMailingJobRunHistoryData {
     private final String status;
     private final String errorMessage;
     private final String errorLog;
+    private final Long renderDurationMs;
+    private final Long deliveryDurationMs;
+    private final Long attachmentSize;
+    private final Integer recipientCount;
 
     /**
      * ReportMailingJobRunHistoryData private constructor
      **/
     private ReportMailingJobRunHistoryData(Long id, Long reportMailingJobId, ZonedDateTime startDateTime, ZonedDateTime endDateTime,
-            String status, String errorMessage, String errorLog) {
+            String status, String errorMessage, String errorLog, Long renderDurationMs, Long deliveryDurationMs, Long attachmentSize,
+            Integer recipientCount) {
         this.id = id;
         this.reportMailingJobId = reportMailingJobId;
         this.startDateTime = startDateTime;
@@ -45,6 +50,10 @@ public final class ReportMailingJobRunHistoryData {
         this.status = status;
         this.errorMessage = errorMessage;
         this.errorLog = errorLog;
+        this.renderDurationMs = renderDurationMs;
+        this.deliveryDurationMs = deliveryDurationMs;
+        this.attachmentSize = attachmentSize;
+        this.recipientCount = recipientCount;
     }
 
     /**
@@ -53,8 +62,10 @@ public final class ReportMailingJobRunHistoryData {
      * @return ReportMailingJobRunHistoryData object
      **/
     public static ReportMailingJobRunHistoryData newInstance(Long id, Long reportMailingJobId, ZonedDateTime startDateTime,
-            ZonedDateTime endDateTime, String status, String errorMessage, String errorLog) {
-        return new ReportMailingJobRunHistoryData(id, reportMailingJobId, startDateTime, endDateTime, status, errorMessage, errorLog);
+            ZonedDateTime endDateTime, String status, String errorMessage, String errorLog, Long renderDurationMs, Long deliveryDurationMs,
+            Long attachmentSize, Integer recipientCount) {
+        return new ReportMailingJobRunHistoryData(id, reportMailingJobId, startDateTime, endDateTime, status, errorMessage, errorLog,
+                renderDurationMs, deliveryDurationMs, attachmentSize, recipientCount);
     }
 
     /**
@@ -105,4 +116,32 @@ public final class ReportMailingJobRunHistoryData {
     public String getErrorLog() {
         return errorLog;
     }
+
+    /**
+     * @return the renderDurationMs
+     */
+    public Long getRenderDurationMs() {
+        return renderDurationMs;
+    }
+
+    /**
+     * @return the deliveryDurationMs
+     */
+    public Long getDeliveryDurationMs() {
+        return deliveryDurationMs;
+    }
+
+    /**
+     * @return the attachmentSize
+     */
+    public Long getAttachmentSize() {
+        return attachmentSize;
+    }
+
+    /**
+     * @return the recipientCount
+     */
+    public Integer getRecipientCount() {
+        return recipientCount;
+    }
 }
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.reportmailingjob.data;
+
+/**
+ * Immutable data object representing the outcome of one run of a report mailing job.
+ **/
+public final class ReportMailingJobRunResult {
+
+    private final String errorLog;
+    private final Long renderDurationMs;
+    private final Long deliveryDurationMs;
+    private final Long attachmentSize;
+    private final Integer recipientCount;
+
+    /**
+     * ReportMailingJobRunResult constructor
+     **/
+    public ReportMailingJobRunResult(final String errorLog, final Long renderDurationMs, final Long deliveryDurationMs,
+            final Long attachmentSize, final Integer recipientCount) {
+        this.errorLog = errorLog;
+        this.renderDurationMs = renderDurationMs;
+        this.deliveryDurationMs = deliveryDurationMs;
+        this.attachmentSize = attachmentSize;
+        this.recipientCount = recipientCount;
+    }
+
+    /**
+     * @return the error log, empty if the report was rendered and sent to all recipients
+     */
+    public String getErrorLog() {
+        return errorLog;
+    }
+
+    /**
+     * @return the time taken to render the report into its attachment file
+     */
+    public Long getRenderDurationMs() {
+        return renderDurationMs;
+    }
+
+    /**
+     * @return the time taken to send the attachment to all recipients, null if it was not sent
+     */
+    public Long getDeliveryDurationMs() {
+        return deliveryDurationMs;
+    }
+
+    /**
+     * @return the size of the attachment file in bytes
+     */
+    public Long getAttachmentSize() {
+        return attachmentSize;
+    }
+
+    /**
+     * @return the number of distinct recipients
+     */
+    public Integer getRecipientCount() {
+        return recipientCount;
+    }
+}
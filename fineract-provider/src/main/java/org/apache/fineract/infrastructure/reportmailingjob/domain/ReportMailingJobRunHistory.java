@@ -57,6 +57,18 @@ public class ReportMailingJobRunHistory extends AbstractPersistableCustom {
     @Column(name = "error_log", nullable = false)
     private String errorLog;
 
+    @Column(name = "render_duration_ms")
+    private Long renderDurationMs;
+
+    @Column(name = "delivery_duration_ms")
+    private Long deliveryDurationMs;
+
+    @Column(name = "attachment_size")
+    private Long attachmentSize;
+
+    @Column(name = "recipient_count")
+    private Integer recipientCount;
+
     /**
      * ReportMailingJobRunHistory protected constructor
      **/
@@ -66,7 +78,8 @@ public class ReportMailingJobRunHistory extends AbstractPersistableCustom {
      * ReportMailingJobRunHistory private constructor
      **/
     private ReportMailingJobRunHistory(final ReportMailingJob reportMailingJob, final ZonedDateTime startDateTime,
-            final ZonedDateTime endDateTime, final String status, final String errorMessage, final String errorLog) {
+            final ZonedDateTime endDateTime, final String status, final String errorMessage, final String errorLog,
+            final Long renderDurationMs, final Long deliveryDurationMs, final Long attachmentSize, final Integer recipientCount) {
         this.reportMailingJob = reportMailingJob;
         this.startDateTime = null;
 
@@ -83,6 +96,10 @@ public class ReportMailingJobRunHistory extends AbstractPersistableCustom {
         this.status = status;
         this.errorMessage = errorMessage;
         this.errorLog = errorLog;
+        this.renderDurationMs = renderDurationMs;
+        this.deliveryDurationMs = deliveryDurationMs;
+        this.attachmentSize = attachmentSize;
+        this.recipientCount = recipientCount;
     }
 
     /**
@@ -92,7 +109,20 @@ public class ReportMailingJobRunHistory extends AbstractPersistableCustom {
      **/
     public static ReportMailingJobRunHistory newInstance(final ReportMailingJob reportMailingJob, final ZonedDateTime startDateTime,
             final ZonedDateTime endDateTime, final String status, final String errorMessage, final String errorLog) {
-        return new ReportMailingJobRunHistory(reportMailingJob, startDateTime, endDateTime, status, errorMessage, errorLog);
+        return new ReportMailingJobRunHistory(reportMailingJob, startDateTime, endDateTime, status, errorMessage, errorLog, null, null,
+                null, null);
+    }
+
+    /**
+     * Creates an instance of the ReportMailingJobRunHistory class with the timing and size metrics of the run
+     *
+     * @return ReportMailingJobRunHistory object
+     **/
+    public static ReportMailingJobRunHistory newInstance(final ReportMailingJob reportMailingJob, final ZonedDateTime startDateTime,
+            final ZonedDateTime endDateTime, final String status, final String errorMessage, final String errorLog,
+            final Long renderDurationMs, final Long deliveryDurationMs, final Long attachmentSize, final Integer recipientCount) {
+        return new ReportMailingJobRunHistory(reportMailingJob, startDateTime, endDateTime, status, errorMessage, errorLog,
+                renderDurationMs, deliveryDurationMs, attachmentSize, recipientCount);
     }
 
     /**
@@ -138,4 +168,32 @@ public class ReportMailingJobRunHistory extends AbstractPersistableCustom {
     public String getErrorLog() {
         return errorLog;
     }
+
+    /**
+     * @return the renderDurationMs
+     */
+    public Long getRenderDurationMs() {
+        return renderDurationMs;
+    }
+
+    /**
+     * @return the deliveryDurationMs
+     */
+    public Long getDeliveryDurationMs() {
+        return deliveryDurationMs;
+    }
+
+    /**
+     * @return the attachmentSize
+     */
+    public Long getAttachmentSize() {
+        return attachmentSize;
+    }
+
+    /**
+     * @return the recipientCount
+     */
+    public Integer getRecipientCount() {
+        return recipientCount;
+    }
 }
@@ -23,7 +23,7 @@ import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJob
 public interface ReportMailingJobEmailService {
 
     /**
-     * Handles request to send an email with attachment
+     * Handles request to send an email with attachment. Safe to call concurrently; a failed delivery is thrown.
      *
      * @param reportMailingJobEmailData
      *            {@link ReportMailingJobEmailData} object
@@ -23,6 +23,7 @@ import java.util.Properties;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
 import org.apache.fineract.infrastructure.reportmailingjob.ReportMailingJobConstants;
 import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobConfigurationData;
 import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailData;
@@ -38,7 +39,6 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
 
     private static final Logger LOG = LoggerFactory.getLogger(ReportMailingJobEmailServiceImpl.class);
     private final ReportMailingJobConfigurationReadPlatformService reportMailingJobConfigurationReadPlatformService;
-    private Collection<ReportMailingJobConfigurationData> reportMailingJobConfigurationDataCollection;
 
     /**
      * ReportMailingJobEmailServiceImpl constructor
@@ -53,16 +53,16 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
     @Override
     public void sendEmailWithAttachment(ReportMailingJobEmailData reportMailingJobEmailData) {
         try {
-            // get all ReportMailingJobConfiguration objects from the database
-            this.reportMailingJobConfigurationDataCollection = this.reportMailingJobConfigurationReadPlatformService
+            // get all ReportMailingJobConfiguration objects from the database, the emails of a run are sent concurrently
+            final Collection<ReportMailingJobConfigurationData> configurations = this.reportMailingJobConfigurationReadPlatformService
                     .retrieveAllReportMailingJobConfigurations();
 
             JavaMailSenderImpl javaMailSenderImpl = new JavaMailSenderImpl();
-            javaMailSenderImpl.setHost(this.getGmailSmtpServer());
-            javaMailSenderImpl.setPort(this.getGmailSmtpPort());
-            javaMailSenderImpl.setUsername(this.getGmailSmtpUsername());
-            javaMailSenderImpl.setPassword(this.getGmailSmtpPassword());
-            javaMailSenderImpl.setJavaMailProperties(this.getJavaMailProperties());
+            javaMailSenderImpl.setHost(this.getGmailSmtpServer(configurations));
+            javaMailSenderImpl.setPort(this.getGmailSmtpPort(configurations));
+            javaMailSenderImpl.setUsername(this.getGmailSmtpUsername(configurations));
+            javaMailSenderImpl.setPassword(this.getGmailSmtpPassword(configurations));
+            javaMailSenderImpl.setJavaMailProperties(this.getJavaMailProperties(configurations));
 
             MimeMessage mimeMessage = javaMailSenderImpl.createMimeMessage();
 
@@ -82,20 +82,22 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
         }
 
         catch (MessagingException e) {
-            // handle the exception
             LOG.error("Problem occurred in sendEmailWithAttachment function", e);
+            // rethrown so that the failed delivery ends up in the error log of the run
+            throw new PlatformInternalServerException("error.msg.report.mailing.job.email.failed",
+                    "Failed to send the report email to " + reportMailingJobEmailData.getTo(), e);
         }
     }
 
     /**
      * @return Properties object containing JavaMail properties
      **/
-    private Properties getJavaMailProperties() {
+    private Properties getJavaMailProperties(final Collection<ReportMailingJobConfigurationData> configurations) {
         Properties properties = new Properties();
 
         properties.setProperty("mail.smtp.auth", "true");
         properties.setProperty("mail.smtp.starttls.enable", "true");
-        properties.setProperty("mail.smtp.ssl.trust", this.getGmailSmtpServer());
+        properties.setProperty("mail.smtp.ssl.trust", this.getGmailSmtpServer(configurations));
 
         return properties;
     }
@@ -107,11 +109,12 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
      *            -- the value of the name property
      * @return ReportMailingJobConfigurationData object
      **/
-    private ReportMailingJobConfigurationData getReportMailingJobConfigurationData(final String name) {
+    private ReportMailingJobConfigurationData getReportMailingJobConfigurationData(
+            final Collection<ReportMailingJobConfigurationData> configurations, final String name) {
         ReportMailingJobConfigurationData reportMailingJobConfigurationData = null;
 
-        if (this.reportMailingJobConfigurationDataCollection != null && !this.reportMailingJobConfigurationDataCollection.isEmpty()) {
-            for (ReportMailingJobConfigurationData reportMailingJobConfigurationDataObject : this.reportMailingJobConfigurationDataCollection) {
+        if (configurations != null && !configurations.isEmpty()) {
+            for (ReportMailingJobConfigurationData reportMailingJobConfigurationDataObject : configurations) {
                 String configurationName = reportMailingJobConfigurationDataObject.getName();
 
                 if (!StringUtils.isEmpty(configurationName) && configurationName.equals(name)) {
@@ -127,9 +130,9 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
     /**
      * @return Gmail smtp server name
      **/
-    private String getGmailSmtpServer() {
+    private String getGmailSmtpServer(final Collection<ReportMailingJobConfigurationData> configurations) {
         final ReportMailingJobConfigurationData reportMailingJobConfigurationData = this
-                .getReportMailingJobConfigurationData(ReportMailingJobConstants.GMAIL_SMTP_SERVER);
+                .getReportMailingJobConfigurationData(configurations, ReportMailingJobConstants.GMAIL_SMTP_SERVER);
 
         return (reportMailingJobConfigurationData != null) ? reportMailingJobConfigurationData.getValue() : null;
     }
@@ -137,9 +140,9 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
     /**
      * @return Gmail smtp server port number
      **/
-    private Integer getGmailSmtpPort() {
+    private Integer getGmailSmtpPort(final Collection<ReportMailingJobConfigurationData> configurations) {
         final ReportMailingJobConfigurationData reportMailingJobConfigurationData = this
-                .getReportMailingJobConfigurationData(ReportMailingJobConstants.GMAIL_SMTP_PORT);
+                .getReportMailingJobConfigurationData(configurations, ReportMailingJobConstants.GMAIL_SMTP_PORT);
         final String portNumber = (reportMailingJobConfigurationData != null) ? reportMailingJobConfigurationData.getValue() : null;
 
         return (portNumber != null) ? Integer.parseInt(portNumber) : null;
@@ -148,9 +151,9 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
     /**
      * @return Gmail smtp username
      **/
-    private String getGmailSmtpUsername() {
+    private String getGmailSmtpUsername(final Collection<ReportMailingJobConfigurationData> configurations) {
         final ReportMailingJobConfigurationData reportMailingJobConfigurationData = this
-                .getReportMailingJobConfigurationData(ReportMailingJobConstants.GMAIL_SMTP_USERNAME);
+                .getReportMailingJobConfigurationData(configurations, ReportMailingJobConstants.GMAIL_SMTP_USERNAME);
 
         return (reportMailingJobConfigurationData != null) ? reportMailingJobConfigurationData.getValue() : null;
     }
@@ -158,9 +161,9 @@ public class ReportMailingJobEmailServiceImpl implements ReportMailingJobEmailSe
     /**
      * @return Gmail smtp password
      **/
-    private String getGmailSmtpPassword() {
+    private String getGmailSmtpPassword(final Collection<ReportMailingJobConfigurationData> configurations) {
         final ReportMailingJobConfigurationData reportMailingJobConfigurationData = this
-                .getReportMailingJobConfigurationData(ReportMailingJobConstants.GMAIL_SMTP_PASSWORD);
+                .getReportMailingJobConfigurationData(configurations, ReportMailingJobConstants.GMAIL_SMTP_PASSWORD);
 
         return (reportMailingJobConfigurationData != null) ? reportMailingJobConfigurationData.getValue() : null;
     }
@@ -95,7 +95,9 @@ public class ReportMailingJobRunHistoryReadPlatformServiceImpl implements Report
         public String reportMailingJobRunHistorySchema() {
             return "rmjrh.id, rmjrh.job_id as reportMailingJobId, rmjrh.start_datetime as startDateTime, "
                     + "rmjrh.end_datetime as endDateTime, rmjrh.status, rmjrh.error_message as errorMessage, "
-                    + "rmjrh.error_log as errorLog " + "from m_report_mailing_job_run_history rmjrh";
+                    + "rmjrh.error_log as errorLog, rmjrh.render_duration_ms as renderDurationMs, "
+                    + "rmjrh.delivery_duration_ms as deliveryDurationMs, rmjrh.attachment_size as attachmentSize, "
+                    + "rmjrh.recipient_count as recipientCount " + "from m_report_mailing_job_run_history rmjrh";
         }
 
         @Override
@@ -107,9 +109,13 @@ public class ReportMailingJobRunHistoryReadPlatformServiceImpl implements Report
             final String status = rs.getString("status");
             final String errorMessage = rs.getString("errorMessage");
             final String errorLog = rs.getString("errorLog");
+            final Long renderDurationMs = JdbcSupport.getLong(rs, "renderDurationMs");
+            final Long deliveryDurationMs = JdbcSupport.getLong(rs, "deliveryDurationMs");
+            final Long attachmentSize = JdbcSupport.getLong(rs, "attachmentSize");
+            final Integer recipientCount = JdbcSupport.getInteger(rs, "recipientCount");
 
             return ReportMailingJobRunHistoryData.newInstance(id, reportMailingJobId, startDateTime, endDateTime, status, errorMessage,
-                    errorLog);
+                    errorLog, renderDurationMs, deliveryDurationMs, attachmentSize, recipientCount);
         }
     }
 }
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.reportmailingjob.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.service.ThreadContextSnapshot;
+import org.apache.fineract.infrastructure.dataqueries.service.ReadReportingService;
+import org.apache.fineract.infrastructure.report.provider.ReportingProcessServiceProvider;
+import org.apache.fineract.infrastructure.report.service.ReportingProcessService;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailAttachmentFileFormat;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailData;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobRunResult;
+import org.glassfish.jersey.internal.util.collection.MultivaluedStringMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs report mailing jobs on two bounded pools shared by all tenants: one renders the reports into temporary files
+ * through the streaming output of the reporting services, the other sends each file to the recipients over SMTP. A
+ * slow report therefore only occupies one render thread, and attachments never sit in the heap.
+ *
+ * The tenant, data source context, auth token and security context of the scheduler thread are carried over to the
+ * pool threads. When all threads of a pool are busy and its queue is full, the work runs on the handing over thread.
+ */
+@Component
+public class ReportMailingJobRunner implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportMailingJobRunner.class);
+    private static final String ERROR_SEPARATOR = " ---------- ";
+
+    private final ReadReportingService readReportingService;
+    private final ReportingProcessServiceProvider reportingProcessServiceProvider;
+    private final ReportMailingJobEmailService reportMailingJobEmailService;
+    private final ThreadPoolExecutor renderExecutor;
+    private final ThreadPoolExecutor deliveryExecutor;
+
+    @Autowired
+    public ReportMailingJobRunner(final FineractProperties fineractProperties, final ReadReportingService readReportingService,
+            final ReportingProcessServiceProvider reportingProcessServiceProvider,
+            final ReportMailingJobEmailService reportMailingJobEmailService) {
+        this.readReportingService = readReportingService;
+        this.reportingProcessServiceProvider = reportingProcessServiceProvider;
+        this.reportMailingJobEmailService = reportMailingJobEmailService;
+        final FineractProperties.FineractReportMailingProperties properties = fineractProperties.getReportMailing();
+        this.renderExecutor = newExecutor("report-mailing-render-", properties.getRenderPoolSize(), properties.getQueueCapacity());
+        this.deliveryExecutor = newExecutor("report-mailing-delivery-", properties.getDeliveryPoolSize(), properties.getQueueCapacity());
+    }
+
+    private static ThreadPoolExecutor newExecutor(final String threadNamePrefix, final int poolSize, final int queueCapacity) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    final Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Renders the report <code>reportName</code> as <code>fileFormat</code> and sends it once to each distinct address
+     * of <code>emailRecipients</code>, ignoring case. The future never fails, errors end up in the error log of its
+     * result.
+     */
+    public CompletableFuture<ReportMailingJobRunResult> run(final String reportName, final MultivaluedMap<String, String> reportParams,
+            final ReportMailingJobEmailAttachmentFileFormat fileFormat, final Collection<String> emailRecipients, final String emailSubject,
+            final String emailMessage) {
+        final Map<String, String> recipients = new LinkedHashMap<>();
+        for (final String emailRecipient : emailRecipients) {
+            recipients.putIfAbsent(emailRecipient.trim().toLowerCase(Locale.ROOT), emailRecipient.trim());
+        }
+        final ThreadContextSnapshot context = ThreadContextSnapshot.capture();
+
+        return CompletableFuture.supplyAsync(() -> context.get(() -> render(reportName, reportParams, fileFormat)), this.renderExecutor)
+                .thenCompose(rendered -> {
+                    if (rendered.error != null) {
+                        return CompletableFuture.completedFuture(new ReportMailingJobRunResult(rendered.error, rendered.durationMs, null,
+                                rendered.size, recipients.size()));
+                    }
+                    return deliver(rendered, recipients.values(), emailSubject, emailMessage, context);
+                });
+    }
+
+    private CompletableFuture<ReportMailingJobRunResult> deliver(final RenderedReport rendered, final Collection<String> recipients,
+            final String emailSubject, final String emailMessage, final ThreadContextSnapshot context) {
+        final long start = System.currentTimeMillis();
+        final List<CompletableFuture<String>> deliveries = new ArrayList<>(recipients.size());
+        for (final String recipient : recipients) {
+            deliveries.add(CompletableFuture.supplyAsync(() -> context.get(() -> {
+                try {
+                    this.reportMailingJobEmailService
+                            .sendEmailWithAttachment(new ReportMailingJobEmailData(recipient, emailMessage, emailSubject, rendered.file));
+                    return null;
+                } catch (RuntimeException e) {
+                    LOG.warn("Failed to send the report {} to {}", rendered.file.getName(), recipient, e);
+                    return "Failed to send the report to " + recipient + ": " + e + ERROR_SEPARATOR;
+                }
+            }), this.deliveryExecutor));
+        }
+
+        return CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).handle((ignored, throwable) -> {
+            final StringBuilder errorLog = new StringBuilder();
+            for (final CompletableFuture<String> delivery : deliveries) {
+                final String error = delivery.getNow(null);
+                if (error != null) {
+                    errorLog.append(error);
+                }
+            }
+            rendered.delete();
+            return new ReportMailingJobRunResult(errorLog.toString(), rendered.durationMs, System.currentTimeMillis() - start,
+                    rendered.size, recipients.size());
+        });
+    }
+
+    private RenderedReport render(final String reportName, final MultivaluedMap<String, String> reportParams,
+            final ReportMailingJobEmailAttachmentFileFormat fileFormat) {
+        final long start = System.currentTimeMillis();
+        Path directory = null;
+        try {
+            final String reportType = this.readReportingService.getReportType(reportName, false, false);
+            final ReportingProcessService reportingProcessService = this.reportingProcessServiceProvider
+                    .findReportingProcessService(reportType);
+            if (reportingProcessService == null) {
+                return RenderedReport.failed(ReportingProcessServiceProvider.SERVICE_MISSING + reportType, start);
+            }
+
+            // ask the table reports for the file of the attachment format instead of JSON
+            final MultivaluedMap<String, String> requestParams = new MultivaluedStringMap(reportParams);
+            if (fileFormat == ReportMailingJobEmailAttachmentFileFormat.CSV) {
+                requestParams.putSingle("exportCSV", "true");
+            } else if (fileFormat == ReportMailingJobEmailAttachmentFileFormat.PDF) {
+                requestParams.putSingle("exportPDF", "true");
+            }
+            final Response response = reportingProcessService.processRequest(reportName, requestParams);
+            final Object entity = (response != null) ? response.getEntity() : null;
+
+            // one directory per run keeps the report name as the attachment name
+            directory = Files.createTempDirectory("report-mailing-");
+            final Path file = directory.resolve(reportName.replaceAll("[^A-Za-z0-9 ._-]", "_") + "." + fileFormat.getValue());
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                if (entity instanceof StreamingOutput) {
+                    ((StreamingOutput) entity).write(outputStream);
+                } else if (entity instanceof ByteArrayOutputStream) {
+                    ((ByteArrayOutputStream) entity).writeTo(outputStream);
+                } else if (entity instanceof File) {
+                    Files.copy(((File) entity).toPath(), outputStream);
+                } else {
+                    deleteDirectory(directory);
+                    return RenderedReport.failed("Response object entity is not a report file" + ERROR_SEPARATOR, start);
+                }
+            }
+
+            final long size = Files.size(file);
+            if (size == 0) {
+                deleteDirectory(directory);
+                return RenderedReport.failed("Report processing failed, empty output stream created", start);
+            }
+            return new RenderedReport(file.toFile(), size, System.currentTimeMillis() - start, null);
+        } catch (Exception e) {
+            LOG.warn("Failed to render the report {}", reportName, e);
+            if (directory != null) {
+                deleteDirectory(directory);
+            }
+            return RenderedReport.failed("The ReportMailingJobRunner.render method threw an Exception: " + e + ERROR_SEPARATOR, start);
+        }
+    }
+
+    private static void deleteDirectory(final Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete the report mailing directory {}", directory, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.renderExecutor.shutdownNow();
+        this.deliveryExecutor.shutdownNow();
+    }
+
+    private static final class RenderedReport {
+
+        private final File file;
+        private final Long size;
+        private final long durationMs;
+        private final String error;
+
+        private RenderedReport(final File file, final Long size, final long durationMs, final String error) {
+            this.file = file;
+            this.size = size;
+            this.durationMs = durationMs;
+            this.error = error;
+        }
+
+        private static RenderedReport failed(final String error, final long start) {
+            return new RenderedReport(null, null, System.currentTimeMillis() - start, error);
+        }
+
+        private void delete() {
+            deleteDirectory(this.file.toPath().getParent());
+        }
+    }
+}
@@ -18,20 +18,17 @@
  */
 package org.apache.fineract.infrastructure.reportmailingjob.service;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.api.JsonCommand;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
@@ -40,17 +37,13 @@ import org.apache.fineract.infrastructure.core.exception.PlatformDataIntegrityEx
 import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.dataqueries.domain.Report;
 import org.apache.fineract.infrastructure.dataqueries.domain.ReportRepositoryWrapper;
-import org.apache.fineract.infrastructure.dataqueries.service.ReadReportingService;
-import org.apache.fineract.infrastructure.documentmanagement.contentrepository.FileSystemContentRepository;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 import org.apache.fineract.infrastructure.jobs.service.JobName;
-import org.apache.fineract.infrastructure.report.provider.ReportingProcessServiceProvider;
-import org.apache.fineract.infrastructure.report.service.ReportingProcessService;
 import org.apache.fineract.infrastructure.reportmailingjob.ReportMailingJobConstants;
 import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailAttachmentFileFormat;
-import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailData;
 import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobPreviousRunStatus;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobRunResult;
 import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobStretchyReportParamDateOption;
 import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJob;
 import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJobRepository;
@@ -81,9 +74,7 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
     private final ReportMailingJobRepositoryWrapper reportMailingJobRepositoryWrapper;
     private final ReportMailingJobRepository reportMailingJobRepository;
     private final PlatformSecurityContext platformSecurityContext;
-    private final ReportMailingJobEmailService reportMailingJobEmailService;
-    private final ReadReportingService readReportingService;
-    private final ReportingProcessServiceProvider reportingProcessServiceProvider;
+    private final ReportMailingJobRunner reportMailingJobRunner;
     private final ReportMailingJobRunHistoryRepository reportMailingJobRunHistoryRepository;
     private static final String DATETIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
@@ -92,18 +83,15 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
             final ReportMailingJobValidator reportMailingJobValidator,
             final ReportMailingJobRepositoryWrapper reportMailingJobRepositoryWrapper,
             final ReportMailingJobRepository reportMailingJobRepository, final PlatformSecurityContext platformSecurityContext,
-            final ReportMailingJobEmailService reportMailingJobEmailService, final ReadReportingService readReportingService,
-            final ReportMailingJobRunHistoryRepository reportMailingJobRunHistoryRepository,
-            final ReportingProcessServiceProvider reportingProcessServiceProvider) {
+            final ReportMailingJobRunner reportMailingJobRunner,
+            final ReportMailingJobRunHistoryRepository reportMailingJobRunHistoryRepository) {
         this.reportRepositoryWrapper = reportRepositoryWrapper;
         this.reportMailingJobValidator = reportMailingJobValidator;
         this.reportMailingJobRepositoryWrapper = reportMailingJobRepositoryWrapper;
         this.reportMailingJobRepository = reportMailingJobRepositoryWrapper.getReportMailingJobRepository();
         this.platformSecurityContext = platformSecurityContext;
-        this.reportMailingJobEmailService = reportMailingJobEmailService;
-        this.readReportingService = readReportingService;
+        this.reportMailingJobRunner = reportMailingJobRunner;
         this.reportMailingJobRunHistoryRepository = reportMailingJobRunHistoryRepository;
-        this.reportingProcessServiceProvider = reportingProcessServiceProvider;
     }
 
     @Override
@@ -249,6 +237,8 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
     public void executeReportMailingJobs() throws JobExecutionException {
         final Collection<ReportMailingJob> reportMailingJobCollection = this.reportMailingJobRepository
                 .findByIsActiveTrueAndIsDeletedFalse();
+        final Map<ReportMailingJob, CompletableFuture<ReportMailingJobRunResult>> runs = new LinkedHashMap<>();
+        final Map<ReportMailingJob, ZonedDateTime> runStartDateTimes = new LinkedHashMap<>();
 
         for (ReportMailingJob reportMailingJob : reportMailingJobCollection) {
             // get the tenant's date as a ZonedDateTime object
@@ -263,7 +253,6 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
                 if (emailAttachmentFileFormat != null && emailAttachmentFileFormat.isValid()) {
                     final Report stretchyReport = reportMailingJob.getStretchyReport();
                     final String reportName = (stretchyReport != null) ? stretchyReport.getReportName() : null;
-                    final StringBuilder errorLog = new StringBuilder();
                     final Map<String, String> validateStretchyReportParamMap = this.reportMailingJobValidator
                             .validateStretchyReportParamMap(reportMailingJob.getStretchyReportParamMap());
                     MultivaluedMap<String, String> reportParams = new MultivaluedStringMap();
@@ -290,16 +279,27 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
                         }
                     }
 
-                    // generate the report output stream, method in turn call
-                    // another that sends the file to the email recipients
-                    this.generateReportOutputStream(reportMailingJob, emailAttachmentFileFormat, reportParams, reportName, errorLog);
-
-                    // update the previous run time, next run time, status,
-                    // error log properties
-                    this.updateReportMailingJobAfterJobExecution(reportMailingJob, errorLog, localDateTimeOftenant);
+                    // render the report and send it to the email recipients on the worker pools, so that one slow
+                    // report does not hold up the others
+                    final Set<String> emailRecipients = this.reportMailingJobValidator
+                            .validateEmailRecipients(reportMailingJob.getEmailRecipients());
+                    runs.put(reportMailingJob, this.reportMailingJobRunner.run(reportName, reportParams, emailAttachmentFileFormat,
+                            emailRecipients, reportMailingJob.getEmailSubject(), reportMailingJob.getEmailMessage()));
+                    runStartDateTimes.put(reportMailingJob, localDateTimeOftenant);
                 }
             }
         }
+
+        for (Map.Entry<ReportMailingJob, CompletableFuture<ReportMailingJobRunResult>> run : runs.entrySet()) {
+            final ReportMailingJobRunResult result = run.getValue().join();
+            LOG.info("Report mailing job {} rendered {} bytes in {} ms and sent them to {} recipients in {} ms", run.getKey().getName(),
+                    result.getAttachmentSize(), result.getRenderDurationMs(), result.getRecipientCount(), result.getDeliveryDurationMs());
+
+            // update the previous run time, next run time, status,
+            // error log properties
+            this.updateReportMailingJobAfterJobExecution(run.getKey(), new StringBuilder(result.getErrorLog()),
+                    runStartDateTimes.get(run.getKey()), result);
+        }
     }
 
     /**
@@ -311,10 +311,12 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
      *            -- StringBuilder object containing the error log if any
      * @param jobStartDateTime
      *            -- the start ZonedDateTime of the job
+     * @param runResult
+     *            -- the timing and size metrics of the run
      *
      **/
     private void updateReportMailingJobAfterJobExecution(final ReportMailingJob reportMailingJob, final StringBuilder errorLog,
-            final ZonedDateTime jobStartDateTime) {
+            final ZonedDateTime jobStartDateTime, final ReportMailingJobRunResult runResult) {
         final String recurrence = reportMailingJob.getRecurrence();
         final ZonedDateTime nextRunDateTime = reportMailingJob.getNextRunDateTime();
         ReportMailingJobPreviousRunStatus reportMailingJobPreviousRunStatus = ReportMailingJobPreviousRunStatus.SUCCESS;
@@ -350,7 +352,7 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
 
         // create a new report mailing job run history entity
         this.createReportMailingJobRunHistroryAfterJobExecution(reportMailingJob, errorLog, jobStartDateTime,
-                reportMailingJobPreviousRunStatus.getValue());
+                reportMailingJobPreviousRunStatus.getValue(), runResult);
     }
 
     /**
@@ -389,14 +391,17 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
      *            -- the start ZonedDateTime of the job
      * @param jobRunStatus
      *            -- the status of the job (success/error)
+     * @param runResult
+     *            -- the timing and size metrics of the run
      *
      **/
     private void createReportMailingJobRunHistroryAfterJobExecution(final ReportMailingJob reportMailingJob, final StringBuilder errorLog,
-            final ZonedDateTime jobStartDateTime, final String jobRunStatus) {
+            final ZonedDateTime jobStartDateTime, final String jobRunStatus, final ReportMailingJobRunResult runResult) {
         final ZonedDateTime jobEndDateTime = DateUtils.getLocalDateTimeOfTenant().atZone(DateUtils.getDateTimeZoneOfTenant());
         final String errorLogToString = (errorLog != null) ? errorLog.toString() : null;
         final ReportMailingJobRunHistory reportMailingJobRunHistory = ReportMailingJobRunHistory.newInstance(reportMailingJob,
-                jobStartDateTime, jobEndDateTime, jobRunStatus, null, errorLogToString);
+                jobStartDateTime, jobEndDateTime, jobRunStatus, null, errorLogToString, runResult.getRenderDurationMs(),
+                runResult.getDeliveryDurationMs(), runResult.getAttachmentSize(), runResult.getRecipientCount());
 
         this.reportMailingJobRunHistoryRepository.save(reportMailingJobRunHistory);
     }
@@ -424,92 +429,4 @@ public class ReportMailingJobWritePlatformServiceImpl implements ReportMailingJo
         throw new PlatformDataIntegrityException("error.msg.charge.unknown.data.integrity.issue",
                 "Unknown data integrity issue with resource: " + realCause.getMessage());
     }
-
-    /**
-     * generate the report output stream
-     *
-     * @param reportMailingJob
-     * @param emailAttachmentFileFormat
-     * @param reportParams
-     * @param reportName
-     * @param errorLog
-     * @return the error log StringBuilder object
-     */
-    private StringBuilder generateReportOutputStream(final ReportMailingJob reportMailingJob,
-            final ReportMailingJobEmailAttachmentFileFormat emailAttachmentFileFormat, final MultivaluedMap<String, String> reportParams,
-            final String reportName, final StringBuilder errorLog) {
-
-        try {
-            final boolean isSelfServiceUserReport = false;
-            final String reportType = this.readReportingService.getReportType(reportName, isSelfServiceUserReport, false);
-            final ReportingProcessService reportingProcessService = this.reportingProcessServiceProvider
-                    .findReportingProcessService(reportType);
-
-            if (reportingProcessService != null) {
-                final Response processReport = reportingProcessService.processRequest(reportName, reportParams);
-                final Object reponseObject = (processReport != null) ? processReport.getEntity() : null;
-
-                if (reponseObject != null && reponseObject.getClass().equals(ByteArrayOutputStream.class)) {
-                    final ByteArrayOutputStream byteArrayOutputStream = ByteArrayOutputStream.class.cast(reponseObject);
-                    final String fileLocation = FileSystemContentRepository.FINERACT_BASE_DIR + File.separator + "";
-                    final String fileNameWithoutExtension = fileLocation + File.separator + reportName;
-
-                    // check if file directory exists, if not create directory
-                    if (!new File(fileLocation).isDirectory()) {
-                        new File(fileLocation).mkdirs();
-                    }
-
-                    if ((byteArrayOutputStream == null) || byteArrayOutputStream.size() == 0) {
-                        errorLog.append("Report processing failed, empty output stream created");
-                    } else if ((errorLog != null && errorLog.length() == 0) && (byteArrayOutputStream.size() > 0)) {
-                        final String fileName = fileNameWithoutExtension + "." + emailAttachmentFileFormat.getValue();
-
-                        // send the file to email recipients
-                        this.sendReportFileToEmailRecipients(reportMailingJob, fileName, byteArrayOutputStream, errorLog);
-                    }
-                } else {
-                    errorLog.append("Response object entity is not equal to ByteArrayOutputStream ---------- ");
-                }
-            } else {
-                errorLog.append(ReportingProcessServiceProvider.SERVICE_MISSING + reportType);
-            }
-        } catch (Exception e) {
-            errorLog.append("The ReportMailingJobWritePlatformServiceImpl.generateReportOutputStream method threw an Exception: " + e
-                    + " ---------- ");
-        }
-
-        return errorLog;
-    }
-
-    /**
-     * send report file to email recipients
-     *
-     * @param reportMailingJob
-     * @param fileName
-     * @param byteArrayOutputStream
-     * @param errorLog
-     */
-    private void sendReportFileToEmailRecipients(final ReportMailingJob reportMailingJob, final String fileName,
-            final ByteArrayOutputStream byteArrayOutputStream, final StringBuilder errorLog) {
-        final Set<String> emailRecipients = this.reportMailingJobValidator.validateEmailRecipients(reportMailingJob.getEmailRecipients());
-
-        try {
-            final File file = new File(fileName);
-            final FileOutputStream outputStream = new FileOutputStream(file);
-            byteArrayOutputStream.writeTo(outputStream);
-
-            for (String emailRecipient : emailRecipients) {
-                final ReportMailingJobEmailData reportMailingJobEmailData = new ReportMailingJobEmailData(emailRecipient,
-                        reportMailingJob.getEmailMessage(), reportMailingJob.getEmailSubject(), file);
-
-                this.reportMailingJobEmailService.sendEmailWithAttachment(reportMailingJobEmailData);
-            }
-
-            outputStream.close();
-
-        } catch (IOException e) {
-            errorLog.append("The ReportMailingJobWritePlatformServiceImpl.sendReportFileToEmailRecipients method threw an IOException "
-                    + "exception: " + e + " ---------- ");
-        }
-    }
 }
@@ -95,6 +95,7 @@ import org.apache.fineract.portfolio.paymenttype.domain.PaymentTypeRepository;
 import org.apache.fineract.portfolio.savings.SavingsAccountTransactionType;
 import org.apache.fineract.portfolio.savings.SavingsTransactionBooleanValues;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccount;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountAssembler;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountDomainService;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountRepository;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransaction;
@@ -120,6 +121,15 @@ public class InteropServiceImpl implements InteropService {
 
     private static final Logger LOG = LoggerFactory.getLogger(InteropServiceImpl.class);
 
+    // reserves the amount only if it is still withdrawable, the row lock serializes the holds of the account
+    private static final String HOLD_FUNDS_SQL = "UPDATE m_savings_account SET total_savings_amount_on_hold = COALESCE(total_savings_amount_on_hold, 0) + ?"
+            + " WHERE id = ? AND COALESCE(account_balance_derived, 0)"
+            + " - CASE WHEN enforce_min_required_balance = ? THEN COALESCE(min_required_balance, 0) ELSE 0 END"
+            + " + CASE WHEN allow_overdraft = ? THEN COALESCE(overdraft_limit, 0) ELSE 0 END"
+            + " - COALESCE(on_hold_funds_derived, 0) - COALESCE(total_savings_amount_on_hold, 0) >= ?";
+    private static final String RELEASE_FUNDS_SQL = "UPDATE m_savings_account SET total_savings_amount_on_hold = COALESCE(total_savings_amount_on_hold, 0) - ? WHERE id = ?";
+    private static final String MARK_HOLD_RELEASED_SQL = "UPDATE m_savings_account_transaction SET release_id_of_hold_amount = ? WHERE id = ? AND release_id_of_hold_amount IS NULL";
+
     private final PlatformSecurityContext securityContext;
     private final InteropDataValidator dataValidator;
 
@@ -135,6 +145,7 @@ public class InteropServiceImpl implements InteropService {
     private final SavingsAccountTransactionSummaryWrapper savingsAccountTransactionSummaryWrapper;
 
     private final SavingsAccountDomainService savingsAccountService;
+    private final SavingsAccountAssembler savingsAccountAssembler;
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -151,7 +162,8 @@ public class InteropServiceImpl implements InteropService {
             SavingsHelper savingsHelper, SavingsAccountTransactionSummaryWrapper savingsAccountTransactionSummaryWrapper,
             SavingsAccountDomainService savingsAccountService, final JdbcTemplate jdbcTemplate,
             final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
-            final DefaultToApiJsonSerializer<LoanAccountData> toApiJsonSerializer, DatabaseSpecificSQLGenerator sqlGenerator) {
+            final DefaultToApiJsonSerializer<LoanAccountData> toApiJsonSerializer, DatabaseSpecificSQLGenerator sqlGenerator,
+            SavingsAccountAssembler savingsAccountAssembler) {
         this.securityContext = securityContext;
         this.dataValidator = interopDataValidator;
         this.savingsAccountRepository = savingsAccountRepository;
@@ -168,6 +180,7 @@ public class InteropServiceImpl implements InteropService {
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.sqlGenerator = sqlGenerator;
+        this.savingsAccountAssembler = savingsAccountAssembler;
     }
 
     private static final class KycMapper implements RowMapper<InteropKycData> {
@@ -387,10 +400,11 @@ public class InteropServiceImpl implements InteropService {
 
         SavingsAccountTransactionType transactionType = request.getTransactionRole().getTransactionType();
         if (transactionType.isDebit()) {
-            SavingsAccount savingsAccount = validateAndGetSavingAccount(request);
+            SavingsAccount savingsAccount = validateAndGetSavingAccount(request, false);
             BigDecimal total = calculateTotalTransferAmount(request, savingsAccount);
 
-            if (MathUtil.isLessThan(savingsAccount.getWithdrawableBalance(), total)) {
+            if (MathUtil.isLessThan(savingsAccount.getWithdrawableBalance(), total)
+                    || jdbcTemplate.update(HOLD_FUNDS_SQL, total, savingsAccount.getId(), true, true, total) == 0) {
                 throw new InsufficientAccountBalanceException(savingsAccount.getExternalId(), savingsAccount.getWithdrawableBalance(), null,
                         total);
             }
@@ -408,10 +422,8 @@ public class InteropServiceImpl implements InteropService {
                     Money.of(accountCurrency, savingsAccount.getWithdrawableBalance().subtract(holdTransaction.getAmount())));
             holdTransaction.updateCumulativeBalanceAndDates(accountCurrency, transactionDate.toLocalDate());
 
-            savingsAccount.holdAmount(total);
-            savingsAccount.addTransaction(holdTransaction);
-
-            savingsAccountRepository.save(savingsAccount);
+            // the hold amount is already reserved on the account row, the transaction history is not loaded
+            savingsAccountTransactionRepository.save(holdTransaction);
         }
 
         return InteropTransferResponseData.build(command.commandId(), request.getTransactionCode(), InteropActionState.ACCEPTED,
@@ -424,7 +436,7 @@ public class InteropServiceImpl implements InteropService {
     public InteropTransferResponseData commitTransfer(@NotNull JsonCommand command) {
         InteropTransferRequestData request = dataValidator.validateAndParseTransferRequest(command);
         boolean isDebit = request.getTransactionRole().getTransactionType().isDebit();
-        SavingsAccount savingsAccount = validateAndGetSavingAccount(request);
+        SavingsAccount savingsAccount = validateAndGetSavingAccount(request, true);
         String transferCode = request.getTransferCode();
 
         if (findTransaction(savingsAccount, transferCode, (isDebit ? WITHDRAWAL : DEPOSIT).getValue()) != null) {
@@ -435,7 +447,7 @@ public class InteropServiceImpl implements InteropService {
         LocalDate transactionDate = transactionDateTime.toLocalDate();
         DateTimeFormatter fmt = getDateTimeFormatter(command);
         SavingsAccountTransaction transaction;
-        final boolean backdatedTxnsAllowedTill = false;
+        final boolean backdatedTxnsAllowedTill = savingsAccountAssembler.getPivotConfigStatus();
 
         if (isDebit) {
             SavingsAccountTransaction holdTransaction = findTransaction(savingsAccount, transferCode, AMOUNT_HOLD.getValue());
@@ -458,16 +470,16 @@ public class InteropServiceImpl implements InteropService {
                         .saveAndFlush(releaseAmount(holdTransaction, transactionDate, new Date(), getLoginUser()));
                 holdTransaction.updateReleaseId(releaseTransaction.getId());
                 savingsAccount.releaseOnHoldAmount(holdTransaction.getAmount());
-                savingsAccount.addTransaction(releaseTransaction);
-
-                savingsAccountRepository.save(savingsAccount);
             }
 
+            // the withdrawal recalculates the running balances, so commit still needs the transactions after the pivot date
+            savingsAccountAssembler.loadTransactionsToSavingsAccount(savingsAccount, backdatedTxnsAllowedTill);
             SavingsTransactionBooleanValues transactionValues = new SavingsTransactionBooleanValues(false, true, true, false, false);
             transaction = savingsAccountService.handleWithdrawal(savingsAccount, fmt, transactionDate, request.getAmount().getAmount(),
                     instance(findPaymentType(), savingsAccount.getExternalId(), null, getRoutingCode(), transferCode, null),
                     transactionValues, backdatedTxnsAllowedTill);
         } else {
+            savingsAccountAssembler.loadTransactionsToSavingsAccount(savingsAccount, backdatedTxnsAllowedTill);
             transaction = savingsAccountService.handleDeposit(savingsAccount, fmt, transactionDate, request.getAmount().getAmount(),
                     instance(findPaymentType(), savingsAccount.getExternalId(), null, getRoutingCode(), transferCode, null), false, true,
                     backdatedTxnsAllowedTill);
@@ -486,7 +498,7 @@ public class InteropServiceImpl implements InteropService {
     @Transactional
     public @NotNull InteropTransferResponseData releaseTransfer(@NotNull JsonCommand command) {
         InteropTransferRequestData request = dataValidator.validateAndParseTransferRequest(command);
-        SavingsAccount savingsAccount = validateAndGetSavingAccount(request);
+        SavingsAccount savingsAccount = validateAndGetSavingAccount(request, false);
 
         LocalDateTime transactionDateTime = DateUtils.getLocalDateTimeOfTenant();
         SavingsAccountTransaction holdTransaction = findTransaction(savingsAccount, request.getTransferCode(), AMOUNT_HOLD.getValue());
@@ -499,12 +511,12 @@ public class InteropServiceImpl implements InteropService {
                     Money.of(accountCurrency, savingsAccount.getWithdrawableBalance().add(holdTransaction.getAmount())));
             releaseTransaction.updateCumulativeBalanceAndDates(accountCurrency, transactionDateTime.toLocalDate());
             releaseTransaction = savingsAccountTransactionRepository.saveAndFlush(releaseTransaction);
-            holdTransaction.updateReleaseId(releaseTransaction.getId());
-
-            savingsAccount.releaseOnHoldAmount(holdTransaction.getAmount());
-            savingsAccount.addTransaction(releaseTransaction);
 
-            savingsAccountRepository.save(savingsAccount);
+            // a concurrent release or commit of the same transfer may have won the race
+            if (jdbcTemplate.update(MARK_HOLD_RELEASED_SQL, releaseTransaction.getId(), holdTransaction.getId()) == 0) {
+                throw new InteropTransferMissingException(savingsAccount.getExternalId(), request.getTransferCode());
+            }
+            jdbcTemplate.update(RELEASE_FUNDS_SQL, holdTransaction.getAmount(), savingsAccount.getId());
         } else {
             throw new InteropTransferMissingException(savingsAccount.getExternalId(), request.getTransferCode());
         }
@@ -563,8 +575,20 @@ public class InteropServiceImpl implements InteropService {
     }
 
     private SavingsAccount validateAndGetSavingAccount(@NotNull InteropRequestData request) {
+        return validateAndGetSavingAccount(request, false);
+    }
+
+    private SavingsAccount validateAndGetSavingAccount(@NotNull InteropRequestData request, boolean lock) {
         // TODO: error handling
-        SavingsAccount savingsAccount = validateAndGetSavingAccount(request.getAccountId());
+        SavingsAccount savingsAccount;
+        if (lock) {
+            savingsAccount = savingsAccountRepository.findOneLockedByExternalId(request.getAccountId());
+            if (savingsAccount == null) {
+                throw new SavingsAccountNotFoundException(request.getAccountId());
+            }
+        } else {
+            savingsAccount = validateAndGetSavingAccount(request.getAccountId());
+        }
         savingsAccount.setHelpers(savingsAccountTransactionSummaryWrapper, savingsHelper);
 
         ApplicationCurrency requestCurrency = currencyRepository.findOneByCode(request.getAmount().getCurrency());
@@ -630,10 +654,9 @@ public class InteropServiceImpl implements InteropService {
     }
 
     private SavingsAccountTransaction findTransaction(SavingsAccount savingsAccount, String transactionCode, Integer transactionTypeValue) {
-        return savingsAccount.getTransactions().stream().filter(t -> transactionTypeValue.equals(t.getTypeOf())).filter(t -> {
-            PaymentDetail detail = t.getPaymentDetail();
-            return detail != null && getRoutingCode().equals(detail.getRoutingCode()) && transactionCode.equals(detail.getReceiptNumber());
-        }).findFirst().orElse(null);
+        return savingsAccountTransactionRepository
+                .findByPaymentReceipt(savingsAccount.getId(), transactionTypeValue, getRoutingCode(), transactionCode).stream().findFirst()
+                .orElse(null);
     }
 
     public InteropIdentifier findIdentifier(@NotNull InteropIdentifierType idType, @NotNull String idValue, String subIdOrType) {
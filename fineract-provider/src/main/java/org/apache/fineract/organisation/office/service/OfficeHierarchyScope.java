@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.organisation.office.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scopes queries to the offices under a user's office by office id.
+ *
+ * The subtree of each office is cached (see {@link OfficeReadPlatformService#retrieveOfficeIdsUnder(String)}) and
+ * evicted whenever an office is created or moved, so the conditions built here replace joining <code>m_office</code>
+ * and filtering <code>o.hierarchy like '.1.%'</code>, a predicate that cannot use an index on every database and
+ * collation.
+ */
+@Component
+public class OfficeHierarchyScope {
+
+    private static final String HEAD_OFFICE_HIERARCHY = ".";
+
+    private final OfficeReadPlatformService officeReadPlatformService;
+
+    @Autowired
+    public OfficeHierarchyScope(final OfficeReadPlatformService officeReadPlatformService) {
+        this.officeReadPlatformService = officeReadPlatformService;
+    }
+
+    /**
+     * Builds the condition that one of <code>officeIdColumns</code> is an office at or below the office with
+     * <code>hierarchy</code>, which is what <code>(o1.hierarchy like :hierarchy% or o2.hierarchy like ...)</code>
+     * checks over the offices joined on those columns. The ids are inlined, the condition takes no parameters.
+     */
+    public String officeIdIn(final String hierarchy, final String... officeIdColumns) {
+        final List<String> conditions = new ArrayList<>(officeIdColumns.length);
+        if (HEAD_OFFICE_HIERARCHY.equals(hierarchy)) {
+            // every office is under the head office
+            for (final String officeIdColumn : officeIdColumns) {
+                conditions.add(officeIdColumn + " is not null");
+            }
+        } else {
+            final Set<Long> officeIds = this.officeReadPlatformService.retrieveOfficeIdsUnder(hierarchy);
+            if (officeIds.isEmpty()) {
+                return "(1 = 0)";
+            }
+            final String idList = officeIds.stream().sorted().map(String::valueOf).collect(Collectors.joining(","));
+            for (final String officeIdColumn : officeIdColumns) {
+                conditions.add(officeIdColumn + " in (" + idList + ")");
+            }
+        }
+        return "(" + String.join(" or ", conditions) + ")";
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.fineract.organisation.office.service;
 
 import java.util.Collection;
+import java.util.Set;
 import org.apache.fineract.infrastructure.core.service.SearchParameters;
 import org.apache.fineract.organisation.office.data.OfficeData;
 import org.apache.fineract.organisation.office.data.OfficeTransactionData;
@@ -38,4 +39,9 @@ public interface OfficeReadPlatformService {
     Collection<OfficeTransactionData> retrieveAllOfficeTransactions();
 
     OfficeTransactionData retrieveNewOfficeTransactionDetails();
+
+    /**
+     * Ids of the offices at or below the office with the given hierarchy, used by {@link OfficeHierarchyScope}.
+     */
+    Set<Long> retrieveOfficeIdsUnder(String hierarchy);
 }
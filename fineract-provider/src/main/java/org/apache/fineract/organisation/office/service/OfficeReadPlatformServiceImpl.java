@@ -24,6 +24,8 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.core.service.SearchParameters;
@@ -266,6 +268,14 @@ public class OfficeReadPlatformServiceImpl implements OfficeReadPlatformService
         return OfficeTransactionData.template(LocalDate.now(DateUtils.getDateTimeZoneOfTenant()), parentLookups, currencyOptions);
     }
 
+    @Override
+    @Cacheable(value = "officeSubtrees", key = "T(org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil).getTenant().getTenantIdentifier().concat(#hierarchy)")
+    public Set<Long> retrieveOfficeIdsUnder(final String hierarchy) {
+        final List<Long> officeIds = this.jdbcTemplate.queryForList("select o.id from m_office o where o.hierarchy like ?", Long.class,
+                hierarchy + "%");
+        return Set.copyOf(officeIds);
+    }
+
     public PlatformSecurityContext getContext() {
         return this.context;
     }
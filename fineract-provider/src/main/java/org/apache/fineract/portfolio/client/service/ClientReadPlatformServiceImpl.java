@@ -50,6 +50,7 @@ import org.apache.fineract.infrastructure.dataqueries.service.EntityDatatableChe
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.infrastructure.security.utils.ColumnValidator;
 import org.apache.fineract.organisation.office.data.OfficeData;
+import org.apache.fineract.organisation.office.service.OfficeHierarchyScope;
 import org.apache.fineract.organisation.office.service.OfficeReadPlatformService;
 import org.apache.fineract.organisation.staff.data.StaffData;
 import org.apache.fineract.organisation.staff.service.StaffReadPlatformService;
@@ -101,6 +102,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     private final EntityDatatableChecksReadService entityDatatableChecksReadService;
     private final ColumnValidator columnValidator;
     private final ClientCollateralManagementRepositoryWrapper clientCollateralManagementRepositoryWrapper;
+    private final OfficeHierarchyScope officeHierarchyScope;
 
     @Autowired
     public ClientReadPlatformServiceImpl(final PlatformSecurityContext context, final JdbcTemplate jdbcTemplate,
@@ -112,7 +114,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
             final ConfigurationReadPlatformService configurationReadPlatformService,
             final EntityDatatableChecksReadService entityDatatableChecksReadService, final ColumnValidator columnValidator,
             final ClientCollateralManagementRepositoryWrapper clientCollateralManagementRepositoryWrapper,
-            DatabaseSpecificSQLGenerator sqlGenerator, PaginationHelper paginationHelper) {
+            DatabaseSpecificSQLGenerator sqlGenerator, PaginationHelper paginationHelper, final OfficeHierarchyScope officeHierarchyScope) {
         this.context = context;
         this.officeReadPlatformService = officeReadPlatformService;
         this.jdbcTemplate = jdbcTemplate;
@@ -127,6 +129,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         this.clientCollateralManagementRepositoryWrapper = clientCollateralManagementRepositoryWrapper;
         this.paginationHelper = paginationHelper;
         this.sqlGenerator = sqlGenerator;
+        this.officeHierarchyScope = officeHierarchyScope;
     }
 
     @Override
@@ -203,18 +206,18 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         }
 
         final String userOfficeHierarchy = this.context.officeHierarchy();
-        final String underHierarchySearchString = userOfficeHierarchy + "%";
         final String appUserID = String.valueOf(context.authenticatedUser().getId());
 
         // if (searchParameters.isScopedByOfficeHierarchy()) {
         // this.context.validateAccessRights(searchParameters.getHierarchy());
         // underHierarchySearchString = searchParameters.getHierarchy() + "%";
         // }
-        List<Object> paramList = new ArrayList<>(Arrays.asList(underHierarchySearchString, underHierarchySearchString));
+        List<Object> paramList = new ArrayList<>();
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select " + sqlGenerator.calcFoundRows() + " ");
         sqlBuilder.append(this.clientMapper.schema());
-        sqlBuilder.append(" where (o.hierarchy like ? or transferToOffice.hierarchy like ?) ");
+        sqlBuilder.append(" where ");
+        sqlBuilder.append(this.officeHierarchyScope.officeIdIn(userOfficeHierarchy, "c.office_id", "c.transfer_to_office_id")).append(' ');
 
         if (searchParameters != null) {
             if (searchParameters.isSelfUser()) {
@@ -319,12 +322,10 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     public ClientData retrieveOne(final Long clientId) {
         try {
             final String hierarchy = this.context.officeHierarchy();
-            final String hierarchySearchString = hierarchy + "%";
 
-            final String sql = "select " + this.clientMapper.schema()
-                    + " where ( o.hierarchy like ? or transferToOffice.hierarchy like ?) and c.id = ?";
-            final ClientData clientData = this.jdbcTemplate.queryForObject(sql, this.clientMapper,
-                    new Object[] { hierarchySearchString, hierarchySearchString, clientId }); // NOSONAR
+            final String sql = "select " + this.clientMapper.schema() + " where "
+                    + this.officeHierarchyScope.officeIdIn(hierarchy, "c.office_id", "c.transfer_to_office_id") + " and c.id = ?";
+            final ClientData clientData = this.jdbcTemplate.queryForObject(sql, this.clientMapper, new Object[] { clientId }); // NOSONAR
 
             // Get client collaterals
             final Collection<ClientCollateralManagement> clientCollateralManagements = this.clientCollateralManagementRepositoryWrapper
@@ -376,11 +377,11 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
 
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
 
-        final String sql = "select " + this.membersOfGroupMapper.schema() + " where o.hierarchy like ? and pgc.group_id = ?";
+        final String sql = "select " + this.membersOfGroupMapper.schema() + " where "
+                + this.officeHierarchyScope.officeIdIn(hierarchy, "c.office_id") + " and pgc.group_id = ?";
 
-        return this.jdbcTemplate.query(sql, this.membersOfGroupMapper, new Object[] { hierarchySearchString, groupId }); // NOSONAR
+        return this.jdbcTemplate.query(sql, this.membersOfGroupMapper, new Object[] { groupId }); // NOSONAR
     }
 
     @Override
@@ -388,13 +389,11 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
 
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
 
-        final String sql = "select " + this.membersOfGroupMapper.schema()
-                + " where o.hierarchy like ? and pgc.group_id = ? and c.status_enum = ? ";
+        final String sql = "select " + this.membersOfGroupMapper.schema() + " where "
+                + this.officeHierarchyScope.officeIdIn(hierarchy, "c.office_id") + " and pgc.group_id = ? and c.status_enum = ? ";
 
-        return this.jdbcTemplate.query(sql, this.membersOfGroupMapper,
-                new Object[] { hierarchySearchString, groupId, ClientStatus.ACTIVE.getValue() }); // NOSONAR
+        return this.jdbcTemplate.query(sql, this.membersOfGroupMapper, new Object[] { groupId, ClientStatus.ACTIVE.getValue() }); // NOSONAR
     }
 
     private static final class ClientMembersOfGroupMapper implements RowMapper<ClientData> {
@@ -577,13 +576,13 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
 
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
 
-        final String sql = "select " + this.membersOfGroupMapper.schema()
-                + " left join m_group g on pgc.group_id=g.id where o.hierarchy like ? and g.parent_id = ? and c.status_enum = ? group by c.id";
+        final String sql = "select " + this.membersOfGroupMapper.schema() + " left join m_group g on pgc.group_id=g.id where "
+                + this.officeHierarchyScope.officeIdIn(hierarchy, "c.office_id")
+                + " and g.parent_id = ? and c.status_enum = ? group by c.id";
 
         return this.jdbcTemplate.query(sql, this.membersOfGroupMapper,
-                new Object[] { hierarchySearchString, centerId, ClientStatus.ACTIVE.getValue() }); // NOSONAR
+                new Object[] { centerId, ClientStatus.ACTIVE.getValue() }); // NOSONAR
     }
 
     private static final class ClientMapper implements RowMapper<ClientData> {
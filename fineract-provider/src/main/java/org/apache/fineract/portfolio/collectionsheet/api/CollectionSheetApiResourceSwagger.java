@@ -66,6 +66,24 @@ final class CollectionSheetApiResourceSwagger {
 
         private PostCollectionSheetResponse() {}
 
+        static final class PostCollectionSheetTransactionResult {
+
+            private PostCollectionSheetTransactionResult() {}
+
+            @Schema(example = "repayment")
+            public String type;
+            @Schema(example = "1")
+            public Integer accountId;
+            @Schema(example = "true")
+            public Boolean success;
+            @Schema(example = "15")
+            public Integer transactionId;
+            @Schema(example = "error.msg.loan.id.invalid")
+            public String errorCode;
+            @Schema(example = "Loan with identifier 1 does not exist")
+            public String errorMessage;
+        }
+
         static final class PostCollectionSheetChanges {
 
             private PostCollectionSheetChanges() {}
@@ -78,6 +96,10 @@ final class CollectionSheetApiResourceSwagger {
             public List<Integer> loanTransactions;
             @Schema(example = "[]")
             public List<Integer> SavingsTransactions;
+            @Schema(description = "Outcome of each transaction of a saved individual collection sheet, in sheet order")
+            public List<PostCollectionSheetTransactionResult> transactionResults;
+            @Schema(example = "1250")
+            public Long elapsedTimeInMillis;
         }
 
         @Schema(example = "10")
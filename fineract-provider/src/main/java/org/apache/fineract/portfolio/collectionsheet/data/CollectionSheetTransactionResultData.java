@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet.data;
+
+/**
+ * Immutable data object for the outcome of one repayment, disbursal or savings deposit of a saved collection sheet.
+ */
+public final class CollectionSheetTransactionResultData {
+
+    public static final String REPAYMENT = "repayment";
+    public static final String DISBURSAL = "disbursal";
+    public static final String SAVINGS_DEPOSIT = "savingsDeposit";
+
+    private final String type;
+    private final Long accountId;
+    private final boolean success;
+    private final Long transactionId;
+    private final String errorCode;
+    private final String errorMessage;
+
+    public static CollectionSheetTransactionResultData success(final String type, final Long accountId, final Long transactionId) {
+        return new CollectionSheetTransactionResultData(type, accountId, true, transactionId, null, null);
+    }
+
+    public static CollectionSheetTransactionResultData failure(final String type, final Long accountId, final String errorCode,
+            final String errorMessage) {
+        return new CollectionSheetTransactionResultData(type, accountId, false, null, errorCode, errorMessage);
+    }
+
+    private CollectionSheetTransactionResultData(final String type, final Long accountId, final boolean success, final Long transactionId,
+            final String errorCode, final String errorMessage) {
+        this.type = type;
+        this.accountId = accountId;
+        this.success = success;
+        this.transactionId = transactionId;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public Long getAccountId() {
+        return this.accountId;
+    }
+
+    public boolean isSuccess() {
+        return this.success;
+    }
+
+    public Long getTransactionId() {
+        return this.transactionId;
+    }
+
+    public String getErrorCode() {
+        return this.errorCode;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+}
@@ -26,7 +26,6 @@ import org.apache.fineract.organisation.monetary.data.CurrencyData;
  */
 public final class SavingsDueData {
 
-    @SuppressWarnings("unused")
     private final Long savingsId;
     @SuppressWarnings("unused")
     private final String accountId;
@@ -59,6 +58,10 @@ public final class SavingsDueData {
         this.depositAccountType = depositAccountType;
     }
 
+    public Long savingsId() {
+        return this.savingsId;
+    }
+
     public String productName() {
         return this.productName;
     }
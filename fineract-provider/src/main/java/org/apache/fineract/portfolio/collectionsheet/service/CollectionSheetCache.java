@@ -0,0 +1,279 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import org.apache.fineract.infrastructure.cache.service.RuntimeDelegatingCacheManager;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGClientData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGCollectionSheetData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGGroupData;
+import org.apache.fineract.portfolio.collectionsheet.data.LoanDueData;
+import org.apache.fineract.portfolio.collectionsheet.data.SavingsDueData;
+import org.apache.fineract.portfolio.common.BusinessEventNotificationConstants.BusinessEntity;
+import org.apache.fineract.portfolio.common.BusinessEventNotificationConstants.BusinessEvents;
+import org.apache.fineract.portfolio.common.service.BusinessEventListener;
+import org.apache.fineract.portfolio.common.service.BusinessEventNotifierService;
+import org.apache.fineract.portfolio.loanaccount.domain.Loan;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanCharge;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanTransaction;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of the JLG collection sheets by center or group and meeting date.
+ *
+ * Field officers download the sheets of their centers at about the same time every morning: the first download of a
+ * center and date builds the sheet, the following ones are served from here until the entry expires (see
+ * <code>CacheConfig</code>). A sheet is evicted once a transaction, charge, waiver or write-off on one of its loans or
+ * savings accounts is committed on this node, found through an index of the cached sheets by account; other changes,
+ * such as new members or attendance, show once the entry expires. Like the other caches it is only active when the
+ * single node cache is switched on.
+ */
+@Component
+public class CollectionSheetCache implements BusinessEventListener {
+
+    static final String CACHE_NAME = "collectionSheets";
+
+    // the index is pruned of expired sheets once it holds twice as many sheets as after the last pruning
+    private static final int MIN_PRUNE_THRESHOLD = 1000;
+
+    private static final BusinessEvents[] EVICTING_EVENTS = { BusinessEvents.LOAN_MAKE_REPAYMENT, BusinessEvents.LOAN_DISBURSAL,
+            BusinessEvents.LOAN_UNDO_DISBURSAL, BusinessEvents.LOAN_UNDO_LASTDISBURSAL, BusinessEvents.LOAN_UNDO_TRANSACTION,
+            BusinessEvents.LOAN_ADJUST_TRANSACTION, BusinessEvents.LOAN_ADD_CHARGE, BusinessEvents.LOAN_UPDATE_CHARGE,
+            BusinessEvents.LOAN_DELETE_CHARGE, BusinessEvents.LOAN_WAIVE_CHARGE, BusinessEvents.LOAN_WAIVE_CHARGE_UNDO,
+            BusinessEvents.LOAN_CHARGE_PAYMENT, BusinessEvents.LOAN_APPLY_OVERDUE_CHARGE, BusinessEvents.LOAN_WAIVE_INTEREST,
+            BusinessEvents.LOAN_WRITTEN_OFF, BusinessEvents.LOAN_UNDO_WRITTEN_OFF, BusinessEvents.SAVINGS_DEPOSIT,
+            BusinessEvents.SAVINGS_WITHDRAWAL };
+
+    private final RuntimeDelegatingCacheManager cacheManager;
+    private final BusinessEventNotifierService businessEventNotifierService;
+
+    // guarded by this, like the cache entries they describe
+    // bumped by every eviction, a sheet built across one is not cached as it may have missed the change
+    private long evictionCount;
+    // the keys of the cached sheets of each account, and the accounts of each cached sheet
+    private final Map<String, Set<String>> keysByAccount = new HashMap<>();
+    private final Map<String, Set<String>> accountsByKey = new HashMap<>();
+    private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    @Autowired
+    public CollectionSheetCache(@Qualifier("runtimeDelegatingCacheManager") final RuntimeDelegatingCacheManager cacheManager,
+            final BusinessEventNotifierService businessEventNotifierService) {
+        this.cacheManager = cacheManager;
+        this.businessEventNotifierService = businessEventNotifierService;
+    }
+
+    @PostConstruct
+    public void registerForNotification() {
+        for (final BusinessEvents businessEvent : EVICTING_EVENTS) {
+            this.businessEventNotifierService.addBusinessEventPostListeners(businessEvent, this);
+        }
+    }
+
+    /**
+     * Marks the start of building a sheet, to be handed to {@link #put}.
+     */
+    public synchronized long version() {
+        return this.evictionCount;
+    }
+
+    public JLGCollectionSheetData get(final boolean isCenterCollection, final Long entityId, final LocalDate meetingDate) {
+        return this.cacheManager.getCache(CACHE_NAME).get(key(isCenterCollection, entityId, meetingDate), JLGCollectionSheetData.class);
+    }
+
+    /**
+     * Caches a sheet unless an account was evicted since <code>version</code>.
+     */
+    public void put(final boolean isCenterCollection, final Long entityId, final LocalDate meetingDate, final JLGCollectionSheetData sheet,
+            final long version) {
+        final Cache cache = this.cacheManager.getCache(CACHE_NAME);
+        if (!(cache.getNativeCache() instanceof javax.cache.Cache)) {
+            // caching switched off, nothing to index
+            return;
+        }
+        final String key = key(isCenterCollection, entityId, meetingDate);
+        final Set<String> accounts = accountsOf(ThreadLocalContextUtil.getTenant().getTenantIdentifier(), sheet);
+        synchronized (this) {
+            if (this.evictionCount != version) {
+                return;
+            }
+            cache.put(key, sheet);
+            unindex(key);
+            this.accountsByKey.put(key, accounts);
+            for (final String account : accounts) {
+                this.keysByAccount.computeIfAbsent(account, a -> new HashSet<>()).add(key);
+            }
+            if (this.accountsByKey.size() > this.pruneThreshold) {
+                prune(cache);
+            }
+        }
+    }
+
+    @Override
+    public void businessEventToBeExecuted(@SuppressWarnings("unused") final Map<BusinessEntity, Object> businessEventEntity) {}
+
+    @Override
+    public void businessEventWasExecuted(final Map<BusinessEntity, Object> businessEventEntity) {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        final Object loan = businessEventEntity.get(BusinessEntity.LOAN);
+        final Object loanTransaction = businessEventEntity.get(BusinessEntity.LOAN_TRANSACTION);
+        final Object adjustedTransaction = businessEventEntity.get(BusinessEntity.LOAN_ADJUSTED_TRANSACTION);
+        final Object loanCharge = businessEventEntity.get(BusinessEntity.LOAN_CHARGE);
+        final Object savingsTransaction = businessEventEntity.get(BusinessEntity.SAVINGS_TRANSACTION);
+        if (loan != null) {
+            evictAfterCommit(loanAccount(tenantIdentifier, ((Loan) loan).getId()));
+        } else if (loanTransaction != null) {
+            evictAfterCommit(loanAccount(tenantIdentifier, ((LoanTransaction) loanTransaction).getLoan().getId()));
+        } else if (adjustedTransaction != null) {
+            evictAfterCommit(loanAccount(tenantIdentifier, ((LoanTransaction) adjustedTransaction).getLoan().getId()));
+        } else if (loanCharge != null) {
+            evictAfterCommit(loanAccount(tenantIdentifier, ((LoanCharge) loanCharge).getLoan().getId()));
+        } else if (savingsTransaction != null) {
+            evictAfterCommit(
+                    savingsAccount(tenantIdentifier, ((SavingsAccountTransaction) savingsTransaction).getSavingsAccount().getId()));
+        }
+    }
+
+    /**
+     * Collects the accounts of all events of the current transaction and evicts them once it commits, an event outside of
+     * a transaction evicts right away.
+     */
+    private void evictAfterCommit(final String account) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(Set.of(account));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        final Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            pending.add(account);
+            return;
+        }
+        final Set<String> accounts = new HashSet<>();
+        accounts.add(account);
+        TransactionSynchronizationManager.bindResource(this, accounts);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CollectionSheetCache.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(CollectionSheetCache.this, accounts);
+            }
+
+            @Override
+            public void afterCompletion(final int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CollectionSheetCache.this);
+                if (status == STATUS_COMMITTED) {
+                    evict(accounts);
+                }
+            }
+        });
+    }
+
+    private synchronized void evict(final Set<String> accounts) {
+        this.evictionCount++;
+        final Cache cache = this.cacheManager.getCache(CACHE_NAME);
+        for (final String account : accounts) {
+            final Set<String> keys = this.keysByAccount.get(account);
+            if (keys == null) {
+                continue;
+            }
+            for (final String key : List.copyOf(keys)) {
+                cache.evict(key);
+                unindex(key);
+            }
+        }
+    }
+
+    private void unindex(final String key) {
+        final Set<String> accounts = this.accountsByKey.remove(key);
+        if (accounts == null) {
+            return;
+        }
+        for (final String account : accounts) {
+            final Set<String> keys = this.keysByAccount.get(account);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                this.keysByAccount.remove(account);
+            }
+        }
+    }
+
+    /**
+     * Drops the sheets that left the cache, because they expired or made room for others, from the index.
+     */
+    private void prune(final Cache cache) {
+        for (final String key : List.copyOf(this.accountsByKey.keySet())) {
+            if (cache.get(key) == null) {
+                unindex(key);
+            }
+        }
+        this.pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, 2 * this.accountsByKey.size());
+    }
+
+    private static String key(final boolean isCenterCollection, final Long entityId, final LocalDate meetingDate) {
+        return ThreadLocalContextUtil.getTenant().getTenantIdentifier() + (isCenterCollection ? "|center|" : "|group|") + entityId + "|"
+                + meetingDate;
+    }
+
+    private static String loanAccount(final String tenantIdentifier, final Long loanId) {
+        return tenantIdentifier + "|loan|" + loanId;
+    }
+
+    private static String savingsAccount(final String tenantIdentifier, final Long savingsId) {
+        return tenantIdentifier + "|savings|" + savingsId;
+    }
+
+    private static Set<String> accountsOf(final String tenantIdentifier, final JLGCollectionSheetData sheet) {
+        final Set<String> accounts = new HashSet<>();
+        for (final JLGGroupData group : sheet.getGroups()) {
+            for (final JLGClientData client : nonNull(group.getClients())) {
+                for (final LoanDueData loan : nonNull(client.getLoans())) {
+                    accounts.add(loanAccount(tenantIdentifier, loan.getLoanId()));
+                }
+                for (final SavingsDueData savings : nonNull(client.getSavings())) {
+                    accounts.add(savingsAccount(tenantIdentifier, savings.savingsId()));
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private static <T> Collection<T> nonNull(final Collection<T> collection) {
+        return collection == null ? Collections.emptyList() : collection;
+    }
+}
@@ -33,14 +33,17 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.fineract.infrastructure.codes.service.CodeValueReadPlatformService;
 import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.apache.fineract.infrastructure.core.api.JsonQuery;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
+import org.apache.fineract.infrastructure.core.service.RoutingDataSource;
 import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.organisation.monetary.data.CurrencyData;
@@ -55,7 +58,6 @@ import org.apache.fineract.portfolio.collectionsheet.data.IndividualCollectionSh
 import org.apache.fineract.portfolio.collectionsheet.data.IndividualCollectionSheetLoanFlatData;
 import org.apache.fineract.portfolio.collectionsheet.data.JLGClientData;
 import org.apache.fineract.portfolio.collectionsheet.data.JLGCollectionSheetData;
-import org.apache.fineract.portfolio.collectionsheet.data.JLGCollectionSheetFlatData;
 import org.apache.fineract.portfolio.collectionsheet.data.JLGGroupData;
 import org.apache.fineract.portfolio.collectionsheet.data.LoanDueData;
 import org.apache.fineract.portfolio.collectionsheet.data.SavingsDueData;
@@ -73,18 +75,24 @@ import org.apache.fineract.portfolio.savings.data.SavingsProductData;
 import org.apache.fineract.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetReadPlatformService {
 
+    // rows fetched per round trip; PostgreSQL only uses a cursor inside a transaction, MySQL needs useCursorFetch=true
+    private static final int FETCH_SIZE = 500;
+
     private final PlatformSecurityContext context;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
     private final CenterReadPlatformService centerReadPlatformService;
     private final GroupReadPlatformService groupReadPlatformService;
     private final CollectionSheetGenerateCommandFromApiJsonDeserializer collectionSheetGenerateCommandFromApiJsonDeserializer;
@@ -97,6 +105,7 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
     private final ConfigurationDomainService configurationDomainService;
     private final CalendarInstanceRepository calendarInstanceRepository;
     private final DatabaseSpecificSQLGenerator sqlGenerator;
+    private final CollectionSheetCache collectionSheetCache;
 
     @Autowired
     public CollectionSheetReadPlatformServiceImpl(final PlatformSecurityContext context,
@@ -108,7 +117,8 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
             final CodeValueReadPlatformService codeValueReadPlatformService,
             final PaymentTypeReadPlatformService paymentTypeReadPlatformService,
             final CalendarReadPlatformService calendarReadPlatformService, final ConfigurationDomainService configurationDomainService,
-            final CalendarInstanceRepository calendarInstanceRepository, DatabaseSpecificSQLGenerator sqlGenerator) {
+            final CalendarInstanceRepository calendarInstanceRepository, DatabaseSpecificSQLGenerator sqlGenerator,
+            final RoutingDataSource dataSource, final CollectionSheetCache collectionSheetCache) {
         this.context = context;
         this.centerReadPlatformService = centerReadPlatformService;
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
@@ -122,106 +132,24 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
         this.configurationDomainService = configurationDomainService;
         this.calendarInstanceRepository = calendarInstanceRepository;
         this.sqlGenerator = sqlGenerator;
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.collectionSheetCache = collectionSheetCache;
         mandatorySavingsExtractor = new MandatorySavingsCollectionsheetExtractor(sqlGenerator);
     }
 
-    /*
+    /**
      * Reads all the loans which are due for disbursement or collection and builds hierarchical data structure for
-     * collections sheet with hierarchy Groups >> Clients >> Loans.
+     * collections sheet with hierarchy Groups >> Clients >> Loans while the rows, ordered by group, client and loan, are
+     * read from the cursor, so a large center never holds its flat rows in memory next to the sheet.
      */
-    @SuppressWarnings("null")
-    private JLGCollectionSheetData buildJLGCollectionSheet(final LocalDate dueDate,
-            final Collection<JLGCollectionSheetFlatData> jlgCollectionSheetFlatData) {
-
-        boolean firstTime = true;
-        Long prevGroupId = null;
-        Long prevClientId = null;
-        final Collection<PaymentTypeData> paymentOptions = this.paymentTypeReadPlatformService.retrieveAllPaymentTypes();
-
-        final List<JLGGroupData> jlgGroupsData = new ArrayList<>();
-        List<JLGClientData> clientsData = new ArrayList<>();
-        List<LoanDueData> loansDueData = new ArrayList<>();
-
-        JLGCollectionSheetData jlgCollectionSheetData = null;
-        JLGCollectionSheetFlatData prevCollectioSheetFlatData = null;
-        JLGCollectionSheetFlatData corrCollectioSheetFlatData = null;
-        final Set<LoanProductData> loanProducts = new HashSet<>();
-        if (jlgCollectionSheetFlatData != null) {
-
-            for (final JLGCollectionSheetFlatData collectionSheetFlatData : jlgCollectionSheetFlatData) {
-
-                if (collectionSheetFlatData.getProductId() != null) {
-                    loanProducts.add(LoanProductData.lookupWithCurrency(collectionSheetFlatData.getProductId(),
-                            collectionSheetFlatData.getProductShortName(), collectionSheetFlatData.getCurrency()));
-                }
-                corrCollectioSheetFlatData = collectionSheetFlatData;
-
-                if (firstTime || collectionSheetFlatData.getGroupId().equals(prevGroupId)) {
-                    if (firstTime || collectionSheetFlatData.getClientId().equals(prevClientId)) {
-                        if (collectionSheetFlatData.getLoanId() != null) {
-                            loansDueData.add(collectionSheetFlatData.getLoanDueData());
-                        }
-                    } else {
-                        final JLGClientData clientData = prevCollectioSheetFlatData.getClientData();
-                        clientData.setLoans(loansDueData);
-                        clientsData.add(clientData);
-                        loansDueData = new ArrayList<>();
-
-                        if (collectionSheetFlatData.getLoanId() != null) {
-                            loansDueData.add(collectionSheetFlatData.getLoanDueData());
-                        }
-
-                    }
-                } else {
-
-                    final JLGClientData clientData = prevCollectioSheetFlatData.getClientData();
-                    clientData.setLoans(loansDueData);
-                    clientsData.add(clientData);
-
-                    final JLGGroupData jlgGroupData = prevCollectioSheetFlatData.getJLGGroupData();
-                    jlgGroupData.setClients(clientsData);
-
-                    jlgGroupsData.add(jlgGroupData);
-
-                    loansDueData = new ArrayList<>();
-                    clientsData = new ArrayList<>();
-
-                    if (collectionSheetFlatData.getLoanId() != null) {
-                        loansDueData.add(collectionSheetFlatData.getLoanDueData());
-                    }
-                }
-
-                prevClientId = collectionSheetFlatData.getClientId();
-                prevGroupId = collectionSheetFlatData.getGroupId();
-                prevCollectioSheetFlatData = collectionSheetFlatData;
-                firstTime = false;
-            }
-
-            // FIXME Need to check last loan is added under previous
-            // client/group or new client / previous group or new client / new
-            // group
-            if (corrCollectioSheetFlatData != null) {
-                final JLGClientData lastClientData = corrCollectioSheetFlatData.getClientData();
-                lastClientData.setLoans(loansDueData);
-                clientsData.add(lastClientData);
-
-                final JLGGroupData jlgGroupData = corrCollectioSheetFlatData.getJLGGroupData();
-                jlgGroupData.setClients(clientsData);
-                jlgGroupsData.add(jlgGroupData);
-            }
-
-            jlgCollectionSheetData = JLGCollectionSheetData.instance(dueDate, loanProducts, jlgGroupsData,
-                    this.attendanceDropdownReadPlatformService.retrieveAttendanceTypeOptions(), paymentOptions);
-        }
-
-        return jlgCollectionSheetData;
-    }
-
-    private static final class JLGCollectionSheetFaltDataMapper implements RowMapper<JLGCollectionSheetFlatData> {
+    static final class JLGCollectionSheetExtractor implements ResultSetExtractor<Collection<JLGGroupData>> {
 
         private final DatabaseSpecificSQLGenerator sqlGenerator;
+        final Set<LoanProductData> loanProducts = new HashSet<>();
 
-        JLGCollectionSheetFaltDataMapper(DatabaseSpecificSQLGenerator sqlGenerator) {
+        JLGCollectionSheetExtractor(DatabaseSpecificSQLGenerator sqlGenerator) {
             this.sqlGenerator = sqlGenerator;
         }
 
@@ -276,17 +204,48 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
         }
 
         @Override
-        public JLGCollectionSheetFlatData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+        public Collection<JLGGroupData> extractData(final ResultSet rs) throws SQLException, DataAccessException {
+            final List<JLGGroupData> groups = new ArrayList<>();
+            JLGGroupData group = null;
+            List<JLGClientData> clients = null;
+            JLGClientData client = null;
+            List<LoanDueData> loans = null;
 
-            final String groupName = rs.getString("groupName");
-            final Long groupId = JdbcSupport.getLong(rs, "groupId");
-            final Long staffId = JdbcSupport.getLong(rs, "staffId");
-            final String staffName = rs.getString("staffName");
-            final Long levelId = JdbcSupport.getLong(rs, "levelId");
-            final String levelName = rs.getString("levelName");
-            final String clientName = rs.getString("clientName");
-            final Long clientId = JdbcSupport.getLong(rs, "clientId");
-            final Long loanId = JdbcSupport.getLong(rs, "loanId");
+            while (rs.next()) {
+                final Long groupId = JdbcSupport.getLong(rs, "groupId");
+                if (group == null || !group.getGroupId().equals(groupId)) {
+                    final String groupName = rs.getString("groupName");
+                    final Long staffId = JdbcSupport.getLong(rs, "staffId");
+                    final String staffName = rs.getString("staffName");
+                    final Long levelId = JdbcSupport.getLong(rs, "levelId");
+                    final String levelName = rs.getString("levelName");
+                    group = JLGGroupData.instance(groupId, groupName, staffId, staffName, levelId, levelName);
+                    clients = new ArrayList<>();
+                    group.setClients(clients);
+                    groups.add(group);
+                    client = null;
+                }
+
+                final Long clientId = JdbcSupport.getLong(rs, "clientId");
+                if (client == null || !client.getClientId().equals(clientId)) {
+                    final String clientName = rs.getString("clientName");
+                    final Integer attendanceTypeId = rs.getInt("attendanceTypeId");
+                    final EnumOptionData attendanceType = AttendanceEnumerations.attendanceType(attendanceTypeId);
+                    client = JLGClientData.withAttendance(clientId, clientName, attendanceType);
+                    loans = new ArrayList<>();
+                    client.setLoans(loans);
+                    clients.add(client);
+                }
+
+                final Long loanId = JdbcSupport.getLong(rs, "loanId");
+                if (loanId != null) {
+                    loans.add(mapLoanDueData(rs, loanId));
+                }
+            }
+            return groups;
+        }
+
+        private LoanDueData mapLoanDueData(final ResultSet rs, final Long loanId) throws SQLException {
             final String accountId = rs.getString("accountId");
             final Integer accountStatusId = JdbcSupport.getInteger(rs, "accountStatusId");
             final String productShortName = rs.getString("productShortName");
@@ -303,6 +262,9 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
                 currencyData = new CurrencyData(currencyCode, currencyName, currencyDigits, inMultiplesOf, currencyDisplaySymbol,
                         currencyNameCode);
             }
+            if (productId != null) {
+                this.loanProducts.add(LoanProductData.lookupWithCurrency(productId, productShortName, currencyData));
+            }
 
             final BigDecimal disbursementAmount = rs.getBigDecimal("disbursementAmount");
             final BigDecimal principalDue = rs.getBigDecimal("principalDue");
@@ -313,17 +275,37 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
             final BigDecimal feeDue = rs.getBigDecimal("feeDue");
             final BigDecimal feePaid = rs.getBigDecimal("feePaid");
 
-            final Integer attendanceTypeId = rs.getInt("attendanceTypeId");
-            final EnumOptionData attendanceType = AttendanceEnumerations.attendanceType(attendanceTypeId);
-
-            return new JLGCollectionSheetFlatData(groupName, groupId, staffId, staffName, levelId, levelName, clientName, clientId, loanId,
-                    accountId, accountStatusId, productShortName, productId, currencyData, disbursementAmount, principalDue, principalPaid,
-                    interestDue, interestPaid, chargesDue, attendanceType, feeDue, feePaid);
+            return new LoanDueData(loanId, accountId, accountStatusId, productShortName, productId, currencyData, disbursementAmount,
+                    principalDue, principalPaid, interestDue, interestPaid, chargesDue, feeDue, feePaid);
         }
+    }
+
+    /*
+     * The loan and mandatory savings data of the collection sheet of a center or a group, streamed from the database.
+     */
+    private JLGCollectionSheetData retrieveJLGCollectionSheet(final boolean isCenterCollection, final LocalDate dueDate,
+            final SqlParameterSource namedParameters) {
+
+        // loan data for collection sheet
+        final JLGCollectionSheetExtractor extractor = new JLGCollectionSheetExtractor(this.sqlGenerator);
+        final Collection<JLGGroupData> groups = this.streamingJdbcTemplate.query(extractor.collectionSheetSchema(isCenterCollection),
+                namedParameters, extractor);
+        final Collection<PaymentTypeData> paymentOptions = this.paymentTypeReadPlatformService.retrieveAllPaymentTypes();
+        JLGCollectionSheetData collectionSheetData = JLGCollectionSheetData.instance(dueDate, extractor.loanProducts, groups,
+                this.attendanceDropdownReadPlatformService.retrieveAttendanceTypeOptions(), paymentOptions);
 
+        // mandatory savings data for collection sheet
+        Collection<JLGGroupData> groupsWithSavingsData = this.streamingJdbcTemplate
+                .query(mandatorySavingsExtractor.collectionSheetSchema(isCenterCollection), namedParameters, mandatorySavingsExtractor);
+
+        // merge savings data into loan data
+        mergeSavingsGroupDataIntoCollectionsheetData(groupsWithSavingsData, collectionSheetData);
+
+        return JLGCollectionSheetData.withSavingsProducts(collectionSheetData, retrieveSavingsProducts(groupsWithSavingsData));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public JLGCollectionSheetData generateGroupCollectionSheet(final Long groupId, final JsonQuery query) {
 
         this.collectionSheetGenerateCommandFromApiJsonDeserializer.validateForGenerateCollectionSheet(query.json());
@@ -366,37 +348,30 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
         final String hierarchy = currentUser.getOffice().getHierarchy();
         final String officeHierarchy = hierarchy + "%";
 
-        final JLGCollectionSheetFaltDataMapper mapper = new JLGCollectionSheetFaltDataMapper(sqlGenerator);
-
-        final SqlParameterSource namedParameters = new MapSqlParameterSource().addValue("dueDate", transactionDateStr)
-                .addValue("groupId", group.getId()).addValue("officeHierarchy", officeHierarchy)
-                .addValue("entityTypeId", entityType.getValue());
-
-        final Collection<JLGCollectionSheetFlatData> collectionSheetFlatDatas = this.namedParameterJdbcTemplate
-                .query(mapper.collectionSheetSchema(false), namedParameters, mapper);
-
-        // loan data for collection sheet
-        JLGCollectionSheetData collectionSheetData = buildJLGCollectionSheet(transactionDate, collectionSheetFlatDatas);
-
-        // mandatory savings data for collection sheet
-        Collection<JLGGroupData> groupsWithSavingsData = this.namedParameterJdbcTemplate
-                .query(mandatorySavingsExtractor.collectionSheetSchema(false), namedParameters, mandatorySavingsExtractor);
-
-        // merge savings data into loan data
-        mergeSavingsGroupDataIntoCollectionsheetData(groupsWithSavingsData, collectionSheetData);
-
-        collectionSheetData = JLGCollectionSheetData.withSavingsProducts(collectionSheetData,
-                retrieveSavingsProducts(groupsWithSavingsData));
+        JLGCollectionSheetData collectionSheetData = this.collectionSheetCache.get(false, group.getId(), transactionDate);
+        if (collectionSheetData == null) {
+            final long cacheVersion = this.collectionSheetCache.version();
+            final SqlParameterSource namedParameters = new MapSqlParameterSource().addValue("dueDate", transactionDateStr)
+                    .addValue("groupId", group.getId()).addValue("officeHierarchy", officeHierarchy)
+                    .addValue("entityTypeId", entityType.getValue());
+            collectionSheetData = retrieveJLGCollectionSheet(false, transactionDate, namedParameters);
+            this.collectionSheetCache.put(false, group.getId(), transactionDate, collectionSheetData, cacheVersion);
+        }
 
         return collectionSheetData;
     }
 
-    private void mergeSavingsGroupDataIntoCollectionsheetData(final Collection<JLGGroupData> groupsWithSavingsData,
+    static void mergeSavingsGroupDataIntoCollectionsheetData(final Collection<JLGGroupData> groupsWithSavingsData,
             final JLGCollectionSheetData collectionSheetData) {
-        final List<JLGGroupData> groupsWithLoanData = (List<JLGGroupData>) collectionSheetData.getGroups();
+        final Collection<JLGGroupData> groupsWithLoanData = collectionSheetData.getGroups();
+        final Map<Long, JLGGroupData> groupsById = new HashMap<>();
+        for (JLGGroupData groupLoanData : groupsWithLoanData) {
+            groupsById.put(groupLoanData.getGroupId(), groupLoanData);
+        }
         for (JLGGroupData groupSavingsData : groupsWithSavingsData) {
-            if (groupsWithLoanData.contains(groupSavingsData)) {
-                mergeGroup(groupSavingsData, groupsWithLoanData);
+            final JLGGroupData groupLoanData = groupsById.get(groupSavingsData.getGroupId());
+            if (groupLoanData != null) {
+                mergeGroup(groupSavingsData, groupLoanData);
             } else {
                 groupsWithLoanData.add(groupSavingsData);
             }
@@ -404,37 +379,23 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
 
     }
 
-    private void mergeGroup(final JLGGroupData groupSavingsData, final List<JLGGroupData> groupsWithLoanData) {
-        final int index = groupsWithLoanData.indexOf(groupSavingsData);
-
-        if (index < 0) {
-            return;
+    private static void mergeGroup(final JLGGroupData groupSavingsData, final JLGGroupData groupLoanData) {
+        final Collection<JLGClientData> clientsLoanData = groupLoanData.getClients();
+        final Map<Long, JLGClientData> clientsById = new HashMap<>();
+        for (JLGClientData clientLoanData : clientsLoanData) {
+            clientsById.put(clientLoanData.getClientId(), clientLoanData);
         }
 
-        JLGGroupData groupLoanData = groupsWithLoanData.get(index);
-        List<JLGClientData> clientsLoanData = (List<JLGClientData>) groupLoanData.getClients();
-        List<JLGClientData> clientsSavingsData = (List<JLGClientData>) groupSavingsData.getClients();
-
-        for (JLGClientData clientSavingsData : clientsSavingsData) {
-            if (clientsLoanData.contains(clientSavingsData)) {
-                mergeClient(clientSavingsData, clientsLoanData);
+        for (JLGClientData clientSavingsData : groupSavingsData.getClients()) {
+            final JLGClientData clientLoanData = clientsById.get(clientSavingsData.getClientId());
+            if (clientLoanData != null) {
+                clientLoanData.setSavings(clientSavingsData.getSavings());
             } else {
                 clientsLoanData.add(clientSavingsData);
             }
         }
     }
 
-    private void mergeClient(final JLGClientData clientSavingsData, List<JLGClientData> clientsLoanData) {
-        final int index = clientsLoanData.indexOf(clientSavingsData);
-
-        if (index < 0) {
-            return;
-        }
-
-        JLGClientData clientLoanData = clientsLoanData.get(index);
-        clientLoanData.setSavings(clientSavingsData.getSavings());
-    }
-
     private Collection<SavingsProductData> retrieveSavingsProducts(Collection<JLGGroupData> groupsWithSavingsData) {
         List<SavingsProductData> savingsProducts = new ArrayList<>();
         for (JLGGroupData groupSavingsData : groupsWithSavingsData) {
@@ -455,6 +416,7 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
     }
 
     @Override
+    @Transactional(readOnly = true)
     public JLGCollectionSheetData generateCenterCollectionSheet(final Long centerId, final JsonQuery query) {
 
         this.collectionSheetGenerateCommandFromApiJsonDeserializer.validateForGenerateCollectionSheet(query.json());
@@ -469,34 +431,20 @@ public class CollectionSheetReadPlatformServiceImpl implements CollectionSheetRe
         final DateFormat df = new SimpleDateFormat("yyyy-MM-dd");
         final String dueDateStr = df.format(Date.from(transactionDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
 
-        final JLGCollectionSheetFaltDataMapper mapper = new JLGCollectionSheetFaltDataMapper(sqlGenerator);
-
-        StringBuilder sql = new StringBuilder(mapper.collectionSheetSchema(true));
-
-        final SqlParameterSource namedParameters = new MapSqlParameterSource().addValue("dueDate", dueDateStr)
-                .addValue("centerId", center.getId()).addValue("officeHierarchy", officeHierarchy)
-                .addValue("entityTypeId", CalendarEntityType.CENTERS.getValue());
-
-        final Collection<JLGCollectionSheetFlatData> collectionSheetFlatDatas = this.namedParameterJdbcTemplate.query(sql.toString(),
-                namedParameters, mapper);
-
-        // loan data for collection sheet
-        JLGCollectionSheetData collectionSheetData = buildJLGCollectionSheet(transactionDate, collectionSheetFlatDatas);
-
-        // mandatory savings data for collection sheet
-        Collection<JLGGroupData> groupsWithSavingsData = this.namedParameterJdbcTemplate
-                .query(mandatorySavingsExtractor.collectionSheetSchema(true), namedParameters, mandatorySavingsExtractor);
-
-        // merge savings data into loan data
-        mergeSavingsGroupDataIntoCollectionsheetData(groupsWithSavingsData, collectionSheetData);
-
-        collectionSheetData = JLGCollectionSheetData.withSavingsProducts(collectionSheetData,
-                retrieveSavingsProducts(groupsWithSavingsData));
+        JLGCollectionSheetData collectionSheetData = this.collectionSheetCache.get(true, center.getId(), transactionDate);
+        if (collectionSheetData == null) {
+            final long cacheVersion = this.collectionSheetCache.version();
+            final SqlParameterSource namedParameters = new MapSqlParameterSource().addValue("dueDate", dueDateStr)
+                    .addValue("centerId", center.getId()).addValue("officeHierarchy", officeHierarchy)
+                    .addValue("entityTypeId", CalendarEntityType.CENTERS.getValue());
+            collectionSheetData = retrieveJLGCollectionSheet(true, transactionDate, namedParameters);
+            this.collectionSheetCache.put(true, center.getId(), transactionDate, collectionSheetData, cacheVersion);
+        }
 
         return collectionSheetData;
     }
 
-    private static final class MandatorySavingsCollectionsheetExtractor implements ResultSetExtractor<Collection<JLGGroupData>> {
+    static final class MandatorySavingsCollectionsheetExtractor implements ResultSetExtractor<Collection<JLGGroupData>> {
 
         private final GroupSavingsDataMapper groupSavingsDataMapper = new GroupSavingsDataMapper();
         private final DatabaseSpecificSQLGenerator sqlGenerator;
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.exception.AbstractPlatformException;
+import org.apache.fineract.infrastructure.core.exception.PlatformInternalServerException;
+import org.apache.fineract.infrastructure.core.service.ThreadContextSnapshot;
+import org.apache.fineract.portfolio.collectionsheet.data.CollectionSheetTransactionResultData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes the transactions of saved collection sheets on a fixed number of lanes shared by all sheets.
+ *
+ * Every transaction runs in its own database transaction on a lane chosen by its account, so the transactions of one
+ * account are applied in sheet order, also across sheets saved at the same time, while different accounts run in
+ * parallel. A failing transaction is reported in its result and does not affect the others. As the transactions commit
+ * on their own, they stay committed when the command that submitted them rolls back afterwards.
+ */
+@Component
+public class CollectionSheetTransactionLanes implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionSheetTransactionLanes.class);
+
+    private final List<ExecutorService> lanes;
+
+    @Autowired
+    public CollectionSheetTransactionLanes(final FineractProperties fineractProperties) {
+        this(fineractProperties.getCollectionSheet().getThreadPoolSize());
+    }
+
+    CollectionSheetTransactionLanes(final int threads) {
+        this.lanes = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final String name = "collection-sheet-" + i;
+            this.lanes.add(Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+    }
+
+    /**
+     * Starts the transactions of one collection sheet.
+     *
+     * @param inline
+     *            runs the transactions on the calling thread, in its database transaction, instead of on the lanes; used
+     *            when that transaction must be able to undo them, e.g. when the sheet awaits approval by a checker
+     */
+    Batch open(final boolean inline) {
+        return new Batch(inline ? null : this.lanes);
+    }
+
+    @Override
+    public void destroy() {
+        this.lanes.forEach(ExecutorService::shutdownNow);
+    }
+
+    /**
+     * The transactions of one collection sheet.
+     */
+    static final class Batch {
+
+        private final List<ExecutorService> lanes;
+        private final List<Future<CollectionSheetTransactionResultData>> results = new ArrayList<>();
+        private final ThreadContextSnapshot context = ThreadContextSnapshot.capture();
+
+        private Batch(final List<ExecutorService> lanes) {
+            this.lanes = lanes;
+        }
+
+        /**
+         * Queues <code>transaction</code>, which returns the id of the transaction it created, behind the earlier ones of
+         * the same account; <code>lane</code> identifies the account across types, e.g. a loan repaid and disbursed.
+         */
+        void submit(final String type, final Long accountId, final Object lane, final Supplier<Long> transaction) {
+            if (this.lanes == null) {
+                this.results.add(CompletableFuture.completedFuture(execute(type, accountId, transaction)));
+                return;
+            }
+            final ExecutorService executor = this.lanes.get(Math.floorMod(Objects.hashCode(lane), this.lanes.size()));
+            this.results.add(executor.submit(() -> this.context.get(() -> execute(type, accountId, transaction))));
+        }
+
+        private static CollectionSheetTransactionResultData execute(final String type, final Long accountId,
+                final Supplier<Long> transaction) {
+            try {
+                return CollectionSheetTransactionResultData.success(type, accountId, transaction.get());
+            } catch (RuntimeException e) {
+                LOG.error("Problem occurred processing {} of account {} from collection sheet", type, accountId, e);
+                if (e instanceof AbstractPlatformException) {
+                    final AbstractPlatformException platformException = (AbstractPlatformException) e;
+                    return CollectionSheetTransactionResultData.failure(type, accountId,
+                            platformException.getGlobalisationMessageCode(), platformException.getDefaultUserMessage());
+                }
+                return CollectionSheetTransactionResultData.failure(type, accountId, e.getClass().getName(), e.getMessage());
+            }
+        }
+
+        /**
+         * Waits for all submitted transactions and returns their results in submission order.
+         */
+        List<CollectionSheetTransactionResultData> finish() {
+            final List<CollectionSheetTransactionResultData> transactionResults = new ArrayList<>(this.results.size());
+            try {
+                for (final Future<CollectionSheetTransactionResultData> result : this.results) {
+                    transactionResults.add(result.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.results.forEach(result -> result.cancel(false));
+                throw new PlatformInternalServerException("error.msg.collectionsheet.interrupted",
+                        "Interrupted while saving the collection sheet", e);
+            } catch (ExecutionException e) {
+                this.results.forEach(result -> result.cancel(false));
+                throw new PlatformInternalServerException("error.msg.collectionsheet.failed", "Saving the collection sheet failed",
+                        e.getCause());
+            }
+            return transactionResults;
+        }
+    }
+}
@@ -20,16 +20,21 @@ package org.apache.fineract.portfolio.collectionsheet.service;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.apache.fineract.portfolio.collectionsheet.command.CollectionSheetBulkDisbursalCommand;
 import org.apache.fineract.portfolio.collectionsheet.command.CollectionSheetBulkRepaymentCommand;
+import org.apache.fineract.portfolio.collectionsheet.command.SingleDisbursalCommand;
+import org.apache.fineract.portfolio.collectionsheet.command.SingleRepaymentCommand;
 import org.apache.fineract.portfolio.collectionsheet.data.CollectionSheetTransactionDataValidator;
+import org.apache.fineract.portfolio.collectionsheet.data.CollectionSheetTransactionResultData;
 import org.apache.fineract.portfolio.collectionsheet.serialization.CollectionSheetBulkDisbursalCommandFromApiJsonDeserializer;
 import org.apache.fineract.portfolio.collectionsheet.serialization.CollectionSheetBulkRepaymentCommandFromApiJsonDeserializer;
 import org.apache.fineract.portfolio.loanaccount.service.LoanWritePlatformService;
@@ -47,6 +52,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements CollectionSheetWritePlatformService {
 
+    private static final String SAVE_INDIVIDUAL_COLLECTION_SHEET_TASK = "SAVE_COLLECTIONSHEET";
+
     private final LoanWritePlatformService loanWritePlatformService;
     private final CollectionSheetBulkRepaymentCommandFromApiJsonDeserializer bulkRepaymentCommandFromApiJsonDeserializer;
     private final CollectionSheetBulkDisbursalCommandFromApiJsonDeserializer bulkDisbursalCommandFromApiJsonDeserializer;
@@ -56,6 +63,8 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
     private final DepositAccountWritePlatformService accountWritePlatformService;
     private final PaymentDetailAssembler paymentDetailAssembler;
     private final PaymentDetailWritePlatformService paymentDetailWritePlatformService;
+    private final CollectionSheetTransactionLanes transactionLanes;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
     public CollectionSheetWritePlatformServiceJpaRepositoryImpl(final LoanWritePlatformService loanWritePlatformService,
@@ -64,7 +73,8 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
             final CollectionSheetTransactionDataValidator transactionDataValidator,
             final MeetingWritePlatformService meetingWritePlatformService, final DepositAccountAssembler accountAssembler,
             final DepositAccountWritePlatformService accountWritePlatformService, final PaymentDetailAssembler paymentDetailAssembler,
-            final PaymentDetailWritePlatformService paymentDetailWritePlatformService) {
+            final PaymentDetailWritePlatformService paymentDetailWritePlatformService,
+            final CollectionSheetTransactionLanes transactionLanes, final ConfigurationDomainService configurationDomainService) {
         this.loanWritePlatformService = loanWritePlatformService;
         this.bulkRepaymentCommandFromApiJsonDeserializer = bulkRepaymentCommandFromApiJsonDeserializer;
         this.bulkDisbursalCommandFromApiJsonDeserializer = bulkDisbursalCommandFromApiJsonDeserializer;
@@ -74,6 +84,8 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
         this.accountWritePlatformService = accountWritePlatformService;
         this.paymentDetailAssembler = paymentDetailAssembler;
         this.paymentDetailWritePlatformService = paymentDetailWritePlatformService;
+        this.transactionLanes = transactionLanes;
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Override
@@ -109,6 +121,7 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
     @Override
     public CommandProcessingResult saveIndividualCollectionSheet(final JsonCommand command) {
 
+        final long startTime = System.currentTimeMillis();
         this.transactionDataValidator.validateIndividualCollectionSheet(command);
 
         final Map<String, Object> changes = new HashMap<>();
@@ -121,12 +134,37 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
         }
 
         final PaymentDetail paymentDetail = null;
+        final CollectionSheetBulkRepaymentCommand bulkRepaymentCommand = this.bulkRepaymentCommandFromApiJsonDeserializer
+                .commandFromApiJson(command.json(), paymentDetail);
+        final CollectionSheetBulkDisbursalCommand bulkDisbursalCommand = this.bulkDisbursalCommandFromApiJsonDeserializer
+                .commandFromApiJson(command.json());
+        final Collection<SavingsAccountTransactionDTO> savingsTransactions = this.accountAssembler
+                .assembleBulkMandatorySavingsAccountTransactionDTOs(command, paymentDetail);
 
-        changes.putAll(updateBulkReapayments(command, paymentDetail));
-
-        changes.putAll(updateBulkDisbursals(command));
+        // the disbursals of the sheet report their changes together, as they did when run one after the other
+        final Map<String, Object> disbursalChanges = Collections.synchronizedMap(new HashMap<>());
+        // a sheet awaiting approval is rolled back after processing, so its transactions must not commit on their own
+        final boolean awaitingApproval = command.commandId() == null
+                && this.configurationDomainService.isMakerCheckerEnabledForTask(SAVE_INDIVIDUAL_COLLECTION_SHEET_TASK);
+        final CollectionSheetTransactionLanes.Batch lanes = this.transactionLanes.open(awaitingApproval);
+        List<CollectionSheetTransactionResultData> transactionResults;
+        try {
+            submitRepayments(lanes, bulkRepaymentCommand);
+            submitDisbursals(lanes, command, bulkDisbursalCommand, disbursalChanges);
+            submitMandatorySavingsDeposits(lanes, savingsTransactions);
+        } finally {
+            transactionResults = lanes.finish();
+        }
 
-        changes.putAll(updateBulkMandatorySavingsDuePayments(command, paymentDetail));
+        changes.put("loanTransactions", transactionIds(transactionResults, CollectionSheetTransactionResultData.REPAYMENT));
+        changes.putAll(disbursalChanges);
+        changes.put("SavingsTransactions", transactionIds(transactionResults, CollectionSheetTransactionResultData.SAVINGS_DEPOSIT));
+        changes.put("transactionResults", transactionResults);
+        // recorded with the command, as the transactions that succeeded stay committed next to the failed ones
+        final long failedTransactions = transactionResults.stream().filter(result -> !result.isSuccess()).count();
+        changes.put("failedTransactions", failedTransactions);
+        changes.put("partialSuccess", failedTransactions > 0 && failedTransactions < transactionResults.size());
+        changes.put("elapsedTimeInMillis", System.currentTimeMillis() - startTime);
 
         return new CommandProcessingResultBuilder() //
                 .withCommandId(command.commandId()) //
@@ -135,6 +173,68 @@ public class CollectionSheetWritePlatformServiceJpaRepositoryImpl implements Col
                 .with(changes).with(changes).build();
     }
 
+    private void submitRepayments(final CollectionSheetTransactionLanes.Batch lanes,
+            final CollectionSheetBulkRepaymentCommand bulkRepaymentCommand) {
+        if (bulkRepaymentCommand.getLoanTransactions() == null) {
+            return;
+        }
+        for (final SingleRepaymentCommand repaymentCommand : bulkRepaymentCommand.getLoanTransactions()) {
+            if (repaymentCommand == null) {
+                continue;
+            }
+            final CollectionSheetBulkRepaymentCommand singleRepaymentCommand = new CollectionSheetBulkRepaymentCommand(
+                    bulkRepaymentCommand.getNote(), bulkRepaymentCommand.getTransactionDate(),
+                    new SingleRepaymentCommand[] { repaymentCommand });
+            final Long loanId = repaymentCommand.getLoanId();
+            lanes.submit(CollectionSheetTransactionResultData.REPAYMENT, loanId, loanLane(loanId), () -> {
+                final List<?> transactionIds = (List<?>) this.loanWritePlatformService.makeLoanBulkRepayment(singleRepaymentCommand)
+                        .get("loanTransactions");
+                return (Long) transactionIds.get(0);
+            });
+        }
+    }
+
+    private void submitDisbursals(final CollectionSheetTransactionLanes.Batch lanes, final JsonCommand command,
+            final CollectionSheetBulkDisbursalCommand bulkDisbursalCommand, final Map<String, Object> disbursalChanges) {
+        if (bulkDisbursalCommand.getDisburseTransactions() == null) {
+            return;
+        }
+        for (final SingleDisbursalCommand disbursalCommand : bulkDisbursalCommand.getDisburseTransactions()) {
+            final CollectionSheetBulkDisbursalCommand singleDisbursalCommand = new CollectionSheetBulkDisbursalCommand(
+                    bulkDisbursalCommand.getNote(), bulkDisbursalCommand.getTransactionDate(),
+                    new SingleDisbursalCommand[] { disbursalCommand });
+            final Long loanId = disbursalCommand.getLoanId();
+            lanes.submit(CollectionSheetTransactionResultData.DISBURSAL, loanId, loanLane(loanId), () -> {
+                disbursalChanges.putAll(this.loanWritePlatformService.bulkLoanDisbursal(command, singleDisbursalCommand, false));
+                // the disbursal does not report the id of its transaction
+                return null;
+            });
+        }
+    }
+
+    private void submitMandatorySavingsDeposits(final CollectionSheetTransactionLanes.Batch lanes,
+            final Collection<SavingsAccountTransactionDTO> savingsTransactions) {
+        for (final SavingsAccountTransactionDTO savingsAccountTransactionDTO : savingsTransactions) {
+            final Long savingsId = savingsAccountTransactionDTO.getSavingsAccountId();
+            lanes.submit(CollectionSheetTransactionResultData.SAVINGS_DEPOSIT, savingsId, "savings-" + savingsId,
+                    () -> this.accountWritePlatformService.mandatorySavingsAccountDeposit(savingsAccountTransactionDTO).getId());
+        }
+    }
+
+    private static String loanLane(final Long loanId) {
+        return "loan-" + loanId;
+    }
+
+    private static List<Long> transactionIds(final List<CollectionSheetTransactionResultData> transactionResults, final String type) {
+        final List<Long> transactionIds = new ArrayList<>();
+        for (final CollectionSheetTransactionResultData transactionResult : transactionResults) {
+            if (transactionResult.isSuccess() && type.equals(transactionResult.getType())) {
+                transactionIds.add(transactionResult.getTransactionId());
+            }
+        }
+        return transactionIds;
+    }
+
     private Map<String, Object> updateBulkReapayments(final JsonCommand command, final PaymentDetail paymentDetail) {
         final Map<String, Object> changes = new HashMap<>();
         final CollectionSheetBulkRepaymentCommand bulkRepaymentCommand = this.bulkRepaymentCommandFromApiJsonDeserializer
@@ -18,6 +18,7 @@
  */
 package org.apache.fineract.portfolio.loanaccount.api;
 
+import static org.apache.fineract.infrastructure.core.service.AssociationLoader.join;
 import static org.apache.fineract.portfolio.loanproduct.service.LoanEnumerations.interestType;
 
 import com.google.gson.JsonElement;
@@ -38,6 +39,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
@@ -72,6 +75,7 @@ import org.apache.fineract.infrastructure.core.exception.UnrecognizedQueryParamE
 import org.apache.fineract.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import org.apache.fineract.infrastructure.core.serialization.DefaultToApiJsonSerializer;
 import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.AssociationLoader;
 import org.apache.fineract.infrastructure.core.service.Page;
 import org.apache.fineract.infrastructure.core.service.SearchParameters;
 import org.apache.fineract.infrastructure.dataqueries.api.DataTableApiConstant;
@@ -96,7 +100,6 @@ import org.apache.fineract.portfolio.charge.data.ChargeData;
 import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
 import org.apache.fineract.portfolio.charge.service.ChargeReadPlatformService;
 import org.apache.fineract.portfolio.client.data.ClientData;
-import org.apache.fineract.portfolio.collateral.data.CollateralData;
 import org.apache.fineract.portfolio.collateral.service.CollateralReadPlatformService;
 import org.apache.fineract.portfolio.collateralmanagement.data.LoanCollateralResponseData;
 import org.apache.fineract.portfolio.collateralmanagement.service.LoanCollateralManagementReadPlatformService;
@@ -259,6 +262,7 @@ public class LoansApiResource {
     private final DefaultToApiJsonSerializer<GlimRepaymentTemplate> glimTemplateToApiJsonSerializer;
     private final GLIMAccountInfoReadPlatformService glimAccountInfoReadPlatformService;
     private final LoanCollateralManagementReadPlatformService loanCollateralManagementReadPlatformService;
+    private final AssociationLoader associationLoader;
 
     public LoansApiResource(final PlatformSecurityContext context, final LoanReadPlatformService loanReadPlatformService,
             final LoanProductReadPlatformService loanProductReadPlatformService,
@@ -284,7 +288,8 @@ public class LoansApiResource {
             final ConfigurationDomainService configurationDomainService,
             final DefaultToApiJsonSerializer<GlimRepaymentTemplate> glimTemplateToApiJsonSerializer,
             final GLIMAccountInfoReadPlatformService glimAccountInfoReadPlatformService,
-            final LoanCollateralManagementReadPlatformService loanCollateralManagementReadPlatformService) {
+            final LoanCollateralManagementReadPlatformService loanCollateralManagementReadPlatformService,
+            final AssociationLoader associationLoader) {
         this.context = context;
         this.loanReadPlatformService = loanReadPlatformService;
         this.loanProductReadPlatformService = loanProductReadPlatformService;
@@ -317,6 +322,7 @@ public class LoansApiResource {
         this.glimTemplateToApiJsonSerializer = glimTemplateToApiJsonSerializer;
         this.glimAccountInfoReadPlatformService = glimAccountInfoReadPlatformService;
         this.loanCollateralManagementReadPlatformService = loanCollateralManagementReadPlatformService;
+        this.associationLoader = associationLoader;
     }
 
     /*
@@ -498,52 +504,35 @@ public class LoansApiResource {
             @Context final UriInfo uriInfo) {
         this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
 
-        LoanAccountData loanBasicDetails = this.loanReadPlatformService.retrieveOne(loanId);
-        if (loanBasicDetails.isInterestRecalculationEnabled()) {
-            Collection<CalendarData> interestRecalculationCalendarDatas = this.calendarReadPlatformService.retrieveCalendarsByEntity(
-                    loanBasicDetails.getInterestRecalculationDetailId(), CalendarEntityType.LOAN_RECALCULATION_REST_DETAIL.getValue(),
-                    null);
-            CalendarData calendarData = null;
-            if (!CollectionUtils.isEmpty(interestRecalculationCalendarDatas)) {
-                calendarData = interestRecalculationCalendarDatas.iterator().next();
-            }
-
-            Collection<CalendarData> interestRecalculationCompoundingCalendarDatas = this.calendarReadPlatformService
-                    .retrieveCalendarsByEntity(loanBasicDetails.getInterestRecalculationDetailId(),
-                            CalendarEntityType.LOAN_RECALCULATION_COMPOUNDING_DETAIL.getValue(), null);
-            CalendarData compoundingCalendarData = null;
-            if (!CollectionUtils.isEmpty(interestRecalculationCompoundingCalendarDatas)) {
-                compoundingCalendarData = interestRecalculationCompoundingCalendarDatas.iterator().next();
-            }
-            loanBasicDetails = LoanAccountData.withInterestRecalculationCalendarData(loanBasicDetails, calendarData,
-                    compoundingCalendarData);
+        final LoanAccountData loanData = this.loanReadPlatformService.retrieveOne(loanId);
+
+        // Everything below only depends on the loan itself: the reads are started first, run concurrently on the
+        // association loader and are joined in the order the response used to be assembled.
+        Future<CalendarData> interestRecalculationCalendarLoad = null;
+        Future<CalendarData> interestRecalculationCompoundingCalendarLoad = null;
+        if (loanData.isInterestRecalculationEnabled()) {
+            interestRecalculationCalendarLoad = load("interestRecalculationCalendar", () -> retrieveFirstCalendar(
+                    loanData.getInterestRecalculationDetailId(), CalendarEntityType.LOAN_RECALCULATION_REST_DETAIL));
+            interestRecalculationCompoundingCalendarLoad = load("interestRecalculationCompoundingCalendar", () -> retrieveFirstCalendar(
+                    loanData.getInterestRecalculationDetailId(), CalendarEntityType.LOAN_RECALCULATION_COMPOUNDING_DETAIL));
         }
-        if (loanBasicDetails.isMonthlyRepaymentFrequencyType()) {
-            Collection<CalendarData> loanCalendarDatas = this.calendarReadPlatformService.retrieveCalendarsByEntity(loanId,
-                    CalendarEntityType.LOANS.getValue(), null);
-            CalendarData calendarData = null;
-            if (!CollectionUtils.isEmpty(loanCalendarDatas)) {
-                calendarData = loanCalendarDatas.iterator().next();
-            }
-            if (calendarData != null) {
-                loanBasicDetails = LoanAccountData.withLoanCalendarData(loanBasicDetails, calendarData);
-            }
+        Future<CalendarData> loanCalendarLoad = null;
+        if (loanData.isMonthlyRepaymentFrequencyType()) {
+            loanCalendarLoad = load("loanCalendar", () -> retrieveFirstCalendar(loanId, CalendarEntityType.LOANS));
         }
-        Collection<InterestRatePeriodData> interestRatesPeriods = this.loanReadPlatformService
-                .retrieveLoanInterestRatePeriodData(loanBasicDetails);
-        Collection<LoanTransactionData> loanRepayments = null;
-        LoanScheduleData repaymentSchedule = null;
-        Collection<LoanChargeData> charges = null;
-        Collection<GuarantorData> guarantors = null;
-        Collection<CollateralData> collateral = null;
-        CalendarData meeting = null;
-        Collection<NoteData> notes = null;
-        PortfolioAccountData linkedAccount = null;
-        Collection<DisbursementData> disbursementData = null;
-        Collection<LoanTermVariationsData> emiAmountVariations = null;
-        Collection<LoanCollateralResponseData> loanCollateralManagements = null;
-        Collection<LoanCollateralManagementData> loanCollateralManagementData = new ArrayList<>();
-        CollectionData collectionData = CollectionData.template();
+        final Future<Collection<InterestRatePeriodData>> interestRatesPeriodsLoad = load("interestRatesPeriods",
+                () -> this.loanReadPlatformService.retrieveLoanInterestRatePeriodData(loanData));
+
+        Future<Collection<GuarantorData>> guarantorsLoad = null;
+        Future<Collection<LoanTransactionData>> transactionsLoad = null;
+        Future<LoanScheduleAssociation> scheduleLoad = null;
+        Future<Collection<LoanTermVariationsData>> emiAmountVariationsLoad = null;
+        Future<Collection<LoanChargeData>> chargesLoad = null;
+        Future<Collection<LoanCollateralResponseData>> collateralLoad = null;
+        Future<CalendarData> meetingLoad = null;
+        Future<Collection<NoteData>> notesLoad = null;
+        Future<PortfolioAccountData> linkedAccountLoad = null;
+        Future<CollectionData> collectionLoad = null;
 
         final Set<String> mandatoryResponseParameters = new HashSet<>();
         final Set<String> associationParameters = ApiParameterHelper.extractAssociationsForResponseIfProvided(uriInfo.getQueryParameters());
@@ -562,101 +551,173 @@ public class LoansApiResource {
 
             if (associationParameters.contains(DataTableApiConstant.guarantorsAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.guarantorsAssociateParamName);
-                guarantors = this.guarantorReadPlatformService.retrieveGuarantorsForLoan(loanId);
-                if (CollectionUtils.isEmpty(guarantors)) {
-                    guarantors = null;
-                }
+                guarantorsLoad = load(DataTableApiConstant.guarantorsAssociateParamName,
+                        () -> this.guarantorReadPlatformService.retrieveGuarantorsForLoan(loanId));
             }
 
             if (associationParameters.contains(DataTableApiConstant.transactionsAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.transactionsAssociateParamName);
-                final Collection<LoanTransactionData> currentLoanRepayments = this.loanReadPlatformService.retrieveLoanTransactions(loanId);
-                if (!CollectionUtils.isEmpty(currentLoanRepayments)) {
-                    loanRepayments = currentLoanRepayments;
-                }
+                transactionsLoad = load(DataTableApiConstant.transactionsAssociateParamName,
+                        () -> this.loanReadPlatformService.retrieveLoanTransactions(loanId));
             }
 
-            if (associationParameters.contains(DataTableApiConstant.multiDisburseDetailsAssociateParamName)
-                    || associationParameters.contains(DataTableApiConstant.repaymentScheduleAssociateParamName)) {
+            final boolean withSchedule = associationParameters.contains(DataTableApiConstant.repaymentScheduleAssociateParamName);
+            if (withSchedule || associationParameters.contains(DataTableApiConstant.multiDisburseDetailsAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.multiDisburseDetailsAssociateParamName);
-                disbursementData = this.loanReadPlatformService.retrieveLoanDisbursementDetails(loanId);
+                final boolean withFutureSchedule = withSchedule
+                        && associationParameters.contains(DataTableApiConstant.futureScheduleAssociateParamName)
+                        && loanData.isInterestRecalculationEnabled();
+                final boolean withOriginalSchedule = withSchedule
+                        && associationParameters.contains(DataTableApiConstant.originalScheduleAssociateParamName)
+                        && loanData.isInterestRecalculationEnabled() && loanData.isActive();
+                if (withSchedule) {
+                    mandatoryResponseParameters.add(DataTableApiConstant.repaymentScheduleAssociateParamName);
+                }
+                if (withFutureSchedule) {
+                    mandatoryResponseParameters.add(DataTableApiConstant.futureScheduleAssociateParamName);
+                }
+                if (withOriginalSchedule) {
+                    mandatoryResponseParameters.add(DataTableApiConstant.originalScheduleAssociateParamName);
+                }
+                // the schedule is built from the disbursement details, so both are read by the same task
+                scheduleLoad = load(
+                        withSchedule ? DataTableApiConstant.repaymentScheduleAssociateParamName
+                                : DataTableApiConstant.multiDisburseDetailsAssociateParamName,
+                        () -> retrieveSchedule(loanId, loanData, withSchedule, withFutureSchedule, withOriginalSchedule));
             }
 
             if (associationParameters.contains(DataTableApiConstant.emiAmountVariationsAssociateParamName)
                     || associationParameters.contains(DataTableApiConstant.repaymentScheduleAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.emiAmountVariationsAssociateParamName);
-                emiAmountVariations = this.loanReadPlatformService.retrieveLoanTermVariations(loanId,
-                        LoanTermVariationType.EMI_AMOUNT.getValue());
-            }
-
-            if (associationParameters.contains(DataTableApiConstant.repaymentScheduleAssociateParamName)) {
-                mandatoryResponseParameters.add(DataTableApiConstant.repaymentScheduleAssociateParamName);
-                final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData = loanBasicDetails.repaymentScheduleRelatedData();
-                repaymentSchedule = this.loanReadPlatformService.retrieveRepaymentSchedule(loanId, repaymentScheduleRelatedData,
-                        disbursementData, loanBasicDetails.isInterestRecalculationEnabled(), loanBasicDetails.getTotalPaidFeeCharges());
-
-                if (associationParameters.contains(DataTableApiConstant.futureScheduleAssociateParamName)
-                        && loanBasicDetails.isInterestRecalculationEnabled()) {
-                    mandatoryResponseParameters.add(DataTableApiConstant.futureScheduleAssociateParamName);
-                    this.calculationPlatformService.updateFutureSchedule(repaymentSchedule, loanId);
-                }
-
-                if (associationParameters.contains(DataTableApiConstant.originalScheduleAssociateParamName)
-                        && loanBasicDetails.isInterestRecalculationEnabled() && loanBasicDetails.isActive()) {
-                    mandatoryResponseParameters.add(DataTableApiConstant.originalScheduleAssociateParamName);
-                    LoanScheduleData loanScheduleData = this.loanScheduleHistoryReadPlatformService.retrieveRepaymentArchiveSchedule(loanId,
-                            repaymentScheduleRelatedData, disbursementData);
-                    loanBasicDetails = LoanAccountData.withOriginalSchedule(loanBasicDetails, loanScheduleData);
-                }
+                emiAmountVariationsLoad = load(DataTableApiConstant.emiAmountVariationsAssociateParamName,
+                        () -> this.loanReadPlatformService.retrieveLoanTermVariations(loanId, LoanTermVariationType.EMI_AMOUNT.getValue()));
             }
 
             if (associationParameters.contains(DataTableApiConstant.chargesAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.chargesAssociateParamName);
-                charges = this.loanChargeReadPlatformService.retrieveLoanCharges(loanId);
-                if (CollectionUtils.isEmpty(charges)) {
-                    charges = null;
-                }
+                chargesLoad = load(DataTableApiConstant.chargesAssociateParamName,
+                        () -> this.loanChargeReadPlatformService.retrieveLoanCharges(loanId));
             }
 
             if (associationParameters.contains(DataTableApiConstant.collateralAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.collateralAssociateParamName);
-                loanCollateralManagements = this.loanCollateralManagementReadPlatformService.getLoanCollateralResponseDataList(loanId);
-                for (LoanCollateralResponseData loanCollateralManagement : loanCollateralManagements) {
-                    loanCollateralManagementData.add(loanCollateralManagement.toCommand());
-                }
-                if (CollectionUtils.isEmpty(loanCollateralManagements)) {
-                    loanCollateralManagements = null;
-                }
+                collateralLoad = load(DataTableApiConstant.collateralAssociateParamName,
+                        () -> this.loanCollateralManagementReadPlatformService.getLoanCollateralResponseDataList(loanId));
             }
 
             if (associationParameters.contains(DataTableApiConstant.meetingAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.meetingAssociateParamName);
-                meeting = this.calendarReadPlatformService.retrieveLoanCalendar(loanId);
+                meetingLoad = load(DataTableApiConstant.meetingAssociateParamName,
+                        () -> this.calendarReadPlatformService.retrieveLoanCalendar(loanId));
             }
 
             if (associationParameters.contains(DataTableApiConstant.notesAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.notesAssociateParamName);
-                notes = this.noteReadPlatformService.retrieveNotesByResource(loanId, NoteType.LOAN.getValue());
-                if (CollectionUtils.isEmpty(notes)) {
-                    notes = null;
-                }
-            }
-
-            if (associationParameters.contains(DataTableApiConstant.linkedAccountAssociateParamName)) {
-                mandatoryResponseParameters.add(DataTableApiConstant.linkedAccountAssociateParamName);
-                linkedAccount = this.accountAssociationsReadPlatformService.retriveLoanLinkedAssociation(loanId);
+                notesLoad = load(DataTableApiConstant.notesAssociateParamName,
+                        () -> this.noteReadPlatformService.retrieveNotesByResource(loanId, NoteType.LOAN.getValue()));
             }
 
             if (associationParameters.contains(DataTableApiConstant.collectionAssociateParamName)) {
                 mandatoryResponseParameters.add(DataTableApiConstant.collectionAssociateParamName);
-                if (loanBasicDetails.isActive()) {
-                    collectionData = this.loanReadPlatformService.retrieveLoanCollectionData(loanId);
+                if (loanData.isActive()) {
+                    collectionLoad = load(DataTableApiConstant.collectionAssociateParamName,
+                            () -> this.loanReadPlatformService.retrieveLoanCollectionData(loanId));
                 }
             }
         }
 
+        final boolean template = ApiParameterHelper.template(uriInfo.getQueryParameters());
+        // the template always carries the linked account
+        if (template || associationParameters.contains(DataTableApiConstant.linkedAccountAssociateParamName)) {
+            mandatoryResponseParameters.add(DataTableApiConstant.linkedAccountAssociateParamName);
+            linkedAccountLoad = load(DataTableApiConstant.linkedAccountAssociateParamName,
+                    () -> this.accountAssociationsReadPlatformService.retriveLoanLinkedAssociation(loanId));
+        }
+
+        Future<LoanProductData> productLoad = null;
+        Future<Collection<LoanProductData>> productOptionsLoad = null;
+        Future<Collection<FundData>> fundOptionsLoad = null;
+        Future<Collection<TransactionProcessingStrategyData>> repaymentStrategyOptionsLoad = null;
+        Future<Collection<StaffData>> allowedLoanOfficersLoad = null;
+        Future<Collection<CodeValueData>> loanPurposeOptionsLoad = null;
+        Future<Collection<CodeValueData>> loanCollateralOptionsLoad = null;
+        Future<Collection<PortfolioAccountData>> accountLinkingOptionsLoad = null;
+        Future<Collection<CalendarData>> calendarOptionsLoad = null;
+        if (template) {
+            productLoad = load("product", () -> this.loanProductReadPlatformService.retrieveLoanProduct(loanData.loanProductId()));
+            productOptionsLoad = load("productOptions", () -> this.loanProductReadPlatformService.retrieveAllLoanProductsForLookup());
+            fundOptionsLoad = load("fundOptions", () -> this.fundReadPlatformService.retrieveAllFunds());
+            repaymentStrategyOptionsLoad = load("repaymentStrategyOptions",
+                    () -> this.dropdownReadPlatformService.retreiveTransactionProcessingStrategies());
+            allowedLoanOfficersLoad = load("loanOfficerOptions",
+                    () -> this.loanReadPlatformService.retrieveAllowedLoanOfficers(loanData.officeId(), staffInSelectedOfficeOnly));
+            loanPurposeOptionsLoad = load("loanPurposeOptions",
+                    () -> this.codeValueReadPlatformService.retrieveCodeValuesByCode("LoanPurpose"));
+            loanCollateralOptionsLoad = load("loanCollateralOptions",
+                    () -> this.codeValueReadPlatformService.retrieveCodeValuesByCode("LoanCollateral"));
+            final CurrencyData currencyData = loanData.currency();
+            final String currencyCode = currencyData == null ? null : currencyData.code();
+            final long[] accountStatus = { SavingsAccountStatusType.ACTIVE.getValue() };
+            final PortfolioAccountDTO portfolioAccountDTO = new PortfolioAccountDTO(PortfolioAccountType.SAVINGS.getValue(),
+                    loanData.clientId(), currencyCode, accountStatus, DepositAccountType.SAVINGS_DEPOSIT.getValue());
+            accountLinkingOptionsLoad = load("accountLinkingOptions",
+                    () -> this.portfolioAccountReadPlatformService.retrieveAllForLookup(portfolioAccountDTO));
+            if (loanData.groupId() != null) {
+                calendarOptionsLoad = load("calendarOptions", () -> this.loanReadPlatformService.retrieveCalendars(loanData.groupId()));
+            }
+        }
+
+        final Future<Collection<ChargeData>> overdueChargesLoad = load("overdueCharges", () -> this.chargeReadPlatformService
+                .retrieveLoanProductCharges(loanData.loanProductId(), ChargeTimeType.OVERDUE_INSTALLMENT));
+        final Future<PaidInAdvanceData> paidInAdvanceLoad = load("paidInAdvance",
+                () -> this.loanReadPlatformService.retrieveTotalPaidInAdvance(loanId));
+        // Get rates from Loan
+        final boolean isRatesEnabled = this.configurationDomainService.isSubRatesEnabled();
+        Future<List<RateData>> ratesLoad = null;
+        if (isRatesEnabled) {
+            ratesLoad = load("rates", () -> this.rateReadService.retrieveLoanRates(loanId));
+        }
+
+        LoanAccountData loanBasicDetails = loanData;
+        if (loanData.isInterestRecalculationEnabled()) {
+            loanBasicDetails = LoanAccountData.withInterestRecalculationCalendarData(loanBasicDetails,
+                    join(interestRecalculationCalendarLoad), join(interestRecalculationCompoundingCalendarLoad));
+        }
+        if (loanCalendarLoad != null) {
+            final CalendarData calendarData = join(loanCalendarLoad);
+            if (calendarData != null) {
+                loanBasicDetails = LoanAccountData.withLoanCalendarData(loanBasicDetails, calendarData);
+            }
+        }
+        final Collection<InterestRatePeriodData> interestRatesPeriods = join(interestRatesPeriodsLoad);
+
+        final Collection<GuarantorData> guarantors = guarantorsLoad == null ? null : emptyToNull(join(guarantorsLoad));
+        final Collection<LoanTransactionData> loanRepayments = transactionsLoad == null ? null : emptyToNull(join(transactionsLoad));
+        LoanScheduleData repaymentSchedule = null;
+        Collection<DisbursementData> disbursementData = null;
+        if (scheduleLoad != null) {
+            final LoanScheduleAssociation schedule = join(scheduleLoad);
+            disbursementData = schedule.disbursementData;
+            repaymentSchedule = schedule.repaymentSchedule;
+            if (schedule.originalSchedule != null) {
+                loanBasicDetails = LoanAccountData.withOriginalSchedule(loanBasicDetails, schedule.originalSchedule);
+            }
+        }
+        final Collection<LoanTermVariationsData> emiAmountVariations = emiAmountVariationsLoad == null ? null
+                : join(emiAmountVariationsLoad);
+        final Collection<LoanChargeData> charges = chargesLoad == null ? null : emptyToNull(join(chargesLoad));
+        final Collection<LoanCollateralManagementData> loanCollateralManagementData = new ArrayList<>();
+        if (collateralLoad != null) {
+            for (LoanCollateralResponseData loanCollateralManagement : join(collateralLoad)) {
+                loanCollateralManagementData.add(loanCollateralManagement.toCommand());
+            }
+        }
+        final CalendarData meeting = meetingLoad == null ? null : join(meetingLoad);
+        final Collection<NoteData> notes = notesLoad == null ? null : emptyToNull(join(notesLoad));
+        final PortfolioAccountData linkedAccount = linkedAccountLoad == null ? null : join(linkedAccountLoad);
+        final CollectionData collectionData = collectionLoad == null ? CollectionData.template() : join(collectionLoad);
+
         Collection<LoanProductData> productOptions = null;
-        LoanProductData product = null;
         Collection<EnumOptionData> loanTermFrequencyTypeOptions = null;
         Collection<EnumOptionData> repaymentFrequencyTypeOptions = null;
         Collection<EnumOptionData> repaymentFrequencyNthDayTypeOptions = null;
@@ -674,14 +735,24 @@ public class LoansApiResource {
         Collection<CodeValueData> loanCollateralOptions = null;
         Collection<CalendarData> calendarOptions = null;
         Collection<PortfolioAccountData> accountLinkingOptions = null;
-        PaidInAdvanceData paidInAdvanceTemplate = null;
         Collection<LoanAccountSummaryData> clientActiveLoanOptions = null;
 
-        final boolean template = ApiParameterHelper.template(uriInfo.getQueryParameters());
         if (template) {
-            productOptions = this.loanProductReadPlatformService.retrieveAllLoanProductsForLookup();
-            product = this.loanProductReadPlatformService.retrieveLoanProduct(loanBasicDetails.loanProductId());
+            final LoanProductData product = join(productLoad);
             loanBasicDetails.setProduct(product);
+            // the charge and top-up options depend on the product
+            final ChargeTimeType[] excludedChargeTimeTypes = product.getMultiDisburseLoan()
+                    ? new ChargeTimeType[] { ChargeTimeType.OVERDUE_INSTALLMENT }
+                    : new ChargeTimeType[] { ChargeTimeType.OVERDUE_INSTALLMENT, ChargeTimeType.TRANCHE_DISBURSEMENT };
+            final Future<Collection<ChargeData>> chargeOptionsLoad = load("chargeOptions",
+                    () -> this.chargeReadPlatformService.retrieveLoanAccountApplicableCharges(loanId, excludedChargeTimeTypes));
+            Future<Collection<LoanAccountSummaryData>> clientActiveLoanOptionsLoad = null;
+            if (product.canUseForTopup() && loanData.clientId() != null) {
+                clientActiveLoanOptionsLoad = load("clientActiveLoanOptions",
+                        () -> this.accountDetailsReadPlatformService.retrieveClientActiveLoanAccountSummary(loanData.clientId()));
+            }
+
+            productOptions = join(productOptionsLoad);
             loanTermFrequencyTypeOptions = this.dropdownReadPlatformService.retrieveLoanTermFrequencyTypeOptions();
             repaymentFrequencyTypeOptions = this.dropdownReadPlatformService.retrieveRepaymentFrequencyTypeOptions();
             repaymentFrequencyNthDayTypeOptions = this.dropdownReadPlatformService.retrieveRepaymentFrequencyOptionsForNthDayOfMonth();
@@ -696,58 +767,25 @@ public class LoansApiResource {
             }
             interestCalculationPeriodTypeOptions = this.dropdownReadPlatformService.retrieveLoanInterestRateCalculatedInPeriodOptions();
 
-            fundOptions = this.fundReadPlatformService.retrieveAllFunds();
-            repaymentStrategyOptions = this.dropdownReadPlatformService.retreiveTransactionProcessingStrategies();
-            if (product.getMultiDisburseLoan()) {
-                chargeOptions = this.chargeReadPlatformService.retrieveLoanAccountApplicableCharges(loanId,
-                        new ChargeTimeType[] { ChargeTimeType.OVERDUE_INSTALLMENT });
-            } else {
-                chargeOptions = this.chargeReadPlatformService.retrieveLoanAccountApplicableCharges(loanId,
-                        new ChargeTimeType[] { ChargeTimeType.OVERDUE_INSTALLMENT, ChargeTimeType.TRANCHE_DISBURSEMENT });
-            }
+            fundOptions = join(fundOptionsLoad);
+            repaymentStrategyOptions = join(repaymentStrategyOptionsLoad);
+            chargeOptions = join(chargeOptionsLoad);
             chargeTemplate = this.loanChargeReadPlatformService.retrieveLoanChargeTemplate();
-
-            allowedLoanOfficers = this.loanReadPlatformService.retrieveAllowedLoanOfficers(loanBasicDetails.officeId(),
-                    staffInSelectedOfficeOnly);
-
-            loanPurposeOptions = this.codeValueReadPlatformService.retrieveCodeValuesByCode("LoanPurpose");
-            loanCollateralOptions = this.codeValueReadPlatformService.retrieveCodeValuesByCode("LoanCollateral");
-            final CurrencyData currencyData = loanBasicDetails.currency();
-            String currencyCode = null;
-            if (currencyData != null) {
-                currencyCode = currencyData.code();
+            allowedLoanOfficers = join(allowedLoanOfficersLoad);
+            loanPurposeOptions = join(loanPurposeOptionsLoad);
+            loanCollateralOptions = join(loanCollateralOptionsLoad);
+            accountLinkingOptions = join(accountLinkingOptionsLoad);
+            if (calendarOptionsLoad != null) {
+                calendarOptions = join(calendarOptionsLoad);
             }
-            final long[] accountStatus = { SavingsAccountStatusType.ACTIVE.getValue() };
-            PortfolioAccountDTO portfolioAccountDTO = new PortfolioAccountDTO(PortfolioAccountType.SAVINGS.getValue(),
-                    loanBasicDetails.clientId(), currencyCode, accountStatus, DepositAccountType.SAVINGS_DEPOSIT.getValue());
-            accountLinkingOptions = this.portfolioAccountReadPlatformService.retrieveAllForLookup(portfolioAccountDTO);
-
-            if (!associationParameters.contains(DataTableApiConstant.linkedAccountAssociateParamName)) {
-                mandatoryResponseParameters.add(DataTableApiConstant.linkedAccountAssociateParamName);
-                linkedAccount = this.accountAssociationsReadPlatformService.retriveLoanLinkedAssociation(loanId);
+            if (clientActiveLoanOptionsLoad != null) {
+                clientActiveLoanOptions = join(clientActiveLoanOptionsLoad);
             }
-            if (loanBasicDetails.groupId() != null) {
-                calendarOptions = this.loanReadPlatformService.retrieveCalendars(loanBasicDetails.groupId());
-            }
-
-            if (loanBasicDetails.product().canUseForTopup() && loanBasicDetails.clientId() != null) {
-                clientActiveLoanOptions = this.accountDetailsReadPlatformService
-                        .retrieveClientActiveLoanAccountSummary(loanBasicDetails.clientId());
-            }
-
         }
 
-        Collection<ChargeData> overdueCharges = this.chargeReadPlatformService.retrieveLoanProductCharges(loanBasicDetails.loanProductId(),
-                ChargeTimeType.OVERDUE_INSTALLMENT);
-
-        paidInAdvanceTemplate = this.loanReadPlatformService.retrieveTotalPaidInAdvance(loanId);
-
-        // Get rates from Loan
-        boolean isRatesEnabled = this.configurationDomainService.isSubRatesEnabled();
-        List<RateData> rates = null;
-        if (isRatesEnabled) {
-            rates = this.rateReadService.retrieveLoanRates(loanId);
-        }
+        final Collection<ChargeData> overdueCharges = join(overdueChargesLoad);
+        final PaidInAdvanceData paidInAdvanceTemplate = join(paidInAdvanceLoad);
+        final List<RateData> rates = ratesLoad == null ? null : join(ratesLoad);
 
         final LoanAccountData loanAccount = LoanAccountData.associationsAndTemplate(loanBasicDetails, repaymentSchedule, loanRepayments,
                 charges, loanCollateralManagementData, guarantors, meeting, productOptions, loanTermFrequencyTypeOptions,
@@ -763,6 +801,46 @@ public class LoansApiResource {
         return this.toApiJsonSerializer.serialize(settings, loanAccount, this.loanDataParameters);
     }
 
+    private <T> Future<T> load(final String association, final Callable<T> read) {
+        return this.associationLoader.submit(this.resourceNameForPermissions, association, read);
+    }
+
+    private CalendarData retrieveFirstCalendar(final Long entityId, final CalendarEntityType entityType) {
+        final Collection<CalendarData> calendarDatas = this.calendarReadPlatformService.retrieveCalendarsByEntity(entityId,
+                entityType.getValue(), null);
+        return CollectionUtils.isEmpty(calendarDatas) ? null : calendarDatas.iterator().next();
+    }
+
+    private LoanScheduleAssociation retrieveSchedule(final Long loanId, final LoanAccountData loanData, final boolean withSchedule,
+            final boolean withFutureSchedule, final boolean withOriginalSchedule) {
+        final LoanScheduleAssociation schedule = new LoanScheduleAssociation();
+        schedule.disbursementData = this.loanReadPlatformService.retrieveLoanDisbursementDetails(loanId);
+        if (withSchedule) {
+            final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData = loanData.repaymentScheduleRelatedData();
+            schedule.repaymentSchedule = this.loanReadPlatformService.retrieveRepaymentSchedule(loanId, repaymentScheduleRelatedData,
+                    schedule.disbursementData, loanData.isInterestRecalculationEnabled(), loanData.getTotalPaidFeeCharges());
+            if (withFutureSchedule) {
+                this.calculationPlatformService.updateFutureSchedule(schedule.repaymentSchedule, loanId);
+            }
+            if (withOriginalSchedule) {
+                schedule.originalSchedule = this.loanScheduleHistoryReadPlatformService.retrieveRepaymentArchiveSchedule(loanId,
+                        repaymentScheduleRelatedData, schedule.disbursementData);
+            }
+        }
+        return schedule;
+    }
+
+    private static <T> Collection<T> emptyToNull(final Collection<T> collection) {
+        return CollectionUtils.isEmpty(collection) ? null : collection;
+    }
+
+    private static final class LoanScheduleAssociation {
+
+        private Collection<DisbursementData> disbursementData;
+        private LoanScheduleData repaymentSchedule;
+        private LoanScheduleData originalSchedule;
+    }
+
     @GET
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Accrual transaction calculated for one installment of a loan, together with the accrued totals the installment is
+ * updated to once the transaction is written.
+ */
+public class LoanAccrualPostingData {
+
+    private final LoanScheduleAccrualData scheduleAccrualData;
+    private final BigDecimal amount;
+    private final BigDecimal interestPortion;
+    private final BigDecimal totalAccruedInterest;
+    private final BigDecimal feePortion;
+    private final BigDecimal totalAccruedFee;
+    private final BigDecimal penaltyPortion;
+    private final BigDecimal totalAccruedPenalty;
+    private final LocalDate accruedTill;
+
+    private Long transactionId;
+
+    public LoanAccrualPostingData(final LoanScheduleAccrualData scheduleAccrualData, final BigDecimal amount,
+            final BigDecimal interestPortion, final BigDecimal totalAccruedInterest, final BigDecimal feePortion,
+            final BigDecimal totalAccruedFee, final BigDecimal penaltyPortion, final BigDecimal totalAccruedPenalty,
+            final LocalDate accruedTill) {
+        this.scheduleAccrualData = scheduleAccrualData;
+        this.amount = amount;
+        this.interestPortion = interestPortion;
+        this.totalAccruedInterest = totalAccruedInterest;
+        this.feePortion = feePortion;
+        this.totalAccruedFee = totalAccruedFee;
+        this.penaltyPortion = penaltyPortion;
+        this.totalAccruedPenalty = totalAccruedPenalty;
+        this.accruedTill = accruedTill;
+    }
+
+    public LoanScheduleAccrualData getScheduleAccrualData() {
+        return this.scheduleAccrualData;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public BigDecimal getInterestPortion() {
+        return this.interestPortion;
+    }
+
+    public BigDecimal getTotalAccruedInterest() {
+        return this.totalAccruedInterest;
+    }
+
+    public BigDecimal getFeePortion() {
+        return this.feePortion;
+    }
+
+    public BigDecimal getTotalAccruedFee() {
+        return this.totalAccruedFee;
+    }
+
+    public BigDecimal getPenaltyPortion() {
+        return this.penaltyPortion;
+    }
+
+    public BigDecimal getTotalAccruedPenalty() {
+        return this.totalAccruedPenalty;
+    }
+
+    public LocalDate getAccruedTill() {
+        return this.accruedTill;
+    }
+
+    public Long getTransactionId() {
+        return this.transactionId;
+    }
+
+    public void setTransactionId(final Long transactionId) {
+        this.transactionId = transactionId;
+    }
+}
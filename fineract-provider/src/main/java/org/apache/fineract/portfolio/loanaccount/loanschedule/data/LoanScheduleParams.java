@@ -29,6 +29,7 @@ import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
 import org.apache.fineract.organisation.monetary.domain.Money;
 import org.apache.fineract.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
 import org.apache.fineract.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.LoanCompoundingMap;
 import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.RecalculationDetail;
 
 public final class LoanScheduleParams {
@@ -68,7 +69,7 @@ public final class LoanScheduleParams {
     // date(after applying compounding frequency)
     // from when these amounts will effect the outstanding balance for
     // interest calculation
-    private final Map<LocalDate, Money> compoundingMap;
+    private final LoanCompoundingMap compoundingMap;
     private final Map<LocalDate, Map<LocalDate, Money>> compoundingDateVariations = new HashMap<>();
     private Money unCompoundedAmount;
     private Money compoundedInLastInstallment;
@@ -103,7 +104,7 @@ public final class LoanScheduleParams {
             final LocalDate actualRepaymentDate, final Money totalCumulativePrincipal, final Money totalCumulativeInterest,
             final Money totalFeeChargesCharged, final Money totalPenaltyChargesCharged, final Money totalRepaymentExpected,
             Money totalOutstandingInterestPaymentDueToGrace, final Money reducePrincipal, final Map<LocalDate, Money> principalPortionMap,
-            final Map<LocalDate, Money> latePaymentMap, final Map<LocalDate, Money> compoundingMap, final Money unCompoundedAmount,
+            final Map<LocalDate, Money> latePaymentMap, final LoanCompoundingMap compoundingMap, final Money unCompoundedAmount,
             final Map<LocalDate, Money> disburseDetailMap, Money principalToBeScheduled, final Money outstandingBalance,
             final Money outstandingBalanceAsPerRest, final List<LoanRepaymentScheduleInstallment> installments,
             final Collection<RecalculationDetail> recalculationDetails,
@@ -146,7 +147,7 @@ public final class LoanScheduleParams {
             final Money totalCumulativeInterest, final Money totalFeeChargesCharged, final Money totalPenaltyChargesCharged,
             final Money totalRepaymentExpected, Money totalOutstandingInterestPaymentDueToGrace, final Money reducePrincipal,
             final Map<LocalDate, Money> principalPortionMap, final Map<LocalDate, Money> latePaymentMap,
-            final Map<LocalDate, Money> compoundingMap, Money unCompoundedAmount, final Map<LocalDate, Money> disburseDetailMap,
+            final LoanCompoundingMap compoundingMap, Money unCompoundedAmount, final Map<LocalDate, Money> disburseDetailMap,
             final Money principalToBeScheduled, final Money outstandingBalance, final Money outstandingBalanceAsPerRest,
             final List<LoanRepaymentScheduleInstallment> installments, final Collection<RecalculationDetail> recalculationDetails,
             final LoanRepaymentScheduleTransactionProcessor loanRepaymentScheduleTransactionProcessor, final LocalDate scheduleTillDate,
@@ -175,7 +176,7 @@ public final class LoanScheduleParams {
         final Money reducePrincipal = null;
         final Map<LocalDate, Money> principalPortionMap = null;
         final Map<LocalDate, Money> latePaymentMap = null;
-        final Map<LocalDate, Money> compoundingMap = null;
+        final LoanCompoundingMap compoundingMap = null;
         final Map<LocalDate, Money> disburseDetailMap = null;
         final Money principalToBeScheduled = null;
         final Money outstandingBalance = null;
@@ -209,7 +210,7 @@ public final class LoanScheduleParams {
         final Money reducePrincipal = Money.zero(currency);
         final Map<LocalDate, Money> principalPortionMap = new HashMap<>();
         final Map<LocalDate, Money> latePaymentMap = new HashMap<>();
-        final Map<LocalDate, Money> compoundingMap = new TreeMap<>();
+        final LoanCompoundingMap compoundingMap = new LoanCompoundingMap();
         final Map<LocalDate, Money> disburseDetailMap = new TreeMap<>();
         final Money outstandingBalance = principalToBeScheduled;
         final Money outstandingBalanceAsPerRest = principalToBeScheduled;
@@ -243,7 +244,7 @@ public final class LoanScheduleParams {
         final Money reducePrincipal = Money.zero(currency);
         final Map<LocalDate, Money> principalPortionMap = new HashMap<>();
         final Map<LocalDate, Money> latePaymentMap = new HashMap<>();
-        final Map<LocalDate, Money> compoundingMap = new TreeMap<>();
+        final LoanCompoundingMap compoundingMap = new LoanCompoundingMap();
         final Map<LocalDate, Money> disburseDetailMap = new TreeMap<>();
         final Money outstandingBalance = principalToBeScheduled;
         final Money outstandingBalanceAsPerRest = principalToBeScheduled;
@@ -326,7 +327,7 @@ public final class LoanScheduleParams {
         return this.latePaymentMap;
     }
 
-    public Map<LocalDate, Money> getCompoundingMap() {
+    public LoanCompoundingMap getCompoundingMap() {
         return this.compoundingMap;
     }
 
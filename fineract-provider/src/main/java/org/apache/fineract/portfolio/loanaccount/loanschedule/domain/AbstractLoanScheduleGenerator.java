@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -59,6 +60,8 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
 
     protected final ScheduledDateGenerator scheduledDateGenerator = new DefaultScheduledDateGenerator();
     private final PaymentPeriodsInOneYearCalculator paymentPeriodsInOneYearCalculator = new DefaultPaymentPeriodsInOneYearCalculator();
+    // charge sets of the current generation by identity, see chargeIndex()
+    private final Map<Set<LoanCharge>, LoanScheduleChargeIndex> chargeIndexes = new IdentityHashMap<>();
 
     @Override
     public LoanScheduleModel generate(final MathContext mc, final LoanApplicationTerms loanApplicationTerms,
@@ -70,6 +73,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
     private LoanScheduleModel generate(final MathContext mc, final LoanApplicationTerms loanApplicationTerms,
             final Set<LoanCharge> loanCharges, final HolidayDetailDTO holidayDetailDTO, final LoanScheduleParams loanScheduleParams) {
 
+        this.chargeIndexes.clear();
         final ApplicationCurrency applicationCurrency = loanApplicationTerms.getApplicationCurrency();
         // generate list of proposed schedule due dates
         LocalDate loanEndDate = this.scheduledDateGenerator.getLastRepaymentDate(loanApplicationTerms, holidayDetailDTO);
@@ -572,9 +576,8 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                 calculateTill = getNextRestScheduleDate(calculateTill.minusDays(1), loanApplicationTerms, holidayDetailDTO);
             }
             if (scheduleParams.getCompoundingDateVariations().containsKey(periodStartDateApplicableForInterest)) {
-                scheduleParams.getCompoundingMap().clear();
                 scheduleParams.getCompoundingMap()
-                        .putAll(scheduleParams.getCompoundingDateVariations().get(periodStartDateApplicableForInterest));
+                        .restore(scheduleParams.getCompoundingDateVariations().get(periodStartDateApplicableForInterest));
             }
             if (currentPeriodParams.isEmiAmountChanged()) {
                 updateFixedInstallmentAmount(mc, loanApplicationTerms, scheduleParams.getPeriodNumber(),
@@ -582,7 +585,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
             }
 
             scheduleParams.getCompoundingDateVariations().put(periodStartDateApplicableForInterest,
-                    new TreeMap<>(scheduleParams.getCompoundingMap()));
+                    scheduleParams.getCompoundingMap().snapshot());
             scheduleParams.getCompoundingMap().clear();
             populateCompoundingDatesInPeriod(periodStartDateApplicableForInterest, calculateTill, loanApplicationTerms, holidayDetailDTO,
                     scheduleParams, loanCharges, totalInterestChargedForFullLoanTerm.getCurrency());
@@ -675,10 +678,8 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
 
     private void updateCompoundingDetails(LoanScheduleParams scheduleParams, LocalDate periodStartDateApplicableForInterest) {
         if (scheduleParams.getCompoundingDateVariations().containsKey(periodStartDateApplicableForInterest)) {
-            scheduleParams.getCompoundingMap().clear();
             scheduleParams.getCompoundingMap()
-                    .putAll(scheduleParams.getCompoundingDateVariations().get(periodStartDateApplicableForInterest));
-            scheduleParams.getCompoundingDateVariations().remove(periodStartDateApplicableForInterest);
+                    .restore(scheduleParams.getCompoundingDateVariations().remove(periodStartDateApplicableForInterest));
         }
     }
 
@@ -862,7 +863,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                                         .getPreClosureInterestCalculationStrategy().calculateTillRestFrequencyEnabled()) {
 
                                     scheduleParams.getCompoundingDateVariations().put(periodStartDateApplicableForInterest,
-                                            new TreeMap<>(scheduleParams.getCompoundingMap()));
+                                            scheduleParams.getCompoundingMap().snapshot());
                                     LocalDate calculateTill = transactionDate;
                                     PrincipalInterest principalInterestForThisPeriod = calculatePrincipalInterestComponentsForPeriod(
                                             this.paymentPeriodsInOneYearCalculator,
@@ -1433,7 +1434,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                     totalInterest.zero(), totalInterest.zero(), totalInterest, true);
             params.incrementInstalmentNumber();
             periods.add(installment);
-            params.getCompoundingDateVariations().put(startDate, new TreeMap<>(params.getCompoundingMap()));
+            params.getCompoundingDateVariations().put(startDate, params.getCompoundingMap().snapshot());
             totalCumulativeInterest = totalCumulativeInterest.plus(totalInterest);
         }
         return totalCumulativeInterest;
@@ -1688,7 +1689,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                     }
                     if (totalCompoundedAmount.isGreaterThanZero()) {
                         params.getCompoundingDateVariations().put(loanRepaymentScheduleInstallment.getFromDate(),
-                                new TreeMap<>(params.getCompoundingMap()));
+                                params.getCompoundingMap().snapshot());
                         for (Map.Entry<LocalDate, Money> mapEntry : params.getCompoundingMap().entrySet()) {
                             if (!mapEntry.getKey().isAfter(loanRepaymentScheduleInstallment.getDueDate())) {
                                 updateMapWithAmount(params.getPrincipalPortionMap(), mapEntry.getValue().negated(), mapEntry.getKey());
@@ -1700,7 +1701,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                     } else {
                         params.getCompoundingMap().clear();
                         params.getCompoundingDateVariations().put(loanRepaymentScheduleInstallment.getFromDate(),
-                                new TreeMap<>(params.getCompoundingMap()));
+                                params.getCompoundingMap().snapshot());
                         params.addUnCompoundedAmount(amountCharged);
                     }
                     params.setCompoundedInLastInstallment(amountCharged.zero());
@@ -1959,13 +1960,27 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
         return interestCharges;
     }
 
+    /**
+     * The charges of the set by due date, indexed on first use within a generation and again once charges were removed
+     * from the set.
+     */
+    private LoanScheduleChargeIndex chargeIndex(final Set<LoanCharge> loanCharges) {
+        LoanScheduleChargeIndex index = this.chargeIndexes.get(loanCharges);
+        if (index == null || !index.isIndexOf(loanCharges)) {
+            index = new LoanScheduleChargeIndex(loanCharges);
+            this.chargeIndexes.put(loanCharges, index);
+        }
+        return index;
+    }
+
     private Money cumulativeFeeChargesDueWithin(final LocalDate periodStart, final LocalDate periodEnd, final Set<LoanCharge> loanCharges,
             final MonetaryCurrency monetaryCurrency, final PrincipalInterest principalInterestForThisPeriod, final Money principalDisbursed,
             final Money totalInterestChargedForFullLoanTerm, boolean isInstallmentChargeApplicable) {
 
         Money cumulative = Money.zero(monetaryCurrency);
 
-        for (final LoanCharge loanCharge : loanCharges) {
+        for (final LoanCharge loanCharge : chargeIndex(loanCharges).feeChargesDueWithin(periodStart, periodEnd,
+                isInstallmentChargeApplicable)) {
             if (!loanCharge.isDueAtDisbursement() && loanCharge.isFeeCharge()) {
                 if (loanCharge.isInstalmentFee() && isInstallmentChargeApplicable) {
                     cumulative = calculateInstallmentCharge(principalInterestForThisPeriod, cumulative, loanCharge);
@@ -2028,7 +2043,8 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
 
         Money cumulative = Money.zero(monetaryCurrency);
 
-        for (final LoanCharge loanCharge : loanCharges) {
+        for (final LoanCharge loanCharge : chargeIndex(loanCharges).penaltyChargesDueWithin(periodStart, periodEnd,
+                isInstallmentChargeApplicable)) {
             if (loanCharge.isPenaltyCharge()) {
                 if (loanCharge.isInstalmentFee() && isInstallmentChargeApplicable) {
                     cumulative = calculateInstallmentCharge(principalInterestForThisPeriod, cumulative, loanCharge);
@@ -2068,6 +2084,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
             final HolidayDetailDTO holidayDetailDTO,
             final LoanRepaymentScheduleTransactionProcessor loanRepaymentScheduleTransactionProcessor, final LocalDate rescheduleFrom,
             final LocalDate scheduleTillDate) {
+        this.chargeIndexes.clear();
         // Loan transactions to process and find the variation on payments
         Collection<RecalculationDetail> recalculationDetails = new ArrayList<>();
         List<LoanTransaction> transactions = loan.getLoanTransactions();
@@ -2121,7 +2138,7 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
             // date(after applying compounding frequency)
             // from when these amounts will effect the outstanding balance for
             // interest calculation
-            final TreeMap<LocalDate, Money> compoundingMap = new TreeMap<>();
+            final LoanCompoundingMap compoundingMap = new LoanCompoundingMap();
             final Map<LocalDate, Map<LocalDate, Money>> compoundingDateVariations = new HashMap<>();
             LocalDate currentDate = DateUtils.getLocalDateOfTenant();
             LocalDate lastRestDate = currentDate;
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.loanschedule.domain;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.fineract.organisation.monetary.domain.Money;
+
+/**
+ * The compounding amounts of a schedule generation by the date they are compounded on.
+ *
+ * The generator keeps a copy of the map for the start date of every period it may have to recalculate and puts the
+ * copy back when it does. {@link #snapshot()} shares the entries with the copy instead of duplicating them, the map
+ * only copies its entries when it is changed while they are shared, and {@link #restore(Map)} takes the entries of a
+ * snapshot back over without copying them. Entries are kept, and iterated, in date order.
+ */
+public final class LoanCompoundingMap extends AbstractMap<LocalDate, Money> {
+
+    private TreeMap<LocalDate, Money> entries = new TreeMap<>();
+    private boolean shared;
+
+    /**
+     * Returns an unmodifiable copy of the current entries, sharing them with this map until it is changed next.
+     */
+    public Map<LocalDate, Money> snapshot() {
+        this.shared = true;
+        return new Snapshot(this.entries);
+    }
+
+    /**
+     * Replaces the entries of this map with the given ones.
+     */
+    public void restore(final Map<LocalDate, Money> compoundingDetails) {
+        if (compoundingDetails instanceof Snapshot) {
+            this.entries = ((Snapshot) compoundingDetails).entries;
+            this.shared = true;
+        } else {
+            clear();
+            putAll(compoundingDetails);
+        }
+    }
+
+    @Override
+    public Money get(final Object date) {
+        return this.entries.get(date);
+    }
+
+    @Override
+    public boolean containsKey(final Object date) {
+        return this.entries.containsKey(date);
+    }
+
+    @Override
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public Money put(final LocalDate date, final Money amount) {
+        return writableEntries().put(date, amount);
+    }
+
+    @Override
+    public Money remove(final Object date) {
+        return writableEntries().remove(date);
+    }
+
+    @Override
+    public void clear() {
+        this.entries = new TreeMap<>();
+        this.shared = false;
+    }
+
+    @Override
+    public Set<Map.Entry<LocalDate, Money>> entrySet() {
+        return Collections.unmodifiableMap(this.entries).entrySet();
+    }
+
+    private TreeMap<LocalDate, Money> writableEntries() {
+        if (this.shared) {
+            this.entries = new TreeMap<>(this.entries);
+            this.shared = false;
+        }
+        return this.entries;
+    }
+
+    private static final class Snapshot extends AbstractMap<LocalDate, Money> {
+
+        private final TreeMap<LocalDate, Money> entries;
+
+        Snapshot(final TreeMap<LocalDate, Money> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Money get(final Object date) {
+            return this.entries.get(date);
+        }
+
+        @Override
+        public boolean containsKey(final Object date) {
+            return this.entries.containsKey(date);
+        }
+
+        @Override
+        public int size() {
+            return this.entries.size();
+        }
+
+        @Override
+        public Set<Map.Entry<LocalDate, Money>> entrySet() {
+            return Collections.unmodifiableMap(this.entries).entrySet();
+        }
+    }
+}
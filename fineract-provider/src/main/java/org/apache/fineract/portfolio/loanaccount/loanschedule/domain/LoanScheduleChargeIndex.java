@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.loanschedule.domain;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanCharge;
+
+/**
+ * The fee and penalty charges of a schedule generation by due date, so the charges of a period are looked up instead
+ * of going through all charges of the loan for every period.
+ *
+ * The charges a lookup returns are the only ones of the set which can be due in the period, in the iteration order of
+ * the set; the cumulative amounts of a period add up the same charges in the same order as before.
+ */
+final class LoanScheduleChargeIndex {
+
+    private final Set<LoanCharge> loanCharges;
+    private final int size;
+    private final ChargesByDueDate fees = new ChargesByDueDate();
+    private final ChargesByDueDate penalties = new ChargesByDueDate();
+
+    LoanScheduleChargeIndex(final Set<LoanCharge> loanCharges) {
+        this.loanCharges = loanCharges;
+        this.size = loanCharges.size();
+        int position = 0;
+        for (final LoanCharge loanCharge : loanCharges) {
+            if (loanCharge.isPenaltyCharge()) {
+                this.penalties.add(loanCharge, position);
+            } else if (!loanCharge.isDueAtDisbursement()) {
+                this.fees.add(loanCharge, position);
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Whether this index still reflects the given set; the generator only ever removes charges from its sets.
+     */
+    boolean isIndexOf(final Set<LoanCharge> charges) {
+        return this.loanCharges == charges && this.size == charges.size();
+    }
+
+    /**
+     * The fee charges not due at disbursement which are instalment fees, when <code>isInstallmentChargeApplicable</code>,
+     * or fall due after <code>periodStart</code> and up to and including <code>periodEnd</code>.
+     */
+    List<LoanCharge> feeChargesDueWithin(final LocalDate periodStart, final LocalDate periodEnd,
+            final boolean isInstallmentChargeApplicable) {
+        return this.fees.dueWithin(periodStart, periodEnd, isInstallmentChargeApplicable);
+    }
+
+    /**
+     * The penalty charges which are instalment fees, when <code>isInstallmentChargeApplicable</code>, or fall due after
+     * <code>periodStart</code> and up to and including <code>periodEnd</code>.
+     */
+    List<LoanCharge> penaltyChargesDueWithin(final LocalDate periodStart, final LocalDate periodEnd,
+            final boolean isInstallmentChargeApplicable) {
+        return this.penalties.dueWithin(periodStart, periodEnd, isInstallmentChargeApplicable);
+    }
+
+    private static final class ChargesByDueDate {
+
+        private final List<PositionedCharge> instalmentFees = new ArrayList<>();
+        private final NavigableMap<LocalDate, List<PositionedCharge>> byDueDate = new TreeMap<>();
+
+        void add(final LoanCharge loanCharge, final int position) {
+            final PositionedCharge charge = new PositionedCharge(loanCharge, position);
+            if (loanCharge.isInstalmentFee()) {
+                this.instalmentFees.add(charge);
+            }
+            final LocalDate dueDate = loanCharge.getDueLocalDate();
+            if (dueDate != null) {
+                this.byDueDate.computeIfAbsent(dueDate, date -> new ArrayList<>(1)).add(charge);
+            }
+        }
+
+        List<LoanCharge> dueWithin(final LocalDate periodStart, final LocalDate periodEnd, final boolean isInstallmentChargeApplicable) {
+            final List<PositionedCharge> charges = new ArrayList<>();
+            if (isInstallmentChargeApplicable) {
+                charges.addAll(this.instalmentFees);
+            }
+            if (!this.byDueDate.isEmpty() && periodEnd.isAfter(periodStart)) {
+                for (final Collection<PositionedCharge> due : this.byDueDate.subMap(periodStart, false, periodEnd, true).values()) {
+                    charges.addAll(due);
+                }
+            }
+            if (charges.isEmpty()) {
+                return List.of();
+            }
+            // back into the order of the charge set, an instalment fee with a due date in the period only once
+            final PositionedCharge[] ordered = charges.toArray(new PositionedCharge[0]);
+            Arrays.sort(ordered, Comparator.comparingInt(PositionedCharge::getPosition));
+            final List<LoanCharge> result = new ArrayList<>(ordered.length);
+            int lastPosition = -1;
+            for (final PositionedCharge charge : ordered) {
+                if (charge.position != lastPosition) {
+                    result.add(charge.loanCharge);
+                    lastPosition = charge.position;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class PositionedCharge {
+
+        private final LoanCharge loanCharge;
+        private final int position;
+
+        PositionedCharge(final LoanCharge loanCharge, final int position) {
+            this.loanCharge = loanCharge;
+            this.position = position;
+        }
+
+        int getPosition() {
+            return this.position;
+        }
+    }
+}
@@ -21,22 +21,17 @@ package org.apache.fineract.portfolio.loanaccount.serialization;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
 import org.apache.fineract.infrastructure.core.data.ApiParameterError;
 import org.apache.fineract.infrastructure.core.data.DataValidatorBuilder;
-import org.apache.fineract.infrastructure.core.exception.InvalidJsonException;
 import org.apache.fineract.infrastructure.core.exception.PlatformApiDataValidationException;
 import org.apache.fineract.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
@@ -57,6 +52,39 @@ import org.springframework.stereotype.Component;
 @Component
 public final class LoanEventApiJsonValidator {
 
+    // supported parameters of each command, built once rather than on every request
+    private static final Set<String> ACCOUNT_TRANSFER_DISBURSEMENT_PARAMETERS = Set.of("actualDisbursementDate", "externalId", "note",
+            "locale", "dateFormat", LoanApiConstants.principalDisbursedParameterName, LoanApiConstants.emiAmountParameterName,
+            LoanApiConstants.disbursementNetDisbursalAmountParameterName);
+    private static final Set<String> DISBURSEMENT_PARAMETERS = Set.of("actualDisbursementDate", "externalId", "note", "locale",
+            "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber",
+            "adjustRepaymentDate", LoanApiConstants.principalDisbursedParameterName, LoanApiConstants.emiAmountParameterName,
+            LoanApiConstants.postDatedChecks, LoanApiConstants.disbursementNetDisbursalAmountParameterName);
+    private static final Set<String> TRANSACTION_PARAMETERS = Set.of("transactionDate", "transactionAmount", "externalId", "note",
+            "locale", "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber");
+    private static final Set<String> REPAYMENT_PARAMETERS = Set.of("transactionDate", "transactionAmount", "externalId", "note", "locale",
+            "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber", "loanId");
+    private static final Set<String> PAYMENT_DETAIL_PARAMETERS = Set.of("accountNumber", "checkNumber", "routingCode", "receiptNumber",
+            "bankNumber");
+    private static final Set<String> NO_AMOUNT_TRANSACTION_PARAMETERS = Set.of("transactionDate", "note", "locale", "dateFormat",
+            "writeoffReasonId");
+    private static final Set<String> ADD_CHARGE_PARAMETERS = Set.of("chargeId", "amount", "dueDate", "locale", "dateFormat", "externalId");
+    private static final Set<String> UPDATE_CHARGE_PARAMETERS = Set.of("amount", "dueDate", "locale", "dateFormat");
+    private static final Set<String> LOAN_OFFICER_PARAMETERS = Set.of("assignmentDate", "fromLoanOfficerId", "toLoanOfficerId", "locale",
+            "dateFormat");
+    private static final Set<String> BULK_LOAN_OFFICER_PARAMETERS = Set.of("assignmentDate", "fromLoanOfficerId", "toLoanOfficerId",
+            "loans", "locale", "dateFormat");
+    private static final Set<String> CHARGE_PAYMENT_WITH_CHARGE_PARAMETERS = Set.of("transactionDate", "locale", "dateFormat", "chargeId",
+            "dueDate", "installmentNumber");
+    private static final Set<String> CHARGE_PAYMENT_PARAMETERS = Set.of("transactionDate", "locale", "dateFormat", "dueDate",
+            "installmentNumber");
+    private static final Set<String> INSTALLMENT_CHARGE_PARAMETERS = Set.of("dueDate", "locale", "dateFormat", "installmentNumber");
+    private static final Set<String> UPDATE_DISBURSEMENT_PARAMETERS = Set.of("locale", "dateFormat",
+            LoanApiConstants.disbursementDataParameterName, LoanApiConstants.approvedLoanAmountParameterName,
+            LoanApiConstants.updatedDisbursementDateParameterName, LoanApiConstants.updatedDisbursementPrincipalParameterName,
+            LoanApiConstants.disbursementDateParameterName);
+    private static final Set<String> FORECLOSURE_PARAMETERS = Set.of("transactionDate", "note", "locale", "dateFormat");
+
     private final FromJsonHelper fromApiJsonHelper;
     private final LoanApplicationCommandFromApiJsonHelper fromApiJsonDeserializer;
     private final LoanRepository loanRepository;
@@ -76,32 +104,17 @@ public final class LoanEventApiJsonValidator {
         }
     }
 
-    public void validateDisbursement(final String json, boolean isAccountTransfer) {
+    public void validateDisbursement(final JsonCommand command, boolean isAccountTransfer) {
 
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
+        final Set<String> disbursementParameters = isAccountTransfer ? ACCOUNT_TRANSFER_DISBURSEMENT_PARAMETERS
+                : DISBURSEMENT_PARAMETERS;
 
-        Set<String> disbursementParameters = null;
-
-        if (isAccountTransfer) {
-            disbursementParameters = new HashSet<>(Arrays.asList("actualDisbursementDate", "externalId", "note", "locale", "dateFormat",
-                    LoanApiConstants.principalDisbursedParameterName, LoanApiConstants.emiAmountParameterName,
-                    LoanApiConstants.disbursementNetDisbursalAmountParameterName));
-        } else {
-            disbursementParameters = new HashSet<>(Arrays.asList("actualDisbursementDate", "externalId", "note", "locale", "dateFormat",
-                    "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber", "adjustRepaymentDate",
-                    LoanApiConstants.principalDisbursedParameterName, LoanApiConstants.emiAmountParameterName,
-                    LoanApiConstants.postDatedChecks, LoanApiConstants.disbursementNetDisbursalAmountParameterName));
-        }
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), disbursementParameters);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.disbursement");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate actualDisbursementDate = this.fromApiJsonHelper.extractLocalDateNamed("actualDisbursementDate", element);
         baseDataValidator.reset().parameter("actualDisbursementDate").value(actualDisbursementDate).notNull();
 
@@ -128,8 +141,8 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateDisbursementWithPostDatedChecks(final String json, final Long loanId) {
-        final JsonElement jsonElement = this.fromApiJsonHelper.parse(json);
+    public void validateDisbursementWithPostDatedChecks(final JsonCommand command, final Long loanId) {
+        final JsonElement jsonElement = command.parsedJson();
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.disbursement");
         final Loan loan = this.loanRepository.findById(loanId).orElseThrow(() -> new LoanNotFoundException(loanId));
@@ -188,22 +201,14 @@ public final class LoanEventApiJsonValidator {
         }
     }
 
-    public void validateTransaction(final String json) {
+    public void validateTransaction(final JsonCommand command) {
 
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> transactionParameters = new HashSet<>(Arrays.asList("transactionDate", "transactionAmount", "externalId", "note",
-                "locale", "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, transactionParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), TRANSACTION_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
 
@@ -217,23 +222,15 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateNewRepaymentTransaction(final String json) {
-
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
+    public void validateNewRepaymentTransaction(final JsonCommand command) {
 
-        final Set<String> transactionParameters = new HashSet<>(
-                Arrays.asList("transactionDate", "transactionAmount", "externalId", "note", "locale", "dateFormat", "paymentTypeId",
-                        "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber", "loanId"));
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), REPAYMENT_PARAMETERS);
 
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, transactionParameters);
+        final JsonElement element = command.parsedJson();
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
 
@@ -266,30 +263,20 @@ public final class LoanEventApiJsonValidator {
         // Validate all string payment detail fields for max length
         final Integer paymentTypeId = this.fromApiJsonHelper.extractIntegerWithLocaleNamed("paymentTypeId", element);
         baseDataValidator.reset().parameter("paymentTypeId").value(paymentTypeId).ignoreIfNull().integerGreaterThanZero();
-        final Set<String> paymentDetailParameters = new HashSet<>(
-                Arrays.asList("accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber"));
-        for (final String paymentDetailParameterName : paymentDetailParameters) {
+        for (final String paymentDetailParameterName : PAYMENT_DETAIL_PARAMETERS) {
             final String paymentDetailParameterValue = this.fromApiJsonHelper.extractStringNamed(paymentDetailParameterName, element);
             baseDataValidator.reset().parameter(paymentDetailParameterName).value(paymentDetailParameterValue).ignoreIfNull()
                     .notExceedingLengthOf(50);
         }
     }
 
-    public void validateTransactionWithNoAmount(final String json) {
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> disbursementParameters = new HashSet<>(
-                Arrays.asList("transactionDate", "note", "locale", "dateFormat", "writeoffReasonId"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+    public void validateTransactionWithNoAmount(final JsonCommand command) {
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), NO_AMOUNT_TRANSACTION_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
 
@@ -299,21 +286,13 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateAddLoanCharge(final String json) {
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> disbursementParameters = new HashSet<>(
-                Arrays.asList("chargeId", "amount", "dueDate", "locale", "dateFormat", "externalId"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+    public void validateAddLoanCharge(final JsonCommand command) {
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), ADD_CHARGE_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loanCharge");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final Long chargeId = this.fromApiJsonHelper.extractLongNamed("chargeId", element);
         baseDataValidator.reset().parameter("chargeId").value(chargeId).notNull().integerGreaterThanZero();
 
@@ -328,20 +307,13 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateUpdateOfLoanCharge(final String json) {
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> disbursementParameters = new HashSet<>(Arrays.asList("amount", "dueDate", "locale", "dateFormat"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+    public void validateUpdateOfLoanCharge(final JsonCommand command) {
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), UPDATE_CHARGE_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loanCharge");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
 
         final BigDecimal amount = this.fromApiJsonHelper.extractBigDecimalWithLocaleNamed("amount", element);
         baseDataValidator.reset().parameter("amount").value(amount).notNull().positiveAmount();
@@ -353,21 +325,13 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateUpdateOfLoanOfficer(final String json) {
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> disbursementParameters = new HashSet<>(
-                Arrays.asList("assignmentDate", "fromLoanOfficerId", "toLoanOfficerId", "locale", "dateFormat"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+    public void validateUpdateOfLoanOfficer(final JsonCommand command) {
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), LOAN_OFFICER_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loanOfficer");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
 
         final Long toLoanOfficerId = this.fromApiJsonHelper.extractLongNamed("toLoanOfficerId", element);
         baseDataValidator.reset().parameter("toLoanOfficerId").value(toLoanOfficerId).notNull().integerGreaterThanZero();
@@ -383,21 +347,13 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateForBulkLoanReassignment(final String json) {
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> supportedParameters = new HashSet<>(
-                Arrays.asList("assignmentDate", "fromLoanOfficerId", "toLoanOfficerId", "loans", "locale", "dateFormat"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, supportedParameters);
+    public void validateForBulkLoanReassignment(final JsonCommand command) {
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), BULK_LOAN_OFFICER_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loanOfficer");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
 
         final LocalDate assignmentDate = this.fromApiJsonHelper.extractLocalDateNamed("assignmentDate", element);
         baseDataValidator.reset().parameter("assignmentDate").value(assignmentDate).notNull();
@@ -411,27 +367,17 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateChargePaymentTransaction(final String json, final boolean isChargeIdIncluded) {
+    public void validateChargePaymentTransaction(final JsonCommand command, final boolean isChargeIdIncluded) {
 
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-        Set<String> transactionParameters = null;
-        if (isChargeIdIncluded) {
-            transactionParameters = new HashSet<>(
-                    Arrays.asList("transactionDate", "locale", "dateFormat", "chargeId", "dueDate", "installmentNumber"));
-        } else {
-            transactionParameters = new HashSet<>(Arrays.asList("transactionDate", "locale", "dateFormat", "dueDate", "installmentNumber"));
-        }
+        final Set<String> transactionParameters = isChargeIdIncluded ? CHARGE_PAYMENT_WITH_CHARGE_PARAMETERS : CHARGE_PAYMENT_PARAMETERS;
 
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, transactionParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), transactionParameters);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors)
                 .resource("loan.charge.payment.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         if (isChargeIdIncluded) {
             final Long chargeId = this.fromApiJsonHelper.extractLongNamed("chargeId", element);
@@ -444,45 +390,33 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateInstallmentChargeTransaction(final String json) {
+    public void validateInstallmentChargeTransaction(final JsonCommand command) {
 
-        if (StringUtils.isBlank(json)) {
+        if (command.parsedJson() == null) {
             return;
         }
-        Set<String> transactionParameters = new HashSet<>(Arrays.asList("dueDate", "locale", "dateFormat", "installmentNumber"));
 
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, transactionParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), INSTALLMENT_CHARGE_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors)
                 .resource("loan.charge.waive.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
 
         final Integer installmentNumber = this.fromApiJsonHelper.extractIntegerWithLocaleNamed("installmentNumber", element);
         baseDataValidator.reset().parameter("installmentNumber").value(installmentNumber).ignoreIfNull().integerGreaterThanZero();
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateUpdateDisbursementDateAndAmount(final String json, LoanDisbursementDetails loanDisbursementDetails) {
+    public void validateUpdateDisbursementDateAndAmount(final JsonCommand command, LoanDisbursementDetails loanDisbursementDetails) {
 
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> disbursementParameters = new HashSet<>(
-                Arrays.asList("locale", "dateFormat", LoanApiConstants.disbursementDataParameterName,
-                        LoanApiConstants.approvedLoanAmountParameterName, LoanApiConstants.updatedDisbursementDateParameterName,
-                        LoanApiConstants.updatedDisbursementPrincipalParameterName, LoanApiConstants.disbursementDateParameterName));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, disbursementParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), UPDATE_DISBURSEMENT_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.update.disbursement");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate actualDisbursementDate = this.fromApiJsonHelper
                 .extractLocalDateNamed(LoanApiConstants.disbursementDateParameterName, element);
         baseDataValidator.reset().parameter(LoanApiConstants.disbursementDateParameterName).value(actualDisbursementDate).notNull();
@@ -504,22 +438,14 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateNewRefundTransaction(final String json) {
-
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
+    public void validateNewRefundTransaction(final JsonCommand command) {
 
-        final Set<String> transactionParameters = new HashSet<>(Arrays.asList("transactionDate", "transactionAmount", "externalId", "note",
-                "locale", "dateFormat", "paymentTypeId", "accountNumber", "checkNumber", "routingCode", "receiptNumber", "bankNumber"));
-
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, transactionParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), TRANSACTION_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
 
@@ -533,21 +459,14 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
-    public void validateLoanForeclosure(final String json) {
-
-        if (StringUtils.isBlank(json)) {
-            throw new InvalidJsonException();
-        }
-
-        final Set<String> foreclosureParameters = new HashSet<>(Arrays.asList("transactionDate", "note", "locale", "dateFormat"));
+    public void validateLoanForeclosure(final JsonCommand command) {
 
-        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
-        this.fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, foreclosureParameters);
+        this.fromApiJsonHelper.checkForUnsupportedParameters(command.parsedJson(), FORECLOSURE_PARAMETERS);
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
         final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan");
 
-        final JsonElement element = this.fromApiJsonHelper.parse(json);
+        final JsonElement element = command.parsedJson();
         final LocalDate transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
         baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
 
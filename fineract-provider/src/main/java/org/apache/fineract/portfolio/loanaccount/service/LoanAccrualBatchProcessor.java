@@ -0,0 +1,294 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.service;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
+import org.apache.fineract.portfolio.loanaccount.data.LoanAccrualPostingData;
+import org.apache.fineract.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the accrual jobs over partitions of loans: the candidate loan ids are paged in loan id order, each page of
+ * <code>batchSize</code> loans becomes a partition calculated on <code>threadPoolSize</code> threads of this node and by
+ * the other nodes of the cluster, see {@link JobPartitionService}, and is written in one transaction by the
+ * {@link LoanAccrualBatchWriter}.
+ *
+ * A partition failing on a transient error (deadlock, lock wait timeout) is retried up to the tenant's
+ * <code>maxRetriesOnDeadlock</code>; after that, or on any other error, its loans are posted one loan per transaction
+ * so a single bad loan does not hold back the others. In dry-run mode the same postings are calculated and summarised
+ * but nothing is written.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanAccrualBatchProcessor implements PartitionedJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoanAccrualBatchProcessor.class);
+    private static final SecureRandom random = new SecureRandom();
+    private static final String TILL_DATE = "till-date";
+    private static final String DRY_RUN = "dry-run";
+    private static final String APP_USER_ID = "app-user-id";
+
+    private final LoanReadPlatformService loanReadPlatformService;
+    private final LoanAccrualWritePlatformService loanAccrualWritePlatformService;
+    private final LoanAccrualBatchWriter loanAccrualBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditorAware<AppUser> auditorAware;
+    private final JobPartitionService jobPartitionService;
+
+    /**
+     * Adds the accruals of all installments due so far, see {@link LoanAccrualWritePlatformService#addAccrualAccounting}.
+     */
+    public void addAccrualAccounting(final int threadPoolSize, final int batchSize, final boolean dryRun) throws JobExecutionException {
+        process(null, threadPoolSize, batchSize, dryRun);
+    }
+
+    /**
+     * Adds the accruals till the given date, see {@link LoanAccrualWritePlatformService#addPeriodicAccruals}.
+     */
+    public void addPeriodicAccruals(final LocalDate tillDate, final int threadPoolSize, final int batchSize, final boolean dryRun)
+            throws JobExecutionException {
+        process(tillDate, threadPoolSize, batchSize, dryRun);
+    }
+
+    private void process(final LocalDate tillDate, final int threadPoolSize, final int batchSize, final boolean dryRun)
+            throws JobExecutionException {
+        final Long appUserId = this.auditorAware.getCurrentAuditor().map(AppUser::getId).orElse(1L);
+        final long start = System.currentTimeMillis();
+
+        final List<long[]> ranges = new ArrayList<>();
+        List<Long> loanIds = retrieveLoanIds(tillDate, 0L, null, batchSize);
+        while (!loanIds.isEmpty()) {
+            final Long lastLoanId = loanIds.get(loanIds.size() - 1);
+            ranges.add(new long[] { loanIds.get(0), lastLoanId });
+            loanIds = retrieveLoanIds(tillDate, lastLoanId, null, batchSize);
+        }
+
+        final Map<String, String> context = new HashMap<>();
+        if (tillDate != null) {
+            context.put(TILL_DATE, tillDate.toString());
+        }
+        context.put(DRY_RUN, String.valueOf(dryRun));
+        context.put(APP_USER_ID, String.valueOf(appUserId));
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(
+                tillDate == null ? JobName.ADD_ACCRUAL_ENTRIES : JobName.ADD_PERIODIC_ACCRUAL_ENTRIES, context, ranges, threadPoolSize);
+
+        final AccrualSummary total = new AccrualSummary();
+        for (final JobPartitionData partition : partitions) {
+            total.add(AccrualSummary.fromMap(partition.getResult()));
+        }
+        final List<Throwable> errors = JobPartitionService.failures(partitions);
+        LOG.info("{} accruals{}: {} partitions, {} loans, {} transactions, interest {}, fees {}, penalties {}, {} failed partitions "
+                + "in {} ms",
+                tillDate == null ? "Schedule" : "Periodic", dryRun ? " (dry run)" : "", partitions.size(), total.loans, total.postings,
+                total.interest, total.fees, total.penalties, errors.size(), System.currentTimeMillis() - start);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+    }
+
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.ADD_ACCRUAL_ENTRIES, JobName.ADD_PERIODIC_ACCRUAL_ENTRIES);
+    }
+
+    /**
+     * Calculates and writes the accruals of the candidate loans in the partition's loan id range, which may be processed
+     * on any node of the cluster.
+     */
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) throws JobExecutionException {
+        final Map<String, String> context = partition.getContext();
+        final LocalDate tillDate = context.containsKey(TILL_DATE) ? LocalDate.parse(context.get(TILL_DATE)) : null;
+        // all candidates of the range, loans may have become candidates since the range was published
+        final List<Long> loanIds = retrieveLoanIds(tillDate, partition.getRangeFrom() - 1, partition.getRangeTo(), null);
+        if (loanIds.isEmpty()) {
+            return new AccrualSummary().toMap();
+        }
+        final AccrualSummary summary = processPartition(ThreadLocalContextUtil.getTenant(), tillDate, loanIds,
+                Boolean.parseBoolean(context.get(DRY_RUN)), Long.valueOf(context.get(APP_USER_ID)));
+        if (!summary.errors.isEmpty()) {
+            throw new JobExecutionException(summary.errors);
+        }
+        return summary.toMap();
+    }
+
+    private List<Long> retrieveLoanIds(final LocalDate tillDate, final Long afterLoanId, final Long maxLoanId, final Integer limit) {
+        if (tillDate == null) {
+            return this.loanReadPlatformService.retrieveLoanIdsForScheduleAccrual(afterLoanId, maxLoanId, limit);
+        }
+        return this.loanReadPlatformService.retrieveLoanIdsForPeriodicAccrual(tillDate, afterLoanId, maxLoanId, limit);
+    }
+
+    private AccrualSummary processPartition(final FineractPlatformTenant tenant, final LocalDate tillDate, final List<Long> loanIds,
+            final boolean dryRun, final Long appUserId) {
+        final int maxNumberOfRetries = tenant.getConnection().getMaxRetriesOnDeadlock();
+        final int maxIntervalBetweenRetries = tenant.getConnection().getMaxIntervalBetweenRetries();
+        int numberOfRetries = 0;
+        while (true) {
+            try {
+                return this.transactionTemplate.execute(status -> {
+                    final AccrualSummary summary = new AccrualSummary();
+                    final List<LoanAccrualPostingData> postings = new ArrayList<>();
+                    for (final Map.Entry<Long, Collection<LoanScheduleAccrualData>> entry : retrieveAccrualData(tillDate, loanIds)
+                            .entrySet()) {
+                        postings.addAll(calculate(tillDate, entry.getKey(), entry.getValue()));
+                        summary.loans++;
+                    }
+                    if (!dryRun) {
+                        this.loanAccrualBatchWriter.write(postings, appUserId);
+                    }
+                    summary.add(postings);
+                    return summary;
+                });
+            } catch (TransientDataAccessException e) {
+                if (numberOfRetries >= maxNumberOfRetries) {
+                    LOG.warn("Accrual partition of loans {} to {} still failing after {} retries, posting loan by loan", loanIds.get(0),
+                            loanIds.get(loanIds.size() - 1), numberOfRetries, e);
+                    break;
+                }
+                try {
+                    Thread.sleep(1000 + random.nextInt(maxIntervalBetweenRetries + 1) * 1000L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                numberOfRetries++;
+            } catch (RuntimeException e) {
+                LOG.warn("Accrual partition of loans {} to {} failed, posting loan by loan", loanIds.get(0),
+                        loanIds.get(loanIds.size() - 1), e);
+                break;
+            }
+        }
+        return processLoanByLoan(tillDate, loanIds, dryRun, appUserId);
+    }
+
+    private AccrualSummary processLoanByLoan(final LocalDate tillDate, final List<Long> loanIds, final boolean dryRun,
+            final Long appUserId) {
+        final AccrualSummary summary = new AccrualSummary();
+        for (final Long loanId : loanIds) {
+            try {
+                final List<LoanAccrualPostingData> postings = this.transactionTemplate.execute(status -> {
+                    final List<LoanAccrualPostingData> loanPostings = new ArrayList<>();
+                    for (final Map.Entry<Long, Collection<LoanScheduleAccrualData>> entry : retrieveAccrualData(tillDate,
+                            List.of(loanId)).entrySet()) {
+                        loanPostings.addAll(calculate(tillDate, entry.getKey(), entry.getValue()));
+                    }
+                    if (!dryRun) {
+                        this.loanAccrualBatchWriter.write(loanPostings, appUserId);
+                    }
+                    return loanPostings;
+                });
+                summary.loans++;
+                summary.add(postings);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to add accural transaction for loan {}", loanId, e);
+                summary.errors.add(e);
+            }
+        }
+        return summary;
+    }
+
+    private Map<Long, Collection<LoanScheduleAccrualData>> retrieveAccrualData(final LocalDate tillDate, final Collection<Long> loanIds) {
+        final Collection<LoanScheduleAccrualData> accrualDatas = tillDate == null
+                ? this.loanReadPlatformService.retriveScheduleAccrualData(loanIds)
+                : this.loanReadPlatformService.retrivePeriodicAccrualData(tillDate, loanIds);
+        final Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap = new LinkedHashMap<>();
+        for (final LoanScheduleAccrualData accrualData : accrualDatas) {
+            loanDataMap.computeIfAbsent(accrualData.getLoanId(), loanId -> new ArrayList<>()).add(accrualData);
+        }
+        return loanDataMap;
+    }
+
+    private List<LoanAccrualPostingData> calculate(final LocalDate tillDate, final Long loanId,
+            final Collection<LoanScheduleAccrualData> accrualDatas) {
+        if (tillDate == null) {
+            return this.loanAccrualWritePlatformService.calculateAccruals(loanId, accrualDatas);
+        }
+        return this.loanAccrualWritePlatformService.calculatePeriodicAccruals(tillDate, loanId, accrualDatas);
+    }
+
+    private static final class AccrualSummary {
+
+        private int loans;
+        private int postings;
+        private BigDecimal interest = BigDecimal.ZERO;
+        private BigDecimal fees = BigDecimal.ZERO;
+        private BigDecimal penalties = BigDecimal.ZERO;
+        private final List<Throwable> errors = new ArrayList<>();
+
+        void add(final List<LoanAccrualPostingData> accruals) {
+            for (final LoanAccrualPostingData accrual : accruals) {
+                this.postings++;
+                this.interest = addNullable(this.interest, accrual.getInterestPortion());
+                this.fees = addNullable(this.fees, accrual.getFeePortion());
+                this.penalties = addNullable(this.penalties, accrual.getPenaltyPortion());
+            }
+        }
+
+        Map<String, String> toMap() {
+            return Map.of("loans", String.valueOf(this.loans), "postings", String.valueOf(this.postings), "interest",
+                    this.interest.toPlainString(), "fees", this.fees.toPlainString(), "penalties", this.penalties.toPlainString());
+        }
+
+        static AccrualSummary fromMap(final Map<String, String> map) {
+            final AccrualSummary summary = new AccrualSummary();
+            summary.loans = Integer.parseInt(map.getOrDefault("loans", "0"));
+            summary.postings = Integer.parseInt(map.getOrDefault("postings", "0"));
+            summary.interest = new BigDecimal(map.getOrDefault("interest", "0"));
+            summary.fees = new BigDecimal(map.getOrDefault("fees", "0"));
+            summary.penalties = new BigDecimal(map.getOrDefault("penalties", "0"));
+            return summary;
+        }
+
+        void add(final AccrualSummary other) {
+            this.loans += other.loans;
+            this.postings += other.postings;
+            this.interest = this.interest.add(other.interest);
+            this.fees = this.fees.add(other.fees);
+            this.penalties = this.penalties.add(other.penalties);
+        }
+
+        private static BigDecimal addNullable(final BigDecimal total, final BigDecimal amount) {
+            return amount == null ? total : total.add(amount);
+        }
+    }
+}
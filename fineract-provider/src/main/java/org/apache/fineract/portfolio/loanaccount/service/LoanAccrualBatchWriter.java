@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.accounting.common.AccountingConstants.AccrualAccountsForLoan;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorHelper;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryBatchInserter;
+import org.apache.fineract.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.apache.fineract.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import org.apache.fineract.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.portfolio.loanaccount.data.LoanAccrualPostingData;
+import org.apache.fineract.portfolio.loanaccount.data.LoanChargeData;
+import org.apache.fineract.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanTransactionType;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the accrual transactions of a whole partition of loans with JDBC batches: the <code>m_loan_transaction</code>
+ * rows and the charges they cover, the accrued amounts of the installments, <code>m_loan.accrued_till</code> and the
+ * journal entries <code>AccrualBasedAccountingProcessorForLoan</code> would post for them.
+ *
+ * Must be called within a transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanAccrualBatchWriter {
+
+    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO m_loan_transaction (loan_id,office_id,is_reversed,"
+            + "transaction_type_enum,transaction_date,amount,interest_portion_derived,fee_charges_portion_derived,"
+            + "penalty_charges_portion_derived,submitted_on_date) VALUES (?, ?, false, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CHARGE_PAID_BY_SQL = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id,"
+            + "amount,installment_number) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_INSTALLMENT_SQL = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, "
+            + "accrual_fee_charges_derived=?, accrual_penalty_charges_derived=? WHERE id=?";
+    private static final String UPDATE_LOAN_SQL = "UPDATE m_loan SET accrued_till=? WHERE id=?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountingProcessorHelper accountingProcessorHelper;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
+    private final JournalEntryBatchInserter journalEntryBatchInserter;
+
+    public void write(final List<LoanAccrualPostingData> postings, final Long appUserId) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        checkForBranchClosures(postings);
+        insertTransactions(postings);
+
+        final List<Object[]> chargesPaidBy = new ArrayList<>();
+        final List<Object[]> installments = new ArrayList<>(postings.size());
+        final Map<Long, Date> accruedTillByLoan = new LinkedHashMap<>();
+        final List<Object[]> journalEntries = new ArrayList<>();
+        final Date now = new Date();
+        for (final LoanAccrualPostingData posting : postings) {
+            final LoanScheduleAccrualData scheduleAccrualData = posting.getScheduleAccrualData();
+            for (final Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges(scheduleAccrualData).entrySet()) {
+                chargesPaidBy.add(new Object[] { posting.getTransactionId(), entry.getKey().getId(), entry.getValue(),
+                        scheduleAccrualData.getInstallmentNumber() });
+            }
+            installments.add(new Object[] { posting.getTotalAccruedInterest(), posting.getTotalAccruedFee(),
+                    posting.getTotalAccruedPenalty(), scheduleAccrualData.getRepaymentScheduleId() });
+            accruedTillByLoan.put(scheduleAccrualData.getLoanId(), toDate(posting.getAccruedTill()));
+            addJournalEntries(journalEntries, posting, appUserId, now);
+        }
+
+        if (!chargesPaidBy.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(INSERT_CHARGE_PAID_BY_SQL, chargesPaidBy);
+        }
+        this.jdbcTemplate.batchUpdate(UPDATE_INSTALLMENT_SQL, installments);
+        final List<Object[]> loans = new ArrayList<>(accruedTillByLoan.size());
+        for (final Map.Entry<Long, Date> entry : accruedTillByLoan.entrySet()) {
+            loans.add(new Object[] { entry.getValue(), entry.getKey() });
+        }
+        this.jdbcTemplate.batchUpdate(UPDATE_LOAN_SQL, loans);
+        this.journalEntryBatchInserter.insert(journalEntries);
+    }
+
+    private void checkForBranchClosures(final List<LoanAccrualPostingData> postings) {
+        for (final LoanAccrualPostingData posting : postings) {
+            final Date latestClosingDate = this.accountingProcessorHelper
+                    .getLatestClosingDateByBranch(posting.getScheduleAccrualData().getOfficeId());
+            this.accountingProcessorHelper.checkForBranchClosures(latestClosingDate, toDate(posting.getAccruedTill()));
+        }
+    }
+
+    private void insertTransactions(final List<LoanAccrualPostingData> postings) {
+        final Date submittedOnDate = DateUtils.getDateOfTenant();
+        this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_TRANSACTION_SQL, new String[] { "id" })) {
+                for (final LoanAccrualPostingData posting : postings) {
+                    final LoanScheduleAccrualData scheduleAccrualData = posting.getScheduleAccrualData();
+                    statement.setLong(1, scheduleAccrualData.getLoanId());
+                    statement.setLong(2, scheduleAccrualData.getOfficeId());
+                    statement.setInt(3, LoanTransactionType.ACCRUAL.getValue());
+                    statement.setDate(4, new java.sql.Date(toDate(posting.getAccruedTill()).getTime()));
+                    statement.setBigDecimal(5, posting.getAmount());
+                    statement.setBigDecimal(6, posting.getInterestPortion());
+                    statement.setBigDecimal(7, posting.getFeePortion());
+                    statement.setBigDecimal(8, posting.getPenaltyPortion());
+                    statement.setDate(9, new java.sql.Date(submittedOnDate.getTime()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    final Iterator<LoanAccrualPostingData> iterator = postings.iterator();
+                    while (generatedKeys.next() && iterator.hasNext()) {
+                        iterator.next().setTransactionId(generatedKeys.getLong(1));
+                    }
+                    if (iterator.hasNext()) {
+                        throw new DataRetrievalFailureException("Generated ids were not returned for all accrual transactions");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void addJournalEntries(final List<Object[]> journalEntries, final LoanAccrualPostingData posting, final Long appUserId,
+            final Date now) {
+        final LoanScheduleAccrualData scheduleAccrualData = posting.getScheduleAccrualData();
+        final Long loanProductId = scheduleAccrualData.getLoanProductId();
+        final JournalEntryRow row = new JournalEntryRow(scheduleAccrualData, posting.getTransactionId(), toDate(posting.getAccruedTill()),
+                appUserId, now);
+
+        final BigDecimal interestAmount = posting.getInterestPortion();
+        if (interestAmount != null && interestAmount.compareTo(BigDecimal.ZERO) != 0) {
+            journalEntries.add(row.debit(coreAccountId(loanProductId, AccrualAccountsForLoan.INTEREST_RECEIVABLE), interestAmount));
+            journalEntries.add(row.credit(coreAccountId(loanProductId, AccrualAccountsForLoan.INTEREST_ON_LOANS), interestAmount));
+        }
+        final BigDecimal feesAmount = posting.getFeePortion();
+        if (feesAmount != null && feesAmount.compareTo(BigDecimal.ZERO) != 0) {
+            addChargeJournalEntries(journalEntries, row, scheduleAccrualData, false, AccrualAccountsForLoan.FEES_RECEIVABLE,
+                    AccrualAccountsForLoan.INCOME_FROM_FEES, feesAmount);
+        }
+        final BigDecimal penaltiesAmount = posting.getPenaltyPortion();
+        if (penaltiesAmount != null && penaltiesAmount.compareTo(BigDecimal.ZERO) != 0) {
+            addChargeJournalEntries(journalEntries, row, scheduleAccrualData, true, AccrualAccountsForLoan.PENALTIES_RECEIVABLE,
+                    AccrualAccountsForLoan.INCOME_FROM_PENALTIES, penaltiesAmount);
+        }
+    }
+
+    private void addChargeJournalEntries(final List<Object[]> journalEntries, final JournalEntryRow row,
+            final LoanScheduleAccrualData scheduleAccrualData, final boolean penalty, final AccrualAccountsForLoan receivableAccountType,
+            final AccrualAccountsForLoan incomeAccountType, final BigDecimal totalAmount) {
+        final Long loanProductId = scheduleAccrualData.getLoanProductId();
+        final Long receivableAccountId = coreAccountId(loanProductId, receivableAccountType);
+        final Map<Long, BigDecimal> creditDetailsMap = new LinkedHashMap<>();
+        for (final Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges(scheduleAccrualData).entrySet()) {
+            if (entry.getKey().isPenalty() != penalty) {
+                continue;
+            }
+            final Long chargeSpecificAccountId = chargeAccountId(loanProductId, incomeAccountType, entry.getKey().getChargeId());
+            creditDetailsMap.merge(chargeSpecificAccountId, entry.getValue(), BigDecimal::add);
+        }
+
+        BigDecimal totalCreditedAmount = BigDecimal.ZERO;
+        for (final Map.Entry<Long, BigDecimal> entry : creditDetailsMap.entrySet()) {
+            totalCreditedAmount = totalCreditedAmount.add(entry.getValue());
+            journalEntries.add(row.debit(receivableAccountId, entry.getValue()));
+            journalEntries.add(row.credit(entry.getKey(), entry.getValue()));
+        }
+        if (totalAmount.compareTo(totalCreditedAmount) != 0) {
+            throw new PlatformDataIntegrityException(
+                    "Meltdown in advanced accounting...sum of all charges is not equal to the fee charge for a transaction",
+                    "Meltdown in advanced accounting...sum of all charges is not equal to the fee charge for a transaction",
+                    totalCreditedAmount, totalAmount);
+        }
+    }
+
+    private Long coreAccountId(final Long loanProductId, final AccrualAccountsForLoan accountType) {
+        final Long accountId = this.accountMappingResolver.findCoreMappingAccountId(loanProductId, PortfolioProductType.LOAN.getValue(),
+                accountType.getValue());
+        if (accountId == null) {
+            throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId, accountType.toString());
+        }
+        return accountId;
+    }
+
+    private Long chargeAccountId(final Long loanProductId, final AccrualAccountsForLoan accountType, final Long chargeId) {
+        final Long accountId = this.accountMappingResolver.findChargeMappingAccountId(loanProductId, PortfolioProductType.LOAN.getValue(),
+                accountType.getValue(), chargeId);
+        return accountId == null ? coreAccountId(loanProductId, accountType) : accountId;
+    }
+
+    private static Map<LoanChargeData, BigDecimal> applicableCharges(final LoanScheduleAccrualData scheduleAccrualData) {
+        return scheduleAccrualData.getApplicableCharges() == null ? Map.of() : scheduleAccrualData.getApplicableCharges();
+    }
+
+    private static Date toDate(final LocalDate localDate) {
+        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static final class JournalEntryRow {
+
+        private final LoanScheduleAccrualData scheduleAccrualData;
+        private final Long loanTransactionId;
+        private final Date entryDate;
+        private final Long appUserId;
+        private final Date now;
+
+        JournalEntryRow(final LoanScheduleAccrualData scheduleAccrualData, final Long loanTransactionId, final Date entryDate,
+                final Long appUserId, final Date now) {
+            this.scheduleAccrualData = scheduleAccrualData;
+            this.loanTransactionId = loanTransactionId;
+            this.entryDate = entryDate;
+            this.appUserId = appUserId;
+            this.now = now;
+        }
+
+        Object[] debit(final Long accountId, final BigDecimal amount) {
+            return row(accountId, JournalEntryType.DEBIT, amount);
+        }
+
+        Object[] credit(final Long accountId, final BigDecimal amount) {
+            return row(accountId, JournalEntryType.CREDIT, amount);
+        }
+
+        private Object[] row(final Long accountId, final JournalEntryType type, final BigDecimal amount) {
+            return JournalEntryBatchInserter.row(accountId, this.scheduleAccrualData.getOfficeId(),
+                    this.scheduleAccrualData.getCurrencyData().code(),
+                    AccountingProcessorHelper.LOAN_TRANSACTION_IDENTIFIER + this.loanTransactionId, this.loanTransactionId, this.entryDate,
+                    type, amount, PortfolioProductType.LOAN.getValue(), this.scheduleAccrualData.getLoanId(), this.appUserId, this.now);
+        }
+    }
+}
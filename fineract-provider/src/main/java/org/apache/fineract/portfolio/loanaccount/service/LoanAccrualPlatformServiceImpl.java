@@ -24,7 +24,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.fineract.infrastructure.core.exception.MultiException;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
@@ -39,60 +38,55 @@ import org.springframework.stereotype.Service;
 public class LoanAccrualPlatformServiceImpl implements LoanAccrualPlatformService {
 
     private static final Logger LOG = LoggerFactory.getLogger(LoanAccrualPlatformServiceImpl.class);
+    private static final int DEFAULT_THREAD_POOL_SIZE = 4;
+    private static final int DEFAULT_BATCH_SIZE = 200;
 
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanAccrualWritePlatformService loanAccrualWritePlatformService;
+    private final LoanAccrualBatchProcessor loanAccrualBatchProcessor;
 
     @Autowired
     public LoanAccrualPlatformServiceImpl(final LoanReadPlatformService loanReadPlatformService,
-            final LoanAccrualWritePlatformService loanAccrualWritePlatformService) {
+            final LoanAccrualWritePlatformService loanAccrualWritePlatformService,
+            final LoanAccrualBatchProcessor loanAccrualBatchProcessor) {
         this.loanReadPlatformService = loanReadPlatformService;
         this.loanAccrualWritePlatformService = loanAccrualWritePlatformService;
+        this.loanAccrualBatchProcessor = loanAccrualBatchProcessor;
     }
 
     @Override
-    @CronTarget(jobName = JobName.ADD_ACCRUAL_ENTRIES)
     public void addAccrualAccounting() throws JobExecutionException {
-        Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retriveScheduleAccrualData();
-        Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap = new HashMap<>();
-        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
-            if (loanDataMap.containsKey(accrualData.getLoanId())) {
-                loanDataMap.get(accrualData.getLoanId()).add(accrualData);
-            } else {
-                Collection<LoanScheduleAccrualData> accrualDatas = new ArrayList<>();
-                accrualDatas.add(accrualData);
-                loanDataMap.put(accrualData.getLoanId(), accrualDatas);
-            }
-        }
+        this.loanAccrualBatchProcessor.addAccrualAccounting(DEFAULT_THREAD_POOL_SIZE, DEFAULT_BATCH_SIZE, false);
+    }
 
-        List<Throwable> errors = new ArrayList<>();
-        for (Map.Entry<Long, Collection<LoanScheduleAccrualData>> mapEntry : loanDataMap.entrySet()) {
-            try {
-                this.loanAccrualWritePlatformService.addAccrualAccounting(mapEntry.getKey(), mapEntry.getValue());
-            } catch (Exception e) {
-                LOG.error("Failed to add accural transaction for loan {}", mapEntry.getKey(), e);
-                errors.add(e);
-            }
-        }
-        if (!errors.isEmpty()) {
-            throw new JobExecutionException(errors);
-        }
+    @Override
+    @CronTarget(jobName = JobName.ADD_ACCRUAL_ENTRIES)
+    public void addAccrualAccounting(final Map<String, String> jobParameters) throws JobExecutionException {
+        this.loanAccrualBatchProcessor.addAccrualAccounting(getParameter(jobParameters, "thread-pool-size", DEFAULT_THREAD_POOL_SIZE),
+                getParameter(jobParameters, "batch-size", DEFAULT_BATCH_SIZE), getParameter(jobParameters, "dry-run", 0) == 1);
     }
 
     @Override
-    @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
     public void addPeriodicAccruals() throws JobExecutionException {
-        try {
-            addPeriodicAccruals(LocalDate.now(DateUtils.getDateTimeZoneOfTenant()));
-        } catch (MultiException e) {
-            throw new JobExecutionException(e);
-        }
+        addPeriodicAccruals(LocalDate.now(DateUtils.getDateTimeZoneOfTenant()));
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
+    public void addPeriodicAccruals(final Map<String, String> jobParameters) throws JobExecutionException {
+        this.loanAccrualBatchProcessor.addPeriodicAccruals(LocalDate.now(DateUtils.getDateTimeZoneOfTenant()),
+                getParameter(jobParameters, "thread-pool-size", DEFAULT_THREAD_POOL_SIZE),
+                getParameter(jobParameters, "batch-size", DEFAULT_BATCH_SIZE), getParameter(jobParameters, "dry-run", 0) == 1);
     }
 
     @Override
     public void addPeriodicAccruals(final LocalDate tilldate) throws JobExecutionException {
-        Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retrivePeriodicAccrualData(tilldate);
-        addPeriodicAccruals(tilldate, loanScheduleAccrualDatas);
+        this.loanAccrualBatchProcessor.addPeriodicAccruals(tilldate, DEFAULT_THREAD_POOL_SIZE, DEFAULT_BATCH_SIZE, false);
+    }
+
+    private static int getParameter(final Map<String, String> jobParameters, final String name, final int defaultValue) {
+        final String value = jobParameters.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
     }
 
     @Override
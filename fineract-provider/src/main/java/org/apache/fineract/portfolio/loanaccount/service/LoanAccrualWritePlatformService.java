@@ -20,6 +20,8 @@ package org.apache.fineract.portfolio.loanaccount.service;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import org.apache.fineract.portfolio.loanaccount.data.LoanAccrualPostingData;
 import org.apache.fineract.portfolio.loanaccount.data.LoanScheduleAccrualData;
 
 public interface LoanAccrualWritePlatformService {
@@ -30,4 +32,17 @@ public interface LoanAccrualWritePlatformService {
             throws Exception;
 
     void addIncomeAndAccrualTransactions(Long loanId) throws Exception;
+
+    /**
+     * Calculates the accrual transactions {@link #addAccrualAccounting(Long, Collection)} would add for the loan without
+     * writing them.
+     */
+    List<LoanAccrualPostingData> calculateAccruals(Long loanId, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas);
+
+    /**
+     * Calculates the accrual transactions {@link #addPeriodicAccruals(LocalDate, Long, Collection)} would add for the
+     * loan without writing them.
+     */
+    List<LoanAccrualPostingData> calculatePeriodicAccruals(LocalDate tilldate, Long loanId,
+            Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas);
 }
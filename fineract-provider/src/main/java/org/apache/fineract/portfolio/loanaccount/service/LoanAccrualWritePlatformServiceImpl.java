@@ -37,6 +37,7 @@ import org.apache.fineract.organisation.monetary.domain.ApplicationCurrency;
 import org.apache.fineract.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
 import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
 import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
+import org.apache.fineract.portfolio.loanaccount.data.LoanAccrualPostingData;
 import org.apache.fineract.portfolio.loanaccount.data.LoanChargeData;
 import org.apache.fineract.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import org.apache.fineract.portfolio.loanaccount.data.LoanScheduleAccrualData;
@@ -87,6 +88,24 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
     @Transactional
     public void addAccrualAccounting(final Long loanId, final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas)
             throws Exception {
+        for (final LoanAccrualPostingData posting : calculateAccruals(loanId, loanScheduleAccrualDatas)) {
+            addAccrualAccounting(posting);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addPeriodicAccruals(final LocalDate tilldate, Long loanId, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas)
+            throws Exception {
+        for (final LoanAccrualPostingData posting : calculatePeriodicAccruals(tilldate, loanId, loanScheduleAccrualDatas)) {
+            addAccrualAccounting(posting);
+        }
+    }
+
+    @Override
+    public List<LoanAccrualPostingData> calculateAccruals(final Long loanId,
+            final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final List<LoanAccrualPostingData> postings = new ArrayList<>();
         Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanId);
         Collection<LoanSchedulePeriodData> loanWaiverScheduleData = new ArrayList<>(1);
         Collection<LoanTransactionData> loanWaiverTansactionData = new ArrayList<>(1);
@@ -98,14 +117,15 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
             updateCharges(chargeData, accrualData, accrualData.getFromDateAsLocaldate(), accrualData.getDueDateAsLocaldate());
             updateInterestIncome(accrualData, loanWaiverTansactionData, loanWaiverScheduleData, accrualData.getDueDateAsLocaldate());
-            addAccrualAccounting(accrualData);
+            addIfPresent(postings, calculateAccrual(accrualData));
         }
+        return postings;
     }
 
     @Override
-    @Transactional
-    public void addPeriodicAccruals(final LocalDate tilldate, Long loanId, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas)
-            throws Exception {
+    public List<LoanAccrualPostingData> calculatePeriodicAccruals(final LocalDate tilldate, final Long loanId,
+            final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final List<LoanAccrualPostingData> postings = new ArrayList<>();
         boolean firstTime = true;
         LocalDate accruredTill = null;
         Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanId);
@@ -125,18 +145,25 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                 if (accruredTill == null || accruredTill.isBefore(tilldate)) {
                     updateCharges(chargeData, accrualData, accrualData.getFromDateAsLocaldate(), tilldate);
                     updateInterestIncome(accrualData, loanWaiverTansactionData, loanWaiverScheduleData, tilldate);
-                    addAccrualTillSpecificDate(tilldate, accrualData);
+                    addIfPresent(postings, calculateAccrualTillSpecificDate(tilldate, accrualData));
                 }
             } else {
                 updateCharges(chargeData, accrualData, accrualData.getFromDateAsLocaldate(), accrualData.getDueDateAsLocaldate());
                 updateInterestIncome(accrualData, loanWaiverTansactionData, loanWaiverScheduleData, tilldate);
-                addAccrualAccounting(accrualData);
+                addIfPresent(postings, calculateAccrual(accrualData));
                 accruredTill = accrualData.getDueDateAsLocaldate();
             }
         }
+        return postings;
     }
 
-    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) throws Exception {
+    private static void addIfPresent(final List<LoanAccrualPostingData> postings, final LoanAccrualPostingData posting) {
+        if (posting != null) {
+            postings.add(posting);
+        }
+    }
+
+    private LoanAccrualPostingData calculateAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) {
         LocalDate interestStartDate = accrualData.getFromDateAsLocaldate();
         if (accrualData.getInterestCalculatedFrom() != null
                 && accrualData.getFromDateAsLocaldate().isBefore(accrualData.getInterestCalculatedFrom())) {
@@ -209,13 +236,13 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
         }
         if (amount.compareTo(BigDecimal.ZERO) > 0) {
-            addAccrualAccounting(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, tilldate);
+            return new LoanAccrualPostingData(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee,
+                    penaltyportion, totalAccPenalty, tilldate);
         }
+        return null;
     }
 
-    @Transactional
-    public void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData) throws Exception {
+    private LoanAccrualPostingData calculateAccrual(LoanScheduleAccrualData scheduleAccrualData) {
 
         BigDecimal amount = BigDecimal.ZERO;
         BigDecimal interestportion = null;
@@ -260,14 +287,19 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
         }
         if (amount.compareTo(BigDecimal.ZERO) > 0) {
-            addAccrualAccounting(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate());
+            return new LoanAccrualPostingData(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee,
+                    penaltyportion, totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate());
         }
+        return null;
     }
 
-    private void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData, BigDecimal amount, BigDecimal interestportion,
-            BigDecimal totalAccInterest, BigDecimal feeportion, BigDecimal totalAccFee, BigDecimal penaltyportion,
-            BigDecimal totalAccPenalty, final LocalDate accruedTill) throws DataAccessException {
+    private void addAccrualAccounting(final LoanAccrualPostingData posting) throws DataAccessException {
+        final LoanScheduleAccrualData scheduleAccrualData = posting.getScheduleAccrualData();
+        final BigDecimal amount = posting.getAmount();
+        final BigDecimal interestportion = posting.getInterestPortion();
+        final BigDecimal feeportion = posting.getFeePortion();
+        final BigDecimal penaltyportion = posting.getPenaltyPortion();
+        final LocalDate accruedTill = posting.getAccruedTill();
         String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
                 + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, false, ?, ?, ?, ?, ?, ?, ?)";
         this.jdbcTemplate.update(transactionSql, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
@@ -289,8 +321,8 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
 
         String repaymetUpdatesql = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
                 + "accrual_penalty_charges_derived=? WHERE  id=?";
-        this.jdbcTemplate.update(repaymetUpdatesql, totalAccInterest, totalAccFee, totalAccPenalty,
-                scheduleAccrualData.getRepaymentScheduleId());
+        this.jdbcTemplate.update(repaymetUpdatesql, posting.getTotalAccruedInterest(), posting.getTotalAccruedFee(),
+                posting.getTotalAccruedPenalty(), scheduleAccrualData.getRepaymentScheduleId());
 
         String updateLoan = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
         this.jdbcTemplate.update(updateLoan, Date.from(accruedTill.atStartOfDay(ZoneId.systemDefault()).toInstant()),
@@ -0,0 +1,264 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.service;
+
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the interest recalculation job over partitions of loans: the candidate loan ids of all offices under the job's
+ * office are paged in loan id order, and each page of <code>batchSize</code> loans becomes a partition claimed by the
+ * next free thread of this node or of the other nodes of the cluster, see {@link JobPartitionService}.
+ *
+ * The outcome of every loan is kept in <code>m_loan_recalculation_progress</code> together with the loan version it left
+ * behind. A loan recalculated on the run date whose version has not moved since cannot have changed and is not a
+ * candidate again, so a rerun on the same day only touches the loans which failed or were not reached. The progress
+ * rows of a partition are written in one batch; the loans themselves are still recalculated one transaction per loan,
+ * as each one posts its own journal entries and business events.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanInterestRecalculationBatchProcessor implements PartitionedJob {
+
+    static final String STATUS_DONE = "DONE";
+    static final String STATUS_FAILED = "FAILED";
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoanInterestRecalculationBatchProcessor.class);
+    private static final SecureRandom random = new SecureRandom();
+    private static final String RUN_DATE = "run-date";
+    private static final String OFFICE_HIERARCHY = "office-hierarchy";
+    private static final int MAX_FAILED_LOANS_REPORTED = 50;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private static final String PREVIOUS_ATTEMPTS_SQL = "SELECT loan_id, attempts FROM m_loan_recalculation_progress "
+            + "WHERE run_date = :runDate AND loan_id IN (:loanIds)";
+    private static final String LOAN_VERSIONS_SQL = "SELECT id, version FROM m_loan WHERE id IN (:loanIds)";
+    private static final String DELETE_PROGRESS_SQL = "DELETE FROM m_loan_recalculation_progress WHERE loan_id IN (:loanIds)";
+    private static final String INSERT_PROGRESS_SQL = "INSERT INTO m_loan_recalculation_progress (loan_id, run_date, loan_version, status, "
+            + "attempts, error_message, processed_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final LoanReadPlatformService loanReadPlatformService;
+    private final LoanWritePlatformService loanWritePlatformService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobPartitionService jobPartitionService;
+
+    /**
+     * Recalculates the interest of the candidate loans of the offices under <code>officeHierarchy</code>, or of all
+     * offices when it is <code>null</code>, and returns the counts of the run, also carried by the
+     * {@link JobExecutionException} when loans failed.
+     */
+    public String recalculateInterest(final String officeHierarchy, final int threadPoolSize, final int batchSize)
+            throws JobExecutionException {
+        final LocalDate runDate = DateUtils.getLocalDateOfTenant();
+        final long start = System.currentTimeMillis();
+
+        final List<long[]> ranges = new ArrayList<>();
+        List<Long> loanIds = this.loanReadPlatformService.retrieveLoanIdsForInterestRecalculation(runDate, officeHierarchy, 0L, null,
+                batchSize);
+        while (!loanIds.isEmpty()) {
+            final Long lastLoanId = loanIds.get(loanIds.size() - 1);
+            ranges.add(new long[] { loanIds.get(0), lastLoanId });
+            loanIds = this.loanReadPlatformService.retrieveLoanIdsForInterestRecalculation(runDate, officeHierarchy, lastLoanId, null,
+                    batchSize);
+        }
+
+        final Map<String, String> context = new HashMap<>();
+        context.put(RUN_DATE, runDate.toString());
+        if (officeHierarchy != null) {
+            context.put(OFFICE_HIERARCHY, officeHierarchy);
+        }
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(JobName.RECALCULATE_INTEREST_FOR_LOAN, context, ranges,
+                threadPoolSize);
+
+        final List<Throwable> errors = new ArrayList<>();
+        int recalculated = 0;
+        int failed = 0;
+        for (final JobPartitionData partition : partitions) {
+            final RecalculationSummary summary = RecalculationSummary.fromMap(partition.getResult());
+            recalculated += summary.recalculated;
+            failed += summary.failed;
+            if (summary.failed > 0) {
+                errors.add(new IllegalStateException("Interest recalculation failed for " + summary.failed + " loans of partition "
+                        + partition.getPartitionNo() + ": " + summary.failedLoans));
+            }
+        }
+        errors.addAll(JobPartitionService.failures(partitions));
+
+        final String summary = String.format("%d loans recalculated, %d failed, %d partitions, %d failures in total, %d ms", recalculated,
+                failed, partitions.size(), errors.size(), System.currentTimeMillis() - start);
+        LOG.info("Interest recalculation: {}", summary);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(summary, errors);
+        }
+        return summary;
+    }
+
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.RECALCULATE_INTEREST_FOR_LOAN);
+    }
+
+    /**
+     * Recalculates the loans of the partition's range which are still candidates, one by one, and records the outcome of
+     * each; the loans failing are reported back in the result rather than failing the partition.
+     */
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) {
+        final Map<String, String> context = partition.getContext();
+        final LocalDate runDate = LocalDate.parse(context.get(RUN_DATE));
+        final int limit = (int) Math.min(Integer.MAX_VALUE, partition.getRangeTo() - partition.getRangeFrom() + 1);
+        final List<Long> loanIds = this.loanReadPlatformService.retrieveLoanIdsForInterestRecalculation(runDate,
+                context.get(OFFICE_HIERARCHY), partition.getRangeFrom() - 1, partition.getRangeTo(), limit);
+        final RecalculationSummary summary = new RecalculationSummary();
+        if (loanIds.isEmpty()) {
+            return summary.toMap();
+        }
+
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final Map<Long, String> errorMessages = new HashMap<>();
+        for (final Long loanId : loanIds) {
+            final Exception error = recalculateInterest(tenant, loanId);
+            if (error == null) {
+                summary.recalculated++;
+            } else {
+                summary.addFailure(loanId);
+                errorMessages.put(loanId, StringUtils.abbreviate(StringUtils.defaultString(error.getMessage(), error.getClass().getName()),
+                        MAX_ERROR_MESSAGE_LENGTH));
+            }
+        }
+        recordProgress(runDate, loanIds, errorMessages);
+        return summary.toMap();
+    }
+
+    /**
+     * Recalculates one loan in its own transaction, retrying on deadlocks and lost optimistic locks as configured for the
+     * tenant.
+     *
+     * @return the error the loan failed with, <code>null</code> when recalculated
+     */
+    private Exception recalculateInterest(final FineractPlatformTenant tenant, final Long loanId) {
+        final int maxNumberOfRetries = tenant.getConnection().getMaxRetriesOnDeadlock();
+        final int maxIntervalBetweenRetries = tenant.getConnection().getMaxIntervalBetweenRetries();
+        int numberOfRetries = 0;
+        while (true) {
+            try {
+                this.loanWritePlatformService.recalculateInterest(loanId);
+                return null;
+            } catch (CannotAcquireLockException | ObjectOptimisticLockingFailureException e) {
+                if (numberOfRetries >= maxNumberOfRetries) {
+                    LOG.error("Interest recalculation of loan {} still failing after {} retries", loanId, numberOfRetries, e);
+                    return e;
+                }
+                try {
+                    Thread.sleep(1000 + random.nextInt(maxIntervalBetweenRetries + 1) * 1000L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return ie;
+                }
+                numberOfRetries++;
+            } catch (RuntimeException e) {
+                LOG.error("Interest recalculation of loan {} failed", loanId, e);
+                return e;
+            }
+        }
+    }
+
+    /**
+     * Replaces the progress rows of the loans with the outcome of this run, with the versions the loans are left at.
+     */
+    private void recordProgress(final LocalDate runDate, final List<Long> loanIds, final Map<Long, String> errorMessages) {
+        final Map<String, Object> paramMap = Map.of("runDate", runDate, "loanIds", loanIds);
+        this.transactionTemplate.executeWithoutResult(status -> {
+            final Map<Long, Integer> previousAttempts = new HashMap<>();
+            this.namedParameterJdbcTemplate.query(PREVIOUS_ATTEMPTS_SQL, paramMap, rs -> {
+                previousAttempts.put(rs.getLong("loan_id"), rs.getInt("attempts"));
+            });
+            final Map<Long, Integer> versions = new HashMap<>();
+            this.namedParameterJdbcTemplate.query(LOAN_VERSIONS_SQL, paramMap, rs -> {
+                versions.put(rs.getLong("id"), rs.getInt("version"));
+            });
+
+            final LocalDateTime now = DateUtils.getLocalDateTimeOfTenant();
+            final List<Object[]> rows = new ArrayList<>(loanIds.size());
+            for (final Long loanId : loanIds) {
+                final String errorMessage = errorMessages.get(loanId);
+                rows.add(new Object[] { loanId, runDate, versions.get(loanId), errorMessage == null ? STATUS_DONE : STATUS_FAILED,
+                        previousAttempts.getOrDefault(loanId, 0) + 1, errorMessage, now });
+            }
+            this.namedParameterJdbcTemplate.update(DELETE_PROGRESS_SQL, paramMap);
+            this.jdbcTemplate.batchUpdate(INSERT_PROGRESS_SQL, rows);
+        });
+    }
+
+    private static final class RecalculationSummary {
+
+        private int recalculated;
+        private int failed;
+        private final List<Long> failedLoans = new ArrayList<>();
+
+        void addFailure(final Long loanId) {
+            this.failed++;
+            // only the first ones are reported, to keep the result within the size of the partition result column
+            if (this.failedLoans.size() < MAX_FAILED_LOANS_REPORTED) {
+                this.failedLoans.add(loanId);
+            }
+        }
+
+        Map<String, String> toMap() {
+            return Map.of("recalculated", String.valueOf(this.recalculated), "failed", String.valueOf(this.failed), "failedLoans",
+                    StringUtils.join(this.failedLoans, ","));
+        }
+
+        static RecalculationSummary fromMap(final Map<String, String> map) {
+            final RecalculationSummary summary = new RecalculationSummary();
+            summary.recalculated = Integer.parseInt(map.getOrDefault("recalculated", "0"));
+            summary.failed = Integer.parseInt(map.getOrDefault("failed", "0"));
+            for (final String loanId : StringUtils.split(map.getOrDefault("failedLoans", ""), ',')) {
+                summary.failedLoans.add(Long.valueOf(loanId));
+            }
+            return summary;
+        }
+    }
+}
@@ -104,15 +104,31 @@ public interface LoanReadPlatformService {
 
     Collection<LoanScheduleAccrualData> retriveScheduleAccrualData();
 
+    /**
+     * @return the ids of the loans to accrue after <code>afterLoanId</code>, up to <code>maxLoanId</code> and at most
+     *         <code>limit</code> of them; a <code>null</code> bound or limit is not applied
+     */
+    List<Long> retrieveLoanIdsForScheduleAccrual(Long afterLoanId, Long maxLoanId, Integer limit);
+
+    Collection<LoanScheduleAccrualData> retriveScheduleAccrualData(Collection<Long> loanIds);
+
     LoanTransactionData retrieveRecoveryPaymentTemplate(Long loanId);
 
     LoanTransactionData retrieveLoanWriteoffTemplate(Long loanId);
 
     Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(LocalDate tillDate);
 
-    Collection<Long> fetchLoansForInterestRecalculation();
+    /**
+     * @return the ids of the loans to accrue till <code>tillDate</code> after <code>afterLoanId</code>, up to
+     *         <code>maxLoanId</code> and at most <code>limit</code> of them; a <code>null</code> bound or limit is not
+     *         applied
+     */
+    List<Long> retrieveLoanIdsForPeriodicAccrual(LocalDate tillDate, Long afterLoanId, Long maxLoanId, Integer limit);
+
+    Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(LocalDate tillDate, Collection<Long> loanIds);
 
-    List<Long> fetchLoansForInterestRecalculation(Integer pageSize, Long maxLoanIdInList, String officeHierarchy);
+    List<Long> retrieveLoanIdsForInterestRecalculation(LocalDate runDate, String officeHierarchy, Long afterLoanId, Long maxLoanId,
+            int limit);
 
     LoanTransactionData retrieveLoanPrePaymentTemplate(Long loanId, LocalDate onDate);
 
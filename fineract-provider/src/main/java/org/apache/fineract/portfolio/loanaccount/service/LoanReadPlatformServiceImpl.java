@@ -30,7 +30,6 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -55,6 +54,7 @@ import org.apache.fineract.organisation.monetary.domain.ApplicationCurrency;
 import org.apache.fineract.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
 import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
 import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.organisation.office.service.OfficeHierarchyScope;
 import org.apache.fineract.organisation.staff.data.StaffData;
 import org.apache.fineract.organisation.staff.service.StaffReadPlatformService;
 import org.apache.fineract.portfolio.account.data.AccountTransferData;
@@ -136,6 +136,10 @@ import org.springframework.util.CollectionUtils;
 @Transactional(readOnly = true)
 public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
+    private static final String ACCRUAL_CANDIDATE_TABLES = "m_loan_repayment_schedule ls left join m_loan loan on loan.id=ls.loan_id "
+            + " left join m_product_loan mpl on mpl.id = loan.product_id"
+            + " left join m_loan_recalculation_details as recaldet on loan.id = recaldet.loan_id ";
+
     private final JdbcTemplate jdbcTemplate;
     private final PlatformSecurityContext context;
     private final LoanRepositoryWrapper loanRepositoryWrapper;
@@ -161,6 +165,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     private final AccountDetailsReadPlatformService accountDetailsReadPlatformService;
     private final ColumnValidator columnValidator;
     private final DatabaseSpecificSQLGenerator sqlGenerator;
+    private final OfficeHierarchyScope officeHierarchyScope;
 
     @Autowired
     public LoanReadPlatformServiceImpl(final PlatformSecurityContext context,
@@ -175,7 +180,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             final FloatingRatesReadPlatformService floatingRatesReadPlatformService, final LoanUtilService loanUtilService,
             final ConfigurationDomainService configurationDomainService,
             final AccountDetailsReadPlatformService accountDetailsReadPlatformService, final LoanRepositoryWrapper loanRepositoryWrapper,
-            final ColumnValidator columnValidator, DatabaseSpecificSQLGenerator sqlGenerator, PaginationHelper paginationHelper) {
+            final ColumnValidator columnValidator, DatabaseSpecificSQLGenerator sqlGenerator, PaginationHelper paginationHelper,
+            final OfficeHierarchyScope officeHierarchyScope) {
         this.context = context;
         this.loanRepositoryWrapper = loanRepositoryWrapper;
         this.applicationCurrencyRepository = applicationCurrencyRepository;
@@ -200,6 +206,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         this.loaanLoanMapper = new LoanMapper(sqlGenerator);
         this.sqlGenerator = sqlGenerator;
         this.paginationHelper = paginationHelper;
+        this.officeHierarchyScope = officeHierarchyScope;
     }
 
     @Override
@@ -208,7 +215,6 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         try {
             final AppUser currentUser = this.context.authenticatedUser();
             final String hierarchy = currentUser.getOffice().getHierarchy();
-            final String hierarchySearchString = hierarchy + "%";
 
             final LoanMapper rm = new LoanMapper(sqlGenerator);
 
@@ -217,10 +223,10 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             sqlBuilder.append(rm.loanSchema());
             sqlBuilder.append(" join m_office o on (o.id = c.office_id or o.id = g.office_id) ");
             sqlBuilder.append(" left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id ");
-            sqlBuilder.append(" where l.id=? and ( o.hierarchy like ? or transferToOffice.hierarchy like ?)");
+            sqlBuilder.append(" where l.id=? and ");
+            sqlBuilder.append(this.officeHierarchyScope.officeIdIn(hierarchy, "o.id", "c.transfer_to_office_id"));
 
-            return this.jdbcTemplate.queryForObject(sqlBuilder.toString(), rm,
-                    new Object[] { loanId, hierarchySearchString, hierarchySearchString });
+            return this.jdbcTemplate.queryForObject(sqlBuilder.toString(), rm, new Object[] { loanId });
         } catch (final EmptyResultDataAccessException e) {
             throw new LoanNotFoundException(loanId, e);
         }
@@ -297,7 +303,6 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select " + sqlGenerator.calcFoundRows() + " ");
@@ -310,12 +315,10 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         // but that at present is an edge case
         sqlBuilder.append(" join m_office o on (o.id = c.office_id or o.id = g.office_id) ");
         sqlBuilder.append(" left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id ");
-        sqlBuilder.append(" where ( o.hierarchy like ? or transferToOffice.hierarchy like ?)");
+        sqlBuilder.append(" where ").append(this.officeHierarchyScope.officeIdIn(hierarchy, "o.id", "c.transfer_to_office_id"));
 
-        int arrayPos = 2;
+        int arrayPos = 0;
         List<Object> extraCriterias = new ArrayList<>();
-        extraCriterias.add(hierarchySearchString);
-        extraCriterias.add(hierarchySearchString);
 
         if (searchParameters != null) {
 
@@ -1657,9 +1660,41 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public Collection<LoanScheduleAccrualData> retriveScheduleAccrualData() {
 
         LoanScheduleAccrualMapper mapper = new LoanScheduleAccrualMapper();
+        Map<String, Object> paramMap = new HashMap<>(3);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(scheduleAccrualCondition(paramMap));
+        sqlBuilder.append(" order by loan.id,ls.duedate ");
+
+        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+    }
+
+    @Override
+    public List<Long> retrieveLoanIdsForScheduleAccrual(final Long afterLoanId, final Long maxLoanId, final Integer limit) {
+        Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select distinct loan.id from ").append(ACCRUAL_CANDIDATE_TABLES).append(scheduleAccrualCondition(paramMap));
+        sqlBuilder.append(accrualLoanIdRange(afterLoanId, maxLoanId, limit, paramMap));
+
+        return this.namedParameterJdbcTemplate.queryForList(sqlBuilder.toString(), paramMap, Long.class);
+    }
+
+    @Override
+    public Collection<LoanScheduleAccrualData> retriveScheduleAccrualData(final Collection<Long> loanIds) {
+
+        LoanScheduleAccrualMapper mapper = new LoanScheduleAccrualMapper();
+        Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(scheduleAccrualCondition(paramMap));
+        sqlBuilder.append(" and loan.id in (:loanIds) order by loan.id,ls.duedate ");
+        paramMap.put("loanIds", loanIds);
+
+        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+    }
+
+    private String scheduleAccrualCondition(final Map<String, Object> paramMap) {
         Date organisationStartDate = this.configurationDomainService.retrieveOrganisationStartDate();
         final StringBuilder sqlBuilder = new StringBuilder(400);
-        sqlBuilder.append("select ").append(mapper.schema()).append(
+        sqlBuilder.append(
                 " where (recaldet.is_compounding_to_be_posted_as_transaction is null or recaldet.is_compounding_to_be_posted_as_transaction = false) ")
                 .append(" and (((ls.fee_charges_amount <> COALESCE(ls.accrual_fee_charges_derived, 0))")
                 .append(" or ( ls.penalty_charges_amount <> COALESCE(ls.accrual_penalty_charges_derived, 0))")
@@ -1669,25 +1704,72 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         if (organisationStartDate != null) {
             sqlBuilder.append(" and ls.duedate > :organisationstartdate ");
         }
-        sqlBuilder.append(" order by loan.id,ls.duedate ");
-        Map<String, Object> paramMap = new HashMap<>(3);
         paramMap.put("active", LoanStatus.ACTIVE.getValue());
         paramMap.put("type", AccountingRuleType.ACCRUAL_PERIODIC.getValue());
         paramMap.put("organisationstartdate",
                 (organisationStartDate == null) ? formatter.format(LocalDate.now(DateUtils.getDateTimeZoneOfTenant()))
                         : formatter.format(LocalDate.ofInstant(organisationStartDate.toInstant(), DateUtils.getDateTimeZoneOfTenant())));
+        return sqlBuilder.toString();
+    }
+
+    @Override
+    public Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(final LocalDate tillDate) {
+
+        LoanSchedulePeriodicAccrualMapper mapper = new LoanSchedulePeriodicAccrualMapper();
+        Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(periodicAccrualCondition(tillDate, paramMap));
+        sqlBuilder.append(" order by loan.id,ls.duedate ");
 
         return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
     }
 
     @Override
-    public Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(final LocalDate tillDate) {
+    public List<Long> retrieveLoanIdsForPeriodicAccrual(final LocalDate tillDate, final Long afterLoanId, final Long maxLoanId,
+            final Integer limit) {
+        Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select distinct loan.id from ").append(ACCRUAL_CANDIDATE_TABLES)
+                .append(periodicAccrualCondition(tillDate, paramMap));
+        sqlBuilder.append(accrualLoanIdRange(afterLoanId, maxLoanId, limit, paramMap));
+
+        return this.namedParameterJdbcTemplate.queryForList(sqlBuilder.toString(), paramMap, Long.class);
+    }
+
+    private String accrualLoanIdRange(final Long afterLoanId, final Long maxLoanId, final Integer limit,
+            final Map<String, Object> paramMap) {
+        final StringBuilder sqlBuilder = new StringBuilder(100);
+        sqlBuilder.append(" and loan.id > :afterLoanId ");
+        paramMap.put("afterLoanId", afterLoanId);
+        if (maxLoanId != null) {
+            sqlBuilder.append(" and loan.id <= :maxLoanId ");
+            paramMap.put("maxLoanId", maxLoanId);
+        }
+        sqlBuilder.append(" order by loan.id ");
+        if (limit != null) {
+            sqlBuilder.append(sqlGenerator.limit(limit));
+        }
+        return sqlBuilder.toString();
+    }
+
+    @Override
+    public Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(final LocalDate tillDate, final Collection<Long> loanIds) {
 
         LoanSchedulePeriodicAccrualMapper mapper = new LoanSchedulePeriodicAccrualMapper();
+        Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(periodicAccrualCondition(tillDate, paramMap));
+        sqlBuilder.append(" and loan.id in (:loanIds) order by loan.id,ls.duedate ");
+        paramMap.put("loanIds", loanIds);
+
+        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+    }
+
+    private String periodicAccrualCondition(final LocalDate tillDate, final Map<String, Object> paramMap) {
         Date organisationStartDate = this.configurationDomainService.retrieveOrganisationStartDate();
         String formattedTillDate = formatter.format(tillDate);
         final StringBuilder sqlBuilder = new StringBuilder(400);
-        sqlBuilder.append("select ").append(mapper.schema()).append(
+        sqlBuilder.append(
                 " where  (recaldet.is_compounding_to_be_posted_as_transaction is null or recaldet.is_compounding_to_be_posted_as_transaction = false) ")
                 .append(" and (((ls.fee_charges_amount <> COALESCE(ls.accrual_fee_charges_derived, 0))")
                 .append(" or (ls.penalty_charges_amount <> COALESCE(ls.accrual_penalty_charges_derived, 0))")
@@ -1701,12 +1783,9 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
                     .format(LocalDate.ofInstant(organisationStartDate.toInstant(), DateUtils.getDateTimeZoneOfTenant()));
             sqlBuilder.append(" and ls.duedate > '" + formattedOrganizationStartDate + "' ");
         }
-        sqlBuilder.append(" order by loan.id,ls.duedate ");
-        Map<String, Object> paramMap = new HashMap<>(4);
         paramMap.put("active", LoanStatus.ACTIVE.getValue());
         paramMap.put("type", AccountingRuleType.ACCRUAL_PERIODIC.getValue());
-
-        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+        return sqlBuilder.toString();
     }
 
     private static final class LoanSchedulePeriodicAccrualMapper implements RowMapper<LoanScheduleAccrualData> {
@@ -1857,94 +1936,62 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
-    public Collection<Long> fetchLoansForInterestRecalculation() {
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT ml.id FROM m_loan ml ");
-        sqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
-        sqlBuilder.append(" LEFT JOIN m_loan_disbursement_detail dd on dd.loan_id=ml.id and dd.disbursedon_date is null ");
-        // For Floating rate changes
-        sqlBuilder.append(
-                " left join m_product_loan_floating_rates pfr on ml.product_id = pfr.loan_product_id and ml.is_floating_interest_rate = true");
-        sqlBuilder.append(" left join m_floating_rates fr on  pfr.floating_rates_id = fr.id");
-        sqlBuilder.append(" left join m_floating_rates_periods frp on fr.id = frp.floating_rates_id ");
-        sqlBuilder.append(" left join m_loan_reschedule_request lrr on lrr.loan_id = ml.id");
-        // this is to identify the applicable rates when base rate is changed
-        sqlBuilder.append(" left join  m_floating_rates bfr on  bfr.is_base_lending_rate = true");
-        sqlBuilder.append(" left join  m_floating_rates_periods bfrp on  bfr.id = bfrp.floating_rates_id and bfrp.created_date >= ?");
-        sqlBuilder.append(" WHERE ml.loan_status_id = ? ");
-        sqlBuilder.append(" and ml.is_npa = false ");
-        sqlBuilder.append(" and ((");
-        sqlBuilder.append("ml.interest_recalculation_enabled = 1 ");
-        sqlBuilder.append(" and (ml.interest_recalcualated_on is null or ml.interest_recalcualated_on <> ?)");
-        sqlBuilder.append(" and ((");
-        sqlBuilder.append(" mr.completed_derived is false ");
-        sqlBuilder.append(" and mr.duedate < ? )");
-        sqlBuilder.append(" or dd.expected_disburse_date < ? )) ");
-        sqlBuilder.append(" or (");
-        sqlBuilder.append(" fr.is_active = true and  frp.is_active = true");
-        sqlBuilder.append(" and (frp.created_date >= ?  or ");
-        sqlBuilder
-                .append("(bfrp.id is not null and frp.is_differential_to_base_lending_rate = true and frp.from_date >= bfrp.from_date)) ");
-        sqlBuilder.append("and lrr.loan_id is null");
-        sqlBuilder.append(" ))");
-        sqlBuilder.append(" group by ml.id");
-        try {
-            String currentdate = formatter.format(DateUtils.getLocalDateOfTenant());
-            // will look only for yesterday modified rates
-            String yesterday = formatter.format(DateUtils.getLocalDateOfTenant().minusDays(1));
-            return this.jdbcTemplate.queryForList(sqlBuilder.toString(), Long.class,
-                    new Object[] { yesterday, LoanStatus.ACTIVE.getValue(), currentdate, currentdate, currentdate, yesterday });
-        } catch (final EmptyResultDataAccessException e) {
-            return null;
-        }
-    }
-
-    @Override
-    public List<Long> fetchLoansForInterestRecalculation(Integer pageSize, Long maxLoanIdInList, String officeHierarchy) {
-        String currentdate = formatter.format(DateUtils.getLocalDateOfTenant());
-        // will look only for yesterday modified rates
-        String yesterday = formatter.format(DateUtils.getLocalDateOfTenant().minusDays(1));
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT ml.id FROM m_loan ml ");
+    public List<Long> retrieveLoanIdsForInterestRecalculation(final LocalDate runDate, final String officeHierarchy,
+            final Long afterLoanId, final Long maxLoanId, final int limit) {
+        final Map<String, Object> paramMap = new HashMap<>(8);
+        final StringBuilder sqlBuilder = new StringBuilder(1500);
+        sqlBuilder.append("select distinct ml.id from m_loan ml ");
         sqlBuilder.append(" left join m_client mc on mc.id = ml.client_id ");
-        sqlBuilder.append(" left join m_office o on mc.office_id = o.id  ");
-        sqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
-        sqlBuilder.append(" LEFT JOIN m_loan_disbursement_detail dd on dd.loan_id=ml.id and dd.disbursedon_date is null ");
+        sqlBuilder.append(" left join m_group mg on mg.id = ml.group_id ");
+        sqlBuilder.append(" inner join m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
+        sqlBuilder.append(" left join m_loan_disbursement_detail dd on dd.loan_id = ml.id and dd.disbursedon_date is null ");
         // For Floating rate changes
         sqlBuilder.append(
                 " left join m_product_loan_floating_rates pfr on ml.product_id = pfr.loan_product_id and ml.is_floating_interest_rate = true");
-        sqlBuilder.append(" left join m_floating_rates fr on  pfr.floating_rates_id = fr.id");
+        sqlBuilder.append(" left join m_floating_rates fr on pfr.floating_rates_id = fr.id");
         sqlBuilder.append(" left join m_floating_rates_periods frp on fr.id = frp.floating_rates_id ");
         sqlBuilder.append(" left join m_loan_reschedule_request lrr on lrr.loan_id = ml.id");
         // this is to identify the applicable rates when base rate is changed
-        sqlBuilder.append(" left join  m_floating_rates bfr on  bfr.is_base_lending_rate = true");
-        sqlBuilder.append(" left join  m_floating_rates_periods bfrp on  bfr.id = bfrp.floating_rates_id and bfrp.created_date >= '"
-                + yesterday + "'");
-        sqlBuilder.append(" WHERE ml.loan_status_id = ? ");
+        sqlBuilder.append(" left join m_floating_rates bfr on bfr.is_base_lending_rate = true");
+        sqlBuilder.append(" left join m_floating_rates_periods bfrp on bfr.id = bfrp.floating_rates_id");
+        sqlBuilder.append(" and bfrp.created_date >= :yesterday");
+        sqlBuilder.append(" left join m_loan_recalculation_progress rp on rp.loan_id = ml.id");
+        sqlBuilder.append(" where ml.loan_status_id = :activeStatus ");
         sqlBuilder.append(" and ml.is_npa = false ");
         sqlBuilder.append(" and ((");
         sqlBuilder.append("ml.interest_recalculation_enabled = true ");
-        sqlBuilder.append(" and (ml.interest_recalcualated_on is null or ml.interest_recalcualated_on <> '" + currentdate + "')");
+        sqlBuilder.append(" and (ml.interest_recalcualated_on is null or ml.interest_recalcualated_on <> :runDate)");
         sqlBuilder.append(" and ((");
         sqlBuilder.append(" mr.completed_derived is false ");
-        sqlBuilder.append(" and mr.duedate < '" + currentdate + "' )");
-        sqlBuilder.append(" or dd.expected_disburse_date < '" + currentdate + "' )) ");
+        sqlBuilder.append(" and mr.duedate < :runDate )");
+        sqlBuilder.append(" or dd.expected_disburse_date < :runDate )) ");
         sqlBuilder.append(" or (");
-        sqlBuilder.append(" fr.is_active = true and  frp.is_active = true");
-        sqlBuilder.append(" and (frp.created_date >= '" + yesterday + "'  or ");
+        sqlBuilder.append(" fr.is_active = true and frp.is_active = true");
+        sqlBuilder.append(" and (frp.created_date >= :yesterday or ");
         sqlBuilder
                 .append("(bfrp.id is not null and frp.is_differential_to_base_lending_rate = true and frp.from_date >= bfrp.from_date)) ");
         sqlBuilder.append("and lrr.loan_id is null");
         sqlBuilder.append(" ))");
-        sqlBuilder.append(" and ml.id >= ?  and o.hierarchy like ? ");
-        sqlBuilder.append(" group by ml.id ");
-        sqlBuilder.append(" limit ? ");
-        try {
-            return Collections.synchronizedList(this.jdbcTemplate.queryForList(sqlBuilder.toString(), Long.class,
-                    new Object[] { LoanStatus.ACTIVE.getValue(), maxLoanIdInList, officeHierarchy, pageSize }));
-        } catch (final EmptyResultDataAccessException e) {
-            return null;
+        // loans recalculated on this date and not written since cannot have changed
+        sqlBuilder.append(" and (rp.loan_id is null or rp.run_date <> :runDate or rp.status <> :doneStatus");
+        sqlBuilder.append(" or rp.loan_version <> ml.version)");
+        sqlBuilder.append(" and ml.id > :afterLoanId ");
+        if (maxLoanId != null) {
+            sqlBuilder.append(" and ml.id <= :maxLoanId ");
+            paramMap.put("maxLoanId", maxLoanId);
+        }
+        if (officeHierarchy != null) {
+            sqlBuilder.append(" and ").append(this.officeHierarchyScope.officeIdIn(officeHierarchy, "mc.office_id", "mg.office_id"));
         }
+        sqlBuilder.append(" order by ml.id ").append(sqlGenerator.limit(limit));
+
+        paramMap.put("runDate", formatter.format(runDate));
+        // will look only for yesterday modified rates
+        paramMap.put("yesterday", formatter.format(runDate.minusDays(1)));
+        paramMap.put("activeStatus", LoanStatus.ACTIVE.getValue());
+        paramMap.put("doneStatus", LoanInterestRecalculationBatchProcessor.STATUS_DONE);
+        paramMap.put("afterLoanId", afterLoanId);
+        return this.namedParameterJdbcTemplate.queryForList(sqlBuilder.toString(), paramMap, Long.class);
     }
 
     @Override
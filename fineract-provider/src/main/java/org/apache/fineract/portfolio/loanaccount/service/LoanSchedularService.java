@@ -25,7 +25,7 @@ public interface LoanSchedularService {
 
     void applyChargeForOverdueLoans() throws JobExecutionException;
 
-    void recalculateInterest() throws JobExecutionException;
+    String recalculateInterest() throws JobExecutionException;
 
-    void recalculateInterest(@SuppressWarnings("unused") Map<String, String> jobParameters);
+    String recalculateInterest(Map<String, String> jobParameters) throws JobExecutionException;
 }
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountCharge;
+
+/**
+ * Due savings account charge as read by the batch charge jobs. The amounts, flags and due date are a snapshot of the
+ * stored charge which {@link #pay(BigDecimal)} moves forward the same way {@link SavingsAccountCharge#pay} does, so the
+ * jobs can work out every payment of the charge without loading the account.
+ */
+public class SavingsAccountChargeDueData {
+
+    private final Long id;
+    private final Long accountId;
+    private final String accountNo;
+    private final Long chargeId;
+    private final Long chargeGLAccountId;
+    private final boolean penalty;
+    private final ChargeTimeType chargeTime;
+    private final Integer feeOnMonth;
+    private final Integer feeOnDay;
+    private final Integer feeInterval;
+    private final BigDecimal amount;
+    private final BigDecimal amountWaived;
+    private final BigDecimal amountWrittenOff;
+    private final boolean active;
+
+    private LocalDate dueDate;
+    private BigDecimal amountPaid;
+    private BigDecimal amountOutstanding;
+    private boolean paid;
+    private boolean waived;
+
+    public SavingsAccountChargeDueData(final Long id, final Long accountId, final String accountNo, final Long chargeId,
+            final Long chargeGLAccountId, final boolean penalty, final ChargeTimeType chargeTime, final Integer feeOnMonth,
+            final Integer feeOnDay, final Integer feeInterval, final LocalDate dueDate, final BigDecimal amount,
+            final BigDecimal amountPaid, final BigDecimal amountWaived, final BigDecimal amountWrittenOff,
+            final BigDecimal amountOutstanding, final boolean paid, final boolean waived, final boolean active) {
+        this.id = id;
+        this.accountId = accountId;
+        this.accountNo = accountNo;
+        this.chargeId = chargeId;
+        this.chargeGLAccountId = chargeGLAccountId;
+        this.penalty = penalty;
+        this.chargeTime = chargeTime;
+        this.feeOnMonth = feeOnMonth;
+        this.feeOnDay = feeOnDay;
+        this.feeInterval = feeInterval;
+        this.dueDate = dueDate;
+        this.amount = amount;
+        this.amountPaid = amountPaid;
+        this.amountWaived = amountWaived;
+        this.amountWrittenOff = amountWrittenOff;
+        this.amountOutstanding = amountOutstanding;
+        this.paid = paid;
+        this.waived = waived;
+        this.active = active;
+    }
+
+    /**
+     * Pays <code>amountPaid</code> off the charge, moving recurring fees to their next due date once the outstanding
+     * amount is paid in full.
+     */
+    public void pay(final BigDecimal amountPaid) {
+        this.amountPaid = nullToZero(this.amountPaid).add(amountPaid);
+        this.amountOutstanding = nullToZero(this.amountOutstanding).subtract(amountPaid);
+        this.paid = BigDecimal.ZERO.compareTo(nullToZero(this.amount).subtract(this.amountPaid).subtract(nullToZero(this.amountWaived))
+                .subtract(nullToZero(this.amountWrittenOff))) == 0;
+        if (BigDecimal.ZERO.compareTo(this.amountOutstanding) == 0 && isRecurringFee()) {
+            this.dueDate = SavingsAccountCharge.calculateNextDueDate(this.chargeTime, this.dueDate, this.feeOnMonth, this.feeOnDay,
+                    this.feeInterval);
+            this.amountOutstanding = this.amount;
+            this.paid = false;
+            this.waived = false;
+        }
+    }
+
+    public boolean isRecurringFee() {
+        return this.chargeTime.isAnnualFee() || this.chargeTime.isMonthlyFee() || this.chargeTime.isWeeklyFee();
+    }
+
+    private static BigDecimal nullToZero(final BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Long getAccountId() {
+        return this.accountId;
+    }
+
+    public String getAccountNo() {
+        return this.accountNo;
+    }
+
+    public Long getChargeId() {
+        return this.chargeId;
+    }
+
+    public Long getChargeGLAccountId() {
+        return this.chargeGLAccountId;
+    }
+
+    public boolean isPenalty() {
+        return this.penalty;
+    }
+
+    public ChargeTimeType getChargeTime() {
+        return this.chargeTime;
+    }
+
+    public LocalDate getDueDate() {
+        return this.dueDate;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public BigDecimal getAmountPaid() {
+        return this.amountPaid;
+    }
+
+    public BigDecimal getAmountOutstanding() {
+        return this.amountOutstanding;
+    }
+
+    public boolean isPaid() {
+        return this.paid;
+    }
+
+    public boolean isWaived() {
+        return this.waived;
+    }
+
+    public boolean isActive() {
+        return this.active;
+    }
+}
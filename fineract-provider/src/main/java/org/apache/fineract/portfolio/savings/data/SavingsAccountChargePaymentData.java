@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.apache.fineract.portfolio.savings.SavingsAccountTransactionType;
+
+/**
+ * Charge transaction worked out by the batch charge jobs for one payment of a due charge, with the end of day balance
+ * fields it is stored with.
+ */
+public class SavingsAccountChargePaymentData {
+
+    private final SavingsAccountChargeDueData charge;
+    private final SavingsAccountTransactionType transactionType;
+    private final LocalDate transactionDate;
+    private final BigDecimal amount;
+
+    private BigDecimal runningBalance;
+    private LocalDate balanceEndDate;
+    private Integer balanceNumberOfDays;
+    private BigDecimal cumulativeBalance;
+    private Long transactionId;
+
+    public SavingsAccountChargePaymentData(final SavingsAccountChargeDueData charge, final SavingsAccountTransactionType transactionType,
+            final LocalDate transactionDate, final BigDecimal amount) {
+        this.charge = charge;
+        this.transactionType = transactionType;
+        this.transactionDate = transactionDate;
+        this.amount = amount;
+    }
+
+    public void updateBalances(final BigDecimal runningBalance, final LocalDate balanceEndDate, final Integer balanceNumberOfDays,
+            final BigDecimal cumulativeBalance) {
+        this.runningBalance = runningBalance;
+        this.balanceEndDate = balanceEndDate;
+        this.balanceNumberOfDays = balanceNumberOfDays;
+        this.cumulativeBalance = cumulativeBalance;
+    }
+
+    public SavingsAccountChargeDueData getCharge() {
+        return this.charge;
+    }
+
+    public SavingsAccountTransactionType getTransactionType() {
+        return this.transactionType;
+    }
+
+    public LocalDate getTransactionDate() {
+        return this.transactionDate;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public BigDecimal getRunningBalance() {
+        return this.runningBalance;
+    }
+
+    public LocalDate getBalanceEndDate() {
+        return this.balanceEndDate;
+    }
+
+    public Integer getBalanceNumberOfDays() {
+        return this.balanceNumberOfDays;
+    }
+
+    public BigDecimal getCumulativeBalance() {
+        return this.cumulativeBalance;
+    }
+
+    public Long getTransactionId() {
+        return this.transactionId;
+    }
+
+    public void setTransactionId(final Long transactionId) {
+        this.transactionId = transactionId;
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.fineract.organisation.monetary.data.CurrencyData;
+
+/**
+ * Savings account with due charges as read by the batch charge jobs: the stored balance and the minimum balance it
+ * must keep, the latest transactions charge transactions are appended after, the due charges themselves and the
+ * charge transactions worked out for them.
+ */
+public class SavingsAccountChargePostingData {
+
+    private final Long id;
+    private final String accountNo;
+    private final Long officeId;
+    private final Long productId;
+    private final CurrencyData currency;
+    private final boolean savingsDeposit;
+    private final boolean allowOverdraft;
+    private final boolean cashBasedAccounting;
+    private final LocalDate activationDate;
+    private final BigDecimal accountBalance;
+    private final BigDecimal minRequiredBalance;
+    private final BigDecimal onHoldFunds;
+    private final List<SavingsAccountChargeDueData> charges = new ArrayList<>();
+    private final List<SavingsAccountChargePaymentData> payments = new ArrayList<>();
+
+    private LocalDate lastTransactionDate;
+    private LocalDate lastAnnualFeeDate;
+    private Long lastBalanceTransactionId;
+    private LocalDate lastBalanceTransactionDate;
+    private BigDecimal lastBalanceTransactionRunningBalance;
+    private LocalDate lastBalanceTransactionEndDate;
+    private Integer lastBalanceTransactionNumberOfDays;
+    private BigDecimal lastBalanceTransactionCumulativeBalance;
+
+    public SavingsAccountChargePostingData(final Long id, final String accountNo, final Long officeId, final Long productId,
+            final CurrencyData currency, final boolean savingsDeposit, final boolean allowOverdraft, final boolean cashBasedAccounting,
+            final LocalDate activationDate, final BigDecimal accountBalance, final BigDecimal minRequiredBalance,
+            final BigDecimal onHoldFunds) {
+        this.id = id;
+        this.accountNo = accountNo;
+        this.officeId = officeId;
+        this.productId = productId;
+        this.currency = currency;
+        this.savingsDeposit = savingsDeposit;
+        this.allowOverdraft = allowOverdraft;
+        this.cashBasedAccounting = cashBasedAccounting;
+        this.activationDate = activationDate;
+        this.accountBalance = accountBalance;
+        this.minRequiredBalance = minRequiredBalance;
+        this.onHoldFunds = onHoldFunds;
+    }
+
+    public void addCharge(final SavingsAccountChargeDueData charge) {
+        this.charges.add(charge);
+    }
+
+    public void updateLastTransactionDates(final LocalDate lastTransactionDate, final LocalDate lastAnnualFeeDate) {
+        this.lastTransactionDate = lastTransactionDate;
+        this.lastAnnualFeeDate = lastAnnualFeeDate;
+    }
+
+    public void updateLastBalanceTransaction(final Long transactionId, final LocalDate transactionDate, final BigDecimal runningBalance) {
+        this.lastBalanceTransactionId = transactionId;
+        this.lastBalanceTransactionDate = transactionDate;
+        this.lastBalanceTransactionRunningBalance = runningBalance;
+    }
+
+    /**
+     * Records the end of day balance fields of the last balance transaction once charge transactions are appended
+     * after it.
+     */
+    public void updateLastBalanceTransactionEndOfDay(final LocalDate balanceEndDate, final Integer balanceNumberOfDays,
+            final BigDecimal cumulativeBalance) {
+        this.lastBalanceTransactionEndDate = balanceEndDate;
+        this.lastBalanceTransactionNumberOfDays = balanceNumberOfDays;
+        this.lastBalanceTransactionCumulativeBalance = cumulativeBalance;
+    }
+
+    public void addPayment(final SavingsAccountChargePaymentData payment) {
+        this.payments.add(payment);
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public String getAccountNo() {
+        return this.accountNo;
+    }
+
+    public Long getOfficeId() {
+        return this.officeId;
+    }
+
+    public Long getProductId() {
+        return this.productId;
+    }
+
+    public CurrencyData getCurrency() {
+        return this.currency;
+    }
+
+    public boolean isSavingsDeposit() {
+        return this.savingsDeposit;
+    }
+
+    public boolean isAllowOverdraft() {
+        return this.allowOverdraft;
+    }
+
+    public boolean isCashBasedAccounting() {
+        return this.cashBasedAccounting;
+    }
+
+    public LocalDate getActivationDate() {
+        return this.activationDate;
+    }
+
+    public BigDecimal getAccountBalance() {
+        return this.accountBalance;
+    }
+
+    public BigDecimal getMinRequiredBalance() {
+        return this.minRequiredBalance;
+    }
+
+    public BigDecimal getOnHoldFunds() {
+        return this.onHoldFunds;
+    }
+
+    public List<SavingsAccountChargeDueData> getCharges() {
+        return this.charges;
+    }
+
+    public LocalDate getLastTransactionDate() {
+        return this.lastTransactionDate;
+    }
+
+    public LocalDate getLastAnnualFeeDate() {
+        return this.lastAnnualFeeDate;
+    }
+
+    public Long getLastBalanceTransactionId() {
+        return this.lastBalanceTransactionId;
+    }
+
+    public LocalDate getLastBalanceTransactionDate() {
+        return this.lastBalanceTransactionDate;
+    }
+
+    public BigDecimal getLastBalanceTransactionRunningBalance() {
+        return this.lastBalanceTransactionRunningBalance;
+    }
+
+    public List<SavingsAccountChargePaymentData> getPayments() {
+        return this.payments;
+    }
+
+    public LocalDate getLastBalanceTransactionEndDate() {
+        return this.lastBalanceTransactionEndDate;
+    }
+
+    public Integer getLastBalanceTransactionNumberOfDays() {
+        return this.lastBalanceTransactionNumberOfDays;
+    }
+
+    public BigDecimal getLastBalanceTransactionCumulativeBalance() {
+        return this.lastBalanceTransactionCumulativeBalance;
+    }
+}
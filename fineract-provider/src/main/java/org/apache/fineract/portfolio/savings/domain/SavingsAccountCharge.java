@@ -831,30 +831,48 @@ public class SavingsAccountCharge extends AbstractPersistableCustom {
     }
 
     private LocalDate calculateNextDueDate(final LocalDate date) {
+        return calculateNextDueDate(ChargeTimeType.fromInt(this.chargeTime), date, this.feeOnMonth, this.feeOnDay, this.feeInterval);
+    }
+
+    /**
+     * Returns the due date following <code>date</code> for a recurring (annual, monthly or weekly) fee with the given
+     * settings, or <code>null</code> for any other charge time. Shared with the batch charge jobs, which work on the
+     * stored charge rows instead of loaded charges.
+     */
+    public static LocalDate calculateNextDueDate(final ChargeTimeType chargeTime, final LocalDate date, final Integer feeOnMonth,
+            final Integer feeOnDay, final Integer feeInterval) {
         LocalDate nextDueLocalDate = null;
-        if (isAnnualFee()) {
-            nextDueLocalDate = date.withMonth(this.feeOnMonth).plusYears(1);
-            nextDueLocalDate = setDayOfMonth(nextDueLocalDate);
-        } else if (isMonthlyFee()) {
-            nextDueLocalDate = date.plusMonths(this.feeInterval);
-            nextDueLocalDate = setDayOfMonth(nextDueLocalDate);
-        } else if (isWeeklyFee()) {
-            nextDueLocalDate = date.plusWeeks(this.feeInterval);
-            nextDueLocalDate = setDayOfWeek(nextDueLocalDate);
+        if (chargeTime.isAnnualFee()) {
+            nextDueLocalDate = date.withMonth(feeOnMonth).plusYears(1);
+            nextDueLocalDate = setDayOfMonth(nextDueLocalDate, feeOnDay);
+        } else if (chargeTime.isMonthlyFee()) {
+            nextDueLocalDate = date.plusMonths(feeInterval);
+            nextDueLocalDate = setDayOfMonth(nextDueLocalDate, feeOnDay);
+        } else if (chargeTime.isWeeklyFee()) {
+            nextDueLocalDate = date.plusWeeks(feeInterval);
+            nextDueLocalDate = setDayOfWeek(nextDueLocalDate, feeOnDay);
         }
         return nextDueLocalDate;
     }
 
     private LocalDate setDayOfMonth(LocalDate nextDueLocalDate) {
+        return setDayOfMonth(nextDueLocalDate, this.feeOnDay);
+    }
+
+    private static LocalDate setDayOfMonth(LocalDate nextDueLocalDate, final Integer feeOnDay) {
         int maxDayOfMonth = nextDueLocalDate.lengthOfMonth();
-        int newDayOfMonth = (this.feeOnDay.intValue() < maxDayOfMonth) ? this.feeOnDay : maxDayOfMonth;
+        int newDayOfMonth = (feeOnDay.intValue() < maxDayOfMonth) ? feeOnDay : maxDayOfMonth;
         nextDueLocalDate = nextDueLocalDate.withDayOfMonth(newDayOfMonth);
         return nextDueLocalDate;
     }
 
     private LocalDate setDayOfWeek(LocalDate nextDueLocalDate) {
-        if (this.feeOnDay != nextDueLocalDate.get(ChronoField.DAY_OF_WEEK)) {
-            nextDueLocalDate = nextDueLocalDate.with(ChronoField.DAY_OF_WEEK, this.feeOnDay);
+        return setDayOfWeek(nextDueLocalDate, this.feeOnDay);
+    }
+
+    private static LocalDate setDayOfWeek(LocalDate nextDueLocalDate, final Integer feeOnDay) {
+        if (feeOnDay != nextDueLocalDate.get(ChronoField.DAY_OF_WEEK)) {
+            nextDueLocalDate = nextDueLocalDate.with(ChronoField.DAY_OF_WEEK, feeOnDay);
         }
         return nextDueLocalDate;
     }
@@ -66,4 +66,8 @@ public interface SavingsAccountRepository extends JpaRepository<SavingsAccount,
     Page<SavingsAccount> findByStatus(Integer status, Pageable pageable);
 
     SavingsAccount findByExternalId(String externalId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select sa from SavingsAccount sa where sa.externalId = :externalId")
+    SavingsAccount findOneLockedByExternalId(@Param("externalId") String externalId);
 }
@@ -42,4 +42,8 @@ public interface SavingsAccountTransactionRepository
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<SavingsAccountTransaction> findBySavingsAccount(@Param("savingsAccount") SavingsAccount savingsAccount);
 
+    @Query("select sat from SavingsAccountTransaction sat join sat.paymentDetail pd where sat.savingsAccount.id = :savingsId and sat.typeOf = :transactionType and pd.routingCode = :routingCode and pd.receiptNumber = :receiptNumber")
+    List<SavingsAccountTransaction> findByPaymentReceipt(@Param("savingsId") Long savingsId, @Param("transactionType") Integer transactionType,
+            @Param("routingCode") String routingCode, @Param("receiptNumber") String receiptNumber);
+
 }
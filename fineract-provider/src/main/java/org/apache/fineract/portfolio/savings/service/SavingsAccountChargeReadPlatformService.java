@@ -19,9 +19,11 @@
 package org.apache.fineract.portfolio.savings.service;
 
 import java.util.Collection;
+import java.util.List;
 import org.apache.fineract.portfolio.charge.data.ChargeData;
 import org.apache.fineract.portfolio.savings.data.SavingsAccountAnnualFeeData;
 import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePostingData;
 
 public interface SavingsAccountChargeReadPlatformService {
 
@@ -34,4 +36,16 @@ public interface SavingsAccountChargeReadPlatformService {
     Collection<SavingsAccountAnnualFeeData> retrieveChargesWithAnnualFeeDue();
 
     Collection<SavingsAccountAnnualFeeData> retrieveChargesWithDue();
+
+    /**
+     * Pages the ids of the savings accounts with annual fees (or, when <code>annualFee</code> is false, any charges)
+     * due, in account id order.
+     */
+    List<Long> retrieveSavingsAccountIdsWithChargesDue(boolean annualFee, Long afterAccountId, int limit);
+
+    /**
+     * Returns the savings accounts in the given id range with their due annual fees (or any due charges), together with
+     * the balances and latest transactions the batch charge jobs post them against.
+     */
+    Collection<SavingsAccountChargePostingData> retrieveChargesDueForPosting(boolean annualFee, Long fromAccountId, Long toAccountId);
 }
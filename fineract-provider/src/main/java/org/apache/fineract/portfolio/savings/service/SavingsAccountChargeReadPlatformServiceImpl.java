@@ -23,13 +23,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.MonthDay;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.fineract.accounting.common.AccountingRuleType;
 import org.apache.fineract.accounting.glaccount.data.GLAccountData;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.organisation.monetary.data.CurrencyData;
 import org.apache.fineract.portfolio.charge.data.ChargeData;
@@ -38,8 +42,12 @@ import org.apache.fineract.portfolio.charge.exception.SavingsAccountChargeNotFou
 import org.apache.fineract.portfolio.charge.service.ChargeDropdownReadPlatformService;
 import org.apache.fineract.portfolio.charge.service.ChargeEnumerations;
 import org.apache.fineract.portfolio.common.service.DropdownReadPlatformService;
+import org.apache.fineract.portfolio.savings.DepositAccountType;
+import org.apache.fineract.portfolio.savings.SavingsAccountTransactionType;
 import org.apache.fineract.portfolio.savings.data.SavingsAccountAnnualFeeData;
 import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeDueData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePostingData;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountStatusType;
 import org.apache.fineract.portfolio.tax.data.TaxGroupData;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,10 +59,19 @@ import org.springframework.stereotype.Service;
 @Service
 public class SavingsAccountChargeReadPlatformServiceImpl implements SavingsAccountChargeReadPlatformService {
 
+    private static final String ANNUAL_FEE_DUE_CONDITION = " where sac.charge_due_date is not null and sac.charge_time_enum = ? "
+            + " and sac.charge_due_date <= NOW() and sa.status_enum = ? ";
+    private static final String CHARGE_DUE_CONDITION = " where sac.charge_due_date is not null and sac.charge_due_date <= NOW() "
+            + "and sac.waived = false and sac.is_paid_derived=false and sac.is_active=true and sa.status_enum = ? ";
+    private static final String NON_INTEREST_TRANSACTION_CONDITION = " t.is_reversed = false and t.transaction_type_enum not in ("
+            + SavingsAccountTransactionType.INTEREST_POSTING.getValue() + ", " + SavingsAccountTransactionType.OVERDRAFT_INTEREST.getValue()
+            + ") ";
+
     private final JdbcTemplate jdbcTemplate;
     private final PlatformSecurityContext context;
     private final ChargeDropdownReadPlatformService chargeDropdownReadPlatformService;
     private final DropdownReadPlatformService dropdownReadPlatformService;
+    private final DatabaseSpecificSQLGenerator sqlGenerator;
 
     // mappers
     private final SavingsAccountChargeDueMapper chargeDueMapper;
@@ -62,12 +79,13 @@ public class SavingsAccountChargeReadPlatformServiceImpl implements SavingsAccou
     @Autowired
     public SavingsAccountChargeReadPlatformServiceImpl(final PlatformSecurityContext context,
             final ChargeDropdownReadPlatformService chargeDropdownReadPlatformService, final JdbcTemplate jdbcTemplate,
-            final DropdownReadPlatformService dropdownReadPlatformService) {
+            final DropdownReadPlatformService dropdownReadPlatformService, final DatabaseSpecificSQLGenerator sqlGenerator) {
         this.context = context;
         this.chargeDropdownReadPlatformService = chargeDropdownReadPlatformService;
         this.jdbcTemplate = jdbcTemplate;
         this.chargeDueMapper = new SavingsAccountChargeDueMapper();
         this.dropdownReadPlatformService = dropdownReadPlatformService;
+        this.sqlGenerator = sqlGenerator;
     }
 
     private static final class SavingsAccountChargeMapper implements RowMapper<SavingsAccountChargeData> {
@@ -247,9 +265,7 @@ public class SavingsAccountChargeReadPlatformServiceImpl implements SavingsAccou
 
     @Override
     public Collection<SavingsAccountAnnualFeeData> retrieveChargesWithAnnualFeeDue() {
-        final String sql = "select " + this.chargeDueMapper.schema()
-                + " where sac.charge_due_date is not null and sac.charge_time_enum = ? "
-                + " and sac.charge_due_date <= NOW() and sa.status_enum = ? ";
+        final String sql = "select " + this.chargeDueMapper.schema() + ANNUAL_FEE_DUE_CONDITION;
 
         return this.jdbcTemplate.query(sql, this.chargeDueMapper,
                 new Object[] { ChargeTimeType.ANNUAL_FEE.getValue(), SavingsAccountStatusType.ACTIVE.getValue() }); // NOSONAR
@@ -257,11 +273,123 @@ public class SavingsAccountChargeReadPlatformServiceImpl implements SavingsAccou
 
     @Override
     public Collection<SavingsAccountAnnualFeeData> retrieveChargesWithDue() {
-        final String sql = "select " + this.chargeDueMapper.schema()
-                + " where sac.charge_due_date is not null and sac.charge_due_date <= NOW() and sac.waived = false and sac.is_paid_derived=false and sac.is_active=true and sa.status_enum = ? "
-                + " order by sac.charge_due_date ";
+        final String sql = "select " + this.chargeDueMapper.schema() + CHARGE_DUE_CONDITION + " order by sac.charge_due_date ";
 
         return this.jdbcTemplate.query(sql, this.chargeDueMapper, new Object[] { SavingsAccountStatusType.ACTIVE.getValue() }); // NOSONAR
     }
 
+    @Override
+    public List<Long> retrieveSavingsAccountIdsWithChargesDue(final boolean annualFee, final Long afterAccountId, final int limit) {
+        final String sql = "select distinct sa.id from m_savings_account_charge sac "
+                + "join m_savings_account sa on sac.savings_account_id = sa.id " + dueCondition(annualFee)
+                + " and sa.id > ? order by sa.id " + this.sqlGenerator.limit(limit);
+
+        return this.jdbcTemplate.queryForList(sql, Long.class, dueConditionParameters(annualFee, afterAccountId)); // NOSONAR
+    }
+
+    @Override
+    public Collection<SavingsAccountChargePostingData> retrieveChargesDueForPosting(final boolean annualFee, final Long fromAccountId,
+            final Long toAccountId) {
+        final SavingsAccountChargePostingMapper mapper = new SavingsAccountChargePostingMapper();
+        final String sql = "select " + mapper.schema() + dueCondition(annualFee) + " and sa.id >= ? and sa.id <= ? "
+                + " order by sa.id, sac.charge_due_date, sac.id";
+        final Map<Long, SavingsAccountChargePostingData> accounts = new LinkedHashMap<>();
+        this.jdbcTemplate.query(sql, rs -> {
+            mapper.mapRow(rs, accounts);
+        }, dueConditionParameters(annualFee, fromAccountId, toAccountId)); // NOSONAR
+        if (accounts.isEmpty()) {
+            return accounts.values();
+        }
+
+        final String lastTransactionsSql = "select t.savings_account_id as accountId, max(t.transaction_date) as lastTransactionDate, "
+                + "max(case when t.transaction_type_enum = " + SavingsAccountTransactionType.ANNUAL_FEE.getValue()
+                + " then t.transaction_date end) as lastAnnualFeeDate from m_savings_account_transaction t "
+                + "where t.is_reversed = false and t.savings_account_id >= ? and t.savings_account_id <= ? group by t.savings_account_id";
+        this.jdbcTemplate.query(lastTransactionsSql, rs -> {
+            final SavingsAccountChargePostingData account = accounts.get(rs.getLong("accountId"));
+            if (account != null) {
+                account.updateLastTransactionDates(JdbcSupport.getLocalDate(rs, "lastTransactionDate"),
+                        JdbcSupport.getLocalDate(rs, "lastAnnualFeeDate"));
+            }
+        }, fromAccountId, toAccountId);
+
+        // the transaction whose end of day balance a charge transaction appended after it cuts short, interest postings
+        // do not carry one
+        final String lastBalanceTransactionSql = "select t.savings_account_id as accountId, t.id as id, "
+                + "t.transaction_date as transactionDate, t.running_balance_derived as runningBalance "
+                + "from m_savings_account_transaction t join (select t.savings_account_id as accountId, "
+                + "max(t.transaction_date) as lastDate from m_savings_account_transaction t "
+                + "where" + NON_INTEREST_TRANSACTION_CONDITION + "and t.savings_account_id >= ? and t.savings_account_id <= ? "
+                + "group by t.savings_account_id) l on l.accountId = t.savings_account_id and l.lastDate = t.transaction_date "
+                + "where" + NON_INTEREST_TRANSACTION_CONDITION + "order by t.savings_account_id, t.id";
+        this.jdbcTemplate.query(lastBalanceTransactionSql, rs -> {
+            final SavingsAccountChargePostingData account = accounts.get(rs.getLong("accountId"));
+            if (account != null) {
+                account.updateLastBalanceTransaction(rs.getLong("id"), JdbcSupport.getLocalDate(rs, "transactionDate"),
+                        rs.getBigDecimal("runningBalance"));
+            }
+        }, fromAccountId, toAccountId);
+        return accounts.values();
+    }
+
+    private static String dueCondition(final boolean annualFee) {
+        return annualFee ? ANNUAL_FEE_DUE_CONDITION : CHARGE_DUE_CONDITION;
+    }
+
+    private static Object[] dueConditionParameters(final boolean annualFee, final Long... accountIds) {
+        final List<Object> parameters = new ArrayList<>();
+        if (annualFee) {
+            parameters.add(ChargeTimeType.ANNUAL_FEE.getValue());
+        }
+        parameters.add(SavingsAccountStatusType.ACTIVE.getValue());
+        parameters.addAll(List.of(accountIds));
+        return parameters.toArray();
+    }
+
+    private static final class SavingsAccountChargePostingMapper {
+
+        public String schema() {
+            return "sa.id as accountId, sa.account_no as accountNo, COALESCE(cl.office_id, g.office_id) as officeId, "
+                    + "sa.product_id as productId, sa.currency_code as currencyCode, sa.currency_digits as currencyDigits, "
+                    + "sa.currency_multiplesof as inMultiplesOf, sa.deposit_type_enum as depositType, "
+                    + "sa.allow_overdraft as allowOverdraft, "
+                    + "sp.accounting_type as accountingType, sa.activatedon_date as activationDate, "
+                    + "sa.account_balance_derived as accountBalance, sa.enforce_min_required_balance as enforceMinRequiredBalance, "
+                    + "sa.min_required_balance as minRequiredBalance, sa.on_hold_funds_derived as onHoldFunds, "
+                    + "sac.id as id, sac.charge_id as chargeId, c.income_or_liability_account_id as chargeGLAccountId, "
+                    + "sac.is_penalty as penalty, sac.charge_time_enum as chargeTime, sac.fee_on_month as feeOnMonth, "
+                    + "sac.fee_on_day as feeOnDay, sac.fee_interval as feeInterval, sac.charge_due_date as dueDate, sac.amount as amount, "
+                    + "sac.amount_paid_derived as amountPaid, sac.amount_waived_derived as amountWaived, "
+                    + "sac.amount_writtenoff_derived as amountWrittenOff, sac.amount_outstanding_derived as amountOutstanding, "
+                    + "sac.is_paid_derived as paid, sac.waived as waived, sac.is_active as active "
+                    + "from m_savings_account_charge sac join m_savings_account sa on sac.savings_account_id = sa.id "
+                    + "join m_savings_product sp on sp.id = sa.product_id join m_charge c on c.id = sac.charge_id "
+                    + "left join m_client cl on cl.id = sa.client_id left join m_group g on g.id = sa.group_id ";
+        }
+
+        public void mapRow(final ResultSet rs, final Map<Long, SavingsAccountChargePostingData> accounts) throws SQLException {
+            final Long accountId = rs.getLong("accountId");
+            final String accountNo = rs.getString("accountNo");
+            SavingsAccountChargePostingData account = accounts.get(accountId);
+            if (account == null) {
+                final CurrencyData currency = new CurrencyData(rs.getString("currencyCode"), rs.getInt("currencyDigits"),
+                        JdbcSupport.getInteger(rs, "inMultiplesOf"));
+                final BigDecimal minRequiredBalance = rs.getBoolean("enforceMinRequiredBalance")
+                        ? JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "minRequiredBalance")
+                        : BigDecimal.ZERO;
+                account = new SavingsAccountChargePostingData(accountId, accountNo, JdbcSupport.getLong(rs, "officeId"),
+                        rs.getLong("productId"), currency, DepositAccountType.SAVINGS_DEPOSIT.getValue().equals(rs.getInt("depositType")),
+                        rs.getBoolean("allowOverdraft"), AccountingRuleType.CASH_BASED.getValue().equals(rs.getInt("accountingType")),
+                        JdbcSupport.getLocalDate(rs, "activationDate"), JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "accountBalance"),
+                        minRequiredBalance, JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "onHoldFunds"));
+                accounts.put(accountId, account);
+            }
+            account.addCharge(new SavingsAccountChargeDueData(rs.getLong("id"), accountId, accountNo, rs.getLong("chargeId"),
+                    JdbcSupport.getLong(rs, "chargeGLAccountId"), rs.getBoolean("penalty"), ChargeTimeType.fromInt(rs.getInt("chargeTime")),
+                    JdbcSupport.getInteger(rs, "feeOnMonth"), JdbcSupport.getInteger(rs, "feeOnDay"),
+                    JdbcSupport.getInteger(rs, "feeInterval"), JdbcSupport.getLocalDate(rs, "dueDate"), rs.getBigDecimal("amount"),
+                    rs.getBigDecimal("amountPaid"), rs.getBigDecimal("amountWaived"), rs.getBigDecimal("amountWrittenOff"),
+                    rs.getBigDecimal("amountOutstanding"), rs.getBoolean("paid"), rs.getBoolean("waived"), rs.getBoolean("active")));
+        }
+    }
 }
@@ -58,6 +58,8 @@ public interface SavingsAccountReadPlatformService {
 
     List<Long> retrieveSavingsIdsPendingEscheat(LocalDate tenantLocalDate);
 
+    List<Long> retrieveSavingsIdsPendingEscheat(LocalDate tenantLocalDate, Long fromSavingsId, Long toSavingsId);
+
     boolean isAccountBelongsToClient(Long clientId, Long accountId, DepositAccountType depositAccountType, String currencyCode);
 
     String retrieveAccountNumberByAccountId(Long accountId);
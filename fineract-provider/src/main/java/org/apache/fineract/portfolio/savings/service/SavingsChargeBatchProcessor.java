@@ -0,0 +1,364 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.service;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.infrastructure.core.data.ApiParameterError;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.LocalDateInterval;
+import org.apache.fineract.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
+import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.portfolio.savings.SavingsAccountTransactionType;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeDueData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePaymentData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePostingData;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the "Pay Due Savings Charges" and "Apply Annual Fee For Savings" jobs over partitions of savings accounts: the
+ * ids of the accounts with due charges are paged in id order, each page of <code>batchSize</code> accounts becomes a
+ * partition processed on <code>threadPoolSize</code> threads of this node and by the other nodes of the cluster, see
+ * {@link JobPartitionService}.
+ *
+ * The due charges of a partition are read with the stored balances and latest transactions of their accounts, every
+ * payment {@link SavingsAccountWritePlatformService#applyChargeDue} or {@link SavingsAccountWritePlatformService#applyAnnualFee}
+ * would make is worked out per account, and the partition is written in one transaction by the
+ * {@link SavingsChargeBatchWriter}. Accounts the payments cannot be worked out for from the stored data alone (backdated
+ * or overdraft payments, funds on hold, payments the account would refuse) go through the write platform service
+ * charge by charge, as do the accounts of a partition which keeps failing.
+ */
+@Component
+@RequiredArgsConstructor
+public class SavingsChargeBatchProcessor implements PartitionedJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SavingsChargeBatchProcessor.class);
+    private static final SecureRandom random = new SecureRandom();
+    private static final String ANNUAL_FEE = "annual-fee";
+    private static final String BATCH_SIZE = "batch-size";
+    private static final String APP_USER_ID = "app-user-id";
+
+    private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
+    private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
+    private final SavingsChargeBatchWriter savingsChargeBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditorAware<AppUser> auditorAware;
+    private final JobPartitionService jobPartitionService;
+
+    /**
+     * Pays the due charges of all active savings accounts, see {@link SavingsAccountWritePlatformService#applyChargeDue}.
+     */
+    public void applyChargesDue(final int threadPoolSize, final int batchSize) throws JobExecutionException {
+        process(false, threadPoolSize, batchSize);
+    }
+
+    /**
+     * Applies the due annual fees of all active savings accounts, see
+     * {@link SavingsAccountWritePlatformService#applyAnnualFee}.
+     */
+    public void applyAnnualFees(final int threadPoolSize, final int batchSize) throws JobExecutionException {
+        process(true, threadPoolSize, batchSize);
+    }
+
+    private void process(final boolean annualFee, final int threadPoolSize, final int batchSize) throws JobExecutionException {
+        final Long appUserId = this.auditorAware.getCurrentAuditor().map(AppUser::getId).orElse(1L);
+        final long start = System.currentTimeMillis();
+
+        final List<long[]> ranges = new ArrayList<>();
+        List<Long> accountIds = this.savingsAccountChargeReadPlatformService.retrieveSavingsAccountIdsWithChargesDue(annualFee, 0L,
+                batchSize);
+        while (!accountIds.isEmpty()) {
+            final Long lastAccountId = accountIds.get(accountIds.size() - 1);
+            ranges.add(new long[] { accountIds.get(0), lastAccountId });
+            accountIds = this.savingsAccountChargeReadPlatformService.retrieveSavingsAccountIdsWithChargesDue(annualFee, lastAccountId,
+                    batchSize);
+        }
+
+        final Map<String, String> context = new HashMap<>();
+        context.put(ANNUAL_FEE, String.valueOf(annualFee));
+        context.put(BATCH_SIZE, String.valueOf(batchSize));
+        context.put(APP_USER_ID, String.valueOf(appUserId));
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(
+                annualFee ? JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS : JobName.PAY_DUE_SAVINGS_CHARGES, context, ranges, threadPoolSize);
+
+        final ChargeSummary total = new ChargeSummary();
+        for (final JobPartitionData partition : partitions) {
+            total.add(ChargeSummary.fromMap(partition.getResult()));
+        }
+        final List<Throwable> errors = JobPartitionService.failures(partitions);
+        LOG.info("{}: {} partitions, {} accounts, {} charge transactions of {}, {} accounts charged one by one, {} failed partitions "
+                + "in {} ms", annualFee ? "Annual fees for savings" : "Due savings charges", partitions.size(), total.accounts,
+                total.transactions, total.amount, total.accountsChargedOneByOne, errors.size(), System.currentTimeMillis() - start);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+    }
+
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.PAY_DUE_SAVINGS_CHARGES, JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS);
+    }
+
+    /**
+     * Pays the due charges of the savings accounts in the partition's account id range, which may be processed on any
+     * node of the cluster.
+     */
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) throws JobExecutionException {
+        final Map<String, String> context = partition.getContext();
+        final ChargeSummary summary = processPartition(ThreadLocalContextUtil.getTenant(), Boolean.parseBoolean(context.get(ANNUAL_FEE)),
+                partition.getRangeFrom(), partition.getRangeTo(), Long.valueOf(context.get(APP_USER_ID)));
+        if (!summary.errors.isEmpty()) {
+            throw new JobExecutionException(summary.errors);
+        }
+        return summary.toMap();
+    }
+
+    private ChargeSummary processPartition(final FineractPlatformTenant tenant, final boolean annualFee, final Long fromAccountId,
+            final Long toAccountId, final Long appUserId) {
+        final int maxNumberOfRetries = tenant.getConnection().getMaxRetriesOnDeadlock();
+        final int maxIntervalBetweenRetries = tenant.getConnection().getMaxIntervalBetweenRetries();
+        int numberOfRetries = 0;
+        while (true) {
+            try {
+                final List<SavingsAccountChargePostingData> accountsChargedOneByOne = new ArrayList<>();
+                final ChargeSummary summary = this.transactionTemplate.execute(status -> {
+                    final ChargeSummary partitionSummary = new ChargeSummary();
+                    final LocalDate today = DateUtils.getLocalDateOfTenant();
+                    final List<SavingsAccountChargePostingData> accounts = new ArrayList<>();
+                    for (final SavingsAccountChargePostingData account : this.savingsAccountChargeReadPlatformService
+                            .retrieveChargesDueForPosting(annualFee, fromAccountId, toAccountId)) {
+                        if (calculate(account, annualFee, today)) {
+                            accounts.add(account);
+                            partitionSummary.add(account);
+                        } else {
+                            accountsChargedOneByOne.add(account);
+                        }
+                    }
+                    this.savingsChargeBatchWriter.write(accounts, annualFee ? appUserId : null, appUserId);
+                    return partitionSummary;
+                });
+                summary.add(processChargeByCharge(annualFee, accountsChargedOneByOne));
+                return summary;
+            } catch (TransientDataAccessException e) {
+                if (numberOfRetries >= maxNumberOfRetries) {
+                    LOG.warn("Savings charge partition of accounts {} to {} still failing after {} retries, charging charge by charge",
+                            fromAccountId, toAccountId, numberOfRetries, e);
+                    break;
+                }
+                try {
+                    Thread.sleep(1000 + random.nextInt(maxIntervalBetweenRetries + 1) * 1000L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                numberOfRetries++;
+            } catch (RuntimeException e) {
+                LOG.warn("Savings charge partition of accounts {} to {} failed, charging charge by charge", fromAccountId, toAccountId, e);
+                break;
+            }
+        }
+        return processChargeByCharge(annualFee,
+                this.savingsAccountChargeReadPlatformService.retrieveChargesDueForPosting(annualFee, fromAccountId, toAccountId));
+    }
+
+    /**
+     * Works out the payments of the account's due charges the same way the write platform service would make them, and
+     * the end of day balances they leave. Returns false, leaving the account to the write platform service, when any
+     * payment needs more than the stored balance and latest transactions.
+     */
+    private boolean calculate(final SavingsAccountChargePostingData account, final boolean annualFee, final LocalDate today) {
+        if (!account.isSavingsDeposit() || account.isAllowOverdraft() || account.getOfficeId() == null
+                || account.getOnHoldFunds().compareTo(BigDecimal.ZERO) != 0) {
+            return false;
+        }
+        final List<SavingsAccountChargePaymentData> payments = new ArrayList<>();
+        LocalDate lastAnnualFeeDate = account.getLastAnnualFeeDate();
+        for (final SavingsAccountChargeDueData charge : account.getCharges()) {
+            if (!charge.isActive() || charge.isWaived() || charge.getChargeTime().isSavingsActivation() || charge.getDueDate() == null
+                    || charge.getChargeTime().isAnnualFee() != annualFee) {
+                return false;
+            }
+            if (annualFee) {
+                if (charge.isPaid()) {
+                    return false;
+                }
+                while (today.isAfter(charge.getDueDate())) {
+                    if (charge.getDueDate().equals(lastAnnualFeeDate) || charge.getAmountOutstanding().compareTo(charge.getAmount()) < 0) {
+                        return false;
+                    }
+                    lastAnnualFeeDate = charge.getDueDate();
+                    payments.add(new SavingsAccountChargePaymentData(charge, SavingsAccountTransactionType.ANNUAL_FEE, charge.getDueDate(),
+                            charge.getAmount()));
+                    charge.pay(charge.getAmount());
+                }
+            } else {
+                while (today.isAfter(charge.getDueDate()) && !charge.isPaid()) {
+                    final BigDecimal amount = charge.getAmountOutstanding();
+                    if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+                        return false;
+                    }
+                    payments.add(new SavingsAccountChargePaymentData(charge, SavingsAccountTransactionType.PAY_CHARGE, today, amount));
+                    charge.pay(amount);
+                    if (!charge.isRecurringFee() && !charge.isPaid()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        if (payments.isEmpty()) {
+            return true;
+        }
+
+        // charge transactions can only be appended after the account's latest transaction
+        payments.sort(Comparator.comparing(SavingsAccountChargePaymentData::getTransactionDate));
+        final LocalDate firstPaymentDate = payments.get(0).getTransactionDate();
+        if ((account.getLastTransactionDate() != null && firstPaymentDate.isBefore(account.getLastTransactionDate()))
+                || (account.getActivationDate() != null && firstPaymentDate.isBefore(account.getActivationDate()))) {
+            return false;
+        }
+        Money runningBalance = Money.of(account.getCurrency(), account.getAccountBalance());
+        for (final SavingsAccountChargePaymentData payment : payments) {
+            runningBalance = runningBalance.minus(payment.getAmount());
+            if (runningBalance.isLessThanZero() || runningBalance.minus(account.getMinRequiredBalance()).isLessThanZero()) {
+                return false;
+            }
+        }
+
+        runningBalance = Money.of(account.getCurrency(), account.getAccountBalance());
+        if (account.getLastBalanceTransactionId() != null) {
+            final LocalDate endOfBalanceDate = firstPaymentDate.minusDays(1);
+            final LocalDate transactionDate = account.getLastBalanceTransactionDate();
+            final int numberOfDays = LocalDateInterval.create(transactionDate, endOfBalanceDate).daysInPeriodInclusiveOfEndDate();
+            account.updateLastBalanceTransactionEndOfDay(endOfBalanceDate.isBefore(transactionDate) ? transactionDate : endOfBalanceDate,
+                    numberOfDays, Money.of(account.getCurrency(), account.getLastBalanceTransactionRunningBalance())
+                            .multipliedBy((long) numberOfDays).getAmount());
+        }
+        for (int i = 0; i < payments.size(); i++) {
+            final SavingsAccountChargePaymentData payment = payments.get(i);
+            runningBalance = runningBalance.minus(payment.getAmount());
+            final LocalDate endOfBalanceDate = i + 1 < payments.size() ? payments.get(i + 1).getTransactionDate().minusDays(1) : today;
+            final int numberOfDays = LocalDateInterval.create(payment.getTransactionDate(), endOfBalanceDate)
+                    .daysInPeriodInclusiveOfEndDate();
+            payment.updateBalances(runningBalance.getAmount(),
+                    endOfBalanceDate.isBefore(payment.getTransactionDate()) ? payment.getTransactionDate() : endOfBalanceDate, numberOfDays,
+                    runningBalance.multipliedBy((long) numberOfDays).getAmount());
+            account.addPayment(payment);
+        }
+        return true;
+    }
+
+    private ChargeSummary processChargeByCharge(final boolean annualFee, final Collection<SavingsAccountChargePostingData> accounts) {
+        final ChargeSummary summary = new ChargeSummary();
+        for (final SavingsAccountChargePostingData account : accounts) {
+            summary.accountsChargedOneByOne++;
+            for (final SavingsAccountChargeDueData charge : account.getCharges()) {
+                try {
+                    if (annualFee) {
+                        this.savingsAccountWritePlatformService.applyAnnualFee(charge.getId(), charge.getAccountId());
+                    } else {
+                        this.savingsAccountWritePlatformService.applyChargeDue(charge.getId(), charge.getAccountId());
+                    }
+                } catch (final PlatformApiDataValidationException e) {
+                    for (final ApiParameterError error : e.getErrors()) {
+                        LOG.error("{} failed for account {} with message: {}", jobDescription(annualFee), charge.getAccountNo(),
+                                error.getDeveloperMessage(), e);
+                    }
+                    addError(summary, annualFee, e);
+                } catch (final RuntimeException e) {
+                    LOG.error("{} failed for account: {}", jobDescription(annualFee), charge.getAccountNo(), e);
+                    addError(summary, annualFee, e);
+                }
+            }
+        }
+        return summary;
+    }
+
+    private static String jobDescription(final boolean annualFee) {
+        return annualFee ? "Apply annual fee" : "Apply Charges due for savings";
+    }
+
+    private static void addError(final ChargeSummary summary, final boolean annualFee, final RuntimeException e) {
+        // a failing annual fee has never failed the job, only due charges do
+        if (!annualFee) {
+            summary.errors.add(e);
+        }
+    }
+
+    private static final class ChargeSummary {
+
+        private int accounts;
+        private int transactions;
+        private int accountsChargedOneByOne;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private final List<Throwable> errors = new ArrayList<>();
+
+        void add(final SavingsAccountChargePostingData account) {
+            this.accounts++;
+            for (final SavingsAccountChargePaymentData payment : account.getPayments()) {
+                this.transactions++;
+                this.amount = this.amount.add(payment.getAmount());
+            }
+        }
+
+        Map<String, String> toMap() {
+            return Map.of("accounts", String.valueOf(this.accounts), "transactions", String.valueOf(this.transactions),
+                    "accountsChargedOneByOne", String.valueOf(this.accountsChargedOneByOne), "amount", this.amount.toPlainString());
+        }
+
+        static ChargeSummary fromMap(final Map<String, String> map) {
+            final ChargeSummary summary = new ChargeSummary();
+            summary.accounts = Integer.parseInt(map.getOrDefault("accounts", "0"));
+            summary.transactions = Integer.parseInt(map.getOrDefault("transactions", "0"));
+            summary.accountsChargedOneByOne = Integer.parseInt(map.getOrDefault("accountsChargedOneByOne", "0"));
+            summary.amount = new BigDecimal(map.getOrDefault("amount", "0"));
+            return summary;
+        }
+
+        void add(final ChargeSummary other) {
+            this.accounts += other.accounts;
+            this.transactions += other.transactions;
+            this.accountsChargedOneByOne += other.accountsChargedOneByOne;
+            this.amount = this.amount.add(other.amount);
+            this.errors.addAll(other.errors);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.apache.fineract.accounting.common.AccountingConstants.CashAccountsForSavings;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorHelper;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryBatchInserter;
+import org.apache.fineract.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import org.apache.fineract.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import org.apache.fineract.infrastructure.core.persistence.TenantPooledTableSequence;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeDueData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePaymentData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePostingData;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the charge transactions of a whole partition of savings accounts with JDBC batches: the
+ * <code>m_savings_account_transaction</code> rows and the charges they pay, the end of day balance of the transaction
+ * before them, the paid amounts and next due dates of the charges, the account summaries and the journal entries
+ * <code>CashBasedAccountingProcessorForSavings</code> would post for them.
+ *
+ * Must be called within a transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class SavingsChargeBatchWriter {
+
+    private static final String INSERT_TRANSACTION_SQL = "INSERT INTO m_savings_account_transaction (savings_account_id,office_id,"
+            + "is_reversed,transaction_type_enum,transaction_date,amount,balance_end_date_derived,balance_number_of_days_derived,"
+            + "running_balance_derived,cumulative_balance_derived,created_date,appuser_id,is_manual,is_loan_disbursement,"
+            + "is_lien_transaction) VALUES (?, ?, false, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, false, false)";
+    private static final String INSERT_TRANSACTION_WITH_ID_SQL = "INSERT INTO m_savings_account_transaction (id,savings_account_id,"
+            + "office_id,is_reversed,transaction_type_enum,transaction_date,amount,balance_end_date_derived,"
+            + "balance_number_of_days_derived,running_balance_derived,cumulative_balance_derived,created_date,appuser_id,is_manual,"
+            + "is_loan_disbursement,is_lien_transaction) VALUES (?, ?, ?, false, ?, ?, ?, ?, ?, ?, ?, ?, ?, false, false, false)";
+    private static final String UPDATE_BALANCE_TRANSACTION_SQL = "UPDATE m_savings_account_transaction SET balance_end_date_derived=?, "
+            + "balance_number_of_days_derived=?, cumulative_balance_derived=? WHERE id=?";
+    private static final String INSERT_CHARGE_PAID_BY_SQL = "INSERT INTO m_savings_account_charge_paid_by (savings_account_transaction_id,"
+            + "savings_account_charge_id,amount) VALUES (?, ?, ?)";
+    private static final String UPDATE_CHARGE_SQL = "UPDATE m_savings_account_charge SET charge_due_date=?, amount_paid_derived=?, "
+            + "amount_outstanding_derived=?, is_paid_derived=?, waived=? WHERE id=?";
+    private static final String UPDATE_SUMMARY_SQL = "UPDATE m_savings_account SET "
+            + "account_balance_derived=COALESCE(account_balance_derived, 0)-?, "
+            + "total_fees_charge_derived=COALESCE(total_fees_charge_derived, 0)+?, "
+            + "total_penalty_charge_derived=COALESCE(total_penalty_charge_derived, 0)+?, "
+            + "total_annual_fees_derived=COALESCE(total_annual_fees_derived, 0)+? WHERE id=?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountingProcessorHelper accountingProcessorHelper;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
+    private final JournalEntryBatchInserter journalEntryBatchInserter;
+
+    /**
+     * Writes the payments of the given accounts; <code>transactionUserId</code> is recorded on the transactions and
+     * may be <code>null</code>, <code>appUserId</code> is recorded on the journal entries.
+     */
+    public void write(final List<SavingsAccountChargePostingData> accounts, final Long transactionUserId, final Long appUserId) {
+        final List<SavingsAccountChargePaymentData> payments = new ArrayList<>();
+        for (final SavingsAccountChargePostingData account : accounts) {
+            payments.addAll(account.getPayments());
+        }
+        if (payments.isEmpty()) {
+            return;
+        }
+        checkForBranchClosures(accounts);
+        insertTransactions(accounts, payments.size(), transactionUserId);
+
+        final List<Object[]> chargesPaidBy = new ArrayList<>(payments.size());
+        final List<Object[]> balanceTransactions = new ArrayList<>();
+        final List<Object[]> summaries = new ArrayList<>(accounts.size());
+        final List<Object[]> journalEntries = new ArrayList<>();
+        final Map<Long, SavingsAccountChargeDueData> paidCharges = new LinkedHashMap<>();
+        final Date now = new Date();
+        for (final SavingsAccountChargePostingData account : accounts) {
+            if (account.getPayments().isEmpty()) {
+                continue;
+            }
+            if (account.getLastBalanceTransactionId() != null) {
+                balanceTransactions.add(new Object[] { toDate(account.getLastBalanceTransactionEndDate()),
+                        account.getLastBalanceTransactionNumberOfDays(), account.getLastBalanceTransactionCumulativeBalance(),
+                        account.getLastBalanceTransactionId() });
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            BigDecimal fees = BigDecimal.ZERO;
+            BigDecimal penalties = BigDecimal.ZERO;
+            BigDecimal annualFees = BigDecimal.ZERO;
+            for (final SavingsAccountChargePaymentData payment : account.getPayments()) {
+                final SavingsAccountChargeDueData charge = payment.getCharge();
+                chargesPaidBy.add(new Object[] { payment.getTransactionId(), charge.getId(), payment.getAmount() });
+                paidCharges.put(charge.getId(), charge);
+                total = total.add(payment.getAmount());
+                if (payment.getTransactionType().isAnnualFee()) {
+                    annualFees = annualFees.add(payment.getAmount());
+                } else if (charge.isPenalty()) {
+                    penalties = penalties.add(payment.getAmount());
+                } else {
+                    fees = fees.add(payment.getAmount());
+                }
+                if (account.isCashBasedAccounting()) {
+                    addJournalEntries(journalEntries, account, payment, appUserId, now);
+                }
+            }
+            summaries.add(new Object[] { total, fees, penalties, annualFees, account.getId() });
+        }
+
+        this.jdbcTemplate.batchUpdate(INSERT_CHARGE_PAID_BY_SQL, chargesPaidBy);
+        if (!balanceTransactions.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(UPDATE_BALANCE_TRANSACTION_SQL, balanceTransactions);
+        }
+        final List<Object[]> charges = new ArrayList<>(paidCharges.size());
+        for (final SavingsAccountChargeDueData charge : paidCharges.values()) {
+            charges.add(new Object[] { toDate(charge.getDueDate()), charge.getAmountPaid(), charge.getAmountOutstanding(), charge.isPaid(),
+                    charge.isWaived(), charge.getId() });
+        }
+        this.jdbcTemplate.batchUpdate(UPDATE_CHARGE_SQL, charges);
+        this.jdbcTemplate.batchUpdate(UPDATE_SUMMARY_SQL, summaries);
+        this.journalEntryBatchInserter.insertForSavings(journalEntries);
+    }
+
+    private void checkForBranchClosures(final List<SavingsAccountChargePostingData> accounts) {
+        for (final SavingsAccountChargePostingData account : accounts) {
+            if (account.getPayments().isEmpty() || !account.isCashBasedAccounting()) {
+                continue;
+            }
+            final Date latestClosingDate = this.accountingProcessorHelper.getLatestClosingDateByBranch(account.getOfficeId());
+            this.accountingProcessorHelper.checkForBranchClosures(latestClosingDate,
+                    toDate(account.getPayments().get(0).getTransactionDate()));
+        }
+    }
+
+    private void insertTransactions(final List<SavingsAccountChargePostingData> accounts, final int numberOfPayments,
+            final Long transactionUserId) {
+        // ids have to come from the same blocks EclipseLink uses when the pooled sequence is switched on
+        final TenantPooledTableSequence transactionIds = TenantPooledTableSequence.forTable("m_savings_account_transaction");
+        final Timestamp createdDate = new Timestamp(System.currentTimeMillis());
+        this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = transactionIds == null
+                    ? connection.prepareStatement(INSERT_TRANSACTION_SQL, new String[] { "id" })
+                    : connection.prepareStatement(INSERT_TRANSACTION_WITH_ID_SQL)) {
+                final List<SavingsAccountChargePaymentData> payments = new ArrayList<>(numberOfPayments);
+                for (final SavingsAccountChargePostingData account : accounts) {
+                    for (final SavingsAccountChargePaymentData payment : account.getPayments()) {
+                        int index = 1;
+                        if (transactionIds != null) {
+                            payment.setTransactionId(transactionIds.nextId());
+                            statement.setLong(index++, payment.getTransactionId());
+                        }
+                        statement.setLong(index++, account.getId());
+                        statement.setLong(index++, account.getOfficeId());
+                        statement.setInt(index++, payment.getTransactionType().getValue());
+                        statement.setDate(index++, new java.sql.Date(toDate(payment.getTransactionDate()).getTime()));
+                        statement.setBigDecimal(index++, payment.getAmount());
+                        statement.setDate(index++, new java.sql.Date(toDate(payment.getBalanceEndDate()).getTime()));
+                        statement.setInt(index++, payment.getBalanceNumberOfDays());
+                        statement.setBigDecimal(index++, payment.getRunningBalance());
+                        statement.setBigDecimal(index++, payment.getCumulativeBalance());
+                        statement.setTimestamp(index++, createdDate);
+                        statement.setObject(index, transactionUserId);
+                        statement.addBatch();
+                        payments.add(payment);
+                    }
+                }
+                statement.executeBatch();
+                if (transactionIds != null) {
+                    return null;
+                }
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    final Iterator<SavingsAccountChargePaymentData> iterator = payments.iterator();
+                    while (generatedKeys.next() && iterator.hasNext()) {
+                        iterator.next().setTransactionId(generatedKeys.getLong(1));
+                    }
+                    if (iterator.hasNext()) {
+                        throw new DataRetrievalFailureException("Generated ids were not returned for all savings charge transactions");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void addJournalEntries(final List<Object[]> journalEntries, final SavingsAccountChargePostingData account,
+            final SavingsAccountChargePaymentData payment, final Long appUserId, final Date now) {
+        final SavingsAccountChargeDueData charge = payment.getCharge();
+        final Long savingsControlAccountId = coreAccountId(account.getProductId(), CashAccountsForSavings.SAVINGS_CONTROL);
+        final Long chargeAccountId = charge.getChargeGLAccountId() != null ? charge.getChargeGLAccountId()
+                : chargeAccountId(account.getProductId(),
+                        charge.isPenalty() ? CashAccountsForSavings.INCOME_FROM_PENALTIES : CashAccountsForSavings.INCOME_FROM_FEES,
+                        charge.getChargeId());
+        journalEntries.add(journalEntry(account, payment, savingsControlAccountId, JournalEntryType.DEBIT, appUserId, now));
+        journalEntries.add(journalEntry(account, payment, chargeAccountId, JournalEntryType.CREDIT, appUserId, now));
+    }
+
+    private static Object[] journalEntry(final SavingsAccountChargePostingData account, final SavingsAccountChargePaymentData payment,
+            final Long accountId, final JournalEntryType type, final Long appUserId, final Date now) {
+        return JournalEntryBatchInserter.row(accountId, account.getOfficeId(), account.getCurrency().code(),
+                AccountingProcessorHelper.SAVINGS_TRANSACTION_IDENTIFIER + payment.getTransactionId(), payment.getTransactionId(),
+                toDate(payment.getTransactionDate()), type, payment.getAmount(), PortfolioProductType.SAVING.getValue(), account.getId(),
+                appUserId, now);
+    }
+
+    private Long coreAccountId(final Long savingsProductId, final CashAccountsForSavings accountType) {
+        final Long accountId = this.accountMappingResolver.findCoreMappingAccountId(savingsProductId,
+                PortfolioProductType.SAVING.getValue(), accountType.getValue());
+        if (accountId == null) {
+            throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.SAVING, savingsProductId, accountType.toString());
+        }
+        return accountId;
+    }
+
+    private Long chargeAccountId(final Long savingsProductId, final CashAccountsForSavings accountType, final Long chargeId) {
+        final Long accountId = this.accountMappingResolver.findChargeMappingAccountId(savingsProductId,
+                PortfolioProductType.SAVING.getValue(), accountType.getValue(), chargeId);
+        return accountId == null ? coreAccountId(savingsProductId, accountType) : accountId;
+    }
+
+    private static Date toDate(final LocalDate localDate) {
+        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
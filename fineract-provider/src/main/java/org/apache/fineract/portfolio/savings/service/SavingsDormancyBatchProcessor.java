@@ -0,0 +1,297 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings.service;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
+import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
+import org.apache.fineract.portfolio.note.domain.NoteType;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountStatusType;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountSubStatusEnum;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the "Update Savings Dormant Accounts" job: moves the active savings accounts of products with dormancy tracking
+ * from no sub status to inactive, from inactive to dormant and from dormant to escheat once their last deposit or
+ * withdrawal is old enough, leaving a note on every account moved.
+ *
+ * The inactive and dormant transitions are plain sub status changes and are made in chunks of <code>batchSize</code>
+ * accounts, each chunk one JDBC batch of updates conditional on the account still having the sub status it was
+ * selected with, together with the notes of the accounts the updates matched. Accounts with an active savings no
+ * activity fee are made inactive one by one by {@link SavingsAccountWritePlatformService#setSubStatusInactive}, which
+ * pays the fee. Escheats post transactions and journal entries, so they go through
+ * {@link SavingsAccountWritePlatformService#escheat} account by account, in partitions of <code>batchSize</code> accounts
+ * processed on <code>threadPoolSize</code> threads of this node and by the other nodes of the cluster; a failing
+ * account does not stop the others of its partition.
+ */
+@Component
+@RequiredArgsConstructor
+public class SavingsDormancyBatchProcessor implements PartitionedJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SavingsDormancyBatchProcessor.class);
+    private static final String TRANSITION_DATE = "transition-date";
+    private static final String APP_USER_ID = "app-user-id";
+    private static final int MAX_FAILED_ACCOUNTS_REPORTED = 50;
+
+    private static final String INACTIVE_NOTE = "Account made inactive by the Update Savings Dormant Accounts job";
+    private static final String DORMANT_NOTE = "Account made dormant by the Update Savings Dormant Accounts job";
+    private static final String ESCHEAT_NOTE = "Account escheated by the Update Savings Dormant Accounts job";
+
+    private static final String UPDATE_SUB_STATUS_SQL = "UPDATE m_savings_account SET sub_status_enum = ? WHERE id = ? AND status_enum = ? "
+            + "AND sub_status_enum = ?";
+    private static final String INSERT_NOTE_SQL = "INSERT INTO m_note (client_id, savings_account_id, note, note_type_enum, createdby_id, "
+            + "created_date, lastmodifiedby_id, lastmodified_date) SELECT sa.client_id, sa.id, ?, ?, ?, ?, ?, ? FROM m_savings_account sa "
+            + "WHERE sa.id = ?";
+    private static final String NO_ACTIVITY_FEE_ACCOUNTS_SQL = "SELECT DISTINCT sac.savings_account_id FROM m_savings_account_charge sac "
+            + "WHERE sac.is_active = true AND sac.charge_time_enum = ? AND sac.savings_account_id BETWEEN ? AND ?";
+
+    private final SavingsAccountReadPlatformService savingsAccountReadPlatformService;
+    private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditorAware<AppUser> auditorAware;
+    private final JobPartitionService jobPartitionService;
+
+    /**
+     * Makes all transitions due today and returns the counts of the run, also carried by the
+     * {@link JobExecutionException} when accounts failed.
+     */
+    public String updateDormancyStatus(final int threadPoolSize, final int batchSize) throws JobExecutionException {
+        final Long appUserId = this.auditorAware.getCurrentAuditor().map(AppUser::getId).orElse(1L);
+        final LocalDate today = DateUtils.getLocalDateOfTenant();
+        final long start = System.currentTimeMillis();
+        final List<Throwable> errors = new ArrayList<>();
+
+        final List<Long> pendingInactive = sorted(this.savingsAccountReadPlatformService.retrieveSavingsIdsPendingInactive(today));
+        int inactive = 0;
+        int inactiveOneByOne = 0;
+        for (int i = 0; i < pendingInactive.size(); i += batchSize) {
+            final List<Long> chunk = pendingInactive.subList(i, Math.min(i + batchSize, pendingInactive.size()));
+            final Set<Long> withNoActivityFee = retrieveAccountsWithNoActivityFee(chunk);
+            final List<Long> plain = new ArrayList<>(chunk.size());
+            for (final Long savingsId : chunk) {
+                if (!withNoActivityFee.contains(savingsId)) {
+                    plain.add(savingsId);
+                }
+            }
+            inactive += updateSubStatus(plain, SavingsAccountSubStatusEnum.NONE, SavingsAccountSubStatusEnum.INACTIVE, INACTIVE_NOTE,
+                    appUserId);
+
+            final List<Long> madeInactive = new ArrayList<>(withNoActivityFee.size());
+            for (final Long savingsId : sorted(new ArrayList<>(withNoActivityFee))) {
+                try {
+                    this.savingsAccountWritePlatformService.setSubStatusInactive(savingsId);
+                    madeInactive.add(savingsId);
+                } catch (RuntimeException e) {
+                    LOG.error("Making savings account {} inactive failed", savingsId, e);
+                    errors.add(new IllegalStateException("Making savings account " + savingsId + " inactive failed: " + e.getMessage(), e));
+                }
+            }
+            insertNotes(madeInactive, INACTIVE_NOTE, appUserId);
+            inactive += madeInactive.size();
+            inactiveOneByOne += madeInactive.size();
+        }
+
+        final List<Long> pendingDormant = sorted(this.savingsAccountReadPlatformService.retrieveSavingsIdsPendingDormant(today));
+        int dormant = 0;
+        for (int i = 0; i < pendingDormant.size(); i += batchSize) {
+            dormant += updateSubStatus(pendingDormant.subList(i, Math.min(i + batchSize, pendingDormant.size())),
+                    SavingsAccountSubStatusEnum.INACTIVE, SavingsAccountSubStatusEnum.DORMANT, DORMANT_NOTE, appUserId);
+        }
+
+        final long escheatStart = System.currentTimeMillis();
+        final List<Long> pendingEscheat = sorted(this.savingsAccountReadPlatformService.retrieveSavingsIdsPendingEscheat(today));
+        final List<long[]> ranges = new ArrayList<>();
+        for (int i = 0; i < pendingEscheat.size(); i += batchSize) {
+            ranges.add(new long[] { pendingEscheat.get(i), pendingEscheat.get(Math.min(i + batchSize, pendingEscheat.size()) - 1) });
+        }
+        final Map<String, String> context = new HashMap<>();
+        context.put(TRANSITION_DATE, today.toString());
+        context.put(APP_USER_ID, String.valueOf(appUserId));
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(JobName.UPDATE_SAVINGS_DORMANT_ACCOUNTS, context, ranges,
+                threadPoolSize);
+        int escheated = 0;
+        int escheatsFailed = 0;
+        for (final JobPartitionData partition : partitions) {
+            final EscheatSummary summary = EscheatSummary.fromMap(partition.getResult());
+            escheated += summary.escheated;
+            escheatsFailed += summary.failed;
+            if (summary.failed > 0) {
+                errors.add(new IllegalStateException("Escheat failed for " + summary.failed + " savings accounts of partition "
+                        + partition.getPartitionNo() + ": " + summary.failedAccounts));
+            }
+        }
+        errors.addAll(JobPartitionService.failures(partitions));
+        final long escheatMillis = System.currentTimeMillis() - escheatStart;
+        final long escheatsPerSecond = escheatMillis == 0 ? escheated : escheated * 1000L / escheatMillis;
+
+        final String summary = String.format(
+                "%d accounts made inactive (%d one by one), %d made dormant, %d escheated in %d ms (%d accounts/s), %d escheats failed, "
+                        + "%d failures in total, %d ms",
+                inactive, inactiveOneByOne, dormant, escheated, escheatMillis, escheatsPerSecond, escheatsFailed, errors.size(),
+                System.currentTimeMillis() - start);
+        LOG.info("Savings dormancy: {}", summary);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(summary, errors);
+        }
+        return summary;
+    }
+
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.UPDATE_SAVINGS_DORMANT_ACCOUNTS);
+    }
+
+    /**
+     * Escheats the accounts of the partition's range still pending escheat on the transition date, one by one; the
+     * accounts failing are reported back in the result rather than failing the partition.
+     */
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) {
+        final Map<String, String> context = partition.getContext();
+        final LocalDate transitionDate = LocalDate.parse(context.get(TRANSITION_DATE));
+        final Long appUserId = Long.valueOf(context.get(APP_USER_ID));
+        final EscheatSummary summary = new EscheatSummary();
+        final List<Long> escheated = new ArrayList<>();
+        for (final Long savingsId : this.savingsAccountReadPlatformService.retrieveSavingsIdsPendingEscheat(transitionDate,
+                partition.getRangeFrom(), partition.getRangeTo())) {
+            try {
+                this.savingsAccountWritePlatformService.escheat(savingsId);
+                escheated.add(savingsId);
+            } catch (RuntimeException e) {
+                LOG.error("Escheat of savings account {} failed", savingsId, e);
+                summary.addFailure(savingsId);
+            }
+        }
+        insertNotes(escheated, ESCHEAT_NOTE, appUserId);
+        summary.escheated = escheated.size();
+        return summary.toMap();
+    }
+
+    /**
+     * Moves the accounts still active with the sub status <code>from</code> to <code>to</code> and notes the ones
+     * moved, in one transaction.
+     */
+    private int updateSubStatus(final List<Long> savingsIds, final SavingsAccountSubStatusEnum from, final SavingsAccountSubStatusEnum to,
+            final String note, final Long appUserId) {
+        if (savingsIds.isEmpty()) {
+            return 0;
+        }
+        final Integer updated = this.transactionTemplate.execute(status -> {
+            final List<Object[]> updates = new ArrayList<>(savingsIds.size());
+            for (final Long savingsId : savingsIds) {
+                updates.add(new Object[] { to.getValue(), savingsId, SavingsAccountStatusType.ACTIVE.getValue(), from.getValue() });
+            }
+            final int[] counts = this.jdbcTemplate.batchUpdate(UPDATE_SUB_STATUS_SQL, updates);
+            final List<Long> moved = new ArrayList<>(savingsIds.size());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    moved.add(savingsIds.get(i));
+                }
+            }
+            insertNotes(moved, note, appUserId);
+            return moved.size();
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    private void insertNotes(final List<Long> savingsIds, final String note, final Long appUserId) {
+        if (savingsIds.isEmpty()) {
+            return;
+        }
+        final Date now = new Date();
+        final List<Object[]> notes = new ArrayList<>(savingsIds.size());
+        for (final Long savingsId : savingsIds) {
+            notes.add(new Object[] { note, NoteType.SAVING_ACCOUNT.getValue(), appUserId, now, appUserId, now, savingsId });
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_NOTE_SQL, notes);
+    }
+
+    private Set<Long> retrieveAccountsWithNoActivityFee(final List<Long> savingsIds) {
+        if (savingsIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<Long> accounts = new HashSet<>(this.jdbcTemplate.queryForList(NO_ACTIVITY_FEE_ACCOUNTS_SQL, Long.class,
+                ChargeTimeType.SAVINGS_NOACTIVITY_FEE.getValue(), savingsIds.get(0), savingsIds.get(savingsIds.size() - 1)));
+        // the id range also covers accounts that are not pending inactive, such as dormant or closed ones
+        accounts.retainAll(new HashSet<>(savingsIds));
+        return accounts;
+    }
+
+    private static List<Long> sorted(final List<Long> savingsIds) {
+        if (savingsIds == null) {
+            return new ArrayList<>();
+        }
+        final List<Long> sorted = new ArrayList<>(savingsIds);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static final class EscheatSummary {
+
+        private int escheated;
+        private int failed;
+        private final List<Long> failedAccounts = new ArrayList<>();
+
+        void addFailure(final Long savingsId) {
+            this.failed++;
+            // only the first ones are reported, to keep the result within the size of the partition result column
+            if (this.failedAccounts.size() < MAX_FAILED_ACCOUNTS_REPORTED) {
+                this.failedAccounts.add(savingsId);
+            }
+        }
+
+        Map<String, String> toMap() {
+            return Map.of("escheated", String.valueOf(this.escheated), "failed", String.valueOf(this.failed), "failedAccounts",
+                    StringUtils.join(this.failedAccounts, ","));
+        }
+
+        static EscheatSummary fromMap(final Map<String, String> map) {
+            final EscheatSummary summary = new EscheatSummary();
+            summary.escheated = Integer.parseInt(map.getOrDefault("escheated", "0"));
+            summary.failed = Integer.parseInt(map.getOrDefault("failed", "0"));
+            for (final String savingsId : StringUtils.split(map.getOrDefault("failedAccounts", ""), ',')) {
+                summary.failedAccounts.add(Long.valueOf(savingsId));
+            }
+            return summary;
+        }
+    }
+}
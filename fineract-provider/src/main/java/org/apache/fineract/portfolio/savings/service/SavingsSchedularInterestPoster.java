@@ -34,6 +34,7 @@ import org.apache.fineract.batch.command.CommandStrategyProvider;
 import org.apache.fineract.batch.service.ResolutionHelper;
 import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.persistence.TenantPooledTableSequence;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
@@ -217,7 +218,9 @@ public class SavingsSchedularInterestPoster implements Callable<Void> {
     private void batchUpdateJournalEntries(final List<SavingsAccountData> savingsAccountDataList,
             final HashMap<String, SavingsAccountTransactionData> savingsAccountTransactionDataHashMap)
             throws DataAccessException, NullPointerException {
-        String queryForJGLUpdate = batchQueryForJournalEntries();
+        // ids have to come from the same blocks EclipseLink uses when the pooled sequence is switched on
+        final TenantPooledTableSequence journalEntryIds = TenantPooledTableSequence.forTable("acc_gl_journal_entry");
+        String queryForJGLUpdate = batchQueryForJournalEntries(journalEntryIds != null);
         List<Object[]> paramsForGLInsertion = new ArrayList<>();
         for (SavingsAccountData savingsAccountData : savingsAccountDataList) {
             String currencyCode = savingsAccountData.getCurrency().getCode();
@@ -267,19 +270,41 @@ public class SavingsSchedularInterestPoster implements Callable<Void> {
         }
 
         if (paramsForGLInsertion != null && paramsForGLInsertion.size() > 0) {
-            this.jdbcTemplate.batchUpdate(queryForJGLUpdate, paramsForGLInsertion);
+            this.jdbcTemplate.batchUpdate(queryForJGLUpdate, withPooledIds(journalEntryIds, paramsForGLInsertion));
         }
     }
 
-    private String batchQueryForJournalEntries() {
+    private static List<Object[]> withPooledIds(final TenantPooledTableSequence ids, final List<Object[]> params) {
+        if (ids == null) {
+            return params;
+        }
+        final List<Object[]> paramsWithIds = new ArrayList<>(params.size());
+        for (final Object[] row : params) {
+            final Object[] rowWithId = new Object[row.length + 1];
+            rowWithId[0] = ids.nextId();
+            System.arraycopy(row, 0, rowWithId, 1, row.length);
+            paramsWithIds.add(rowWithId);
+        }
+        return paramsWithIds;
+    }
+
+    private String batchQueryForJournalEntries(final boolean withId) {
         StringBuilder query = new StringBuilder(100);
 
-        query.append("INSERT INTO acc_gl_journal_entry(account_id,office_id,reversal_id,currency_code,transaction_id,");
+        query.append("INSERT INTO acc_gl_journal_entry(");
+        if (withId) {
+            query.append("id,");
+        }
+        query.append("account_id,office_id,reversal_id,currency_code,transaction_id,");
         query.append("savings_transaction_id,client_transaction_id,reversed,ref_num,manual_entry,entry_date,type_enum,");
         query.append("amount,description,entity_type_enum,entity_id,created_date,");
         query.append("lastmodified_date,is_running_balance_calculated,office_running_balance,organization_running_balance,");
         query.append("payment_details_id,transaction_date,share_transaction_id, createdby_id, lastmodifiedby_id) ");
-        query.append("VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        query.append("VALUES (");
+        if (withId) {
+            query.append("?, ");
+        }
+        query.append("?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
 
         return query.toString();
     }
@@ -292,7 +317,8 @@ public class SavingsSchedularInterestPoster implements Callable<Void> {
     @SuppressWarnings("unused")
     private void batchUpdate(final List<SavingsAccountData> savingsAccountDataList) throws DataAccessException {
         String queryForSavingsUpdate = batchQueryForSavingsSummaryUpdate();
-        String queryForTransactionInsertion = batchQueryForTransactionInsertion();
+        final TenantPooledTableSequence transactionIds = TenantPooledTableSequence.forTable("m_savings_account_transaction");
+        String queryForTransactionInsertion = batchQueryForTransactionInsertion(transactionIds != null);
         List<Object[]> paramsForTransactionInsertion = new ArrayList<>();
         List<Object[]> paramsForSavingsSummary = new ArrayList<>();
         List<String> transRefNo = new ArrayList<>();
@@ -336,7 +362,7 @@ public class SavingsSchedularInterestPoster implements Callable<Void> {
 
         if (transRefNo.size() > 0) {
             this.jdbcTemplate.batchUpdate(queryForSavingsUpdate, paramsForSavingsSummary);
-            this.jdbcTemplate.batchUpdate(queryForTransactionInsertion, paramsForTransactionInsertion);
+            this.jdbcTemplate.batchUpdate(queryForTransactionInsertion, withPooledIds(transactionIds, paramsForTransactionInsertion));
 
             List<SavingsAccountTransactionData> savingsAccountTransactionDataList = fetchTransactionsFromIds(transRefNo);
             if (savingsAccountDataList != null) {
@@ -353,13 +379,20 @@ public class SavingsSchedularInterestPoster implements Callable<Void> {
 
     }
 
-    private String batchQueryForTransactionInsertion() {
+    private String batchQueryForTransactionInsertion(final boolean withId) {
         StringBuilder query = new StringBuilder(100);
-        query.append("INSERT INTO m_savings_account_transaction (savings_account_id, office_id, is_reversed,");
+        query.append("INSERT INTO m_savings_account_transaction (");
+        if (withId) {
+            query.append("id, ");
+        }
+        query.append("savings_account_id, office_id, is_reversed,");
         query.append("transaction_type_enum, transaction_date, amount, balance_end_date_derived,");
         query.append("balance_number_of_days_derived, running_balance_derived, cumulative_balance_derived,");
-        query.append("created_date, appuser_id, is_manual, is_loan_disbursement, ref_no) VALUES ");
-        query.append("(?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?)");
+        query.append("created_date, appuser_id, is_manual, is_loan_disbursement, ref_no) VALUES (");
+        if (withId) {
+            query.append("?, ");
+        }
+        query.append("?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?)");
         return query.toString();
 
     }
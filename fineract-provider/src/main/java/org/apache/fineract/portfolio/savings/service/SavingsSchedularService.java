@@ -25,6 +25,6 @@ public interface SavingsSchedularService {
 
     void postInterestForAccounts(Map<String, String> jobParameters) throws JobExecutionException;
 
-    void updateSavingsDormancyStatus() throws JobExecutionException;
+    String updateSavingsDormancyStatus(Map<String, String> jobParameters) throws JobExecutionException;
 
 }
@@ -20,26 +20,18 @@ package org.apache.fineract.portfolio.savings.service;
 
 import static org.apache.fineract.portfolio.savings.domain.SavingsAccountStatusType.ACTIVE;
 
-import java.time.LocalDate;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import org.apache.commons.collections4.CollectionUtils;
+import java.util.Set;
 import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
-import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
-import org.apache.fineract.infrastructure.core.service.DateUtils;
 import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
 import org.apache.fineract.portfolio.savings.data.SavingsAccountData;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountAssembler;
 import org.apache.fineract.portfolio.savings.domain.SavingsAccountRepositoryWrapper;
@@ -52,9 +44,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
-public class SavingsSchedularServiceImpl implements SavingsSchedularService {
+public class SavingsSchedularServiceImpl implements SavingsSchedularService, PartitionedJob {
 
     private static final Logger LOG = LoggerFactory.getLogger(SavingsSchedularServiceImpl.class);
+    private static final String THREAD_POOL_SIZE = "thread-pool-size";
+    private static final String BATCH_SIZE = "batch-size";
+    private static final int DORMANCY_THREAD_POOL_SIZE = 4;
+    private static final int DORMANCY_BATCH_SIZE = 500;
 
     private final SavingsAccountAssembler savingAccountAssembler;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
@@ -64,8 +60,8 @@ public class SavingsSchedularServiceImpl implements SavingsSchedularService {
     private final ConfigurationDomainService configurationDomainService;
     private final JdbcTemplate jdbcTemplate;
     private final TransactionTemplate transactionTemplate;
-    private Queue<List<SavingsAccountData>> queue = new ArrayDeque<>();
-    private int queueSize = 1;
+    private final JobPartitionService jobPartitionService;
+    private final SavingsDormancyBatchProcessor savingsDormancyBatchProcessor;
 
     @Autowired
     public SavingsSchedularServiceImpl(final SavingsAccountAssembler savingAccountAssembler,
@@ -73,7 +69,8 @@ public class SavingsSchedularServiceImpl implements SavingsSchedularService {
             final SavingsAccountReadPlatformService savingAccountReadPlatformService,
             final SavingsAccountRepositoryWrapper savingsAccountRepository, final ApplicationContext applicationContext,
             final ConfigurationDomainService configurationDomainService, final JdbcTemplate jdbcTemplate,
-            final TransactionTemplate transactionTemplate) {
+            final TransactionTemplate transactionTemplate, final JobPartitionService jobPartitionService,
+            final SavingsDormancyBatchProcessor savingsDormancyBatchProcessor) {
         this.savingAccountAssembler = savingAccountAssembler;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingAccountReadPlatformService = savingAccountReadPlatformService;
@@ -82,99 +79,64 @@ public class SavingsSchedularServiceImpl implements SavingsSchedularService {
         this.configurationDomainService = configurationDomainService;
         this.jdbcTemplate = jdbcTemplate;
         this.transactionTemplate = transactionTemplate;
+        this.jobPartitionService = jobPartitionService;
+        this.savingsDormancyBatchProcessor = savingsDormancyBatchProcessor;
     }
 
+    /**
+     * Posts the interest of the active savings accounts in partitions of <code>batch-size</code> accounts, processed on
+     * <code>thread-pool-size</code> threads of this node and by the other nodes of the cluster.
+     */
     @Override
     @CronTarget(jobName = JobName.POST_INTEREST_FOR_SAVINGS)
     public void postInterestForAccounts(Map<String, String> jobParameters) throws JobExecutionException {
-
-        final int threadPoolSize = Integer.parseInt(jobParameters.get("thread-pool-size"));
-        final int batchSize = Integer.parseInt(jobParameters.get("batch-size"));
-        final int pageSize = batchSize * threadPoolSize;
-        Long maxSavingsIdInList = 0L;
-        // initialise the executor service with fetched configurations
-        final ExecutorService executorService = Executors.newFixedThreadPool(threadPoolSize);
-        final boolean backdatedTxnsAllowedTill = this.configurationDomainService.retrievePivotDateConfig();
-
-        long start = System.currentTimeMillis();
-
-        LOG.info("Reading Savings Account Data!");
-        List<SavingsAccountData> savingsAccounts = this.savingAccountReadPlatformService
-                .retrieveAllSavingsDataForInterestPosting(backdatedTxnsAllowedTill, pageSize, ACTIVE.getValue(), maxSavingsIdInList);
-
-        if (savingsAccounts != null && savingsAccounts.size() > 0) {
-            savingsAccounts = Collections.synchronizedList(savingsAccounts);
-            long finish = System.currentTimeMillis();
-            LOG.info("Done fetching Data within {} milliseconds", finish - start);
-            if (savingsAccounts != null) {
-                queue.add(savingsAccounts);
-            }
-
-            if (!CollectionUtils.isEmpty(queue)) {
-                do {
-                    int totalFilteredRecords = savingsAccounts.size();
-                    LOG.info("Starting Interest posting - total records - {}", totalFilteredRecords);
-                    List<SavingsAccountData> queueElement = queue.element();
-                    maxSavingsIdInList = queueElement.get(queueElement.size() - 1).getId();
-                    postInterest(queue.remove(), threadPoolSize, batchSize, executorService, backdatedTxnsAllowedTill, pageSize,
-                            maxSavingsIdInList);
-                } while (!CollectionUtils.isEmpty(queue));
-            }
-            // shutdown the executor when done
-            executorService.shutdownNow();
+        final int threadPoolSize = Integer.parseInt(jobParameters.get(THREAD_POOL_SIZE));
+        final int batchSize = Integer.parseInt(jobParameters.get(BATCH_SIZE));
+        final long start = System.currentTimeMillis();
+
+        final List<long[]> ranges = new ArrayList<>();
+        List<Long> savingsIds = retrieveActiveSavingsIds(0L, batchSize);
+        while (!savingsIds.isEmpty()) {
+            final Long lastSavingsId = savingsIds.get(savingsIds.size() - 1);
+            ranges.add(new long[] { savingsIds.get(0), lastSavingsId });
+            savingsIds = retrieveActiveSavingsIds(lastSavingsId, batchSize);
         }
-    }
-
-    private void postInterest(List<SavingsAccountData> savingsAccounts, int threadPoolSize, int batchSize, ExecutorService executorService,
-            final boolean backdatedTxnsAllowedTill, final int pageSize, Long maxSavingsIdInList) {
-        List<Callable<Void>> posters = new ArrayList<>();
-        int fromIndex = 0;
-        // get the size of current paginated dataset
-        int size = savingsAccounts.size();
-        // calculate the batch size
-        batchSize = (int) Math.ceil((double) size / threadPoolSize);
 
-        if (batchSize == 0) {
-            return;
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(JobName.POST_INTEREST_FOR_SAVINGS,
+                Map.of(BATCH_SIZE, String.valueOf(batchSize)), ranges, threadPoolSize);
+        int accounts = 0;
+        for (final JobPartitionData partition : partitions) {
+            accounts += Integer.parseInt(partition.getResult().getOrDefault("accounts", "0"));
         }
-
-        int toIndex = (batchSize > size - 1) ? size : batchSize;
-        while (toIndex < size && savingsAccounts.get(toIndex - 1).getId().equals(savingsAccounts.get(toIndex).getId())) {
-            toIndex++;
+        final List<Throwable> errors = JobPartitionService.failures(partitions);
+        LOG.info("Interest posting: {} partitions, {} accounts, {} failed partitions in {} ms", partitions.size(), accounts, errors.size(),
+                System.currentTimeMillis() - start);
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
         }
-        boolean lastBatch = false;
-        int loopCount = size / batchSize + 1;
-
-        FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
-        Long finalMaxSavingsIdInList = maxSavingsIdInList;
+    }
 
-        Callable<Void> fetchData = () -> {
-            ThreadLocalContextUtil.setTenant(tenant);
-            Long maxId = finalMaxSavingsIdInList;
-            if (!queue.isEmpty()) {
-                maxId = Math.max(finalMaxSavingsIdInList, queue.element().get(queue.element().size() - 1).getId());
-            }
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.POST_INTEREST_FOR_SAVINGS);
+    }
 
-            while (queue.size() <= queueSize) {
-                LOG.info("Fetching while threads are running!");
-                List<SavingsAccountData> savingsAccountDataList = Collections.synchronizedList(this.savingAccountReadPlatformService
-                        .retrieveAllSavingsDataForInterestPosting(backdatedTxnsAllowedTill, pageSize, ACTIVE.getValue(), maxId));
-                if (savingsAccountDataList == null || savingsAccountDataList.isEmpty()) {
-                    break;
-                }
-                maxId = savingsAccountDataList.get(savingsAccountDataList.size() - 1).getId();
-                queue.add(savingsAccountDataList);
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) throws JobExecutionException {
+        final boolean backdatedTxnsAllowedTill = this.configurationDomainService.retrievePivotDateConfig();
+        final List<SavingsAccountData> savingsAccounts = new ArrayList<>();
+        for (final SavingsAccountData savingsAccount : this.savingAccountReadPlatformService.retrieveAllSavingsDataForInterestPosting(
+                backdatedTxnsAllowedTill, Integer.parseInt(partition.getContext().get(BATCH_SIZE)), ACTIVE.getValue(),
+                partition.getRangeFrom() - 1)) {
+            if (savingsAccount.getId() <= partition.getRangeTo()) {
+                savingsAccounts.add(savingsAccount);
             }
-            return null;
-        };
-        posters.add(fetchData);
-
-        for (long i = 0; i < loopCount; i++) {
-            List<SavingsAccountData> subList = safeSubList(savingsAccounts, fromIndex, toIndex);
+        }
+        if (!savingsAccounts.isEmpty()) {
             SavingsSchedularInterestPoster poster = (SavingsSchedularInterestPoster) this.applicationContext
                     .getBean("savingsSchedularInterestPoster");
-            poster.setSavings(subList);
-            poster.setTenant(tenant);
+            poster.setSavings(savingsAccounts);
+            poster.setTenant(ThreadLocalContextUtil.getTenant());
             poster.setSavingsAccountWritePlatformService(savingsAccountWritePlatformService);
             poster.setSavingsAccountReadPlatformService(savingAccountReadPlatformService);
             poster.setSavingsAccountRepository(savingsAccountRepository);
@@ -183,109 +145,32 @@ public class SavingsSchedularServiceImpl implements SavingsSchedularService {
             poster.setBackdatedTxnsAllowedTill(backdatedTxnsAllowedTill);
             poster.setTransactionTemplate(transactionTemplate);
             poster.setConfigurationDomainService(configurationDomainService);
-
-            posters.add(poster);
-
-            if (lastBatch) {
-                break;
-            }
-            if (toIndex + batchSize > size - 1) {
-                lastBatch = true;
-            }
-            fromIndex = fromIndex + (toIndex - fromIndex);
-            toIndex = (toIndex + batchSize > size - 1) ? size : toIndex + batchSize;
-            while (toIndex < size && savingsAccounts.get(toIndex - 1).getId().equals(savingsAccounts.get(toIndex).getId())) {
-                toIndex++;
-            }
-        }
-
-        try {
-            List<Future<Void>> responses = executorService.invokeAll(posters);
-            Long maxId = maxSavingsIdInList;
-            if (!queue.isEmpty()) {
-                maxId = Math.max(maxSavingsIdInList, queue.element().get(queue.element().size() - 1).getId());
-            }
-
-            while (queue.size() <= queueSize) {
-                LOG.info("Fetching while threads are running!..:: this is not supposed to run........");
-                savingsAccounts = Collections.synchronizedList(this.savingAccountReadPlatformService
-                        .retrieveAllSavingsDataForInterestPosting(backdatedTxnsAllowedTill, pageSize, ACTIVE.getValue(), maxId));
-                if (savingsAccounts == null || savingsAccounts.isEmpty()) {
-                    break;
-                }
-                maxId = savingsAccounts.get(savingsAccounts.size() - 1).getId();
-                LOG.info("Add to the Queue");
-                queue.add(savingsAccounts);
-            }
-
-            checkCompletion(responses);
-            LOG.info("Queue size {}", queue.size());
-        } catch (InterruptedException e1) {
-            LOG.error("Interrupted while postInterest", e1);
+            poster.call();
         }
+        return Map.of("accounts", String.valueOf(savingsAccounts.size()));
     }
 
-    // break the lists into sub lists
-    public <T> List<T> safeSubList(List<T> list, int fromIndex, int toIndex) {
-        int size = list.size();
-        if (fromIndex >= size || toIndex <= 0 || fromIndex >= toIndex) {
-            return Collections.emptyList();
-        }
-
-        fromIndex = Math.max(0, fromIndex);
-        toIndex = Math.min(size, toIndex);
-
-        return list.subList(fromIndex, toIndex);
-    }
-
-    // checks the execution of task by each thread in the executor service
-    private void checkCompletion(List<Future<Void>> responses) {
-        try {
-            for (Future f : responses) {
-                f.get();
-            }
-            boolean allThreadsExecuted = false;
-            int noOfThreadsExecuted = 0;
-            for (Future<Void> future : responses) {
-                if (future.isDone()) {
-                    noOfThreadsExecuted++;
-                }
-            }
-            allThreadsExecuted = noOfThreadsExecuted == responses.size();
-            if (!allThreadsExecuted) {
-                LOG.error("All threads could not execute.");
-            }
-        } catch (InterruptedException e1) {
-            LOG.error("Interrupted while interest posting entries", e1);
-        } catch (ExecutionException e2) {
-            LOG.error("Execution exception while interest posting entries", e2);
-        }
+    private List<Long> retrieveActiveSavingsIds(final Long afterSavingsId, final int limit) {
+        return this.jdbcTemplate.queryForList("SELECT id FROM m_savings_account WHERE id > ? AND status_enum = ? ORDER BY id LIMIT ?",
+                Long.class, afterSavingsId, ACTIVE.getValue(), limit);
     }
 
+    /**
+     * Moves the savings accounts due for it to inactive, dormant and escheat in chunks of <code>batch-size</code>
+     * accounts, the escheats on <code>thread-pool-size</code> threads, see {@link SavingsDormancyBatchProcessor}.
+     *
+     * @return the counts of the run, recorded in the job run history
+     */
     @Override
     @CronTarget(jobName = JobName.UPDATE_SAVINGS_DORMANT_ACCOUNTS)
-    public void updateSavingsDormancyStatus() throws JobExecutionException {
-        LocalDate tenantLocalDate = DateUtils.getLocalDateOfTenant();
-
-        List<Long> savingsPendingInactive = savingAccountReadPlatformService.retrieveSavingsIdsPendingInactive(tenantLocalDate);
-        if (null != savingsPendingInactive && savingsPendingInactive.size() > 0) {
-            for (Long savingsId : savingsPendingInactive) {
-                this.savingsAccountWritePlatformService.setSubStatusInactive(savingsId);
-            }
-        }
-
-        List<Long> savingsPendingDormant = savingAccountReadPlatformService.retrieveSavingsIdsPendingDormant(tenantLocalDate);
-        if (null != savingsPendingDormant && savingsPendingDormant.size() > 0) {
-            for (Long savingsId : savingsPendingDormant) {
-                this.savingsAccountWritePlatformService.setSubStatusDormant(savingsId);
-            }
-        }
+    public String updateSavingsDormancyStatus(final Map<String, String> jobParameters) throws JobExecutionException {
+        return this.savingsDormancyBatchProcessor.updateDormancyStatus(
+                readJobParameter(jobParameters, THREAD_POOL_SIZE, DORMANCY_THREAD_POOL_SIZE),
+                readJobParameter(jobParameters, BATCH_SIZE, DORMANCY_BATCH_SIZE));
+    }
 
-        List<Long> savingsPendingEscheat = savingAccountReadPlatformService.retrieveSavingsIdsPendingEscheat(tenantLocalDate);
-        if (null != savingsPendingEscheat && savingsPendingEscheat.size() > 0) {
-            for (Long savingsId : savingsPendingEscheat) {
-                this.savingsAccountWritePlatformService.escheat(savingsId);
-            }
-        }
+    private static int readJobParameter(final Map<String, String> jobParameters, final String name, final int defaultValue) {
+        final String value = jobParameters == null ? null : jobParameters.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
     }
 }
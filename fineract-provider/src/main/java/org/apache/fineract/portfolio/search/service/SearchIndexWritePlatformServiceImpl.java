@@ -0,0 +1,297 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.search.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains <code>m_search_index</code>, the token table behind GET /search.
+ *
+ * Clients (with their identifiers), groups, loans and savings accounts are re-indexed after every command that may
+ * change their searchable fields, once the command has committed; a failure there is logged and never fails the
+ * command. The loans and savings accounts of a client or group are re-indexed with it, since its commands may create
+ * them. The index holds no office: the search restricts its matches to the offices of the user on the entities
+ * themselves, so moving an office or an entity needs no re-indexing. The "Rebuild Search Index" job re-indexes everything in
+ * batches of "batch-size" entities and purges the entries of deleted entities, and only after its first complete run
+ * does the search use the index.
+ */
+@Service
+public class SearchIndexWritePlatformServiceImpl implements SearchIndexWritePlatformService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndexWritePlatformServiceImpl.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    static final String CLIENT = "CLIENT";
+    static final String CLIENT_IDENTIFIER = "CLIENTIDENTIFIER";
+    static final String GROUP = "GROUP";
+    static final String LOAN = "LOAN";
+    static final String SAVING = "SAVING";
+
+    private static final IndexSource CLIENT_SOURCE = new IndexSource(CLIENT, "m_client", "c",
+            "select c.id as id, c.display_name, c.account_no, c.external_id, c.mobile_no from m_client c");
+    private static final IndexSource CLIENT_IDENTIFIER_SOURCE = new IndexSource(CLIENT_IDENTIFIER, "m_client_identifier", "ci",
+            "select ci.id as id, ci.document_key from m_client_identifier ci");
+    private static final IndexSource GROUP_SOURCE = new IndexSource(GROUP, "m_group", "g",
+            "select g.id as id, g.display_name, g.account_no, g.external_id, g.id from m_group g");
+    private static final IndexSource LOAN_SOURCE = new IndexSource(LOAN, "m_loan", "l",
+            "select l.id as id, l.account_no, l.external_id from m_loan l");
+    private static final IndexSource SAVING_SOURCE = new IndexSource(SAVING, "m_savings_account", "s",
+            "select s.id as id, s.account_no, s.external_id from m_savings_account s");
+    private static final List<IndexSource> SOURCES = List.of(CLIENT_SOURCE, CLIENT_IDENTIFIER_SOURCE, GROUP_SOURCE, LOAN_SOURCE,
+            SAVING_SOURCE);
+
+    private static final String INSERT_SQL = "insert into m_search_index (token, entity_type, entity_id) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSpecificSQLGenerator sqlGenerator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SearchIndexWritePlatformServiceImpl(final JdbcTemplate jdbcTemplate, final DatabaseSpecificSQLGenerator sqlGenerator,
+            final PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlGenerator = sqlGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void reindexAfterCommit(final String entityName, final String actionName, final CommandProcessingResult result) {
+        final Runnable reindex = reindexTask(entityName, actionName, result);
+        if (reindex == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runQuietly(reindex, entityName);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void afterCommit() {
+                runQuietly(reindex, entityName);
+            }
+        });
+    }
+
+    private Runnable reindexTask(final String entityName, final String actionName, final CommandProcessingResult result) {
+        final boolean accountDetailsChanged = "CREATE".equals(actionName) || "UPDATE".equals(actionName) || "DELETE".equals(actionName);
+        switch (entityName) {
+            case "CLIENT":
+            case "CLIENTIDENTIFIER":
+                final Long clientId = result.getClientId() != null || CLIENT_IDENTIFIER.equals(entityName) ? result.getClientId()
+                        : result.resourceId();
+                return clientId == null ? null : () -> {
+                    reindex(CLIENT_SOURCE, clientId);
+                    reindexOwnedBy(CLIENT_IDENTIFIER_SOURCE, "client_id", clientId);
+                    reindexOwnedBy(LOAN_SOURCE, "client_id", clientId);
+                    reindexOwnedBy(SAVING_SOURCE, "client_id", clientId);
+                };
+            case "GROUP":
+            case "CENTER":
+                final Long groupId = result.getGroupId() != null ? result.getGroupId() : result.resourceId();
+                return groupId == null ? null : () -> {
+                    reindex(GROUP_SOURCE, groupId);
+                    reindexOwnedBy(LOAN_SOURCE, "group_id", groupId);
+                    reindexOwnedBy(SAVING_SOURCE, "group_id", groupId);
+                };
+            case "LOAN":
+                final Long loanId = result.getLoanId() != null ? result.getLoanId() : result.resourceId();
+                return !accountDetailsChanged || loanId == null ? null : () -> reindex(LOAN_SOURCE, loanId);
+            case "SAVINGSACCOUNT":
+                final Long savingsId = result.getSavingsId() != null ? result.getSavingsId() : result.resourceId();
+                return !accountDetailsChanged || savingsId == null ? null : () -> reindex(SAVING_SOURCE, savingsId);
+            default:
+                return null;
+        }
+    }
+
+    private void runQuietly(final Runnable reindex, final String entityName) {
+        try {
+            reindex.run();
+        } catch (final RuntimeException e) {
+            // the next rebuild of the index picks the entity up
+            LOG.warn("Updating the search index after a {} command failed: {}", entityName, e.getMessage(), e);
+        }
+    }
+
+    private void reindex(final IndexSource source, final Long id) {
+        final List<IndexedEntity> entities = this.jdbcTemplate.query(source.sql + " where " + source.alias + ".id = ?", source, id);
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.jdbcTemplate.update("delete from m_search_index where entity_type = ? and entity_id = ?", source.entityType, id);
+            insert(source.entityType, entities);
+        });
+    }
+
+    private void reindexOwnedBy(final IndexSource source, final String ownerColumn, final Long ownerId) {
+        final List<IndexedEntity> entities = this.jdbcTemplate.query(source.sql + " where " + source.alias + "." + ownerColumn + " = ?",
+                source, ownerId);
+        this.transactionTemplate.executeWithoutResult(status -> replace(source.entityType, entities));
+    }
+
+    @Override
+    public void rebuildSearchIndex() throws JobExecutionException {
+        rebuildSearchIndex(Collections.emptyMap());
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.REBUILD_SEARCH_INDEX)
+    public void rebuildSearchIndex(final Map<String, String> jobParameters) throws JobExecutionException {
+        final String batchSizeParameter = jobParameters.get("batch-size");
+        final int batchSize = batchSizeParameter == null ? DEFAULT_BATCH_SIZE : Integer.parseInt(batchSizeParameter.trim());
+
+        // the id generated for this build's own row, another build may start at the same time
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement("insert into m_search_index_build (started_at) values (?)",
+                    new String[] { "id" });
+            statement.setObject(1, DateUtils.getLocalDateTimeOfTenant());
+            return statement;
+        }, keyHolder);
+        final Long buildId = keyHolder.getKey().longValue();
+
+        final List<Throwable> errors = new ArrayList<>();
+        long entries = 0;
+        for (final IndexSource source : SOURCES) {
+            try {
+                entries += rebuild(source, batchSize);
+            } catch (final RuntimeException e) {
+                LOG.error("Rebuilding the search index of {} failed", source.entityType, e);
+                errors.add(e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new JobExecutionException(errors);
+        }
+
+        this.jdbcTemplate.update("update m_search_index_build set completed_at = ?, entries = ? where id = ?",
+                DateUtils.getLocalDateTimeOfTenant(), entries, buildId);
+        LOG.info("Rebuilt the search index: {} entries", entries);
+    }
+
+    private long rebuild(final IndexSource source, final int batchSize) {
+        final String sql = source.sql + " where " + source.alias + ".id > ? order by " + source.alias + ".id "
+                + this.sqlGenerator.limit(batchSize);
+        long entries = 0;
+        long lastId = 0;
+        List<IndexedEntity> batch;
+        do {
+            batch = this.jdbcTemplate.query(sql, source, lastId);
+            if (batch.isEmpty()) {
+                break;
+            }
+            final List<IndexedEntity> entities = batch;
+            entries += this.transactionTemplate.execute(status -> replace(source.entityType, entities));
+            lastId = batch.get(batch.size() - 1).id;
+        } while (batch.size() == batchSize);
+
+        this.jdbcTemplate.update("delete from m_search_index where entity_type = ? and not exists (select 1 from " + source.table
+                + " x where x.id = m_search_index.entity_id)", source.entityType);
+        return entries;
+    }
+
+    private int replace(final String entityType, final List<IndexedEntity> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        final List<Object> args = new ArrayList<>(entities.size() + 1);
+        args.add(entityType);
+        for (final IndexedEntity entity : entities) {
+            args.add(entity.id);
+        }
+        this.jdbcTemplate.update("delete from m_search_index where entity_type = ? and entity_id in ("
+                + String.join(",", Collections.nCopies(entities.size(), "?")) + ")", args.toArray());
+        return insert(entityType, entities);
+    }
+
+    private int insert(final String entityType, final List<IndexedEntity> entities) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (final IndexedEntity entity : entities) {
+            for (final String token : entity.tokens) {
+                rows.add(new Object[] { token, entityType, entity.id });
+            }
+        }
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        return rows.size();
+    }
+
+    private static final class IndexSource implements RowMapper<IndexedEntity> {
+
+        private final String entityType;
+        private final String table;
+        private final String alias;
+        private final String sql;
+
+        IndexSource(final String entityType, final String table, final String alias, final String sql) {
+            this.entityType = entityType;
+            this.table = table;
+            this.alias = alias;
+            this.sql = sql;
+        }
+
+        @Override
+        public IndexedEntity mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            // the searchable fields follow the id
+            final int columns = rs.getMetaData().getColumnCount();
+            final List<String> values = new ArrayList<>(columns - 1);
+            for (int i = 2; i <= columns; i++) {
+                values.add(rs.getString(i));
+            }
+            return new IndexedEntity(rs.getLong("id"), SearchTokenizer.tokens(values));
+        }
+    }
+
+    private static final class IndexedEntity {
+
+        private final Long id;
+        private final Set<String> tokens;
+
+        IndexedEntity(final Long id, final Set<String> tokens) {
+            this.id = id;
+            this.tokens = tokens;
+        }
+    }
+}
@@ -25,11 +25,16 @@ import java.sql.SQLException;
 import java.time.ZoneId;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.data.EnumOptionData;
 import org.apache.fineract.infrastructure.core.domain.JdbcSupport;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.organisation.office.data.OfficeData;
+import org.apache.fineract.organisation.office.service.OfficeHierarchyScope;
 import org.apache.fineract.organisation.office.service.OfficeReadPlatformService;
 import org.apache.fineract.portfolio.client.domain.ClientEnumerations;
 import org.apache.fineract.portfolio.group.domain.GroupingTypeEnumerations;
@@ -57,15 +62,19 @@ public class SearchReadPlatformServiceImpl implements SearchReadPlatformService
     private final PlatformSecurityContext context;
     private final LoanProductReadPlatformService loanProductReadPlatformService;
     private final OfficeReadPlatformService officeReadPlatformService;
+    private final OfficeHierarchyScope officeHierarchyScope;
+    // tenants whose search index has been built at least once, see SearchIndexWritePlatformServiceImpl
+    private final Map<String, Boolean> searchIndexBuilt = new ConcurrentHashMap<>();
 
     @Autowired
     public SearchReadPlatformServiceImpl(final PlatformSecurityContext context, final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
             final LoanProductReadPlatformService loanProductReadPlatformService,
-            final OfficeReadPlatformService officeReadPlatformService) {
+            final OfficeReadPlatformService officeReadPlatformService, final OfficeHierarchyScope officeHierarchyScope) {
         this.context = context;
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
         this.loanProductReadPlatformService = loanProductReadPlatformService;
         this.officeReadPlatformService = officeReadPlatformService;
+        this.officeHierarchyScope = officeHierarchyScope;
     }
 
     @Override
@@ -73,48 +82,117 @@ public class SearchReadPlatformServiceImpl implements SearchReadPlatformService
         final AppUser currentUser = this.context.authenticatedUser();
         final String hierarchy = currentUser.getOffice().getHierarchy();
 
-        final SearchMapper rm = new SearchMapper();
+        // substring matches go through the token index once it is built, exact matches keep using the columns' own indexes
+        final List<String> words = searchConditions.getExactMatch() ? List.of() : SearchTokenizer.words(searchConditions.getSearchQuery());
+        final boolean indexed = !words.isEmpty() && isSearchIndexBuilt();
+        final SearchMapper rm = new SearchMapper(this.officeHierarchyScope, hierarchy, indexed ? words.size() : 0);
 
         final MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("hierarchy", hierarchy + "%");
         if (searchConditions.getExactMatch()) {
             params.addValue("search", searchConditions.getSearchQuery());
         } else {
             params.addValue("search", "%" + searchConditions.getSearchQuery() + "%");
         }
+        if (indexed) {
+            for (int i = 0; i < words.size(); i++) {
+                params.addValue("token" + i, words.get(i) + "%");
+            }
+        }
         return this.namedParameterJdbcTemplate.query(rm.searchSchema(searchConditions), params, rm);
     }
 
+    private boolean isSearchIndexBuilt() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        if (this.searchIndexBuilt.containsKey(tenantIdentifier)) {
+            return true;
+        }
+        final Long builds = this.namedParameterJdbcTemplate.getJdbcTemplate()
+                .queryForObject("select count(*) from m_search_index_build where completed_at is not null", Long.class);
+        if (builds == null || builds == 0) {
+            return false;
+        }
+        this.searchIndexBuilt.put(tenantIdentifier, Boolean.TRUE);
+        return true;
+    }
+
     private static final class SearchMapper implements RowMapper<SearchData> {
 
+        private final OfficeHierarchyScope officeHierarchyScope;
+        private final String hierarchy;
+        // number of :tokenN parameters to match through m_search_index, 0 to match the columns with LIKE :search
+        private final int indexedWords;
+
+        SearchMapper(final OfficeHierarchyScope officeHierarchyScope, final String hierarchy, final int indexedWords) {
+            this.officeHierarchyScope = officeHierarchyScope;
+            this.hierarchy = hierarchy;
+            this.indexedWords = indexedWords;
+        }
+
+        private String inOffice(final String officeIdColumn) {
+            return this.officeHierarchyScope.officeIdIn(this.hierarchy, officeIdColumn);
+        }
+
+        /**
+         * Restricts <code>idColumn</code> to the entities of <code>entityType</code> having, for every searched word, a
+         * token starting with it; as the index holds every suffix of every word this matches the words anywhere in the
+         * searchable fields. The office of the entities is checked by the query around it.
+         */
+        private String match(final String entityType, final String idColumn, final String columnsMatch) {
+            if (this.indexedWords == 0) {
+                return columnsMatch;
+            }
+            final StringBuilder anyToken = new StringBuilder();
+            final StringBuilder allWords = new StringBuilder();
+            for (int i = 0; i < this.indexedWords; i++) {
+                anyToken.append(i == 0 ? "" : " or ").append("si.token like :token").append(i);
+                allWords.append(i == 0 ? "" : " and ").append("max(case when si.token like :token").append(i)
+                        .append(" then 1 else 0 end) = 1");
+            }
+            return idColumn + " in (select si.entity_id from m_search_index si where si.entity_type = '" + entityType + "' and ("
+                    + anyToken + ") group by si.entity_id having " + allWords + ")";
+        }
+
         public String searchSchema(final SearchConditions searchConditions) {
 
             final String union = " union ";
             final String clientMatchSql = " (select 'CLIENT' as entityType, c.id as entityId, c.display_name as entityName, c.external_id as entityExternalId, c.account_no as entityAccountNo "
                     + " , c.office_id as parentId, o.name as parentName, c.mobile_no as entityMobileNo,c.status_enum as entityStatusEnum, null as subEntityType, null as parentType "
-                    + " from m_client c join m_office o on o.id = c.office_id where o.hierarchy like :hierarchy and (c.account_no like :search or c.display_name like :search or c.external_id like :search or c.mobile_no like :search)) ";
+                    + " from m_client c join m_office o on o.id = c.office_id where " + inOffice("c.office_id") + " and "
+                    + match("CLIENT", "c.id",
+                            "(c.account_no like :search or c.display_name like :search or c.external_id like :search"
+                                    + " or c.mobile_no like :search)")
+                    + ") ";
 
             final String loanMatchSql = " (select 'LOAN' as entityType, l.id as entityId, pl.name as entityName, l.external_id as entityExternalId, l.account_no as entityAccountNo "
                     + " , coalesce(c.id,g.id) as parentId, coalesce(c.display_name,g.display_name) as parentName, null as entityMobileNo, l.loan_status_id as entityStatusEnum, null as subEntityType, CASE WHEN g.id is null THEN 'client' ELSE 'group' END as parentType "
-                    + " from m_loan l left join m_client c on l.client_id = c.id left join m_group g ON l.group_id = g.id left join m_office o on o.id = c.office_id left join m_product_loan pl on pl.id=l.product_id where (o.hierarchy IS NULL OR o.hierarchy like :hierarchy) and (l.account_no like :search or l.external_id like :search)) ";
+                    + " from m_loan l left join m_client c on l.client_id = c.id left join m_group g ON l.group_id = g.id left join m_office o on o.id = c.office_id left join m_product_loan pl on pl.id=l.product_id where (c.office_id IS NULL OR " + inOffice("c.office_id") + ") and "
+                    + match("LOAN", "l.id", "(l.account_no like :search or l.external_id like :search)") + ") ";
 
             final String savingMatchSql = " (select 'SAVING' as entityType, s.id as entityId, sp.name as entityName, s.external_id as entityExternalId, s.account_no as entityAccountNo "
                     + " , coalesce(c.id,g.id) as parentId, coalesce(c.display_name,g.display_name) as parentName, null as entityMobileNo, s.status_enum as entityStatusEnum, s.deposit_type_enum as subEntityType, CASE WHEN g.id is null THEN 'client' ELSE 'group' END as parentType "
                     + " from m_savings_account s left join m_client c on s.client_id = c.id left join m_group g ON s.group_id = g.id left join m_office o on o.id = c.office_id left join m_savings_product sp on sp.id=s.product_id "
-                    + " where (o.hierarchy IS NULL OR o.hierarchy like :hierarchy) and (s.account_no like :search or s.external_id like :search)) ";
+                    + " where (c.office_id IS NULL OR " + inOffice("c.office_id") + ") and "
+                    + match("SAVING", "s.id", "(s.account_no like :search or s.external_id like :search)") + ") ";
 
+            // share accounts are not indexed
             final String shareMatchSql = " (select 'SHARE' as entityType, s.id as entityId, sp.name as entityName, s.external_id as entityExternalId, s.account_no as entityAccountNo "
                     + " , c.id as parentId, c.display_name as parentName, null as entityMobileNo, s.status_enum as entityStatusEnum, null as subEntityType, 'client' as parentType "
                     + " from m_share_account s left join m_client c on s.client_id = c.id left join m_office o on o.id = c.office_id left join m_share_product sp on sp.id=s.product_id "
-                    + " where (o.hierarchy IS NULL OR o.hierarchy like :hierarchy) and (s.account_no like :search or s.external_id like :search)) ";
+                    + " where (c.office_id IS NULL OR " + inOffice("c.office_id")
+                    + ") and (s.account_no like :search or s.external_id like :search)) ";
 
             final String clientIdentifierMatchSql = " (select 'CLIENTIDENTIFIER' as entityType, ci.id as entityId, ci.document_key as entityName, "
                     + " null as entityExternalId, null as entityAccountNo, c.id as parentId, c.display_name as parentName,null as entityMobileNo, c.status_enum as entityStatusEnum, null as subEntityType, null as parentType "
                     + " from m_client_identifier ci join m_client c on ci.client_id=c.id join m_office o on o.id = c.office_id "
-                    + " where o.hierarchy like :hierarchy and ci.document_key like :search ) ";
+                    + " where " + inOffice("c.office_id") + " and "
+                    + match("CLIENTIDENTIFIER", "ci.id", "ci.document_key like :search") + ") ";
             final String groupMatchSql = " (select IF(g.level_id=1,'CENTER','GROUP') as entityType, g.id as entityId, g.display_name as entityName, g.external_id as entityExternalId, g.account_no as entityAccountNo "
                     + " , g.office_id as parentId, o.name as parentName, null as entityMobileNo, g.status_enum as entityStatusEnum, null as subEntityType, null as parentType "
-                    + " from m_group g join m_office o on o.id = g.office_id where o.hierarchy like :hierarchy and (g.account_no like :search or g.display_name like :search or g.external_id like :search or g.id like :search )) ";
+                    + " from m_group g join m_office o on o.id = g.office_id where " + inOffice("g.office_id") + " and "
+                    + match("GROUP", "g.id",
+                            "(g.account_no like :search or g.display_name like :search or g.external_id like :search"
+                                    + " or g.id like :search )")
+                    + ") ";
             final StringBuilder sql = new StringBuilder();
 
             if (searchConditions.isClientSearch()) {
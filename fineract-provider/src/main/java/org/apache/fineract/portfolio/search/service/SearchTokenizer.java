@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.search.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits the searchable fields of an entity into the tokens stored in <code>m_search_index</code>.
+ *
+ * Every word (a run of letters and digits, lower cased) is stored with all of its suffixes, so that a prefix lookup on
+ * the token column (<code>token like 'abc%'</code>, which can use the primary key) finds the word anywhere in a field,
+ * the way the former <code>like '%abc%'</code> scans did.
+ */
+public final class SearchTokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 100;
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTokenizer() {}
+
+    /**
+     * The words of a search query, each of which must be found in an entity for it to match.
+     */
+    public static List<String> words(final String text) {
+        final Set<String> words = new LinkedHashSet<>();
+        if (text != null) {
+            for (final String word : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!word.isEmpty()) {
+                    words.add(word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word);
+                }
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * The tokens to index for the given field values: all suffixes of all their words.
+     */
+    public static Set<String> tokens(final List<String> values) {
+        final Set<String> tokens = new LinkedHashSet<>();
+        for (final String value : values) {
+            for (final String word : words(value)) {
+                for (int i = 0; i < word.length(); i++) {
+                    tokens.add(word.substring(i));
+                }
+            }
+        }
+        return tokens;
+    }
+}
@@ -18,17 +18,18 @@
  */
 package org.apache.fineract.scheduledjobs.service;
 
+import java.util.Map;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 
 public interface ScheduledJobRunnerService {
 
-    void updateLoanSummaryDetails();
+    void updateLoanSummaryDetails() throws JobExecutionException;
 
     void updateLoanPaidInAdvance();
 
-    void applyAnnualFeeForSavings();
+    void applyAnnualFeeForSavings(Map<String, String> jobParameters);
 
-    void applyDueChargesForSavings() throws JobExecutionException;
+    void applyDueChargesForSavings(Map<String, String> jobParameters) throws JobExecutionException;
 
     void updateNPA();
 
@@ -40,5 +41,7 @@ public interface ScheduledJobRunnerService {
 
     void updateTrialBalanceDetails() throws JobExecutionException;
 
+    void updateTrialBalanceDetails(Map<String, String> jobParameters) throws JobExecutionException;
+
     void executeMissMatchedJobs() throws JobExecutionException;
 }
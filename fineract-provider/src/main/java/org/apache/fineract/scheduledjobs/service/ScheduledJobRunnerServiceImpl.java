@@ -20,19 +20,15 @@ package org.apache.fineract.scheduledjobs.service;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import org.apache.fineract.accounting.glaccount.domain.TrialBalance;
-import org.apache.fineract.accounting.glaccount.domain.TrialBalanceRepositoryWrapper;
-import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import java.util.Set;
+import org.apache.fineract.accounting.trialbalance.service.TrialBalanceBuilder;
 import org.apache.fineract.infrastructure.core.data.ApiParameterError;
 import org.apache.fineract.infrastructure.core.exception.PlatformApiDataValidationException;
 import org.apache.fineract.infrastructure.core.service.DateUtils;
@@ -41,19 +37,20 @@ import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
 import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
 import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
 import org.apache.fineract.infrastructure.jobs.annotation.CronTarget;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
 import org.apache.fineract.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.apache.fineract.infrastructure.jobs.domain.ScheduledJobDetailRepository;
 import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
 import org.apache.fineract.infrastructure.jobs.service.JobName;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
 import org.apache.fineract.infrastructure.jobs.service.JobRegisterService;
+import org.apache.fineract.infrastructure.jobs.service.PartitionedJob;
 import org.apache.fineract.portfolio.savings.DepositAccountType;
 import org.apache.fineract.portfolio.savings.DepositAccountUtils;
 import org.apache.fineract.portfolio.savings.data.DepositAccountData;
-import org.apache.fineract.portfolio.savings.data.SavingsAccountAnnualFeeData;
 import org.apache.fineract.portfolio.savings.service.DepositAccountReadPlatformService;
 import org.apache.fineract.portfolio.savings.service.DepositAccountWritePlatformService;
-import org.apache.fineract.portfolio.savings.service.SavingsAccountChargeReadPlatformService;
-import org.apache.fineract.portfolio.savings.service.SavingsAccountWritePlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsChargeBatchProcessor;
 import org.apache.fineract.portfolio.shareaccounts.service.ShareAccountDividendReadPlatformService;
 import org.apache.fineract.portfolio.shareaccounts.service.ShareAccountSchedularService;
 import org.slf4j.Logger;
@@ -63,63 +60,104 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.CollectionUtils;
 
 @Service(value = "scheduledJobRunnerService")
-public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService {
+public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService, PartitionedJob {
 
     private static final Logger LOG = LoggerFactory.getLogger(ScheduledJobRunnerServiceImpl.class);
+    private static final String THREAD_POOL_SIZE = "thread-pool-size";
+    private static final String BATCH_SIZE = "batch-size";
+    private static final int LOAN_SUMMARY_PARTITION_SIZE = 5000;
+    private static final int LOAN_SUMMARY_THREAD_POOL_SIZE = 4;
+    private static final int TRIAL_BALANCE_THREAD_POOL_SIZE = 4;
+    private static final int SAVINGS_CHARGE_THREAD_POOL_SIZE = 4;
+    private static final int SAVINGS_CHARGE_BATCH_SIZE = 500;
 
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final DateTimeFormatter formatterWithTime = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final RoutingDataSourceServiceFactory dataSourceServiceFactory;
-    private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
-    private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
+    private final SavingsChargeBatchProcessor savingsChargeBatchProcessor;
     private final DepositAccountReadPlatformService depositAccountReadPlatformService;
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
     private final ShareAccountDividendReadPlatformService shareAccountDividendReadPlatformService;
     private final ShareAccountSchedularService shareAccountSchedularService;
-    private final TrialBalanceRepositoryWrapper trialBalanceRepositoryWrapper;
+    private final TrialBalanceBuilder trialBalanceBuilder;
     private final JobRegisterService jobRegisterService;
     private final ScheduledJobDetailRepository scheduledJobDetailsRepository;
-    private final FineractProperties fineractProperties;
+    private final JobPartitionService jobPartitionService;
     private final DatabaseSpecificSQLGenerator sqlGenerator;
     private final DatabaseTypeResolver databaseTypeResolver;
 
     @Autowired
     public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
-            final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
-            final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService,
+            final SavingsChargeBatchProcessor savingsChargeBatchProcessor,
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
             final DepositAccountWritePlatformService depositAccountWritePlatformService,
             final ShareAccountDividendReadPlatformService shareAccountDividendReadPlatformService,
             final ShareAccountSchedularService shareAccountSchedularService,
-            final TrialBalanceRepositoryWrapper trialBalanceRepositoryWrapper, @Lazy final JobRegisterService jobRegisterService,
-            final ScheduledJobDetailRepository scheduledJobDetailsRepository, final FineractProperties fineractProperties,
+            final TrialBalanceBuilder trialBalanceBuilder, @Lazy final JobRegisterService jobRegisterService,
+            final ScheduledJobDetailRepository scheduledJobDetailsRepository, final JobPartitionService jobPartitionService,
             DatabaseSpecificSQLGenerator sqlGenerator, DatabaseTypeResolver databaseTypeResolver) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
-        this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
-        this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
+        this.savingsChargeBatchProcessor = savingsChargeBatchProcessor;
         this.depositAccountReadPlatformService = depositAccountReadPlatformService;
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
         this.shareAccountDividendReadPlatformService = shareAccountDividendReadPlatformService;
         this.shareAccountSchedularService = shareAccountSchedularService;
-        this.trialBalanceRepositoryWrapper = trialBalanceRepositoryWrapper;
+        this.trialBalanceBuilder = trialBalanceBuilder;
         this.jobRegisterService = jobRegisterService;
         this.scheduledJobDetailsRepository = scheduledJobDetailsRepository;
-        this.fineractProperties = fineractProperties;
+        this.jobPartitionService = jobPartitionService;
         this.sqlGenerator = sqlGenerator;
         this.databaseTypeResolver = databaseTypeResolver;
     }
 
-    @Transactional
+    /**
+     * Updates the derived loan summary columns in ranges of {@link #LOAN_SUMMARY_PARTITION_SIZE} loan ids, processed by
+     * all nodes of the cluster.
+     */
     @Override
     @CronTarget(jobName = JobName.UPDATE_LOAN_SUMMARY)
-    public void updateLoanSummaryDetails() {
+    public void updateLoanSummaryDetails() throws JobExecutionException {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final Map<String, Object> loanIdBounds = jdbcTemplate
+                .queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM m_loan WHERE disbursedon_date IS NOT NULL");
+        if (loanIdBounds.get("min_id") == null) {
+            return;
+        }
+        final long maxLoanId = ((Number) loanIdBounds.get("max_id")).longValue();
+        final List<long[]> ranges = new ArrayList<>();
+        for (long from = ((Number) loanIdBounds.get("min_id")).longValue(); from <= maxLoanId; from += LOAN_SUMMARY_PARTITION_SIZE) {
+            ranges.add(new long[] { from, Math.min(from + LOAN_SUMMARY_PARTITION_SIZE - 1, maxLoanId) });
+        }
+
+        final List<JobPartitionData> partitions = this.jobPartitionService.execute(JobName.UPDATE_LOAN_SUMMARY, Map.of(), ranges,
+                LOAN_SUMMARY_THREAD_POOL_SIZE);
+        int result = 0;
+        for (final JobPartitionData partition : partitions) {
+            result += Integer.parseInt(partition.getResult().getOrDefault("updated", "0"));
+        }
+        LOG.info("{}: Records affected by updateLoanSummaryDetails: {}", ThreadLocalContextUtil.getTenant().getName(), result);
+        final List<Throwable> failures = JobPartitionService.failures(partitions);
+        if (!failures.isEmpty()) {
+            throw new JobExecutionException(failures);
+        }
+    }
 
+    @Override
+    public Set<JobName> getPartitionedJobNames() {
+        return Set.of(JobName.UPDATE_LOAN_SUMMARY);
+    }
+
+    @Override
+    public Map<String, String> processPartition(final JobPartitionData partition) {
         final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final int updated = updateLoanSummaryDetails(jdbcTemplate, partition.getRangeFrom(), partition.getRangeTo());
+        return Map.of("updated", String.valueOf(updated));
+    }
 
+    private int updateLoanSummaryDetails(final JdbcTemplate jdbcTemplate, final Long fromLoanId, final Long toLoanId) {
         boolean isMySQL = databaseTypeResolver.isMySQL();
 
         String alias = isMySQL ? "l." : "";
@@ -144,7 +182,8 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
                 .append("SUM(COALESCE(mr.penalty_charges_waived_derived,0)) as penalty_charges_waived_derived, ")
                 .append("SUM(COALESCE(mr.penalty_charges_writtenoff_derived,0)) as penalty_charges_writtenoff_derived ")
                 .append("FROM m_loan ml ").append("INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ")
-                .append("WHERE ml.disbursedon_date is not null ").append("GROUP BY ml.id").append(") x").toString();
+                .append("WHERE ml.disbursedon_date is not null and ml.id between ? and ? ")
+                .append("GROUP BY ml.id").append(") x").toString();
 
         final String setPart = new StringBuilder().append(" SET ").append(alias)
                 .append("principal_disbursed_derived = x.principal_disbursed_derived, ").append(alias)
@@ -194,9 +233,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         } else {
             updateSqlBuilder.append(setPart).append(" FROM").append(selectPart).append(" WHERE").append(wherePart);
         }
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
-
-        LOG.info("{}: Records affected by updateLoanSummaryDetails: {}", ThreadLocalContextUtil.getTenant().getName(), result);
+        return jdbcTemplate.update(updateSqlBuilder.toString(), fromLoanId, toLoanId);
     }
 
     @Transactional
@@ -234,58 +271,33 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         LOG.info("{}: Records affected by updateLoanPaidInAdvance: {}", ThreadLocalContextUtil.getTenant().getName(), result);
     }
 
+    /**
+     * Applies the annual fees due in chunks of "batch-size" savings accounts on "thread-pool-size" threads, see
+     * {@link SavingsChargeBatchProcessor}.
+     */
     @Override
     @CronTarget(jobName = JobName.APPLY_ANNUAL_FEE_FOR_SAVINGS)
-    public void applyAnnualFeeForSavings() {
-
-        final Collection<SavingsAccountAnnualFeeData> annualFeeData = this.savingsAccountChargeReadPlatformService
-                .retrieveChargesWithAnnualFeeDue();
-
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : annualFeeData) {
-            try {
-                this.savingsAccountWritePlatformService.applyAnnualFee(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    LOG.error("Apply annual fee failed for account: {} with message {}", savingsAccountReference.getAccountNo(), error);
-                }
-            } catch (final Exception ex) {
-                LOG.error("Apply annual fee failed for account: {}", savingsAccountReference.getAccountNo(), ex);
-            }
+    public void applyAnnualFeeForSavings(final Map<String, String> jobParameters) {
+        try {
+            this.savingsChargeBatchProcessor.applyAnnualFees(
+                    readJobParameter(jobParameters, THREAD_POOL_SIZE, SAVINGS_CHARGE_THREAD_POOL_SIZE),
+                    readJobParameter(jobParameters, BATCH_SIZE, SAVINGS_CHARGE_BATCH_SIZE));
+        } catch (final JobExecutionException e) {
+            LOG.error("{}: Apply annual fee failed for some partitions of savings accounts", ThreadLocalContextUtil.getTenant().getName(),
+                    e);
         }
-
-        LOG.info("{}: Records affected by applyAnnualFeeForSavings: {}", ThreadLocalContextUtil.getTenant().getName(),
-                annualFeeData.size());
     }
 
+    /**
+     * Pays the savings charges due in chunks of "batch-size" savings accounts on "thread-pool-size" threads, see
+     * {@link SavingsChargeBatchProcessor}.
+     */
     @Override
     @CronTarget(jobName = JobName.PAY_DUE_SAVINGS_CHARGES)
-    public void applyDueChargesForSavings() throws JobExecutionException {
-        final Collection<SavingsAccountAnnualFeeData> chargesDueData = this.savingsAccountChargeReadPlatformService
-                .retrieveChargesWithDue();
-        List<Throwable> exceptions = new ArrayList<>();
-        for (final SavingsAccountAnnualFeeData savingsAccountReference : chargesDueData) {
-            try {
-                this.savingsAccountWritePlatformService.applyChargeDue(savingsAccountReference.getId(),
-                        savingsAccountReference.getAccountId());
-            } catch (final PlatformApiDataValidationException e) {
-                exceptions.add(e);
-                final List<ApiParameterError> errors = e.getErrors();
-                for (final ApiParameterError error : errors) {
-                    LOG.error("Apply Charges due for savings failed for account {} with message: {}",
-                            savingsAccountReference.getAccountNo(), error.getDeveloperMessage(), e);
-                }
-            } catch (final Exception ex) {
-                exceptions.add(ex);
-                LOG.error("Apply Charges due for savings failed for account: {}", savingsAccountReference.getAccountNo(), ex);
-            }
-        }
-        LOG.info("{}: Records affected by applyDueChargesForSavings: {}", ThreadLocalContextUtil.getTenant().getName(),
-                chargesDueData.size());
-        if (!exceptions.isEmpty()) {
-            throw new JobExecutionException(exceptions);
-        }
+    public void applyDueChargesForSavings(final Map<String, String> jobParameters) throws JobExecutionException {
+        this.savingsChargeBatchProcessor.applyChargesDue(
+                readJobParameter(jobParameters, THREAD_POOL_SIZE, SAVINGS_CHARGE_THREAD_POOL_SIZE),
+                readJobParameter(jobParameters, BATCH_SIZE, SAVINGS_CHARGE_BATCH_SIZE));
     }
 
     @Transactional
@@ -450,65 +462,23 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     }
 
     @Override
-    @CronTarget(jobName = JobName.UPDATE_TRAIL_BALANCE_DETAILS)
     public void updateTrialBalanceDetails() throws JobExecutionException {
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
-        final StringBuilder tbGapSqlBuilder = new StringBuilder(500);
-        tbGapSqlBuilder.append("select distinct(je.transaction_date) ").append("from acc_gl_journal_entry je ")
-                .append("where je.transaction_date > (select coalesce(MAX(created_date),'2010-01-01') from m_trial_balance)");
-
-        final List<Date> tbGaps = jdbcTemplate.queryForList(tbGapSqlBuilder.toString(), Date.class);
-
-        for (Date tbGap : tbGaps) {
-            LocalDate convDate = ZonedDateTime.ofInstant(tbGap.toInstant(), DateUtils.getDateTimeZoneOfTenant()).toLocalDate();
-            int days = Math.toIntExact(ChronoUnit.DAYS.between(convDate, DateUtils.getLocalDateOfTenant()));
-            if (days < 1) {
-                continue;
-            }
-            final String formattedDate = new SimpleDateFormat("yyyy-MM-dd").format(tbGap);
-            final StringBuilder sqlBuilder = new StringBuilder(600);
-            sqlBuilder.append("Insert Into m_trial_balance(office_id, account_id, Amount, entry_date, created_date,closing_balance) ")
-                    .append("Select je.office_id, je.account_id, SUM(CASE WHEN je.type_enum=1 THEN (-1) * je.amount ELSE je.amount END) ")
-                    .append("as Amount, Date(je.entry_date) as 'Entry_Date', je.transaction_date as 'Created_Date',sum(je.amount) as closing_balance ")
-                    .append("from acc_gl_journal_entry je WHERE je.transaction_date = ? ")
-                    .append("group by je.account_id, je.office_id, je.transaction_date, Date(je.entry_date)");
-
-            final int result = jdbcTemplate.update(sqlBuilder.toString(), formattedDate);
-            LOG.info("{}: Records affected by updateTrialBalanceDetails: {}", ThreadLocalContextUtil.getTenant().getName(), result);
-        }
+        this.trialBalanceBuilder.build(TRIAL_BALANCE_THREAD_POOL_SIZE);
+    }
 
-        // Updating closing balance
-        String distinctOfficeQuery = "select distinct(office_id) from m_trial_balance where closing_balance is null group by office_id";
-        final List<Long> officeIds = jdbcTemplate.queryForList(distinctOfficeQuery, Long.class);
-
-        for (Long officeId : officeIds) {
-            String distinctAccountQuery = "select distinct(account_id) from m_trial_balance where office_id=? and closing_balance is null group by account_id";
-            final List<Long> accountIds = jdbcTemplate.queryForList(distinctAccountQuery, Long.class, officeId);
-            for (Long accountId : accountIds) {
-                final String closingBalanceQuery = "select closing_balance from m_trial_balance where office_id=? and account_id=? and closing_balance "
-                        + "is not null order by created_date desc, entry_date desc limit 1";
-                List<BigDecimal> closingBalanceData = jdbcTemplate.queryForList(closingBalanceQuery, BigDecimal.class, officeId, accountId);
-                List<TrialBalance> tbRows = this.trialBalanceRepositoryWrapper.findNewByOfficeAndAccount(officeId, accountId);
-                BigDecimal closingBalance = null;
-                if (!CollectionUtils.isEmpty(closingBalanceData)) {
-                    closingBalance = closingBalanceData.get(0);
-                }
-                if (CollectionUtils.isEmpty(closingBalanceData)) {
-                    closingBalance = BigDecimal.ZERO;
-                    for (TrialBalance row : tbRows) {
-                        closingBalance = closingBalance.add(row.getAmount());
-                        row.setClosingBalance(closingBalance);
-                    }
-                } else {
-                    for (TrialBalance tbRow : tbRows) {
-                        closingBalance = closingBalance.add(tbRow.getAmount());
-                        tbRow.setClosingBalance(closingBalance);
-                    }
-                }
-                this.trialBalanceRepositoryWrapper.save(tbRows);
-            }
-        }
+    /**
+     * Appends the trial balance of all completed transaction dates since the last run, recalculating the closing
+     * balances of the offices on "thread-pool-size" threads.
+     */
+    @Override
+    @CronTarget(jobName = JobName.UPDATE_TRAIL_BALANCE_DETAILS)
+    public void updateTrialBalanceDetails(final Map<String, String> jobParameters) throws JobExecutionException {
+        this.trialBalanceBuilder.build(readJobParameter(jobParameters, THREAD_POOL_SIZE, TRIAL_BALANCE_THREAD_POOL_SIZE));
+    }
 
+    private static int readJobParameter(final Map<String, String> jobParameters, final String name, final int defaultValue) {
+        final String value = jobParameters == null ? null : jobParameters.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
     }
 
     @Override
@@ -516,10 +486,9 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     public void executeMissMatchedJobs() throws JobExecutionException {
         List<ScheduledJobDetail> jobDetails = this.scheduledJobDetailsRepository.findAllMismatchedJobs(true);
 
+        // any node may run them now, the job lease keeps them from running twice
         for (ScheduledJobDetail scheduledJobDetail : jobDetails) {
-            if (scheduledJobDetail.getNodeId().toString().equals(fineractProperties.getNodeId())) {
-                jobRegisterService.executeJob(scheduledJobDetail.getId());
-            }
+            jobRegisterService.executeJob(scheduledJobDetail.getId());
         }
     }
 
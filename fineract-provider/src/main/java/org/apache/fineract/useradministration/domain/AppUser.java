@@ -38,6 +38,7 @@ import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.fineract.infrastructure.core.api.JsonCommand;
@@ -122,6 +123,10 @@ public class AppUser extends AbstractPersistableCustom implements PlatformUser {
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER, mappedBy = "appUser")
     private Set<AppUserClientMapping> appUserClientMappings = new HashSet<>();
 
+    // compiled on the first permission check, lives as long as the (cached) user
+    @Transient
+    private transient AppUserPermissions compiledPermissions;
+
     @Column(name = "cannot_change_password", nullable = true)
     private Boolean cannotChangePassword;
 
@@ -224,6 +229,7 @@ public class AppUser extends AbstractPersistableCustom implements PlatformUser {
         if (!allRoles.isEmpty()) {
             this.roles.clear();
             this.roles = allRoles;
+            this.compiledPermissions = null;
         }
     }
 
@@ -368,6 +374,7 @@ public class AppUser extends AbstractPersistableCustom implements PlatformUser {
         this.firstTimeLoginRemaining = true;
         this.username = getId() + "_DELETED_" + this.username;
         this.roles.clear();
+        this.compiledPermissions = null;
     }
 
     public boolean isDeleted() {
@@ -541,14 +548,7 @@ public class AppUser extends AbstractPersistableCustom implements PlatformUser {
      * @return whether the user has the specified permission
      */
     public boolean hasSpecificPermissionTo(final String permissionCode) {
-        boolean hasPermission = false;
-        for (final Role role : this.roles) {
-            if (role.hasPermissionTo(permissionCode)) {
-                hasPermission = true;
-                break;
-            }
-        }
-        return hasPermission;
+        return compiledPermissions().has(permissionCode);
     }
 
     public void validateHasReadPermission(final String resourceType) {
@@ -568,27 +568,17 @@ public class AppUser extends AbstractPersistableCustom implements PlatformUser {
     }
 
     private boolean hasPermissionTo(final String permissionCode) {
-        boolean hasPermission = hasAllFunctionsPermission();
-        if (!hasPermission) {
-            for (final Role role : this.roles) {
-                if (role.hasPermissionTo(permissionCode)) {
-                    hasPermission = true;
-                    break;
-                }
-            }
-        }
-        return hasPermission;
+        final AppUserPermissions permissions = compiledPermissions();
+        return permissions.hasAllFunctions() || permissions.has(permissionCode);
     }
 
-    private boolean hasAllFunctionsPermission() {
-        boolean match = false;
-        for (final Role role : this.roles) {
-            if (role.hasPermissionTo("ALL_FUNCTIONS")) {
-                match = true;
-                break;
-            }
+    private AppUserPermissions compiledPermissions() {
+        AppUserPermissions permissions = this.compiledPermissions;
+        if (permissions == null || permissions.isStale()) {
+            permissions = AppUserPermissions.compile(this.roles);
+            this.compiledPermissions = permissions;
         }
-        return match;
+        return permissions;
     }
 
     public boolean hasIdOf(final Long userId) {
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.useradministration.domain;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+
+/**
+ * The permission codes of a user's roles compiled into a bit set, so that authorization checks are bit tests instead of
+ * string comparisons over every permission of every role.
+ *
+ * Codes are numbered by a registry per tenant. Changing the permissions of roles invalidates every compiled set of the
+ * tenant (see {@link #invalidateCurrentTenant()}), and the next check recompiles from the user's roles.
+ */
+public final class AppUserPermissions {
+
+    private static final Map<String, PermissionIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final PermissionIndex index;
+    private final long generation;
+    private final BitSet granted;
+    private final boolean allFunctions;
+
+    private AppUserPermissions(final PermissionIndex index, final long generation, final BitSet granted) {
+        this.index = index;
+        this.generation = generation;
+        this.granted = granted;
+        this.allFunctions = has("ALL_FUNCTIONS");
+    }
+
+    static AppUserPermissions compile(final Collection<Role> roles) {
+        final PermissionIndex index = currentIndex();
+        // read the generation first, an invalidation racing with the compilation then only causes another one
+        final long generation = index.generation.get();
+        final BitSet granted = new BitSet();
+        for (final Role role : roles) {
+            for (final Permission permission : role.getPermissions()) {
+                granted.set(index.register(permission.getCode()));
+            }
+        }
+        return new AppUserPermissions(index, generation, granted);
+    }
+
+    /**
+     * Invalidates the compiled permissions of all users of the current tenant, to be called whenever the permissions of
+     * roles change.
+     */
+    public static void invalidateCurrentTenant() {
+        currentIndex().generation.incrementAndGet();
+    }
+
+    private static PermissionIndex currentIndex() {
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        return INDEXES.computeIfAbsent(tenant == null ? "" : tenant.getTenantIdentifier(), key -> new PermissionIndex());
+    }
+
+    boolean isStale() {
+        return this.generation != this.index.generation.get();
+    }
+
+    /**
+     * Whether one of the roles grants exactly this permission, like {@link Permission#hasCode(String)} the code is case
+     * insensitive.
+     */
+    boolean has(final String permissionCode) {
+        final Integer bit = this.index.lookup(permissionCode);
+        return bit != null && this.granted.get(bit);
+    }
+
+    boolean hasAllFunctions() {
+        return this.allFunctions;
+    }
+
+    private static final class PermissionIndex {
+
+        private final Map<String, Integer> bits = new ConcurrentHashMap<>();
+        private final AtomicInteger nextBit = new AtomicInteger();
+        private final AtomicLong generation = new AtomicLong();
+
+        int register(final String permissionCode) {
+            // the mapping function runs once per code, so every code gets its own bit
+            return this.bits.computeIfAbsent(normalize(permissionCode), code -> this.nextBit.getAndIncrement());
+        }
+
+        Integer lookup(final String permissionCode) {
+            // a code no compiled set has registered is granted to nobody
+            return permissionCode == null ? null : this.bits.get(normalize(permissionCode));
+        }
+
+        private static String normalize(final String permissionCode) {
+            return permissionCode.toUpperCase(Locale.ROOT);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
 import org.apache.fineract.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
 import org.apache.fineract.useradministration.command.PermissionsCommand;
+import org.apache.fineract.useradministration.domain.AppUserPermissions;
 import org.apache.fineract.useradministration.domain.Permission;
 import org.apache.fineract.useradministration.domain.PermissionRepository;
 import org.apache.fineract.useradministration.exception.PermissionNotFoundException;
@@ -83,6 +84,7 @@ public class PermissionWritePlatformServiceJpaRepositoryImpl implements Permissi
 
         if (!changedPermissions.isEmpty()) {
             changes.put("permissions", changedPermissions);
+            AppUserPermissions.invalidateCurrentTenant();
         }
 
         return new CommandProcessingResultBuilder().withCommandId(command.commandId()).with(changes).build();
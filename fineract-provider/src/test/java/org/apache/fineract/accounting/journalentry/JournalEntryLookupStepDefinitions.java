@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.journalentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.UUID;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import javax.sql.DataSource;
+import org.apache.fineract.accounting.closure.service.LatestGLClosureCache;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import org.apache.fineract.infrastructure.cache.domain.CacheType;
+import org.apache.fineract.infrastructure.cache.service.RuntimeDelegatingCacheManager;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+public class JournalEntryLookupStepDefinitions implements En {
+
+    private static final int LOAN_PRODUCT_TYPE = 1;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private javax.cache.CacheManager jcacheManager;
+    private RuntimeDelegatingCacheManager cacheManager;
+    private LatestGLClosureCache closureCache;
+    private ProductToGLAccountMappingResolver mappingResolver;
+    private TransactionStatus transaction;
+
+    public JournalEntryLookupStepDefinitions() {
+        Given("/^The journal entry lookups read the closures and mappings of the tenant$/", () -> {
+            this.dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+            this.transactionManager = new DataSourceTransactionManager(this.dataSource);
+            // a cache manager of its own, the caching provider keeps one per class loader
+            final CachingProvider cachingProvider = Caching.getCachingProvider();
+            this.jcacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                    new URLClassLoader(new URL[0], getClass().getClassLoader()));
+            this.jcacheManager.createCache("productToGLAccountMappings", new MutableConfiguration<>().setStoreByValue(false));
+            final JCacheCacheManager jCacheCacheManager = new JCacheCacheManager(this.jcacheManager);
+            jCacheCacheManager.afterPropertiesSet();
+            this.cacheManager = new RuntimeDelegatingCacheManager(jCacheCacheManager);
+            this.closureCache = new LatestGLClosureCache(this.jdbcTemplate);
+            this.mappingResolver = new ProductToGLAccountMappingResolver(this.jdbcTemplate, this.cacheManager);
+            otherNode("create table acc_gl_closure (id bigint auto_increment primary key, office_id bigint not null, "
+                    + "closing_date date not null, is_deleted boolean default false not null)");
+            otherNode("create table acc_product_mapping (id bigint auto_increment primary key, gl_account_id bigint, product_id bigint, "
+                    + "product_type smallint, payment_type int, charge_id bigint, financial_account_type smallint)");
+            otherNode("create table acc_gl_financial_activity_account (id bigint auto_increment primary key, gl_account_id bigint, "
+                    + "financial_activity_type smallint)");
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        });
+
+        After(() -> {
+            if (this.dataSource == null) {
+                return;
+            }
+            if (this.transaction != null && !this.transaction.isCompleted()) {
+                this.transactionManager.rollback(this.transaction);
+            }
+            ThreadLocalContextUtil.clearTenant();
+            this.jcacheManager.close();
+        });
+
+        Given("/^The office (\\d+) was (closed|closed and reopened) on ([\\d-]+)$/",
+                (Long officeId, String closed, String closingDate) -> otherNode(
+                        "insert into acc_gl_closure (office_id, closing_date, is_deleted) values (" + officeId + ", '" + closingDate + "', "
+                                + "closed and reopened".equals(closed) + ")"));
+
+        Given("/^The loan product (\\d+) maps the account type (\\d+) to the GL account (\\d+)$/",
+                (Long productId, Integer accountType, Long glAccountId) -> otherNode(
+                        "insert into acc_product_mapping (gl_account_id, product_id, product_type, financial_account_type) values ("
+                                + glAccountId + ", " + productId + ", " + LOAN_PRODUCT_TYPE + ", " + accountType + ")"));
+
+        Given("/^The platform cache is switched to (no cache|single node)$/", (String cacheType) -> this.cacheManager
+                .switchToCache(false, "single node".equals(cacheType) ? CacheType.SINGLE_NODE : CacheType.NO_CACHE));
+
+        When("/^A journal entry transaction starts$/",
+                () -> this.transaction = this.transactionManager.getTransaction(new DefaultTransactionDefinition()));
+
+        When("/^The journal entry transaction commits$/", () -> this.transactionManager.commit(this.transaction));
+
+        When("/^Another node closes the office (\\d+) on ([\\d-]+)$/", (Long officeId, String closingDate) -> otherNode(
+                "insert into acc_gl_closure (office_id, closing_date) values (" + officeId + ", '" + closingDate + "')"));
+
+        When("/^The journal entry transaction closes the office (\\d+) on ([\\d-]+)$/", (Long officeId, String closingDate) -> {
+            this.jdbcTemplate.update("insert into acc_gl_closure (office_id, closing_date) values (?, ?)", officeId,
+                    LocalDate.parse(closingDate));
+            this.closureCache.evict();
+        });
+
+        When("/^Another node maps the account type (\\d+) of the loan product (\\d+) to the GL account (\\d+)$/",
+                (Integer accountType, Long productId, Long glAccountId) -> otherNode("update acc_product_mapping set gl_account_id = "
+                        + glAccountId + " where product_id = " + productId + " and financial_account_type = " + accountType));
+
+        When("/^This node maps the account type (\\d+) of the loan product (\\d+) to the GL account (\\d+)$/",
+                (Integer accountType, Long productId, Long glAccountId) -> {
+                    this.jdbcTemplate.update(
+                            "update acc_product_mapping set gl_account_id = ? where product_id = ? and financial_account_type = ?",
+                            glAccountId, productId, accountType);
+                    this.mappingResolver.evict();
+                });
+
+        Then("/^The latest closing date of the office (\\d+) is (none|[\\d-]+)$/", (Long officeId, String closingDate) -> {
+            final Date latestClosingDate = this.closureCache.getLatestClosingDate(officeId);
+            assertEquals(closingDate, latestClosingDate == null ? "none" : latestClosingDate.toString());
+        });
+
+        Then("/^The account type (\\d+) of the loan product (\\d+) posts to the GL account (\\d+)$/",
+                (Integer accountType, Long productId, Long glAccountId) -> assertEquals(glAccountId,
+                        this.mappingResolver.findCoreMappingAccountId(productId, LOAN_PRODUCT_TYPE, accountType)));
+    }
+
+    /**
+     * Runs a statement on its own connection, committed right away like a change made by another node.
+     */
+    private void otherNode(final String sql) throws Exception {
+        try (Connection connection = this.dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
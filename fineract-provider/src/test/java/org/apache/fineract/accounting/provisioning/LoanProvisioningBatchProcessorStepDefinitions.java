@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.provisioning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.fineract.accounting.closure.domain.GLClosureRepository;
+import org.apache.fineract.accounting.financialactivityaccount.domain.FinancialActivityAccountRepositoryWrapper;
+import org.apache.fineract.accounting.glaccount.domain.GLAccount;
+import org.apache.fineract.accounting.glaccount.domain.GLAccountRepository;
+import org.apache.fineract.accounting.glaccount.service.GLAccountReadPlatformService;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryRepository;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.accounting.journalentry.exception.JournalEntryInvalidException;
+import org.apache.fineract.accounting.journalentry.exception.JournalEntryInvalidException.GlJournalEntryInvalidReason;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorForLoanFactory;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorForSavingsFactory;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorForSharesFactory;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorHelper;
+import org.apache.fineract.accounting.journalentry.service.CashBasedAccountingProcessorForClientTransactions;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryBatchInserter;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryWritePlatformServiceJpaRepositoryImpl;
+import org.apache.fineract.accounting.provisioning.data.LoanProvisioningBucketData;
+import org.apache.fineract.accounting.provisioning.domain.LoanProductProvisioningEntry;
+import org.apache.fineract.accounting.provisioning.domain.ProvisioningEntry;
+import org.apache.fineract.accounting.provisioning.service.LoanProvisioningBatchProcessor;
+import org.apache.fineract.accounting.provisioning.service.ProvisioningEntriesReadPlatformService;
+import org.apache.fineract.accounting.rule.domain.AccountingRuleRepository;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.organisation.office.domain.Office;
+import org.apache.fineract.organisation.office.domain.OfficeRepositoryWrapper;
+import org.apache.fineract.organisation.office.domain.OrganisationCurrencyRepositoryWrapper;
+import org.apache.fineract.portfolio.paymentdetail.service.PaymentDetailWritePlatformService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class LoanProvisioningBatchProcessorStepDefinitions implements En {
+
+    private static final Long ENTRY_ID = 7L;
+    private static final Long PRODUCT_ID = 1L;
+
+    private final ProvisioningEntriesReadPlatformService provisioningEntriesReadPlatformService = mock(
+            ProvisioningEntriesReadPlatformService.class);
+    private final JournalEntryBatchInserter journalEntryBatchInserter = mock(JournalEntryBatchInserter.class);
+    private final AccountingProcessorHelper accountingProcessorHelper = mock(AccountingProcessorHelper.class);
+    private final BatchTaskExecutor batchTaskExecutor = new BatchTaskExecutor(new FineractProperties());
+    private final LoanProvisioningBatchProcessor processor = new LoanProvisioningBatchProcessor(this.provisioningEntriesReadPlatformService,
+            mock(JdbcTemplate.class), this.journalEntryBatchInserter, this.accountingProcessorHelper, this.batchTaskExecutor);
+
+    private final Date date = new Date();
+    private final List<LoanProvisioningBucketData> buckets = new ArrayList<>();
+    private final List<String> insertedJournalEntries = new ArrayList<>();
+
+    private Collection<LoanProvisioningBucketData> aggregated;
+
+    private RuntimeException failure;
+
+    public LoanProvisioningBatchProcessorStepDefinitions() {
+        Given("/^The provisioning entries (.*)$/", (String entries) -> {
+            for (final String entry : entries.split(";")) {
+                final String[] fields = entry.trim().split(" ");
+                this.buckets.add(new LoanProvisioningBucketData(Long.valueOf(fields[0]), PRODUCT_ID, fields[1], 1L, 1L, 30L,
+                        accountId(fields[2]), accountId(fields[3]), new BigDecimal(fields[4])));
+            }
+        });
+
+        Given("/^The accounting of office (\\d+) is closed on the provisioning date$/", (Long officeId) -> {
+            when(this.accountingProcessorHelper.getLatestClosingDateByBranch(officeId)).thenReturn(this.date);
+            doAnswer(invocation -> {
+                if (invocation.getArgument(0) != null) {
+                    throw new JournalEntryInvalidException(GlJournalEntryInvalidReason.ACCOUNTING_CLOSED, invocation.getArgument(0), null,
+                            null);
+                }
+                return null;
+            }).when(this.accountingProcessorHelper).checkForBranchClosures(any(), any());
+        });
+
+        Given("/^The loan partitions with the provisioning reserves (.*)$/", (String reserves) -> {
+            final List<BigDecimal> amounts = Arrays.stream(reserves.split(";")).map(String::trim).map(BigDecimal::new)
+                    .collect(Collectors.toList());
+            for (int i = 0; i < amounts.size(); i++) {
+                final long loanId = (i + 1) * 10L;
+                when(this.provisioningEntriesReadPlatformService.retrieveActiveLoanIds(eq(i == 0 ? 0L : loanId - 10L), anyInt()))
+                        .thenReturn(List.of(loanId));
+                when(this.provisioningEntriesReadPlatformService.retrieveLoanProvisioningBuckets(this.date, loanId, loanId))
+                        .thenReturn(List.of(new LoanProvisioningBucketData(1L, PRODUCT_ID, "USD", 1L, 1L, 30L, 10L, 20L, amounts.get(i))));
+            }
+            when(this.provisioningEntriesReadPlatformService.retrieveActiveLoanIds(eq(amounts.size() * 10L), anyInt()))
+                    .thenReturn(List.of());
+        });
+
+        When("/^The provisioning journal entries are inserted$/", () -> {
+            doAnswer(invocation -> {
+                final List<Object[]> rows = invocation.getArgument(0);
+                rows.forEach(row -> this.insertedJournalEntries.add(journalEntry((Long) row[1], (String) row[2], (Long) row[0],
+                        JournalEntryType.fromInt((Integer) row[6]), (BigDecimal) row[7])));
+                return null;
+            }).when(this.journalEntryBatchInserter).insert(any());
+            this.failure = null;
+            try {
+                this.processor.insertJournalEntries(ENTRY_ID, this.date, this.buckets, 1L);
+            } catch (RuntimeException e) {
+                this.failure = e;
+            }
+        });
+
+        When("/^The provisioning is aggregated on (\\d+) threads$/", (Integer threads) -> {
+            this.aggregated = this.processor.aggregate(this.date, threads);
+        });
+
+        Then("/^The provisioning journal entries are the same as the ones created from the provisioning entry entities$/", () -> {
+            final List<String> expected = new ArrayList<>();
+            final AccountingProcessorHelper helper = mock(AccountingProcessorHelper.class);
+            doAnswer(invocation -> expected.add(journalEntry(invocation.<Office>getArgument(2).getId(), invocation.getArgument(3),
+                    invocation.<GLAccount>getArgument(4).getId(), JournalEntryType.CREDIT, invocation.getArgument(5)))).when(helper)
+                    .createProvisioningCreditJournalEntry(any(), anyLong(), any(), any(), any(), any());
+            doAnswer(invocation -> expected.add(journalEntry(invocation.<Office>getArgument(2).getId(), invocation.getArgument(3),
+                    invocation.<GLAccount>getArgument(4).getId(), JournalEntryType.DEBIT, invocation.getArgument(5)))).when(helper)
+                    .createProvisioningDebitJournalEntry(any(), anyLong(), any(), any(), any(), any());
+            entityBasedJournalEntries(helper).createProvisioningJournalEntries(provisioningEntry());
+
+            assertEquals(expected.stream().sorted().collect(Collectors.toList()),
+                    this.insertedJournalEntries.stream().sorted().collect(Collectors.toList()));
+        });
+
+        Then("/^The aggregated provisioning entry reserves (.*)$/", (String reserve) -> {
+            assertEquals(1, this.aggregated.size());
+            assertEquals(new BigDecimal(reserve), this.aggregated.iterator().next().getReservedAmount());
+        });
+
+        Then("/^The provisioning journal entries are rejected with (.*)$/", (String exception) -> {
+            assertNotNull(this.failure);
+            assertEquals(exception, this.failure.getClass().getSimpleName());
+            verify(this.journalEntryBatchInserter, never()).insert(any());
+        });
+    }
+
+    private ProvisioningEntry provisioningEntry() {
+        final Map<Long, Office> offices = new HashMap<>();
+        final Map<Long, GLAccount> accounts = new HashMap<>();
+        final List<LoanProductProvisioningEntry> entries = new ArrayList<>();
+        for (final LoanProvisioningBucketData bucket : this.buckets) {
+            final Office office = offices.computeIfAbsent(bucket.getOfficeId(), id -> {
+                final Office created = mock(Office.class);
+                when(created.getId()).thenReturn(id);
+                return created;
+            });
+            final GLAccount liabilityAccount = accounts.computeIfAbsent(bucket.getLiabilityAccountId(), this::account);
+            final GLAccount expenseAccount = accounts.computeIfAbsent(bucket.getExpenseAccountId(), this::account);
+            final LoanProductProvisioningEntry entry = mock(LoanProductProvisioningEntry.class);
+            when(entry.getOffice()).thenReturn(office);
+            when(entry.getCurrencyCode()).thenReturn(bucket.getCurrencyCode());
+            when(entry.getLiabilityAccount()).thenReturn(liabilityAccount);
+            when(entry.getExpenseAccount()).thenReturn(expenseAccount);
+            when(entry.getReservedAmount()).thenReturn(bucket.getReservedAmount());
+            entries.add(entry);
+        }
+        final ProvisioningEntry provisioningEntry = mock(ProvisioningEntry.class);
+        when(provisioningEntry.getId()).thenReturn(ENTRY_ID);
+        when(provisioningEntry.getCreatedDate()).thenReturn(this.date);
+        when(provisioningEntry.getLoanProductProvisioningEntries()).thenReturn(entries);
+        return provisioningEntry;
+    }
+
+    private GLAccount account(final Long accountId) {
+        final GLAccount account = mock(GLAccount.class);
+        when(account.getId()).thenReturn(accountId);
+        return account;
+    }
+
+    private static JournalEntryWritePlatformServiceJpaRepositoryImpl entityBasedJournalEntries(final AccountingProcessorHelper helper) {
+        return new JournalEntryWritePlatformServiceJpaRepositoryImpl(mock(GLClosureRepository.class), mock(GLAccountRepository.class),
+                mock(JournalEntryRepository.class), mock(OfficeRepositoryWrapper.class), mock(AccountingProcessorForLoanFactory.class),
+                mock(AccountingProcessorForSavingsFactory.class), mock(AccountingProcessorForSharesFactory.class), helper,
+                null, mock(AccountingRuleRepository.class),
+                mock(GLAccountReadPlatformService.class), mock(OrganisationCurrencyRepositoryWrapper.class),
+                mock(PlatformSecurityContext.class), mock(PaymentDetailWritePlatformService.class),
+                mock(FinancialActivityAccountRepositoryWrapper.class), mock(CashBasedAccountingProcessorForClientTransactions.class));
+    }
+
+    private static String journalEntry(final Long officeId, final String currencyCode, final Long accountId, final JournalEntryType type,
+            final BigDecimal amount) {
+        return officeId + " " + currencyCode + " " + accountId + " " + type + " " + amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static Long accountId(final String accountId) {
+        return "-".equals(accountId) ? null : Long.valueOf(accountId);
+    }
+}
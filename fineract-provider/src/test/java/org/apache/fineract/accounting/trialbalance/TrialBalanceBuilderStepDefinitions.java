@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.accounting.trialbalance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.accounting.trialbalance.service.TrialBalanceBuilder;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+public class TrialBalanceBuilderStepDefinitions implements En {
+
+    private final Map<Long, LocalDate> pendingOffices = new LinkedHashMap<>();
+    private final Map<Long, Map<Long, BigDecimal>> openingBalances = new HashMap<>();
+    private final Map<Long, List<Map<String, Object>>> amounts = new HashMap<>();
+    private final Set<Long> failingOffices = new HashSet<>();
+
+    private final ThreadLocal<TransactionStatus> transaction = new ThreadLocal<>();
+    private final List<Statement> statements = Collections.synchronizedList(new ArrayList<>());
+    private final Set<TransactionStatus> committed = Collections.synchronizedSet(new HashSet<>());
+    private final Set<TransactionStatus> rolledBack = Collections.synchronizedSet(new HashSet<>());
+    private final List<BigDecimal> closingBalances = Collections.synchronizedList(new ArrayList<>());
+
+    private JobExecutionException failure;
+
+    public TrialBalanceBuilderStepDefinitions() {
+        Given("/^The trial balance offices (.*)$/", (String offices) -> {
+            for (final String office : offices.split(";")) {
+                final String[] fields = office.trim().split(" from ");
+                this.pendingOffices.put(Long.valueOf(fields[0]), LocalDate.parse(fields[1]));
+            }
+        });
+
+        Given("/^The trial balance insert of office (\\d+) fails$/", (Long officeId) -> this.failingOffices.add(officeId));
+
+        Given("/^The trial balance opening balance (.*) of account (\\d+) in office (\\d+)$/",
+                (String balance, Long accountId, Long officeId) -> this.openingBalances.computeIfAbsent(officeId, id -> new HashMap<>())
+                        .put(accountId, new BigDecimal(balance)));
+
+        Given("/^The trial balance amounts (.*) of account (\\d+) and (.*) of account (\\d+) in office (\\d+)$/",
+                (String firstAmounts, Long firstAccountId, String secondAmounts, Long secondAccountId, Long officeId) -> {
+                    addAmounts(officeId, firstAccountId, firstAmounts);
+                    addAmounts(officeId, secondAccountId, secondAmounts);
+                });
+
+        When("/^The trial balance is built$/", () -> {
+            final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class, this::transactionManager);
+            final DatabaseTypeResolver databaseTypeResolver = mock(DatabaseTypeResolver.class);
+            final TrialBalanceBuilder builder = new TrialBalanceBuilder(mock(JdbcTemplate.class, this::jdbc), databaseTypeResolver,
+                    transactionManager, new BatchTaskExecutor(new FineractProperties()));
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+            try {
+                builder.build(2);
+            } catch (JobExecutionException e) {
+                this.failure = e;
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        });
+
+        Then("/^The trial balance of office (\\d+) is replaced from (.*) in its own transaction$/", (Long officeId, String fromDate) -> {
+            final LocalDate toDate = LocalDate.now(ZoneId.of("UTC")).minusDays(1);
+            final List<Statement> officeStatements = officeStatements(officeId);
+            assertEquals(List.of("DELETE", "INSERT", "SELECT"),
+                    officeStatements.stream().map(statement -> statement.sql.substring(0, 6)).distinct().collect(Collectors.toList()));
+            assertEquals(List.of(officeId, LocalDate.parse(fromDate), toDate), officeStatements.get(0).args);
+            assertEquals(List.of(officeId, LocalDate.parse(fromDate), toDate), officeStatements.get(1).args);
+
+            final TransactionStatus status = officeStatements.get(0).transaction;
+            assertTrue(officeStatements.stream().allMatch(statement -> statement.transaction == status));
+            assertTrue(this.statements.stream().filter(statement -> statement.transaction == status)
+                    .allMatch(statement -> officeId.equals(statement.officeId())));
+            assertTrue(this.committed.contains(status));
+        });
+
+        Then("/^The trial balance transaction of office (\\d+) is rolled back$/", (Long officeId) -> {
+            final TransactionStatus status = officeStatements(officeId).get(0).transaction;
+            assertTrue(this.rolledBack.contains(status));
+            assertFalse(this.committed.contains(status));
+        });
+
+        Then("/^The trial balance build fails with (\\d+) errors?$/", (Integer errors) -> {
+            assertNotNull(this.failure);
+            assertEquals(errors.intValue(), this.failure.getCauses().size());
+        });
+
+        Then("/^The trial balance closing balances of office (\\d+) are (.*)$/", (Long officeId, String balances) -> {
+            assertEquals(Arrays.stream(balances.split(",")).map(String::trim).map(BigDecimal::new).collect(Collectors.toList()),
+                    this.closingBalances);
+        });
+    }
+
+    private void addAmounts(final Long officeId, final Long accountId, final String amounts) {
+        final LocalDate fromDate = this.pendingOffices.get(officeId);
+        final List<Map<String, Object>> rows = this.amounts.computeIfAbsent(officeId, id -> new ArrayList<>());
+        final String[] values = amounts.split(",");
+        for (int i = 0; i < values.length; i++) {
+            final Date date = Date.valueOf(fromDate.plusDays(i));
+            rows.add(Map.of("account_id", accountId, "entry_date", date, "created_date", date, "amount", new BigDecimal(values[i].trim())));
+        }
+    }
+
+    private List<Statement> officeStatements(final Long officeId) {
+        return this.statements.stream().filter(statement -> officeId.equals(statement.officeId())).collect(Collectors.toList());
+    }
+
+    private Object transactionManager(final InvocationOnMock invocation) {
+        switch (invocation.getMethod().getName()) {
+            case "getTransaction":
+                final TransactionStatus status = mock(TransactionStatus.class);
+                this.transaction.set(status);
+                return status;
+            case "commit":
+                this.committed.add(invocation.getArgument(0));
+                return null;
+            case "rollback":
+                this.rolledBack.add(invocation.getArgument(0));
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private Object jdbc(final InvocationOnMock invocation) throws SQLException {
+        final Object[] args = invocation.getArguments();
+        final String sql = (String) args[0];
+        switch (invocation.getMethod().getName()) {
+            case "update":
+                this.statements.add(new Statement(this.transaction.get(), sql, Arrays.asList(args).subList(1, args.length)));
+                if (sql.startsWith("INSERT") && this.failingOffices.contains(args[1])) {
+                    throw new DataIntegrityViolationException("trial balance insert failed");
+                }
+                return 1;
+            case "query":
+                final RowCallbackHandler handler = (RowCallbackHandler) args[1];
+                if (sql.contains("MIN(je.transaction_date)")) {
+                    for (final Map.Entry<Long, LocalDate> office : this.pendingOffices.entrySet()) {
+                        handler.processRow(resultSet(Map.of("office_id", office.getKey(), "from_date", Date.valueOf(office.getValue()))));
+                    }
+                    return null;
+                }
+                this.statements.add(new Statement(this.transaction.get(), sql, Arrays.asList(args).subList(2, args.length)));
+                final Long officeId = (Long) args[2];
+                if (sql.contains("t.closing_balance")) {
+                    for (final Map.Entry<Long, BigDecimal> balance : this.openingBalances.getOrDefault(officeId, Map.of()).entrySet()) {
+                        handler.processRow(resultSet(Map.of("account_id", balance.getKey(), "closing_balance", balance.getValue())));
+                    }
+                } else {
+                    for (final Map<String, Object> row : this.amounts.getOrDefault(officeId, List.of())) {
+                        handler.processRow(resultSet(row));
+                    }
+                }
+                return null;
+            case "batchUpdate":
+                final List<Object[]> batch = invocation.getArgument(1);
+                batch.forEach(row -> this.closingBalances.add((BigDecimal) row[0]));
+                final int[] counts = new int[batch.size()];
+                Arrays.fill(counts, 1);
+                return counts;
+            default:
+                return null;
+        }
+    }
+
+    private static ResultSet resultSet(final Map<String, Object> row) {
+        return mock(ResultSet.class, invocation -> row.get(invocation.<String>getArgument(0)));
+    }
+
+    private static final class Statement {
+
+        private final TransactionStatus transaction;
+        private final String sql;
+        private final List<Object> args;
+
+        private Statement(final TransactionStatus transaction, final String sql, final List<Object> args) {
+            this.transaction = transaction;
+            this.sql = sql;
+            this.args = args;
+        }
+
+        private Object officeId() {
+            return this.args.get(0);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.adhocquery.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.apache.fineract.adhocquery.data.AdHocData;
+import org.apache.fineract.adhocquery.domain.AdHocRefreshMode;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.BatchTaskExecutor;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class AdHocRefreshEngineStepDefinitions implements En {
+
+    private MySqlTableDdlJdbcTemplate jdbcTemplate;
+    private BatchTaskExecutor batchTaskExecutor;
+    private AdHocRefreshEngine adHocRefreshEngine;
+    private final List<AdHocData> adhocs = new ArrayList<>();
+    private JobExecutionException refreshException;
+
+    public AdHocRefreshEngineStepDefinitions() {
+        Given("/^The ad-hoc source holds the loans (.+)$/", (String loans) -> {
+            final DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            this.jdbcTemplate = new MySqlTableDdlJdbcTemplate(dataSource);
+            this.jdbcTemplate.execute("create table m_adhoc (id bigint primary key, last_run datetime)");
+            this.jdbcTemplate.execute("create table m_adhoc_run (id bigint auto_increment primary key, adhoc_id bigint not null,"
+                    + " refresh_mode int not null, started_at datetime not null, duration_ms bigint not null, rows_affected bigint,"
+                    + " status varchar(20) not null, error_message varchar(1000))");
+            this.jdbcTemplate.execute("create table adhoc_source (id bigint primary key, made_on int)");
+            insertLoans("adhoc_source", loans);
+
+            final FineractProperties fineractProperties = new FineractProperties();
+            this.batchTaskExecutor = new BatchTaskExecutor(fineractProperties);
+            // the full refreshes take the MySQL path, of which H2 plays the table DDL
+            this.adHocRefreshEngine = new AdHocRefreshEngine(this.jdbcTemplate, mock(DatabaseTypeResolver.class),
+                    new DataSourceTransactionManager(dataSource), this.batchTaskExecutor);
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        });
+
+        After(() -> {
+            if (this.batchTaskExecutor == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+            this.batchTaskExecutor.destroy();
+        });
+
+        Given("/^The ad-hoc query (\\d+) (appends to|rebuilds|incrementally refreshes) the table (\\w+)"
+                + "(?: on the column (\\w+)(?: as (\\w+))?)?( from a missing table)?$/",
+                (Long id, String refresh, String table, String watermarkColumn, String targetWatermarkColumn, String missingTable) -> {
+                    final AdHocRefreshMode mode = "appends to".equals(refresh) ? AdHocRefreshMode.APPEND
+                            : "rebuilds".equals(refresh) ? AdHocRefreshMode.FULL : AdHocRefreshMode.INCREMENTAL;
+                    final String madeOnColumn = targetWatermarkColumn == null ? "made_on" : targetWatermarkColumn;
+                    this.jdbcTemplate.execute("create table if not exists " + table + " (id bigint, " + madeOnColumn + " int)");
+                    this.jdbcTemplate.update("insert into m_adhoc (id) values (?)", id);
+                    this.adhocs.add(new AdHocData(id, "query " + id,
+                            "SELECT id, made_on FROM " + (missingTable == null ? "adhoc_source" : "adhoc_missing"), table,
+                            "id, " + madeOnColumn, null, true, null, null, null, null, null, null, null, null, null, null, mode.getValue(),
+                            watermarkColumn, targetWatermarkColumn));
+                });
+
+        Given("/^The table (\\w+) was filled with the loans (.+)$/", this::insertLoans);
+
+        When("/^The ad-hoc source gains the loans (.+)$/", (String loans) -> insertLoans("adhoc_source", loans));
+
+        When("/^The ad-hoc tables are refreshed$/", () -> {
+            try {
+                this.adHocRefreshEngine.refresh(this.adhocs, 2);
+                this.refreshException = null;
+            } catch (JobExecutionException e) {
+                this.refreshException = e;
+            }
+        });
+
+        Then("/^The refresh failed for (\\d+) quer(?:y|ies)$/",
+                (Integer failures) -> assertEquals(failures, this.refreshException == null ? 0 : this.refreshException.getCauses().size()));
+
+        Then("/^The table (\\w+) holds the loans (.+)$/", (String table, String loans) -> assertEquals(loans(loans), loansOf(table)));
+
+        Then("/^The table (\\w+) held the loans (.+) until the swap$/",
+                (String table, String loans) -> assertEquals(loans(loans), this.jdbcTemplate.rowsBeforeSwap.get(table)));
+
+        Then("/^The shadow tables of (\\w+) are dropped$/", (String table) -> assertEquals(0, this.jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables where lower(table_name) in (?, ?)", Integer.class, table + "_shadow",
+                table + "_old")));
+
+        Then("/^The last run of the ad-hoc query (\\d+) (?:succeeded with (\\d+) rows|failed)$/", (Long id, Long rows) -> {
+            final Map<String, Object> run = this.jdbcTemplate.queryForMap(
+                    "select status, rows_affected from m_adhoc_run where adhoc_id = ? order by id desc limit 1", id);
+            assertEquals(rows == null ? "FAILED" : "SUCCESS", run.get("status"));
+            assertEquals(rows, run.get("rows_affected") == null ? null : ((Number) run.get("rows_affected")).longValue());
+        });
+    }
+
+    private void insertLoans(final String table, final String loans) {
+        for (final String loan : loans(loans)) {
+            final String[] idAndMadeOn = loan.split(" at ");
+            this.jdbcTemplate.update("insert into " + table + " values (?, ?)", Long.valueOf(idAndMadeOn[0]),
+                    Integer.valueOf(idAndMadeOn[1]));
+        }
+    }
+
+    private List<String> loansOf(final String table) {
+        return this.jdbcTemplate.query("select * from " + table + " order by 1, 2", (rs, rowNum) -> rs.getLong(1) + " at " + rs.getInt(2));
+    }
+
+    /**
+     * Splits "1 at 10, 2 at 20 and 3 at 20" into its loans.
+     */
+    private static List<String> loans(final String loans) {
+        return List.of(loans.split(", | and "));
+    }
+
+    /**
+     * Plays the MySQL table DDL of the full refresh on H2, and keeps the rows readers of a table see right before it is
+     * swapped.
+     */
+    private static final class MySqlTableDdlJdbcTemplate extends JdbcTemplate {
+
+        private static final Pattern CREATE_LIKE = Pattern.compile("CREATE TABLE (\\w+) LIKE (\\w+)");
+        private static final Pattern RENAME = Pattern.compile("RENAME TABLE (\\w+) TO (\\w+), (\\w+) TO (\\w+)");
+
+        private final Map<String, List<String>> rowsBeforeSwap = new HashMap<>();
+
+        MySqlTableDdlJdbcTemplate(final DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void execute(final String sql) {
+            final Matcher createLike = CREATE_LIKE.matcher(sql);
+            final Matcher rename = RENAME.matcher(sql);
+            if (createLike.matches()) {
+                super.execute("CREATE TABLE " + createLike.group(1) + " AS SELECT * FROM " + createLike.group(2) + " WHERE 1 = 0");
+            } else if (rename.matches()) {
+                this.rowsBeforeSwap.put(rename.group(1), query("select * from " + rename.group(1) + " order by 1, 2",
+                        (rs, rowNum) -> rs.getLong(1) + " at " + rs.getInt(2)));
+                super.execute("ALTER TABLE " + rename.group(1) + " RENAME TO " + rename.group(2));
+                super.execute("ALTER TABLE " + rename.group(3) + " RENAME TO " + rename.group(4));
+            } else {
+                super.execute(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.commands.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.apache.fineract.commands.data.AuditData;
+import org.apache.fineract.infrastructure.core.data.PaginationParametersDataValidator;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.PaginationHelper;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.infrastructure.security.utils.ColumnValidator;
+import org.apache.fineract.infrastructure.security.utils.SQLBuilder;
+import org.apache.fineract.organisation.office.domain.Office;
+import org.apache.fineract.organisation.office.service.OfficeHierarchyScope;
+import org.apache.fineract.organisation.office.service.OfficeReadPlatformService;
+import org.apache.fineract.organisation.staff.service.StaffReadPlatformService;
+import org.apache.fineract.portfolio.client.service.ClientReadPlatformService;
+import org.apache.fineract.portfolio.loanproduct.service.LoanProductReadPlatformService;
+import org.apache.fineract.portfolio.savings.service.DepositProductReadPlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsProductReadPlatformService;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.apache.fineract.useradministration.service.AppUserReadPlatformService;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class AuditLogArchivalStepDefinitions implements En {
+
+    private static final String COMMAND_COLUMNS = "action_name varchar(50) not null, entity_name varchar(50) not null, office_id bigint,"
+            + " group_id bigint, client_id bigint, loan_id bigint, savings_account_id bigint, api_get_url varchar(100) not null,"
+            + " resource_id bigint, subresource_id bigint, command_as_json text, maker_id bigint not null,"
+            + " made_on_date datetime not null, checker_id bigint, checked_on_date datetime, processing_result_enum smallint not null,"
+            + " product_id bigint, transaction_id varchar(100), creditbureau_id bigint, organisation_creditbureau_id bigint";
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditLogArchivalServiceImpl auditLogArchivalService;
+    private AuditReadPlatformServiceImpl auditReadPlatformService;
+
+    public AuditLogArchivalStepDefinitions() {
+        Given("/^The audit log of the tenant$/", () -> {
+            final DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            this.jdbcTemplate = new PartitionedArchiveJdbcTemplate(dataSource);
+            this.jdbcTemplate.execute("create table m_portfolio_command_source (id bigint auto_increment primary key, "
+                    + COMMAND_COLUMNS + ")");
+            this.jdbcTemplate.execute("create table m_portfolio_command_source_json (command_source_id bigint primary key, "
+                    + "payload blob not null)");
+            this.jdbcTemplate.execute("create table m_portfolio_command_source_archive (id bigint not null, archive_month int not null, "
+                    + COMMAND_COLUMNS + ", payload blob, archived_on datetime not null, primary key (archive_month, id))");
+            this.jdbcTemplate.execute("create table m_appuser (id bigint primary key, username varchar(100))");
+            this.jdbcTemplate.execute("create table m_office (id bigint primary key, name varchar(100))");
+            this.jdbcTemplate.execute("create table m_group (id bigint primary key, display_name varchar(100), level_id bigint)");
+            this.jdbcTemplate.execute("create table m_group_level (id bigint primary key, level_name varchar(100))");
+            this.jdbcTemplate.execute("create table m_client (id bigint primary key, display_name varchar(100))");
+            this.jdbcTemplate.execute("create table m_loan (id bigint primary key, account_no varchar(20))");
+            this.jdbcTemplate.execute("create table m_savings_account (id bigint primary key, account_no varchar(20))");
+            this.jdbcTemplate
+                    .execute("create table r_enum_value (enum_name varchar(100), enum_id int, enum_message_property varchar(100))");
+            this.jdbcTemplate.execute("insert into m_appuser (id, username) values (1, 'mifos')");
+            this.jdbcTemplate.execute("insert into r_enum_value values ('processing_result_enum', 1, 'processed')");
+
+            final DatabaseTypeResolver databaseTypeResolver = mock(DatabaseTypeResolver.class);
+            when(databaseTypeResolver.isMySQL()).thenReturn(true);
+            final DatabaseSpecificSQLGenerator sqlGenerator = new DatabaseSpecificSQLGenerator(databaseTypeResolver);
+            this.auditLogArchivalService = new AuditLogArchivalServiceImpl(this.jdbcTemplate, databaseTypeResolver, sqlGenerator,
+                    new DataSourceTransactionManager(dataSource));
+
+            // a head office user sees the entries of all offices
+            final Office headOffice = mock(Office.class);
+            when(headOffice.getHierarchy()).thenReturn(".");
+            final AppUser user = mock(AppUser.class);
+            when(user.getOffice()).thenReturn(headOffice);
+            final PlatformSecurityContext context = mock(PlatformSecurityContext.class);
+            when(context.authenticatedUser()).thenReturn(user);
+            this.auditReadPlatformService = new AuditReadPlatformServiceImpl(this.jdbcTemplate, context, new FromJsonHelper(),
+                    mock(AppUserReadPlatformService.class), mock(OfficeReadPlatformService.class), mock(ClientReadPlatformService.class),
+                    mock(LoanProductReadPlatformService.class), mock(StaffReadPlatformService.class), mock(PaginationHelper.class),
+                    sqlGenerator, mock(PaginationParametersDataValidator.class), mock(SavingsProductReadPlatformService.class),
+                    mock(DepositProductReadPlatformService.class), mock(ColumnValidator.class), mock(OfficeHierarchyScope.class));
+
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        });
+
+        After(() -> {
+            if (this.jdbcTemplate == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+        });
+
+        Given("/^The command (\\d+) with the payload (.+) was made (\\d+) days ago$/", (Long id, String payload, Integer days) -> {
+            final LocalDateTime madeOnDate = DateUtils.getLocalDateTimeOfTenant().minusDays(days);
+            this.jdbcTemplate.update("insert into m_portfolio_command_source (id, action_name, entity_name, api_get_url, command_as_json,"
+                    + " maker_id, made_on_date, checker_id, checked_on_date, processing_result_enum)"
+                    + " values (?, 'CREATE', 'CLIENT', '/clients', ?, 1, ?, 1, ?, 1)", id, payload, madeOnDate, madeOnDate);
+        });
+
+        When("/^The audit log archival job runs with the parameters (.+)$/", (String parameters) -> {
+            final Map<String, String> jobParameters = new HashMap<>();
+            jobParameters.put("compress-payloads", "true");
+            for (final String parameter : parameters.split(",")) {
+                final String[] nameAndValue = parameter.trim().split("=");
+                jobParameters.put(nameAndValue[0], nameAndValue[1]);
+            }
+            this.auditLogArchivalService.archiveAuditLog(jobParameters);
+        });
+
+        Then("/^The audit log holds the commands (none|[\\d, ]+) and the archive the commands (none|[\\d, ]+)$/",
+                (String liveIds, String archivedIds) -> {
+                    assertEquals(liveIds, ids(this.jdbcTemplate.queryForList("select id from m_portfolio_command_source order by id",
+                            Long.class)));
+                    assertEquals(archivedIds, ids(this.jdbcTemplate
+                            .queryForList("select id from m_portfolio_command_source_archive order by id", Long.class)));
+                });
+
+        Then("/^The audit search(?: below the command (\\d+))? finds the commands ([\\d, ]+)$/", (Long beforeId, String ids) -> {
+            final List<Long> found = new ArrayList<>();
+            for (final AuditData auditData : this.auditReadPlatformService.retrieveAuditEntries(new SQLBuilder(), true, beforeId, 10)) {
+                found.add(auditData.getId());
+            }
+            assertEquals(ids, ids(found));
+        });
+
+        Then("/^The audit entry (\\d+) has the payload (.+)$/", (Long id, String payload) -> assertEquals(payload,
+                this.auditReadPlatformService.retrieveAuditEntry(id).getCommandAsJson()));
+
+        Then("/^The audit entry (\\d+) is not found$/", (Long id) -> assertThrows(EmptyResultDataAccessException.class,
+                () -> this.auditReadPlatformService.retrieveAuditEntry(id)));
+    }
+
+    private static String ids(final List<Long> ids) {
+        return ids.isEmpty() ? "none" : ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Plays the MySQL month partitions of the archive on H2, which has none: the partitions are kept in a list, and
+     * dropping one deletes its rows.
+     */
+    private static final class PartitionedArchiveJdbcTemplate extends JdbcTemplate {
+
+        private static final Pattern ADD_PARTITION = Pattern
+                .compile("alter table (\\w+) reorganize partition pmax into \\(partition p(\\d+) .*");
+        private static final Pattern DROP_PARTITION = Pattern.compile("alter table (\\w+) drop partition p(\\d+)");
+
+        private final TreeSet<Integer> partitionMonths = new TreeSet<>();
+
+        PartitionedArchiveJdbcTemplate(final DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public void execute(final String sql) {
+            final Matcher addPartition = ADD_PARTITION.matcher(sql);
+            final Matcher dropPartition = DROP_PARTITION.matcher(sql);
+            if (addPartition.matches()) {
+                this.partitionMonths.add(Integer.valueOf(addPartition.group(2)));
+            } else if (dropPartition.matches()) {
+                final Integer month = Integer.valueOf(dropPartition.group(2));
+                this.partitionMonths.remove(month);
+                super.update("delete from " + dropPartition.group(1) + " where archive_month >= ? and archive_month < ?", month,
+                        nextMonth(month));
+            } else {
+                super.execute(sql);
+            }
+        }
+
+        @Override
+        public <T> List<T> queryForList(final String sql, final Class<T> elementType, final Object... args) {
+            if (!sql.contains("information_schema.partitions")) {
+                return super.queryForList(sql, elementType, args);
+            }
+            final List<T> names = new ArrayList<>();
+            for (final Integer month : this.partitionMonths) {
+                names.add(elementType.cast("p" + month));
+            }
+            names.add(elementType.cast("pmax"));
+            return names;
+        }
+
+        private static int nextMonth(final int month) {
+            final YearMonth next = YearMonth.of(month / 100, month % 100).plusMonths(1);
+            return next.getYear() * 100 + next.getMonthValue();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.bulkimport.importhandler.streaming;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.cucumber.java8.En;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.bulkimport.constants.TemplatePopulateImportConstants;
+import org.apache.fineract.infrastructure.bulkimport.importhandler.ImportHandlerUtils;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+public class StreamingImportStepDefinitions implements En {
+
+    private static final String SHEET = "Entries";
+    private static final int STATUS_COL = 6;
+    private static final int REPORT_COL = 7;
+
+    private byte[] xlsx;
+    private Workbook lookupWorkbook;
+    private final List<ImportRow> entries = new ArrayList<>();
+
+    private final List<String> keys = new ArrayList<>();
+    private final Map<Integer, RuntimeException> failures = new HashMap<>();
+    private final Map<String, List<Integer>> importedByKey = new HashMap<>();
+    private final List<long[]> progressReports = Collections.synchronizedList(new ArrayList<>());
+    private ImportRowResults results;
+
+    public StreamingImportStepDefinitions() {
+        Given("/^The bulk import sheet with 3 entries, a row without a name and 1 more row$/", () -> {
+            try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                final Sheet sheet = workbook.createSheet(SHEET);
+                final CellStyle dateStyle = workbook.createCellStyle();
+                dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd MMMM yyyy"));
+                header(sheet);
+                for (int i = 1; i <= 3; i++) {
+                    final Row row = sheet.createRow(i);
+                    row.createCell(0).setCellValue("name" + i);
+                    row.createCell(1).setCellValue(i * 10);
+                    row.createCell(2).setCellValue(LocalDate.of(2022, 1, i));
+                    row.getCell(2).setCellStyle(dateStyle);
+                    row.createCell(3).setCellFormula("B" + (i + 1) + "*2");
+                    row.createCell(4).setCellValue(i % 2 == 1);
+                }
+                sheet.createRow(4).createCell(1).setCellValue(40);
+                sheet.createRow(5).createCell(0).setCellValue("after");
+                workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+                this.xlsx = toBytes(workbook);
+            }
+        });
+
+        When("/^The bulk import entries of the sheet are read as a stream$/",
+                () -> XlsxSheetReader.readEntries(this.xlsx, SHEET, 0, this.entries::add));
+
+        Then("/^The bulk import reader returns the 3 entries with their strings, numbers, dates, formula results and booleans$/", () -> {
+            assertEquals(3, this.entries.size());
+            for (int i = 1; i <= 3; i++) {
+                final ImportRow row = this.entries.get(i - 1);
+                assertEquals(i, row.getRowIndex());
+                assertEquals("name" + i, row.readAsString(0));
+                assertEquals(i * 10.0, row.readAsDouble(1));
+                assertEquals(LocalDate.of(2022, 1, i), row.readAsDate(2));
+                assertEquals(i * 20.0, row.readAsDouble(3));
+                assertEquals(i % 2 == 1, row.readAsBoolean(4));
+                assertTrue(row.isNotImported(STATUS_COL));
+            }
+            assertEquals(3, XlsxSheetReader.countRows(this.xlsx, 0));
+        });
+
+        Given("/^The bulk import lookup sheets of offices and staff$/", () -> {
+            this.lookupWorkbook = new XSSFWorkbook();
+            final Sheet offices = this.lookupWorkbook.createSheet(TemplatePopulateImportConstants.OFFICE_SHEET_NAME);
+            final Sheet staff = this.lookupWorkbook.createSheet(TemplatePopulateImportConstants.STAFF_SHEET_NAME);
+            for (int i = 0; i < 3; i++) {
+                final Row office = offices.createRow(i);
+                office.createCell(0).setCellValue(i + 1);
+                office.createCell(1).setCellValue("Office " + i);
+                final Row staffRow = staff.createRow(i);
+                staffRow.createCell(0).setCellValue("Office " + i);
+                staffRow.createCell(1).setCellValue("Staff " + i);
+                staffRow.createCell(2).setCellValue(10 + i);
+            }
+            // a name seen twice keeps the id of its first cell
+            final Row duplicate = offices.createRow(3);
+            duplicate.createCell(0).setCellValue(99);
+            duplicate.createCell(1).setCellValue("Office 1");
+        });
+
+        Then("/^The bulk import sheet index returns the ids the workbook lookup returns$/", () -> {
+            final byte[] lookupXlsx = toBytes(this.lookupWorkbook);
+            for (final String sheetName : Arrays.asList(TemplatePopulateImportConstants.OFFICE_SHEET_NAME,
+                    TemplatePopulateImportConstants.STAFF_SHEET_NAME)) {
+                final Sheet sheet = this.lookupWorkbook.getSheet(sheetName);
+                final ImportSheetIndex fromWorkbook = ImportSheetIndex.of(this.lookupWorkbook, sheetName);
+                final ImportSheetIndex fromStream = ImportSheetIndex.read(lookupXlsx, sheetName);
+                for (final String name : Arrays.asList("Office 0", "Office 1", "Office 2", "Staff 0", "Staff 2", "Unknown", null)) {
+                    final Long expected = ImportHandlerUtils.getIdByName(sheet, name);
+                    assertEquals(expected, fromWorkbook.getIdByName(name), sheetName + " " + name);
+                    assertEquals(expected, fromStream.getIdByName(name), sheetName + " " + name);
+                }
+            }
+            assertEquals(2L, ImportSheetIndex.of(this.lookupWorkbook, TemplatePopulateImportConstants.OFFICE_SHEET_NAME)
+                    .getIdByName("Office 1"));
+        });
+
+        Given("/^The bulk import rows with the keys (.*)$/", (String keys) -> this.keys.addAll(Arrays.asList(keys.split(",\\s*"))));
+
+        Given("/^(\\d+) bulk import rows with different keys$/", (Integer rows) -> {
+            for (int i = 0; i < rows; i++) {
+                this.keys.add("key" + i);
+            }
+        });
+
+        Given("/^The bulk import row (\\d+) fails with the message (.*)$/",
+                (Integer rowIndex, String message) -> this.failures.put(rowIndex, new IllegalStateException(message)));
+
+        Given("/^The bulk import row (\\d+) fails with the status (.*) and the report cell (\\d+)$/",
+                (Integer rowIndex, String status, Long reportCell) -> this.failures.put(rowIndex,
+                        new ImportRowFailure(status, Map.of(REPORT_COL, reportCell), new IllegalStateException(status))));
+
+        When("/^The bulk import rows are imported on (\\d+) lanes$/", (Integer lanes) -> {
+            final ImportRowPipeline pipeline = new ImportRowPipeline(lanes, 2,
+                    new ImportRowResults(SHEET, STATUS_COL, TemplatePopulateImportConstants.STATUS_COL_REPORT_HEADER),
+                    (successCount, errorCount) -> this.progressReports.add(new long[] { successCount, errorCount }));
+            for (int i = 0; i < this.keys.size(); i++) {
+                final String key = this.keys.get(i);
+                final int rowIndex = i + 1;
+                pipeline.submit(key, rowIndex, () -> {
+                    final RuntimeException failure = this.failures.get(rowIndex);
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    synchronized (this.importedByKey) {
+                        this.importedByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(rowIndex);
+                    }
+                });
+            }
+            this.results = pipeline.finish();
+        });
+
+        Then("/^The bulk import rows of every key are imported in sheet order$/", () -> {
+            for (final Map.Entry<String, List<Integer>> imported : this.importedByKey.entrySet()) {
+                final List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < this.keys.size(); i++) {
+                    if (this.keys.get(i).equals(imported.getKey())) {
+                        expected.add(i + 1);
+                    }
+                }
+                assertEquals(expected, imported.getValue(), imported.getKey());
+            }
+        });
+
+        Then("/^The bulk import counts (\\d+) imported and (\\d+) failed rows$/", (Integer imported, Integer failed) -> {
+            assertEquals(imported, this.results.getSuccessCount());
+            assertEquals(failed, this.results.getErrorCount());
+            assertEquals(imported + failed, this.results.getProcessedRowIndexes().size());
+        });
+
+        Then("/^The bulk import row (\\d+) has the status (.*) and the report cell (\\d+)$/", (Integer rowIndex, String status,
+                Long reportCell) -> {
+            assertEquals(status, this.results.getError(rowIndex));
+            assertEquals(Map.of(REPORT_COL, reportCell), this.results.getReportCells(rowIndex));
+        });
+
+        Then("/^The bulk import row (\\d+) has the status (\\w+)$/", (Integer rowIndex, String status) -> {
+            assertEquals(status, this.results.getError(rowIndex));
+            assertTrue(this.results.getReportCells(rowIndex).isEmpty());
+            assertFalse(this.results.isImported(rowIndex));
+        });
+
+        Then("/^The bulk import progress is reported at most (\\d+) times, the last time with (\\d+) imported rows$/",
+                (Integer times, Long imported) -> {
+                    assertTrue(this.progressReports.size() <= times, "reports " + this.progressReports.size());
+                    final long[] last = this.progressReports.get(this.progressReports.size() - 1);
+                    assertEquals(imported, last[0]);
+                    assertEquals(0L, last[1]);
+                });
+
+        Given("/^The bulk import sheet with a formula, a data validation, a bold cell and a missing row$/", () -> {
+            try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+                final XSSFSheet sheet = workbook.createSheet(SHEET);
+                header(sheet);
+                // row 3 is missing, its result is written between rows 2 and 4
+                for (final int rowIndex : new int[] { 1, 2, 4 }) {
+                    final Row row = sheet.createRow(rowIndex);
+                    row.createCell(0).setCellValue("name" + rowIndex);
+                    row.createCell(1).setCellValue(rowIndex * 10);
+                    row.createCell(3).setCellFormula("B" + (rowIndex + 1) + "*2");
+                }
+                final CellStyle bold = workbook.createCellStyle();
+                final Font font = workbook.createFont();
+                font.setBold(true);
+                bold.setFont(font);
+                sheet.getRow(1).getCell(0).setCellStyle(bold);
+                // a previous import failed the second row
+                sheet.getRow(2).createCell(STATUS_COL).setCellValue("previous error");
+                sheet.getRow(2).getCell(STATUS_COL).setCellStyle(bold);
+                final DataValidationHelper helper = sheet.getDataValidationHelper();
+                sheet.addValidationData(helper.createValidation(helper.createExplicitListConstraint(new String[] { "yes", "no" }),
+                        new CellRangeAddressList(1, 100, 4, 4)));
+                workbook.createSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME).createRow(0).createCell(0).setCellValue("extra");
+                workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+                this.xlsx = toBytes(workbook);
+            }
+        });
+
+        When("/^The bulk import results of rows 1, 2 and the missing row are written into the file$/", () -> {
+            this.results = new ImportRowResults(SHEET, STATUS_COL, TemplatePopulateImportConstants.STATUS_COL_REPORT_HEADER)
+                    .withHeader(REPORT_COL, "Report");
+            this.results.imported(1);
+            this.results.failed(2, "Creation failed", Map.of(REPORT_COL, 42L));
+            this.results.failed(3, "boom");
+            this.xlsx = XlsxResultWriter.write(this.xlsx, this.results);
+        });
+
+        Then("/^The bulk import file keeps the formula, the data validation, the bold cell and the other sheet$/", () -> {
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(this.xlsx))) {
+                final XSSFSheet sheet = workbook.getSheet(SHEET);
+                assertEquals("B2*2", sheet.getRow(1).getCell(3).getCellFormula());
+                assertEquals("B5*2", sheet.getRow(4).getCell(3).getCellFormula());
+                assertEquals(1, sheet.getDataValidations().size());
+                assertTrue(workbook.getFontAt(sheet.getRow(1).getCell(0).getCellStyle().getFontIndex()).getBold());
+                assertEquals("name4", sheet.getRow(4).getCell(0).getStringCellValue());
+                assertEquals("extra", workbook.getSheet(TemplatePopulateImportConstants.EXTRAS_SHEET_NAME).getRow(0).getCell(0)
+                        .getStringCellValue());
+            }
+        });
+
+        Then("/^The bulk import file has the statuses, the report cell and the headers of the results$/", () -> {
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(this.xlsx))) {
+                final XSSFSheet sheet = workbook.getSheet(SHEET);
+                assertEquals(TemplatePopulateImportConstants.STATUS_COL_REPORT_HEADER,
+                        sheet.getRow(0).getCell(STATUS_COL).getStringCellValue());
+                assertEquals("Report", sheet.getRow(0).getCell(REPORT_COL).getStringCellValue());
+                assertStatus(sheet, 1, TemplatePopulateImportConstants.STATUS_CELL_IMPORTED, IndexedColors.LIGHT_GREEN);
+                assertStatus(sheet, 2, "Creation failed", IndexedColors.RED);
+                assertStatus(sheet, 3, "boom", IndexedColors.RED);
+                assertEquals(42.0, sheet.getRow(2).getCell(REPORT_COL).getNumericCellValue());
+                assertNull(sheet.getRow(4).getCell(STATUS_COL));
+            }
+            final List<ImportRow> rows = new ArrayList<>();
+            XlsxSheetReader.read(this.xlsx, SHEET, rows::add);
+            assertEquals(Arrays.asList(0, 1, 2, 3, 4), rows.stream().map(ImportRow::getRowIndex).collect(Collectors.toList()));
+            assertFalse(rows.get(1).isNotImported(STATUS_COL));
+            assertTrue(rows.get(2).isNotImported(STATUS_COL));
+        });
+    }
+
+    private static void header(final Sheet sheet) {
+        final Row header = sheet.createRow(TemplatePopulateImportConstants.ROWHEADER_INDEX);
+        final String[] names = { "Name", "Amount", "Date", "Total", "Active" };
+        for (int i = 0; i < names.length; i++) {
+            header.createCell(i).setCellValue(names[i]);
+        }
+    }
+
+    private static void assertStatus(final XSSFSheet sheet, final int rowIndex, final String status, final IndexedColors color) {
+        final XSSFCellStyle style = sheet.getRow(rowIndex).getCell(STATUS_COL).getCellStyle();
+        assertEquals(status, sheet.getRow(rowIndex).getCell(STATUS_COL).getStringCellValue());
+        assertEquals(FillPatternType.SOLID_FOREGROUND, style.getFillPattern());
+        final XSSFColor fill = style.getFillForegroundXSSFColor();
+        assertEquals(color.getIndex(), fill.getIndex());
+    }
+
+    private static byte[] toBytes(final Workbook workbook) {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            workbook.write(bos);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bos.toByteArray();
+    }
+}
@@ -33,12 +33,14 @@ import java.util.List;
 import javax.sql.DataSource;
 import org.apache.fineract.infrastructure.core.config.FineractProperties;
 import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.persistence.PooledIdentitySequenceResync;
 import org.apache.fineract.infrastructure.core.service.migration.ExtendedSpringLiquibase;
 import org.apache.fineract.infrastructure.core.service.migration.ExtendedSpringLiquibaseFactory;
 import org.apache.fineract.infrastructure.core.service.migration.SchemaUpgradeNeededException;
 import org.apache.fineract.infrastructure.core.service.migration.TenantDataSourceFactory;
 import org.apache.fineract.infrastructure.core.service.migration.TenantDatabaseStateVerifier;
 import org.apache.fineract.infrastructure.core.service.migration.TenantDatabaseUpgradeService;
+import org.apache.fineract.infrastructure.core.service.migration.TenantSchemaFingerprint;
 import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
 
 public class LiquibaseStepDefinitions implements En {
@@ -55,6 +57,7 @@ public class LiquibaseStepDefinitions implements En {
     private FineractPlatformTenant defaultTenant;
     private DataSource tenantStoreDataSource;
     private TenantDatabaseUpgradeService tenantDatabaseUpgradeService;
+    private TenantSchemaFingerprint schemaFingerprint;
     private List<FineractPlatformTenant> allTenants;
     private SchemaUpgradeNeededException executionException;
     private DataSource defaultTenantDataSource;
@@ -141,6 +144,7 @@ public class LiquibaseStepDefinitions implements En {
         tenantDetailsService = mock(TenantDetailsService.class);
         databaseStateVerifier = mock(TenantDatabaseStateVerifier.class);
         fineractProperties = mock(FineractProperties.class);
+        schemaFingerprint = mock(TenantSchemaFingerprint.class);
 
         liquibaseFactory = mock(ExtendedSpringLiquibaseFactory.class);
 
@@ -159,6 +163,7 @@ public class LiquibaseStepDefinitions implements En {
 
         given(databaseStateVerifier.isLiquibaseDisabled()).willReturn(!liquibaseEnabled);
         given(fineractProperties.getTenant()).willReturn(new FineractProperties.FineractTenantProperties());
+        given(fineractProperties.getTenantUpgrade()).willReturn(new FineractProperties.FineractTenantUpgradeProperties());
         given(liquibaseFactory.create(tenantStoreDataSource, "tenant_store_db", "initial_switch")).willReturn(initialTenantStoreLiquibase);
         given(liquibaseFactory.create(tenantStoreDataSource, "tenant_store_db")).willReturn(tenantStoreLiquibase);
 
@@ -168,6 +173,7 @@ public class LiquibaseStepDefinitions implements En {
         given(liquibaseFactory.create(defaultTenantDataSource, "tenant_db")).willReturn(tenantLiquibase);
 
         tenantDatabaseUpgradeService = new TenantDatabaseUpgradeService(tenantDetailsService, tenantStoreDataSource, fineractProperties,
-                databaseStateVerifier, liquibaseFactory, tenantDataSourceFactory);
+                databaseStateVerifier, liquibaseFactory, tenantDataSourceFactory, schemaFingerprint,
+                mock(PooledIdentitySequenceResync.class));
     }
 }
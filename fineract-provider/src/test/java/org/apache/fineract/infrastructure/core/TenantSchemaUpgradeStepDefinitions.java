@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.cucumber.java8.En;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import liquibase.exception.LiquibaseException;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.config.FineractProperties.FineractTenantUpgradeProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.persistence.PooledIdentitySequenceResync;
+import org.apache.fineract.infrastructure.core.service.migration.DatabaseAwareMigrationContextProvider;
+import org.apache.fineract.infrastructure.core.service.migration.ExtendedSpringLiquibase;
+import org.apache.fineract.infrastructure.core.service.migration.ExtendedSpringLiquibaseFactory;
+import org.apache.fineract.infrastructure.core.service.migration.SchemaUpgradeNeededException;
+import org.apache.fineract.infrastructure.core.service.migration.TenantDataSourceFactory;
+import org.apache.fineract.infrastructure.core.service.migration.TenantDatabaseStateVerifier;
+import org.apache.fineract.infrastructure.core.service.migration.TenantDatabaseUpgradeService;
+import org.apache.fineract.infrastructure.core.service.migration.TenantSchemaFingerprint;
+import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+public class TenantSchemaUpgradeStepDefinitions implements En {
+
+    private Path classpath;
+    private Path changeset;
+    private LiquibaseProperties liquibaseProperties;
+    private ClassLoader changelogClassLoader;
+    private FineractProperties fineractProperties;
+    private TenantDatabaseStateVerifier databaseStateVerifier;
+    private ExtendedSpringLiquibaseFactory liquibaseFactory;
+    private TenantDataSourceFactory tenantDataSourceFactory;
+    private TenantDetailsService tenantDetailsService;
+    private DataSource tenantStoreDataSource;
+    private PooledIdentitySequenceResync pooledIdentitySequenceResync;
+    private final Map<String, FineractPlatformTenant> tenants = new LinkedHashMap<>();
+    private final Map<String, DataSource> dataSources = new HashMap<>();
+    private final Map<String, ExtendedSpringLiquibase> liquibases = new HashMap<>();
+    private TenantDatabaseUpgradeService upgradeService;
+    private RuntimeException startupFailure;
+    private int failedRequests;
+
+    public TenantSchemaUpgradeStepDefinitions() {
+        Given("/^The tenants ([\\w, ]+) are upgraded on (\\d+) threads?( on their first use)?$/",
+                (String tenantIdentifiers, Integer threads, String lazy) -> {
+                    this.classpath = Files.createTempDirectory("changelog");
+                    this.changeset = this.classpath.resolve("db/changelog/tenant/parts/0001_initial.xml");
+                    Files.createDirectories(this.changeset.getParent());
+                    Files.writeString(this.changeset, "<changeSet id=\"1\"/>", StandardCharsets.UTF_8);
+                    this.changelogClassLoader = new URLClassLoader(new URL[] { this.classpath.toUri().toURL() }, null);
+                    this.liquibaseProperties = new LiquibaseProperties();
+                    this.liquibaseProperties.setParameters(new HashMap<>(Map.of("currency", "USD")));
+
+                    this.fineractProperties = mock(FineractProperties.class);
+                    final FineractTenantUpgradeProperties upgradeProperties = new FineractTenantUpgradeProperties();
+                    upgradeProperties.setThreadPoolSize(threads);
+                    upgradeProperties.setLazy(lazy != null);
+                    given(this.fineractProperties.getTenant()).willReturn(new FineractProperties.FineractTenantProperties());
+                    given(this.fineractProperties.getTenantUpgrade()).willReturn(upgradeProperties);
+
+                    this.databaseStateVerifier = mock(TenantDatabaseStateVerifier.class);
+                    this.liquibaseFactory = mock(ExtendedSpringLiquibaseFactory.class);
+                    this.tenantDataSourceFactory = mock(TenantDataSourceFactory.class);
+                    this.tenantDetailsService = mock(TenantDetailsService.class);
+                    this.tenantStoreDataSource = mock(DataSource.class);
+                    this.pooledIdentitySequenceResync = mock(PooledIdentitySequenceResync.class);
+                    given(this.liquibaseFactory.create(this.tenantStoreDataSource, "tenant_store_db"))
+                            .willReturn(mock(ExtendedSpringLiquibase.class));
+                    for (final String tenantIdentifier : tenantIdentifiers.split(",\\s*")) {
+                        final FineractPlatformTenant tenant = new FineractPlatformTenant((long) this.tenants.size() + 1, tenantIdentifier,
+                                tenantIdentifier, "UTC", mock(FineractPlatformTenantConnection.class));
+                        final DataSource dataSource = new DriverManagerDataSource(
+                                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+                        new JdbcTemplate(dataSource).execute("create table m_schema_fingerprint (id int primary key, "
+                                + "fingerprint varchar(64) not null, updated_at timestamp not null)");
+                        final ExtendedSpringLiquibase liquibase = mock(ExtendedSpringLiquibase.class);
+                        this.tenants.put(tenantIdentifier, tenant);
+                        this.dataSources.put(tenantIdentifier, dataSource);
+                        this.liquibases.put(tenantIdentifier, liquibase);
+                        given(this.tenantDataSourceFactory.create(tenant)).willReturn(dataSource);
+                        given(this.liquibaseFactory.create(dataSource, "tenant_db")).willReturn(liquibase);
+                    }
+                    given(this.tenantDetailsService.findAllTenants()).willReturn(new ArrayList<>(this.tenants.values()));
+                });
+
+        After(() -> {
+            if (this.classpath != null) {
+                FileSystemUtils.deleteRecursively(this.classpath);
+            }
+        });
+
+        Given("/^The tenant (\\w+) was upgraded with the current changelog$/",
+                (String tenant) -> fingerprint().store(this.dataSources.get(tenant)));
+
+        Given("/^A changeset of the changelog is edited$/",
+                () -> Files.writeString(this.changeset, "<changeSet id=\"1\" author=\"edited\"/>", StandardCharsets.UTF_8));
+
+        Given("/^A changeset is added to the changelog$/", () -> Files.writeString(
+                this.changeset.resolveSibling("0002_added.xml"), "<changeSet id=\"2\"/>", StandardCharsets.UTF_8));
+
+        Given("/^The changelog parameter (\\w+) is set to (\\w+)$/",
+                (String name, String value) -> this.liquibaseProperties.getParameters().put(name, value));
+
+        Given("/^The upgrade of the tenant (\\w+) (fails|fails once|needs a manual upgrade first|takes a while)$/",
+                (String tenant, String outcome) -> {
+                    final int[] calls = new int[1];
+                    doAnswer(invocation -> {
+                        calls[0]++;
+                        if ("fails".equals(outcome) || "fails once".equals(outcome) && calls[0] == 1) {
+                            throw new LiquibaseException("changeset of " + tenant + " failed");
+                        } else if ("needs a manual upgrade first".equals(outcome)) {
+                            throw new SchemaUpgradeNeededException("Make sure to upgrade to Fineract 1.6 first");
+                        } else if ("takes a while".equals(outcome)) {
+                            Thread.sleep(200);
+                        }
+                        return null;
+                    }).when(this.liquibases.get(tenant)).afterPropertiesSet();
+                });
+
+        When("/^The application starts$/", () -> {
+            this.upgradeService = new TenantDatabaseUpgradeService(this.tenantDetailsService, this.tenantStoreDataSource,
+                    this.fineractProperties, this.databaseStateVerifier, this.liquibaseFactory, this.tenantDataSourceFactory,
+                    fingerprint(), this.pooledIdentitySequenceResync);
+            this.startupFailure = null;
+            try {
+                this.upgradeService.afterPropertiesSet();
+            } catch (RuntimeException e) {
+                this.startupFailure = e;
+            }
+        });
+
+        When("/^(\\d+) requests? of the tenant (\\w+) (?:arrive at the same time|arrives?|arrive one after the other)$/",
+                (Integer requests, String tenant) -> {
+                    final ExecutorService requestThreads = Executors.newFixedThreadPool(requests);
+                    try {
+                        final CountDownLatch start = new CountDownLatch(1);
+                        final List<Future<?>> results = new ArrayList<>();
+                        for (int i = 0; i < requests; i++) {
+                            results.add(requestThreads.submit(() -> {
+                                start.await(1, TimeUnit.MINUTES);
+                                this.upgradeService.upgradeOnFirstUse(this.tenants.get(tenant));
+                                return null;
+                            }));
+                        }
+                        start.countDown();
+                        for (final Future<?> result : results) {
+                            try {
+                                result.get();
+                            } catch (ExecutionException e) {
+                                this.failedRequests++;
+                            }
+                        }
+                    } finally {
+                        requestThreads.shutdownNow();
+                    }
+                });
+
+        Then("/^The changelog of the tenant (\\w+) was applied (\\d+) times?$/",
+                (String tenant, Integer times) -> verify(this.liquibases.get(tenant), times(times)).afterPropertiesSet());
+
+        Then("/^The identity sequences of the tenant (\\w+) were resynced (\\d+) times?$/", (String tenant,
+                Integer times) -> verify(this.pooledIdentitySequenceResync, times(times)).resync(this.dataSources.get(tenant)));
+
+        Then("/^The tenant (\\w+) is (on|not on) the current changelog$/", (String tenant, String on) -> assertThat(
+                fingerprint().isCurrent(this.dataSources.get(tenant))).isEqualTo("on".equals(on)));
+
+        Then("/^The application started$/", () -> assertThat(this.startupFailure).isNull());
+
+        Then("/^The application fails to start reporting (\\d+) of (\\d+) tenant upgrades$/", (Integer failed, Integer total) -> {
+            assertThat(this.startupFailure).hasMessage(failed + " of " + total + " tenant upgrades have failed");
+            assertThat(this.startupFailure.getCause()).isInstanceOf(LiquibaseException.class);
+            assertThat(this.startupFailure.getSuppressed()).hasSize(failed - 1);
+        });
+
+        Then("/^The application fails to start with a schema upgrade needed and (\\d+) other failures?$/", (Integer others) -> {
+            assertThat(this.startupFailure).isInstanceOf(SchemaUpgradeNeededException.class);
+            assertThat(this.startupFailure.getSuppressed()).hasSize(others).allMatch(LiquibaseException.class::isInstance);
+        });
+
+        Then("/^(\\d+) of the requests failed$/", (Integer failed) -> assertThat(this.failedRequests).isEqualTo(failed));
+
+        Then("/^No tenant was upgraded on startup$/", () -> {
+            for (final FineractPlatformTenant tenant : this.tenants.values()) {
+                verify(this.tenantDataSourceFactory, times(0)).create(tenant);
+            }
+        });
+    }
+
+    /**
+     * The fingerprint the application computes from the changelog, parameters and profiles as they are now.
+     */
+    private TenantSchemaFingerprint fingerprint() {
+        final DatabaseAwareMigrationContextProvider contextProvider = mock(DatabaseAwareMigrationContextProvider.class);
+        given(contextProvider.provide()).willReturn("mysql");
+        return new TenantSchemaFingerprint(this.liquibaseProperties, new DefaultResourceLoader(this.changelogClassLoader),
+                new MockEnvironment(), contextProvider);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class PooledIdentitySequenceResyncStepDefinitions implements En {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private String databaseType;
+
+    public PooledIdentitySequenceResyncStepDefinitions() {
+        Given("/^A (PostgreSQL|MySQL) tenant whose identity sequences of the pooled tables are at (\\d+)$/",
+                (String databaseType, Long lastValue) -> {
+                    this.databaseType = databaseType;
+                    this.dataSource = new DriverManagerDataSource(
+                            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+                    this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+                    // H2 has no serial sequences, so each one is played by a table holding its last value
+                    this.jdbcTemplate.execute("create alias pg_get_serial_sequence for \"" + getClass().getName() + ".serialSequence\"");
+                    this.jdbcTemplate.execute("create alias setval for \"" + getClass().getName() + ".setval\"");
+                    for (final String tableName : PooledIdSequencingSessionCustomizer.POOLED_ID_TABLES) {
+                        this.jdbcTemplate.execute("create table " + tableName + " (id bigint primary key)");
+                        this.jdbcTemplate.execute("create table " + tableName + "_id_seq (last_value bigint not null)");
+                        this.jdbcTemplate.update("insert into " + tableName + "_id_seq values (?)", lastValue);
+                    }
+                });
+
+        Given("/^The pooled table (\\w+) holds the ids up to (\\d+)$/",
+                (String tableName, Long id) -> this.jdbcTemplate.update("insert into " + tableName + " values (?)", id));
+
+        Given("/^The pooled table (\\w+) has no identity sequence$/",
+                (String tableName) -> this.jdbcTemplate.execute("drop table " + tableName + "_id_seq"));
+
+        When("/^The identity sequences are resynced with batch writing (on|off)$/", (String batchWriting) -> {
+            final FineractProperties fineractProperties = new FineractProperties();
+            fineractProperties.getPersistence().setBatchWritingEnabled("on".equals(batchWriting));
+            final DatabaseTypeResolver databaseTypeResolver = mock(DatabaseTypeResolver.class);
+            when(databaseTypeResolver.isPostgreSQL()).thenReturn("PostgreSQL".equals(this.databaseType));
+            new PooledIdentitySequenceResync(fineractProperties, databaseTypeResolver).resync(this.dataSource);
+        });
+
+        Then("/^The identity sequence of (\\w+) is at (\\d+)$/", (String tableName, Long lastValue) -> assertEquals(lastValue,
+                this.jdbcTemplate.queryForObject("select last_value from " + tableName + "_id_seq", Long.class)));
+    }
+
+    /**
+     * Plays <code>pg_get_serial_sequence</code>, the sequence of a table is the one named after it.
+     */
+    public static String serialSequence(final Connection connection, final String tableName, final String columnName)
+            throws SQLException {
+        try (PreparedStatement statement = connection
+                .prepareStatement("select count(*) from information_schema.tables where lower(table_name) = ?")) {
+            statement.setString(1, tableName + "_" + columnName + "_seq");
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) == 0 ? null : tableName + "_" + columnName + "_seq";
+            }
+        }
+    }
+
+    /**
+     * Plays <code>setval</code>.
+     */
+    public static long setval(final Connection connection, final String sequenceName, final long value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("update " + sequenceName + " set last_value = ?")) {
+            statement.setLong(1, value);
+            statement.executeUpdate();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+
+public class TenantPooledTableSequenceStepDefinitions implements En {
+
+    private Connection connection;
+
+    private PreparedStatement resync;
+
+    private TenantPooledTableSequence sequence;
+
+    private List<Long> ids = new ArrayList<>();
+
+    public TenantPooledTableSequenceStepDefinitions() {
+        Given("/^A pooled id sequence with blocks of (\\d+) ids whose counter starts at (\\d+)$/", (Integer blockSize, Long counter) -> {
+            final AtomicLong nextValue = new AtomicLong(counter);
+            final DataSource dataSource = mock(DataSource.class);
+            this.connection = mock(Connection.class);
+            this.resync = mock(PreparedStatement.class);
+            final PreparedStatement reserve = mock(PreparedStatement.class);
+            final PreparedStatement select = mock(PreparedStatement.class);
+            final ResultSet resultSet = mock(ResultSet.class);
+            when(dataSource.getConnection()).thenReturn(this.connection);
+            when(this.connection.getAutoCommit()).thenReturn(true);
+            when(this.connection.prepareStatement(anyString())).thenReturn(select);
+            when(this.connection.prepareStatement(startsWith("UPDATE m_id_sequence SET next_value = GREATEST"))).thenReturn(this.resync);
+            when(this.connection.prepareStatement(startsWith("UPDATE m_id_sequence SET next_value = next_value"))).thenReturn(reserve);
+            when(reserve.executeUpdate()).thenAnswer(invocation -> {
+                nextValue.addAndGet(blockSize);
+                return 1;
+            });
+            when(select.executeQuery()).thenReturn(resultSet);
+            when(resultSet.getLong(1)).thenAnswer(invocation -> nextValue.get());
+            this.sequence = new TenantPooledTableSequence("m_savings_account_transaction", blockSize, dataSource);
+        });
+
+        When("/^Tenant (.*) takes (\\d+) ids from the pooled sequence$/", (String tenantIdentifier, Integer count) -> {
+            ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, tenantIdentifier, tenantIdentifier, "UTC", null));
+            try {
+                for (int i = 0; i < count; i++) {
+                    this.ids.add(this.sequence.nextId());
+                }
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        });
+
+        Then("/^The pooled sequence handed out the ids (.*)$/", (String expected) -> {
+            assertEquals(Arrays.stream(expected.split(",")).map(String::trim).map(Long::valueOf).collect(Collectors.toList()), this.ids);
+        });
+
+        Then("/^The pooled sequence reserved (\\d+) blocks and resynced with the table (\\d+) times?$/",
+                (Integer blocks, Integer resyncs) -> {
+                    verify(this.connection, times(blocks)).commit();
+                    verify(this.resync, times(resyncs)).executeUpdate();
+                });
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import io.cucumber.java8.En;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.core.exception.UnsupportedParameterException;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanRepository;
+import org.apache.fineract.portfolio.loanaccount.serialization.LoanEventApiJsonValidator;
+
+public class FromJsonHelperStepDefinitions implements En {
+
+    private final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+
+    private String json;
+    private RuntimeException rejection;
+
+    public FromJsonHelperStepDefinitions() {
+        Given("/^The command JSON is '(.*)'$/", (String json) -> this.json = json);
+
+        When("/^The command JSON is (checked|parsed and checked) for the parameters (.*)$/", (String how, String parameters) -> {
+            final Set<String> supportedParameters = Set.copyOf(Arrays.asList(parameters.split(", ")));
+            try {
+                if ("checked".equals(how)) {
+                    final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+                    this.fromJsonHelper.checkForUnsupportedParameters(typeOfMap, this.json, supportedParameters);
+                } else {
+                    this.fromJsonHelper.checkForUnsupportedParameters(this.fromJsonHelper.parseCommand(this.json), supportedParameters);
+                }
+            } catch (final RuntimeException e) {
+                this.rejection = e;
+            }
+        });
+
+        When("/^The command JSON is validated as a loan repayment$/", () -> {
+            // a repayment needs neither the loan application helper nor the loans
+            final LoanEventApiJsonValidator validator = new LoanEventApiJsonValidator(this.fromJsonHelper, null,
+                    mock(LoanRepository.class));
+            try {
+                validator.validateNewRepaymentTransaction(
+                        JsonCommand.fromJsonElement(1L, this.fromJsonHelper.parseCommand(this.json), this.fromJsonHelper));
+            } catch (final RuntimeException e) {
+                this.rejection = e;
+            }
+        });
+
+        Then("/^The command JSON is accepted$/", () -> assertNull(this.rejection));
+
+        Then("/^The command JSON is rejected as (\\w+)$/", (String exception) -> {
+            assertNotNull(this.rejection);
+            assertEquals(exception, this.rejection.getClass().getSimpleName());
+        });
+
+        Then("/^The command JSON is rejected for the duplicate parameter (\\w+)$/", (String parameter) -> {
+            assertEquals(JsonSyntaxException.class, this.rejection.getClass());
+            assertEquals("duplicate key: " + parameter, this.rejection.getMessage());
+        });
+
+        Then("/^The command JSON is rejected for the unsupported parameters (.*)$/", (String parameters) -> {
+            assertEquals(UnsupportedParameterException.class, this.rejection.getClass());
+            assertEquals(Arrays.asList(parameters.split(", ")),
+                    ((UnsupportedParameterException) this.rejection).getUnsupportedParameters());
+        });
+
+        Then("/^The parsed command JSON is '(.*)'$/",
+                (String parsed) -> assertEquals(parsed, this.fromJsonHelper.toJson(this.fromJsonHelper.parseCommand(this.json))));
+    }
+}
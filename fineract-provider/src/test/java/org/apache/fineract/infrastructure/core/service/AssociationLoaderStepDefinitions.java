@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.core.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class AssociationLoaderStepDefinitions implements En {
+
+    private static final String NO_CONTEXT = "none|none|none|none";
+
+    private AssociationLoader associationLoader;
+    private final List<String> mismatches = new ArrayList<>();
+    private final CountDownLatch poolReleased = new CountDownLatch(1);
+    private final List<Future<String>> queuedReads = new ArrayList<>();
+    private String readContext;
+    private String readThread;
+    private String requestThread;
+    private String requestContextAfterRead;
+
+    public AssociationLoaderStepDefinitions() {
+        Given("/^The association loader runs on (\\d+) threads? with a queue of (\\d+)$/", (Integer threads, Integer queueCapacity) -> {
+            final FineractProperties fineractProperties = new FineractProperties();
+            fineractProperties.getQuery().setAssociationLoaderPoolSize(threads);
+            fineractProperties.getQuery().setAssociationLoaderQueueCapacity(queueCapacity);
+            this.associationLoader = new AssociationLoader(fineractProperties, new SimpleMeterRegistry());
+        });
+
+        After(() -> {
+            if (this.associationLoader == null) {
+                return;
+            }
+            this.poolReleased.countDown();
+            this.associationLoader.destroy();
+        });
+
+        When("/^The tenants (\\w+) and (\\w+) each load (\\d+) associations at the same time$/",
+                (String tenant, String otherTenant, Integer reads) -> {
+                    final ExecutorService requests = Executors.newFixedThreadPool(2);
+                    try {
+                        final List<Future<List<String>>> results = new ArrayList<>();
+                        for (final String requestTenant : List.of(tenant, otherTenant)) {
+                            results.add(requests.submit(() -> inContextOf(requestTenant, () -> {
+                                final List<Future<String>> futures = new ArrayList<>();
+                                for (int i = 0; i < reads; i++) {
+                                    futures.add(this.associationLoader.submit("loans", "transactions",
+                                            AssociationLoaderStepDefinitions::context));
+                                }
+                                final List<String> requestMismatches = new ArrayList<>();
+                                for (final Future<String> future : futures) {
+                                    final String seen = AssociationLoader.join(future);
+                                    if (!seen.equals(contextOf(requestTenant))) {
+                                        requestMismatches.add(requestTenant + " saw " + seen);
+                                    }
+                                }
+                                return requestMismatches;
+                            })));
+                        }
+                        for (final Future<List<String>> result : results) {
+                            this.mismatches.addAll(result.get());
+                        }
+                    } finally {
+                        requests.shutdownNow();
+                    }
+                });
+
+        When("/^The tenant (\\w+) keeps the association loader busy$/", (String tenant) -> {
+            final CountDownLatch started = new CountDownLatch(1);
+            final ExecutorService request = Executors.newSingleThreadExecutor();
+            try {
+                request.submit(() -> inContextOf(tenant, () -> {
+                    this.queuedReads.add(this.associationLoader.submit("loans", "guarantors", () -> {
+                        started.countDown();
+                        this.poolReleased.await(1, TimeUnit.MINUTES);
+                        return context();
+                    }));
+                    started.await(1, TimeUnit.MINUTES);
+                    // fills the queue, the next read is rejected to the caller
+                    this.queuedReads.add(this.associationLoader.submit("loans", "collateral", AssociationLoaderStepDefinitions::context));
+                    return null;
+                })).get();
+            } finally {
+                request.shutdownNow();
+            }
+        });
+
+        When("/^(?:The tenant (\\w+)|A request without a tenant) loads an association$/", (String tenant) -> {
+            final ExecutorService request = Executors.newSingleThreadExecutor();
+            try {
+                request.submit(() -> tenant == null ? loadAssociation() : inContextOf(tenant, this::loadAssociation)).get();
+            } finally {
+                request.shutdownNow();
+            }
+        });
+
+        When("/^The busy association loader is released$/", this.poolReleased::countDown);
+
+        Then("/^Every association read sees the context of its own tenant$/", () -> assertEquals(List.of(), this.mismatches));
+
+        Then("/^The association read sees (?:the context of the tenant (\\w+)|no context)$/",
+                (String tenant) -> assertEquals(tenant == null ? NO_CONTEXT : contextOf(tenant), this.readContext));
+
+        Then("/^The association read ran on the (request|pool) thread$/", (String thread) -> assertEquals("request".equals(thread),
+                this.requestThread.equals(this.readThread), this.readThread + " read for " + this.requestThread));
+
+        Then("/^The request of the tenant (\\w+) keeps its context after the read$/",
+                (String tenant) -> assertEquals(contextOf(tenant), this.requestContextAfterRead));
+
+        Then("/^The queued association reads see the context of the tenant (\\w+)$/", (String tenant) -> {
+            assertTrue(!this.queuedReads.isEmpty());
+            for (final Future<String> queuedRead : this.queuedReads) {
+                assertEquals(contextOf(tenant), AssociationLoader.join(queuedRead));
+            }
+        });
+    }
+
+    private Void loadAssociation() {
+        this.requestThread = Thread.currentThread().getName();
+        this.readContext = AssociationLoader.join(this.associationLoader.submit("loans", "notes", () -> {
+            this.readThread = Thread.currentThread().getName();
+            return context();
+        }));
+        this.requestContextAfterRead = context();
+        return null;
+    }
+
+    /**
+     * Runs <code>task</code> with the tenant, data source context, auth token and user of <code>tenant</code> set like a
+     * request of the tenant, cleared afterwards.
+     */
+    private static <T> T inContextOf(final String tenant, final Callable<T> task) throws Exception {
+        ThreadLocalContextUtil
+                .setTenant(new FineractPlatformTenant(1L, tenant, tenant, "UTC", mock(FineractPlatformTenantConnection.class)));
+        ThreadLocalContextUtil.setDataSourceContext(ThreadLocalContextUtil.CONTEXT_TENANTS + "-" + tenant);
+        ThreadLocalContextUtil.setAuthToken("token-" + tenant);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user-" + tenant, null));
+        try {
+            return task.call();
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+            ThreadLocalContextUtil.clearDataSourceContext();
+            ThreadLocalContextUtil.setAuthToken(null);
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static String contextOf(final String tenant) {
+        return tenant + "|" + ThreadLocalContextUtil.CONTEXT_TENANTS + "-" + tenant + "|token-" + tenant + "|user-" + tenant;
+    }
+
+    /**
+     * The context the current thread sees, e.g. <code>a|tenants-a|token-a|user-a</code>.
+     */
+    private static String context() {
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final String dataSourceContext = ThreadLocalContextUtil.getDataSourceContext();
+        final String authToken = ThreadLocalContextUtil.getAuthToken();
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (tenant == null ? "none" : tenant.getTenantIdentifier()) + "|" + (dataSourceContext == null ? "none" : dataSourceContext)
+                + "|" + (authToken == null ? "none" : authToken) + "|" + (authentication == null ? "none" : authentication.getName());
+    }
+}
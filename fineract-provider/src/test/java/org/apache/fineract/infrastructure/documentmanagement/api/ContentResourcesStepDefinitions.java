@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.documentmanagement.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.common.io.ByteSource;
+import io.cucumber.java8.En;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.fineract.infrastructure.documentmanagement.data.FileData;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+
+public class ContentResourcesStepDefinitions implements En {
+
+    private static final long LAST_MODIFIED = Instant.parse("2022-01-01T00:00:00Z").toEpochMilli();
+
+    private Path file;
+    private FileData fileData;
+    private Response response;
+
+    public ContentResourcesStepDefinitions() {
+        Given("/^The content (\\w+) with the entity tag (\\w+) is stored in a (file|byte source)$/",
+                (String content, String entityTag, String storage) -> {
+                    final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                    if ("file".equals(storage)) {
+                        this.file = Files.createTempFile("content", ".txt");
+                        Files.write(this.file, bytes);
+                        this.fileData = new FileData(com.google.common.io.Files.asByteSource(this.file.toFile()), "content.txt",
+                                "text/plain", entityTag, LAST_MODIFIED, this.file);
+                    } else {
+                        this.fileData = new FileData(ByteSource.wrap(bytes), "content.txt", "text/plain", entityTag, LAST_MODIFIED,
+                                null);
+                    }
+                });
+
+        After(() -> {
+            if (this.file != null) {
+                Files.deleteIfExists(this.file);
+            }
+        });
+
+        When("/^The content is downloaded with the headers (.+)$/", (String headers) -> {
+            final ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+                    URI.create("http://localhost/documents/1/attachment"), "GET", null, new MapPropertiesDelegate(), null);
+            if (!"none".equals(headers)) {
+                for (final String header : headers.split("; ")) {
+                    final int colon = header.indexOf(": ");
+                    request.header(header.substring(0, colon), header.substring(colon + 2));
+                }
+            }
+            this.response = ContentResources.fileDataToResponse(request, request, this.fileData, "attachment");
+        });
+
+        Then("/^The download answers (\\d+) with the content range (.+) and the body (\\w+)$/",
+                (Integer status, String contentRange, String body) -> {
+                    assertEquals(status, this.response.getStatus());
+                    assertEquals("none".equals(contentRange) ? null : contentRange, this.response.getHeaderString("Content-Range"));
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    if (this.response.getEntity() != null) {
+                        ((StreamingOutput) this.response.getEntity()).write(out);
+                        assertEquals(String.valueOf(out.size()), this.response.getHeaderString("Content-Length"));
+                    }
+                    assertEquals("none".equals(body) ? "" : body, out.toString(StandardCharsets.UTF_8));
+                });
+
+        Then("/^The download carries the entity tag (\\w+)$/",
+                (String entityTag) -> assertEquals(entityTag, this.response.getEntityTag().getValue()));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.documentmanagement.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.io.ByteSource;
+import io.cucumber.java8.En;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.documentmanagement.data.FileData;
+import org.apache.fineract.infrastructure.documentmanagement.data.ImageResizer;
+
+public class ImageThumbnailCacheStepDefinitions implements En {
+
+    private Path directory;
+    private ImageThumbnailCache imageThumbnailCache;
+    private int thumbnailBytes;
+    private final Map<Long, Integer> resizes = new HashMap<>();
+    private final Map<Long, FileData> served = new HashMap<>();
+
+    public ImageThumbnailCacheStepDefinitions() {
+        Given("/^The thumbnail cache holds (\\d+) MB of thumbnails of (\\d+) KB$/", (Integer cacheSizeMb, Integer thumbnailKb) -> {
+            this.directory = Files.createTempDirectory("thumbnails");
+            this.thumbnailBytes = thumbnailKb * 1024;
+            final FineractProperties fineractProperties = new FineractProperties();
+            fineractProperties.getContent().setThumbnailCacheDirectory(this.directory.toString());
+            fineractProperties.getContent().setThumbnailCacheSizeMb(cacheSizeMb);
+            // the thumbnail of the client n is made of the byte n
+            final ImageResizer imageResizer = mock(ImageResizer.class);
+            when(imageResizer.resize(any(FileData.class), anyInt(), anyInt(), any(OutputStream.class))).thenAnswer(invocation -> {
+                final Long clientId = clientId(invocation.getArgument(0));
+                this.resizes.merge(clientId, 1, Integer::sum);
+                invocation.<OutputStream>getArgument(3).write(thumbnail(clientId, this.thumbnailBytes));
+                return true;
+            });
+            this.imageThumbnailCache = new ImageThumbnailCache(imageResizer, fineractProperties);
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        });
+
+        After(() -> {
+            if (this.directory == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+            FileUtils.deleteDirectory(this.directory.toFile());
+        });
+
+        When("/^The image of the client (\\d+) is requested at (\\d+)x(\\d+)$/", (Long clientId, Integer maxWidth, Integer maxHeight) -> {
+            final FileData image = new FileData(ByteSource.wrap(new byte[] { 0 }), clientId + ".png", "image/png", "v1", 0L,
+                    null);
+            this.served.put(clientId, this.imageThumbnailCache.resize("clients", clientId, image, maxWidth, maxHeight));
+        });
+
+        When("/^The cached thumbnails are deleted on disk$/", () -> {
+            try (Stream<Path> files = Files.list(this.directory)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+        });
+
+        Then("/^The image of the client (\\d+) was resized (\\d+) times?$/",
+                (Long clientId, Integer times) -> assertEquals(times, this.resizes.get(clientId)));
+
+        Then("/^The thumbnail cache directory holds (\\d+) thumbnails?$/", (Integer thumbnails) -> {
+            try (Stream<Path> files = Files.list(this.directory)) {
+                assertEquals(thumbnails.longValue(), files.count());
+            }
+        });
+
+        Then("/^The thumbnail of the client (\\d+) is served$/", (Long clientId) -> assertArrayEquals(
+                thumbnail(clientId, this.thumbnailBytes), this.served.get(clientId).getByteSource().read()));
+    }
+
+    private static Long clientId(final FileData image) {
+        return Long.valueOf(image.name().substring(0, image.name().indexOf('.')));
+    }
+
+    private static byte[] thumbnail(final Long clientId, final int size) {
+        final byte[] thumbnail = new byte[size];
+        Arrays.fill(thumbnail, clientId.byteValue());
+        return thumbnail;
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.jobs.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import liquibase.Contexts;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.security.service.TenantDetailsService;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.apache.fineract.useradministration.domain.AppUserRepositoryWrapper;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class JobLeaseStepDefinitions implements En {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2022, 4, 1, 0, 0);
+    private static final String JOB_KEY = "Update Loan Arrears Ageing" + SchedulerServiceConstants.JOB_KEY_SEPERATOR + "DEFAULT";
+    private static final FineractPlatformTenant TENANT = new FineractPlatformTenant(1L, "default", "default", "UTC",
+            mock(FineractPlatformTenantConnection.class));
+
+    // the clock of all nodes, advanced by the scenarios
+    private volatile LocalDateTime now = DAY.plusHours(10);
+
+    private JdbcTemplate jdbcTemplate;
+    private final Map<String, Node> nodes = new TreeMap<>();
+    private final ExecutorService leaderExecutor = Executors.newSingleThreadExecutor();
+    private Node leader;
+    private Future<List<JobPartitionData>> leaderRun;
+    private List<JobPartitionData> partitions;
+
+    public JobLeaseStepDefinitions() {
+        Given("/^The nodes (.*) share the job lease tables$/", (String names) -> {
+            this.jdbcTemplate = new JdbcTemplate(tables());
+            for (final String name : names.split(",")) {
+                this.nodes.put(name.trim(), new Node(name.trim()));
+            }
+        });
+
+        When("/^Node (\\w+) fires the hourly job scheduled at (\\d\\d:\\d\\d(?::\\d\\d)?)$/",
+                (String node, String time) -> node(node).fire(DAY.with(LocalTime.parse(time))));
+
+        Then("/^Node (\\w+) (runs|does not run) the job$/",
+                (String node, String runs) -> assertEquals("runs".equals(runs), node(node).running, node + " " + runs));
+
+        When("/^Node (\\w+) finishes the job$/", (String node) -> {
+            node(node).jobLeaseService.release(JOB_KEY);
+            node(node).running = false;
+        });
+
+        Then("/^Node (\\w+) (takes|cannot take) the lease on (\\S+)$/",
+                (String node, String takes, String leaseKey) -> assertEquals("takes".equals(takes),
+                        node(node).jobLeaseService.tryAcquire(leaseKey), node + " " + takes + " " + leaseKey));
+
+        When("/^(\\d+) seconds pass on the job lease clock$/", (Integer seconds) -> this.now = this.now.plusSeconds(seconds));
+
+        When("/^Node (\\w+) renews (\\d+) leases? on its heartbeat$/", (String node, Integer leases) -> {
+            assertEquals(leases, node(node).jobLeaseService.renewLeases());
+            node(node).jobPartitionService.renewClaims();
+        });
+
+        When("/^Node (\\w+) leads a run of the partitions (.*), held up on its first partition$/", (String node, String ranges) -> {
+            final Node leader = node(node);
+            this.leader = leader;
+            leader.heldUp = true;
+            this.leaderRun = this.leaderExecutor.submit(() -> inTenant(() -> leader.jobPartitionService
+                    .execute(JobName.RECALCULATE_INTEREST_FOR_LOAN, Map.of("run-date", "2022-04-01"), ranges(ranges), 1)));
+            await(() -> countPartitions("CLAIMED", leader) == 1);
+        });
+
+        When("/^Node (\\w+) picks up the open partitions( and is held up)?$/", (String node, String heldUp) -> {
+            final Node follower = node(node);
+            follower.heldUp = heldUp != null;
+            inTenant(() -> {
+                follower.jobPartitionService.runOpenPartitions();
+                return null;
+            });
+            if (follower.heldUp) {
+                await(() -> countPartitions("CLAIMED", follower) == 1);
+            } else {
+                await(() -> countPartitions("OPEN", null) == 0 && countPartitions("CLAIMED", follower) == 0);
+            }
+        });
+
+        When("/^Node (\\w+) finishes its partition$/", (String node) -> {
+            node(node).release.countDown();
+            if (node(node) == this.leader) {
+                this.partitions = this.leaderRun.get(30, TimeUnit.SECONDS);
+            }
+        });
+
+        Then("/^The partitions of the run are (.*)$/", (String expected) -> {
+            final String actual = this.partitions.stream()
+                    .map(partition -> partition.getRangeFrom() + "-" + partition.getRangeTo() + " "
+                            + (partition.isFailed() ? "FAILED" : partition.getStatus() + " by " + partition.getResult().get("node")))
+                    .collect(Collectors.joining("; "));
+            assertEquals(expected, actual);
+        });
+
+        Then("/^The leader of the run sums (\\d+) processed ids$/", (Integer processed) -> assertEquals(processed,
+                this.partitions.stream().filter(partition -> !partition.isFailed())
+                        .mapToInt(partition -> Integer.parseInt(partition.getResult().get("processed"))).sum()));
+
+        Then("/^The failed partition tells that its claim lapsed$/", () -> assertTrue(this.partitions.stream()
+                .anyMatch(partition -> partition.isFailed() && partition.getErrorMessage().startsWith("Claim lapsed"))));
+
+        Then("/^Node (\\w+) processed the partitions (.*)$/",
+                (String node, String ranges) -> assertEquals(ranges, String.join("; ", node(node).processed)));
+
+        Then("/^No partition of the run is left in the job partition table$/", () -> assertEquals(0, countPartitions(null, null)));
+
+        After(() -> {
+            this.leaderExecutor.shutdownNow();
+            this.nodes.values().forEach(node -> node.jobPartitionService.shutdown());
+        });
+    }
+
+    private Node node(final String name) {
+        return this.nodes.get(name);
+    }
+
+    private DataSource tables() throws Exception {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection()) {
+            new Liquibase("db/changelog/tenant/parts/0014_job_leases.xml", new ClassLoaderResourceAccessor(),
+                    new JdbcConnection(connection)).update(new Contexts());
+        }
+        return dataSource;
+    }
+
+    private int countPartitions(final String status, final Node owner) {
+        final Integer count = this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM m_job_partition WHERE (? IS NULL OR status = ?) AND (? IS NULL OR owner = ?)", Integer.class, status,
+                status, owner == null ? null : owner.jobLeaseService.getOwner(), owner == null ? null : owner.jobLeaseService.getOwner());
+        return count == null ? 0 : count;
+    }
+
+    private static List<long[]> ranges(final String ranges) {
+        return Arrays.stream(ranges.split(";")).map(String::trim).map(range -> range.split("-"))
+                .map(range -> new long[] { Long.parseLong(range[0]), Long.parseLong(range[1]) }).collect(Collectors.toList());
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + Duration.ofSeconds(30).toMillis();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for the job partitions");
+            Thread.sleep(50);
+        }
+    }
+
+    private static <T> T inTenant(final ThrowingSupplier<T> supplier) throws Exception {
+        ThreadLocalContextUtil.setTenant(TENANT);
+        try {
+            return supplier.get();
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private interface ThrowingSupplier<T> {
+
+        T get() throws Exception;
+    }
+
+    /**
+     * One node of the cluster, with its own lease owner, trigger listener and partitioned job on the shared tables.
+     */
+    private final class Node implements PartitionedJob {
+
+        private final String name;
+        private final JobLeaseService jobLeaseService;
+        private final JobPartitionService jobPartitionService;
+        private final SchedulerTriggerListener triggerListener;
+        private final List<String> processed = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean heldUp;
+        private boolean running;
+
+        Node(final String name) {
+            this.name = name;
+            final FineractProperties fineractProperties = new FineractProperties();
+            fineractProperties.setNodeId(name);
+            this.jobLeaseService = new JobLeaseService(JobLeaseStepDefinitions.this.jdbcTemplate, fineractProperties) {
+
+                @Override
+                LocalDateTime now() {
+                    return JobLeaseStepDefinitions.this.now;
+                }
+            };
+            final ApplicationContext applicationContext = mock(ApplicationContext.class,
+                    invocation -> "getBeansOfType".equals(invocation.getMethod().getName()) ? Map.of(name, this)
+                            : RETURNS_DEFAULTS.answer(invocation));
+            final AppUserRepositoryWrapper userRepository = mock(AppUserRepositoryWrapper.class,
+                    invocation -> "fetchSystemUser".equals(invocation.getMethod().getName()) ? mock(AppUser.class)
+                            : RETURNS_DEFAULTS.answer(invocation));
+            this.jobPartitionService = new JobPartitionService(JobLeaseStepDefinitions.this.jdbcTemplate, this.jobLeaseService,
+                    applicationContext, userRepository);
+            final TenantDetailsService tenantDetailsService = mock(TenantDetailsService.class,
+                    invocation -> "loadTenantById".equals(invocation.getMethod().getName()) ? TENANT : RETURNS_DEFAULTS.answer(invocation));
+            this.triggerListener = new SchedulerTriggerListener(mock(SchedularWritePlatformService.class), tenantDetailsService,
+                    this.jobLeaseService);
+        }
+
+        void fire(final LocalDateTime scheduledFireTime) {
+            // quartz fires a misfired cron trigger late, with the time it fires at as the scheduled fire time
+            JobLeaseStepDefinitions.this.now = scheduledFireTime;
+            final Date fireTime = Date.from(scheduledFireTime.toInstant(ZoneOffset.UTC));
+            final JobDataMap triggerData = new JobDataMap();
+            triggerData.put(SchedulerServiceConstants.TENANT_IDENTIFIER, "default");
+            final CronTrigger trigger = mock(CronTrigger.class, invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "getJobDataMap":
+                        return triggerData;
+                    case "getJobKey":
+                        return new JobKey("Update Loan Arrears Ageing", "DEFAULT");
+                    case "getCronExpression":
+                        return "0 0 * * * ?";
+                    case "getTimeZone":
+                        return TimeZone.getTimeZone("UTC");
+                    default:
+                        return RETURNS_DEFAULTS.answer(invocation);
+                }
+            });
+            final JobExecutionContext context = mock(JobExecutionContext.class, invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "getMergedJobDataMap":
+                        return new JobDataMap();
+                    case "getScheduledFireTime":
+                        return fireTime;
+                    default:
+                        return RETURNS_DEFAULTS.answer(invocation);
+                }
+            });
+            try {
+                this.running = !this.triggerListener.vetoJobExecution(trigger, context);
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        }
+
+        @Override
+        public Set<JobName> getPartitionedJobNames() {
+            return Set.of(JobName.RECALCULATE_INTEREST_FOR_LOAN);
+        }
+
+        @Override
+        public Map<String, String> processPartition(final JobPartitionData partition) {
+            this.processed.add(partition.getRangeFrom() + "-" + partition.getRangeTo());
+            if (this.heldUp) {
+                this.heldUp = false;
+                try {
+                    assertTrue(this.release.await(30, TimeUnit.SECONDS), this.name + " was never released");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            final Map<String, String> result = new HashMap<>();
+            result.put("node", this.name);
+            result.put("processed", String.valueOf(partition.getRangeTo() - partition.getRangeFrom() + 1));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.infrastructure.reportmailingjob.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.io.File;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.dataqueries.domain.Report;
+import org.apache.fineract.infrastructure.dataqueries.domain.ReportRepositoryWrapper;
+import org.apache.fineract.infrastructure.dataqueries.service.ReadReportingService;
+import org.apache.fineract.infrastructure.report.provider.ReportingProcessServiceProvider;
+import org.apache.fineract.infrastructure.report.service.ReportingProcessService;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailAttachmentFileFormat;
+import org.apache.fineract.infrastructure.reportmailingjob.data.ReportMailingJobEmailData;
+import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJob;
+import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJobRepository;
+import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJobRepositoryWrapper;
+import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJobRunHistory;
+import org.apache.fineract.infrastructure.reportmailingjob.domain.ReportMailingJobRunHistoryRepository;
+import org.apache.fineract.infrastructure.reportmailingjob.validation.ReportMailingJobValidator;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.mockito.ArgumentCaptor;
+
+public class ReportMailingJobRunnerStepDefinitions implements En {
+
+    private ReportingProcessServiceProvider reportingProcessServiceProvider;
+    private ReportMailingJobRunner reportMailingJobRunner;
+    private ReportMailingJobRepository reportMailingJobRepository;
+    private ReportMailingJobRunHistoryRepository reportMailingJobRunHistoryRepository;
+    private ReportMailingJobWritePlatformService reportMailingJobWritePlatformService;
+    private final List<Delivery> deliveries = Collections.synchronizedList(new ArrayList<>());
+    private Set<String> rejectedRecipients = Set.of();
+
+    public ReportMailingJobRunnerStepDefinitions() {
+        Given("/^The (\\w+) report (?:renders (\\d+) bytes|fails to render|(has no reporting service))$/",
+                (String reportType, Integer size, String noReportingService) -> {
+                    ThreadLocalContextUtil.setTenant(
+                            new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+                    final ReadReportingService readReportingService = mock(ReadReportingService.class);
+                    when(readReportingService.getReportType(any(), anyBoolean(), anyBoolean())).thenReturn(reportType);
+                    this.reportingProcessServiceProvider = mock(ReportingProcessServiceProvider.class);
+                    if (noReportingService == null) {
+                        when(this.reportingProcessServiceProvider.findReportingProcessService(reportType))
+                                .thenReturn(new StubReportingProcessService(size));
+                    }
+                    this.reportMailingJobRunner = new ReportMailingJobRunner(new FineractProperties(), readReportingService,
+                            this.reportingProcessServiceProvider, new StubEmailService());
+
+                    final ReportMailingJobRepositoryWrapper reportMailingJobRepositoryWrapper = mock(
+                            ReportMailingJobRepositoryWrapper.class);
+                    this.reportMailingJobRepository = mock(ReportMailingJobRepository.class);
+                    when(reportMailingJobRepositoryWrapper.getReportMailingJobRepository()).thenReturn(this.reportMailingJobRepository);
+                    this.reportMailingJobRunHistoryRepository = mock(ReportMailingJobRunHistoryRepository.class);
+                    this.reportMailingJobWritePlatformService = new ReportMailingJobWritePlatformServiceImpl(
+                            mock(ReportRepositoryWrapper.class), new ReportMailingJobValidator(new FromJsonHelper()),
+                            reportMailingJobRepositoryWrapper, this.reportMailingJobRepository, mock(PlatformSecurityContext.class),
+                            this.reportMailingJobRunner, this.reportMailingJobRunHistoryRepository);
+                });
+
+        After(() -> {
+            if (this.reportMailingJobRunner == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+            this.reportMailingJobRunner.destroy();
+        });
+
+        Given("/^A report mailing job is due to mail it as (CSV|PDF|XLS) to (.+)$/", (String fileFormat, String emailRecipients) -> {
+            final Report report = new Report("Active Loans", "Table", null, "Loan", null, true, "select 1", List.of("Table"));
+            final ReportMailingJob reportMailingJob = ReportMailingJob.newInstance("Daily loans", null, null, null, emailRecipients,
+                    "Active loans", "The active loans of today", ReportMailingJobEmailAttachmentFileFormat.newInstance(fileFormat), report,
+                    null, true, null);
+            reportMailingJob.updateNextRunDateTime(ZonedDateTime.now(ZoneId.of("UTC")).minusHours(1));
+            when(this.reportMailingJobRepository.findByIsActiveTrueAndIsDeletedFalse()).thenReturn(List.of(reportMailingJob));
+        });
+
+        Given("/^The mail server rejects (.+)$/", (String recipients) -> this.rejectedRecipients = Set.of(recipients.split(", ")));
+
+        When("/^The report mailing jobs are executed$/", () -> this.reportMailingJobWritePlatformService.executeReportMailingJobs());
+
+        // the recipients come as a set, so any spelling of an address may be the one kept
+        Then("/^The report was sent to (nobody|.+)$/", (String recipients) -> assertEquals(
+                "nobody".equals(recipients) ? List.of() : List.of(recipients.split(", ")), this.deliveries.stream()
+                        .map(delivery -> delivery.recipient.toLowerCase(Locale.ROOT)).sorted().collect(Collectors.toList())));
+
+        Then("/^Each delivery attached the same report file of (\\d+) bytes, which is deleted after the last one$/", (Long size) -> {
+            final Set<File> attachments = this.deliveries.stream().map(delivery -> delivery.attachment).collect(Collectors.toSet());
+            assertEquals(1, attachments.size());
+            final File attachment = attachments.iterator().next();
+            assertEquals("Active Loans.CSV", attachment.getName());
+            for (final Delivery delivery : this.deliveries) {
+                assertEquals(size, delivery.attachmentSize);
+            }
+            assertFalse(attachment.exists());
+            assertFalse(attachment.getParentFile().exists());
+        });
+
+        Then("/^The run history records (Success|Error) for (\\d+) recipients(?: and an attachment of (\\d+) bytes)?$/",
+                (String status, Integer recipientCount, Long attachmentSize) -> {
+                    final ReportMailingJobRunHistory runHistory = runHistory();
+                    assertEquals(status, runHistory.getStatus());
+                    assertEquals(recipientCount, runHistory.getRecipientCount());
+                    assertEquals(attachmentSize, runHistory.getAttachmentSize());
+                    assertNotNull(runHistory.getRenderDurationMs());
+                    if (attachmentSize == null) {
+                        assertNull(runHistory.getDeliveryDurationMs());
+                    } else {
+                        assertNotNull(runHistory.getDeliveryDurationMs());
+                    }
+                });
+
+        Then("/^The run history error log (?:is empty|mentions \"([^\"]+)\")$/", (String error) -> {
+            final String errorLog = runHistory().getErrorLog();
+            if (error == null) {
+                assertEquals("", errorLog);
+            } else {
+                assertTrue(errorLog.contains(error), errorLog);
+            }
+        });
+    }
+
+    private ReportMailingJobRunHistory runHistory() {
+        final ArgumentCaptor<ReportMailingJobRunHistory> runHistory = ArgumentCaptor.forClass(ReportMailingJobRunHistory.class);
+        verify(this.reportMailingJobRunHistoryRepository).save(runHistory.capture());
+        return runHistory.getValue();
+    }
+
+    /**
+     * Streams a report of <code>size</code> bytes, or fails when there is no size.
+     */
+    private static final class StubReportingProcessService implements ReportingProcessService {
+
+        private final Integer size;
+
+        StubReportingProcessService(final Integer size) {
+            this.size = size;
+        }
+
+        @Override
+        public Response processRequest(final String reportName, final MultivaluedMap<String, String> queryParams) {
+            if (this.size == null) {
+                throw new IllegalStateException("The report database is gone");
+            }
+            assertEquals("true", queryParams.getFirst("exportCSV"));
+            return Response.ok((StreamingOutput) outputStream -> outputStream.write(new byte[this.size])).build();
+        }
+    }
+
+    /**
+     * Records each delivery with the attachment as it was when sent, and rejects the recipients of the scenario.
+     */
+    private final class StubEmailService implements ReportMailingJobEmailService {
+
+        @Override
+        public void sendEmailWithAttachment(final ReportMailingJobEmailData reportMailingJobEmailData) {
+            if (rejectedRecipients.contains(reportMailingJobEmailData.getTo())) {
+                throw new IllegalStateException("Mailbox unavailable");
+            }
+            final File attachment = reportMailingJobEmailData.getAttachment();
+            deliveries.add(new Delivery(reportMailingJobEmailData.getTo(), attachment, attachment.exists() ? attachment.length() : null));
+        }
+    }
+
+    private static final class Delivery {
+
+        private final String recipient;
+        private final File attachment;
+        private final Long attachmentSize;
+
+        Delivery(final String recipient, final File attachment, final Long attachmentSize) {
+            this.recipient = recipient;
+            this.attachment = attachment;
+            this.attachmentSize = attachmentSize;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.organisation.office.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.infrastructure.security.utils.ColumnValidator;
+import org.apache.fineract.notification.service.TopicDomainService;
+import org.apache.fineract.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
+import org.apache.fineract.organisation.monetary.service.CurrencyReadPlatformService;
+import org.apache.fineract.organisation.office.domain.Office;
+import org.apache.fineract.organisation.office.domain.OfficeRepositoryWrapper;
+import org.apache.fineract.organisation.office.domain.OfficeTransactionRepository;
+import org.apache.fineract.organisation.office.serialization.OfficeCommandFromApiJsonDeserializer;
+import org.apache.fineract.organisation.office.serialization.OfficeTransactionCommandFromApiJsonDeserializer;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class OfficeHierarchyScopeStepDefinitions implements En {
+
+    private JdbcTemplate jdbcTemplate;
+    private OfficeRepositoryWrapper officeRepositoryWrapper;
+    private AnnotationConfigApplicationContext applicationContext;
+    private OfficeHierarchyScope officeHierarchyScope;
+    private OfficeWritePlatformService officeWritePlatformService;
+
+    public OfficeHierarchyScopeStepDefinitions() {
+        Given("/^The offices (\\d+) \\(head office\\)((?:, \\d+ under \\d+)*) and (\\d+) under (\\d+)$/",
+                (Long headOfficeId, String offices, Long lastOfficeId, Long lastParentId) -> {
+                    this.jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+                    this.jdbcTemplate.execute("create table m_office (id bigint primary key, parent_id bigint, hierarchy varchar(100))");
+                    this.jdbcTemplate.update("insert into m_office (id, hierarchy) values (?, '.')", headOfficeId);
+                    for (final String office : offices.split(", ")) {
+                        if (!office.isEmpty()) {
+                            final String[] officeAndParent = office.split(" under ");
+                            addOffice(Long.valueOf(officeAndParent[0]), Long.valueOf(officeAndParent[1]));
+                        }
+                    }
+                    addOffice(lastOfficeId, lastParentId);
+                    startOfficeServices(headOfficeId);
+                });
+
+        After(() -> {
+            if (this.applicationContext == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+            this.applicationContext.close();
+        });
+
+        When("/^The office scope of ([.\\d]+) on (.+) is built$/",
+                (String hierarchy, String columns) -> this.officeHierarchyScope.officeIdIn(hierarchy, columns.split(", ")));
+
+        When("/^The office (\\d+) is added under the office (\\d+) without the office service$/", this::addOffice);
+
+        When("/^The office (\\d+) is created under the office (\\d+)$/", (Long officeId, Long parentId) -> {
+            final JsonCommand command = officeCommand(null, "{\"name\": \"Branch " + officeId + "\", \"parentId\": " + parentId
+                    + ", \"openingDate\": \"01 January 2022\", \"dateFormat\": \"dd MMMM yyyy\", \"locale\": \"en\"}");
+            // the repository assigns the id on the first save and stores the hierarchy on the second
+            when(this.officeRepositoryWrapper.saveAndFlush(any(Office.class))).thenAnswer(invocation -> {
+                final Office office = invocation.getArgument(0);
+                ReflectionTestUtils.setField(office, "id", officeId);
+                this.jdbcTemplate.update("insert into m_office (id, parent_id) values (?, ?)", officeId, parentId);
+                return office;
+            });
+            when(this.officeRepositoryWrapper.save(any(Office.class))).thenAnswer(invocation -> {
+                final Office office = invocation.getArgument(0);
+                this.jdbcTemplate.update("update m_office set hierarchy = ? where id = ?", office.getHierarchy(), office.getId());
+                return office;
+            });
+            this.officeWritePlatformService.createOffice(command);
+        });
+
+        When("/^The office (\\d+) is moved under the office (\\d+)$/", (Long officeId, Long parentId) -> {
+            final JsonCommand command = officeCommand(officeId, "{\"parentId\": " + parentId + "}");
+            final Office office = mock(Office.class);
+            when(office.getId()).thenReturn(officeId);
+            when(office.update(command)).thenReturn(Map.of("parentId", parentId));
+            when(this.officeRepositoryWrapper.findOfficeHierarchy(officeId)).thenReturn(office);
+            when(this.officeRepositoryWrapper.saveAndFlush(office)).thenAnswer(invocation -> {
+                final String hierarchy = this.jdbcTemplate.queryForObject("select hierarchy from m_office where id = ?", String.class,
+                        officeId);
+                final String parentHierarchy = this.jdbcTemplate.queryForObject("select hierarchy from m_office where id = ?",
+                        String.class, parentId);
+                this.jdbcTemplate.update("update m_office set parent_id = ? where id = ?", parentId, officeId);
+                this.jdbcTemplate.update("update m_office set hierarchy = concat(?, substring(hierarchy, ?)) where hierarchy like ?",
+                        parentHierarchy + officeId + ".", hierarchy.length() + 1, hierarchy + "%");
+                return office;
+            });
+            this.officeWritePlatformService.updateOffice(officeId, command);
+        });
+
+        Then("/^The office scope of ([.\\d]+) on (.+) is (\\(.+\\))$/", (String hierarchy, String columns,
+                String condition) -> assertEquals(condition, this.officeHierarchyScope.officeIdIn(hierarchy, columns.split(", "))));
+    }
+
+    private static JsonCommand officeCommand(final Long officeId, final String json) {
+        final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+        return JsonCommand.from(json, fromJsonHelper.parse(json), fromJsonHelper, "OFFICE", officeId, null, null, null, null, null, null,
+                "/offices", null, null, null);
+    }
+
+    private void addOffice(final Long officeId, final Long parentId) {
+        this.jdbcTemplate.update(
+                "insert into m_office (id, parent_id, hierarchy) select ?, id, concat(hierarchy, ?) from m_office where id = ?", officeId,
+                officeId + ".", parentId);
+    }
+
+    /**
+     * Starts the office read and write services behind the caching proxies of Spring, for a user of the head office.
+     */
+    private void startOfficeServices(final Long headOfficeId) {
+        final Office headOffice = mock(Office.class);
+        when(headOffice.getId()).thenReturn(headOfficeId);
+        when(headOffice.getHierarchy()).thenReturn(".");
+        final AppUser user = mock(AppUser.class);
+        when(user.getOffice()).thenReturn(headOffice);
+        final PlatformSecurityContext context = mock(PlatformSecurityContext.class);
+        when(context.authenticatedUser()).thenReturn(user);
+
+        // the parents are read with their hierarchy, like the JPA repository does
+        this.officeRepositoryWrapper = mock(OfficeRepositoryWrapper.class);
+        when(this.officeRepositoryWrapper.findOfficeHierarchy(any())).thenAnswer(invocation -> {
+            final Long officeId = invocation.getArgument(0);
+            final Office office = BeanUtils.instantiateClass(Office.class);
+            ReflectionTestUtils.setField(office, "id", officeId);
+            ReflectionTestUtils.setField(office, "hierarchy",
+                    this.jdbcTemplate.queryForObject("select hierarchy from m_office where id = ?", String.class, officeId));
+            return office;
+        });
+        when(this.officeRepositoryWrapper.findOfficeHierarchy(headOfficeId)).thenReturn(headOffice);
+
+        this.applicationContext = new AnnotationConfigApplicationContext();
+        this.applicationContext.register(CachingConfiguration.class);
+        this.applicationContext.registerBean(OfficeReadPlatformServiceImpl.class, () -> new OfficeReadPlatformServiceImpl(context,
+                mock(CurrencyReadPlatformService.class), this.jdbcTemplate, mock(ColumnValidator.class),
+                mock(DatabaseSpecificSQLGenerator.class)));
+        this.applicationContext.registerBean(OfficeWritePlatformServiceJpaRepositoryImpl.class,
+                () -> new OfficeWritePlatformServiceJpaRepositoryImpl(context,
+                        new OfficeCommandFromApiJsonDeserializer(new FromJsonHelper()),
+                        new OfficeTransactionCommandFromApiJsonDeserializer(new FromJsonHelper()), this.officeRepositoryWrapper,
+                        mock(OfficeTransactionRepository.class), mock(ApplicationCurrencyRepositoryWrapper.class),
+                        mock(TopicDomainService.class)));
+        this.applicationContext.refresh();
+        this.officeHierarchyScope = new OfficeHierarchyScope(this.applicationContext.getBean(OfficeReadPlatformService.class));
+        this.officeWritePlatformService = this.applicationContext.getBean(OfficeWritePlatformService.class);
+
+        ThreadLocalContextUtil.setTenant(
+                new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfiguration {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("offices", "officesForDropdown", "officesById", "officeSubtrees");
+        }
+    }
+}
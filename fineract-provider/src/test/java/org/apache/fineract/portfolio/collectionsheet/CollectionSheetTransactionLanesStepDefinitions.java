@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.portfolio.collectionsheet.command.CollectionSheetBulkRepaymentCommand;
+import org.apache.fineract.portfolio.collectionsheet.command.SingleRepaymentCommand;
+import org.apache.fineract.portfolio.collectionsheet.data.CollectionSheetTransactionDataValidator;
+import org.apache.fineract.portfolio.collectionsheet.data.CollectionSheetTransactionResultData;
+import org.apache.fineract.portfolio.collectionsheet.serialization.CollectionSheetBulkDisbursalCommandFromApiJsonDeserializer;
+import org.apache.fineract.portfolio.collectionsheet.serialization.CollectionSheetBulkRepaymentCommandFromApiJsonDeserializer;
+import org.apache.fineract.portfolio.collectionsheet.service.CollectionSheetTransactionLanes;
+import org.apache.fineract.portfolio.collectionsheet.service.CollectionSheetWritePlatformServiceJpaRepositoryImpl;
+import org.apache.fineract.portfolio.loanaccount.service.LoanWritePlatformService;
+import org.apache.fineract.portfolio.meeting.service.MeetingWritePlatformService;
+import org.apache.fineract.portfolio.paymentdetail.domain.PaymentDetailAssembler;
+import org.apache.fineract.portfolio.paymentdetail.service.PaymentDetailWritePlatformService;
+import org.apache.fineract.portfolio.savings.domain.DepositAccountAssembler;
+import org.apache.fineract.portfolio.savings.service.DepositAccountWritePlatformService;
+import org.mockito.invocation.InvocationOnMock;
+
+public class CollectionSheetTransactionLanesStepDefinitions implements En {
+
+    private final List<Long> loanIds = new ArrayList<>();
+    private final Set<Long> failingLoanIds = new HashSet<>();
+    private boolean awaitingApproval;
+
+    private final List<SingleRepaymentCommand> repayments = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Thread> repaymentThreads = Collections.synchronizedSet(new HashSet<>());
+    private Thread commandThread;
+    private Map<String, Object> changes;
+
+    public CollectionSheetTransactionLanesStepDefinitions() {
+        Given("/^The collection sheet repayments of the loans (.*)$/", (String loanIds) -> this.loanIds.addAll(longs(loanIds)));
+
+        Given("/^The collection sheet repayment of loan (\\d+) fails$/", (Long loanId) -> this.failingLoanIds.add(loanId));
+
+        Given("/^The collection sheet awaits approval by a checker$/", () -> this.awaitingApproval = true);
+
+        When("/^The collection sheet is saved on (\\d+) lanes$/", (Integer lanes) -> {
+            final FineractProperties fineractProperties = new FineractProperties();
+            fineractProperties.getCollectionSheet().setThreadPoolSize(lanes);
+            final CollectionSheetTransactionLanes transactionLanes = new CollectionSheetTransactionLanes(fineractProperties);
+
+            final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+            final PaymentDetailAssembler paymentDetailAssembler = mock(PaymentDetailAssembler.class);
+            final ConfigurationDomainService configurationDomainService = mock(ConfigurationDomainService.class);
+            when(configurationDomainService.isMakerCheckerEnabledForTask(anyString())).thenReturn(this.awaitingApproval);
+            final CollectionSheetWritePlatformServiceJpaRepositoryImpl service = new CollectionSheetWritePlatformServiceJpaRepositoryImpl(
+                    mock(LoanWritePlatformService.class, this::loanWritePlatformService),
+                    new CollectionSheetBulkRepaymentCommandFromApiJsonDeserializer(fromJsonHelper, paymentDetailAssembler),
+                    new CollectionSheetBulkDisbursalCommandFromApiJsonDeserializer(fromJsonHelper),
+                    mock(CollectionSheetTransactionDataValidator.class), mock(MeetingWritePlatformService.class),
+                    mock(DepositAccountAssembler.class), mock(DepositAccountWritePlatformService.class), paymentDetailAssembler,
+                    mock(PaymentDetailWritePlatformService.class), transactionLanes, configurationDomainService);
+
+            final String json = command();
+            this.commandThread = Thread.currentThread();
+            try {
+                this.changes = service.saveIndividualCollectionSheet(new JsonCommand(null, json, fromJsonHelper.parse(json),
+                        fromJsonHelper, null, null, null, null, null, null, null, null, null, null, null, null)).getChanges();
+            } finally {
+                transactionLanes.destroy();
+            }
+        });
+
+        Then("/^The collection sheet repayments of every loan are made in sheet order$/", () -> {
+            assertEquals(this.loanIds.size(), this.repayments.size());
+            final Map<Long, List<Integer>> sequences = new HashMap<>();
+            for (final SingleRepaymentCommand repayment : this.repayments) {
+                sequences.computeIfAbsent(repayment.getLoanId(), id -> new ArrayList<>()).add(repayment.getTransactionAmount().intValue());
+            }
+            for (final List<Integer> sequence : sequences.values()) {
+                final List<Integer> sorted = new ArrayList<>(sequence);
+                Collections.sort(sorted);
+                assertEquals(sorted, sequence);
+            }
+        });
+
+        Then("/^The collection sheet results are the loans (.*) in sheet order$/", (String loanIds) -> {
+            assertEquals(longs(loanIds),
+                    results().stream().map(CollectionSheetTransactionResultData::getAccountId).collect(Collectors.toList()));
+            assertTrue(results().stream().allMatch(CollectionSheetTransactionResultData::isSuccess));
+        });
+
+        Then("/^The collection sheet repayment of loan (\\d+) fails with (.*)$/", (Long loanId, String errorCode) -> {
+            for (final CollectionSheetTransactionResultData result : results()) {
+                assertEquals(!loanId.equals(result.getAccountId()), result.isSuccess());
+                if (!result.isSuccess()) {
+                    assertEquals(errorCode, result.getErrorCode());
+                }
+            }
+        });
+
+        Then("/^The collection sheet loan transactions are (.*)$/",
+                (String transactionIds) -> assertEquals(longs(transactionIds), this.changes.get("loanTransactions")));
+
+        Then("/^The collection sheet records (\\d+) failed transactions$/", (Long failedTransactions) -> {
+            assertEquals(failedTransactions, this.changes.get("failedTransactions"));
+            assertEquals(Boolean.FALSE, this.changes.get("partialSuccess"));
+        });
+
+        Then("/^The collection sheet records (\\d+) failed transactions and partial success$/", (Long failedTransactions) -> {
+            assertEquals(failedTransactions, this.changes.get("failedTransactions"));
+            assertEquals(Boolean.TRUE, this.changes.get("partialSuccess"));
+        });
+
+        Then("/^The collection sheet repayments are made on the thread of its command$/", () -> {
+            assertEquals(this.loanIds.size(), this.repayments.size());
+            assertEquals(Set.of(this.commandThread), this.repaymentThreads);
+        });
+    }
+
+    private String command() {
+        // the amount of every repayment is its position in the sheet
+        final StringBuilder transactions = new StringBuilder();
+        for (int i = 0; i < this.loanIds.size(); i++) {
+            transactions.append(i == 0 ? "" : ",").append("{\"loanId\":").append(this.loanIds.get(i)).append(",\"transactionAmount\":")
+                    .append(i + 1).append('}');
+        }
+        return "{\"locale\":\"en\",\"dateFormat\":\"yyyy-MM-dd\",\"transactionDate\":\"2021-03-05\",\"bulkRepaymentTransactions\":["
+                + transactions + "]}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CollectionSheetTransactionResultData> results() {
+        return (List<CollectionSheetTransactionResultData>) this.changes.get("transactionResults");
+    }
+
+    private Object loanWritePlatformService(final InvocationOnMock invocation) throws InterruptedException {
+        if (!"makeLoanBulkRepayment".equals(invocation.getMethod().getName())) {
+            return Collections.emptyMap();
+        }
+        final SingleRepaymentCommand repayment = invocation.<CollectionSheetBulkRepaymentCommand>getArgument(0)
+                .getLoanTransactions()[0];
+        // the earlier repayments take longer, so they finish after later ones of other loans
+        Thread.sleep(5L * (this.loanIds.size() - repayment.getTransactionAmount().intValue()));
+        this.repaymentThreads.add(Thread.currentThread());
+        this.repayments.add(repayment);
+        if (this.failingLoanIds.contains(repayment.getLoanId())) {
+            throw new PlatformDataIntegrityException("error.msg.collectionsheet.test.failure", "Repayment failed");
+        }
+        final Map<String, Object> changes = new HashMap<>();
+        changes.put("loanTransactions", List.of(repayment.getLoanId()));
+        return changes;
+    }
+
+    private static List<Long> longs(final String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
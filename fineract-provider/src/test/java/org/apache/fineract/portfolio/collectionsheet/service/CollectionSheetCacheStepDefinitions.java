@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import org.apache.fineract.infrastructure.cache.domain.CacheType;
+import org.apache.fineract.infrastructure.cache.service.RuntimeDelegatingCacheManager;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
+import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGClientData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGCollectionSheetData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGGroupData;
+import org.apache.fineract.portfolio.collectionsheet.data.LoanDueData;
+import org.apache.fineract.portfolio.collectionsheet.data.SavingsDueData;
+import org.apache.fineract.portfolio.common.BusinessEventNotificationConstants.BusinessEntity;
+import org.apache.fineract.portfolio.common.BusinessEventNotificationConstants.BusinessEvents;
+import org.apache.fineract.portfolio.common.service.BusinessEventListener;
+import org.apache.fineract.portfolio.common.service.BusinessEventNotifierService;
+import org.apache.fineract.portfolio.loanaccount.domain.Loan;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanCharge;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanTransaction;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccount;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransaction;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class CollectionSheetCacheStepDefinitions implements En {
+
+    private static final LocalDate MEETING_DATE = LocalDate.of(2021, 6, 1);
+
+    private javax.cache.CacheManager jcacheManager;
+    private CollectionSheetCache collectionSheetCache;
+    private TransactionTemplate transactionTemplate;
+    private final Map<BusinessEvents, List<BusinessEventListener>> listeners = new EnumMap<>(BusinessEvents.class);
+
+    public CollectionSheetCacheStepDefinitions() {
+        Given("/^The collection sheets are cached on a single node$/", () -> {
+            final CachingProvider cachingProvider = Caching.getCachingProvider();
+            this.jcacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                    new URLClassLoader(new URL[0], getClass().getClassLoader()));
+            this.jcacheManager.createCache(CollectionSheetCache.CACHE_NAME, new MutableConfiguration<>().setStoreByValue(false));
+            final JCacheCacheManager jCacheCacheManager = new JCacheCacheManager(this.jcacheManager);
+            jCacheCacheManager.afterPropertiesSet();
+            final RuntimeDelegatingCacheManager cacheManager = new RuntimeDelegatingCacheManager(jCacheCacheManager);
+            cacheManager.switchToCache(false, CacheType.SINGLE_NODE);
+            final BusinessEventNotifierService businessEventNotifierService = mock(BusinessEventNotifierService.class);
+            doAnswer(invocation -> this.listeners.computeIfAbsent(invocation.getArgument(0), e -> new ArrayList<>())
+                    .add(invocation.getArgument(1))).when(businessEventNotifierService).addBusinessEventPostListeners(any(), any());
+            this.collectionSheetCache = new CollectionSheetCache(cacheManager, businessEventNotifierService);
+            this.collectionSheetCache.registerForNotification();
+            this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+                    new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")));
+            ReflectionTestUtils.setField(MoneyHelper.class, "roundingMode", RoundingMode.HALF_EVEN);
+            setTenant("default");
+        });
+
+        After(() -> {
+            if (this.jcacheManager == null) {
+                return;
+            }
+            ThreadLocalContextUtil.clearTenant();
+            this.jcacheManager.close();
+        });
+
+        Given("/^The collection sheet of the center (\\d+) with the loans (none|[\\d, ]+) and the savings (none|[\\d, ]+) is cached$/",
+                (Long centerId, String loanIds, String savingsIds) -> {
+                    final long version = this.collectionSheetCache.version();
+                    this.collectionSheetCache.put(true, centerId, MEETING_DATE, sheet(loanIds, savingsIds), version);
+                });
+
+        When("/^The collection sheet of the center (\\d+) with the loans (none|[\\d, ]+) is built while a (\\w+) event with the (\\w+) "
+                + "of the (?:loan|savings account) (\\d+) is committed$/",
+                (Long centerId, String loanIds, String event, String entity, Long accountId) -> {
+                    final long version = this.collectionSheetCache.version();
+                    this.transactionTemplate.execute(status -> fire(event, entity, accountId));
+                    this.collectionSheetCache.put(true, centerId, MEETING_DATE, sheet(loanIds, "none"), version);
+                });
+
+        When("/^A (\\w+) event with the (\\w+) of the (?:loan|savings account) (\\d+)(?: of the tenant (\\w+))? is "
+                + "(committed|rolled back|made outside of a transaction)$/",
+                (String event, String entity, Long accountId, String tenantIdentifier, String outcome) -> {
+                    setTenant(tenantIdentifier == null ? "default" : tenantIdentifier);
+                    if ("made outside of a transaction".equals(outcome)) {
+                        fire(event, entity, accountId);
+                    } else {
+                        this.transactionTemplate.execute(status -> {
+                            fire(event, entity, accountId);
+                            if ("rolled back".equals(outcome)) {
+                                status.setRollbackOnly();
+                            }
+                            return null;
+                        });
+                    }
+                    setTenant("default");
+                });
+
+        Then("/^The collection sheet of the center (\\d+) is (cached|not cached)$/", (Long centerId, String cached) -> assertEquals(
+                "cached".equals(cached), this.collectionSheetCache.get(true, centerId, MEETING_DATE) != null));
+    }
+
+    /**
+     * Fires an event the way the write services do, with a mocked entity of the loan or savings account.
+     */
+    private Object fire(final String event, final String entity, final Long accountId) {
+        final Loan loan = mock(Loan.class);
+        when(loan.getId()).thenReturn(accountId);
+        final Object entityObject;
+        switch (BusinessEntity.valueOf(entity)) {
+            case LOAN:
+                entityObject = loan;
+            break;
+            case LOAN_TRANSACTION:
+            case LOAN_ADJUSTED_TRANSACTION:
+                final LoanTransaction loanTransaction = mock(LoanTransaction.class);
+                when(loanTransaction.getLoan()).thenReturn(loan);
+                entityObject = loanTransaction;
+            break;
+            case LOAN_CHARGE:
+                final LoanCharge loanCharge = mock(LoanCharge.class);
+                when(loanCharge.getLoan()).thenReturn(loan);
+                entityObject = loanCharge;
+            break;
+            default:
+                final SavingsAccount savingsAccount = mock(SavingsAccount.class);
+                when(savingsAccount.getId()).thenReturn(accountId);
+                entityObject = SavingsAccountTransaction.withdrawal(savingsAccount, null, null, MEETING_DATE,
+                        Money.of(new MonetaryCurrency("USD", 2, 1), BigDecimal.TEN), null, null);
+        }
+        final Map<BusinessEntity, Object> entityMap = new EnumMap<>(BusinessEntity.class);
+        entityMap.put(BusinessEntity.valueOf(entity), entityObject);
+        for (final BusinessEventListener listener : this.listeners.getOrDefault(BusinessEvents.valueOf(event), List.of())) {
+            listener.businessEventWasExecuted(entityMap);
+        }
+        return null;
+    }
+
+    private static JLGCollectionSheetData sheet(final String loanIds, final String savingsIds) {
+        final List<LoanDueData> loans = new ArrayList<>();
+        for (final Long loanId : ids(loanIds)) {
+            loans.add(new LoanDueData(loanId, null, null, null, null, null, null, BigDecimal.ZERO, null, BigDecimal.ZERO, null, null,
+                    BigDecimal.ZERO, null));
+        }
+        final List<SavingsDueData> savings = new ArrayList<>();
+        for (final Long savingsId : ids(savingsIds)) {
+            savings.add(SavingsDueData.instance(savingsId, null, null, null, null, null, BigDecimal.ZERO, null));
+        }
+        final JLGClientData client = JLGClientData.withAttendance(1L, "Client", null);
+        client.setLoans(loans);
+        client.setSavings(savings);
+        final List<JLGClientData> clients = new ArrayList<>();
+        clients.add(client);
+        final List<JLGGroupData> groups = new ArrayList<>();
+        groups.add(JLGGroupData.withClients(JLGGroupData.instance(1L, "Group", null, null, null, null), clients));
+        return JLGCollectionSheetData.instance(MEETING_DATE, null, groups, null, null);
+    }
+
+    private static List<Long> ids(final String ids) {
+        final List<Long> list = new ArrayList<>();
+        if (!"none".equals(ids)) {
+            for (final String id : ids.split(",")) {
+                list.add(Long.valueOf(id.trim()));
+            }
+        }
+        return list;
+    }
+
+    private static void setTenant(final String tenantIdentifier) {
+        ThreadLocalContextUtil.setTenant(
+                new FineractPlatformTenant(1L, tenantIdentifier, tenantIdentifier, "UTC", mock(FineractPlatformTenantConnection.class)));
+    }
+}
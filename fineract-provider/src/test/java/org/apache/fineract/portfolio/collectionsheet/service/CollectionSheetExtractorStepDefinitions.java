@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.collectionsheet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGClientData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGCollectionSheetData;
+import org.apache.fineract.portfolio.collectionsheet.data.JLGGroupData;
+import org.apache.fineract.portfolio.collectionsheet.data.LoanDueData;
+import org.apache.fineract.portfolio.collectionsheet.data.SavingsDueData;
+import org.apache.fineract.portfolio.collectionsheet.service.CollectionSheetReadPlatformServiceImpl.JLGCollectionSheetExtractor;
+import org.apache.fineract.portfolio.collectionsheet.service.CollectionSheetReadPlatformServiceImpl.MandatorySavingsCollectionsheetExtractor;
+import org.apache.fineract.portfolio.loanproduct.data.LoanProductData;
+import org.apache.fineract.portfolio.meeting.attendance.service.AttendanceEnumerations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class CollectionSheetExtractorStepDefinitions implements En {
+
+    private static final LocalDate MEETING_DATE = LocalDate.of(2021, 6, 1);
+    private static final String LOAN_ROWS = "select * from loan_rows order by groupId, clientId, loanId";
+    private static final String SAVINGS_ROWS = "select * from savings_rows order by groupId, clientId, savingsId";
+
+    private JdbcTemplate jdbcTemplate;
+    private DatabaseSpecificSQLGenerator sqlGenerator;
+    private JLGCollectionSheetData sheet;
+    private JLGCollectionSheetData oldSheet;
+
+    public CollectionSheetExtractorStepDefinitions() {
+        Given("/^The collection sheet query returns the loan rows (none|[\\d/, -]+) and the savings rows (none|[\\d/, ]+)$/",
+                (String loanRows, String savingsRows) -> {
+                    this.jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                            "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+                    final DatabaseTypeResolver databaseTypeResolver = mock(DatabaseTypeResolver.class);
+                    when(databaseTypeResolver.isMySQL()).thenReturn(true);
+                    this.sqlGenerator = new DatabaseSpecificSQLGenerator(databaseTypeResolver);
+                    this.jdbcTemplate.execute("create table loan_rows (groupName varchar(50), groupId bigint, staffId bigint, "
+                            + "staffName varchar(50), levelId bigint, levelName varchar(50), clientName varchar(50), clientId bigint, "
+                            + "loanId bigint, accountId varchar(20), accountStatusId smallint, productShortName varchar(10), "
+                            + "productId bigint, currencyCode varchar(3), currencyDigits smallint, inMultiplesOf smallint, "
+                            + "currencyName varchar(50), currencyDisplaySymbol varchar(10), currencyNameCode varchar(50), "
+                            + "disbursementAmount decimal(19,6), principalDue decimal(19,6), principalPaid decimal(19,6), "
+                            + "interestDue decimal(19,6), interestPaid decimal(19,6), feeDue decimal(19,6), feePaid decimal(19,6), "
+                            + "attendanceTypeId smallint, chargesDue decimal(19,6))");
+                    this.jdbcTemplate.execute("create table savings_rows (groupName varchar(50), groupId bigint, clientName varchar(50), "
+                            + "clientId bigint, staffId bigint, staffName varchar(50), levelId bigint, levelName varchar(50), "
+                            + "savingsId bigint, accountId varchar(20), accountStatusId smallint, productShortName varchar(10), "
+                            + "productId bigint, currencyCode varchar(3), currencyDigits smallint, inMultiplesOf smallint, "
+                            + "currencyName varchar(50), currencyDisplaySymbol varchar(10), depositAccountType varchar(20), "
+                            + "currencyNameCode varchar(50), dueAmount decimal(19,6))");
+                    // inserted out of order, the query sorts them
+                    for (final String row : reversed(rows(loanRows))) {
+                        final String[] ids = row.split("/");
+                        final String loanId = "-".equals(ids[2]) ? null : ids[2];
+                        this.jdbcTemplate.update("insert into loan_rows values ('Group " + ids[0] + "', " + ids[0] + ", 1, 'Staff', 2, "
+                                + "'Group', 'Client " + ids[1] + "', " + ids[1] + ", " + loanId + ", " + accountNo(loanId) + ", "
+                                + (loanId == null ? "null" : "300") + ", " + productOf(loanId, "'L") + ", " + productOf(loanId, "")
+                                + ", 'USD', 2, 1, 'US Dollar', '$', 'currency.USD', null, 100, 0, 10, 0, 0, 0, 1, 0)");
+                    }
+                    for (final String row : reversed(rows(savingsRows))) {
+                        final String[] ids = row.split("/");
+                        this.jdbcTemplate.update("insert into savings_rows values ('Group " + ids[0] + "', " + ids[0] + ", 'Client "
+                                + ids[1] + "', " + ids[1] + ", 1, 'Staff', 2, 'Group', " + ids[2] + ", " + accountNo(ids[2]) + ", 300, "
+                                + productOf(ids[2], "'S") + ", " + productOf(ids[2], "") + ", 'USD', 2, 1, 'US Dollar', '$', "
+                                + "'Recurring Deposit', 'currency.USD', 50)");
+                    }
+                });
+
+        When("/^The collection sheet is built from the rows$/", () -> {
+            final JLGCollectionSheetExtractor extractor = new JLGCollectionSheetExtractor(this.sqlGenerator);
+            final Collection<JLGGroupData> groups = this.jdbcTemplate.query(LOAN_ROWS, extractor);
+            this.sheet = JLGCollectionSheetData.instance(MEETING_DATE, extractor.loanProducts, groups, null, null);
+            CollectionSheetReadPlatformServiceImpl.mergeSavingsGroupDataIntoCollectionsheetData(
+                    this.jdbcTemplate.query(SAVINGS_ROWS, new MandatorySavingsCollectionsheetExtractor(this.sqlGenerator)), this.sheet);
+            this.oldSheet = buildOldSheet();
+        });
+
+        Then("/^The collection sheet groups are (.+)$/", (String expected) -> assertEquals(expected, render(this.sheet)));
+
+        Then("/^The collection sheet matches the sheet built from the flat rows$/",
+                () -> assertEquals(render(this.oldSheet), render(this.sheet)));
+
+        Then("/^The collection sheet lists the loan products (none|[\\d, ]+)$/", (String expected) -> {
+            final Set<Long> productIds = new TreeSet<>();
+            for (final LoanProductData loanProduct : this.sheet.getLoanProducts()) {
+                productIds.add(loanProduct.getId());
+            }
+            assertEquals(expected, productIds.isEmpty() ? "none" : join(productIds));
+        });
+    }
+
+    /**
+     * The sheet as it was built before the rows were streamed: every row read into a flat list, grouped by group and
+     * client, with the savings merged into the groups and clients found by equality.
+     */
+    private JLGCollectionSheetData buildOldSheet() {
+        final List<Long[]> flatRows = this.jdbcTemplate.query(LOAN_ROWS,
+                (rs, rowNum) -> new Long[] { rs.getLong("groupId"), rs.getLong("clientId"), (Long) rs.getObject("loanId") });
+        final List<JLGGroupData> groups = new ArrayList<>();
+        List<JLGClientData> clients = new ArrayList<>();
+        List<LoanDueData> loans = new ArrayList<>();
+        Long[] previous = null;
+        for (final Long[] row : flatRows) {
+            if (previous != null && !row[0].equals(previous[0])) {
+                clients.add(oldClient(previous, loans));
+                groups.add(JLGGroupData.withClients(oldGroup(previous), clients));
+                clients = new ArrayList<>();
+                loans = new ArrayList<>();
+            } else if (previous != null && !row[1].equals(previous[1])) {
+                clients.add(oldClient(previous, loans));
+                loans = new ArrayList<>();
+            }
+            if (row[2] != null) {
+                loans.add(new LoanDueData(row[2], null, null, null, null, null, null, BigDecimal.ZERO, null, BigDecimal.ZERO, null,
+                        null, BigDecimal.ZERO, null));
+            }
+            previous = row;
+        }
+        if (previous != null) {
+            clients.add(oldClient(previous, loans));
+            groups.add(JLGGroupData.withClients(oldGroup(previous), clients));
+        }
+
+        final Collection<JLGGroupData> groupsWithSavings = this.jdbcTemplate.query(SAVINGS_ROWS,
+                new MandatorySavingsCollectionsheetExtractor(this.sqlGenerator));
+        for (final JLGGroupData groupSavings : groupsWithSavings) {
+            final int groupIndex = groups.indexOf(groupSavings);
+            if (groupIndex < 0) {
+                groups.add(groupSavings);
+                continue;
+            }
+            final List<JLGClientData> groupClients = (List<JLGClientData>) groups.get(groupIndex).getClients();
+            for (final JLGClientData clientSavings : groupSavings.getClients()) {
+                final int clientIndex = groupClients.indexOf(clientSavings);
+                if (clientIndex < 0) {
+                    groupClients.add(clientSavings);
+                } else {
+                    groupClients.get(clientIndex).setSavings(clientSavings.getSavings());
+                }
+            }
+        }
+        return JLGCollectionSheetData.instance(MEETING_DATE, null, groups, null, null);
+    }
+
+    private static JLGGroupData oldGroup(final Long[] row) {
+        return JLGGroupData.instance(row[0], "Group " + row[0], 1L, "Staff", 2L, "Group");
+    }
+
+    private static JLGClientData oldClient(final Long[] row, final List<LoanDueData> loans) {
+        final JLGClientData client = JLGClientData.withAttendance(row[1], "Client " + row[1], AttendanceEnumerations.attendanceType(1));
+        client.setLoans(loans);
+        return client;
+    }
+
+    /**
+     * e.g. <code>group 1 (client 11: loans 101, 102; client 12: no loans, savings 301)</code>, a client read by the
+     * savings query only has no loans part.
+     */
+    private static String render(final JLGCollectionSheetData sheet) {
+        if (sheet.getGroups().isEmpty()) {
+            return "none";
+        }
+        final List<String> groups = new ArrayList<>();
+        for (final JLGGroupData group : sheet.getGroups()) {
+            final List<String> clients = new ArrayList<>();
+            for (final JLGClientData client : group.getClients()) {
+                final List<String> accounts = new ArrayList<>();
+                if (client.getLoans() != null) {
+                    accounts.add(client.getLoans().isEmpty() ? "no loans"
+                            : "loans " + join(client.getLoans().stream().map(LoanDueData::getLoanId).collect(Collectors.toList())));
+                }
+                if (client.getSavings() != null) {
+                    accounts.add(
+                            "savings " + join(client.getSavings().stream().map(SavingsDueData::savingsId).collect(Collectors.toList())));
+                }
+                clients.add("client " + client.getClientId() + ": " + String.join(", ", accounts));
+            }
+            groups.add("group " + group.getGroupId() + " (" + String.join("; ", clients) + ")");
+        }
+        return String.join(" ", groups);
+    }
+
+    private static String join(final Collection<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    private static List<String> rows(final String rows) {
+        final List<String> list = new ArrayList<>();
+        if (!"none".equals(rows)) {
+            for (final String row : rows.split(",")) {
+                list.add(row.trim());
+            }
+        }
+        return list;
+    }
+
+    private static List<String> reversed(final List<String> rows) {
+        final List<String> reversed = new ArrayList<>(rows);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private static String accountNo(final String accountId) {
+        return accountId == null ? "null" : "'" + accountId + "'";
+    }
+
+    // the product of an account is its hundreds, e.g. 1 for the loan 101
+    private static String productOf(final String accountId, final String namePrefix) {
+        if (accountId == null) {
+            return "null";
+        }
+        final long productId = Long.parseLong(accountId) / 100;
+        return namePrefix.isEmpty() ? String.valueOf(productId) : namePrefix + productId + "'";
+    }
+}
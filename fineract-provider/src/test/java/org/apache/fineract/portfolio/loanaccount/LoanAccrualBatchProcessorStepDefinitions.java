@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.portfolio.loanaccount.data.LoanAccrualPostingData;
+import org.apache.fineract.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import org.apache.fineract.portfolio.loanaccount.service.LoanAccrualBatchProcessor;
+import org.apache.fineract.portfolio.loanaccount.service.LoanAccrualBatchWriter;
+import org.apache.fineract.portfolio.loanaccount.service.LoanAccrualWritePlatformService;
+import org.apache.fineract.portfolio.loanaccount.service.LoanReadPlatformService;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class LoanAccrualBatchProcessorStepDefinitions implements En {
+
+    private final LoanReadPlatformService loanReadPlatformService = mock(LoanReadPlatformService.class);
+    private final LoanAccrualWritePlatformService loanAccrualWritePlatformService = mock(LoanAccrualWritePlatformService.class);
+    private final LoanAccrualBatchWriter loanAccrualBatchWriter = mock(LoanAccrualBatchWriter.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final List<List<Long>> writtenBatches = new ArrayList<>();
+
+    private JobPartitionData partition;
+
+    private Map<String, String> summary;
+
+    private JobExecutionException failure;
+
+    @SuppressWarnings("unchecked")
+    public LoanAccrualBatchProcessorStepDefinitions() {
+        Given("/^The candidate loans (.*) in the (dry run )?accrual partition of loans (\\d+) to (\\d+)$/",
+                (String loans, String dryRun, Long rangeFrom, Long rangeTo) -> {
+                    final List<Long> loanIds = ids(loans);
+                    when(this.loanReadPlatformService.retrieveLoanIdsForScheduleAccrual(rangeFrom - 1, rangeTo, null)).thenReturn(loanIds);
+                    when(this.loanReadPlatformService.retriveScheduleAccrualData(anyCollection())).thenAnswer(invocation -> {
+                        final Collection<Long> requested = invocation.getArgument(0);
+                        return requested.stream().map(LoanAccrualBatchProcessorStepDefinitions::accrualData).collect(Collectors.toList());
+                    });
+                    when(this.loanAccrualWritePlatformService.calculateAccruals(anyLong(), anyCollection())).thenAnswer(invocation -> {
+                        final Collection<LoanScheduleAccrualData> accrualDatas = invocation.getArgument(1);
+                        return accrualDatas.stream().map(LoanAccrualBatchProcessorStepDefinitions::posting).collect(Collectors.toList());
+                    });
+                    when(this.transactionTemplate.execute(any()))
+                            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+                    doAnswer(invocation -> {
+                        final List<LoanAccrualPostingData> postings = invocation.getArgument(0);
+                        this.writtenBatches.add(postings.stream().map(posting -> posting.getScheduleAccrualData().getLoanId())
+                                .collect(Collectors.toList()));
+                        return null;
+                    }).when(this.loanAccrualBatchWriter).write(any(), any());
+                    this.partition = new JobPartitionData(1L, "run", "Add Accrual Transactions",
+                            Map.of("dry-run", String.valueOf(dryRun != null), "app-user-id", "1"), 1, rangeFrom, rangeTo, "OPEN", null,
+                            null);
+                });
+
+        Given("/^The accrual calculation of loan (\\d+) fails$/", (Long loanId) -> {
+            when(this.loanAccrualWritePlatformService.calculateAccruals(eq(loanId), anyCollection()))
+                    .thenThrow(new IllegalStateException("accrual of loan " + loanId + " failed"));
+        });
+
+        When("/^The accrual partition is processed$/", () -> {
+            final FineractPlatformTenant tenant = new FineractPlatformTenant(1L, "default", "default", "UTC",
+                    mock(FineractPlatformTenantConnection.class));
+            ThreadLocalContextUtil.setTenant(tenant);
+            try {
+                final LoanAccrualBatchProcessor processor = new LoanAccrualBatchProcessor(this.loanReadPlatformService,
+                        this.loanAccrualWritePlatformService, this.loanAccrualBatchWriter, this.transactionTemplate,
+                        mock(AuditorAware.class), mock(JobPartitionService.class));
+                this.failure = null;
+                try {
+                    this.summary = processor.processPartition(this.partition);
+                } catch (JobExecutionException e) {
+                    this.failure = e;
+                }
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        });
+
+        Then("/^The accruals of the loans are written in the batches (.*)$/", (String batches) -> {
+            final List<List<Long>> expected = Arrays.stream(batches.split(";")).map(LoanAccrualBatchProcessorStepDefinitions::ids)
+                    .collect(Collectors.toList());
+            assertEquals(expected, this.writtenBatches);
+        });
+
+        Then("/^No accruals are written$/", () -> {
+            verify(this.loanAccrualBatchWriter, never()).write(any(), any());
+        });
+
+        Then("/^The accrual partition summary counts (\\d+) loans and (\\d+) postings with interest (.*)$/",
+                (String loans, String postings, String interest) -> {
+                    assertNull(this.failure);
+                    assertEquals(loans, this.summary.get("loans"));
+                    assertEquals(postings, this.summary.get("postings"));
+                    assertEquals(interest, this.summary.get("interest"));
+                });
+
+        Then("/^The accrual partition fails with (\\d+) errors?$/", (Integer errors) -> {
+            assertNotNull(this.failure);
+            assertEquals(errors.intValue(), this.failure.getCauses().size());
+        });
+    }
+
+    private static List<Long> ids(final String ids) {
+        return Arrays.stream(ids.split(",")).map(String::trim).map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private static LoanScheduleAccrualData accrualData(final Long loanId) {
+        return new LoanScheduleAccrualData(loanId, 1L, 1, null, null, 1, null, null, loanId, 1L, BigDecimal.valueOf(loanId), null, null,
+                null, null, null, null, null, null);
+    }
+
+    private static LoanAccrualPostingData posting(final LoanScheduleAccrualData accrualData) {
+        return new LoanAccrualPostingData(accrualData, accrualData.getInterestIncome(), accrualData.getInterestIncome(),
+                accrualData.getInterestIncome(), null, null, null, null, null);
+    }
+}
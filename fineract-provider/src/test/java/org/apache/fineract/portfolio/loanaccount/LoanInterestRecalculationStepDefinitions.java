@@ -0,0 +1,264 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.portfolio.loanaccount.service.LoanInterestRecalculationBatchProcessor;
+import org.apache.fineract.portfolio.loanaccount.service.LoanReadPlatformService;
+import org.apache.fineract.portfolio.loanaccount.service.LoanWritePlatformService;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class LoanInterestRecalculationStepDefinitions implements En {
+
+    // the loans due for recalculation by their version, and the rows of m_loan_recalculation_progress by loan
+    private final Map<Long, Integer> dueLoans = new TreeMap<>();
+    private final Map<Long, Object[]> progress = new HashMap<>();
+    private final Set<Long> failingLoans = new HashSet<>();
+    private final Set<Long> deadlockingLoans = new HashSet<>();
+
+    private final List<Long> recalculatedLoans = new ArrayList<>();
+    private final List<long[]> ranges = new ArrayList<>();
+    private int threads;
+
+    private LoanInterestRecalculationBatchProcessor processor;
+    private String summary;
+    private JobExecutionException failure;
+
+    public LoanInterestRecalculationStepDefinitions() {
+        Given("/^The loans (.*) are due for interest recalculation$/", (String loanIds) -> ids(loanIds).forEach(id -> dueLoans.put(id, 1)));
+
+        Given("/^The interest recalculation of loan (\\d+) (fails|deadlocks once|succeeds again)$/", (Long loanId, String outcome) -> {
+            if ("fails".equals(outcome)) {
+                this.failingLoans.add(loanId);
+            } else if ("deadlocks once".equals(outcome)) {
+                this.deadlockingLoans.add(loanId);
+            } else {
+                this.failingLoans.remove(loanId);
+            }
+        });
+
+        Given("/^The loan (\\d+) is written after the interest recalculation$/",
+                (Long loanId) -> this.dueLoans.computeIfPresent(loanId, (id, version) -> version + 1));
+
+        Given("/^The interest recalculation progress dates from the day before$/", () -> this.progress.values()
+                .forEach(row -> row[1] = ((LocalDate) row[1]).minusDays(1)));
+
+        When("/^The interest recalculation runs with thread-pool-size (\\d+) and batch-size (\\d+)$/",
+                (Integer threadPoolSize, Integer batchSize) -> run(threadPoolSize, batchSize));
+
+        Then("/^The interest recalculation partitions are (.*) on (\\d+) threads$/", (String ranges, Integer threads) -> {
+            final String actual = this.ranges.stream().map(range -> range[0] + "-" + range[1]).collect(Collectors.joining("; "));
+            assertEquals(ranges.trim(), actual);
+            assertEquals(threads, this.threads);
+        });
+
+        Then("/^The interest of the loans (.*) is recalculated$/", (String loanIds) -> assertEquals(ids(loanIds), this.recalculatedLoans));
+
+        Then("/^The interest of no loan is recalculated$/", () -> assertEquals(List.of(), this.recalculatedLoans));
+
+        Then("/^The interest recalculation progress of loan (\\d+) is (DONE|FAILED) after (\\d+) attempts?$/",
+                (Long loanId, String status, Integer attempts) -> {
+                    final Object[] row = this.progress.get(loanId);
+                    assertNotNull(row, "no progress for loan " + loanId);
+                    assertEquals(status, row[3]);
+                    assertEquals(attempts, row[4]);
+                    // the version left behind is the one the loan is at after the run
+                    assertEquals(this.dueLoans.get(loanId), row[2]);
+                    if ("FAILED".equals(status)) {
+                        assertTrue(((String) row[5]).contains("loan " + loanId), (String) row[5]);
+                    } else {
+                        assertNull(row[5]);
+                    }
+                });
+
+        Then("/^The interest recalculation summary starts with (.*)$/", (String summary) -> {
+            assertNull(this.failure);
+            assertTrue(this.summary.startsWith(summary), this.summary);
+        });
+
+        Then("/^The interest recalculation fails with the summary (.*)$/", (String summary) -> {
+            assertNotNull(this.failure);
+            assertTrue(this.failure.getSummary().startsWith(summary), this.failure.getSummary());
+        });
+    }
+
+    private void run(final int threadPoolSize, final int batchSize) {
+        this.recalculatedLoans.clear();
+        this.ranges.clear();
+        this.summary = null;
+        this.failure = null;
+        final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "execute":
+                    return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+                case "executeWithoutResult":
+                    return invocation.callRealMethod();
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        this.processor = new LoanInterestRecalculationBatchProcessor(mock(LoanReadPlatformService.class, this::answerRead),
+                mock(LoanWritePlatformService.class, this::answerWrite), mock(JdbcTemplate.class, this::answerJdbc),
+                mock(NamedParameterJdbcTemplate.class, this::answerNamedJdbc), transactionTemplate,
+                mock(JobPartitionService.class, this::answerPartitions));
+
+        final FineractPlatformTenantConnection connection = mock(FineractPlatformTenantConnection.class,
+                invocation -> "getMaxRetriesOnDeadlock".equals(invocation.getMethod().getName()) ? 1 : RETURNS_DEFAULTS.answer(invocation));
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "default", "UTC", connection));
+        try {
+            this.summary = this.processor.recalculateInterest(".1.", threadPoolSize, batchSize);
+        } catch (JobExecutionException e) {
+            this.failure = e;
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private Object answerRead(final InvocationOnMock invocation) throws Throwable {
+        if (!"retrieveLoanIdsForInterestRecalculation".equals(invocation.getMethod().getName())) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        final LocalDate runDate = invocation.getArgument(0);
+        assertEquals(".1.", invocation.getArgument(1));
+        final Long afterLoanId = invocation.getArgument(2);
+        final Long maxLoanId = invocation.getArgument(3);
+        final int limit = invocation.getArgument(4);
+        // the candidate query leaves out the loans recalculated on the run date which have not been written since
+        return this.dueLoans.entrySet().stream().filter(loan -> {
+            final Object[] row = this.progress.get(loan.getKey());
+            return row == null || !runDate.equals(row[1]) || !"DONE".equals(row[3]) || !loan.getValue().equals(row[2]);
+        }).map(Map.Entry::getKey).filter(id -> id > afterLoanId && (maxLoanId == null || id <= maxLoanId)).limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private Object answerWrite(final InvocationOnMock invocation) throws Throwable {
+        if (!"recalculateInterest".equals(invocation.getMethod().getName())) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        final Long loanId = invocation.getArgument(0);
+        if (this.deadlockingLoans.remove(loanId)) {
+            throw new CannotAcquireLockException("deadlock on loan " + loanId);
+        }
+        if (this.failingLoans.contains(loanId)) {
+            throw new IllegalStateException("interest recalculation of loan " + loanId + " failed");
+        }
+        this.dueLoans.computeIfPresent(loanId, (id, version) -> version + 1);
+        this.recalculatedLoans.add(loanId);
+        return null;
+    }
+
+    private Object answerJdbc(final InvocationOnMock invocation) throws Throwable {
+        if (!"batchUpdate".equals(invocation.getMethod().getName())) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        assertTrue(invocation.<String>getArgument(0).startsWith("INSERT INTO m_loan_recalculation_progress"));
+        final List<Object[]> rows = invocation.getArgument(1);
+        for (final Object[] row : rows) {
+            assertNull(this.progress.put((Long) row[0], row), "progress of loan " + row[0] + " not deleted first");
+        }
+        return new int[rows.size()];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object answerNamedJdbc(final InvocationOnMock invocation) throws Throwable {
+        final String sql = invocation.getArgument(0);
+        final Map<String, Object> paramMap = invocation.getArgument(1);
+        final Collection<Long> loanIds = (Collection<Long>) paramMap.get("loanIds");
+        switch (invocation.getMethod().getName()) {
+            case "update":
+                assertTrue(sql.startsWith("DELETE FROM m_loan_recalculation_progress"), sql);
+                loanIds.forEach(this.progress::remove);
+                return loanIds.size();
+            case "query":
+                final RowCallbackHandler handler = invocation.getArgument(2);
+                for (final Long loanId : loanIds) {
+                    final Map<String, Object> row = new HashMap<>();
+                    if (sql.contains("FROM m_loan_recalculation_progress")) {
+                        final Object[] progressRow = this.progress.get(loanId);
+                        if (progressRow == null || !paramMap.get("runDate").equals(progressRow[1])) {
+                            continue;
+                        }
+                        row.put("loan_id", loanId);
+                        row.put("attempts", progressRow[4]);
+                    } else {
+                        row.put("id", loanId);
+                        row.put("version", this.dueLoans.get(loanId));
+                    }
+                    handler.processRow(mock(ResultSet.class, rs -> row.get(rs.<String>getArgument(0))));
+                }
+                return null;
+            default:
+                return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    private Object answerPartitions(final InvocationOnMock invocation) throws Throwable {
+        if (!"execute".equals(invocation.getMethod().getName())) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        final Map<String, String> context = invocation.getArgument(1);
+        final List<long[]> ranges = invocation.getArgument(2);
+        this.ranges.addAll(ranges);
+        this.threads = invocation.getArgument(3);
+        final List<JobPartitionData> partitions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            final JobPartitionData partition = new JobPartitionData((long) i, "run", "Recalculate Interest For Loans",
+                    new HashMap<>(context), i + 1, ranges.get(i)[0], ranges.get(i)[1], "OPEN", null, null);
+            partitions.add(new JobPartitionData(partition.getId(), partition.getRunId(), partition.getJobName(), context,
+                    partition.getPartitionNo(), partition.getRangeFrom(), partition.getRangeTo(), "DONE",
+                    this.processor.processPartition(partition), null));
+        }
+        return partitions;
+    }
+
+    private static List<Long> ids(final String ids) {
+        return Arrays.stream(ids.split(",")).map(String::trim).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.loanaccount.loanschedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.organisation.monetary.domain.ApplicationCurrency;
+import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
+import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
+import org.apache.fineract.organisation.workingdays.domain.RepaymentRescheduleType;
+import org.apache.fineract.organisation.workingdays.domain.WorkingDays;
+import org.apache.fineract.portfolio.calendar.domain.Calendar;
+import org.apache.fineract.portfolio.calendar.domain.CalendarEntityType;
+import org.apache.fineract.portfolio.calendar.domain.CalendarFrequencyType;
+import org.apache.fineract.portfolio.calendar.domain.CalendarInstance;
+import org.apache.fineract.portfolio.calendar.domain.CalendarType;
+import org.apache.fineract.portfolio.charge.domain.Charge;
+import org.apache.fineract.portfolio.charge.domain.ChargeCalculationType;
+import org.apache.fineract.portfolio.charge.domain.ChargePaymentMode;
+import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
+import org.apache.fineract.portfolio.common.domain.DaysInMonthType;
+import org.apache.fineract.portfolio.common.domain.DaysInYearType;
+import org.apache.fineract.portfolio.common.domain.PeriodFrequencyType;
+import org.apache.fineract.portfolio.loanaccount.data.DisbursementData;
+import org.apache.fineract.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.apache.fineract.portfolio.loanaccount.domain.LoanCharge;
+import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.DecliningBalanceInterestLoanScheduleGenerator;
+import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.apache.fineract.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import org.apache.fineract.portfolio.loanproduct.domain.AmortizationMethod;
+import org.apache.fineract.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.apache.fineract.portfolio.loanproduct.domain.InterestMethod;
+import org.apache.fineract.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.apache.fineract.portfolio.loanproduct.domain.LoanPreClosureInterestCalculationStrategy;
+import org.apache.fineract.portfolio.loanproduct.domain.RecalculationFrequencyType;
+import org.springframework.beans.BeanUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Generates declining balance schedules with compounding, charges and tranches. The expected periods of the features
+ * were generated before the loan charges were indexed by due date and the compounding maps were shared between periods.
+ */
+public class LoanScheduleGeneratorStepDefinitions implements En {
+
+    private final Set<LoanCharge> loanCharges = new LinkedHashSet<>();
+    private final List<DisbursementData> disbursements = new ArrayList<>();
+
+    private BigDecimal principal;
+    private LocalDate disbursementDate;
+    private int numberOfRepayments;
+    private BigDecimal annualInterestRate;
+    private InterestRecalculationCompoundingMethod compoundingMethod;
+
+    private List<LoanScheduleModelPeriod> periods;
+
+    public LoanScheduleGeneratorStepDefinitions() {
+        Given("/^A declining balance loan of (\\d+) disbursed on (.*) with (\\d+) monthly repayments at (\\d+)% a year$/",
+                (Integer amount, String date, Integer repayments, Integer rate) -> {
+                    this.principal = BigDecimal.valueOf(amount);
+                    this.disbursementDate = LocalDate.parse(date);
+                    this.numberOfRepayments = repayments;
+                    this.annualInterestRate = BigDecimal.valueOf(rate);
+                });
+
+        Given("/^The loan recalculates interest daily and compounds (interest|fees|interest and fees) daily$/",
+                (String compounding) -> this.compoundingMethod = InterestRecalculationCompoundingMethod
+                        .valueOf(compounding.toUpperCase().replace(" AND FEES", "_AND_FEE").replace("FEES", "FEE").replace(' ', '_')));
+
+        Given("/^A loan (fee|penalty) of (\\d+) due on (.*)$/", (String type, Integer amount, String dueDate) -> this.loanCharges
+                .add(loanCharge("penalty".equals(type), ChargeTimeType.SPECIFIED_DUE_DATE, amount, LocalDate.parse(dueDate))));
+
+        Given("/^A loan (fee|penalty) of (\\d+) every instalment$/", (String type, Integer amount) -> this.loanCharges
+                .add(loanCharge("penalty".equals(type), ChargeTimeType.INSTALMENT_FEE, amount, null)));
+
+        Given("/^A loan tranche of (\\d+) disbursed on (.*)$/", (Integer amount, String date) -> this.disbursements
+                .add(new DisbursementData(null, LocalDate.parse(date), LocalDate.parse(date), BigDecimal.valueOf(amount), null, null,
+                        null, null)));
+
+        When("/^The loan schedule is generated$/", () -> {
+            ReflectionTestUtils.setField(MoneyHelper.class, "roundingMode", RoundingMode.HALF_EVEN);
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+            try {
+                final LoanScheduleModel schedule = new DecliningBalanceInterestLoanScheduleGenerator()
+                        .generate(new MathContext(8, RoundingMode.HALF_EVEN), terms(), this.loanCharges, holidayDetails());
+                this.periods = new ArrayList<>();
+                for (final LoanScheduleModelPeriod period : schedule.getPeriods()) {
+                    if (period.isRepaymentPeriod()) {
+                        this.periods.add(period);
+                    }
+                }
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        });
+
+        Then("/^The loan schedule has (\\d+) repayment periods$/", (Integer count) -> assertEquals(count.intValue(), this.periods.size()));
+
+        Then("/^The repayment period (\\d+) is due on (.*) with principal (.*), interest (.*), fees (.*) and penalties (.*)$/",
+                (Integer number, String dueDate, String principalDue, String interestDue, String feesDue, String penaltiesDue) -> {
+                    final LoanScheduleModelPeriod period = this.periods.stream().filter(p -> number.equals(p.periodNumber())).findFirst()
+                            .orElse(null);
+                    assertNotNull(period, "period " + number);
+                    assertEquals(dueDate + " " + principalDue + " " + interestDue + " " + feesDue + " " + penaltiesDue,
+                            period.periodDueDate() + " " + plain(period.principalDue()) + " " + plain(period.interestDue()) + " "
+                                    + plain(period.feeChargesDue()) + " " + plain(period.penaltyChargesDue()));
+                });
+    }
+
+    private LoanApplicationTerms terms() {
+        final ApplicationCurrency currency = BeanUtils.instantiateClass(ApplicationCurrency.class);
+        ReflectionTestUtils.setField(currency, "code", "USD");
+        ReflectionTestUtils.setField(currency, "name", "US Dollar");
+        ReflectionTestUtils.setField(currency, "decimalPlaces", 2);
+        ReflectionTestUtils.setField(currency, "nameCode", "currency.USD");
+        ReflectionTestUtils.setField(currency, "displaySymbol", "$");
+
+        final boolean recalculation = this.compoundingMethod != null;
+        final CalendarInstance restCalendarInstance = recalculation ? calendarInstance(CalendarFrequencyType.DAILY, null) : null;
+        final CalendarInstance compoundingCalendarInstance = recalculation && this.compoundingMethod.isCompoundingEnabled()
+                ? calendarInstance(CalendarFrequencyType.DAILY, null)
+                : null;
+        final boolean multiDisburseLoan = !this.disbursements.isEmpty();
+        final Money principalMoney = Money.of(MonetaryCurrency.fromApplicationCurrency(currency),
+                multiDisburseLoan ? this.disbursements.get(0).amount() : this.principal);
+
+        return LoanApplicationTerms.assembleFrom(currency, this.numberOfRepayments, PeriodFrequencyType.MONTHS, this.numberOfRepayments,
+                1, PeriodFrequencyType.MONTHS, null, null, AmortizationMethod.EQUAL_INSTALLMENTS, InterestMethod.DECLINING_BALANCE,
+                this.annualInterestRate.divide(BigDecimal.valueOf(12), MathContext.DECIMAL64), PeriodFrequencyType.MONTHS,
+                this.annualInterestRate, InterestCalculationPeriodMethod.DAILY, false, principalMoney, this.disbursementDate, null, null,
+                null, null, null, null, null, principalMoney.zero(), multiDisburseLoan, null, this.disbursements,
+                multiDisburseLoan ? this.principal : null, 0, DaysInMonthType.ACTUAL, DaysInYearType.ACTUAL, recalculation,
+                recalculation ? RecalculationFrequencyType.DAILY : null, restCalendarInstance, this.compoundingMethod,
+                compoundingCalendarInstance, recalculation ? RecalculationFrequencyType.DAILY : null, BigDecimal.ZERO,
+                null, recalculation ? LoanPreClosureInterestCalculationStrategy.TILL_PRE_CLOSURE_DATE : null, null, this.principal,
+                new ArrayList<>(), false, null, false, holidayDetails(), false, false, false, null, false);
+    }
+
+    private CalendarInstance calendarInstance(final CalendarFrequencyType frequencyType, final Integer repeatsOnDay) {
+        final Calendar calendar = Calendar.createRepeatingCalendar("loan_recalculation_detail", this.disbursementDate,
+                CalendarType.COLLECTION.getValue(), frequencyType, 1, repeatsOnDay, null);
+        return CalendarInstance.from(calendar, null, CalendarEntityType.LOAN_RECALCULATION_REST_DETAIL.getValue());
+    }
+
+    private static HolidayDetailDTO holidayDetails() {
+        final WorkingDays workingDays = BeanUtils.instantiateClass(WorkingDays.class);
+        ReflectionTestUtils.setField(workingDays, "recurrence", "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR,SA,SU");
+        ReflectionTestUtils.setField(workingDays, "repaymentReschedulingType", RepaymentRescheduleType.SAME_DAY.getValue());
+        ReflectionTestUtils.setField(workingDays, "extendTermForDailyRepayments", false);
+        ReflectionTestUtils.setField(workingDays, "extendTermForRepaymentsOnHolidays", false);
+        return new HolidayDetailDTO(false, List.of(), workingDays);
+    }
+
+    private LoanCharge loanCharge(final boolean penalty, final ChargeTimeType chargeTime, final int amount, final LocalDate dueDate) {
+        final long id = this.loanCharges.size() + 1L;
+        final Charge charge = mock(Charge.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getId":
+                    return id;
+                case "isPenalty":
+                    return penalty;
+                case "getChargeTimeType":
+                    return chargeTime.getValue();
+                case "getChargeCalculation":
+                    return ChargeCalculationType.FLAT.getValue();
+                case "getChargePaymentMode":
+                    return ChargePaymentMode.REGULAR.getValue();
+                case "getAmount":
+                    return BigDecimal.valueOf(amount);
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        final LoanCharge loanCharge = LoanCharge.createNewWithoutLoan(charge, this.principal, BigDecimal.valueOf(amount), chargeTime,
+                ChargeCalculationType.FLAT, dueDate, ChargePaymentMode.REGULAR, this.numberOfRepayments);
+        ReflectionTestUtils.setField(loanCharge, "id", id);
+        return loanCharge;
+    }
+
+    private static String plain(final BigDecimal value) {
+        return value == null ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,669 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.apache.fineract.accounting.closure.service.LatestGLClosureCache;
+import org.apache.fineract.accounting.glaccount.domain.GLAccount;
+import org.apache.fineract.accounting.glaccount.domain.GLAccountRepositoryWrapper;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntry;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryRepository;
+import org.apache.fineract.accounting.journalentry.domain.JournalEntryType;
+import org.apache.fineract.accounting.journalentry.service.AccountingProcessorHelper;
+import org.apache.fineract.accounting.journalentry.service.CashBasedAccountingProcessorForSavings;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryBatchInserter;
+import org.apache.fineract.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.apache.fineract.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.apache.fineract.infrastructure.core.config.FineractProperties;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.DateUtils;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.organisation.monetary.data.CurrencyData;
+import org.apache.fineract.organisation.monetary.domain.ApplicationCurrency;
+import org.apache.fineract.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
+import org.apache.fineract.organisation.monetary.domain.MonetaryCurrency;
+import org.apache.fineract.organisation.monetary.domain.Money;
+import org.apache.fineract.organisation.monetary.domain.MoneyHelper;
+import org.apache.fineract.organisation.office.domain.Office;
+import org.apache.fineract.organisation.office.domain.OfficeRepositoryWrapper;
+import org.apache.fineract.portfolio.accountdetails.domain.AccountType;
+import org.apache.fineract.portfolio.account.service.AccountTransfersReadPlatformService;
+import org.apache.fineract.portfolio.charge.domain.Charge;
+import org.apache.fineract.portfolio.charge.domain.ChargeCalculationType;
+import org.apache.fineract.portfolio.charge.domain.ChargeRepositoryWrapper;
+import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
+import org.apache.fineract.portfolio.client.domain.Client;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargeDueData;
+import org.apache.fineract.portfolio.savings.data.SavingsAccountChargePostingData;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccount;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountCharge;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountAssembler;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountChargeRepositoryWrapper;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountRepositoryWrapper;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountStatusType;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransaction;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransactionRepository;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountTransactionSummaryWrapper;
+import org.apache.fineract.portfolio.savings.domain.SavingsHelper;
+import org.apache.fineract.portfolio.savings.domain.SavingsProduct;
+import org.apache.fineract.portfolio.savings.service.SavingsAccountChargeReadPlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsAccountWritePlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsAccountWritePlatformServiceJpaRepositoryImpl;
+import org.apache.fineract.portfolio.savings.service.SavingsChargeBatchProcessor;
+import org.apache.fineract.portfolio.savings.service.SavingsChargeBatchWriter;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the same savings account through {@link SavingsAccountWritePlatformService#applyChargeDue} or
+ * {@link SavingsAccountWritePlatformService#applyAnnualFee} on the domain model and through the
+ * {@link SavingsChargeBatchProcessor} on the rows read for it, and compares what both write.
+ */
+public class SavingsChargeBatchStepDefinitions implements En {
+
+    private static final Long ACCOUNT_ID = 7L;
+    private static final Long OFFICE_ID = 1L;
+    private static final Long PRODUCT_ID = 3L;
+    private static final long FIRST_TRANSACTION_ID = 101L;
+    private static final MonetaryCurrency CURRENCY = new MonetaryCurrency("USD", 2, null);
+
+    private final List<ChargeSetup> chargeSetups = new ArrayList<>();
+    private BigDecimal deposit;
+    private int depositDaysAgo;
+
+    private final Map<String, List<String>> reference = new HashMap<>();
+    private final Map<String, List<String>> batch = new HashMap<>();
+    private final List<Long> chargedOneByOne = new ArrayList<>();
+
+    public SavingsChargeBatchStepDefinitions() {
+        Given("/^A savings account with a deposit of (\\d+) made (\\d+) days ago$/", (Integer amount, Integer daysAgo) -> {
+            this.deposit = BigDecimal.valueOf(amount);
+            this.depositDaysAgo = daysAgo;
+        });
+
+        Given("/^A savings (fee|penalty|monthly fee|annual fee) of (\\d+) due (\\d+) days ago$/",
+                (String type, Integer amount, Integer daysAgo) -> this.chargeSetups.add(new ChargeSetup(type, amount, daysAgo, null)));
+
+        Given("/^A savings (fee|penalty) of (\\d+) due (\\d+) days ago with the income account (\\d+)$/",
+                (String type, Integer amount, Integer daysAgo, Long incomeAccountId) -> this.chargeSetups
+                        .add(new ChargeSetup(type, amount, daysAgo, incomeAccountId)));
+
+        When("/^The (due savings charges|annual savings fees) are applied in batches( and one by one)?$/",
+                (String job, String oneByOne) -> {
+                    final boolean annualFee = "annual savings fees".equals(job);
+                    inTenant(() -> {
+                        if (oneByOne != null) {
+                            runOneByOne(annualFee);
+                        }
+                        runBatch(annualFee);
+                    });
+                });
+
+        Then("/^The savings charge batch wrote (\\d+) charge transactions and charged (\\d+) accounts one by one$/",
+                (Integer transactions, Integer accounts) -> {
+                    assertEquals(transactions.intValue(), this.batch.getOrDefault("transactions", List.of()).size());
+                    assertEquals(accounts.intValue(), this.chargedOneByOne.size());
+                });
+
+        Then("/^The savings charge batch wrote the same (transactions|end of day balances|paid-by rows|charges|summary|journal entries) "
+                + "as one by one$/", (String what) -> {
+                    final List<String> expected = this.reference.get(key(what));
+                    assertFalse(expected.isEmpty(), what);
+                    assertEquals(expected, this.batch.get(key(what)));
+                });
+    }
+
+    private static String key(final String what) {
+        return what.replace(" ", "-");
+    }
+
+    private void inTenant(final Runnable runnable) {
+        ReflectionTestUtils.setField(MoneyHelper.class, "roundingMode", RoundingMode.HALF_EVEN);
+        ThreadLocalContextUtil.setTenant(
+                new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        try {
+            runnable.run();
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    /**
+     * Pays the due charges with the write platform service, in the order the jobs read them.
+     */
+    private void runOneByOne(final boolean annualFee) {
+        final Domain domain = new Domain();
+        final SavingsAccount account = domain.account;
+        final Map<Long, SavingsAccountTransaction> transactions = new HashMap<>();
+        for (final SavingsAccountTransaction transaction : account.getTransactions()) {
+            transactions.put(transaction.getId(), transaction);
+        }
+        final List<JournalEntry> journalEntries = new ArrayList<>();
+        final long[] nextTransactionId = { FIRST_TRANSACTION_ID };
+
+        final SavingsAccountTransactionRepository transactionRepository = mock(SavingsAccountTransactionRepository.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "saveAndFlush":
+                    final SavingsAccountTransaction transaction = invocation.getArgument(0);
+                    ReflectionTestUtils.setField(transaction, "id", nextTransactionId[0]++);
+                    transactions.put(transaction.getId(), transaction);
+                    return transaction;
+                case "findById":
+                    return Optional.ofNullable(transactions.get(invocation.<Long>getArgument(0)));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        final AccountingProcessorHelper accountingHelper = new AccountingProcessorHelper(
+                mock(JournalEntryRepository.class, invocation -> {
+                    if (invocation.getMethod().getName().startsWith("save")) {
+                        journalEntries.add(invocation.getArgument(0));
+                        return invocation.getArgument(0);
+                    }
+                    return RETURNS_DEFAULTS.answer(invocation);
+                }), mappingResolver(), null, mock(LatestGLClosureCache.class),
+                mock(GLAccountRepositoryWrapper.class, SavingsChargeBatchStepDefinitions::glAccount),
+                mock(OfficeRepositoryWrapper.class, invocation -> domain.office), null, null, transactionRepository,
+                mock(AccountTransfersReadPlatformService.class), mock(ChargeRepositoryWrapper.class, invocation -> {
+                    final Long chargeId = invocation.getArgument(0);
+                    return domain.charges.stream().map(SavingsAccountCharge::getCharge).filter(charge -> charge.getId().equals(chargeId))
+                            .findFirst().orElseThrow();
+                }), new FineractProperties());
+        final JournalEntryWritePlatformService journalEntryWritePlatformService = mock(JournalEntryWritePlatformService.class,
+                invocation -> {
+                    if ("createJournalEntriesForSavings".equals(invocation.getMethod().getName())) {
+                        final Map<String, Object> bridgeData = invocation.getArgument(0);
+                        new CashBasedAccountingProcessorForSavings(accountingHelper)
+                                .createJournalEntriesForSavings(accountingHelper.populateSavingsDtoFromMap(bridgeData, true, false));
+                        return null;
+                    }
+                    return RETURNS_DEFAULTS.answer(invocation);
+                });
+        final ApplicationCurrency applicationCurrency = mock(ApplicationCurrency.class,
+                invocation -> new CurrencyData("USD", "US Dollar", 2, null, "$", "currency.USD"));
+
+        final SavingsAccountWritePlatformService writeService = new SavingsAccountWritePlatformServiceJpaRepositoryImpl(null, mock(
+                SavingsAccountRepositoryWrapper.class), transactionRepository,
+                mock(SavingsAccountAssembler.class), null, null, null,
+                mock(ApplicationCurrencyRepositoryWrapper.class, invocation -> applicationCurrency), journalEntryWritePlatformService,
+                null, null, null, null, null, null, null, mock(SavingsAccountChargeRepositoryWrapper.class, invocation -> {
+                    final Long savingsAccountChargeId = invocation.getArgument(0);
+                    return domain.charges.stream().filter(charge -> charge.getId().equals(savingsAccountChargeId)).findFirst()
+                            .orElseThrow();
+                }), null, null, mock(ConfigurationDomainService.class, invocation -> {
+                    if ("retrieveFinancialYearBeginningMonth".equals(invocation.getMethod().getName())) {
+                        return 1;
+                    }
+                    return RETURNS_DEFAULTS.answer(invocation);
+                }), null, null, null, null, null, null, null, null);
+
+        for (final SavingsAccountChargeDueData charge : dueCharges(domain, annualFee)) {
+            if (annualFee) {
+                writeService.applyAnnualFee(charge.getId(), ACCOUNT_ID);
+            } else {
+                writeService.applyChargeDue(charge.getId(), ACCOUNT_ID);
+            }
+        }
+
+        final List<String> newTransactions = new ArrayList<>();
+        final List<String> paidBy = new ArrayList<>();
+        for (final SavingsAccountTransaction transaction : new TreeMap<>(transactions).values()) {
+            if (transaction.getId() >= FIRST_TRANSACTION_ID) {
+                newTransactions.add(transaction(transaction.getId(), transaction.getTypeOf(), transaction.getTransactionLocalDate(),
+                        transaction.getAmount(), transaction.getRunningBalance(CURRENCY).getAmount()));
+                transaction.getSavingsAccountChargesPaid().forEach(chargePaidBy -> paidBy
+                        .add(paidBy(transaction.getId(), chargePaidBy.getSavingsAccountCharge().getId(), chargePaidBy.getAmount())));
+            }
+        }
+        this.reference.put("transactions", newTransactions);
+        this.reference.put("paid-by-rows", paidBy);
+        this.reference.put("end-of-day-balances", new TreeMap<>(transactions).values().stream()
+                .map(transaction -> endOfDayBalance(transaction.getId(), transaction.getBalanceEndDate(),
+                        transaction.getBalanceNumberOfDays(), transaction.getCumulativeBalance()))
+                .collect(Collectors.toList()));
+        this.reference.put("charges", domain.charges.stream().filter(charge -> amountPaid(charge).signum() > 0)
+                .sorted(Comparator.comparing(SavingsAccountCharge::getId))
+                .map(charge -> charge(charge.getId(), charge.getDueLocalDate(), amountPaid(charge),
+                        charge.amoutOutstanding(), charge.isPaid(), charge.isWaived()))
+                .collect(Collectors.toList()));
+        this.reference.put("summary", List.of(summary(account.getSummary().getAccountBalance(), account.getSummary().getTotalFeeCharge(),
+                account.getSummary().getTotalPenaltyCharge(), account.getSummary().getTotalAnnualFees())));
+        this.reference.put("journal-entries",
+                journalEntries.stream()
+                        .map(entry -> journalEntry(entry.getTransactionId(), entry.getType(), entry.getGlAccount().getId(),
+                                entry.getAmount(), entry.getTransactionDate(), entry.getOffice().getId()))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs the job on the rows the read platform service returns for the same account, capturing the JDBC batches.
+     */
+    @SuppressWarnings("unchecked")
+    private void runBatch(final boolean annualFee) {
+        final SavingsAccountChargeReadPlatformService readService = mock(SavingsAccountChargeReadPlatformService.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "retrieveSavingsAccountIdsWithChargesDue":
+                    return invocation.<Long>getArgument(1) < ACCOUNT_ID ? List.of(ACCOUNT_ID) : List.of();
+                case "retrieveChargesDueForPosting":
+                    return List.of(read(new Domain(), annualFee));
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        final SavingsAccountWritePlatformService writeService = mock(SavingsAccountWritePlatformService.class, invocation -> {
+            if (invocation.getMethod().getName().startsWith("apply")) {
+                this.chargedOneByOne.add(invocation.getArgument(1));
+                return null;
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+
+        final List<Map<Integer, Object>> insertedTransactions = new ArrayList<>();
+        final Map<String, List<Object[]>> batches = new HashMap<>();
+        final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "execute":
+                    return invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection(insertedTransactions));
+                case "batchUpdate":
+                    final String sql = invocation.getArgument(0);
+                    batches.put(sql.substring(0, sql.indexOf(" SET") > 0 ? sql.indexOf(" SET") : sql.indexOf(" (")),
+                            invocation.getArgument(1));
+                    return new int[0];
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        final List<Object[]> journalEntries = new ArrayList<>();
+        final JournalEntryBatchInserter journalEntryBatchInserter = mock(JournalEntryBatchInserter.class, invocation -> {
+            if ("insertForSavings".equals(invocation.getMethod().getName())) {
+                journalEntries.addAll(invocation.getArgument(0));
+            }
+            return null;
+        });
+        final SavingsChargeBatchWriter writer = new SavingsChargeBatchWriter(jdbcTemplate, mock(AccountingProcessorHelper.class),
+                mappingResolver(), journalEntryBatchInserter);
+        final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class,
+                invocation -> "execute".equals(invocation.getMethod().getName())
+                        ? invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null)
+                        : RETURNS_DEFAULTS.answer(invocation));
+        final SavingsChargeBatchProcessor[] processor = new SavingsChargeBatchProcessor[1];
+        final JobPartitionService jobPartitionService = mock(JobPartitionService.class, invocation -> {
+            final Map<String, String> context = invocation.getArgument(1);
+            final List<JobPartitionData> partitions = new ArrayList<>();
+            for (final long[] range : invocation.<List<long[]>>getArgument(2)) {
+                final JobPartitionData partition = new JobPartitionData(1L, "run", invocation.getArgument(0).toString(), context, 1,
+                        range[0], range[1], "OPEN", null, null);
+                partitions.add(new JobPartitionData(1L, "run", partition.getJobName(), context, 1, range[0], range[1], "DONE",
+                        processor[0].processPartition(partition), null));
+            }
+            return partitions;
+        });
+        processor[0] = new SavingsChargeBatchProcessor(readService, writeService, writer, transactionTemplate,
+                mock(AuditorAware.class, invocation -> Optional.<AppUser>empty()), jobPartitionService);
+
+        try {
+            if (annualFee) {
+                processor[0].applyAnnualFees(2, 10);
+            } else {
+                processor[0].applyChargesDue(2, 10);
+            }
+        } catch (JobExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final Domain stored = new Domain();
+        final List<String> newTransactions = new ArrayList<>();
+        final List<String> endOfDayBalances = new ArrayList<>();
+        final Map<Long, Object[]> balanceUpdates = new HashMap<>();
+        for (final Object[] update : batches.getOrDefault("UPDATE m_savings_account_transaction", List.of())) {
+            balanceUpdates.put((Long) update[3], update);
+        }
+        for (final SavingsAccountTransaction transaction : stored.account.getTransactions()) {
+            final Object[] update = balanceUpdates.get(transaction.getId());
+            endOfDayBalances.add(update == null
+                    ? endOfDayBalance(transaction.getId(), transaction.getBalanceEndDate(), transaction.getBalanceNumberOfDays(),
+                            transaction.getCumulativeBalance())
+                    : endOfDayBalance(transaction.getId(), (Date) update[0], (Integer) update[1], (BigDecimal) update[2]));
+        }
+        long transactionId = FIRST_TRANSACTION_ID;
+        for (final Map<Integer, Object> row : insertedTransactions) {
+            newTransactions.add(transaction(transactionId, (Integer) row.get(3), ((java.sql.Date) row.get(4)).toLocalDate(),
+                    (BigDecimal) row.get(5), (BigDecimal) row.get(8)));
+            endOfDayBalances.add(
+                    endOfDayBalance(transactionId, (Date) row.get(6), (Integer) row.get(7), (BigDecimal) row.get(9)));
+            transactionId++;
+        }
+        this.batch.put("transactions", newTransactions);
+        this.batch.put("end-of-day-balances", endOfDayBalances);
+        this.batch.put("paid-by-rows",
+                batches.getOrDefault("INSERT INTO m_savings_account_charge_paid_by", List.of()).stream()
+                        .map(row -> paidBy((Long) row[0], (Long) row[1], (BigDecimal) row[2])).collect(Collectors.toList()));
+        this.batch.put("charges",
+                batches.getOrDefault("UPDATE m_savings_account_charge", List.of()).stream()
+                        .sorted(Comparator.comparing(row -> (Long) row[5]))
+                        .map(row -> charge((Long) row[5], toLocalDate((Date) row[0]), (BigDecimal) row[1], (BigDecimal) row[2],
+                                (Boolean) row[3], (Boolean) row[4]))
+                        .collect(Collectors.toList()));
+        this.batch.put("summary", batches.getOrDefault("UPDATE m_savings_account", List.of()).stream()
+                .map(row -> summary(zeroIfNull(stored.account.getSummary().getAccountBalance()).subtract((BigDecimal) row[0]),
+                        zeroIfNull(stored.account.getSummary().getTotalFeeCharge()).add((BigDecimal) row[1]),
+                        zeroIfNull(stored.account.getSummary().getTotalPenaltyCharge()).add((BigDecimal) row[2]),
+                        zeroIfNull(stored.account.getSummary().getTotalAnnualFees()).add((BigDecimal) row[3])))
+                .collect(Collectors.toList()));
+        this.batch.put("journal-entries",
+                journalEntries.stream()
+                        .map(row -> journalEntry((String) row[3], (Integer) row[6], (Long) row[0], (BigDecimal) row[7], (Date) row[5],
+                                (Long) row[1]))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * The connection the batch writer inserts the charge transactions with, returning generated ids from
+     * {@link #FIRST_TRANSACTION_ID} on.
+     */
+    private static Connection connection(final List<Map<Integer, Object>> insertedTransactions) {
+        final Map<Integer, Object> parameters = new HashMap<>();
+        final PreparedStatement statement = mock(PreparedStatement.class, invocation -> {
+            final String name = invocation.getMethod().getName();
+            if (name.startsWith("set")) {
+                parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            } else if ("addBatch".equals(name)) {
+                insertedTransactions.add(new HashMap<>(parameters));
+                parameters.clear();
+                return null;
+            } else if ("getGeneratedKeys".equals(name)) {
+                final int[] row = { 0 };
+                return mock(ResultSet.class, keys -> {
+                    if ("next".equals(keys.getMethod().getName())) {
+                        return ++row[0] <= insertedTransactions.size();
+                    }
+                    return "getLong".equals(keys.getMethod().getName()) ? FIRST_TRANSACTION_ID + row[0] - 1
+                            : RETURNS_DEFAULTS.answer(keys);
+                });
+            }
+            return RETURNS_DEFAULTS.answer(invocation);
+        });
+        return mock(Connection.class, invocation -> "prepareStatement".equals(invocation.getMethod().getName()) ? statement
+                : RETURNS_DEFAULTS.answer(invocation));
+    }
+
+    /**
+     * The stored account as the read platform service reads it for the job: the due charges, the balance and the latest
+     * transactions.
+     */
+    private static SavingsAccountChargePostingData read(final Domain domain, final boolean annualFee) {
+        final SavingsAccount account = domain.account;
+        final SavingsAccountChargePostingData posting = new SavingsAccountChargePostingData(ACCOUNT_ID, account.getAccountNumber(),
+                OFFICE_ID, PRODUCT_ID, new CurrencyData("USD", 2, null), true, false, true, account.getActivationLocalDate(),
+                account.getSummary().getAccountBalance(), BigDecimal.ZERO, BigDecimal.ZERO);
+        dueCharges(domain, annualFee).forEach(posting::addCharge);
+        final SavingsAccountTransaction lastTransaction = account.getTransactions().stream()
+                .max(Comparator.comparing(SavingsAccountTransaction::getTransactionLocalDate)
+                        .thenComparing(SavingsAccountTransaction::getId))
+                .orElseThrow();
+        posting.updateLastTransactionDates(lastTransaction.getTransactionLocalDate(), null);
+        posting.updateLastBalanceTransaction(lastTransaction.getId(), lastTransaction.getTransactionLocalDate(),
+                lastTransaction.getRunningBalance(CURRENCY).getAmount());
+        return posting;
+    }
+
+    /**
+     * The charges the jobs find due, in the order they read them.
+     */
+    private static List<SavingsAccountChargeDueData> dueCharges(final Domain domain, final boolean annualFee) {
+        final LocalDate today = DateUtils.getLocalDateOfTenant();
+        return domain.charges.stream()
+                .filter(charge -> !charge.getDueLocalDate().isAfter(today)
+                        && (annualFee ? charge.isAnnualFee() : !charge.isWaived() && !charge.isPaid() && charge.isActive()))
+                .sorted(Comparator.comparing(SavingsAccountCharge::getDueLocalDate).thenComparing(SavingsAccountCharge::getId))
+                .map(charge -> new SavingsAccountChargeDueData(charge.getId(), ACCOUNT_ID, domain.account.getAccountNumber(),
+                        charge.getCharge().getId(),
+                        charge.getCharge().getAccount() == null ? null : charge.getCharge().getAccount().getId(),
+                        charge.isPenaltyCharge(), ChargeTimeType.fromInt((Integer) ReflectionTestUtils.getField(charge, "chargeTime")),
+                        (Integer) ReflectionTestUtils.getField(charge, "feeOnMonth"),
+                        (Integer) ReflectionTestUtils.getField(charge, "feeOnDay"),
+                        (Integer) ReflectionTestUtils.getField(charge, "feeInterval"), charge.getDueLocalDate(), charge.amount(),
+                        amountPaid(charge),
+                        (BigDecimal) ReflectionTestUtils.getField(charge, "amountWaived"),
+                        (BigDecimal) ReflectionTestUtils.getField(charge, "amountWrittenOff"), charge.amoutOutstanding(), charge.isPaid(),
+                        charge.isWaived(), charge.isActive()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Maps the savings control, fee and penalty income accounts of the product to 10 plus the mapping type, without
+     * charge specific income accounts.
+     */
+    private static ProductToGLAccountMappingResolver mappingResolver() {
+        return mock(ProductToGLAccountMappingResolver.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "findCoreMappingAccountId":
+                    return 10L + invocation.<Integer>getArgument(2);
+                case "findChargeMappingAccountId":
+                    return null;
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static Object glAccount(final InvocationOnMock invocation) {
+        final Long accountId = invocation.getArgument(0);
+        return mock(GLAccount.class,
+                account -> "getId".equals(account.getMethod().getName()) ? accountId : RETURNS_DEFAULTS.answer(account));
+    }
+
+    private static String transaction(final Long id, final Integer type, final LocalDate date, final BigDecimal amount,
+            final BigDecimal runningBalance) {
+        return id + " " + SavingsAccountTransactionType.fromInt(type) + " " + date + " " + plain(amount) + " running="
+                + plain(runningBalance);
+    }
+
+    private static String endOfDayBalance(final Long id, final Date endDate, final Integer numberOfDays, final BigDecimal cumulative) {
+        return id + " end=" + toLocalDate(endDate) + " days=" + numberOfDays + " cumulative=" + plain(cumulative);
+    }
+
+    private static String paidBy(final Long transactionId, final Long savingsAccountChargeId, final BigDecimal amount) {
+        return transactionId + " " + savingsAccountChargeId + " " + plain(amount);
+    }
+
+    private static String charge(final Long id, final LocalDate dueDate, final BigDecimal paid, final BigDecimal outstanding,
+            final Boolean isPaid, final Boolean waived) {
+        return id + " due=" + dueDate + " paid=" + plain(paid) + " outstanding=" + plain(outstanding) + " isPaid=" + isPaid + " waived="
+                + waived;
+    }
+
+    private static String summary(final BigDecimal balance, final BigDecimal fees, final BigDecimal penalties,
+            final BigDecimal annualFees) {
+        return "balance=" + plain(balance) + " fees=" + plain(fees) + " penalties=" + plain(penalties) + " annualFees=" + plain(annualFees);
+    }
+
+    private static String journalEntry(final String transactionId, final Integer type, final Long accountId, final BigDecimal amount,
+            final Date date, final Long officeId) {
+        return transactionId + " " + JournalEntryType.fromInt(type) + " " + accountId + " " + plain(amount) + " " + toLocalDate(date)
+                + " office=" + officeId;
+    }
+
+    private static BigDecimal amountPaid(final SavingsAccountCharge charge) {
+        return zeroIfNull((BigDecimal) ReflectionTestUtils.getField(charge, "amountPaid"));
+    }
+
+    private static BigDecimal zeroIfNull(final BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    private static String plain(final BigDecimal value) {
+        return value == null ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static LocalDate toLocalDate(final Date date) {
+        if (date == null) {
+            return null;
+        }
+        return date instanceof java.sql.Date ? ((java.sql.Date) date).toLocalDate()
+                : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    /**
+     * The savings account of the scenario as stored before the job runs: activated on the day of its deposit, with the
+     * balances of its deposit calculated and the charges set up.
+     */
+    private final class Domain {
+
+        private final Office office = mock(Office.class,
+                invocation -> "getId".equals(invocation.getMethod().getName()) ? OFFICE_ID : RETURNS_DEFAULTS.answer(invocation));
+        private final Set<SavingsAccountCharge> charges = new LinkedHashSet<>();
+        private final SavingsAccount account;
+
+        Domain() {
+            final LocalDate today = DateUtils.getLocalDateOfTenant();
+            final LocalDate depositDate = today.minusDays(SavingsChargeBatchStepDefinitions.this.depositDaysAgo);
+            long chargeId = 11L;
+            for (final ChargeSetup setup : SavingsChargeBatchStepDefinitions.this.chargeSetups) {
+                final SavingsAccountCharge charge = setup.create(chargeId, today.minusDays(setup.daysAgo));
+                ReflectionTestUtils.setField(charge, "id", chargeId++);
+                this.charges.add(charge);
+            }
+
+            final Client client = BeanUtils.instantiateClass(Client.class);
+            ReflectionTestUtils.setField(client, "office", this.office);
+            final SavingsProduct product = mock(SavingsProduct.class, invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "currency":
+                        return CURRENCY;
+                    case "getId":
+                        return PRODUCT_ID;
+                    case "isCashBasedAccountingEnabled":
+                        return true;
+                    default:
+                        return RETURNS_DEFAULTS.answer(invocation);
+                }
+            });
+            this.account = SavingsAccount.createNewApplicationForSubmittal(client, null, product, null, "000000007", null,
+                    AccountType.INDIVIDUAL, depositDate, null, BigDecimal.ZERO, SavingsCompoundingInterestPeriodType.DAILY,
+                    SavingsPostingInterestPeriodType.MONTHLY, SavingsInterestCalculationType.DAILY_BALANCE,
+                    SavingsInterestCalculationDaysInYearType.DAYS_365, null, null, null, false, new HashSet<>(this.charges), false, null,
+                    false, null, null, false, BigDecimal.ZERO, null, false);
+            ReflectionTestUtils.setField(this.account, "id", ACCOUNT_ID);
+            ReflectionTestUtils.setField(this.account, "status", SavingsAccountStatusType.ACTIVE.getValue());
+            ReflectionTestUtils.setField(this.account, "activatedOnDate",
+                    Date.from(depositDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            this.account.setHelpers(new SavingsAccountTransactionSummaryWrapper(),
+                    new SavingsHelper(mock(AccountTransfersReadPlatformService.class)));
+
+            final SavingsAccountTransaction depositTransaction = SavingsAccountTransaction.deposit(this.account, this.office, null,
+                    depositDate, Money.of(CURRENCY, SavingsChargeBatchStepDefinitions.this.deposit),
+                    Date.from(depositDate.atStartOfDay(ZoneId.systemDefault()).toInstant()), null);
+            ReflectionTestUtils.setField(depositTransaction, "id", 1L);
+            this.account.addTransaction(depositTransaction);
+            this.account.calculateInterestUsing(MathContext.DECIMAL64, today, false, false, 1, null, false);
+        }
+    }
+
+    private static final class ChargeSetup {
+
+        private final String type;
+        private final int amount;
+        private final int daysAgo;
+        private final Long incomeAccountId;
+
+        ChargeSetup(final String type, final int amount, final int daysAgo, final Long incomeAccountId) {
+            this.type = type;
+            this.amount = amount;
+            this.daysAgo = daysAgo;
+            this.incomeAccountId = incomeAccountId;
+        }
+
+        SavingsAccountCharge create(final long id, final LocalDate dueDate) {
+            final ChargeTimeType chargeTime;
+            switch (this.type) {
+                case "monthly fee":
+                    chargeTime = ChargeTimeType.MONTHLY_FEE;
+                break;
+                case "annual fee":
+                    chargeTime = ChargeTimeType.ANNUAL_FEE;
+                break;
+                default:
+                    chargeTime = ChargeTimeType.SPECIFIED_DUE_DATE;
+            }
+            final GLAccount incomeAccount = this.incomeAccountId == null ? null
+                    : mock(GLAccount.class, invocation -> "getId".equals(invocation.getMethod().getName()) ? this.incomeAccountId
+                            : RETURNS_DEFAULTS.answer(invocation));
+            final Charge charge = mock(Charge.class, invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "getId":
+                        return id + 100;
+                    case "isPenalty":
+                        return "penalty".equals(this.type);
+                    case "getChargeTimeType":
+                        return chargeTime.getValue();
+                    case "getChargeCalculation":
+                        return ChargeCalculationType.FLAT.getValue();
+                    case "getAmount":
+                        return BigDecimal.valueOf(this.amount);
+                    case "getAccount":
+                        return incomeAccount;
+                    default:
+                        return RETURNS_DEFAULTS.answer(invocation);
+                }
+            });
+            return SavingsAccountCharge.createNewWithoutSavingsAccount(charge, BigDecimal.valueOf(this.amount), chargeTime,
+                    ChargeCalculationType.FLAT, dueDate, true, MonthDay.from(dueDate), chargeTime.isMonthlyFee() ? 1 : null);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.savings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.jobs.data.JobPartitionData;
+import org.apache.fineract.infrastructure.jobs.exception.JobExecutionException;
+import org.apache.fineract.infrastructure.jobs.service.JobPartitionService;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountAssembler;
+import org.apache.fineract.portfolio.savings.domain.SavingsAccountRepositoryWrapper;
+import org.apache.fineract.portfolio.savings.service.SavingsAccountReadPlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsAccountWritePlatformService;
+import org.apache.fineract.portfolio.savings.service.SavingsDormancyBatchProcessor;
+import org.apache.fineract.portfolio.savings.service.SavingsSchedularServiceImpl;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class SavingsDormancyStepDefinitions implements En {
+
+    private final List<Long> pendingInactive = new ArrayList<>();
+    private final List<Long> pendingDormant = new ArrayList<>();
+    private final List<Long> pendingEscheat = new ArrayList<>();
+    private final Set<Long> noActivityFeeAccounts = new HashSet<>();
+    private final Set<Long> failingEscheats = new HashSet<>();
+
+    private final List<List<Long>> subStatusUpdates = new ArrayList<>();
+    private final List<List<Long>> notes = new ArrayList<>();
+    private final List<Long> madeInactiveOneByOne = new ArrayList<>();
+    private final List<long[]> escheatRanges = new ArrayList<>();
+    private int escheatThreads;
+
+    private SavingsDormancyBatchProcessor processor;
+    private String summary;
+    private JobExecutionException failure;
+
+    public SavingsDormancyStepDefinitions() {
+        Given("/^The savings accounts (.*) pending (inactive|dormant|escheat)$/", (String savingsIds, String transition) -> {
+            if ("inactive".equals(transition)) {
+                this.pendingInactive.addAll(ids(savingsIds));
+            } else if ("dormant".equals(transition)) {
+                this.pendingDormant.addAll(ids(savingsIds));
+            } else {
+                this.pendingEscheat.addAll(ids(savingsIds));
+            }
+        });
+
+        Given("/^The savings accounts (.*) with a no activity fee$/",
+                (String savingsIds) -> this.noActivityFeeAccounts.addAll(ids(savingsIds)));
+
+        Given("/^The escheat of savings account (\\d+) fails$/", (Long savingsId) -> this.failingEscheats.add(savingsId));
+
+        When("/^The savings dormancy job runs with thread-pool-size (\\d+) and batch-size (\\d+)$/",
+                (String threadPoolSize, String batchSize) -> run(Map.of("thread-pool-size", threadPoolSize, "batch-size", batchSize)));
+
+        When("/^The savings dormancy job runs without job parameters$/", () -> run(Collections.emptyMap()));
+
+        Then("/^The savings sub status updates are made in the batches (.*)$/",
+                (String batches) -> assertEquals(batches(batches), this.subStatusUpdates));
+
+        Then("/^The savings accounts (.*) are made inactive one by one$/",
+                (String savingsIds) -> assertEquals(ids(savingsIds), this.madeInactiveOneByOne));
+
+        Then("/^The savings dormancy notes are inserted for the accounts (.*)$/",
+                (String batches) -> assertEquals(batches(batches), this.notes));
+
+        Then("/^The savings escheats are partitioned in the ranges (.*) on (\\d+) threads$/", (String ranges, Integer threads) -> {
+            final String actual = this.escheatRanges.stream().map(range -> range[0] + "-" + range[1]).collect(Collectors.joining("; "));
+            assertEquals(ranges.trim(), actual);
+            assertEquals(threads, this.escheatThreads);
+        });
+
+        Then("/^The savings dormancy summary starts with (.*)$/", (String summary) -> {
+            assertNull(this.failure);
+            assertTrue(this.summary.startsWith(summary), this.summary);
+        });
+
+        Then("/^The savings dormancy job fails with the summary (.*)$/", (String summary) -> {
+            assertNotNull(this.failure);
+            assertTrue(this.failure.getSummary().startsWith(summary), this.failure.getSummary());
+            assertTrue(this.failure.getSummary().contains("1 escheats failed"), this.failure.getSummary());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run(final Map<String, String> jobParameters) {
+        final SavingsAccountReadPlatformService readService = mock(SavingsAccountReadPlatformService.class, this::answerRead);
+        final SavingsAccountWritePlatformService writeService = mock(SavingsAccountWritePlatformService.class, this::answerWrite);
+        final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, this::answerJdbc);
+        final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class,
+                invocation -> "execute".equals(invocation.getMethod().getName())
+                        ? invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null)
+                        : RETURNS_DEFAULTS.answer(invocation));
+        final JobPartitionService jobPartitionService = mock(JobPartitionService.class, this::answerPartitions);
+        this.processor = new SavingsDormancyBatchProcessor(readService, writeService, jdbcTemplate, transactionTemplate,
+                mock(AuditorAware.class, invocation -> Optional.<AppUser>empty()), jobPartitionService);
+        final SavingsSchedularServiceImpl service = new SavingsSchedularServiceImpl(mock(SavingsAccountAssembler.class), writeService,
+                readService, mock(SavingsAccountRepositoryWrapper.class), mock(ApplicationContext.class),
+                mock(ConfigurationDomainService.class), jdbcTemplate, transactionTemplate, jobPartitionService, this.processor);
+
+        ThreadLocalContextUtil.setTenant(
+                new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        try {
+            this.summary = service.updateSavingsDormancyStatus(jobParameters);
+        } catch (JobExecutionException e) {
+            this.failure = e;
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private Object answerRead(final InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "retrieveSavingsIdsPendingInactive":
+                return new ArrayList<>(this.pendingInactive);
+            case "retrieveSavingsIdsPendingDormant":
+                return new ArrayList<>(this.pendingDormant);
+            case "retrieveSavingsIdsPendingEscheat":
+                if (invocation.getArguments().length == 1) {
+                    return new ArrayList<>(this.pendingEscheat);
+                }
+                final Long from = invocation.getArgument(1);
+                final Long to = invocation.getArgument(2);
+                return this.pendingEscheat.stream().filter(id -> id >= from && id <= to).collect(Collectors.toList());
+            default:
+                return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    private Object answerWrite(final InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "setSubStatusInactive":
+                this.madeInactiveOneByOne.add(invocation.getArgument(0));
+                return null;
+            case "escheat":
+                final Long savingsId = invocation.getArgument(0);
+                if (this.failingEscheats.contains(savingsId)) {
+                    throw new IllegalStateException("escheat of " + savingsId + " failed");
+                }
+                return null;
+            default:
+                return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    private Object answerJdbc(final InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "batchUpdate":
+                final String sql = invocation.getArgument(0);
+                final List<Object[]> args = invocation.getArgument(1);
+                if (sql.startsWith("UPDATE m_savings_account")) {
+                    this.subStatusUpdates.add(args.stream().map(arg -> (Long) arg[1]).collect(Collectors.toList()));
+                } else {
+                    this.notes.add(args.stream().map(arg -> (Long) arg[arg.length - 1]).collect(Collectors.toList()));
+                }
+                final int[] counts = new int[args.size()];
+                Arrays.fill(counts, 1);
+                return counts;
+            case "queryForList":
+                final Long from = (Long) invocation.getArguments()[3];
+                final Long to = (Long) invocation.getArguments()[4];
+                return this.noActivityFeeAccounts.stream().filter(id -> id >= from && id <= to).collect(Collectors.toList());
+            default:
+                return RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    /**
+     * Processes the partitions on the calling thread, as a single node running the job would.
+     */
+    @SuppressWarnings("unchecked")
+    private Object answerPartitions(final InvocationOnMock invocation) throws Throwable {
+        if (!"execute".equals(invocation.getMethod().getName())) {
+            return RETURNS_DEFAULTS.answer(invocation);
+        }
+        final Map<String, String> context = invocation.getArgument(1);
+        final List<long[]> ranges = invocation.getArgument(2);
+        this.escheatRanges.addAll(ranges);
+        this.escheatThreads = invocation.getArgument(3);
+        final List<JobPartitionData> partitions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            final JobPartitionData partition = new JobPartitionData((long) i, "run", "Update Savings Dormant Accounts",
+                    new HashMap<>(context), i + 1, ranges.get(i)[0], ranges.get(i)[1], "OPEN", null, null);
+            partitions.add(new JobPartitionData(partition.getId(), partition.getRunId(), partition.getJobName(), context,
+                    partition.getPartitionNo(), partition.getRangeFrom(), partition.getRangeTo(), "DONE",
+                    this.processor.processPartition(partition), null));
+        }
+        assertNotNull(LocalDate.parse(context.get("transition-date")));
+        return partitions;
+    }
+
+    private static List<List<Long>> batches(final String batches) {
+        return Arrays.stream(batches.split(";")).map(SavingsDormancyStepDefinitions::ids).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(final String ids) {
+        return Arrays.stream(ids.split(",")).map(String::trim).map(Long::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.portfolio.search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.cucumber.java8.En;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.apache.fineract.infrastructure.core.data.CommandProcessingResult;
+import org.apache.fineract.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseSpecificSQLGenerator;
+import org.apache.fineract.infrastructure.core.service.database.DatabaseTypeResolver;
+import org.h2.api.Trigger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+public class SearchIndexStepDefinitions implements En {
+
+    private static final AtomicBoolean ANOTHER_BUILD_STARTS = new AtomicBoolean();
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private SearchIndexWritePlatformServiceImpl searchIndexService;
+
+    public SearchIndexStepDefinitions() {
+        Given("/^The search index of a tenant's clients, groups, loans and savings accounts$/", () -> {
+            this.dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+            this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+            this.transactionManager = new DataSourceTransactionManager(this.dataSource);
+            final DatabaseTypeResolver databaseTypeResolver = mock(DatabaseTypeResolver.class);
+            when(databaseTypeResolver.isMySQL()).thenReturn(true);
+            this.searchIndexService = new SearchIndexWritePlatformServiceImpl(this.jdbcTemplate,
+                    new DatabaseSpecificSQLGenerator(databaseTypeResolver), this.transactionManager);
+            this.jdbcTemplate.execute("create table m_client (id bigint primary key, display_name varchar(100), account_no varchar(20), "
+                    + "external_id varchar(100), mobile_no varchar(50))");
+            this.jdbcTemplate.execute(
+                    "create table m_client_identifier (id bigint primary key, client_id bigint, document_key varchar(50))");
+            this.jdbcTemplate.execute("create table m_group (id bigint primary key, display_name varchar(100), account_no varchar(20), "
+                    + "external_id varchar(100))");
+            this.jdbcTemplate.execute("create table m_loan (id bigint primary key, client_id bigint, group_id bigint, "
+                    + "account_no varchar(20), external_id varchar(100))");
+            this.jdbcTemplate.execute("create table m_savings_account (id bigint primary key, client_id bigint, group_id bigint, "
+                    + "account_no varchar(20), external_id varchar(100))");
+            this.jdbcTemplate.execute("create table m_search_index (token varchar(100) not null, entity_type varchar(20) not null, "
+                    + "entity_id bigint not null, primary key (token, entity_type, entity_id))");
+            this.jdbcTemplate.execute("create table m_search_index_build (id bigint auto_increment primary key, "
+                    + "started_at timestamp not null, completed_at timestamp, entries bigint)");
+            this.jdbcTemplate.execute("create trigger another_build_starts after insert on m_search_index for each row call \""
+                    + AnotherBuildStarts.class.getName() + "\"");
+            ThreadLocalContextUtil.setTenant(
+                    new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        });
+
+        After(() -> {
+            if (this.dataSource == null) {
+                return;
+            }
+            ANOTHER_BUILD_STARTS.set(false);
+            ThreadLocalContextUtil.clearTenant();
+        });
+
+        Given("/^The client (\\d+) named '(.*)' with the account number (\\w+)$/",
+                (Long clientId, String name, String accountNo) -> this.jdbcTemplate
+                        .update("insert into m_client (id, display_name, account_no) values (?, ?, ?)", clientId, name, accountNo));
+
+        Given("/^The client (\\d+) has the identifier (\\d+) '(.*)'$/",
+                (Long clientId, Long identifierId, String documentKey) -> this.jdbcTemplate.update(
+                        "insert into m_client_identifier (id, client_id, document_key) values (?, ?, ?)", identifierId, clientId,
+                        documentKey));
+
+        Given("/^The group (\\d+) named '(.*)'$/", (Long groupId, String name) -> this.jdbcTemplate
+                .update("insert into m_group (id, display_name) values (?, ?)", groupId, name));
+
+        Given("/^The (client|group) (\\d+) has the (loan|savings account) (\\d+) with the account number (\\w+)$/",
+                (String owner, Long ownerId, String account, Long accountId, String accountNo) -> this.jdbcTemplate.update(
+                        "insert into " + table(account) + " (id, " + owner + "_id, account_no) values (?, ?, ?)", accountId, ownerId,
+                        accountNo));
+
+        When("/^The (client|group) (\\d+) is renamed to '(.*)'$/", (String entity, Long id, String name) -> this.jdbcTemplate
+                .update("update m_" + entity + " set display_name = ? where id = ?", name, id));
+
+        When("/^The account number of the (loan|savings account) (\\d+) is changed to (\\w+)$/",
+                (String account, Long accountId, String accountNo) -> this.jdbcTemplate
+                        .update("update " + table(account) + " set account_no = ? where id = ?", accountNo, accountId));
+
+        When("/^A (\\w+) (\\w+) command on the resource (\\d+)(?: of the client (\\d+))? (commits|is rolled back)$/",
+                (String entityName, String actionName, Long resourceId, Long clientId, String outcome) -> {
+                    final CommandProcessingResult result = new CommandProcessingResultBuilder().withEntityId(resourceId)
+                            .withClientId(clientId).build();
+                    final TransactionStatus transaction = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+                    this.searchIndexService.reindexAfterCommit(entityName, actionName, result);
+                    if ("commits".equals(outcome)) {
+                        this.transactionManager.commit(transaction);
+                    } else {
+                        this.transactionManager.rollback(transaction);
+                    }
+                });
+
+        When("/^The search index is rebuilt in batches of (\\d+)$/",
+                (String batchSize) -> this.searchIndexService.rebuildSearchIndex(Map.of("batch-size", batchSize)));
+
+        When("/^Another node starts a build while the search index is rebuilt in batches of (\\d+)$/", (String batchSize) -> {
+            ANOTHER_BUILD_STARTS.set(true);
+            this.searchIndexService.rebuildSearchIndex(Map.of("batch-size", batchSize));
+        });
+
+        Then("/^The search index finds '(\\w+)' in the (\\w+) (\\d+)$/",
+                (String word, String entityType, Long entityId) -> assertEquals(1, matches(word, entityType, entityId)));
+
+        Then("/^The search index does not find '(\\w+)' in the (\\w+) (\\d+)$/",
+                (String word, String entityType, Long entityId) -> assertEquals(0, matches(word, entityType, entityId)));
+
+        Then("/^The search index builds are (.*)$/", (String builds) -> {
+            final List<String> states = this.jdbcTemplate.queryForList(
+                    "select case when completed_at is null then 'running' else concat('completed with ', entries) end"
+                            + " from m_search_index_build order by id",
+                    String.class);
+            assertEquals(builds, String.join(", ", states));
+        });
+
+        Then("/^The search tokens of '(.*)' are (.*)$/",
+                (String text, String tokens) -> assertEquals(tokens, String.join(", ", SearchTokenizer.tokens(List.of(text)))));
+
+        Then("/^The search words of '(.*)' are (.*)$/",
+                (String text, String words) -> assertEquals(words, String.join(", ", SearchTokenizer.words(text))));
+    }
+
+    private static String table(final String account) {
+        return "loan".equals(account) ? "m_loan" : "m_savings_account";
+    }
+
+    /**
+     * The number of entities the search would match the word in, the way it looks the word up.
+     */
+    private int matches(final String word, final String entityType, final Long entityId) {
+        return this.jdbcTemplate.queryForObject(
+                "select count(distinct entity_id) from m_search_index where token like ? and entity_type = ? and entity_id = ?",
+                Integer.class, SearchTokenizer.words(word).get(0) + "%", entityType, entityId);
+    }
+
+    /**
+     * Starts a build of another node while the first entry of a build is written, once it is asked to.
+     */
+    public static class AnotherBuildStarts implements Trigger {
+
+        @Override
+        public void init(final Connection conn, final String schemaName, final String triggerName, final String tableName,
+                final boolean before, final int type) {}
+
+        @Override
+        public void fire(final Connection conn, final Object[] oldRow, final Object[] newRow) throws SQLException {
+            if (ANOTHER_BUILD_STARTS.compareAndSet(true, false)) {
+                try (Statement statement = conn.createStatement()) {
+                    statement.executeUpdate("insert into m_search_index_build (started_at) values (current_timestamp)");
+                }
+            }
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public void remove() {}
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.useradministration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import io.cucumber.java8.En;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.infrastructure.core.api.JsonCommand;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenant;
+import org.apache.fineract.infrastructure.core.domain.FineractPlatformTenantConnection;
+import org.apache.fineract.infrastructure.core.serialization.FromJsonHelper;
+import org.apache.fineract.infrastructure.core.service.ThreadLocalContextUtil;
+import org.apache.fineract.infrastructure.security.exception.NoAuthorizationException;
+import org.apache.fineract.infrastructure.security.service.PlatformSecurityContext;
+import org.apache.fineract.notification.service.TopicDomainService;
+import org.apache.fineract.useradministration.domain.AppUser;
+import org.apache.fineract.useradministration.domain.Permission;
+import org.apache.fineract.useradministration.domain.PermissionRepository;
+import org.apache.fineract.useradministration.domain.Role;
+import org.apache.fineract.useradministration.domain.RoleRepository;
+import org.apache.fineract.useradministration.serialization.PermissionsCommandFromApiJsonDeserializer;
+import org.apache.fineract.useradministration.service.PermissionWritePlatformServiceJpaRepositoryImpl;
+import org.apache.fineract.useradministration.service.RoleWritePlatformServiceJpaRepositoryImpl;
+import org.springframework.security.core.userdetails.User;
+
+public class AppUserPermissionsStepDefinitions implements En {
+
+    private final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+    private final Map<String, Permission> permissions = new HashMap<>();
+    private final Map<String, Role> roles = new HashMap<>();
+
+    private AppUser appUser;
+
+    public AppUserPermissionsStepDefinitions() {
+        Given("/^The user role (\\w+) grants (.*)$/", (String roleName, String permissionCodes) -> {
+            final Role role = new Role(roleName, roleName);
+            for (final String permissionCode : codes(permissionCodes)) {
+                role.updatePermission(permission(permissionCode), true);
+            }
+            this.roles.put(roleName, role);
+        });
+
+        Given("/^The app user has the user roles (.*)$/", (String roleNames) -> inTenant(() -> {
+            this.appUser = new AppUser(null, new User("mifos", "password", Collections.emptyList()), roles(roleNames),
+                    "mifos@mifos.org", "App", "Mifos", null, false, false, new ArrayList<>(), false);
+        }));
+
+        When("/^The role service (grants|revokes) (\\w+) (?:to|from) the user role (\\w+)$/",
+                (String change, String permissionCode, String roleName) -> inTenant(
+                        () -> updateRolePermissions(this.roles.get(roleName), permissionCode, "grants".equals(change))));
+
+        When("/^The user role (\\w+) loses (\\w+) outside the role service$/",
+                (String roleName, String permissionCode) -> this.roles.get(roleName).updatePermission(permission(permissionCode), false));
+
+        When("/^The permission service enables maker checker for (\\w+)$/",
+                (String permissionCode) -> inTenant(() -> enableMakerChecker(permissionCode)));
+
+        When("/^The roles of the app user are replaced by (.*)$/",
+                (String roleNames) -> inTenant(() -> this.appUser.updateRoles(roles(roleNames))));
+
+        Then("/^The app user may (\\w+)$/",
+                (String permissionCode) -> inTenant(() -> this.appUser.validateHasPermissionTo(permissionCode)));
+
+        Then("/^The app user may not (\\w+)$/", (String permissionCode) -> inTenant(
+                () -> assertThrows(NoAuthorizationException.class, () -> this.appUser.validateHasPermissionTo(permissionCode))));
+
+        Then("/^The app user may be a checker for (\\w+)$/",
+                (String function) -> inTenant(() -> this.appUser.validateHasCheckerPermissionTo(function)));
+
+        Then("/^The app user may not be a checker for (\\w+)$/", (String function) -> inTenant(
+                () -> assertThrows(NoAuthorizationException.class, () -> this.appUser.validateHasCheckerPermissionTo(function))));
+
+        Then("/^The app user (may|may not) run the report (.*)$/", (String may, String reportName) -> inTenant(() -> {
+            if ("may".equals(may)) {
+                assertFalse(this.appUser.hasNotPermissionForReport(reportName));
+            } else {
+                assertTrue(this.appUser.hasNotPermissionForReport(reportName));
+            }
+        }));
+    }
+
+    private void updateRolePermissions(final Role role, final String permissionCode, final boolean isSelected) {
+        // every permission exists in the repository, granted to a role or not
+        permission(permissionCode);
+        final RoleRepository roleRepository = mock(RoleRepository.class,
+                invocation -> "findById".equals(invocation.getMethod().getName()) ? Optional.of(role)
+                        : RETURNS_DEFAULTS.answer(invocation));
+        final RoleWritePlatformServiceJpaRepositoryImpl service = new RoleWritePlatformServiceJpaRepositoryImpl(
+                mock(PlatformSecurityContext.class), roleRepository, permissionRepository(), null,
+                new PermissionsCommandFromApiJsonDeserializer(this.fromJsonHelper), mock(TopicDomainService.class));
+        service.updateRolePermissions(1L, command(permissionCode, isSelected));
+    }
+
+    private void enableMakerChecker(final String permissionCode) {
+        final PermissionWritePlatformServiceJpaRepositoryImpl service = new PermissionWritePlatformServiceJpaRepositoryImpl(
+                mock(PlatformSecurityContext.class), permissionRepository(),
+                new PermissionsCommandFromApiJsonDeserializer(this.fromJsonHelper));
+        service.updateMakerCheckerPermissions(command(permissionCode, true));
+    }
+
+    private PermissionRepository permissionRepository() {
+        return mock(PermissionRepository.class, invocation -> "findAll".equals(invocation.getMethod().getName())
+                ? new ArrayList<>(this.permissions.values())
+                : RETURNS_DEFAULTS.answer(invocation));
+    }
+
+    private JsonCommand command(final String permissionCode, final boolean isSelected) {
+        final String json = "{\"permissions\": {\"" + permissionCode + "\": " + isSelected + "}}";
+        return new JsonCommand(null, json, this.fromJsonHelper.parse(json), this.fromJsonHelper, null, null, null, null, null, null, null,
+                null, null, null, null, null);
+    }
+
+    private Permission permission(final String permissionCode) {
+        // the code of a permission is its action name and entity name joined by an underscore
+        return this.permissions.computeIfAbsent(permissionCode, code -> {
+            final int separator = code.indexOf('_');
+            return new Permission("portfolio", code.substring(separator + 1), code.substring(0, separator));
+        });
+    }
+
+    private Set<Role> roles(final String roleNames) {
+        return codes(roleNames).stream().map(this.roles::get).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static Set<String> codes(final String codes) {
+        return Arrays.stream(codes.split(",")).map(String::trim).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static void inTenant(final Runnable runnable) {
+        ThreadLocalContextUtil.setTenant(
+                new FineractPlatformTenant(1L, "default", "default", "UTC", mock(FineractPlatformTenantConnection.class)));
+        try {
+            runnable.run();
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+Feature: Journal Entry Closure And Mapping Lookups
+
+  @accounting
+  Scenario: Verify that a closure saved on another node applies to the next journal entry transaction
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The office 1 was closed on 2022-03-31
+    When A journal entry transaction starts
+    Then The latest closing date of the office 1 is 2022-03-31
+    When Another node closes the office 1 on 2022-04-30
+    Then The latest closing date of the office 1 is 2022-03-31
+    When The journal entry transaction commits
+    When A journal entry transaction starts
+    Then The latest closing date of the office 1 is 2022-04-30
+
+  @accounting
+  Scenario: Verify that a closure saved outside of a transaction applies right away
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The office 1 was closed on 2022-03-31
+    Then The latest closing date of the office 1 is 2022-03-31
+    When Another node closes the office 1 on 2022-04-30
+    Then The latest closing date of the office 1 is 2022-04-30
+
+  @accounting
+  Scenario: Verify that a reopened closure and an office never closed have no closing date
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The office 1 was closed on 2022-03-31
+    Given The office 2 was closed and reopened on 2022-04-30
+    When A journal entry transaction starts
+    Then The latest closing date of the office 1 is 2022-03-31
+    Then The latest closing date of the office 2 is none
+    Then The latest closing date of the office 3 is none
+    When Another node closes the office 3 on 2022-04-30
+    Then The latest closing date of the office 3 is none
+
+  @accounting
+  Scenario: Verify that a closure saved by the journal entry transaction itself is read again
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The office 1 was closed on 2022-03-31
+    When A journal entry transaction starts
+    Then The latest closing date of the office 1 is 2022-03-31
+    When The journal entry transaction closes the office 1 on 2022-04-30
+    Then The latest closing date of the office 1 is 2022-04-30
+
+  @accounting
+  Scenario: Verify that without the platform cache a mapping changed on another node applies to the next transaction
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The platform cache is switched to no cache
+    Given The loan product 1 maps the account type 2 to the GL account 10
+    When A journal entry transaction starts
+    Then The account type 2 of the loan product 1 posts to the GL account 10
+    When Another node maps the account type 2 of the loan product 1 to the GL account 20
+    Then The account type 2 of the loan product 1 posts to the GL account 10
+    When The journal entry transaction commits
+    When A journal entry transaction starts
+    Then The account type 2 of the loan product 1 posts to the GL account 20
+
+  @accounting
+  Scenario: Verify that with the single node cache a mapping is kept until this node changes it
+    Given The journal entry lookups read the closures and mappings of the tenant
+    Given The platform cache is switched to single node
+    Given The loan product 1 maps the account type 2 to the GL account 10
+    When A journal entry transaction starts
+    Then The account type 2 of the loan product 1 posts to the GL account 10
+    When The journal entry transaction commits
+    When Another node maps the account type 2 of the loan product 1 to the GL account 20
+    When A journal entry transaction starts
+    Then The account type 2 of the loan product 1 posts to the GL account 10
+    When This node maps the account type 2 of the loan product 1 to the GL account 30
+    Then The account type 2 of the loan product 1 posts to the GL account 30
+    When The journal entry transaction commits
+    When A journal entry transaction starts
+    Then The account type 2 of the loan product 1 posts to the GL account 30
@@ -0,0 +1,26 @@
+Feature: Loan Loss Provisioning Batch Processing
+
+  @accounting
+  Scenario: Verify that the provisioning journal entries match the entity based ones
+    Given The provisioning entries 1 USD 10 20 10.50; 1 USD 10 21 4.25; 2 USD 10 20 7.00; 1 EUR 11 20 3.10
+    When The provisioning journal entries are inserted
+    Then The provisioning journal entries are the same as the ones created from the provisioning entry entities
+
+  @accounting
+  Scenario: Verify that the provisioning reserves of all loan partitions are summed up per entry
+    Given The loan partitions with the provisioning reserves 3.33; 3.33; 3.34
+    When The provisioning is aggregated on 2 threads
+    Then The aggregated provisioning entry reserves 10.00
+
+  @accounting
+  Scenario: Verify that no provisioning journal entries are inserted for a closed office
+    Given The provisioning entries 1 USD 10 20 10.50; 2 USD 10 20 7.00
+    Given The accounting of office 2 is closed on the provisioning date
+    When The provisioning journal entries are inserted
+    Then The provisioning journal entries are rejected with JournalEntryInvalidException
+
+  @accounting
+  Scenario: Verify that no provisioning journal entries are inserted without an expense account
+    Given The provisioning entries 1 USD 10 20 10.50; 1 USD 10 - 7.00
+    When The provisioning journal entries are inserted
+    Then The provisioning journal entries are rejected with ProductToGLAccountMappingNotFoundException
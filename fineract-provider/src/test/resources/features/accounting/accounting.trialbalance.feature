@@ -0,0 +1,25 @@
+Feature: Trial Balance Building
+
+  @accounting
+  Scenario: Verify that the trial balance of every office continues from its own last built date
+    Given The trial balance offices 1 from 2021-03-05; 2 from 2021-03-02
+    When The trial balance is built
+    Then The trial balance of office 1 is replaced from 2021-03-05 in its own transaction
+    Then The trial balance of office 2 is replaced from 2021-03-02 in its own transaction
+
+  @accounting
+  Scenario: Verify that a failing office keeps its previous trial balance
+    Given The trial balance offices 1 from 2021-03-05; 2 from 2021-03-02
+    Given The trial balance insert of office 2 fails
+    When The trial balance is built
+    Then The trial balance of office 1 is replaced from 2021-03-05 in its own transaction
+    Then The trial balance transaction of office 2 is rolled back
+    Then The trial balance build fails with 1 error
+
+  @accounting
+  Scenario: Verify that the closing balances continue from the opening balance of each account
+    Given The trial balance offices 1 from 2021-03-05
+    Given The trial balance opening balance 100 of account 10 in office 1
+    Given The trial balance amounts 5, -3 of account 10 and 7 of account 11 in office 1
+    When The trial balance is built
+    Then The trial balance closing balances of office 1 are 105, 102, 7
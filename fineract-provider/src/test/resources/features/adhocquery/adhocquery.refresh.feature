@@ -0,0 +1,65 @@
+Feature: Ad-hoc Query Refresh
+
+  @adhocquery
+  Scenario: Verify that an incremental refresh picks up late rows at the watermark without duplicating them
+    Given The ad-hoc source holds the loans 1 at 10, 2 at 20 and 3 at 20
+    And The ad-hoc query 1 incrementally refreshes the table adhoc_loans on the column made_on
+    When The ad-hoc tables are refreshed
+    Then The table adhoc_loans holds the loans 1 at 10, 2 at 20 and 3 at 20
+    And The last run of the ad-hoc query 1 succeeded with 3 rows
+    When The ad-hoc source gains the loans 4 at 20 and 5 at 30
+    And The ad-hoc tables are refreshed
+    Then The table adhoc_loans holds the loans 1 at 10, 2 at 20, 3 at 20, 4 at 20 and 5 at 30
+    And The last run of the ad-hoc query 1 succeeded with 2 rows
+    When The ad-hoc tables are refreshed
+    Then The table adhoc_loans holds the loans 1 at 10, 2 at 20, 3 at 20, 4 at 20 and 5 at 30
+    And The last run of the ad-hoc query 1 succeeded with 0 rows
+
+  @adhocquery
+  Scenario: Verify that an incremental refresh reads the watermark from the column of the table
+    Given The ad-hoc source holds the loans 1 at 10 and 2 at 20
+    And The ad-hoc query 1 incrementally refreshes the table adhoc_loans on the column made_on as loan_made_on
+    When The ad-hoc tables are refreshed
+    And The ad-hoc source gains the loans 3 at 20
+    And The ad-hoc tables are refreshed
+    Then The table adhoc_loans holds the loans 1 at 10, 2 at 20 and 3 at 20
+    And The last run of the ad-hoc query 1 succeeded with 1 rows
+
+  @adhocquery
+  Scenario: Verify that a full refresh fills a shadow table and swaps it in
+    Given The ad-hoc source holds the loans 1 at 10 and 2 at 20
+    And The ad-hoc query 1 rebuilds the table adhoc_loans
+    And The ad-hoc query 2 rebuilds the table adhoc_loans
+    And The table adhoc_loans was filled with the loans 7 at 70
+    When The ad-hoc tables are refreshed
+    Then The table adhoc_loans held the loans 7 at 70 until the swap
+    And The table adhoc_loans holds the loans 1 at 10, 1 at 10, 2 at 20 and 2 at 20
+    And The shadow tables of adhoc_loans are dropped
+    And The last run of the ad-hoc query 1 succeeded with 2 rows
+    And The last run of the ad-hoc query 2 succeeded with 2 rows
+
+  @adhocquery
+  Scenario: Verify that a failed full refresh keeps the rows of the table
+    Given The ad-hoc source holds the loans 1 at 10 and 2 at 20
+    And The ad-hoc query 1 rebuilds the table adhoc_loans from a missing table
+    And The table adhoc_loans was filled with the loans 7 at 70
+    When The ad-hoc tables are refreshed
+    Then The refresh failed for 1 query
+    And The table adhoc_loans holds the loans 7 at 70
+    And The last run of the ad-hoc query 1 failed
+
+  @adhocquery
+  Scenario: Verify that a failing query does not stop the refresh of the other tables
+    Given The ad-hoc source holds the loans 1 at 10 and 2 at 20
+    And The ad-hoc query 1 appends to the table adhoc_broken from a missing table
+    And The ad-hoc query 2 appends to the table adhoc_loans
+    And The ad-hoc query 3 incrementally refreshes the table adhoc_broken_too on the column missing_column
+    And The ad-hoc query 4 rebuilds the table adhoc_copies
+    When The ad-hoc tables are refreshed
+    Then The refresh failed for 2 queries
+    And The last run of the ad-hoc query 1 failed
+    And The last run of the ad-hoc query 3 failed
+    And The table adhoc_loans holds the loans 1 at 10 and 2 at 20
+    And The table adhoc_copies holds the loans 1 at 10 and 2 at 20
+    And The last run of the ad-hoc query 2 succeeded with 2 rows
+    And The last run of the ad-hoc query 4 succeeded with 2 rows
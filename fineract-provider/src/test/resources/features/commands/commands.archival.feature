@@ -0,0 +1,37 @@
+Feature: Audit Log Archival
+
+  @commands
+  Scenario: Verify that an archived command is still found by the audit search and by its id
+    Given The audit log of the tenant
+    And The command 1 with the payload {"name":"archived"} was made 100 days ago
+    And The command 2 with the payload {"name":"compressed"} was made 10 days ago
+    When The audit log archival job runs with the parameters retention-days=30
+    Then The audit log holds the commands 2 and the archive the commands 1
+    And The audit search finds the commands 2, 1
+    And The audit search below the command 2 finds the commands 1
+    And The audit entry 1 has the payload {"name":"archived"}
+    And The audit entry 2 has the payload {"name":"compressed"}
+
+  @commands
+  Scenario: Verify that a command archived in a kept month is still found after the archive is purged
+    Given The audit log of the tenant
+    And The command 1 with the payload {"name":"purged"} was made 250 days ago
+    And The command 2 with the payload {"name":"kept"} was made 40 days ago
+    And The command 3 with the payload {"name":"live"} was made 5 days ago
+    When The audit log archival job runs with the parameters retention-days=30
+    And The audit log archival job runs with the parameters archive-retention-months=3
+    Then The audit log holds the commands 3 and the archive the commands 2
+    And The audit search finds the commands 3, 2
+    And The audit entry 2 has the payload {"name":"kept"}
+    And The audit entry 1 is not found
+
+  @commands
+  Scenario: Verify that commands are archived in batches smaller than the month
+    Given The audit log of the tenant
+    And The command 1 with the payload {"name":"first"} was made 100 days ago
+    And The command 2 with the payload {"name":"second"} was made 100 days ago
+    And The command 3 with the payload {"name":"third"} was made 100 days ago
+    When The audit log archival job runs with the parameters retention-days=30, batch-size=2
+    Then The audit log holds the commands none and the archive the commands 1, 2, 3
+    And The audit search finds the commands 3, 2, 1
+    And The audit entry 3 has the payload {"name":"third"}
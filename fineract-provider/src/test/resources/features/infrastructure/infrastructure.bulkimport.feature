@@ -0,0 +1,42 @@
+Feature: Streaming Bulk Import
+
+  @bulkimport
+  Scenario: Verify that the entries of a sheet are read as a stream
+    Given The bulk import sheet with 3 entries, a row without a name and 1 more row
+    When The bulk import entries of the sheet are read as a stream
+    Then The bulk import reader returns the 3 entries with their strings, numbers, dates, formula results and booleans
+
+  @bulkimport
+  Scenario: Verify that the ids of a lookup sheet are looked up like in the workbook
+    Given The bulk import lookup sheets of offices and staff
+    Then The bulk import sheet index returns the ids the workbook lookup returns
+
+  @bulkimport
+  Scenario: Verify that the rows of one key are imported in sheet order
+    Given The bulk import rows with the keys A, B, A, C, A, B, A
+    When The bulk import rows are imported on 3 lanes
+    Then The bulk import rows of every key are imported in sheet order
+    Then The bulk import counts 7 imported and 0 failed rows
+
+  @bulkimport
+  Scenario: Verify that a failing row is reported with its status and report cells
+    Given The bulk import rows with the keys A, B, C
+    Given The bulk import row 2 fails with the message boom
+    Given The bulk import row 3 fails with the status Approval failed and the report cell 42
+    When The bulk import rows are imported on 3 lanes
+    Then The bulk import counts 1 imported and 2 failed rows
+    Then The bulk import row 2 has the status boom
+    Then The bulk import row 3 has the status Approval failed and the report cell 42
+
+  @bulkimport
+  Scenario: Verify that the progress is reported once per interval
+    Given 250 bulk import rows with different keys
+    When The bulk import rows are imported on 4 lanes
+    Then The bulk import progress is reported at most 3 times, the last time with 250 imported rows
+
+  @bulkimport
+  Scenario: Verify that the result writer changes only the status and report cells
+    Given The bulk import sheet with a formula, a data validation, a bold cell and a missing row
+    When The bulk import results of rows 1, 2 and the missing row are written into the file
+    Then The bulk import file keeps the formula, the data validation, the bold cell and the other sheet
+    Then The bulk import file has the statuses, the report cell and the headers of the results
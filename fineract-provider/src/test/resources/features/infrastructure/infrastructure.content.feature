@@ -0,0 +1,38 @@
+Feature: Content Downloads
+
+  @infrastructure
+  Scenario Outline: Verify that a download answers the range and conditional headers
+    Given The content 0123456789abcdefghij with the entity tag v1 is stored in a <storage>
+    When The content is downloaded with the headers <headers>
+    Then The download answers <status> with the content range <contentRange> and the body <body>
+
+    Examples:
+      | storage     | headers                                                   | status | contentRange   | body                 |
+      | file        | none                                                      | 200    | none           | 0123456789abcdefghij |
+      | byte source | none                                                      | 200    | none           | 0123456789abcdefghij |
+      | file        | Range: bytes=5-9                                          | 206    | bytes 5-9/20   | 56789                |
+      | byte source | Range: bytes=5-9                                          | 206    | bytes 5-9/20   | 56789                |
+      | file        | Range: bytes=15-                                          | 206    | bytes 15-19/20 | fghij                |
+      | byte source | Range: bytes=-3                                           | 206    | bytes 17-19/20 | hij                  |
+      | file        | Range: bytes=18-40                                        | 206    | bytes 18-19/20 | ij                   |
+      | file        | Range: bytes=20-                                          | 416    | bytes */20     | none                 |
+      | byte source | Range: bytes=25-30                                        | 416    | bytes */20     | none                 |
+      | file        | Range: bytes=0-1,5-6                                      | 200    | none           | 0123456789abcdefghij |
+      | file        | Range: bytes=5-9; If-Range: "v1"                          | 206    | bytes 5-9/20   | 56789                |
+      | file        | Range: bytes=5-9; If-Range: "v0"                          | 200    | none           | 0123456789abcdefghij |
+      | byte source | Range: bytes=5-9; If-Range: "v0"                          | 200    | none           | 0123456789abcdefghij |
+      | file        | Range: bytes=5-9; If-Range: Fri, 31 Dec 2021 00:00:00 GMT | 200    | none           | 0123456789abcdefghij |
+      | file        | Range: bytes=5-9; If-Range: Sat, 01 Jan 2022 00:00:00 GMT | 206    | bytes 5-9/20   | 56789                |
+      | file        | If-None-Match: "v1"                                       | 304    | none           | none                 |
+      | byte source | If-None-Match: "v0", "v1"                                 | 304    | none           | none                 |
+      | file        | If-None-Match: "v0"                                       | 200    | none           | 0123456789abcdefghij |
+      | file        | If-None-Match: "v1"; Range: bytes=5-9                     | 304    | none           | none                 |
+      | file        | If-Modified-Since: Sat, 01 Jan 2022 00:00:00 GMT          | 304    | none           | none                 |
+      | file        | If-Modified-Since: Fri, 31 Dec 2021 00:00:00 GMT          | 200    | none           | 0123456789abcdefghij |
+
+  @infrastructure
+  Scenario: Verify that a not modified download still carries the validators of the content
+    Given The content 0123456789abcdefghij with the entity tag v1 is stored in a file
+    When The content is downloaded with the headers If-None-Match: "v1"
+    Then The download answers 304 with the content range none and the body none
+    And The download carries the entity tag v1
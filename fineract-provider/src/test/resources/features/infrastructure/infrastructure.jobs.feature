@@ -0,0 +1,77 @@
+Feature: Cluster Wide Job Leases And Partitions
+
+  @infrastructure
+  Scenario: Verify that a job fired on every node runs on one node only
+    Given The nodes A, B share the job lease tables
+    When Node A fires the hourly job scheduled at 10:00
+    Then Node A runs the job
+    When Node B fires the hourly job scheduled at 10:00
+    Then Node B does not run the job
+    When Node A finishes the job
+    When Node B fires the hourly job scheduled at 10:00
+    Then Node B does not run the job
+    When Node B fires the hourly job scheduled at 11:00
+    Then Node B runs the job
+
+  @infrastructure
+  Scenario: Verify that a misfired fire of a job which already ran is refused
+    Given The nodes A, B share the job lease tables
+    When Node A fires the hourly job scheduled at 10:00
+    Then Node A runs the job
+    When Node A finishes the job
+    When Node B fires the hourly job scheduled at 10:00:40
+    Then Node B does not run the job
+    When Node B fires the hourly job scheduled at 11:00
+    Then Node B runs the job
+
+  @infrastructure
+  Scenario: Verify that a fire on time is refused after a node ran the misfired fire of the same hour
+    Given The nodes A, B share the job lease tables
+    When Node B fires the hourly job scheduled at 10:00:40
+    Then Node B runs the job
+    When Node B finishes the job
+    When Node A fires the hourly job scheduled at 10:00
+    Then Node A does not run the job
+
+  @infrastructure
+  Scenario: Verify that a lease is only taken over once its holder stopped renewing it
+    Given The nodes A, B share the job lease tables
+    Then Node A takes the lease on run:1
+    Then Node A cannot take the lease on run:1
+    Then Node B cannot take the lease on run:1
+    When 45 seconds pass on the job lease clock
+    When Node A renews 1 lease on its heartbeat
+    When 45 seconds pass on the job lease clock
+    Then Node B cannot take the lease on run:1
+    When 61 seconds pass on the job lease clock
+    Then Node B takes the lease on run:1
+    When Node A renews 0 leases on its heartbeat
+    Then Node A cannot take the lease on run:1
+
+  @infrastructure
+  Scenario: Verify that the leader of a job run sums the results of the partitions processed on every node
+    Given The nodes A, B share the job lease tables
+    When Node A leads a run of the partitions 1-10; 11-20; 21-25, held up on its first partition
+    When Node B picks up the open partitions
+    When Node A finishes its partition
+    Then The partitions of the run are 1-10 DONE by A; 11-20 DONE by B; 21-25 DONE by B
+    Then The leader of the run sums 25 processed ids
+    Then Node A processed the partitions 1-10
+    Then Node B processed the partitions 11-20; 21-25
+    Then No partition of the run is left in the job partition table
+
+  @infrastructure
+  Scenario: Verify that a partition whose claim lapsed is failed rather than claimed again
+    Given The nodes A, B share the job lease tables
+    When Node A leads a run of the partitions 1-10; 11-20, held up on its first partition
+    When Node B picks up the open partitions and is held up
+    When 61 seconds pass on the job lease clock
+    When Node A renews 1 lease on its heartbeat
+    When Node A finishes its partition
+    Then The partitions of the run are 1-10 DONE by A; 11-20 FAILED
+    Then The failed partition tells that its claim lapsed
+    Then The leader of the run sums 10 processed ids
+    Then Node A processed the partitions 1-10
+    When Node B finishes its partition
+    Then Node B processed the partitions 11-20
+    Then No partition of the run is left in the job partition table
@@ -0,0 +1,90 @@
+Feature: Tenant Schema Upgrades
+
+  @infrastructure
+  Scenario: Verify that a tenant on the current changelog is not upgraded again
+    Given The tenants alpha, beta are upgraded on 2 threads
+    Given The tenant alpha was upgraded with the current changelog
+    When The application starts
+    Then The application started
+    Then The changelog of the tenant alpha was applied 0 times
+    Then The changelog of the tenant beta was applied 1 time
+    Then The tenant beta is on the current changelog
+    Then The identity sequences of the tenant alpha were resynced 1 time
+    Then The identity sequences of the tenant beta were resynced 1 time
+    When The application starts
+    Then The changelog of the tenant alpha was applied 0 times
+    Then The changelog of the tenant beta was applied 1 time
+    Then The identity sequences of the tenant alpha were resynced 2 times
+    Then The identity sequences of the tenant beta were resynced 2 times
+
+  @infrastructure
+  Scenario Outline: Verify that a changed changelog or parameter upgrades the tenants again
+    Given The tenants alpha, beta are upgraded on 2 threads
+    Given The tenant alpha was upgraded with the current changelog
+    Given The tenant beta was upgraded with the current changelog
+    Given <change>
+    Then The tenant alpha is not on the current changelog
+    When The application starts
+    Then The application started
+    Then The changelog of the tenant alpha was applied 1 time
+    Then The changelog of the tenant beta was applied 1 time
+    Then The tenant alpha is on the current changelog
+
+    Examples:
+      | change                                        |
+      | A changeset of the changelog is edited        |
+      | A changeset is added to the changelog         |
+      | The changelog parameter currency is set to EUR |
+
+  @infrastructure
+  Scenario: Verify that a failed tenant upgrade does not stop the others and every failure is reported
+    Given The tenants alpha, beta, gamma, delta are upgraded on 4 threads
+    Given The upgrade of the tenant beta fails
+    Given The upgrade of the tenant delta fails
+    When The application starts
+    Then The application fails to start reporting 2 of 4 tenant upgrades
+    Then The tenant alpha is on the current changelog
+    Then The tenant gamma is on the current changelog
+    Then The tenant beta is not on the current changelog
+    Then The tenant delta is not on the current changelog
+    Then The identity sequences of the tenant alpha were resynced 1 time
+    Then The identity sequences of the tenant beta were resynced 0 times
+
+  @infrastructure
+  Scenario: Verify that a tenant needing a manual upgrade is reported first among the failed upgrades
+    Given The tenants alpha, beta, gamma are upgraded on 3 threads
+    Given The upgrade of the tenant alpha fails
+    Given The upgrade of the tenant gamma needs a manual upgrade first
+    When The application starts
+    Then The application fails to start with a schema upgrade needed and 1 other failure
+    Then The tenant beta is on the current changelog
+
+  @infrastructure
+  Scenario: Verify that a tenant is upgraded once by concurrent first requests when upgrading on first use
+    Given The tenants alpha, beta are upgraded on 2 threads on their first use
+    Given The upgrade of the tenant alpha takes a while
+    When The application starts
+    Then No tenant was upgraded on startup
+    When 8 requests of the tenant alpha arrive at the same time
+    Then 0 of the requests failed
+    Then The changelog of the tenant alpha was applied 1 time
+    Then The changelog of the tenant beta was applied 0 times
+    Then The tenant alpha is on the current changelog
+    Then The identity sequences of the tenant alpha were resynced 1 time
+    Then The identity sequences of the tenant beta were resynced 0 times
+    When 1 request of the tenant alpha arrives
+    Then The changelog of the tenant alpha was applied 1 time
+    Then The identity sequences of the tenant alpha were resynced 1 time
+
+  @infrastructure
+  Scenario: Verify that a failed upgrade on first use is retried by the next request
+    Given The tenants alpha are upgraded on 1 thread on their first use
+    Given The upgrade of the tenant alpha fails once
+    When The application starts
+    When 1 request of the tenant alpha arrives
+    Then 1 of the requests failed
+    Then The tenant alpha is not on the current changelog
+    When 1 request of the tenant alpha arrives
+    Then 1 of the requests failed
+    Then The changelog of the tenant alpha was applied 2 times
+    Then The tenant alpha is on the current changelog
@@ -0,0 +1,42 @@
+Feature: Persistence Infrastructure
+
+  @infrastructure
+  Scenario: Verify that pooled ids are handed out from reserved blocks
+    Given A pooled id sequence with blocks of 3 ids whose counter starts at 10
+    When Tenant default takes 5 ids from the pooled sequence
+    Then The pooled sequence handed out the ids 11, 12, 13, 14, 15
+    Then The pooled sequence reserved 2 blocks and resynced with the table 1 time
+
+  @infrastructure
+  Scenario: Verify that every tenant reserves its own blocks of pooled ids
+    Given A pooled id sequence with blocks of 3 ids whose counter starts at 10
+    When Tenant default takes 2 ids from the pooled sequence
+    When Tenant other takes 2 ids from the pooled sequence
+    When Tenant default takes 2 ids from the pooled sequence
+    Then The pooled sequence handed out the ids 11, 12, 14, 15, 13, 17
+    Then The pooled sequence reserved 3 blocks and resynced with the table 2 times
+
+  @infrastructure
+  Scenario: Verify that the identity sequences are moved past the pooled ids once batch writing is off
+    Given A PostgreSQL tenant whose identity sequences of the pooled tables are at 100
+    Given The pooled table acc_gl_journal_entry holds the ids up to 150
+    Given The pooled table m_loan_repayment_schedule holds the ids up to 100
+    Given The pooled table m_savings_account_transaction holds the ids up to 80
+    Given The pooled table m_portfolio_command_source holds the ids up to 120
+    Given The pooled table m_portfolio_command_source has no identity sequence
+    When The identity sequences are resynced with batch writing off
+    Then The identity sequence of acc_gl_journal_entry is at 150
+    Then The identity sequence of m_loan_repayment_schedule is at 100
+    Then The identity sequence of m_savings_account_transaction is at 100
+
+  @infrastructure
+  Scenario Outline: Verify that the identity sequences are left alone while they are not used
+    Given A <database> tenant whose identity sequences of the pooled tables are at 100
+    Given The pooled table acc_gl_journal_entry holds the ids up to 150
+    When The identity sequences are resynced with batch writing <batchWriting>
+    Then The identity sequence of acc_gl_journal_entry is at 100
+
+    Examples:
+      | database   | batchWriting |
+      | PostgreSQL | on           |
+      | MySQL      | off          |
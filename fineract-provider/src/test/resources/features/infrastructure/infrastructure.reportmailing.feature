@@ -0,0 +1,40 @@
+Feature: Report Mailing Jobs
+
+  @infrastructure
+  Scenario: Verify that a report is rendered once and sent once to each recipient
+    Given The Table report renders 2048 bytes
+    And A report mailing job is due to mail it as CSV to ops@bank.org, OPS@bank.org , audit@bank.org, ops@bank.org
+    When The report mailing jobs are executed
+    Then The report was sent to audit@bank.org, ops@bank.org
+    And Each delivery attached the same report file of 2048 bytes, which is deleted after the last one
+    And The run history records Success for 2 recipients and an attachment of 2048 bytes
+    And The run history error log is empty
+
+  @infrastructure
+  Scenario: Verify that a rejected recipient does not stop the other deliveries
+    Given The Table report renders 512 bytes
+    And A report mailing job is due to mail it as CSV to ops@bank.org, audit@bank.org, risk@bank.org
+    And The mail server rejects audit@bank.org
+    When The report mailing jobs are executed
+    Then The report was sent to ops@bank.org, risk@bank.org
+    And Each delivery attached the same report file of 512 bytes, which is deleted after the last one
+    And The run history records Error for 3 recipients and an attachment of 512 bytes
+    And The run history error log mentions "Failed to send the report to audit@bank.org"
+
+  @infrastructure
+  Scenario: Verify that a render failure is recorded in the run history
+    Given The Table report fails to render
+    And A report mailing job is due to mail it as CSV to ops@bank.org, audit@bank.org
+    When The report mailing jobs are executed
+    Then The report was sent to nobody
+    And The run history records Error for 2 recipients
+    And The run history error log mentions "The report database is gone"
+
+  @infrastructure
+  Scenario: Verify that a missing reporting service is recorded in the run history
+    Given The Pentaho report has no reporting service
+    And A report mailing job is due to mail it as CSV to ops@bank.org
+    When The report mailing jobs are executed
+    Then The report was sent to nobody
+    And The run history records Error for 1 recipients
+    And The run history error log mentions "for this report type: Pentaho"
@@ -0,0 +1,81 @@
+Feature: Command JSON Parameters
+
+  @infrastructure
+  Scenario Outline: Verify that a parameter given twice is rejected
+    Given The command JSON is '<json>'
+    When The command JSON is <how> for the parameters locale, transactionDate, transactionAmount
+    Then The command JSON is rejected for the duplicate parameter <parameter>
+
+    Examples:
+      | json                                                                   | how                | parameter         |
+      | {"transactionDate":"01 May 2022","transactionDate":"02 May 2022"}      | checked            | transactionDate   |
+      | {"transactionDate":"01 May 2022","transactionDate":"02 May 2022"}      | parsed and checked | transactionDate   |
+      | {"locale":"en", "transactionAmount":{"a":1}, "transactionAmount":null} | checked            | transactionAmount |
+      | {"locale":"en", "transactionAmount":{"a":1}, "transactionAmount":null} | parsed and checked | transactionAmount |
+
+  @infrastructure
+  Scenario Outline: Verify that a command JSON which is no object is rejected
+    Given The command JSON is '<json>'
+    When The command JSON is <how> for the parameters locale
+    Then The command JSON is rejected as <exception>
+
+    Examples:
+      | json              | how                | exception            |
+      | [{"locale":"en"}] | checked            | JsonSyntaxException  |
+      | [{"locale":"en"}] | parsed and checked | JsonSyntaxException  |
+      | "en"              | checked            | JsonSyntaxException  |
+      | "en"              | parsed and checked | JsonSyntaxException  |
+      | null              | checked            | InvalidJsonException |
+      | null              | parsed and checked | InvalidJsonException |
+      |                   | checked            | InvalidJsonException |
+      |                   | parsed and checked | InvalidJsonException |
+
+  @infrastructure
+  Scenario Outline: Verify that content after the command JSON is rejected
+    Given The command JSON is '<json>'
+    When The command JSON is <how> for the parameters locale
+    Then The command JSON is rejected as JsonSyntaxException
+
+    Examples:
+      | json               | how                |
+      | {"locale":"en"} x  | checked            |
+      | {"locale":"en"} x  | parsed and checked |
+      | {"locale":"en"}}   | checked            |
+      | {"locale":"en"}}   | parsed and checked |
+      | {"locale":"en"} {} | checked            |
+      | {"locale":"en"} {} | parsed and checked |
+
+  @infrastructure
+  Scenario Outline: Verify that unsupported parameters are rejected by name
+    Given The command JSON is '{"locale":"en","note":"late","transactionDate":"01 May 2022","amount":10}'
+    When The command JSON is <how> for the parameters locale, transactionDate
+    Then The command JSON is rejected for the unsupported parameters note, amount
+
+    Examples:
+      | how                |
+      | checked            |
+      | parsed and checked |
+
+  @infrastructure
+  Scenario Outline: Verify that supported parameters are accepted
+    Given The command JSON is '{"locale":"en","transactionDate":{"day":[1,{"transactionDate":2}]}}'
+    When The command JSON is <how> for the parameters locale, transactionDate
+    Then The command JSON is accepted
+    And The parsed command JSON is '{"locale":"en","transactionDate":{"day":[1,{"transactionDate":2}]}}'
+
+    Examples:
+      | how                |
+      | checked            |
+      | parsed and checked |
+
+  @infrastructure
+  Scenario: Verify that a loan repayment is validated on the parsed command JSON
+    Given The command JSON is '{"locale":"en","dateFormat":"dd MMMM yyyy","transactionDate":"01 May 2022","transactionAmount":"10"}'
+    When The command JSON is validated as a loan repayment
+    Then The command JSON is accepted
+
+  @infrastructure
+  Scenario: Verify that a loan repayment with an unsupported parameter is rejected
+    Given The command JSON is '{"locale":"en","dateFormat":"dd MMMM yyyy","transactionDate":"01 May 2022","amount":"10"}'
+    When The command JSON is validated as a loan repayment
+    Then The command JSON is rejected for the unsupported parameters amount
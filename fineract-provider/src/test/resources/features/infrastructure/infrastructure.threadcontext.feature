@@ -0,0 +1,23 @@
+Feature: Thread Context Of Pool Threads
+
+  @infrastructure
+  Scenario: Verify that the association reads of two tenants sharing the pool threads never see each other's context
+    Given The association loader runs on 2 threads with a queue of 500
+    When The tenants alpha and beta each load 200 associations at the same time
+    Then Every association read sees the context of its own tenant
+    When A request without a tenant loads an association
+    Then The association read sees no context
+
+  @infrastructure
+  Scenario: Verify that an association read rejected to the request thread runs in the context of that request
+    Given The association loader runs on 1 thread with a queue of 1
+    When The tenant alpha keeps the association loader busy
+    When The tenant beta loads an association
+    Then The association read ran on the request thread
+    Then The association read sees the context of the tenant beta
+    Then The request of the tenant beta keeps its context after the read
+    When The busy association loader is released
+    Then The queued association reads see the context of the tenant alpha
+    When A request without a tenant loads an association
+    Then The association read ran on the pool thread
+    Then The association read sees no context
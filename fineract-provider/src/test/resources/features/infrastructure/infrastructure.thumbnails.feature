@@ -0,0 +1,38 @@
+Feature: Image Thumbnail Cache
+
+  @infrastructure
+  Scenario: Verify that the least recently used thumbnail is evicted
+    Given The thumbnail cache holds 1 MB of thumbnails of 400 KB
+    When The image of the client 1 is requested at 100x100
+    And The image of the client 2 is requested at 100x100
+    And The image of the client 1 is requested at 100x100
+    And The image of the client 3 is requested at 100x100
+    Then The thumbnail cache directory holds 2 thumbnails
+    When The image of the client 1 is requested at 100x100
+    And The image of the client 3 is requested at 100x100
+    Then The image of the client 1 was resized 1 time
+    And The image of the client 3 was resized 1 time
+    When The image of the client 2 is requested at 100x100
+    Then The image of the client 2 was resized 2 times
+    And The thumbnail of the client 2 is served
+
+  @infrastructure
+  Scenario: Verify that every size of an image is a thumbnail of its own
+    Given The thumbnail cache holds 1 MB of thumbnails of 1 KB
+    When The image of the client 1 is requested at 100x100
+    And The image of the client 1 is requested at 200x200
+    And The image of the client 1 is requested at 100x100
+    Then The image of the client 1 was resized 2 times
+    And The thumbnail cache directory holds 2 thumbnails
+
+  @infrastructure
+  Scenario: Verify that a thumbnail deleted on disk after the lookup is resized again
+    Given The thumbnail cache holds 1 MB of thumbnails of 1 KB
+    When The image of the client 1 is requested at 100x100
+    And The cached thumbnails are deleted on disk
+    And The image of the client 1 is requested at 100x100
+    Then The image of the client 1 was resized 2 times
+    And The thumbnail of the client 1 is served
+    And The thumbnail cache directory holds 1 thumbnail
+    When The image of the client 1 is requested at 100x100
+    Then The image of the client 1 was resized 2 times
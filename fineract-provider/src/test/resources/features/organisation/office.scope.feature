@@ -0,0 +1,43 @@
+Feature: Office Hierarchy Scope
+
+  @organisation
+  Scenario Outline: Verify that the office scope covers the offices at or below the user's office
+    Given The offices 1 (head office), 2 under 1, 3 under 2 and 4 under 1
+    Then The office scope of <hierarchy> on <columns> is <condition>
+
+    Examples:
+      | hierarchy | columns                  | condition                                            |
+      | .         | c.office_id              | (c.office_id is not null)                            |
+      | .         | c.office_id, l.office_id | (c.office_id is not null or l.office_id is not null) |
+      | .2.       | c.office_id              | (c.office_id in (2,3))                               |
+      | .2.       | c.office_id, g.office_id | (c.office_id in (2,3) or g.office_id in (2,3))       |
+      | .2.3.     | c.office_id              | (c.office_id in (3))                                 |
+      | .4.       | c.office_id              | (c.office_id in (4))                                 |
+      | .9.       | c.office_id              | (1 = 0)                                              |
+      | .9.       | c.office_id, g.office_id | (1 = 0)                                              |
+
+  @organisation
+  Scenario: Verify that the subtree of an office is read once
+    Given The offices 1 (head office), 2 under 1, 3 under 2 and 4 under 1
+    When The office scope of .2. on c.office_id is built
+    And The office 5 is added under the office 2 without the office service
+    Then The office scope of .2. on c.office_id is (c.office_id in (2,3))
+
+  @organisation
+  Scenario: Verify that creating an office evicts the cached subtrees
+    Given The offices 1 (head office), 2 under 1, 3 under 2 and 4 under 1
+    When The office scope of .2. on c.office_id is built
+    And The office scope of .2.3. on c.office_id is built
+    And The office 5 is created under the office 3
+    Then The office scope of .2. on c.office_id is (c.office_id in (2,3,5))
+    And The office scope of .2.3. on c.office_id is (c.office_id in (3,5))
+
+  @organisation
+  Scenario: Verify that moving an office evicts the cached subtrees
+    Given The offices 1 (head office), 2 under 1, 3 under 2 and 4 under 1
+    When The office scope of .2. on c.office_id is built
+    And The office scope of .4. on c.office_id is built
+    And The office 3 is moved under the office 4
+    Then The office scope of .2. on c.office_id is (c.office_id in (2))
+    And The office scope of .4. on c.office_id is (c.office_id in (3,4))
+    And The office scope of .4.3. on c.office_id is (c.office_id in (3))
@@ -0,0 +1,62 @@
+Feature: Collection Sheet Cache
+
+  @collectionsheet
+  Scenario Outline: Verify that a change to an account evicts the cached sheets of that account only
+    Given The collection sheets are cached on a single node
+    Given The collection sheet of the center 1 with the loans 101, 102 and the savings 301 is cached
+    Given The collection sheet of the center 2 with the loans 201 and the savings 302 is cached
+    Given The collection sheet of the center 3 with the loans 102 and the savings none is cached
+    When A <event> event with the <entity> of the <account> is committed
+    Then The collection sheet of the center 1 is <center1>
+    Then The collection sheet of the center 2 is <center2>
+    Then The collection sheet of the center 3 is <center3>
+
+    Examples:
+      | event                     | entity             | account             | center1    | center2    | center3    |
+      | LOAN_MAKE_REPAYMENT       | LOAN_TRANSACTION   | loan 101            | not cached | cached     | cached     |
+      | LOAN_ADJUST_TRANSACTION   | LOAN_ADJUSTED_TRANSACTION | loan 102     | not cached | cached     | not cached |
+      | LOAN_DISBURSAL            | LOAN               | loan 201            | cached     | not cached | cached     |
+      | LOAN_ADD_CHARGE           | LOAN_CHARGE        | loan 102            | not cached | cached     | not cached |
+      | LOAN_WAIVE_CHARGE         | LOAN_CHARGE        | loan 201            | cached     | not cached | cached     |
+      | LOAN_CHARGE_PAYMENT       | LOAN               | loan 101            | not cached | cached     | cached     |
+      | LOAN_APPLY_OVERDUE_CHARGE | LOAN               | loan 201            | cached     | not cached | cached     |
+      | LOAN_WAIVE_INTEREST       | LOAN_TRANSACTION   | loan 101            | not cached | cached     | cached     |
+      | LOAN_WRITTEN_OFF          | LOAN_TRANSACTION   | loan 201            | cached     | not cached | cached     |
+      | SAVINGS_DEPOSIT           | SAVINGS_TRANSACTION | savings account 301 | not cached | cached     | cached     |
+      | SAVINGS_WITHDRAWAL        | SAVINGS_TRANSACTION | savings account 302 | cached     | not cached | cached     |
+      | SAVINGS_WITHDRAWAL        | SAVINGS_TRANSACTION | savings account 101 | cached     | cached     | cached     |
+      | LOAN_MAKE_REPAYMENT       | LOAN_TRANSACTION   | loan 999            | cached     | cached     | cached     |
+
+  @collectionsheet
+  Scenario: Verify that a sheet is evicted once the transaction commits and not when it rolls back
+    Given The collection sheets are cached on a single node
+    Given The collection sheet of the center 1 with the loans 101 and the savings none is cached
+    When A LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 101 is rolled back
+    Then The collection sheet of the center 1 is cached
+    When A LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 101 is made outside of a transaction
+    Then The collection sheet of the center 1 is not cached
+
+  @collectionsheet
+  Scenario: Verify that the same loan of another tenant does not evict the sheet
+    Given The collection sheets are cached on a single node
+    Given The collection sheet of the center 1 with the loans 101 and the savings none is cached
+    When A LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 101 of the tenant other is committed
+    Then The collection sheet of the center 1 is cached
+
+  @collectionsheet
+  Scenario: Verify that a sheet built across an eviction is not cached
+    Given The collection sheets are cached on a single node
+    When The collection sheet of the center 1 with the loans 101 is built while a LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 101 is committed
+    Then The collection sheet of the center 1 is not cached
+    Given The collection sheet of the center 1 with the loans 101 and the savings none is cached
+    Then The collection sheet of the center 1 is cached
+
+  @collectionsheet
+  Scenario: Verify that a sheet cached again is indexed by its new accounts only
+    Given The collection sheets are cached on a single node
+    Given The collection sheet of the center 1 with the loans 101 and the savings none is cached
+    Given The collection sheet of the center 1 with the loans 102 and the savings none is cached
+    When A LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 101 is committed
+    Then The collection sheet of the center 1 is cached
+    When A LOAN_MAKE_REPAYMENT event with the LOAN_TRANSACTION of the loan 102 is committed
+    Then The collection sheet of the center 1 is not cached
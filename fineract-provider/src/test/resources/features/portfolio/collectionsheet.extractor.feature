@@ -0,0 +1,17 @@
+Feature: Collection Sheet Extractor
+
+  @collectionsheet
+  Scenario Outline: Verify that the streamed collection sheet has the groups, clients and accounts of the flat rows
+    Given The collection sheet query returns the loan rows <loanRows> and the savings rows <savingsRows>
+    When The collection sheet is built from the rows
+    Then The collection sheet groups are <groups>
+    Then The collection sheet matches the sheet built from the flat rows
+    Then The collection sheet lists the loan products <loanProducts>
+
+    Examples:
+      | loanRows                                      | savingsRows                          | groups                                                                                                                                                   | loanProducts |
+      | 1/11/101, 1/11/102, 1/12/-, 2/21/201, 2/22/203 | 1/12/301, 1/13/302, 2/21/304, 3/31/303 | group 1 (client 11: loans 101, 102; client 12: no loans, savings 301; client 13: savings 302) group 2 (client 21: loans 201, savings 304; client 22: loans 203) group 3 (client 31: savings 303) | 1, 2         |
+      | 1/11/-, 1/12/-, 2/21/-                         | none                                 | group 1 (client 11: no loans; client 12: no loans) group 2 (client 21: no loans)                                                                          | none         |
+      | none                                          | 1/11/301, 1/11/302, 2/21/401           | group 1 (client 11: savings 301, 302) group 2 (client 21: savings 401)                                                                                   | none         |
+      | 1/11/101, 2/21/201, 3/31/301                   | none                                 | group 1 (client 11: loans 101) group 2 (client 21: loans 201) group 3 (client 31: loans 301)                                                              | 1, 2, 3      |
+      | none                                          | none                                 | none                                                                                                                                                     | none         |
@@ -0,0 +1,25 @@
+Feature: Collection Sheet Transaction Lanes
+
+  @collectionsheet
+  Scenario: Verify that the repayments of one loan are made in sheet order
+    Given The collection sheet repayments of the loans 1, 2, 1, 3, 1, 2, 3, 1
+    When The collection sheet is saved on 3 lanes
+    Then The collection sheet repayments of every loan are made in sheet order
+    Then The collection sheet results are the loans 1, 2, 1, 3, 1, 2, 3, 1 in sheet order
+    Then The collection sheet records 0 failed transactions
+
+  @collectionsheet
+  Scenario: Verify that a failing repayment does not affect the other repayments
+    Given The collection sheet repayments of the loans 1, 2, 3
+    Given The collection sheet repayment of loan 2 fails
+    When The collection sheet is saved on 3 lanes
+    Then The collection sheet repayment of loan 2 fails with error.msg.collectionsheet.test.failure
+    Then The collection sheet loan transactions are 1, 3
+    Then The collection sheet records 1 failed transactions and partial success
+
+  @collectionsheet
+  Scenario: Verify that a collection sheet awaiting approval is saved in the transaction of its command
+    Given The collection sheet repayments of the loans 1, 2, 3
+    Given The collection sheet awaits approval by a checker
+    When The collection sheet is saved on 3 lanes
+    Then The collection sheet repayments are made on the thread of its command
@@ -0,0 +1,23 @@
+Feature: Loan Accrual Batch Processing
+
+  @loanaccount
+  Scenario: Verify that an accrual partition posts all candidate loans of its range in one batch
+    Given The candidate loans 1, 3, 5 in the accrual partition of loans 1 to 5
+    When The accrual partition is processed
+    Then The accruals of the loans are written in the batches 1, 3, 5
+    Then The accrual partition summary counts 3 loans and 3 postings with interest 9
+
+  @loanaccount
+  Scenario: Verify that an accrual partition with a failing loan is posted loan by loan
+    Given The candidate loans 1, 3, 5 in the accrual partition of loans 1 to 5
+    Given The accrual calculation of loan 3 fails
+    When The accrual partition is processed
+    Then The accruals of the loans are written in the batches 1; 5
+    Then The accrual partition fails with 1 error
+
+  @loanaccount
+  Scenario: Verify that a dry run accrual partition writes nothing
+    Given The candidate loans 2, 4 in the dry run accrual partition of loans 2 to 4
+    When The accrual partition is processed
+    Then No accruals are written
+    Then The accrual partition summary counts 2 loans and 2 postings with interest 6
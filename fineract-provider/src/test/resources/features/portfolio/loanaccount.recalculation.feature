@@ -0,0 +1,58 @@
+Feature: Loan Interest Recalculation Batch Processing
+
+  @loanaccount
+  Scenario: Verify that the interest recalculation partitions the candidate loans by batch size
+    Given The loans 1, 2, 3, 5, 8, 13, 21 are due for interest recalculation
+    When The interest recalculation runs with thread-pool-size 4 and batch-size 3
+    Then The interest recalculation partitions are 1-3; 5-13; 21-21 on 4 threads
+    Then The interest of the loans 1, 2, 3, 5, 8, 13, 21 is recalculated
+    Then The interest recalculation progress of loan 8 is DONE after 1 attempt
+    Then The interest recalculation summary starts with 7 loans recalculated, 0 failed, 3 partitions, 0 failures in total
+
+  @loanaccount
+  Scenario: Verify that the interest recalculation records a failing loan and the rerun of the day only retries it
+    Given The loans 1, 2, 3, 4 are due for interest recalculation
+    Given The interest recalculation of loan 3 fails
+    When The interest recalculation runs with thread-pool-size 2 and batch-size 2
+    Then The interest of the loans 1, 2, 4 is recalculated
+    Then The interest recalculation progress of loan 3 is FAILED after 1 attempt
+    Then The interest recalculation progress of loan 4 is DONE after 1 attempt
+    Then The interest recalculation fails with the summary 3 loans recalculated, 1 failed, 2 partitions, 1 failures in total
+    Given The interest recalculation of loan 3 succeeds again
+    When The interest recalculation runs with thread-pool-size 2 and batch-size 2
+    Then The interest recalculation partitions are 3-3 on 2 threads
+    Then The interest of the loans 3 is recalculated
+    Then The interest recalculation progress of loan 3 is DONE after 2 attempts
+    Then The interest recalculation progress of loan 4 is DONE after 1 attempt
+    Then The interest recalculation summary starts with 1 loans recalculated, 0 failed, 1 partitions, 0 failures in total
+
+  @loanaccount
+  Scenario: Verify that the interest recalculation of the day skips the loans done and not written since
+    Given The loans 1, 2, 3 are due for interest recalculation
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    Then The interest of no loan is recalculated
+    Then The interest recalculation summary starts with 0 loans recalculated, 0 failed, 0 partitions, 0 failures in total
+    Given The loan 2 is written after the interest recalculation
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    Then The interest of the loans 2 is recalculated
+    Then The interest recalculation progress of loan 2 is DONE after 2 attempts
+
+  @loanaccount
+  Scenario: Verify that the interest recalculation of a new day recalculates every loan again
+    Given The loans 1, 2, 3 are due for interest recalculation
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    Given The interest recalculation progress dates from the day before
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    Then The interest recalculation partitions are 1-3 on 1 threads
+    Then The interest of the loans 1, 2, 3 is recalculated
+    Then The interest recalculation progress of loan 1 is DONE after 1 attempt
+
+  @loanaccount
+  Scenario: Verify that the interest recalculation retries a loan hitting a lock failure
+    Given The loans 1, 2 are due for interest recalculation
+    Given The interest recalculation of loan 2 deadlocks once
+    When The interest recalculation runs with thread-pool-size 1 and batch-size 10
+    Then The interest of the loans 1, 2 is recalculated
+    Then The interest recalculation progress of loan 2 is DONE after 1 attempt
+    Then The interest recalculation summary starts with 2 loans recalculated, 0 failed, 1 partitions, 0 failures in total
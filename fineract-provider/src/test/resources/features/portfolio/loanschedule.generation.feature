@@ -0,0 +1,105 @@
+Feature: Loan Schedule Generation
+
+  @loanschedule
+  Scenario Outline: Verify that a compounding schedule with charges is generated as before
+    Given A declining balance loan of 10000 disbursed on 2021-01-04 with 12 monthly repayments at 12% a year
+    Given The loan recalculates interest daily and compounds interest and fees daily
+    Given A loan fee of 50 due on 2021-02-04
+    Given A loan fee of 30 due on 2021-02-20
+    Given A loan penalty of 25 due on 2021-04-10
+    Given A loan fee of 15 every instalment
+    Given A loan fee of 40 due on 2021-07-04
+    Given A loan penalty of 20 due on 2021-07-04
+    When The loan schedule is generated
+    Then The loan schedule has 12 repayment periods
+    Then The repayment period <period> is due on <due> with principal <principal>, interest <interest>, fees <fees> and penalties <penalties>
+
+    Examples:
+      | period | due        | principal | interest | fees | penalties |
+      | 1      | 2021-02-04 | 785.29    | 102.43   | 65   | 0         |
+      | 2      | 2021-03-04 | 801.94    | 85.78    | 45   | 0         |
+      | 3      | 2021-04-04 | 800.35    | 87.37    | 15   | 0         |
+      | 4      | 2021-05-04 | 810.46    | 77.26    | 15   | 25        |
+      | 5      | 2021-06-04 | 815.81    | 71.91    | 15   | 0         |
+      | 6      | 2021-07-04 | 825.85    | 61.87    | 55   | 20        |
+      | 7      | 2021-08-04 | 831.97    | 55.75    | 15   | 0         |
+      | 8      | 2021-09-04 | 840.16    | 47.56    | 15   | 0         |
+      | 9      | 2021-10-04 | 849.81    | 37.91    | 15   | 0         |
+      | 10     | 2021-11-04 | 857.08    | 30.64    | 15   | 0         |
+      | 11     | 2021-12-04 | 866.42    | 21.3     | 15   | 0         |
+      | 12     | 2022-01-04 | 914.86    | 13.32    | 15   | 0         |
+
+  @loanschedule
+  Scenario Outline: Verify that the fees and penalties of a schedule fall into the same periods as before
+    Given A declining balance loan of 5000 disbursed on 2021-03-15 with 6 monthly repayments at 18% a year
+    Given A loan fee of 10 due on 2021-03-15
+    Given A loan fee of 20 due on 2021-04-15
+    Given A loan penalty of 12 due on 2021-04-16
+    Given A loan fee of 7 due on 2021-05-01
+    Given A loan penalty of 9 due on 2021-05-01
+    Given A loan fee of 5 every instalment
+    Given A loan penalty of 3 every instalment
+    Given A loan fee of 11 due on 2021-09-15
+    When The loan schedule is generated
+    Then The loan schedule has 6 repayment periods
+    Then The repayment period <period> is due on <due> with principal <principal>, interest <interest>, fees <fees> and penalties <penalties>
+
+    Examples:
+      | period | due        | principal | interest | fees | penalties |
+      | 1      | 2021-04-15 | 800.57    | 76.44    | 25   | 3         |
+      | 2      | 2021-05-15 | 814.88    | 62.13    | 12   | 24        |
+      | 3      | 2021-06-15 | 825.27    | 51.74    | 5    | 3         |
+      | 4      | 2021-07-15 | 839.15    | 37.86    | 5    | 3         |
+      | 5      | 2021-08-15 | 850.71    | 26.3     | 5    | 3         |
+      | 6      | 2021-09-15 | 869.42    | 13.29    | 16   | 3         |
+
+  @loanschedule
+  Scenario Outline: Verify that a schedule of tranches is generated as before
+    Given A declining balance loan of 9000 disbursed on 2021-01-10 with 9 monthly repayments at 15% a year
+    Given A loan tranche of 4000 disbursed on 2021-01-10
+    Given A loan tranche of 3000 disbursed on 2021-03-10
+    Given A loan tranche of 2000 disbursed on 2021-05-25
+    Given A loan fee of 25 due on 2021-03-10
+    Given A loan penalty of 10 due on 2021-06-01
+    Given A loan fee of 8 every instalment
+    When The loan schedule is generated
+    Then The loan schedule has 9 repayment periods
+    Then The repayment period <period> is due on <due> with principal <principal>, interest <interest>, fees <fees> and penalties <penalties>
+
+    Examples:
+      | period | due        | principal | interest | fees | penalties |
+      | 1      | 2021-02-10 | 1011.69   | 50.96    | 8    | 0         |
+      | 2      | 2021-03-10 | 1028.26   | 34.39    | 33   | 0         |
+      | 3      | 2021-04-10 | 999.46    | 63.19    | 8    | 0         |
+      | 4      | 2021-05-10 | 1013.82   | 48.83    | 8    | 0         |
+      | 5      | 2021-06-10 | 1011.95   | 50.7     | 8    | 10        |
+      | 6      | 2021-07-10 | 1014.14   | 48.51    | 8    | 0         |
+      | 7      | 2021-08-10 | 1025.44   | 37.21    | 8    | 0         |
+      | 8      | 2021-09-10 | 1038.51   | 24.14    | 8    | 0         |
+      | 9      | 2021-10-10 | 856.73    | 10.56    | 8    | 0         |
+
+  @loanschedule
+  Scenario Outline: Verify that a compounding schedule of tranches is generated as before
+    Given A declining balance loan of 9000 disbursed on 2021-01-10 with 9 monthly repayments at 15% a year
+    Given The loan recalculates interest daily and compounds fees daily
+    Given A loan tranche of 4000 disbursed on 2021-01-10
+    Given A loan tranche of 3000 disbursed on 2021-03-10
+    Given A loan tranche of 2000 disbursed on 2021-05-25
+    Given A loan fee of 25 due on 2021-03-10
+    Given A loan penalty of 10 due on 2021-06-01
+    Given A loan fee of 8 every instalment
+    When The loan schedule is generated
+    Then The loan schedule has 9 repayment periods
+    Then The repayment period <period> is due on <due> with principal <principal>, interest <interest>, fees <fees> and penalties <penalties>
+
+    Examples:
+      | period | due        | principal | interest | fees | penalties |
+      | 1      | 2021-02-10 | 1011.81   | 50.84    | 8    | 0         |
+      | 2      | 2021-03-10 | 1028.21   | 34.44    | 33   | 0         |
+      | 3      | 2021-04-10 | 999.43    | 63.22    | 8    | 0         |
+      | 4      | 2021-05-10 | 1013.75   | 48.9     | 8    | 0         |
+      | 5      | 2021-06-10 | 1011.93   | 50.72    | 8    | 10        |
+      | 6      | 2021-07-10 | 1014.05   | 48.6     | 8    | 0         |
+      | 7      | 2021-08-10 | 1025.45   | 37.2     | 8    | 0         |
+      | 8      | 2021-09-10 | 1038.47   | 24.18    | 8    | 0         |
+      | 9      | 2021-10-10 | 856.9     | 10.8     | 8    | 0         |
@@ -0,0 +1,47 @@
+Feature: Savings Charge Batch Jobs
+
+  @savings
+  Scenario: Verify that the due fees and penalties are paid in batches as one by one
+    Given A savings account with a deposit of 1000 made 40 days ago
+    Given A savings fee of 25 due 10 days ago
+    Given A savings penalty of 15 due 5 days ago with the income account 40
+    When The due savings charges are applied in batches and one by one
+    Then The savings charge batch wrote the same transactions as one by one
+    Then The savings charge batch wrote the same end of day balances as one by one
+    Then The savings charge batch wrote the same paid-by rows as one by one
+    Then The savings charge batch wrote the same charges as one by one
+    Then The savings charge batch wrote the same summary as one by one
+    Then The savings charge batch wrote the same journal entries as one by one
+    Then The savings charge batch wrote 2 charge transactions and charged 0 accounts one by one
+
+  @savings
+  Scenario: Verify that a due monthly fee is paid in batches as one by one
+    Given A savings account with a deposit of 1000 made 100 days ago
+    Given A savings monthly fee of 10 due 70 days ago
+    When The due savings charges are applied in batches and one by one
+    Then The savings charge batch wrote the same transactions as one by one
+    Then The savings charge batch wrote the same end of day balances as one by one
+    Then The savings charge batch wrote the same paid-by rows as one by one
+    Then The savings charge batch wrote the same charges as one by one
+    Then The savings charge batch wrote the same summary as one by one
+    Then The savings charge batch wrote the same journal entries as one by one
+
+  @savings
+  Scenario: Verify that an annual fee is paid in batches as one by one
+    Given A savings account with a deposit of 1000 made 500 days ago
+    Given A savings annual fee of 50 due 420 days ago
+    When The annual savings fees are applied in batches and one by one
+    Then The savings charge batch wrote the same transactions as one by one
+    Then The savings charge batch wrote the same end of day balances as one by one
+    Then The savings charge batch wrote the same paid-by rows as one by one
+    Then The savings charge batch wrote the same charges as one by one
+    Then The savings charge batch wrote the same summary as one by one
+    Then The savings charge batch wrote the same journal entries as one by one
+    Then The savings charge batch wrote 2 charge transactions and charged 0 accounts one by one
+
+  @savings
+  Scenario: Verify that an account the batch cannot charge is charged one by one
+    Given A savings account with a deposit of 100 made 40 days ago
+    Given A savings fee of 250 due 10 days ago
+    When The due savings charges are applied in batches
+    Then The savings charge batch wrote 0 charge transactions and charged 1 accounts one by one
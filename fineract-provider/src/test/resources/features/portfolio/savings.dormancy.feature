@@ -0,0 +1,28 @@
+Feature: Savings Dormancy Job
+
+  @savings
+  Scenario: Verify that the accounts pending inactive are made inactive in chunks, those with a no activity fee one by one
+    Given The savings accounts 1, 2, 3, 4, 5 pending inactive
+    Given The savings accounts 2, 7 with a no activity fee
+    When The savings dormancy job runs with thread-pool-size 3 and batch-size 2
+    Then The savings sub status updates are made in the batches 1; 3, 4; 5
+    Then The savings accounts 2 are made inactive one by one
+    Then The savings dormancy notes are inserted for the accounts 1; 2; 3, 4; 5
+    Then The savings dormancy summary starts with 5 accounts made inactive (1 one by one), 0 made dormant, 0 escheated
+
+  @savings
+  Scenario: Verify that the escheats are partitioned by the job parameters and a failing account fails the run
+    Given The savings accounts 1, 2, 3, 4, 5 pending escheat
+    Given The escheat of savings account 4 fails
+    When The savings dormancy job runs with thread-pool-size 2 and batch-size 2
+    Then The savings escheats are partitioned in the ranges 1-2; 3-4; 5-5 on 2 threads
+    Then The savings dormancy notes are inserted for the accounts 1, 2; 3; 5
+    Then The savings dormancy job fails with the summary 0 accounts made inactive (0 one by one), 0 made dormant, 4 escheated
+
+  @savings
+  Scenario: Verify that the savings dormancy job has defaults for missing job parameters
+    Given The savings accounts 1, 2, 3 pending dormant
+    When The savings dormancy job runs without job parameters
+    Then The savings sub status updates are made in the batches 1, 2, 3
+    Then The savings escheats are partitioned in the ranges  on 4 threads
+    Then The savings dormancy summary starts with 0 accounts made inactive (0 one by one), 3 made dormant, 0 escheated
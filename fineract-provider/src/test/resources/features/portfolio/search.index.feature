@@ -0,0 +1,98 @@
+Feature: Global Search Token Index
+
+  @search
+  Scenario: Verify that every suffix of every word is a search token
+    Then The search tokens of 'Ann-Marie 07' are ann, nn, n, marie, arie, rie, ie, e, 07, 7
+    Then The search tokens of 'ÉLÉNA élé' are éléna, léna, éna, na, a, élé, lé, é
+    Then The search words of ' Doe,  JOHN doe ' are doe, john
+
+  @search
+  Scenario: Verify that the rebuilt index finds the words anywhere in the searchable fields
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Johnathan Doe' with the account number 000000001
+    Given The client 1 has the identifier 7 'PASS-99812'
+    Given The group 2 named 'Riverside Traders'
+    Given The client 1 has the loan 3 with the account number 000000042
+    Given The group 2 has the savings account 4 with the account number 000000077
+    When The search index is rebuilt in batches of 2
+    Then The search index finds 'athan' in the CLIENT 1
+    Then The search index finds 'oe' in the CLIENT 1
+    Then The search index finds '0001' in the CLIENT 1
+    Then The search index finds '9981' in the CLIENTIDENTIFIER 7
+    Then The search index finds 'side' in the GROUP 2
+    Then The search index finds '42' in the LOAN 3
+    Then The search index finds '77' in the SAVING 4
+    Then The search index does not find 'athan' in the GROUP 2
+    Then The search index builds are completed with 65
+
+  @search
+  Scenario: Verify that a build completes its own run when another node starts a build at the same time
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Doe' with the account number 1
+    When Another node starts a build while the search index is rebuilt in batches of 10
+    Then The search index builds are completed with 4, running
+
+  @search
+  Scenario: Verify that a client command re-indexes the client with its identifiers, loans and savings accounts
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Doe' with the account number 000000001
+    When The search index is rebuilt in batches of 10
+    Given The client 1 has the identifier 7 'PASS-99812'
+    Given The client 1 has the loan 3 with the account number 000000042
+    Given The client 1 has the savings account 4 with the account number 000000077
+    When The client 1 is renamed to 'Smith'
+    When A CLIENT ACTIVATE command on the resource 1 commits
+    Then The search index finds 'mit' in the CLIENT 1
+    Then The search index does not find 'doe' in the CLIENT 1
+    Then The search index finds '998' in the CLIENTIDENTIFIER 7
+    Then The search index finds '42' in the LOAN 3
+    Then The search index finds '77' in the SAVING 4
+
+  @search
+  Scenario: Verify that a client identifier command re-indexes the client of the identifier
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Doe' with the account number 000000001
+    Given The client 1 has the identifier 7 'PASS-99812'
+    When A CLIENTIDENTIFIER CREATE command on the resource 7 of the client 1 commits
+    Then The search index finds 'pass' in the CLIENTIDENTIFIER 7
+    Then The search index finds 'doe' in the CLIENT 1
+
+  @search
+  Scenario: Verify that a group or center command re-indexes the group with its loans and savings accounts
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The group 2 named 'Riverside'
+    Given The group 2 has the loan 3 with the account number 000000042
+    Given The group 2 has the savings account 4 with the account number 000000077
+    When A CENTER UPDATE command on the resource 2 commits
+    Then The search index finds 'side' in the GROUP 2
+    Then The search index finds '42' in the LOAN 3
+    Then The search index finds '77' in the SAVING 4
+
+  @search
+  Scenario: Verify that only the loan and savings commands changing the account details re-index the account
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Doe' with the account number 000000001
+    Given The client 1 has the loan 3 with the account number 000000042
+    Given The client 1 has the savings account 4 with the account number 000000077
+    When The search index is rebuilt in batches of 10
+    When The account number of the loan 3 is changed to 000000043
+    When The account number of the savings account 4 is changed to 000000078
+    When A LOAN REPAYMENT command on the resource 3 commits
+    When A SAVINGSACCOUNT DEPOSIT command on the resource 4 commits
+    Then The search index finds '42' in the LOAN 3
+    Then The search index finds '77' in the SAVING 4
+    When A LOAN UPDATE command on the resource 3 commits
+    When A SAVINGSACCOUNT UPDATE command on the resource 4 commits
+    Then The search index finds '43' in the LOAN 3
+    Then The search index does not find '42' in the LOAN 3
+    Then The search index finds '78' in the SAVING 4
+
+  @search
+  Scenario: Verify that a command rolled back does not re-index
+    Given The search index of a tenant's clients, groups, loans and savings accounts
+    Given The client 1 named 'Doe' with the account number 000000001
+    When The search index is rebuilt in batches of 10
+    When The client 1 is renamed to 'Smith'
+    When A CLIENT UPDATE command on the resource 1 is rolled back
+    Then The search index finds 'doe' in the CLIENT 1
+    Then The search index does not find 'smith' in the CLIENT 1
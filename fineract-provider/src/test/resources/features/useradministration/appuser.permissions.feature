@@ -0,0 +1,67 @@
+Feature: App User Permissions
+
+  @useradministration
+  Scenario: Verify that an app user is granted the permissions of the roles only
+    Given The user role Officer grants CREATE_LOAN, READ_LOAN
+    Given The user role Teller grants REPAYMENT_LOAN
+    Given The app user has the user roles Officer, Teller
+    Then The app user may CREATE_LOAN
+    Then The app user may create_loan
+    Then The app user may REPAYMENT_LOAN
+    Then The app user may not DELETE_LOAN
+    Then The app user may not ALL_FUNCTIONS
+    Then The app user may not run the report Active Loans
+
+  @useradministration
+  Scenario: Verify that ALL_FUNCTIONS grants every permission, ALL_FUNCTIONS_READ only reading reports
+    Given The user role Admin grants ALL_FUNCTIONS
+    Given The user role Auditor grants ALL_FUNCTIONS_READ
+    Given The app user has the user roles Admin
+    Then The app user may DELETE_LOAN
+    Then The app user may be a checker for CREATE_LOAN
+    Then The app user may run the report Active Loans
+    When The roles of the app user are replaced by Auditor
+    Then The app user may not DELETE_LOAN
+    Then The app user may not be a checker for CREATE_LOAN
+    Then The app user may run the report Active Loans
+
+  @useradministration
+  Scenario: Verify that a checker needs the checker permission of the function or CHECKER_SUPER_USER
+    Given The user role Checker grants CREATE_LOAN_CHECKER, READ_Active Loans
+    Given The user role SuperChecker grants CHECKER_SUPER_USER
+    Given The app user has the user roles Checker
+    Then The app user may be a checker for CREATE_LOAN
+    Then The app user may be a checker for create_loan
+    Then The app user may not be a checker for APPROVE_LOAN
+    Then The app user may not CREATE_LOAN
+    Then The app user may run the report Active Loans
+    When The roles of the app user are replaced by SuperChecker
+    Then The app user may be a checker for APPROVE_LOAN
+    Then The app user may not CREATE_LOAN
+    Then The app user may not run the report Active Loans
+
+  @useradministration
+  Scenario: Verify that changing the permissions of a role recompiles the permissions of its app users
+    Given The user role Officer grants CREATE_LOAN
+    Given The app user has the user roles Officer
+    Then The app user may CREATE_LOAN
+    Then The app user may not DELETE_LOAN
+    When The role service grants DELETE_LOAN to the user role Officer
+    Then The app user may DELETE_LOAN
+    When The role service revokes CREATE_LOAN from the user role Officer
+    Then The app user may not CREATE_LOAN
+
+  @useradministration
+  Scenario: Verify that compiled permissions are kept until the permissions or the roles of the tenant change
+    Given The user role Officer grants CREATE_LOAN, DELETE_LOAN
+    Given The user role Teller grants REPAYMENT_LOAN
+    Given The app user has the user roles Officer
+    Then The app user may DELETE_LOAN
+    When The user role Officer loses DELETE_LOAN outside the role service
+    Then The app user may DELETE_LOAN
+    When The permission service enables maker checker for CREATE_LOAN
+    Then The app user may not DELETE_LOAN
+    Then The app user may CREATE_LOAN
+    When The roles of the app user are replaced by Teller
+    Then The app user may REPAYMENT_LOAN
+    Then The app user may not CREATE_LOAN
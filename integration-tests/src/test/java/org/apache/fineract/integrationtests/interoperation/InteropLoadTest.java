@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.integrationtests.interoperation;
+
+import static org.apache.fineract.integrationtests.common.savings.SavingsAccountHelper.ACCOUNT_TYPE_INDIVIDUAL;
+import static org.apache.fineract.integrationtests.interoperation.InteropHelper.PARAM_ACCOUNT_BALANCE;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.builder.ResponseSpecBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.internal.common.path.ObjectConverter;
+import io.restassured.path.json.JsonPath;
+import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.ResponseSpecification;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.fineract.integrationtests.common.ClientHelper;
+import org.apache.fineract.integrationtests.common.Utils;
+import org.apache.fineract.integrationtests.common.accounting.Account;
+import org.apache.fineract.integrationtests.common.accounting.AccountHelper;
+import org.apache.fineract.integrationtests.common.charges.ChargesHelper;
+import org.apache.fineract.integrationtests.common.savings.SavingsAccountHelper;
+import org.apache.fineract.integrationtests.common.savings.SavingsProductHelper;
+import org.apache.fineract.integrationtests.common.savings.SavingsStatusChecker;
+import org.apache.fineract.interoperation.domain.InteropTransactionRole;
+import org.apache.fineract.interoperation.util.MathUtil;
+import org.apache.fineract.portfolio.charge.domain.ChargeTimeType;
+import org.apache.fineract.portfolio.savings.SavingsApiConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives quote, prepare and commit of many transfers concurrently against one account and checks that the balance and
+ * the hold projection stay consistent. The measured throughput is logged, compare it between runs on the same local
+ * database.
+ *
+ * Tagged <code>load</code>, which the default integration test run excludes. Run it with
+ * <code>./gradlew :integration-tests:test -PloadTests --tests InteropLoadTest</code>.
+ */
+@Tag("load")
+public class InteropLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InteropLoadTest.class);
+
+    private static final int THREADS = 10;
+    private static final int TRANSFERS = 200;
+    private static final String MIN_OPENING_BALANCE = "100000.0";
+
+    private RequestSpecification requestSpec;
+    private ResponseSpecification responseSpec;
+
+    private SavingsAccountHelper savingsAccountHelper;
+    private InteropHelper interopHelper;
+    private Integer savingsId;
+
+    @BeforeEach
+    public void setup() {
+        Utils.initializeRESTAssured();
+        requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+
+        savingsAccountHelper = new SavingsAccountHelper(requestSpec, responseSpec);
+        interopHelper = new InteropHelper(requestSpec, responseSpec, UUID.randomUUID().toString(), UUID.randomUUID().toString());
+
+        AccountHelper accountHelper = new AccountHelper(requestSpec, responseSpec);
+        Account[] accounts = { accountHelper.createAssetAccount(), accountHelper.createIncomeAccount(),
+                accountHelper.createExpenseAccount(), accountHelper.createLiabilityAccount() };
+        final String savingsProductJSON = new SavingsProductHelper().withCurrencyCode(interopHelper.getCurrency())
+                .withNominalAnnualInterestRate(BigDecimal.ZERO).withInterestCompoundingPeriodTypeAsDaily()
+                .withInterestPostingPeriodTypeAsMonthly().withInterestCalculationPeriodTypeAsDailyBalance()
+                .withMinimumOpenningBalance(MIN_OPENING_BALANCE).withAccountingRuleAsCashBased(accounts).build();
+        Integer savingsProductId = SavingsProductHelper.createSavingsProduct(savingsProductJSON, requestSpec, responseSpec);
+        Integer chargeId = ChargesHelper.createCharges(requestSpec, responseSpec, ChargesHelper
+                .getSavingsJSON(interopHelper.getFee().toString(), interopHelper.getCurrency(), ChargeTimeType.WITHDRAWAL_FEE));
+
+        Integer clientId = ClientHelper.createClient(requestSpec, responseSpec);
+        savingsId = savingsAccountHelper.applyForSavingsApplicationWithExternalId(clientId, savingsProductId, ACCOUNT_TYPE_INDIVIDUAL,
+                interopHelper.getAccountExternalId(), true);
+        HashMap savingsStatusHashMap = savingsAccountHelper.approveSavings(savingsId);
+        SavingsStatusChecker.verifySavingsIsApproved(savingsStatusHashMap);
+        savingsStatusHashMap = savingsAccountHelper.activateSavings(savingsId);
+        SavingsStatusChecker.verifySavingsIsActive(savingsStatusHashMap);
+        savingsAccountHelper.addChargesForSavings(savingsId, chargeId, false, interopHelper.getFee());
+    }
+
+    @Test
+    public void concurrentTransfersKeepBalanceAndHoldsConsistent() throws Exception {
+        JsonPath before = JsonPath.from((String) savingsAccountHelper.getSavingsAccountDetail(savingsId, null));
+        BigDecimal onHold = ObjectConverter.convertObjectTo(before.get(SavingsApiConstants.savingsAmountOnHold), BigDecimal.class);
+        BigDecimal balance = ObjectConverter.convertObjectTo(before.get(PARAM_ACCOUNT_BALANCE), BigDecimal.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(() -> {
+                String code = UUID.randomUUID().toString();
+                interopHelper.postQuote(code, InteropTransactionRole.PAYER);
+                interopHelper.prepareTransfer(code);
+                interopHelper.createTransfer(code, InteropTransactionRole.PAYER);
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> future : executor.invokeAll(transfers)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.info("{} interop transfers (quote, prepare, commit) on {} threads took {} ms, {} transfers/s", TRANSFERS, THREADS,
+                elapsedMillis, TRANSFERS * 1000L / Math.max(1, elapsedMillis));
+
+        JsonPath after = JsonPath.from((String) savingsAccountHelper.getSavingsAccountDetail(savingsId, null));
+        BigDecimal onHoldAfter = ObjectConverter.convertObjectTo(after.get(SavingsApiConstants.savingsAmountOnHold), BigDecimal.class);
+        BigDecimal balanceAfter = ObjectConverter.convertObjectTo(after.get(PARAM_ACCOUNT_BALANCE), BigDecimal.class);
+
+        BigDecimal expectedBalance = balance.subtract(interopHelper.getTransferAmount().multiply(BigDecimal.valueOf(TRANSFERS)));
+        Assertions.assertTrue(MathUtil.isEqualTo(onHold, onHoldAfter), "On hold amount expected: " + onHold + ", actual: " + onHoldAfter);
+        Assertions.assertTrue(MathUtil.isEqualTo(expectedBalance, balanceAfter),
+                "Balance amount expected: " + expectedBalance + ", actual: " + balanceAfter);
+    }
+}